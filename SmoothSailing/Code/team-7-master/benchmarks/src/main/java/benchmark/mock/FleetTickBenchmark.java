@@ -0,0 +1,174 @@
+package benchmark.mock;
+
+
+import mock.app.Event;
+import mock.dataInput.PolarParser;
+import mock.model.FleetState;
+import mock.model.MockBoat;
+import mock.model.MockRace;
+import mock.model.Polars;
+import mock.model.wind.ConstantWindGenerator;
+import network.Messages.Enums.BoatStatusEnum;
+import org.openjdk.jmh.annotations.*;
+import shared.dataInput.*;
+import shared.enums.XMLFileType;
+import shared.model.Bearing;
+import shared.model.Constants;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures one 60 Hz frame of the race's boat update - moving, rounding, boundary health, and time estimates - for fleets of increasing size, through the {@link FleetState} arrays against the legacy per-object tick.
+ * Collision ray casting isn't included. Run with -prof gc to see the allocation rate of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FleetTickBenchmark {
+
+    /**
+     * Number of boats racing.
+     */
+    @Param({"64", "1024", "4096"})
+    public int boats;
+
+    /**
+     * Milliseconds in a 60 Hz frame.
+     */
+    private static final long FramePeriod = 16;
+
+
+    private MockRace race;
+    private FleetState fleet;
+
+    /**
+     * Copies of the race's boats, outside of the fleet, for the legacy tick.
+     */
+    private MockBoat[] legacyBoats;
+    private LegacyFleetTick legacyTick;
+
+    private long raceTime;
+
+
+    /**
+     * Creates a boat XML file with the test file's marks, and a given number of yachts.
+     * @param yachts The number of yachts.
+     * @return The boat XML.
+     * @throws Exception Thrown if the test file can't be read.
+     */
+    static String createBoatXML(int yachts) throws Exception {
+        String boatXML = XMLReader.readXMLFileToString("mock/mockXML/boatTest.xml", StandardCharsets.UTF_8);
+
+        //Replace the test file's yachts with our own.
+        String marks = boatXML.substring(0, boatXML.indexOf("<!--Participants-->"));
+
+        StringBuilder builder = new StringBuilder(marks);
+        for (int i = 0; i < yachts; i++) {
+            int sourceID = 1000 + i;
+            builder.append("<Boat BoatName=\"Boat ").append(sourceID).append("\" HullNum=\"RG01\" ShapeID=\"0\" ShortName=\"B").append(sourceID)
+                    .append("\" SourceID=\"").append(sourceID).append("\" StoweName=\"B").append(sourceID).append("\" Type=\"Yacht\">\n")
+                    .append("<GPSposition X=\"-64.854304\" Y=\"32.296577\" Z=\"0\"/>\n</Boat>\n");
+        }
+        builder.append("</Boats>\n</BoatConfig>\n");
+
+        return builder.toString();
+    }
+
+    /**
+     * Creates a race, with a given number of boats racing.
+     * @param yachts The number of boats.
+     * @return The race.
+     * @throws Exception Thrown if the race's files can't be read.
+     */
+    static MockRace createRace(int yachts) throws Exception {
+        String raceXML = Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString("mock/mockXML/ac35MapLayout.xml", StandardCharsets.UTF_8));
+
+        RaceDataSource raceDataSource = new RaceXMLReader(raceXML, XMLFileType.Contents);
+        BoatDataSource boatDataSource = new BoatXMLReader(createBoatXML(yachts), XMLFileType.Contents);
+        RegattaDataSource regattaDataSource = new RegattaXMLReader(XMLReader.readXMLFileToString("mock/mockXML/regattaTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+
+        MockRace race = new MockRace(
+                boatDataSource,
+                raceDataSource,
+                regattaDataSource,
+                PolarParser.parse("mock/polars/acc_polars.csv"),
+                Constants.RaceTimeScale,
+                new ConstantWindGenerator(Bearing.fromDegrees(230), 10));
+
+        race.updateRaceTime(race.getRaceClock().getStartingTimeMilli());
+
+        for (Integer sourceID : boatDataSource.getBoats().keySet()) {
+            race.generateMockBoat(sourceID);
+        }
+        race.initialiseBoats();
+        race.setBoatsStatusToRacing();
+
+        return race;
+    }
+
+
+    /**
+     * Puts every boat back on the start line, so each iteration sails the same part of the course.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        race = createRace(boats);
+        fleet = race.getFleet();
+        raceTime = race.getRaceClock().getStartingTimeMilli();
+
+        Polars polars = PolarParser.parse("mock/polars/acc_polars.csv");
+        legacyTick = new LegacyFleetTick(race, Constants.RaceTimeScale);
+        legacyBoats = new MockBoat[fleet.size()];
+
+        for (int i = 0; i < fleet.size(); i++) {
+            MockBoat boat = fleet.getBoat(i);
+            MockBoat legacyBoat = new MockBoat(boat, polars);
+            legacyBoat.setCurrentLeg(boat.getCurrentLeg());
+            legacyBoat.setPosition(boat.getPosition());
+            legacyBoat.setBearing(boat.getBearing());
+            legacyBoat.setStatus(boat.getStatus());
+            legacyBoat.setEstimatedTimeAtNextMark(boat.getEstimatedTimeAtNextMark());
+            legacyBoats[i] = legacyBoat;
+        }
+    }
+
+
+    /**
+     * Advances the race clock by one frame.
+     * @return The milliseconds elapsed since the race started.
+     */
+    private long nextFrame() {
+        raceTime += FramePeriod;
+        race.updateRaceTime(raceTime);
+        return race.getRaceClock().getDurationMilli();
+    }
+
+
+    @Benchmark
+    public void legacy() {
+        long totalElapsedMilliseconds = nextFrame();
+
+        for (MockBoat boat : legacyBoats) {
+            if (boat.getStatus() == BoatStatusEnum.RACING) {
+                legacyTick.updatePosition(boat, FramePeriod, totalElapsedMilliseconds);
+            }
+        }
+    }
+
+    @Benchmark
+    public void fleet() {
+        long totalElapsedMilliseconds = nextFrame();
+
+        for (int i = 0; i < fleet.size(); i++) {
+            if (fleet.getBoat(i).getStatus() == BoatStatusEnum.RACING) {
+                race.updatePosition(i, FramePeriod, totalElapsedMilliseconds);
+            }
+        }
+    }
+
+}
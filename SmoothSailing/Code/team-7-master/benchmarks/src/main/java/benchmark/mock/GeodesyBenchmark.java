@@ -0,0 +1,68 @@
+package benchmark.mock;
+
+
+import org.openjdk.jmh.annotations.*;
+import shared.model.Azimuth;
+import shared.model.CourseProjection;
+import shared.model.GPSCoordinate;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares the per-boat, per-frame geodesy in {@link GPSCoordinate} - moving a boat forwards, and the distance and azimuth to its next mark - through GeoTools against the {@link CourseProjection}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeodesyBenchmark {
+
+    private GPSCoordinate boat;
+    private GPSCoordinate mark;
+    private Azimuth azimuth;
+    private CourseProjection projection;
+
+
+    @Setup
+    public void setup() {
+        projection = new CourseProjection(new GPSCoordinate(32.2935, -64.8430));
+        boat = new GPSCoordinate(32.2890, -64.8510);
+        mark = new GPSCoordinate(32.2990, -64.8350);
+        azimuth = Azimuth.fromDegrees(52);
+    }
+
+
+    @Benchmark
+    public GPSCoordinate newPositionGeoTools() {
+        return GPSCoordinate.calculateGeodeticNewPosition(boat, 3.2, azimuth);
+    }
+
+    @Benchmark
+    public GPSCoordinate newPositionProjected() {
+        return projection.newPosition(boat.getLatitude(), boat.getLongitude(), 3.2, azimuth.degrees());
+    }
+
+    @Benchmark
+    public double distanceGeoTools() {
+        return GPSCoordinate.calculateGeodeticDistanceMeters(boat, mark);
+    }
+
+    @Benchmark
+    public double distanceProjected() {
+        return projection.distanceMeters(boat.getLatitude(), boat.getLongitude(), mark.getLatitude(), mark.getLongitude());
+    }
+
+    @Benchmark
+    public Azimuth azimuthGeoTools() {
+        return GPSCoordinate.calculateGeodeticAzimuth(boat, mark);
+    }
+
+    @Benchmark
+    public Azimuth azimuthProjected() {
+        return Azimuth.fromDegrees(projection.azimuthDegrees(boat.getLatitude(), boat.getLongitude(), mark.getLatitude(), mark.getLongitude()));
+    }
+
+}
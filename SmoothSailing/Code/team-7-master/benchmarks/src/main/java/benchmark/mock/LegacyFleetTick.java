@@ -0,0 +1,166 @@
+package benchmark.mock;
+
+
+import mock.model.MockBoat;
+import mock.model.MockRace;
+import mock.model.VMG;
+import network.Messages.Enums.BoatStatusEnum;
+import shared.model.*;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static java.lang.Math.cos;
+
+
+/**
+ * The per-boat tick as {@link MockRace#updatePosition(MockBoat, long, long)} ran it before {@link mock.model.FleetState}, kept as a baseline for {@link FleetTickBenchmark}.
+ * Each boat's state is held in its own fields, so every move, rounding check, and time estimate builds new GPSCoordinate, Bearing, Azimuth, Mark, and ZonedDateTime objects.
+ * The boats given to it must not be in a fleet.
+ */
+class LegacyFleetTick {
+
+    private final MockRace race;
+
+    private final int scaleFactor;
+
+
+    /**
+     * Constructs the legacy tick for a race's course and wind.
+     * @param race The race.
+     * @param scaleFactor The race's time scale.
+     */
+    LegacyFleetTick(MockRace race, int scaleFactor) {
+        this.race = race;
+        this.scaleFactor = scaleFactor;
+    }
+
+
+    private boolean isLastLeg(Leg leg) {
+        return leg.getLegNumber() == race.getLegs().get(race.getLegs().size() - 1).getLegNumber();
+    }
+
+
+    void updatePosition(MockBoat boat, long updatePeriodMilliseconds, long totalElapsedMilliseconds) {
+
+        //Checks if the current boat has finished the race or not.
+        boolean finish = this.isLastLeg(boat.getCurrentLeg());
+
+        if (!finish && totalElapsedMilliseconds >= updatePeriodMilliseconds && !boat.isColliding()) {
+            if(boat.isVelocityDefault()) setBoatSpeed(boat);
+            //Calculates the distance travelled, in meters, in the current timeslice.
+            double distanceTravelledMeters = boat.calculateMetersTravelled(updatePeriodMilliseconds) * this.scaleFactor;
+
+            checkPosition(boat, totalElapsedMilliseconds);
+            //Move the boat forwards that many meters, and advances its time counters by enough milliseconds.
+            boat.moveForwards(distanceTravelledMeters, race.getCourseProjection());
+            boat.setTimeSinceTackChange(boat.getTimeSinceTackChange() + updatePeriodMilliseconds);
+        }
+
+        // Remove one unit of health for every frame spent outside boundary
+        if(!finish && !GPSCoordinate.isInsideBoundary(boat.getPosition(), race.getBoundary())) {
+            boat.updateHealth(-0.1);
+        }
+
+        this.updateEstimatedTime(boat);
+
+    }
+
+    private void setBoatSpeed(MockBoat boat) {
+        VMG vmg = new VMG(boat.getPolarTable().getBoatSpeed(
+                race.getWindDirection(),
+                race.getWindSpeed(),
+                boat.getBearing()
+        ), boat.getBearing()) ;
+        if (vmg.getSpeed() > 0) {
+            boat.setCurrentSpeed(vmg.getSpeed() * Math.pow(boat.getHealth() / 100, 0.3));
+        }
+    }
+
+    private void boatRoundingCheck(MockBoat boat, MarkRoundingData roundingData, boolean starboard) {
+
+        //boolean for if boat has to/needs to pass through a gate
+        boolean gateCheck = boat.getCurrentLeg().getEndCompoundMark().getMark2() == null || boat.isBetweenGate(boat.getCurrentLeg().getEndCompoundMark());
+
+        switch (boat.getRoundingStatus()) {
+            case 0://hasn't started rounding
+                if ((starboard ? boat.isStarboardSide(roundingData.getMarkToRound()) : boat.isPortSide(roundingData.getMarkToRound())) &&
+                        GPSCoordinate.passesLine(
+                                roundingData.getMarkToRound().getPosition(),
+                                roundingData.getRoundCheck1(),
+                                boat.getPosition(),
+                                roundingData.getLegBearing()) &&
+                        gateCheck &&
+                        boat.isBetweenGate(
+                                roundingData.getMarkToRound(),
+                                Mark.tempMark(roundingData.getRoundCheck1()))) {
+                    boat.increaseRoundingStatus();
+                    if (boat.getCurrentLeg().getLegNumber() + 2 >= race.getLegs().size()){
+                        //boat has finished race
+                        boat.increaseRoundingStatus();
+                    }
+                }
+                break;
+            case 1://has been parallel to the mark
+                if ((starboard ? boat.isStarboardSide(roundingData.getMarkToRound()) : boat.isPortSide(roundingData.getMarkToRound())) &&
+                        GPSCoordinate.passesLine(
+                                roundingData.getMarkToRound().getPosition(),
+                                roundingData.getRoundCheck2(),
+                                boat.getPosition(),
+                                Bearing.fromDegrees(
+                                        GPSCoordinate.calculateBearing(
+                                                roundingData.getMarkToRound().getPosition(),
+                                                roundingData.getRoundCheck2()).degrees() + (starboard ? 90 : -90))) &&
+                        boat.isBetweenGate(
+                                roundingData.getMarkToRound(),
+                                Mark.tempMark(roundingData.getRoundCheck2()))) {
+                    boat.increaseRoundingStatus();
+                }
+                break;
+            case 2://has traveled 180 degrees around the mark
+                //Move boat on to next leg.
+                boat.resetRoundingStatus();
+                Leg nextLeg = race.getLegs().get(boat.getCurrentLeg().getLegNumber() + 1);
+                boat.setCurrentLeg(nextLeg);
+                break;
+        }
+    }
+
+    private void checkPosition(MockBoat boat, long timeElapsed) {
+
+        switch (boat.getCurrentLeg().getEndCompoundMark().getRoundingType()) {
+            case SP:
+            case Port:
+                boatRoundingCheck(boat, race.getMarkRoundingSequence().getRoundingData(boat.getCurrentLeg()), false);
+                break;
+            case PS:
+            case Starboard:
+                boatRoundingCheck(boat, race.getMarkRoundingSequence().getRoundingData(boat.getCurrentLeg()), true);
+                break;
+        }
+
+        //Check if the boat has finished or stopped racing.
+        if (this.isLastLeg(boat.getCurrentLeg())) {
+            //Boat has finished.
+            boat.setTimeFinished(timeElapsed);
+            boat.setCurrentSpeed(0);
+            boat.setStatus(BoatStatusEnum.FINISHED);
+        }
+    }
+
+    private void updateEstimatedTime(MockBoat boat) {
+
+        double velocityToMark = boat.getCurrentSpeed() * cos(boat.getBearing().radians() - boat.calculateBearingToNextMarker().radians()) / Constants.KnotsToMMPerSecond;
+
+        if (velocityToMark > 0) {
+
+            //Calculate milliseconds until boat reaches mark.
+            long timeFromNow = (long) (1000 * boat.calculateDistanceToNextMarker() / velocityToMark);
+
+            //Calculate time at which it will reach mark.
+            ZonedDateTime timeAtMark = race.getRaceClock().getCurrentTime().plus(timeFromNow, ChronoUnit.MILLIS);
+            boat.setEstimatedTimeAtNextMark(timeAtMark);
+        }
+    }
+
+}
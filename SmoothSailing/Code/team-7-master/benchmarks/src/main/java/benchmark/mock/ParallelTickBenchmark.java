@@ -0,0 +1,106 @@
+package benchmark.mock;
+
+
+import mock.model.FleetState;
+import mock.model.MockBoat;
+import mock.model.MockRace;
+import mock.model.ParallelFleetUpdate;
+import org.openjdk.jmh.annotations.*;
+import shared.model.Bearing;
+import shared.model.GPSCoordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures one 60 Hz frame of the race's parallel tick (see {@link ParallelFleetUpdate}) - moving every boat, then finding and resolving collisions - for fleets of increasing size, on increasing numbers of threads.
+ * Boats are scattered over a 2km square of the course, so larger fleets are more crowded and collide more.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelTickBenchmark {
+
+    /**
+     * Number of boats racing.
+     */
+    @Param({"1024", "4096", "16384"})
+    public int boats;
+
+    /**
+     * Number of threads the boats are updated on.
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /**
+     * Milliseconds in a 60 Hz frame.
+     */
+    private static final long FramePeriod = 16;
+
+
+    private MockRace race;
+    private ForkJoinPool pool;
+    private ParallelFleetUpdate update;
+
+    private List<MockBoat> collisionBoats;
+
+    private long raceTime;
+
+
+    @Setup(Level.Trial)
+    public void setupPool() {
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Scatters every boat over the course, so each iteration starts from the same state.
+     */
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        race = FleetTickBenchmark.createRace(boats);
+        raceTime = race.getRaceClock().getStartingTimeMilli();
+
+        Random random = new Random(boats);
+        for (MockBoat boat : race.getBoats()) {
+            boat.setPosition(new GPSCoordinate(32.2880 + random.nextDouble() * 0.018, -64.8640 + random.nextDouble() * 0.021));
+            boat.setBearing(Bearing.fromDegrees(random.nextDouble() * 360));
+        }
+
+        update = new ParallelFleetUpdate(race, pool, ParallelFleetUpdate.DefaultChunkSize);
+        collisionBoats = new ArrayList<>();
+    }
+
+
+    @Benchmark
+    public int parallelTick() {
+        raceTime += FramePeriod;
+        race.updateRaceTime(raceTime);
+
+        update.update(FramePeriod, race.getRaceClock().getDurationMilli());
+        update.resolveCollisions(collisionBoats);
+
+        int collisions = collisionBoats.size();
+
+        //Let the boats sail on, rather than backing off as a CollisionCommand would.
+        for (MockBoat boat : collisionBoats) {
+            boat.setColliding(false);
+        }
+        collisionBoats.clear();
+
+        return collisions;
+    }
+
+}
@@ -0,0 +1,111 @@
+package benchmark.mock;
+
+
+import mock.dataInput.PolarParser;
+import mock.exceptions.InvalidPolarFileException;
+import mock.model.PolarTable;
+import mock.model.VMG;
+import mock.model.VMGSolver;
+import org.openjdk.jmh.annotations.*;
+import shared.model.Bearing;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares finding a boat's optimal VMG with the legacy {@link mock.model.Polars} search against the {@link VMGSolver}, both when every request misses its cache and when boats repeat their requests, as they do between frames.
+ * The requests are a fleet of boats heading to marks, inside course bounds, in a steady wind.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VMGSolverBenchmark {
+
+    /**
+     * Number of distinct requests - one per boat.
+     */
+    @Param({"8", "64"})
+    public int boats;
+
+
+    private LegacyPolars legacyPolars;
+    private PolarTable polarTable;
+
+    /**
+     * Shared solver, which will have cached every request after the first few calls.
+     */
+    private VMGSolver cachedSolver;
+
+    private Bearing windDirection;
+    private double windSpeed;
+
+    private Bearing[] destinations;
+    private Bearing[] lowerBounds;
+    private Bearing[] upperBounds;
+
+    /**
+     * Index of the next request.
+     */
+    private int next;
+
+
+    @Setup
+    public void setup() throws InvalidPolarFileException {
+        legacyPolars = LegacyPolars.parse("mock/polars/acc_polars.csv");
+        polarTable = PolarParser.parsePolarTable("mock/polars/acc_polars.csv");
+        cachedSolver = new VMGSolver(polarTable);
+
+        windDirection = Bearing.fromDegrees(300);
+        windSpeed = 12.3;
+
+        Random random = new Random(42);
+        destinations = new Bearing[boats];
+        lowerBounds = new Bearing[boats];
+        upperBounds = new Bearing[boats];
+
+        for (int i = 0; i < boats; i++) {
+            //Whole degree bounds, as MockRace.calculateBearingBounds returns, half of them unbounded.
+            double lower = random.nextInt(360);
+            destinations[i] = Bearing.fromDegrees(random.nextDouble() * 360);
+            lowerBounds[i] = Bearing.fromDegrees(i % 2 == 0 ? 0 : lower);
+            upperBounds[i] = Bearing.fromDegrees(i % 2 == 0 ? 0 : lower + 150 + random.nextInt(150));
+        }
+    }
+
+
+    /**
+     * Returns the index of the next request, cycling through the fleet.
+     * @return The index.
+     */
+    private int nextRequest() {
+        next = (next + 1) % boats;
+        return next;
+    }
+
+
+    @Benchmark
+    public VMG legacy() {
+        int i = nextRequest();
+        return legacyPolars.calculateVMG(windDirection, windSpeed, destinations[i], lowerBounds[i], upperBounds[i]);
+    }
+
+    /**
+     * A fresh solver for every request, so each one is solved from scratch.
+     */
+    @Benchmark
+    public VMG solverMiss() {
+        int i = nextRequest();
+        return new VMGSolver(polarTable).calculateVMG(windDirection, windSpeed, destinations[i], lowerBounds[i], upperBounds[i]);
+    }
+
+    @Benchmark
+    public VMG solverHit() {
+        int i = nextRequest();
+        return cachedSolver.calculateVMG(windDirection, windSpeed, destinations[i], lowerBounds[i], upperBounds[i]);
+    }
+
+}
@@ -0,0 +1,125 @@
+package benchmark.network;
+
+
+import network.Exceptions.InvalidMessageException;
+import network.MessageDecoders.BoatLocationDecoder;
+import network.MessageEncoders.BoatLocationEncoder;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import org.openjdk.jmh.annotations.*;
+import shared.model.Azimuth;
+import shared.model.Bearing;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares encoding and decoding a {@link BoatLocation} through the legacy {@link network.Utils.ByteConverter} path against the {@link network.Utils.ByteCodec} path.
+ * Run with "-prof gc" to see bytes allocated per operation - the "IntoBuffer" and "InPlace" benchmarks should allocate nothing but the decoded message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteCodecBenchmark {
+
+    /**
+     * The message to encode.
+     */
+    private BoatLocation boatLocation;
+
+    /**
+     * The encoded message, as an array.
+     */
+    private byte[] encodedArray;
+
+    /**
+     * The encoded message, in a direct buffer.
+     */
+    private ByteBuffer encodedBuffer;
+
+    /**
+     * Reused destination for {@link #encodeIntoBuffer()}.
+     */
+    private ByteBuffer destination;
+
+    private BoatLocationEncoder encoder;
+    private BoatLocationDecoder decoder;
+
+
+    @Setup
+    public void setup() throws InvalidMessageException {
+        boatLocation = new BoatLocation(
+                BoatLocation.currentMessageVersionNumber,
+                1494570214123L,
+                125,
+                4567,
+                BoatLocationDeviceEnum.RacingYacht,
+                32.296577,
+                -64.854304,
+                4,
+                Bearing.fromDegrees(45),
+                (short) 6,
+                (short) 7,
+                18.5,
+                Bearing.fromDegrees(40),
+                18.2,
+                11,
+                Azimuth.fromDegrees(35),
+                13,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(80),
+                1.6,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(22));
+
+        encoder = new BoatLocationEncoder();
+        decoder = new BoatLocationDecoder();
+
+        encodedArray = encoder.encode(boatLocation);
+        encodedBuffer = ByteBuffer.allocateDirect(encodedArray.length);
+        encodedBuffer.put(encodedArray);
+        encodedBuffer.flip();
+
+        destination = ByteBuffer.allocateDirect(BoatLocationEncoder.MessageLength);
+    }
+
+
+    @Benchmark
+    public byte[] legacyEncode() {
+        return LegacyBoatLocationCodec.encode(boatLocation);
+    }
+
+    @Benchmark
+    public byte[] encodeToArray() throws InvalidMessageException {
+        return encoder.encode(boatLocation);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeIntoBuffer() throws InvalidMessageException {
+        destination.clear();
+        encoder.encode(boatLocation, destination);
+        return destination;
+    }
+
+
+    @Benchmark
+    public BoatLocation legacyDecode() {
+        return LegacyBoatLocationCodec.decode(encodedArray);
+    }
+
+    @Benchmark
+    public AC35Data decodeArray() throws InvalidMessageException {
+        return decoder.decode(encodedArray);
+    }
+
+    @Benchmark
+    public AC35Data decodeInPlace() throws InvalidMessageException {
+        return decoder.decode(encodedBuffer);
+    }
+
+}
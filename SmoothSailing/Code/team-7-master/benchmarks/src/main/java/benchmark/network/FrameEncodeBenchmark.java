@@ -0,0 +1,84 @@
+package benchmark.network;
+
+
+import network.BinaryMessageEncoder;
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.BoatLocationEncoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import org.openjdk.jmh.annotations.*;
+import shared.model.Azimuth;
+import shared.model.Bearing;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares building a whole frame (header, body, CRC) for a {@link BoatLocation} with the {@link BinaryMessageEncoder} constructor against {@link BinaryMessageEncoder#encodeFrame}.
+ * Run with "-prof gc" - "encodeFrame" should allocate nothing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameEncodeBenchmark {
+
+    /**
+     * The message to encode.
+     */
+    private BoatLocation boatLocation;
+
+    private BoatLocationEncoder encoder;
+
+
+    @Setup
+    public void setup() {
+        boatLocation = new BoatLocation(
+                BoatLocation.currentMessageVersionNumber,
+                1494570214123L,
+                125,
+                4567,
+                BoatLocationDeviceEnum.RacingYacht,
+                32.296577,
+                -64.854304,
+                4,
+                Bearing.fromDegrees(45),
+                (short) 6,
+                (short) 7,
+                18.5,
+                Bearing.fromDegrees(40),
+                18.2,
+                11,
+                Azimuth.fromDegrees(35),
+                13,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(80),
+                1.6,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(22));
+
+        encoder = new BoatLocationEncoder();
+    }
+
+
+    @Benchmark
+    public byte[] constructorFrame() throws InvalidMessageException {
+        byte[] body = encoder.encode(boatLocation);
+        return new BinaryMessageEncoder(boatLocation.getType(), 1494570214123L, 1, (short) body.length, body).getFullMessage();
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryMessage() throws InvalidMessageException {
+        return RaceVisionByteEncoder.encodeBinaryMessage(boatLocation, 1);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeFrame() throws InvalidMessageException {
+        return BinaryMessageEncoder.encodeFrame(boatLocation, encoder, 1494570214123L, 1);
+    }
+
+}
@@ -0,0 +1,194 @@
+package benchmark.network;
+
+
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import shared.model.Azimuth;
+import shared.model.Bearing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static network.Utils.AC35UnitConverter.*;
+import static network.Utils.ByteConverter.*;
+
+
+/**
+ * The BoatLocation encoder and decoder as they were before {@link network.Utils.ByteCodec}, kept as a baseline for {@link ByteCodecBenchmark}.
+ * Every field goes through {@link network.Utils.ByteConverter}, which allocates an array (and a ByteBuffer) per field.
+ */
+class LegacyBoatLocationCodec {
+
+
+    /**
+     * Encodes a BoatLocation message.
+     * @param boatLocation The message to encode.
+     * @return The encoded message.
+     */
+    static byte[] encode(BoatLocation boatLocation) {
+
+        int messageVersionNumber = 0b1;
+        byte[] messageVersionBytes = intToBytes(messageVersionNumber, 1);
+        byte[] time = longToBytes(boatLocation.getTime(), 6);
+        byte[] sourceID = intToBytes(boatLocation.getSourceID(), 4);
+        byte[] seqNum = longToBytes(boatLocation.getSequenceNumber(), 4);
+        byte[] deviceType = intToBytes(boatLocation.getDeviceType().getValue(), 1);
+        byte[] latitude = intToBytes(packGPS(boatLocation.getLatitude()), 4);
+        byte[] longitude = intToBytes(packGPS(boatLocation.getLongitude()), 4);
+        byte[] altitude = intToBytes(boatLocation.getAltitude(), 4);
+        byte[] heading = intToBytes(packHeading(boatLocation.getHeading().degrees()), 2);
+        byte[] pitch = intToBytes(boatLocation.getPitch(), 2);
+        byte[] roll = intToBytes(boatLocation.getRoll(), 2);
+        byte[] boatSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getBoatSpeedKnots()), 2);
+        byte[] cog = intToBytes(packHeading(boatLocation.getBoatCOG().degrees()), 2);
+        byte[] sog = intToBytes(packKnotsToMMperSec(boatLocation.getBoatSOGKnots()), 2);
+        byte[] apparentWindSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getApparentWindSpeedKnots()), 2);
+        byte[] apparentWindAngle = intToBytes(packTrueWindAngle(boatLocation.getApparentWindAngle().degrees()), 2);
+        byte[] trueWindSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getTrueWindSpeedKnots()), 2);
+        byte[] trueWindDirection = intToBytes(packHeading(boatLocation.getTrueWindDirection().degrees()), 2);
+        byte[] trueWindAngle = intToBytes(packTrueWindAngle(boatLocation.getTrueWindAngle().degrees()), 2);
+        byte[] currentDrift = intToBytes(packKnotsToMMperSec(boatLocation.getCurrentDriftKnots()), 2);
+        byte[] currentSet = intToBytes(packHeading(boatLocation.getCurrentSet().degrees()), 2);
+        byte[] rudderAngle = intToBytes(packTrueWindAngle(boatLocation.getRudderAngle().degrees()), 2);
+
+        ByteBuffer result = ByteBuffer.allocate(56);
+        result.put(messageVersionBytes);
+        result.put(time);
+        result.put(sourceID);
+        result.put(seqNum);
+        result.put(deviceType);
+        result.put(latitude);
+        result.put(longitude);
+        result.put(altitude);
+        result.put(heading);
+        result.put(pitch);
+        result.put(roll);
+        result.put(boatSpeed);
+        result.put(cog);
+        result.put(sog);
+        result.put(apparentWindSpeed);
+        result.put(apparentWindAngle);
+        result.put(trueWindSpeed);
+        result.put(trueWindDirection);
+        result.put(trueWindAngle);
+        result.put(currentDrift);
+        result.put(currentSet);
+        result.put(rudderAngle);
+
+        return result.array();
+    }
+
+
+    /**
+     * Decodes a BoatLocation message.
+     * @param encodedMessage The message to decode.
+     * @return The decoded message.
+     */
+    static BoatLocation decode(byte[] encodedMessage) {
+
+        byte[] messageVersionNumberBytes = Arrays.copyOfRange(encodedMessage, 0, 1);
+        byte messageVersionNumber = messageVersionNumberBytes[0];
+
+        byte[] timeBytes = Arrays.copyOfRange(encodedMessage, 1, 7);
+        long time = bytesToLong(timeBytes);
+
+        byte[] sourceIDBytes = Arrays.copyOfRange(encodedMessage, 7, 11);
+        int sourceID = bytesToInt(sourceIDBytes);
+
+        byte[] seqNumBytes = Arrays.copyOfRange(encodedMessage, 11, 15);
+        int seqNum = bytesToInt(seqNumBytes);
+
+        byte[] deviceTypeBytes = Arrays.copyOfRange(encodedMessage, 15, 16);
+        BoatLocationDeviceEnum deviceType = BoatLocationDeviceEnum.fromByte(deviceTypeBytes[0]);
+
+        byte[] latitudeBytes = Arrays.copyOfRange(encodedMessage, 16, 20);
+        int numLatitude = bytesToInt(latitudeBytes);
+        double latitude = unpackGPS(numLatitude);
+
+        byte[] longitudeBytes = Arrays.copyOfRange(encodedMessage, 20, 24);
+        int numLongitude = bytesToInt(longitudeBytes);
+        double longitude = unpackGPS(numLongitude);
+
+        byte[] altitudeBytes = Arrays.copyOfRange(encodedMessage, 24, 28);
+        int numAltitude = bytesToInt(altitudeBytes);
+
+        byte[] headingBytes = Arrays.copyOfRange(encodedMessage, 28, 30);
+        int numHeading = bytesToInt(headingBytes);
+        Bearing heading = Bearing.fromDegrees(unpackHeading(numHeading));
+
+        byte[] pitchBytes = Arrays.copyOfRange(encodedMessage, 30, 32);
+        short numPitch = bytesToShort(pitchBytes);
+
+        byte[] rollBytes = Arrays.copyOfRange(encodedMessage, 32, 34);
+        short numRoll = bytesToShort(rollBytes);
+
+        byte[] boatSpeedBytes = Arrays.copyOfRange(encodedMessage, 34, 36);
+        int numBoatSpeed = bytesToInt(boatSpeedBytes);
+        double boatSpeedKnots = unpackMMperSecToKnots(numBoatSpeed);
+
+        byte[] cogBytes = Arrays.copyOfRange(encodedMessage, 36, 38);
+        int numCog = bytesToInt(cogBytes);
+        Bearing cog = Bearing.fromDegrees(unpackHeading(numCog));
+
+        byte[] sogBytes = Arrays.copyOfRange(encodedMessage, 38, 40);
+        int numSog = bytesToInt(sogBytes);
+        double sogKnots = unpackMMperSecToKnots(numSog);
+
+        byte[] apparentWindSpeedBytes = Arrays.copyOfRange(encodedMessage, 40, 42);
+        int numApparentWindSpeed = bytesToInt(apparentWindSpeedBytes);
+        double apparentWindSpeedKnots = unpackMMperSecToKnots(numApparentWindSpeed);
+
+        byte[] apparentWindAngleBytes = Arrays.copyOfRange(encodedMessage, 42, 44);
+        short numApparentWindAngle = bytesToShort(apparentWindAngleBytes);
+        Azimuth apparentWindAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numApparentWindAngle));
+
+        byte[] trueWindSpeedBytes = Arrays.copyOfRange(encodedMessage, 44, 46);
+        int numTrueWindSpeed = bytesToInt(trueWindSpeedBytes);
+        double trueWindSpeedKnots = unpackMMperSecToKnots(numTrueWindSpeed);
+
+        byte[] trueWindDirectionBytes = Arrays.copyOfRange(encodedMessage, 46, 48);
+        short numTrueWindDirection = bytesToShort(trueWindDirectionBytes);
+        Bearing trueWindDirection = Bearing.fromDegrees(unpackHeading(numTrueWindDirection));
+
+        byte[] trueWindAngleBytes = Arrays.copyOfRange(encodedMessage, 48, 50);
+        short numTrueWindAngle = bytesToShort(trueWindAngleBytes);
+        Azimuth trueWindAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numTrueWindAngle));
+
+        byte[] currentDriftBytes = Arrays.copyOfRange(encodedMessage, 50, 52);
+        int numCurrentDrift = bytesToInt(currentDriftBytes);
+        double currentDriftKnots = unpackMMperSecToKnots(numCurrentDrift);
+
+        byte[] currentSetBytes = Arrays.copyOfRange(encodedMessage, 52, 54);
+        int numCurrentSet = bytesToShort(currentSetBytes);
+        Bearing currentSet = Bearing.fromDegrees(unpackHeading(numCurrentSet));
+
+        byte[] rudderAngleBytes = Arrays.copyOfRange(encodedMessage, 54, 56);
+        short numRudderAngle = bytesToShort(rudderAngleBytes);
+        Azimuth rudderAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numRudderAngle));
+
+
+        return new BoatLocation(
+                messageVersionNumber,
+                time,
+                sourceID,
+                seqNum,
+                deviceType,
+                latitude,
+                longitude,
+                numAltitude,
+                heading,
+                numPitch,
+                numRoll,
+                boatSpeedKnots,
+                cog,
+                sogKnots,
+                apparentWindSpeedKnots,
+                apparentWindAngle,
+                trueWindSpeedKnots,
+                trueWindDirection,
+                trueWindAngle,
+                currentDriftKnots,
+                currentSet,
+                rudderAngle);
+    }
+}
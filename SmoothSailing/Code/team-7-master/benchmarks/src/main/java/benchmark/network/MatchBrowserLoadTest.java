@@ -0,0 +1,347 @@
+package benchmark.network;
+
+
+import network.BinaryMessageEncoder;
+import network.MessageDecoders.HostedGamesRequestDecoder;
+import network.MessageEncoders.HostGameMessageEncoder;
+import network.MessageEncoders.HostedGamesRequestEncoder;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RaceStatusEnum;
+import network.Messages.HostGame;
+import network.Messages.HostGamesRequest;
+import networkInterface.NetworkInterface;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * UDP load generator for the match browser. Thousands of simulated hosts announce games every 10 seconds, as {@link visualiser.network.MatchBrowserHostRunnable} does, and some change their player count each time.
+ * Thousands of simulated browsers subscribe, renew their subscriptions every 10 seconds, and receive the games.
+ * Reports the datagrams and bytes each browser received, how many of the games each browser knows about, and the latency from a host changing its game to each browser seeing the change.
+ * <br>
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.network.MatchBrowserLoadTest [hosts] [browsers] [seconds] [changeFraction] [server host:port]
+ * <br>
+ * Without a server address, a {@link NetworkInterface} is started on loopback.
+ */
+public class MatchBrowserLoadTest {
+
+    /**
+     * Period, in milliseconds, at which each host announces its game.
+     */
+    private static final long announcePeriod = 10000;
+
+    /**
+     * Period, in milliseconds, at which each browser renews its subscription.
+     */
+    private static final long resubscribePeriod = 10000;
+
+    /**
+     * Simulated games are served on ports from here up, so each has its own entry in the match table.
+     */
+    private static final int firstGamePort = 20000;
+
+
+    public static void main(String[] args) throws Exception {
+
+        int hostCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int browserCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        double changeFraction = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+
+        Logger.getGlobal().setLevel(Level.WARNING);
+
+        NetworkInterface localServer = null;
+        InetSocketAddress server;
+        if (args.length > 4) {
+            String[] hostAndPort = args[4].split(":");
+            server = new InetSocketAddress(hostAndPort[0], Integer.parseInt(hostAndPort[1]));
+        } else {
+            localServer = new NetworkInterface(0);
+            new Thread(localServer, "MatchBrowserLoadTest server").start();
+            server = new InetSocketAddress("127.0.0.1", localServer.getPort());
+        }
+
+        Hosts hosts = new Hosts(hostCount, changeFraction, server);
+        Browsers browsers = new Browsers(browserCount, hosts, server);
+
+        Thread hostThread = new Thread(hosts, "MatchBrowserLoadTest hosts");
+        Thread browserThread = new Thread(browsers, "MatchBrowserLoadTest browsers");
+        browserThread.start();
+        hostThread.start();
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        long elapsed = System.nanoTime() - start;
+
+        hostThread.interrupt();
+        browserThread.interrupt();
+        hostThread.join();
+        browserThread.join();
+
+        System.out.printf("hosts=%d browsers=%d seconds=%d changeFraction=%.2f%n", hostCount, browserCount, seconds, changeFraction);
+        hosts.report(elapsed);
+        browsers.report(elapsed);
+        if (localServer != null) {
+            System.out.printf("server: %d games, %d subscribed browsers%n", localServer.getMatchTable().size(), localServer.getSubscriptions().size());
+            localServer.close();
+        }
+        System.exit(0);
+    }
+
+
+    /**
+     * Encodes a message body as a frame, as the visualiser does.
+     */
+    private static byte[] frame(MessageType type, byte[] body) {
+        return new BinaryMessageEncoder(type, System.currentTimeMillis(), 1, (short) body.length, body).getFullMessage();
+    }
+
+
+    /**
+     * Simulated hosts. Every game is announced from one channel, with its own game port.
+     */
+    private static class Hosts implements Runnable {
+
+        private final int count;
+        private final double changeFraction;
+        private final InetSocketAddress server;
+
+        /**
+         * Current player count of each game.
+         */
+        private final byte[] players;
+
+        /**
+         * Time, in nanoseconds, each game's player count last changed. 0 until the first change.
+         */
+        private final AtomicLongArray changeTimes;
+
+        private long announcements = 0;
+        private long changes = 0;
+
+        private Hosts(int count, double changeFraction, InetSocketAddress server) {
+            this.count = count;
+            this.changeFraction = changeFraction;
+            this.server = server;
+            this.players = new byte[count];
+            this.changeTimes = new AtomicLongArray(count);
+            Arrays.fill(players, (byte) 1);
+        }
+
+        @Override
+        public void run() {
+
+            HostGameMessageEncoder encoder = new HostGameMessageEncoder();
+
+            try (DatagramChannel channel = DatagramChannel.open()) {
+                channel.connect(server);
+
+                //Announcements are spread evenly over the announce period.
+                long start = System.nanoTime();
+                int next = 0;
+
+                while (!Thread.currentThread().isInterrupted()) {
+
+                    long due = (System.nanoTime() - start) * count / TimeUnit.MILLISECONDS.toNanos(announcePeriod);
+
+                    for (; announcements < due; next = (next + 1) % count) {
+
+                        if (Math.random() < changeFraction) {
+                            players[next] = (byte) (players[next] % 6 + 1);
+                            changeTimes.set(next, System.nanoTime());
+                            changes++;
+                        }
+
+                        HostGame game = new HostGame("0.0.0.0", firstGamePort + next, (byte) 1, (byte) 1, RaceStatusEnum.PRESTART, (byte) 6, players[next]);
+                        channel.write(ByteBuffer.wrap(frame(MessageType.HOST_GAME, encoder.encode(game))));
+                        announcements++;
+                    }
+
+                    Thread.sleep(10);
+                }
+
+            } catch (InterruptedException | ClosedByInterruptException e) {
+                Thread.currentThread().interrupt();
+
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+
+            }
+        }
+
+        private void report(long elapsed) {
+            System.out.printf("hosts: %.0f announcements/s, %d changes%n", announcements / (elapsed / 1e9), changes);
+        }
+    }
+
+
+    /**
+     * Simulated browsers. Each has its own channel, so the server sees each as a separate subscriber. One thread services them all with a selector.
+     */
+    private static class Browsers implements Runnable {
+
+        private final int count;
+        private final Hosts hosts;
+        private final InetSocketAddress server;
+
+        /**
+         * The player count each browser last saw for each game. 0 means the browser doesn't know about the game.
+         */
+        private final byte[][] seenPlayers;
+
+        private long datagrams = 0;
+        private long bytes = 0;
+        private long subscriptions = 0;
+
+        /**
+         * Latency, in microseconds, of each change each browser saw.
+         */
+        private final List<Long> latencies = new ArrayList<>();
+
+        private Browsers(int count, Hosts hosts, InetSocketAddress server) {
+            this.count = count;
+            this.hosts = hosts;
+            this.server = server;
+            this.seenPlayers = new byte[count][hosts.count];
+        }
+
+        @Override
+        public void run() {
+
+            HostedGamesRequestDecoder decoder = new HostedGamesRequestDecoder();
+            ByteBuffer buffer = ByteBuffer.allocate(HostedGamesRequestEncoder.MaxDatagramLength);
+            DatagramChannel[] channels = new DatagramChannel[count];
+
+            try (Selector selector = Selector.open()) {
+
+                ByteBuffer subscription = ByteBuffer.wrap(frame(MessageType.HOSTED_GAMES_REQUEST, new HostedGamesRequestEncoder().encode(new HostGamesRequest(new ArrayList<>()))));
+
+                for (int i = 0; i < count; i++) {
+                    channels[i] = DatagramChannel.open();
+                    channels[i].configureBlocking(false);
+                    channels[i].bind(new InetSocketAddress(0));
+                    channels[i].register(selector, SelectionKey.OP_READ, i);
+                }
+
+                //Every browser subscribes straight away, and then renewals are spread evenly over the resubscribe period.
+                long start = System.nanoTime();
+                int nextSubscriber = 0;
+
+                while (!Thread.currentThread().isInterrupted()) {
+
+                    long due = count + (System.nanoTime() - start) * count / TimeUnit.MILLISECONDS.toNanos(resubscribePeriod);
+
+                    for (; subscriptions < due; nextSubscriber = (nextSubscriber + 1) % count) {
+                        subscription.rewind();
+                        channels[nextSubscriber].send(subscription, server);
+                        subscriptions++;
+                    }
+
+                    selector.select(10);
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        int browser = (Integer) key.attachment();
+                        DatagramChannel channel = (DatagramChannel) key.channel();
+
+                        buffer.clear();
+                        while (channel.receive(buffer) != null) {
+                            buffer.flip();
+                            datagrams++;
+                            bytes += buffer.remaining();
+
+                            HostGamesRequest games = (HostGamesRequest) decoder.decode(buffer);
+                            received(browser, games.getKnownGames(), System.nanoTime());
+                            buffer.clear();
+                        }
+                    }
+                }
+
+            } catch (Exception e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException(e);
+                }
+
+            } finally {
+                for (DatagramChannel channel : channels) {
+                    try {
+                        if (channel != null) {
+                            channel.close();
+                        }
+                    } catch (IOException e) {
+                        //Nothing more to do.
+                    }
+                }
+            }
+        }
+
+        /**
+         * Records the games a browser was sent, and how long after their last change it saw them.
+         */
+        private void received(int browser, List<HostGame> games, long now) {
+            for (HostGame game : games) {
+                int index = game.getPort() - firstGamePort;
+                if (index < 0 || index >= hosts.count) {
+                    continue;
+                }
+
+                byte players = game.getStatus() == RaceStatusEnum.TERMINATED ? 0 : game.getCurrentNumPlayers();
+                long changeTime = hosts.changeTimes.get(index);
+
+                if (seenPlayers[browser][index] != 0 && seenPlayers[browser][index] != players && changeTime != 0) {
+                    latencies.add((now - changeTime) / 1000);
+                }
+                seenPlayers[browser][index] = players;
+            }
+        }
+
+        private void report(long elapsed) {
+
+            long known = 0;
+            for (byte[] seen : seenPlayers) {
+                for (byte players : seen) {
+                    if (players != 0) {
+                        known++;
+                    }
+                }
+            }
+
+            System.out.printf("browsers: %.1f datagrams/s and %.0f bytes/s each, %d subscriptions sent%n", datagrams / (elapsed / 1e9) / count, bytes / (elapsed / 1e9) / count, subscriptions);
+            System.out.printf("browsers know %.1f%% of games on average%n", 100.0 * known / ((long) count * hosts.count));
+
+            if (latencies.isEmpty()) {
+                System.out.println("change latency: no changes seen");
+                return;
+            }
+
+            long[] sorted = new long[latencies.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+
+            System.out.printf("change latency (ms): p50=%.1f p99=%.1f max=%.1f over %d changes seen%n",
+                    sorted[sorted.length / 2] / 1000.0,
+                    sorted[(int) (sorted.length * 0.99)] / 1000.0,
+                    sorted[sorted.length - 1] / 1000.0,
+                    sorted.length);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package benchmark.network;
+
+
+import network.BinaryMessageDecoder;
+import network.BinaryMessageEncoder;
+import network.Exceptions.InvalidMessageException;
+import network.MessageDecoders.DecoderFactory;
+import network.MessageDecoders.MessageDecoder;
+import network.MessageEncoders.EncoderFactory;
+import network.MessageEncoders.MessageEncoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.Enums.MessageType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Encodes and decodes a typical message of each {@link MessageType} that has an encoder and decoder, both as a bare body and as a whole frame (header, body, CRC).
+ * Run with "-prof gc" (or {@link ProtocolBaseline}) to see bytes allocated per operation. This is the baseline future protocol changes are measured against.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    /**
+     * The type of message to benchmark. DISPLAYTEXTMESSAGE, YACHTACTIONCODE and CHATTERTEXT have no encoder or decoder yet, and ASSIGN_PLAYER_BOAT is never sent.
+     */
+    @Param({
+            "HEARTBEAT",
+            "RACESTATUS",
+            "XMLMESSAGE",
+            "RACESTARTSTATUS",
+            "YACHTEVENTCODE",
+            "BOATLOCATION",
+            "MARKROUNDING",
+            "COURSEWIND",
+            "AVGWIND",
+            "BOATACTION",
+            "REQUEST_TO_JOIN",
+            "JOIN_ACCEPTANCE",
+            "HOST_GAME",
+            "HOSTED_GAMES_REQUEST",
+            "BOATSTATE",
+            "BOATLOCATION_DELTA"})
+    public String type;
+
+
+    /**
+     * The message to encode.
+     */
+    private AC35Data message;
+
+    private MessageEncoder encoder;
+    private MessageDecoder decoder;
+
+    /**
+     * The encoded message body.
+     */
+    private ByteBuffer encodedBody;
+
+    /**
+     * The encoded frame.
+     */
+    private ByteBuffer encodedFrame;
+
+    /**
+     * Reused destination for {@link #encodeIntoBuffer()}.
+     */
+    private ByteBuffer destination;
+
+
+    @Setup
+    public void setup() throws Exception {
+        MessageType messageType = MessageType.valueOf(type);
+
+        message = SampleMessages.create(messageType);
+        encoder = EncoderFactory.create(messageType);
+        decoder = DecoderFactory.create(messageType);
+
+        byte[] body = encoder.encode(message);
+        encodedBody = ByteBuffer.allocateDirect(body.length);
+        encodedBody.put(body);
+        encodedBody.flip();
+
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(message, 1);
+        encodedFrame = ByteBuffer.allocateDirect(frame.length);
+        encodedFrame.put(frame);
+        encodedFrame.flip();
+
+        destination = ByteBuffer.allocateDirect(BinaryMessageEncoder.getFrameLength(message, encoder));
+
+        //Check the samples survive a round trip, so a broken codec isn't benchmarked.
+        if (new BinaryMessageDecoder(encodedFrame).decode().getType() != messageType) {
+            throw new IllegalStateException("Sample " + type + " did not decode to the same type.");
+        }
+    }
+
+
+    @Benchmark
+    public byte[] encode() throws InvalidMessageException {
+        return encoder.encode(message);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeIntoBuffer() throws InvalidMessageException {
+        destination.clear();
+        encoder.encode(message, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeFrame() throws InvalidMessageException {
+        return BinaryMessageEncoder.encodeFrame(message, encoder, 1494570214123L, 1);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryMessage() throws InvalidMessageException {
+        return RaceVisionByteEncoder.encodeBinaryMessage(message, 1);
+    }
+
+
+    @Benchmark
+    public AC35Data decode() throws InvalidMessageException {
+        return decoder.decode(encodedBody);
+    }
+
+    @Benchmark
+    public AC35Data decodeFrame() throws InvalidMessageException {
+        return new BinaryMessageDecoder(encodedFrame).decode();
+    }
+
+}
@@ -0,0 +1,30 @@
+package benchmark.network;
+
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the protocol benchmarks - {@link MessageCodecBenchmark} and {@link SnapshotRoundTripBenchmark} - with the GC profiler, so each result has ops/s and "gc.alloc.rate.norm" (bytes allocated per op).
+ * Record the output before changing the protocol, and compare against it afterwards.
+ * <br>
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.network.ProtocolBaseline [benchmark regex]
+ */
+public class ProtocolBaseline {
+
+    public static void main(String[] args) throws RunnerException {
+
+        String include = args.length > 0 ? args[0] : "(MessageCodecBenchmark|SnapshotRoundTripBenchmark)";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,494 @@
+package benchmark.network;
+
+
+import mock.app.ConnectionAcceptor;
+import mock.app.NioRaceServer;
+import mock.app.RaceConnectionServer;
+import mock.model.commandFactory.CompositeCommand;
+import network.BinaryMessageDecoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RequestToJoinEnum;
+import network.Messages.Enums.XMLMessageType;
+import network.Messages.LatestMessages;
+import network.Messages.RequestToJoin;
+import network.Messages.XMLMessage;
+import shared.model.Azimuth;
+import shared.model.Bearing;
+import shared.utils.WorkerThreads;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static network.Utils.ByteCodec.getUInt16;
+import static network.Utils.ByteCodec.getUInt48;
+
+
+/**
+ * Load test for the race servers. Starts a server on loopback, fed with a synthetic race snapshot every 16ms, and connects hundreds of spectators to it.
+ * Reports the latency from each snapshot being published to each client receiving it, CPU time, and the memory and threads used per client.
+ * <br>
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.network.RaceServerLoadTest [clients] [seconds] [eventLoops] [boats] [nio|threads]
+ * <br>
+ * "nio" uses {@link NioRaceServer}. "threads" uses {@link ConnectionAcceptor}, whose per-client workers run on the threads chosen by {@link WorkerThreads} - add -Dracevision.threads=platform or =virtual to compare them.
+ * <br>
+ * The snapshot's BoatLocation timestamps hold the publish time, in microseconds from {@link System#nanoTime()}, so latency is measured without clock skew.
+ */
+public class RaceServerLoadTest {
+
+    /**
+     * Period, in milliseconds, at which the race snapshot is published.
+     */
+    private static final long snapshotPeriod = 16;
+
+
+    public static void main(String[] args) throws Exception {
+
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int eventLoops = args.length > 2 ? Integer.parseInt(args[2]) : NioRaceServer.defaultEventLoopCount();
+        int boats = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+        boolean threadPerClient = args.length > 4 && args[4].equals("threads");
+
+        //Don't log every connection.
+        Logger.getGlobal().setLevel(Level.WARNING);
+
+        LatestMessages latestMessages = new LatestMessages();
+        latestMessages.setRaceXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 1, System.currentTimeMillis(), XMLMessageType.RACE, 1, "<Race/>"));
+        latestMessages.setBoatXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 2, System.currentTimeMillis(), XMLMessageType.BOAT, 1, "<BoatConfig/>"));
+        latestMessages.setRegattaXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 3, System.currentTimeMillis(), XMLMessageType.REGATTA, 1, "<RegattaConfig/>"));
+        publishSnapshot(latestMessages, boats, 0);
+
+        //Clients are created up front, so that their own buffers don't count towards memory per client.
+        LoadClients clients = new LoadClients(clientCount, boats * (seconds + 5) * (int) (1000 / snapshotPeriod));
+        Footprint before = Footprint.measure();
+
+        RaceConnectionServer server;
+        if (threadPerClient) {
+            server = new ConnectionAcceptor(0, clientCount, latestMessages, new CompositeCommand(), null, null);
+        } else {
+            server = new NioRaceServer(0, eventLoops, latestMessages, new CompositeCommand(), null, null);
+        }
+        new Thread(server, "RaceServerLoadTest server").start();
+
+        Thread publisher = new Thread(() -> {
+            int sequenceNumber = 1;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(snapshotPeriod);
+                    publishSnapshot(latestMessages, boats, sequenceNumber++);
+
+                } catch (InterruptedException e) {
+                    return;
+
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+
+                }
+            }
+        }, "RaceServerLoadTest publisher");
+        publisher.start();
+
+
+        clients.connect(server.getServerPort());
+        Thread clientThread = new Thread(clients, "RaceServerLoadTest clients");
+        clientThread.start();
+
+        //Let everyone connect, and settle, before measuring.
+        while (clients.getReadyCount() < clientCount) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(1000);
+        Footprint after = Footprint.measure();
+        clients.reset();
+        long processCpuStart = getProcessCpuTime();
+        long serverCpuStart = getServerCpuTime();
+        long start = System.nanoTime();
+
+        Thread.sleep(seconds * 1000L);
+
+        long elapsed = System.nanoTime() - start;
+        long serverCpu = getServerCpuTime() - serverCpuStart;
+        long processCpu = getProcessCpuTime() - processCpuStart;
+        int connected = clients.getReadyCount();
+
+        clients.stop();
+        clientThread.join();
+        publisher.interrupt();
+        server.closeConnection();
+
+        System.out.printf("server=%s threads=%s%n", threadPerClient ? "ConnectionAcceptor" : "NioRaceServer(" + eventLoops + " event loops)", WorkerThreads.isVirtual() ? "virtual" : "platform");
+        clients.report(elapsed, connected, boats);
+        if (!threadPerClient) {
+            System.out.printf("server event loop cpu: %.1f%% of one core%n", 100.0 * serverCpu / elapsed);
+        }
+        System.out.printf("process cpu (server + clients): %.1f%% of one core%n", 100.0 * processCpu / elapsed);
+        after.reportPerClient(before, clientCount);
+        System.exit(0);
+    }
+
+
+    /**
+     * Publishes a snapshot of BoatLocations, encoded once, as the race does.
+     * @param latestMessages Where to publish the snapshot.
+     * @param boats Number of boats in the snapshot.
+     * @param sequenceNumber Sequence number of the snapshot.
+     * @throws Exception Thrown if the snapshot cannot be encoded.
+     */
+    private static void publishSnapshot(LatestMessages latestMessages, int boats, int sequenceNumber) throws Exception {
+
+        long publishTime = System.nanoTime() / 1000;
+
+        List<AC35Data> snapshot = new ArrayList<>(boats);
+        for (int i = 0; i < boats; i++) {
+            snapshot.add(new BoatLocation(
+                    BoatLocation.currentMessageVersionNumber,
+                    publishTime,
+                    100 + i,
+                    sequenceNumber,
+                    BoatLocationDeviceEnum.RacingYacht,
+                    32.296577 + i * 0.001,
+                    -64.854304,
+                    0,
+                    Bearing.fromDegrees(45),
+                    (short) 0,
+                    (short) 0,
+                    12.5,
+                    Bearing.fromDegrees(40),
+                    12.2,
+                    11,
+                    Azimuth.fromDegrees(35),
+                    13,
+                    Bearing.fromDegrees(80),
+                    Azimuth.fromDegrees(80),
+                    1.6,
+                    Bearing.fromDegrees(80),
+                    Azimuth.fromDegrees(22)));
+        }
+
+        latestMessages.setSnapshot(snapshot);
+        latestMessages.setSnapshotFrames(RaceVisionByteEncoder.encodeFrameBatch(snapshot, sequenceNumber));
+    }
+
+
+    /**
+     * Returns the CPU time used by the whole process, if the JVM reports it.
+     * @return CPU time, in nanoseconds, or 0.
+     */
+    private static long getProcessCpuTime() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+
+    /**
+     * Returns the total CPU time used by the server's event loop threads.
+     * @return CPU time, in nanoseconds.
+     */
+    private static long getServerCpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().contains("NioEventLoop")) {
+                total += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+
+
+    /**
+     * Many spectators, all serviced by one thread and selector, so that the clients themselves don't need hundreds of threads.
+     */
+    private static class LoadClients implements Runnable {
+
+        private final int clientCount;
+
+        /**
+         * Per-client latency samples, in microseconds. Guarded by this.
+         */
+        private final long[][] samples;
+        private final int[] sampleCounts;
+
+        /**
+         * Per-client number of snapshot messages received. Guarded by this.
+         */
+        private final long[] received;
+
+        /**
+         * Which clients have received at least one snapshot, and how many have. Guarded by this.
+         */
+        private final boolean[] ready;
+        private final AtomicInteger readyCount = new AtomicInteger();
+
+        private final Selector selector;
+        private final ByteBuffer[] buffers;
+
+        private volatile boolean running = true;
+
+
+        LoadClients(int clientCount, int samplesPerClient) throws IOException {
+            this.clientCount = clientCount;
+            this.samples = new long[clientCount][samplesPerClient];
+            this.sampleCounts = new int[clientCount];
+            this.received = new long[clientCount];
+            this.ready = new boolean[clientCount];
+            this.selector = Selector.open();
+            this.buffers = new ByteBuffer[clientCount];
+            for (int i = 0; i < clientCount; i++) {
+                buffers[i] = ByteBuffer.allocateDirect(1 << 14).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+
+        /**
+         * Connects every client, and sends its join request.
+         * @param port The server's port.
+         * @throws Exception Thrown if a client cannot connect.
+         */
+        void connect(int port) throws Exception {
+
+            byte[] request = RaceVisionByteEncoder.encodeBinaryMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR), 1);
+
+            for (int i = 0; i < clientCount; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+                channel.write(ByteBuffer.wrap(request));
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Object[]{i, buffers[i]});
+            }
+        }
+
+
+        int getReadyCount() {
+            return readyCount.get();
+        }
+
+
+        @Override
+        public void run() {
+
+            try {
+
+                while (running) {
+
+                    selector.select(100);
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        Object[] attachment = (Object[]) key.attachment();
+                        int client = (Integer) attachment[0];
+                        ByteBuffer buffer = (ByteBuffer) attachment[1];
+
+                        if (((SocketChannel) key.channel()).read(buffer) < 0) {
+                            key.cancel();
+                            continue;
+                        }
+
+                        readMessages(client, buffer);
+                    }
+                }
+
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+
+            } catch (Exception e) {
+                e.printStackTrace();
+
+            }
+        }
+
+
+        /**
+         * Records the latency of each complete BoatLocation in a client's buffer.
+         * @param client The client.
+         * @param buffer The client's buffer, in write mode.
+         */
+        private void readMessages(int client, ByteBuffer buffer) {
+
+            long now = System.nanoTime() / 1000;
+
+            buffer.flip();
+
+            while (buffer.remaining() >= BinaryMessageDecoder.headerLength) {
+                int start = buffer.position();
+                int length = BinaryMessageDecoder.headerLength + getUInt16(buffer, start + 13) + BinaryMessageDecoder.CRCLength;
+
+                if (buffer.remaining() < length) {
+                    break;
+                }
+
+                if (buffer.get(start + 2) == MessageType.BOATLOCATION.getValue()) {
+                    //The BoatLocation's timestamp follows its version number.
+                    long publishTime = getUInt48(buffer, start + BinaryMessageDecoder.headerLength + 1);
+                    record(client, now - publishTime);
+                }
+
+                buffer.position(start + length);
+            }
+
+            buffer.compact();
+        }
+
+
+        private synchronized void record(int client, long latency) {
+            if (!ready[client]) {
+                ready[client] = true;
+                readyCount.incrementAndGet();
+            }
+            received[client]++;
+            if (sampleCounts[client] < samples[client].length) {
+                samples[client][sampleCounts[client]++] = latency;
+            }
+        }
+
+
+        void stop() {
+            running = false;
+        }
+
+
+        synchronized void reset() {
+            Arrays.fill(sampleCounts, 0);
+            Arrays.fill(received, 0);
+        }
+
+
+        synchronized void report(long elapsedNanos, int connected, int boats) {
+
+            int total = 0;
+            for (int count : sampleCounts) {
+                total += count;
+            }
+
+            long[] all = new long[total];
+            long[] clientMeans = new long[clientCount];
+            int index = 0;
+            for (int client = 0; client < clientCount; client++) {
+                long sum = 0;
+                for (int i = 0; i < sampleCounts[client]; i++) {
+                    all[index++] = samples[client][i];
+                    sum += samples[client][i];
+                }
+                clientMeans[client] = sampleCounts[client] == 0 ? -1 : sum / sampleCounts[client];
+            }
+            Arrays.sort(all);
+            Arrays.sort(clientMeans);
+
+            double seconds = elapsedNanos / 1e9;
+            long expectedTicks = (long) (seconds * 1000 / snapshotPeriod);
+            long totalReceived = 0;
+            for (long count : received) {
+                totalReceived += count;
+            }
+
+            System.out.printf("clients=%d connected=%d boats=%d duration=%.1fs%n", clientCount, connected, boats, seconds);
+            System.out.printf("snapshots/client: %.1f of ~%d published%n", (double) totalReceived / boats / clientCount, expectedTicks);
+            System.out.printf("tick latency (us): p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                    percentile(all, 0.5), percentile(all, 0.9), percentile(all, 0.99), percentile(all, 0.999), all.length == 0 ? 0 : all[all.length - 1]);
+            System.out.printf("per-client mean latency (us): best=%d median=%d worst=%d%n",
+                    clientMeans[0], percentile(clientMeans, 0.5), clientMeans[clientMeans.length - 1]);
+        }
+
+
+        private static long percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+        }
+    }
+
+
+    /**
+     * The process's memory and thread use at a point in time.
+     */
+    private static class Footprint {
+
+        private long heapUsed;
+        private long residentSetSize;
+        private int platformThreads;
+
+
+        /**
+         * Measures the current footprint, after a garbage collection.
+         * @return The footprint.
+         * @throws Exception Thrown if interrupted.
+         */
+        static Footprint measure() throws Exception {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                Thread.sleep(100);
+            }
+
+            Footprint footprint = new Footprint();
+            Runtime runtime = Runtime.getRuntime();
+            footprint.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+            footprint.platformThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            footprint.residentSetSize = readResidentSetSize();
+            return footprint;
+        }
+
+
+        /**
+         * Reads the process's resident set size from /proc, on Linux.
+         * @return Resident set size, in bytes, or 0 if unavailable.
+         */
+        private static long readResidentSetSize() {
+            Path status = Paths.get("/proc/self/status");
+            if (!Files.isReadable(status)) {
+                return 0;
+            }
+
+            try {
+                for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+
+            } catch (IOException | NumberFormatException e) {
+                return 0;
+
+            }
+            return 0;
+        }
+
+
+        void reportPerClient(Footprint before, int clients) {
+            System.out.printf("per client: heap=%.1f KB rss=%s platform threads=%.2f%n",
+                    (heapUsed - before.heapUsed) / 1024.0 / clients,
+                    residentSetSize == 0 ? "n/a" : String.format("%.1f KB", (residentSetSize - before.residentSetSize) / 1024.0 / clients),
+                    (double) (platformThreads - before.platformThreads) / clients);
+        }
+    }
+}
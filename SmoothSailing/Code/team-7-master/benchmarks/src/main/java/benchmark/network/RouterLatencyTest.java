@@ -0,0 +1,184 @@
+package benchmark.network;
+
+
+import mock.model.commandFactory.Command;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.MessageRouters.MessageRouter;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import network.Messages.Enums.MessageType;
+import network.StreamRelated.MessageDeserialiser;
+import network.StreamRelated.SpscRingQueue;
+import shared.model.Bearing;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Measures the latency from a message being written to a socket to its command being executed on the client, through each way of routing messages:
+ * <ul>
+ *     <li>"threaded": {@link MessageDeserialiser} -> queue -> {@link MessageRouter} thread -> {@link LinkedBlockingQueue} -> controller thread. How the visualiser used to route.</li>
+ *     <li>"inline": {@link MessageDeserialiser} routes inline -> {@link LinkedBlockingQueue} -> controller thread.</li>
+ *     <li>"inline-spsc": {@link MessageDeserialiser} routes inline -> {@link SpscRingQueue} -> controller thread. How the visualiser routes race messages now.</li>
+ * </ul>
+ * Every frame period, one BoatLocation per boat is written to a loopback socket, as a race server would. The controller thread turns each into a {@link Command} and executes it.
+ * <br>
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.network.RouterLatencyTest [boats] [seconds]
+ * <br>
+ * Each BoatLocation's timestamp holds the time it was written, in microseconds from {@link System#nanoTime()}.
+ */
+public class RouterLatencyTest {
+
+    /**
+     * Period, in milliseconds, at which boat locations are written.
+     */
+    private static final long framePeriod = 16;
+
+
+    public static void main(String[] args) throws Exception {
+
+        int boats = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        //Don't log the deserialiser being interrupted at the end of each run.
+        Logger.getGlobal().setLevel(Level.OFF);
+
+        System.out.println(String.format("%d boats, %d seconds per mode.", boats, seconds));
+        System.out.println(String.format("%-12s %10s %10s %10s %10s %10s", "mode", "messages", "p50 us", "p99 us", "p99.9 us", "max us"));
+
+        //Warm up each path, then measure.
+        for (boolean warmUp : new boolean[] {true, false}) {
+            for (String mode : new String[] {"threaded", "inline", "inline-spsc"}) {
+                run(mode, boats, warmUp ? 2 : seconds, !warmUp);
+            }
+        }
+    }
+
+
+    /**
+     * Routes boat locations through one mode, and prints their latency.
+     * @param mode The routing mode.
+     * @param boats Number of boats.
+     * @param seconds How long to run for.
+     * @param print Whether to print the results.
+     * @throws Exception Thrown in case of error.
+     */
+    private static void run(String mode, int boats, int seconds, boolean print) throws Exception {
+
+        int frames = (int) (seconds * 1000 / framePeriod);
+        int expected = frames * boats;
+        long[] latencies = new long[expected];
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort());
+             Socket server = serverSocket.accept()) {
+
+            client.setTcpNoDelay(true);
+            server.setTcpNoDelay(true);
+
+
+            //The route the controller reads from.
+            BlockingQueue<AC35Data> raceMessages = mode.equals("inline-spsc") ? new SpscRingQueue<>() : new LinkedBlockingQueue<>();
+
+            MessageRouter router;
+            Thread routerThread = null;
+
+            if (mode.equals("threaded")) {
+                router = new MessageRouter(new LinkedBlockingQueue<>());
+                routerThread = new Thread(router, "RouterLatencyTest router");
+            } else {
+                router = new MessageRouter();
+            }
+            router.addRoute(MessageType.BOATLOCATION, raceMessages);
+
+            MessageDeserialiser deserialiser = new MessageDeserialiser(client.getInputStream(), router.getIncomingMessageQueue());
+            Thread deserialiserThread = new Thread(deserialiser, "RouterLatencyTest deserialiser");
+
+
+            //The controller: turns each message into a command, and executes it.
+            int[] received = new int[1];
+            Thread controllerThread = new Thread(() -> {
+                try {
+                    while (received[0] < expected) {
+                        BoatLocation boatLocation = (BoatLocation) raceMessages.take();
+                        Command command = () -> latencies[received[0]++] = System.nanoTime() / 1000 - boatLocation.getTime();
+                        command.execute();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "RouterLatencyTest controller");
+
+
+            controllerThread.start();
+            if (routerThread != null) {
+                routerThread.start();
+            }
+            deserialiserThread.start();
+
+
+            //The server: writes each frame's boat locations.
+            OutputStream output = server.getOutputStream();
+            long nextFrame = System.nanoTime();
+
+            for (int frame = 0; frame < frames; frame++) {
+
+                for (int boat = 0; boat < boats; boat++) {
+                    BoatLocation boatLocation = new BoatLocation(100 + boat, 32.29 + boat * 0.001, -64.85, frame, BoatLocationDeviceEnum.RacingYacht, Bearing.fromDegrees(45), 12.5, System.nanoTime() / 1000);
+                    output.write(RaceVisionByteEncoder.encodeBinaryMessage(boatLocation, frame));
+                }
+                output.flush();
+
+                nextFrame += framePeriod * 1000000;
+                long sleep = nextFrame - System.nanoTime();
+                if (sleep > 0) {
+                    Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+                }
+            }
+
+            controllerThread.join(5000);
+            controllerThread.interrupt();
+            deserialiserThread.interrupt();
+            if (routerThread != null) {
+                routerThread.interrupt();
+            }
+
+
+            if (print) {
+                int count = received[0];
+                long[] sorted = Arrays.copyOf(latencies, count);
+                Arrays.sort(sorted);
+
+                System.out.println(String.format("%-12s %10d %10d %10d %10d %10d",
+                        mode,
+                        count,
+                        percentile(sorted, 0.5),
+                        percentile(sorted, 0.99),
+                        percentile(sorted, 0.999),
+                        count > 0 ? sorted[count - 1] : 0));
+            }
+        }
+    }
+
+
+    /**
+     * Returns a percentile of some sorted values.
+     * @param sorted The sorted values.
+     * @param fraction The percentile, between 0 and 1.
+     * @return The value at the percentile.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(fraction * sorted.length))];
+    }
+}
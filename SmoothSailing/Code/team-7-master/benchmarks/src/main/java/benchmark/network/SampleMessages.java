@@ -0,0 +1,205 @@
+package benchmark.network;
+
+
+import mock.app.Event;
+import network.Messages.*;
+import network.Messages.Enums.*;
+import shared.dataInput.XMLReader;
+import shared.exceptions.XMLReaderException;
+import shared.model.Azimuth;
+import shared.model.Bearing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Creates a typical message of each {@link MessageType}, sized like the ones a race server sends, for the benchmarks to encode and decode.
+ */
+public class SampleMessages {
+
+    /**
+     * Timestamp used in every message, so encoded messages are the same each run.
+     */
+    private static final long time = 1494570214123L;
+
+    /**
+     * Number of boats in fleet-wide messages - {@link RaceStatus}, {@link BoatLocationDelta}, {@link HostGamesRequest}.
+     */
+    public static final int fleetSize = 6;
+
+    /**
+     * Race XML sent in {@link XMLMessage}s.
+     */
+    private static final String raceXMLFile = "mock/mockXML/ac35MapLayout.xml";
+
+
+    /**
+     * Private constructor. Doesn't need to be constructed.
+     */
+    private SampleMessages() {
+    }
+
+
+    /**
+     * Creates a message of a given type.
+     * @param type The type of message.
+     * @return The message.
+     * @throws XMLReaderException Thrown if the race XML for an {@link XMLMessage} cannot be read.
+     * @throws IllegalArgumentException Thrown if the type has no encoder and decoder.
+     */
+    public static AC35Data create(MessageType type) throws XMLReaderException {
+
+        switch (type) {
+
+            case HEARTBEAT: return new HeartBeat(4567);
+
+            case RACESTATUS: return createRaceStatus();
+
+            case XMLMESSAGE: return new XMLMessage(
+                    XMLMessage.currentVersionNumber,
+                    1,
+                    time,
+                    XMLMessageType.RACE,
+                    3,
+                    Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString(raceXMLFile, StandardCharsets.UTF_8)));
+
+            case RACESTARTSTATUS: return new RaceStartStatus(RaceStartStatus.currentMessageVersionNumber, time, 1, time + 60000, 585, RaceStartTypeEnum.SET_RACE_START);
+
+            case YACHTEVENTCODE: return new YachtEvent(time, 1, 585, 101, 12, YachtEventEnum.COLLISION);
+
+            case BOATLOCATION: return createBoatLocation(101);
+
+            case MARKROUNDING: return new MarkRounding(
+                    MarkRounding.currentMessageVersionNumber,
+                    time,
+                    1,
+                    585,
+                    101,
+                    MarkRoundingBoatStatusEnum.RACING,
+                    MarkRoundingSideEnum.PORT,
+                    MarkRoundingTypeEnum.GATE,
+                    (byte) 3);
+
+            case COURSEWIND: return createCourseWinds();
+
+            case AVGWIND: return new AverageWind(AverageWind.currentMessageVersionNumber, time, 1000, 12.1, 10000, 11.8, 30000, 12.4, 60000, 12.2);
+
+            case BOATACTION: return new BoatAction(BoatActionEnum.SAILS_IN);
+
+            case REQUEST_TO_JOIN: return new RequestToJoin(RequestToJoinEnum.PARTICIPANT, true);
+
+            case JOIN_ACCEPTANCE: return new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, 101);
+
+            case HOST_GAME: return createHostGame(0);
+
+            case HOSTED_GAMES_REQUEST: return createHostGamesRequest();
+
+            case BOATSTATE: return new BoatState(101, 87);
+
+            case BOATLOCATION_DELTA: return createBoatLocationDelta();
+
+            default: throw new IllegalArgumentException("No sample message for MessageType: " + type);
+        }
+    }
+
+
+    /**
+     * Creates a BoatLocation for a racing yacht, with every field set.
+     * @param sourceID The boat's source ID.
+     * @return The BoatLocation.
+     */
+    public static BoatLocation createBoatLocation(int sourceID) {
+        return new BoatLocation(
+                BoatLocation.currentMessageVersionNumber,
+                time,
+                sourceID,
+                4567,
+                BoatLocationDeviceEnum.RacingYacht,
+                32.296577,
+                -64.854304,
+                4,
+                Bearing.fromDegrees(45),
+                (short) 6,
+                (short) 7,
+                18.5,
+                Bearing.fromDegrees(40),
+                18.2,
+                11,
+                Azimuth.fromDegrees(35),
+                13,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(80),
+                1.6,
+                Bearing.fromDegrees(80),
+                Azimuth.fromDegrees(22));
+    }
+
+
+    private static RaceStatus createRaceStatus() {
+
+        List<BoatStatus> boatStatuses = new ArrayList<>(fleetSize);
+        for (int i = 0; i < fleetSize; i++) {
+            boatStatuses.add(new BoatStatus(101 + i, BoatStatusEnum.RACING, 3, (byte) 0, (byte) 0, time + 30000 + i * 1000, time + 300000 + i * 1000));
+        }
+
+        return new RaceStatus(
+                RaceStatus.currentMessageVersionNumber,
+                time,
+                585,
+                RaceStatusEnum.STARTED,
+                time - 60000,
+                Bearing.fromDegrees(185.34),
+                14.52,
+                RaceTypeEnum.FLEET_RACE,
+                boatStatuses);
+    }
+
+
+    private static CourseWinds createCourseWinds() {
+
+        List<CourseWind> courseWinds = new ArrayList<>(2);
+        courseWinds.add(new CourseWind(1, time, 585, Bearing.fromDegrees(230), 12.3, Bearing.fromDegrees(42), Bearing.fromDegrees(150), (short) 0));
+        courseWinds.add(new CourseWind(2, time, 585, Bearing.fromDegrees(232), 12.1, Bearing.fromDegrees(43), Bearing.fromDegrees(151), (short) 0));
+
+        return new CourseWinds(CourseWinds.currentMessageVersionNumber, (byte) 1, courseWinds);
+    }
+
+
+    private static HostGame createHostGame(int index) {
+        return new HostGame("192.168.1." + (10 + index), 4942 + index, (byte) 1, (byte) 2, RaceStatusEnum.PRESTART, (byte) 6, (byte) 2);
+    }
+
+
+    private static HostGamesRequest createHostGamesRequest() {
+
+        List<HostGame> knownGames = new ArrayList<>(fleetSize);
+        for (int i = 0; i < fleetSize; i++) {
+            knownGames.add(createHostGame(i));
+        }
+
+        return new HostGamesRequest(knownGames);
+    }
+
+
+    private static BoatLocationDelta createBoatLocationDelta() {
+
+        int[] sourceIDs = new int[fleetSize];
+        int[] latitudes = new int[fleetSize];
+        int[] longitudes = new int[fleetSize];
+        int[] headings = new int[fleetSize];
+        int[] speeds = new int[fleetSize];
+
+        for (int i = 0; i < fleetSize; i++) {
+            sourceIDs[i] = 101 + i;
+            latitudes[i] = 40 - i * 15;
+            longitudes[i] = -25 + i * 9;
+            headings[i] = 8192 + i * 512;
+            speeds[i] = 900 + i * 10;
+        }
+
+        return new BoatLocationDelta(false, 7, 3, time, sourceIDs, latitudes, longitudes, headings, speeds);
+    }
+
+}
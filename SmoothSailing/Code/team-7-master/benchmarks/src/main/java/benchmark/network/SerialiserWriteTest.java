@@ -0,0 +1,174 @@
+package benchmark.network;
+
+
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.BoatStatus;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import network.Messages.Enums.BoatStatusEnum;
+import network.Messages.Enums.RaceStatusEnum;
+import network.Messages.Enums.RaceTypeEnum;
+import network.Messages.HeartBeat;
+import network.Messages.RaceStatus;
+import network.StreamRelated.MessageSerialiser;
+import shared.model.Bearing;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/**
+ * Compares the socket writes made by a {@link MessageSerialiser} with and without {@link MessageSerialiser#batchWritesProperty batched writes}.
+ * Every frame period, a RaceStatus and one BoatLocation per boat are queued - what a client is sent when the snapshot isn't shared - and the serialiser writes them to a loopback socket.
+ * Reports the write calls (each of which is a send() syscall on a socket) and bytes per tick.
+ * <br>
+ * Run with: java -cp benchmarks/target/benchmarks.jar benchmark.network.SerialiserWriteTest [boats] [ticks]
+ */
+public class SerialiserWriteTest {
+
+    /**
+     * Period, in milliseconds, at which messages are queued. This matches the serialiser's frame period.
+     */
+    private static final long tickPeriod = 16;
+
+
+    public static void main(String[] args) throws Exception {
+
+        int boats = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        System.out.println(String.format("%d boats, %d ticks.", boats, ticks));
+        System.out.println(String.format("%-10s %14s %14s %16s", "mode", "writes/tick", "bytes/tick", "bytes/write"));
+
+        run("each", false, boats, ticks);
+        run("batched", true, boats, ticks);
+    }
+
+
+    /**
+     * Runs a serialiser for a number of ticks, and prints its writes and bytes per tick.
+     * @param name Name of the mode.
+     * @param batchWrites Whether the serialiser batches its writes.
+     * @param boats Number of boats in the race.
+     * @param ticks Number of ticks to run for.
+     * @throws Exception Thrown in case of error.
+     */
+    private static void run(String name, boolean batchWrites, int boats, int ticks) throws Exception {
+
+        System.setProperty(MessageSerialiser.batchWritesProperty, Boolean.toString(batchWrites));
+
+        try (ServerSocket serverSocket = new ServerSocket(0);
+             Socket client = new Socket("localhost", serverSocket.getLocalPort());
+             Socket server = serverSocket.accept()) {
+
+            Thread drain = new Thread(() -> discard(client), "SerialiserWriteTest drain");
+            drain.setDaemon(true);
+            drain.start();
+
+            CountingOutputStream output = new CountingOutputStream(server.getOutputStream());
+            BlockingQueue<AC35Data> queue = new LinkedBlockingQueue<>();
+
+            MessageSerialiser serialiser = new MessageSerialiser(output, queue);
+            Thread serialiserThread = new Thread(serialiser, "SerialiserWriteTest serialiser");
+            serialiserThread.start();
+
+            for (int tick = 0; tick < ticks; tick++) {
+                queue.addAll(createTick(boats, tick));
+                Thread.sleep(tickPeriod);
+            }
+
+            //Let the last tick be written.
+            while (!queue.isEmpty()) {
+                Thread.sleep(tickPeriod);
+            }
+            Thread.sleep(tickPeriod * 2);
+
+            serialiserThread.interrupt();
+            serialiserThread.join();
+
+            System.out.println(String.format("%-10s %14.1f %14.1f %16.1f",
+                    name,
+                    output.writes / (double) ticks,
+                    output.bytes / (double) ticks,
+                    output.bytes / (double) Math.max(1, output.writes)));
+        }
+    }
+
+
+    /**
+     * Creates the messages queued in one tick.
+     * @param boats Number of boats in the race.
+     * @param tick The tick number.
+     * @return The messages.
+     */
+    private static List<AC35Data> createTick(int boats, int tick) {
+
+        List<AC35Data> messages = new ArrayList<>(boats + 2);
+        List<BoatStatus> boatStatuses = new ArrayList<>(boats);
+
+        for (int boat = 0; boat < boats; boat++) {
+            int sourceID = 100 + boat;
+            messages.add(new BoatLocation(sourceID, 32.29 + boat * 0.001, -64.85, tick, BoatLocationDeviceEnum.RacingYacht, Bearing.fromDegrees(45), 12.5, System.currentTimeMillis()));
+            boatStatuses.add(new BoatStatus(sourceID, BoatStatusEnum.RACING, 1, 0));
+        }
+
+        messages.add(new RaceStatus(RaceStatus.currentMessageVersionNumber, System.currentTimeMillis(), 1, RaceStatusEnum.STARTED, 0, Bearing.fromDegrees(180), 10, RaceTypeEnum.FLEET_RACE, boatStatuses));
+
+        if (tick % 150 == 0) {
+            messages.add(new HeartBeat(tick));
+        }
+
+        return messages;
+    }
+
+
+    /**
+     * Reads and discards everything sent to a socket, until it is closed.
+     * @param socket The socket to read from.
+     */
+    private static void discard(Socket socket) {
+        byte[] buffer = new byte[65536];
+        try (InputStream input = socket.getInputStream()) {
+            while (input.read(buffer) >= 0) {
+            }
+        } catch (IOException e) {
+            //Socket closed.
+        }
+    }
+
+
+    /**
+     * Counts the write calls made to, and bytes written to, a stream.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private volatile long writes = 0;
+        private volatile long bytes = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writes++;
+            bytes++;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writes++;
+            bytes += len;
+            out.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package benchmark.network;
+
+
+import mock.app.Event;
+import mock.dataInput.PolarParser;
+import mock.exceptions.CommandConstructionException;
+import mock.model.MockRace;
+import mock.model.RaceServer;
+import mock.model.wind.ConstantWindGenerator;
+import network.BinaryMessageDecoder;
+import network.Exceptions.InvalidMessageException;
+import network.Messages.AC35Data;
+import network.Messages.FrameBatch;
+import network.Messages.LatestMessages;
+import network.Messages.XMLMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import shared.dataInput.*;
+import shared.enums.XMLFileType;
+import shared.model.Bearing;
+import shared.model.Constants;
+import visualiser.Commands.VisualiserRaceCommands.VisualiserRaceCommandFactory;
+import visualiser.model.VisualiserRaceState;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures a whole race snapshot's trip from server to visualiser: {@link RaceServer#parseSnapshot()} encodes it, each frame is decoded with a {@link BinaryMessageDecoder}, and the messages are turned into commands by {@link VisualiserRaceCommandFactory} and executed, as {@link visualiser.model.VisualiserRaceController} would.
+ * The "full" snapshot is what spectators receive, and "compact" is the keyframe or delta sent to clients which ask for boat location deltas.
+ * Run with "-prof gc" (or {@link ProtocolBaseline}) to see bytes allocated per snapshot.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotRoundTripBenchmark {
+
+    /**
+     * Which snapshot clients are sent.
+     */
+    @Param({"full", "compact"})
+    public String snapshot;
+
+
+    private LatestMessages latestMessages;
+    private RaceServer raceServer;
+
+    /**
+     * The visualiser's copy of the race, which commands are executed on.
+     */
+    private VisualiserRaceState visualiserRace;
+
+
+    @Setup
+    public void setup() throws Exception {
+
+        String raceXML = Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString("mock/mockXML/ac35MapLayout.xml", StandardCharsets.UTF_8));
+
+        RaceDataSource raceDataSource = new RaceXMLReader(raceXML, XMLFileType.Contents);
+        BoatDataSource boatDataSource = new BoatXMLReader(XMLReader.readXMLFileToString("mock/mockXML/boatTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+        RegattaDataSource regattaDataSource = new RegattaXMLReader(XMLReader.readXMLFileToString("mock/mockXML/regattaTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+
+        MockRace race = new MockRace(
+                boatDataSource,
+                raceDataSource,
+                regattaDataSource,
+                PolarParser.parse("mock/polars/acc_polars.csv"),
+                Constants.RaceTimeScale,
+                new ConstantWindGenerator(Bearing.fromDegrees(230), 10));
+
+        race.updateRaceTime(System.currentTimeMillis());
+
+        //Fill the race with every boat, as a full lobby would.
+        for (Integer sourceID : boatDataSource.getBoats().keySet()) {
+            race.generateMockBoat(sourceID);
+        }
+        race.initialiseBoats();
+        race.updateRaceStatusEnum();
+
+        latestMessages = new LatestMessages();
+        raceServer = new RaceServer(race, latestMessages);
+
+        //The compact snapshot is only built while a client has asked for it.
+        if (snapshot.equals("compact")) {
+            latestMessages.addDeltaClient();
+        }
+        raceServer.parseSnapshot();
+
+        //The visualiser needs the XML files before it can place boats and marks.
+        visualiserRace = new VisualiserRaceState(new EmptyRaceDataSource(), new EmptyRegattaDataSource(), new EmptyBoatDataSource());
+        for (XMLMessage xmlMessage : new XMLMessage[] {latestMessages.getRegattaXMLMessage(), latestMessages.getBoatXMLMessage(), latestMessages.getRaceXMLMessage()}) {
+            VisualiserRaceCommandFactory.create(xmlMessage, visualiserRace).execute();
+        }
+
+        //A client which asked for deltas is sent the marks and the keyframe first, so it can expand the deltas in roundTrip.
+        if (snapshot.equals("compact")) {
+            for (FrameBatch frameBatch : new FrameBatch[] {latestMessages.getMarkFrames(), latestMessages.getKeyframeFrames()}) {
+                if (frameBatch == null) {
+                    continue;
+                }
+                ByteBuffer frames = frameBatch.getFrames();
+
+                while (frames.hasRemaining()) {
+                    execute(nextFrame(frames));
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Returns the frames the benchmarked clients are sent.
+     * @return The snapshot's frames.
+     */
+    private FrameBatch getSnapshotFrames() {
+        if (snapshot.equals("compact")) {
+            return latestMessages.getCompactSnapshotFrames();
+        } else {
+            return latestMessages.getSnapshotFrames();
+        }
+    }
+
+
+    @Benchmark
+    public FrameBatch parseSnapshot() {
+        raceServer.parseSnapshot();
+        return getSnapshotFrames();
+    }
+
+    @Benchmark
+    public void decodeSnapshot(Blackhole blackhole) throws InvalidMessageException {
+        ByteBuffer frames = getSnapshotFrames().getFrames();
+
+        while (frames.hasRemaining()) {
+            blackhole.consume(new BinaryMessageDecoder(nextFrame(frames)).decode());
+        }
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole blackhole) throws InvalidMessageException {
+        raceServer.parseSnapshot();
+        ByteBuffer frames = getSnapshotFrames().getFrames();
+
+        while (frames.hasRemaining()) {
+            blackhole.consume(execute(nextFrame(frames)));
+        }
+    }
+
+
+    /**
+     * Decodes a frame, and executes its message's command on the {@link #visualiserRace}.
+     * @param frame The frame.
+     * @return The message, if the visualiser has no command for it (and so ignores it), otherwise null.
+     * @throws InvalidMessageException Thrown if the frame cannot be decoded.
+     */
+    private AC35Data execute(ByteBuffer frame) throws InvalidMessageException {
+        AC35Data message = new BinaryMessageDecoder(frame).decode();
+
+        try {
+            VisualiserRaceCommandFactory.create(message, visualiserRace).execute();
+            return null;
+
+        } catch (CommandConstructionException e) {
+            return message;
+        }
+    }
+
+
+    /**
+     * Returns the next frame in a buffer of concatenated frames, and advances the buffer past it.
+     * @param frames The frames.
+     * @return View of the next frame.
+     */
+    private static ByteBuffer nextFrame(ByteBuffer frames) {
+        int bodyLength = frames.order(ByteOrder.LITTLE_ENDIAN).getShort(frames.position() + 13) & 0xFFFF;
+        int frameEnd = frames.position() + BinaryMessageDecoder.headerLength + bodyLength + BinaryMessageDecoder.CRCLength;
+
+        ByteBuffer frame = frames.duplicate();
+        frame.limit(frameEnd);
+        frames.position(frameEnd);
+        return frame;
+    }
+
+}
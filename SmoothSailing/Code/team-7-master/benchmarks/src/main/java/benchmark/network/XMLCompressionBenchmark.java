@@ -0,0 +1,112 @@
+package benchmark.network;
+
+
+import mock.app.Event;
+import network.Exceptions.InvalidMessageException;
+import network.MessageDecoders.XMLMessageDecoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.Enums.XMLMessageType;
+import network.Messages.XMLMessage;
+import org.openjdk.jmh.annotations.*;
+import shared.dataInput.BoatXMLReader;
+import shared.dataInput.RaceXMLReader;
+import shared.dataInput.RegattaXMLReader;
+import shared.dataInput.XMLReader;
+import shared.enums.XMLFileType;
+import shared.xml.Race.RaceDataSourceToXML;
+import shared.xml.XMLUtilities;
+import shared.xml.boats.BoatDataSourceToXML;
+import shared.xml.regatta.RegattaDataSourceToXML;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the size of, and the time taken to encode and decode, each bundled course layout in mock/mockXML as an {@link XMLMessage}: formatted or compact (see {@link XMLUtilities#compactXMLProperty}), and plain or deflated (see {@link network.MessageEncoders.RequestToJoinEncoder#CompressionFeature}).
+ * The XML is made the way {@link mock.model.RaceServer} makes it: the file is read into a data source, and written back out with {@link XMLUtilities#classToXML(Object, boolean)}.
+ * The size of each message is printed during setup, so the sizes can be compared without a profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XMLCompressionBenchmark {
+
+    /**
+     * The file in mock/mockXML.
+     */
+    @Param({"ac35MapLayout.xml", "iMapLayout.xml", "mMapLayout.xml", "oMapLayout.xml", "raceTutorial.xml", "boatTest.xml", "boatTutorial.xml", "boatsSinglePlayer.xml", "regattaTest.xml", "regattaTutorial.xml"})
+    public String layout;
+
+    /**
+     * Whether the XML is "formatted" (indented, as by default) or "compact".
+     */
+    @Param({"formatted", "compact"})
+    public String xml;
+
+    /**
+     * Whether the message is deflated.
+     */
+    @Param({"false", "true"})
+    public boolean compressed;
+
+
+    private XMLMessageType type;
+    private String xmlString;
+
+    /**
+     * The message, already encoded, to decode.
+     */
+    private byte[] encodedMessage;
+
+
+    @Setup
+    public void setup() throws Exception {
+
+        String file = XMLReader.readXMLFileToString("mock/mockXML/" + layout, StandardCharsets.UTF_8);
+        boolean formatted = xml.equals("formatted");
+
+        if (layout.startsWith("boat")) {
+            type = XMLMessageType.BOAT;
+            xmlString = XMLUtilities.classToXML(BoatDataSourceToXML.toXML(new BoatXMLReader(file, XMLFileType.Contents)), formatted);
+
+        } else if (layout.startsWith("regatta")) {
+            type = XMLMessageType.REGATTA;
+            xmlString = XMLUtilities.classToXML(RegattaDataSourceToXML.toXML(new RegattaXMLReader(file, XMLFileType.Contents)), formatted);
+
+        } else {
+            type = XMLMessageType.RACE;
+            RaceXMLReader race = new RaceXMLReader(Event.setRaceXMLAtCurrentTimeToNow(file), XMLFileType.Contents);
+            xmlString = XMLUtilities.classToXML(RaceDataSourceToXML.toXML(race), formatted);
+        }
+
+        encodedMessage = RaceVisionByteEncoder.encode(createMessage());
+
+        System.out.printf("%n%s %s compressed=%b: %d bytes of xml, %d byte message%n", layout, xml, compressed, xmlString.getBytes(StandardCharsets.UTF_8).length, encodedMessage.length);
+    }
+
+
+    /**
+     * Creates a new message, so the xml is deflated again each time it is encoded, as it is for each new XML version.
+     * @return The message.
+     */
+    private XMLMessage createMessage() {
+        return new XMLMessage((byte) 1, 1, System.currentTimeMillis(), type, 1, xmlString, compressed);
+    }
+
+
+    @Benchmark
+    public byte[] encode() throws InvalidMessageException {
+        return RaceVisionByteEncoder.encode(createMessage());
+    }
+
+    @Benchmark
+    public AC35Data decode() throws InvalidMessageException {
+        return new XMLMessageDecoder().decode(encodedMessage);
+    }
+
+}
@@ -2,11 +2,18 @@ package app;
 
 import networkInterface.NetworkInterface;
 
+import java.io.IOException;
+
 /**
  * Used when starting the matchmaking browser
  */
 public class Main {
     public static void main(String[] args) {
-        NetworkInterface networkInterface = new NetworkInterface();
+        try {
+            new NetworkInterface(NetworkInterface.defaultPort).run();
+        } catch (IOException e) {
+            System.err.println("Error listening on port: " + NetworkInterface.defaultPort + ".");
+            System.exit(-1);
+        }
     }
 }
@@ -1,8 +1,11 @@
 package model;
 
+/**
+ * The ip and port of a host or browser. Two addresses are only equal if both match, so several games or browsers behind one ip are kept apart.
+ */
 public class ClientAddress {
-    private String ip;
-    private int port;
+    private final String ip;
+    private final int port;
 
     public ClientAddress(String ip, int port) {
         this.ip = ip;
@@ -19,13 +22,16 @@ public class ClientAddress {
 
     @Override
     public boolean equals(Object o) {
-        return o != null && o instanceof ClientAddress && hashCode() == o.hashCode();
+        if (this == o) return true;
+        if (!(o instanceof ClientAddress)) return false;
+        ClientAddress address = (ClientAddress) o;
+        return port == address.port && (ip != null ? ip.equals(address.ip) : address.ip == null);
     }
 
     @Override
     public int hashCode() {
         int result = ip != null ? ip.hashCode() : 0;
-        result *= 31;
+        result = 31 * result + port;
         return result;
     }
 
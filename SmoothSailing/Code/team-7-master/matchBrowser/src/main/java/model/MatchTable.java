@@ -1,32 +1,213 @@
 package model;
 
 
+import network.Messages.Enums.RaceStatusEnum;
 import network.Messages.HostGame;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Holds a table object that stores current games
+ * Holds a table object that stores current games.
+ * Each game is keyed by its host's address and game port, and expires if its host stops announcing it. Games which have been added, changed, or removed since the last {@link #drainChanges()} are tracked, so that browsers can be sent just those.
+ * It is safe to use from several threads at once.
  */
 public class MatchTable {
-    private HashMap<ClientAddress, HostGame> matchTable;
+
+    /**
+     * Default time, in milliseconds, a game stays in the table after its last announcement. Hosts announce every 10 seconds, so this allows two to be lost.
+     */
+    public static final long defaultTimeToLive = 30000;
+
+
+    /**
+     * A game, and when it expires.
+     */
+    private static class Entry {
+
+        private final HostGame game;
+
+        /**
+         * Time this expires, in nanoseconds ({@link System#nanoTime()}).
+         */
+        private final long expiry;
+
+        private Entry(HostGame game, long expiry) {
+            this.game = game;
+            this.expiry = expiry;
+        }
+    }
+
+
+    private final ConcurrentHashMap<ClientAddress, Entry> matchTable = new ConcurrentHashMap<>();
+
+    /**
+     * Games added, changed, or removed since changes were last drained. Removed games have the status {@link RaceStatusEnum#TERMINATED}.
+     */
+    private final ConcurrentHashMap<ClientAddress, HostGame> changes = new ConcurrentHashMap<>();
+
+    /**
+     * Time, in nanoseconds, a game stays in the table after its last announcement.
+     */
+    private final long timeToLive;
+
 
     public MatchTable() {
-        this.matchTable = new HashMap<>();
+        this(defaultTimeToLive);
     }
 
+    /**
+     * Creates a table whose games expire a given time after they were last announced.
+     * @param timeToLiveMillis Time to live, in milliseconds.
+     */
+    public MatchTable(long timeToLiveMillis) {
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    }
+
+
+    /**
+     * Adds or refreshes a game.
+     * @param address The game's host address and game port.
+     * @param newEntry The game.
+     */
     public void addEntry(ClientAddress address, HostGame newEntry) {
-        this.matchTable.put(address, newEntry);
+        announce(address, newEntry, System.nanoTime());
+    }
+
+    /**
+     * Adds or refreshes a game, as its host has just announced it.
+     * @param address The game's host address and game port.
+     * @param game The game.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     * @return True if the game is new, or has changed since it was last announced. False if it was only refreshed.
+     */
+    public boolean announce(ClientAddress address, HostGame game, long now) {
+
+        Entry previous = matchTable.put(address, new Entry(game, now + timeToLive));
+
+        if (previous == null || !sameGame(previous.game, game)) {
+            changes.put(address, game);
+            return true;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Removes a game straight away, e.g., because its race has finished.
+     * @param address The game's host address and game port.
+     */
+    public void removeEntry(ClientAddress address) {
+        Entry removed = matchTable.remove(address);
+        if (removed != null) {
+            changes.put(address, terminated(removed.game));
+        }
     }
 
+
+    /**
+     * Removes every game which has not been announced within the time to live.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     * @return The number of games removed.
+     */
+    public int expire(long now) {
+
+        int removed = 0;
+
+        Iterator<Map.Entry<ClientAddress, Entry>> iterator = matchTable.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ClientAddress, Entry> entry = iterator.next();
+
+            if (now - entry.getValue().expiry >= 0 && matchTable.remove(entry.getKey(), entry.getValue())) {
+                changes.put(entry.getKey(), terminated(entry.getValue().game));
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+
+    /**
+     * Returns the games which have been added, changed, or removed since this was last called, and forgets them. Removed games have the status {@link RaceStatusEnum#TERMINATED}.
+     * @return The changed games.
+     */
+    public List<HostGame> drainChanges() {
+
+        List<HostGame> changed = new ArrayList<>(changes.size());
+
+        for (ClientAddress address : changes.keySet()) {
+            HostGame game = changes.remove(address);
+            if (game != null) {
+                changed.add(game);
+            }
+        }
+
+        return changed;
+    }
+
+
+    /**
+     * Returns every game currently in the table.
+     * @return The games.
+     */
+    public List<HostGame> getGames() {
+        List<HostGame> games = new ArrayList<>(matchTable.size());
+        for (Entry entry : matchTable.values()) {
+            games.add(entry.game);
+        }
+        return games;
+    }
+
+    /**
+     * Returns a copy of the table, mapping each game's host address and game port to the game.
+     * @return The table.
+     */
     public HashMap<ClientAddress, HostGame> getMatchTable() {
-        return matchTable;
+        HashMap<ClientAddress, HostGame> copy = new HashMap<>();
+        for (Map.Entry<ClientAddress, Entry> entry : matchTable.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().game);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of games in the table.
+     * @return Number of games.
+     */
+    public int size() {
+        return matchTable.size();
+    }
+
+
+    /**
+     * Determines whether two announcements describe the same game, in the same state.
+     */
+    private static boolean sameGame(HostGame a, HostGame b) {
+        return a.getIp().equals(b.getIp())
+                && a.getPort() == b.getPort()
+                && a.getMap() == b.getMap()
+                && a.getSpeed() == b.getSpeed()
+                && a.getStatus() == b.getStatus()
+                && a.getRequiredNumPlayers() == b.getRequiredNumPlayers()
+                && a.getCurrentNumPlayers() == b.getCurrentNumPlayers();
+    }
+
+    /**
+     * Returns a copy of a game, marked as removed.
+     */
+    private static HostGame terminated(HostGame game) {
+        return new HostGame(game.getIp(), game.getPort(), game.getMap(), game.getSpeed(), RaceStatusEnum.TERMINATED, game.getRequiredNumPlayers(), game.getCurrentNumPlayers());
     }
 
     @Override
     public String toString() {
-        return  "MatchTable=" + matchTable;
+        return  "MatchTable=" + getMatchTable();
     }
 }
@@ -0,0 +1,163 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The browsers which want to be sent games. A browser subscribes by sending an empty HostGamesRequest, and must keep doing so, or its subscription expires.
+ * Browsers are mostly sent changes, so each is also sent every game once per {@link #fullSyncPeriod}, in case it missed a change.
+ * It is safe to use from several threads at once.
+ */
+public class SubscriptionTable {
+
+    /**
+     * Default time, in milliseconds, a subscription lasts. Browsers resubscribe every 10 seconds, so this allows two to be lost.
+     */
+    public static final long defaultTimeToLive = 30000;
+
+    /**
+     * Period, in milliseconds, at which a subscribed browser is sent every game again.
+     */
+    public static final long fullSyncPeriod = 60000;
+
+
+    /**
+     * A browser's subscription.
+     */
+    private static class Subscription {
+
+        /**
+         * Time this expires, in nanoseconds ({@link System#nanoTime()}).
+         */
+        private final long expiry;
+
+        /**
+         * Time the browser was last sent every game, in nanoseconds.
+         */
+        private final long lastFullSync;
+
+        /**
+         * Whether the browser asked to be sent compressed game lists.
+         */
+        private final boolean compression;
+
+        private Subscription(long expiry, long lastFullSync, boolean compression) {
+            this.expiry = expiry;
+            this.lastFullSync = lastFullSync;
+            this.compression = compression;
+        }
+    }
+
+
+    /**
+     * Maps each browser's address to its subscription.
+     */
+    private final ConcurrentHashMap<ClientAddress, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Time, in nanoseconds, a subscription lasts.
+     */
+    private final long timeToLive;
+
+
+    public SubscriptionTable() {
+        this(defaultTimeToLive);
+    }
+
+    /**
+     * Creates a table whose subscriptions last a given time.
+     * @param timeToLiveMillis Time to live, in milliseconds.
+     */
+    public SubscriptionTable(long timeToLiveMillis) {
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+    }
+
+
+    /**
+     * Adds or renews a browser's subscription, to uncompressed game lists.
+     * @param address The browser's address.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     * @return True if the browser should now be sent every game - it is new, or was last sent them more than {@link #fullSyncPeriod} ago.
+     */
+    public boolean subscribe(ClientAddress address, long now) {
+        return subscribe(address, false, now);
+    }
+
+    /**
+     * Adds or renews a browser's subscription.
+     * @param address The browser's address.
+     * @param compression Whether the browser asked to be sent compressed game lists.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     * @return True if the browser should now be sent every game - it is new, or was last sent them more than {@link #fullSyncPeriod} ago.
+     */
+    public boolean subscribe(ClientAddress address, boolean compression, long now) {
+
+        boolean[] fullSync = new boolean[1];
+
+        subscriptions.compute(address, (key, previous) -> {
+            fullSync[0] = previous == null || now - previous.lastFullSync >= TimeUnit.MILLISECONDS.toNanos(fullSyncPeriod);
+            return new Subscription(now + timeToLive, fullSync[0] ? now : previous.lastFullSync, compression);
+        });
+
+        return fullSync[0];
+    }
+
+    /**
+     * Removes every subscription which has not been renewed within the time to live.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     * @return The number of subscriptions removed.
+     */
+    public int expire(long now) {
+
+        int removed = 0;
+
+        Iterator<Map.Entry<ClientAddress, Subscription>> iterator = subscriptions.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<ClientAddress, Subscription> entry = iterator.next();
+
+            if (now - entry.getValue().expiry >= 0 && subscriptions.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * Returns the subscribed browsers.
+     * @return The browsers' addresses.
+     */
+    public List<ClientAddress> getSubscribers() {
+        return new ArrayList<>(subscriptions.keySet());
+    }
+
+    /**
+     * Returns the subscribed browsers which did, or didn't, ask for compressed game lists.
+     * @param compression Whether to return the browsers which asked for compression, or those which didn't.
+     * @return The browsers' addresses.
+     */
+    public List<ClientAddress> getSubscribers(boolean compression) {
+
+        List<ClientAddress> subscribers = new ArrayList<>();
+
+        for (Map.Entry<ClientAddress, Subscription> entry : subscriptions.entrySet()) {
+            if (entry.getValue().compression == compression) {
+                subscribers.add(entry.getKey());
+            }
+        }
+
+        return subscribers;
+    }
+
+    /**
+     * Returns the number of subscribed browsers.
+     * @return Number of browsers.
+     */
+    public int size() {
+        return subscriptions.size();
+    }
+}
@@ -2,6 +2,7 @@ package networkInterface;
 
 import model.ClientAddress;
 import model.MatchTable;
+import model.SubscriptionTable;
 import network.BinaryMessageDecoder;
 import network.Exceptions.InvalidMessageException;
 import network.MessageDecoders.HostGameMessageDecoder;
@@ -12,124 +13,400 @@ import network.Messages.HostGame;
 import network.Messages.HostGamesRequest;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.time.LocalDateTime;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Holds the output for the network for
+ * Holds the output for the network for the match browser.
+ * Hosts announce their games with HostGame messages, which refresh the game's entry in the {@link MatchTable}. Browsers subscribe with an empty HostGamesRequest, and are sent every game straight away.
+ * After that, they are sent the games which have changed (including removed games, with the status TERMINATED) once per update period, and every game again once per {@link SubscriptionTable#fullSyncPeriod} while they stay subscribed.
+ * Games and subscriptions both expire if they aren't renewed.
+ * <br>
+ * Everything runs on the one thread that calls {@link #run()}: a non-blocking channel is driven by a selector, datagrams are received and sent in batches, and updates are sent between selects.
  */
-public class NetworkInterface {
-    private Timer scheduler;
-    private DatagramSocket serverSocket;
-    private byte[] receiveData = new byte[1024];
+public class NetworkInterface implements Runnable {
 
-    private Set<ClientAddress> clientsAddresses;
+    /**
+     * Port the match browser listens on.
+     */
+    public static final int defaultPort = 3779;
+
+    /**
+     * Period, in milliseconds, at which changed games are sent to browsers, and expired games and subscriptions are removed.
+     */
+    public static final long updatePeriod = 1000;
+
+    /**
+     * Most datagrams received per select, so that sending isn't starved while datagrams keep arriving.
+     */
+    public static final int receiveBatchSize = 256;
+
+    /**
+     * Most datagrams sent per select, so that receiving isn't starved while a large update is sent.
+     */
+    public static final int sendBatchSize = 1024;
+
+    /**
+     * Size, in bytes, requested for the socket's send and receive buffers, so that bursts of announcements, subscriptions, and full syncs aren't dropped by the kernel.
+     */
+    public static final int socketBufferSize = 1 << 22;
+
+    /**
+     * Most datagrams waiting to be sent. Past this, new datagrams are dropped - browsers catch up at their next full sync.
+     */
+    public static final int maxQueuedDatagrams = 1 << 16;
+
+    /**
+     * Length of the receive buffer. The longest frame anyone sends is a HostGamesRequest; anything longer is truncated, and rejected.
+     */
+    private static final int receiveBufferLength = BinaryMessageDecoder.headerLength + HostedGamesRequestEncoder.MaxDatagramLength + BinaryMessageDecoder.CRCLength;
+
+
+    /**
+     * A datagram waiting to be sent.
+     */
+    private static class Outgoing {
+
+        /**
+         * The datagram. Several browsers' datagrams may share contents, so each has its own view.
+         */
+        private final ByteBuffer datagram;
+
+        private final SocketAddress target;
+
+        private Outgoing(ByteBuffer datagram, SocketAddress target) {
+            this.datagram = datagram;
+            this.target = target;
+        }
+    }
+
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final int port;
+
+    /**
+     * Reused for every datagram received. Messages are decoded from the bytes received, in place.
+     */
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(receiveBufferLength);
+
+    /**
+     * Datagrams waiting for room in the socket's send buffer, oldest first.
+     */
+    private final ArrayDeque<Outgoing> sendQueue = new ArrayDeque<>();
+
+    /**
+     * Datagrams dropped because the send queue was full, since the last update.
+     */
+    private int dropped = 0;
+
+    /**
+     * Time, in nanoseconds, of the next update.
+     */
+    private long nextUpdate;
+
+    private SubscriptionTable subscriptions;
     private MatchTable matchTable;
 
+    private final HostedGamesRequestEncoder encoder = new HostedGamesRequestEncoder();
+    private final HostGameMessageDecoder hostGameDecoder = new HostGameMessageDecoder();
+    private final HostedGamesRequestDecoder hostedGamesRequestDecoder = new HostedGamesRequestDecoder();
+
+
+    /**
+     * Creates the match browser, listening on a given port. Call {@link #run()} to start receiving.
+     * @param port The port to listen on. 0 picks any free port.
+     * @throws IOException Thrown if the port cannot be listened on.
+     */
+    public NetworkInterface(int port) throws IOException {
+        this(port, new MatchTable(), new SubscriptionTable());
+    }
+
+    /**
+     * Creates the match browser, listening on a given port. Call {@link #run()} to start receiving.
+     * @param port The port to listen on. 0 picks any free port.
+     * @param matchTable The table of games.
+     * @param subscriptions The table of browsers.
+     * @throws IOException Thrown if the port cannot be listened on.
+     */
+    public NetworkInterface(int port, MatchTable matchTable, SubscriptionTable subscriptions) throws IOException {
+        this.subscriptions = subscriptions;
+        this.matchTable = matchTable;
+
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.setOption(StandardSocketOptions.SO_RCVBUF, socketBufferSize);
+        this.channel.setOption(StandardSocketOptions.SO_SNDBUF, socketBufferSize);
+        this.channel.bind(new InetSocketAddress(port));
+        this.port = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+
+        this.selector = Selector.open();
+        this.key = channel.register(selector, SelectionKey.OP_READ);
+    }
+
+
+    /**
+     * Returns the port the match browser is listening on.
+     * @return The port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public MatchTable getMatchTable() {
+        return matchTable;
+    }
+
+    public SubscriptionTable getSubscriptions() {
+        return subscriptions;
+    }
+
+
+    /**
+     * Receives announcements and subscriptions, and sends updates, until {@link #close()} is called.
+     */
+    @Override
+    public void run() {
+
+        nextUpdate = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(updatePeriod);
 
-    public NetworkInterface(){
-        this.clientsAddresses = new HashSet<>();
-        this.matchTable = new MatchTable();
-        this.scheduler = new Timer(true);
         try {
-            this.serverSocket = new DatagramSocket(3779);
+            while (channel.isOpen()) {
+
+                long untilUpdate = TimeUnit.NANOSECONDS.toMillis(nextUpdate - System.nanoTime());
+                selector.select(Math.max(1, untilUpdate));
+
+                if (key.isValid() && key.isReadable()) {
+                    receive();
+                }
+                selector.selectedKeys().clear();
+
+                long now = System.nanoTime();
+                if (now - nextUpdate >= 0) {
+                    nextUpdate += TimeUnit.MILLISECONDS.toNanos(updatePeriod);
+                    update(now);
+                }
+
+                flush();
+            }
 
-            startBroadcast(5000);
-            scheduleFlush(70000);
-            this.run();
         } catch (IOException e) {
-            System.err.println("Error listening on port: " +  this.serverSocket.getLocalPort() + ".");
-            System.exit(-1);
+            if (channel.isOpen()) {
+                Logger.getGlobal().log(Level.SEVERE, "Match browser socket failed.", e);
+            }
+
+        } finally {
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not close match browser socket.", e);
+            }
         }
+    }
+
 
+    /**
+     * Receives and handles waiting datagrams, up to {@link #receiveBatchSize}.
+     * @throws IOException Thrown if the socket fails.
+     */
+    private void receive() throws IOException {
+
+        for (int i = 0; i < receiveBatchSize; i++) {
+
+            receiveBuffer.clear();
+            SocketAddress source = channel.receive(receiveBuffer);
+            if (source == null) {
+                return;
+            }
+            receiveBuffer.flip();
+
+            handle(receiveBuffer, (InetSocketAddress) source, System.nanoTime());
+        }
     }
 
     /**
-     * Broadcasts match table to clients at a requested interval
-     * @param period interval to broadcast table
+     * Handles one datagram.
+     * @param datagram The datagram's bytes, between position and limit.
+     * @param source Where it came from.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
      */
-    private void startBroadcast(int period) {
-        scheduler.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                List<HostGame> games = new ArrayList<>();
+    private void handle(ByteBuffer datagram, InetSocketAddress source, long now) {
 
-                for(Map.Entry<ClientAddress, HostGame> tableEntry: matchTable.getMatchTable().entrySet()) {
-                    HostGame game = tableEntry.getValue();
-                    if(game != null) {
-                        games.add(game);
+        //Decode only the bytes actually received, straight from the receive buffer.
+        BinaryMessageDecoder messageDecoder = new BinaryMessageDecoder(datagram);
+        String sourceIp = source.getAddress().getHostAddress();
+
+        switch (MessageType.fromByte(messageDecoder.getHeaderMessageType())){
+            case HOST_GAME:
+                //decode and update table
+                try{
+                    HostGame newKnownGame = (HostGame) hostGameDecoder.decode(messageDecoder.getMessageBodyBuffer());
+                    newKnownGame.setIp(sourceIp);
+                    //A game is identified by its host's ip and the port its race is served on.
+                    this.matchTable.announce(new ClientAddress(sourceIp, newKnownGame.getPort()), newKnownGame, now);
+
+                }catch (InvalidMessageException e){
+                    Logger.getGlobal().log(Level.WARNING, "Message received that is not a hostedGame packet", e);
+                }
+                break;
+            case HOSTED_GAMES_REQUEST:
+                //update known clients
+                try{
+                    HostGamesRequest newKnownGames = (HostGamesRequest) hostedGamesRequestDecoder.decode(messageDecoder.getMessageBodyBuffer());
+                    if (newKnownGames.getKnownGames().size() == 0){
+                        //this is just an alert message with no content. New browsers are sent every game, and after that mostly changes.
+                        //Browsers which subscribe with a compressed request are sent compressed lists.
+                        if (subscriptions.subscribe(new ClientAddress(sourceIp, source.getPort()), newKnownGames.isCompressed(), now)) {
+                            send(encode(matchTable.getGames(), newKnownGames.isCompressed()), source);
+                        }
                     }
+                }catch (InvalidMessageException e){
+                    Logger.getGlobal().log(Level.WARNING, "Message received that is not a hostedGamesRequest packet", e);
                 }
+                break;
+        }
+    }
 
-                HostedGamesRequestEncoder encoder = new HostedGamesRequestEncoder();
-                try {
-                    byte[] message = encoder.encode(new HostGamesRequest(games));
-                    System.out.println(LocalDateTime.now() + ": Sending " + games.size() + " game/s");
-                    for(ClientAddress address: clientsAddresses) {
-                        System.out.println("Sending to " + address.getIp());
-                        serverSocket.send(new DatagramPacket(message, message.length, InetAddress.getByName(address.getIp()), 4941));
-                    }
-                } catch (InvalidMessageException | IOException e) {
-                    e.printStackTrace();
+
+    /**
+     * Removes expired games and subscriptions, and queues the games that have changed for every browser.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     */
+    private void update(long now) {
+
+        int expiredGames = matchTable.expire(now);
+        int expiredSubscriptions = subscriptions.expire(now);
+        if (expiredGames > 0 || expiredSubscriptions > 0) {
+            Logger.getGlobal().log(Level.INFO, "Expired " + expiredGames + " game/s and " + expiredSubscriptions + " browser/s.");
+        }
+
+        if (dropped > 0) {
+            Logger.getGlobal().log(Level.WARNING, "Dropped " + dropped + " datagram/s, as the send queue was full.");
+            dropped = 0;
+        }
+
+        List<HostGame> changes = matchTable.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (boolean compression : new boolean[] {false, true}) {
+
+                List<ClientAddress> subscribers = subscriptions.getSubscribers(compression);
+                if (subscribers.isEmpty()) {
+                    continue;
+                }
+
+                List<ByteBuffer> datagrams = encode(changes, compression);
+                for (ClientAddress address : subscribers) {
+                    send(datagrams, new InetSocketAddress(address.getIp(), address.getPort()));
                 }
             }
-        }, period, period);
+
+        } catch (InvalidMessageException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not encode changed games.", e);
+        }
     }
 
+
     /**
-     * Flushes the match table at a requested interval
-     * @param period interval to flush table
+     * Encodes games as HostGamesRequest bodies, split so that each fits in one datagram. The datagrams are encoded once, however many browsers they are sent to.
+     * @param games The games.
+     * @param compression Whether to deflate the games. A datagram which wouldn't get smaller is sent uncompressed, which browsers that asked for compression also understand.
+     * @return The encoded datagrams, read-only.
+     * @throws InvalidMessageException Thrown if a game cannot be encoded.
      */
-    private void scheduleFlush(int period) {
-        scheduler.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                System.out.println("flush");
-                matchTable.getMatchTable().clear();
+    private List<ByteBuffer> encode(List<HostGame> games, boolean compression) throws InvalidMessageException {
+
+        List<ByteBuffer> datagrams = new ArrayList<>(games.size() / HostedGamesRequestEncoder.MaxGamesPerDatagram + 1);
+
+        for (int start = 0; start < games.size() || start == 0; start += HostedGamesRequestEncoder.MaxGamesPerDatagram) {
+            int end = Math.min(start + HostedGamesRequestEncoder.MaxGamesPerDatagram, games.size());
+            HostGamesRequest request = new HostGamesRequest(games.subList(start, end));
+
+            if (compression) {
+                HostGamesRequest compressedRequest = new HostGamesRequest(request.getKnownGames(), true);
+                if (encoder.getEncodedLength(compressedRequest) < encoder.getEncodedLength(request)) {
+                    request = compressedRequest;
+                }
             }
-        }, period, period);
+
+            ByteBuffer datagram = ByteBuffer.allocateDirect(encoder.getEncodedLength(request));
+            encoder.encode(request, datagram);
+            datagram.flip();
+            datagrams.add(datagram.asReadOnlyBuffer());
+        }
+
+        return datagrams;
     }
 
-    private void run() throws IOException{
-        while(true) {
-            DatagramPacket receivePacket = new DatagramPacket(receiveData, receiveData.length);
-            serverSocket.receive(receivePacket);
-
-            BinaryMessageDecoder messageDecoder = new BinaryMessageDecoder(receivePacket.getData());
-            switch (MessageType.fromByte(messageDecoder.getHeaderMessageType())){
-                case HOST_GAME:
-                    //decode and update table
-                    HostGameMessageDecoder decoder = new HostGameMessageDecoder();
-                    HostGame newKnownGame;
-                    try{
-                        newKnownGame = (HostGame) decoder.decode(messageDecoder.getMessageBody());
-                        newKnownGame.setIp(receivePacket.getAddress().getHostAddress());
-                        this.matchTable.addEntry(new ClientAddress(receivePacket.getAddress().getHostAddress(), receivePacket.getPort()), newKnownGame);
-
-                    }catch (InvalidMessageException e){
-                        System.out.println(e);
-                        System.err.println("Message received that is not a hostedGame packet");
-                    }
-                    break;
-                case HOSTED_GAMES_REQUEST:
-                    //update known clients
-                    HostedGamesRequestDecoder decoder2 = new HostedGamesRequestDecoder();
-                    HostGamesRequest newKnownGames;
-                    try{
-                        newKnownGames = (HostGamesRequest) decoder2.decode(messageDecoder.getMessageBody());
-                        if (newKnownGames.getKnownGames().size() == 0){
-                            //this is just an alert message with no content
-                            clientsAddresses.add(new ClientAddress(receivePacket.getAddress().getHostAddress(), receivePacket.getPort()));
-                        }
-                    }catch (InvalidMessageException e){
-                        System.out.println(e);
-                        System.err.println("Message received that is not a hostedGamesRequest packet");
-                    }
+    /**
+     * Queues datagrams to be sent to a browser.
+     * @param datagrams The datagrams.
+     * @param target The browser.
+     */
+    private void send(List<ByteBuffer> datagrams, SocketAddress target) {
+        for (ByteBuffer datagram : datagrams) {
+            if (sendQueue.size() >= maxQueuedDatagrams) {
+                dropped++;
+                continue;
+            }
+            sendQueue.add(new Outgoing(datagram.duplicate(), target));
+        }
+    }
+
+    /**
+     * Sends queued datagrams until the queue is empty, the socket's send buffer is full, or {@link #sendBatchSize} have been sent. While any are left, the selector wakes up when there is room to send more.
+     * @throws IOException Thrown if the socket fails.
+     */
+    private void flush() throws IOException {
+
+        for (int i = 0; i < sendBatchSize && !sendQueue.isEmpty(); i++) {
+            Outgoing outgoing = sendQueue.peek();
+
+            try {
+                if (channel.send(outgoing.datagram, outgoing.target) == 0) {
                     break;
+                }
+            } catch (IOException e) {
+                if (!channel.isOpen()) {
+                    throw e;
+                }
+                //E.g., the browser's address is unreachable. Only that datagram is lost.
+                Logger.getGlobal().log(Level.WARNING, "Could not send games to: " + outgoing.target, e);
             }
+
+            sendQueue.poll();
+        }
+
+        int interest = sendQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.isValid() && key.interestOps() != interest) {
+            key.interestOps(interest);
+        }
+    }
+
+
+    /**
+     * Stops the match browser. It may be called from any thread.
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not close match browser socket.", e);
         }
+        selector.wakeup();
     }
 }
@@ -8,7 +8,13 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MatchTableTest {
     private MatchTable testTable;
@@ -22,8 +28,58 @@ public class MatchTableTest {
     public void testTable() {
         HostGame entry = new HostGame("127.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1);
 
-        testTable.addEntry(new ClientAddress("127.0.0.1", 3779), entry);
+        testTable.addEntry(new ClientAddress("127.0.0.1", 4942), entry);
 
         assertEquals(testTable.getMatchTable().get(new ClientAddress("127.0.0.1", 4942)), entry);
     }
+
+    @Test
+    public void addressIncludesPortTest() {
+        assertEquals(new ClientAddress("127.0.0.1", 4942), new ClientAddress("127.0.0.1", 4942));
+        assertEquals(new ClientAddress("127.0.0.1", 4942).hashCode(), new ClientAddress("127.0.0.1", 4942).hashCode());
+        assertNotEquals(new ClientAddress("127.0.0.1", 4942), new ClientAddress("127.0.0.1", 4943));
+
+        testTable.addEntry(new ClientAddress("127.0.0.1", 4942), new HostGame("127.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1));
+        testTable.addEntry(new ClientAddress("127.0.0.1", 4943), new HostGame("127.0.0.1", 4943, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1));
+
+        assertEquals(2, testTable.size());
+    }
+
+    @Test
+    public void expiryTest() {
+        MatchTable table = new MatchTable(1000);
+        long now = System.nanoTime();
+
+        table.announce(new ClientAddress("10.0.0.1", 4942), new HostGame("10.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1), now);
+        table.announce(new ClientAddress("10.0.0.2", 4942), new HostGame("10.0.0.2", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1), now);
+
+        //Only the second host keeps announcing.
+        table.announce(new ClientAddress("10.0.0.2", 4942), new HostGame("10.0.0.2", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1), now + TimeUnit.MILLISECONDS.toNanos(800));
+
+        assertEquals(0, table.expire(now + TimeUnit.MILLISECONDS.toNanos(900)));
+        assertEquals(1, table.expire(now + TimeUnit.MILLISECONDS.toNanos(1100)));
+        assertEquals("10.0.0.2", table.getGames().get(0).getIp());
+    }
+
+    @Test
+    public void changesTest() {
+        long now = System.nanoTime();
+        ClientAddress address = new ClientAddress("10.0.0.1", 4942);
+
+        assertTrue(testTable.announce(address, new HostGame("10.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1), now));
+        assertEquals(1, testTable.drainChanges().size());
+
+        //Refreshing an unchanged game isn't a change.
+        assertFalse(testTable.announce(address, new HostGame("10.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)1), now));
+        assertTrue(testTable.drainChanges().isEmpty());
+
+        assertTrue(testTable.announce(address, new HostGame("10.0.0.1", 4942, (byte)1, (byte)1, RaceStatusEnum.PRESTART, (byte)6, (byte)2), now));
+        testTable.removeEntry(address);
+
+        //Only the latest change to each game is kept.
+        List<HostGame> changes = testTable.drainChanges();
+        assertEquals(1, changes.size());
+        assertEquals(RaceStatusEnum.TERMINATED, changes.get(0).getStatus());
+        assertEquals(0, testTable.size());
+    }
 }
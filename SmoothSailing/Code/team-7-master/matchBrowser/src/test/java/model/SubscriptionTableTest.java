@@ -0,0 +1,68 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SubscriptionTableTest {
+    private SubscriptionTable subscriptions;
+    private long start;
+
+    @Before
+    public void setUp() {
+        subscriptions = new SubscriptionTable(1000);
+        start = System.nanoTime();
+    }
+
+    private long at(long millis) {
+        return start + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void expiryTest() {
+        ClientAddress quiet = new ClientAddress("10.0.0.1", 50000);
+        ClientAddress renewing = new ClientAddress("10.0.0.1", 50001);
+
+        subscriptions.subscribe(quiet, at(0));
+        subscriptions.subscribe(renewing, at(0));
+        subscriptions.subscribe(renewing, at(800));
+
+        assertEquals(1, subscriptions.expire(at(1100)));
+        assertEquals(1, subscriptions.size());
+        assertEquals(renewing, subscriptions.getSubscribers().get(0));
+    }
+
+    @Test
+    public void fullSyncTest() {
+        ClientAddress browser = new ClientAddress("10.0.0.1", 50000);
+        SubscriptionTable subscriptions = new SubscriptionTable(SubscriptionTable.fullSyncPeriod * 2);
+
+        //New browsers are sent every game, and then again once per full sync period.
+        assertTrue(subscriptions.subscribe(browser, at(0)));
+        assertFalse(subscriptions.subscribe(browser, at(10000)));
+        assertTrue(subscriptions.subscribe(browser, at(SubscriptionTable.fullSyncPeriod)));
+        assertFalse(subscriptions.subscribe(browser, at(SubscriptionTable.fullSyncPeriod + 10000)));
+    }
+
+    @Test
+    public void compressionTest() {
+        ClientAddress plain = new ClientAddress("10.0.0.1", 50000);
+        ClientAddress compressed = new ClientAddress("10.0.0.1", 50001);
+
+        subscriptions.subscribe(plain, at(0));
+        subscriptions.subscribe(compressed, true, at(0));
+
+        assertEquals(plain, subscriptions.getSubscribers(false).get(0));
+        assertEquals(compressed, subscriptions.getSubscribers(true).get(0));
+
+        //A browser which renews without asking for compression is sent plain lists again.
+        subscriptions.subscribe(compressed, false, at(100));
+        assertTrue(subscriptions.getSubscribers(true).isEmpty());
+        assertEquals(2, subscriptions.getSubscribers(false).size());
+    }
+}
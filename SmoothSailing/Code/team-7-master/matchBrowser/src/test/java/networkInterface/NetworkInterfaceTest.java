@@ -0,0 +1,118 @@
+package networkInterface;
+
+import network.BinaryMessageEncoder;
+import network.MessageDecoders.HostedGamesRequestDecoder;
+import network.MessageEncoders.HostGameMessageEncoder;
+import network.MessageEncoders.HostedGamesRequestEncoder;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RaceStatusEnum;
+import network.Messages.HostGame;
+import network.Messages.HostGamesRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the match browser over loopback.
+ */
+public class NetworkInterfaceTest {
+    private NetworkInterface networkInterface;
+    private Thread thread;
+    private DatagramSocket host;
+    private DatagramSocket browser;
+
+    @Before
+    public void setUp() throws Exception {
+        networkInterface = new NetworkInterface(0);
+        thread = new Thread(networkInterface);
+        thread.start();
+
+        host = new DatagramSocket();
+        browser = new DatagramSocket();
+        browser.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        host.close();
+        browser.close();
+        networkInterface.close();
+        thread.join(5000);
+    }
+
+    private void send(DatagramSocket socket, MessageType type, byte[] body) throws Exception {
+        byte[] frame = new BinaryMessageEncoder(type, System.currentTimeMillis(), 1, (short) body.length, body).getFullMessage();
+        socket.send(new DatagramPacket(frame, frame.length, InetAddress.getLoopbackAddress(), networkInterface.getPort()));
+    }
+
+    private void announce(int gamePort, byte players) throws Exception {
+        HostGame game = new HostGame("0.0.0.0", gamePort, (byte) 1, (byte) 1, RaceStatusEnum.PRESTART, (byte) 6, players);
+        send(host, MessageType.HOST_GAME, new HostGameMessageEncoder().encode(game));
+    }
+
+    private void subscribe() throws Exception {
+        send(browser, MessageType.HOSTED_GAMES_REQUEST, new HostedGamesRequestEncoder().encode(new HostGamesRequest(new ArrayList<>())));
+    }
+
+    private List<HostGame> receive() throws Exception {
+        byte[] data = new byte[HostedGamesRequestEncoder.MaxDatagramLength];
+        DatagramPacket packet = new DatagramPacket(data, data.length);
+        browser.receive(packet);
+        return ((HostGamesRequest) new HostedGamesRequestDecoder().decode(ByteBuffer.wrap(data, 0, packet.getLength()))).getKnownGames();
+    }
+
+    private void awaitGames(int count) throws Exception {
+        for (int i = 0; i < 500 && networkInterface.getMatchTable().size() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, networkInterface.getMatchTable().size());
+    }
+
+    @Test
+    public void subscribeTest() throws Exception {
+        announce(4942, (byte) 1);
+        announce(4943, (byte) 2);
+        awaitGames(2);
+
+        //A new browser is sent every game straight away, with the host's address.
+        subscribe();
+        List<HostGame> games = receive();
+
+        assertEquals(2, games.size());
+        assertEquals("127.0.0.1", games.get(0).getIp());
+        assertEquals(1, networkInterface.getSubscriptions().size());
+    }
+
+    @Test
+    public void changesTest() throws Exception {
+        subscribe();
+        assertEquals(0, receive().size());
+
+        announce(4942, (byte) 1);
+
+        //Changes are sent within an update period.
+        List<HostGame> games = receive();
+        assertEquals(1, games.size());
+        assertEquals(4942, games.get(0).getPort());
+        assertEquals(1, games.get(0).getCurrentNumPlayers());
+    }
+
+    @Test
+    public void invalidDatagramTest() throws Exception {
+        //Truncated frames, and garbage, are ignored.
+        host.send(new DatagramPacket(new byte[] {0x47, (byte) 0x83, 108}, 3, InetAddress.getLoopbackAddress(), networkInterface.getPort()));
+        host.send(new DatagramPacket(new byte[64], 64, InetAddress.getLoopbackAddress(), networkInterface.getPort()));
+
+        announce(4942, (byte) 1);
+        awaitGames(1);
+    }
+}
@@ -8,16 +8,14 @@ import network.AckSequencer;
 import network.Messages.Enums.XMLMessageType;
 import network.Messages.LatestMessages;
 import network.Messages.XMLMessage;
+import shared.utils.TimingWheel;
+import shared.utils.WorkerThreads;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
@@ -26,7 +24,7 @@ import java.util.logging.Logger;
 /**
  * Connection acceptor for multiple clients
  */
-public class ConnectionAcceptor implements Runnable {
+public class ConnectionAcceptor implements RaceConnectionServer {
 
 
     /**
@@ -44,7 +42,7 @@ public class ConnectionAcceptor implements Runnable {
     /**
      * List of client connections.
      */
-    private BlockingQueue<ClientConnection> clientConnections = new ArrayBlockingQueue<>(16, true);
+    private BlockingQueue<ClientConnection> clientConnections;
 
     /**
      * Snapshot of the race.
@@ -65,6 +63,11 @@ public class ConnectionAcceptor implements Runnable {
     //
     private RaceLogic raceLogic = null;
 
+    /**
+     * Schedules every client's heartbeats, and removes clients which stop answering them.
+     */
+    private TimingWheel timingWheel;
+
     /**
      * Connection Acceptor Constructor
      * @param latestMessages Latest messages to be sent
@@ -74,28 +77,50 @@ public class ConnectionAcceptor implements Runnable {
      * @throws IOException if a server socket cannot be instantiated.
      */
     public ConnectionAcceptor(LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) throws IOException {
+        this(4942, 16, latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+    }
+
+    /**
+     * Connection Acceptor Constructor
+     * @param serverPort Port to expose server on. 0 picks any free port.
+     * @param maxClients The maximum number of clients that can be connected.
+     * @param latestMessages Latest messages to be sent
+     * @param compositeCommand Collection of commands for race to execute.
+     * @param sourceIdAllocator Object used to allocate source IDs for clients.
+     * @param raceLogic The race the client will connect to. May be null, if there is no race to stop.
+     * @throws IOException if a server socket cannot be instantiated.
+     */
+    public ConnectionAcceptor(int serverPort, int maxClients, LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) throws IOException {
 
+        this.clientConnections = new ArrayBlockingQueue<>(maxClients, true);
         this.latestMessages = latestMessages;
         this.compositeCommand = compositeCommand;
         this.sourceIdAllocator = sourceIdAllocator;
         this.raceLogic = raceLogic;
 
         this.serverSocket = new ServerSocket(serverPort);
-        CheckClientConnection checkClientConnection = new CheckClientConnection(clientConnections);
-        new Thread(checkClientConnection, "ConnectionAcceptor()->CheckClientConnection thread").start();
+        this.serverPort = this.serverSocket.getLocalPort();
+
+        this.timingWheel = new TimingWheel(50, 128);
+        WorkerThreads.create(timingWheel, "ConnectionAcceptor()->TimingWheel thread").start();
 
     }
 
+    @Override
     public String getAddress() throws UnknownHostException {
         return InetAddress.getLocalHost().getHostAddress();
     }
 
+    @Override
     public int getServerPort() {
         return serverPort;
     }
 
+    @Override
     public void closeConnection() throws IOException {
-        this.raceLogic.boolFalse();
+        if (this.raceLogic != null) {
+            this.raceLogic.boolFalse();
+        }
         if(!this.serverSocket.isClosed()){
             this.serverSocket.close();
         }
@@ -119,16 +144,22 @@ public class ConnectionAcceptor implements Runnable {
 
                 try {
                     this.mockSocket = serverSocket.accept();
-                } catch (Exception e){}
+                } catch (Exception e){
+                    //Don't reuse the previous client's socket.
+                    if (serverSocket.isClosed()) {
+                        break;
+                    }
+                    continue;
+                }
 
                 Logger.getGlobal().log(Level.INFO, String.format("Client connected. client ip/port = %s. Local ip/port = %s.", mockSocket.getRemoteSocketAddress(), mockSocket.getLocalSocketAddress()));
 
 
-                ClientConnection clientConnection = new ClientConnection(mockSocket, sourceIdAllocator, latestMessages, compositeCommand, raceLogic);
+                ClientConnection clientConnection = new ClientConnection(mockSocket, sourceIdAllocator, latestMessages, compositeCommand, raceLogic, timingWheel, this::removeConnection);
 
                 clientConnections.add(clientConnection);
 
-                new Thread(clientConnection, "ConnectionAcceptor.run()->ClientConnection thread " + clientConnection).start();
+                WorkerThreads.create(clientConnection, "ConnectionAcceptor.run()->ClientConnection thread " + clientConnection).start();
 
 
 
@@ -143,66 +174,15 @@ public class ConnectionAcceptor implements Runnable {
     }
 
     /**
-     * Nested class to remove disconnected clients
+     * Removes a dead client, and terminates its connection. Called on the timing wheel's thread.
+     * @param client The client.
      */
-    class CheckClientConnection implements Runnable{
-
-        private BlockingQueue<ClientConnection> connections;
+    private void removeConnection(ClientConnection client) {
 
-        /**
-         * Constructor
-         * @param connections Clients "connected"
-         */
-        public CheckClientConnection(BlockingQueue<ClientConnection> connections){
-            this.connections = connections;
-        }
-
-        /**
-         * Run the remover.
-         */
-        @Override
-        public void run() {
-
-            //We track the number of times each connection fails the !isAlive() test.
-            //This is to give a bit of lee-way in case the connection checker checks a connection before its thread has actually started.
-            Map<ClientConnection, Integer> connectionDeadCount = new HashMap<>();
-
-            while(!Thread.interrupted()) {
-
-                //Make copy of connections.
-                List<ClientConnection> clientConnections = new ArrayList<>(connections);
-
-
-                for (ClientConnection client : clientConnections) {
-
-                    connectionDeadCount.put(client, connectionDeadCount.getOrDefault(client, 0));
-
-                    if (!client.isAlive()) {
-                        //Add one to fail count.
-                        connectionDeadCount.put(client, connectionDeadCount.get(client) + 1);
-                    }
+        clientConnections.remove(client);
+        client.terminate();
 
-                    //We only remove them if they fail 5 times.
-                    if (connectionDeadCount.get(client) > 5) {
-                        connections.remove(client);
-                        connectionDeadCount.remove(client);
-                        client.terminate();
-
-                        Logger.getGlobal().log(Level.WARNING, "CheckClientConnection is removing the dead connection: " + client);
-                    }
-                }
-
-                try {
-                    Thread.sleep(100);
-
-                } catch (InterruptedException e) {
-                    Logger.getGlobal().log(Level.WARNING, "CheckClientConnection was interrupted while sleeping.", e);
-                    Thread.currentThread().interrupt();
-                    return;
-
-                }
-            }
-        }
+        Logger.getGlobal().log(Level.WARNING, "ConnectionAcceptor is removing the dead connection: " + client + " (" + client.getHeartBeatMonitor() + ").");
     }
 
 
@@ -21,6 +21,7 @@ import shared.exceptions.InvalidRegattaDataException;
 import shared.exceptions.XMLReaderException;
 import shared.model.Bearing;
 import shared.model.Constants;
+import shared.utils.WorkerThreads;
 
 import java.io.IOException;
 import java.net.Inet4Address;
@@ -48,7 +49,7 @@ public class Event {
     private RaceDataSource raceDataSource;
     private BoatDataSource boatDataSource;
     private RegattaDataSource regattaDataSource;
-    private ConnectionAcceptor connectionAcceptor;
+    private RaceConnectionServer connectionAcceptor;
     private LatestMessages latestMessages;
     private CompositeCommand compositeCommand;
     /**
@@ -64,6 +65,7 @@ public class Event {
 
     /**
      * Constructs an event, using various XML files.
+     * Clients are served by a {@link ConnectionAcceptor}, or by a {@link NioRaceServer} if the {@link NioRaceServer#enabledProperty} system property is true.
      * @param singlePlayer Whether or not to create a single player event.
      * @param mapIndex Specifies which map to use.
      * @param raceLength The length of the race, in milliseconds.
@@ -71,7 +73,6 @@ public class Event {
      */
     public Event(boolean singlePlayer, int mapIndex, int raceLength) throws
             EventConstructionException {
-        PolarParser.parseNewPolars("mock/polars/acc_polars.csv");
         this.mapIndex = mapIndex;
         String raceXMLFile;
         String boatsXMLFile = "mock/mockXML/boatTest.xml";
@@ -102,6 +103,8 @@ public class Event {
         double windAngle = 300;
         double windSpeed = 12;
 
+        this.boatPolars = PolarParser.parse("mock/polars/acc_polars.csv");
+
         //Read XML files.
         try {
 
@@ -114,7 +117,7 @@ public class Event {
                 this.raceXML = Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString(raceXMLFile, StandardCharsets.UTF_8));
                 this.raceXML = RaceXMLCreator.alterRaceToWind(this.raceXML, XMLFileType.Contents, windAngle);
                 this.raceXML = RaceXMLCreator.scaleRaceSize(raceXML,
-                        windSpeed, raceLength);
+                        boatPolars.getPolarTable(), windSpeed, raceLength);
             }
 
             this.boatXML = XMLReader.readXMLFileToString(boatsXMLFile, StandardCharsets.UTF_8);
@@ -126,8 +129,6 @@ public class Event {
 
         this.xmlFileType = XMLFileType.Contents;
 
-        this.boatPolars = PolarParser.parse("mock/polars/acc_polars.csv");
-
 
         //Parse the XML files into data sources.
         try {
@@ -169,7 +170,7 @@ public class Event {
                 this.latestMessages,
                 this.compositeCommand);
 
-        this.raceThread = new Thread(raceLogic, "Event.Start()->RaceLogic thread");
+        this.raceThread = WorkerThreads.create(raceLogic, "Event.Start()->RaceLogic thread");
         raceThread.start();
 
 
@@ -177,14 +178,18 @@ public class Event {
         this.sourceIdAllocator = new SourceIdAllocator(raceLogic.getRace());
 
         try {
-            this.connectionAcceptor = new ConnectionAcceptor(latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+            if (Boolean.getBoolean(NioRaceServer.enabledProperty)) {
+                this.connectionAcceptor = new NioRaceServer(latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+            } else {
+                this.connectionAcceptor = new ConnectionAcceptor(latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+            }
 
         } catch (IOException e) {
             throw new EventConstructionException("Could not create ConnectionAcceptor.", e);
         }
 
 
-        this.connectionThread = new Thread(connectionAcceptor, "Event.Start()->ConnectionAcceptor thread");
+        this.connectionThread = WorkerThreads.create(connectionAcceptor, "Event.Start()->ConnectionAcceptor thread");
         connectionThread.start();
 
 
@@ -23,10 +23,20 @@ public class MockOutput implements RunnableWithFramePeriod {
 
     /**
      * An object containing the set of latest messages to send.
-     * Every server frame, MockOutput reads messages from this, and send them.
+     * MockOutput waits for each new version of the race snapshot it publishes, and sends it.
      */
     private LatestMessages latestMessages;
 
+    /**
+     * Version of the last {@link RaceSnapshot} sent, so that the same one isn't sent twice.
+     */
+    private long lastSentVersion = -1;
+
+    /**
+     * {@link RaceSnapshot#getXMLVersion()} of the last snapshot sent, so that XML messages are only checked when one has changed.
+     */
+    private long lastSentXMLVersion = -1;
+
     //These sequence number track the last race/boat/regatta xml message we've sent.
     private int lastSentRaceNumber = -1;
 
@@ -34,6 +44,37 @@ public class MockOutput implements RunnableWithFramePeriod {
 
     private int lastSentRegattaNumber = -1;
 
+    /**
+     * If true, the race snapshot is sent as the shared, already encoded {@link LatestMessages#getSnapshotFrames()}, so it is only encoded once for all clients.
+     * Otherwise, each snapshot message is sent individually, and encoded by this client's serialiser.
+     */
+    private boolean broadcast;
+
+    /**
+     * The last encoded snapshot sent, so that the same one isn't sent twice.
+     */
+    private FrameBatch lastSentSnapshotFrames;
+
+    /**
+     * The last snapshot messages sent individually, so that the same ones aren't sent twice when something else in the snapshot changes.
+     */
+    private List<AC35Data> lastSentSnapshot;
+
+    /**
+     * If true, the client asked for {@link BoatLocationDelta}s, so is sent {@link LatestMessages#getCompactSnapshotFrames()} instead, with marks only sent when they move.
+     */
+    private boolean boatLocationDeltas;
+
+    /**
+     * If true, the client asked for compression, so is sent XML messages deflated.
+     */
+    private boolean compression;
+
+    /**
+     * The last encoded mark positions sent, so that they are only sent again when they change.
+     */
+    private FrameBatch lastSentMarkFrames;
+
 
 
 
@@ -43,12 +84,67 @@ public class MockOutput implements RunnableWithFramePeriod {
      * @param outgoingMessages A queue to place outgoing messages on.
      */
     public MockOutput(LatestMessages latestMessages, BlockingQueue<AC35Data> outgoingMessages) {
+        this(latestMessages, outgoingMessages, false);
+    }
+
+    /**
+     * Ctor.
+     * @param latestMessages Latest Messages that the Mock is to send out
+     * @param outgoingMessages A queue to place outgoing messages on.
+     * @param broadcast If true, send the shared encoded snapshot instead of individual messages. See {@link #broadcast}.
+     */
+    public MockOutput(LatestMessages latestMessages, BlockingQueue<AC35Data> outgoingMessages, boolean broadcast) {
+        this(latestMessages, outgoingMessages, broadcast, false);
+    }
+
+    /**
+     * Ctor.
+     * @param latestMessages Latest Messages that the Mock is to send out
+     * @param outgoingMessages A queue to place outgoing messages on.
+     * @param broadcast If true, send the shared encoded snapshot instead of individual messages. See {@link #broadcast}.
+     * @param boatLocationDeltas If true, send the compact snapshot, with {@link BoatLocationDelta}s. See {@link #boatLocationDeltas}.
+     */
+    public MockOutput(LatestMessages latestMessages, BlockingQueue<AC35Data> outgoingMessages, boolean broadcast, boolean boatLocationDeltas) {
+        this(latestMessages, outgoingMessages, broadcast, boatLocationDeltas, false);
+    }
+
+    /**
+     * Ctor.
+     * @param latestMessages Latest Messages that the Mock is to send out
+     * @param outgoingMessages A queue to place outgoing messages on.
+     * @param broadcast If true, send the shared encoded snapshot instead of individual messages. See {@link #broadcast}.
+     * @param boatLocationDeltas If true, send the compact snapshot, with {@link BoatLocationDelta}s. See {@link #boatLocationDeltas}.
+     * @param compression If true, send XML messages deflated. See {@link #compression}.
+     */
+    public MockOutput(LatestMessages latestMessages, BlockingQueue<AC35Data> outgoingMessages, boolean broadcast, boolean boatLocationDeltas, boolean compression) {
         this.outgoingMessages = outgoingMessages;
         this.latestMessages = latestMessages;
+        this.broadcast = broadcast;
+        this.boatLocationDeltas = boatLocationDeltas;
+        this.compression = compression;
     }
 
 
 
+    /**
+     * Sends everything a client that has just joined needs to draw the race - the XML messages and the latest snapshot, all already encoded - straight away, instead of waiting for the next frame.
+     * Call this straight after the client is sent its {@link JoinAcceptance}, and before this is run on its own thread.
+     * @return True if it was sent. False if the race doesn't have its XML messages yet, in which case {@link #run()} sends everything once it does.
+     * @throws InterruptedException Thrown if interrupted while putting a message in the queue.
+     */
+    public boolean sendJoinMessages() throws InterruptedException {
+
+        RaceSnapshot snapshot = latestMessages.getLatest();
+
+        if (!snapshot.hasAllXMLMessages()) {
+            return false;
+        }
+
+        sendLatestMessages(snapshot);
+        return true;
+    }
+
+
     /**
      * Sending loop of the Server
      */
@@ -56,68 +152,123 @@ public class MockOutput implements RunnableWithFramePeriod {
 
 
         //Wait until all of the xml files have been set.
-        while (!this.latestMessages.hasAllXMLMessages()) {
+        try {
+            latestMessages.awaitAllXMLMessages();
 
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //If we get interrupted, exit the function.
-                Logger.getGlobal().log(Level.WARNING, "MockOutput.run().sleep(waitForXMLs) was interrupted on thread: " + Thread.currentThread(), e);
+        } catch (InterruptedException e) {
+            //If we get interrupted, exit the function.
+            Logger.getGlobal().log(Level.WARNING, "MockOutput.run().awaitAllXMLMessages() was interrupted on thread: " + Thread.currentThread(), e);
 
-                //Re-set the interrupt flag.
-                Thread.currentThread().interrupt();
-                return;
+            //Re-set the interrupt flag.
+            Thread.currentThread().interrupt();
+            return;
 
-            }
         }
 
-        long previousFrameTime = System.currentTimeMillis();
-
 
 
         while (!Thread.interrupted()) {
 
             try {
 
-                long currentFrameTime = System.currentTimeMillis();
-                waitForFramePeriod(previousFrameTime, currentFrameTime, 16);
-                previousFrameTime = currentFrameTime;
+                //Wait for the race to publish something we haven't sent. Anything already sent by sendJoinMessages() isn't sent again.
+                RaceSnapshot snapshot = latestMessages.awaitNewerThan(lastSentVersion, 1000);
 
+                if (snapshot.getVersion() > lastSentVersion) {
+                    sendLatestMessages(snapshot);
+                }
 
+            } catch (InterruptedException e) {
+                Logger.getGlobal().log(Level.WARNING, "MockOutput.run() interrupted while putting message in queue.", e);
+                Thread.currentThread().interrupt();
+                return;
+            }
 
-                //Send XML messages if needed.
+        }
 
-                if (lastSentRaceNumber != latestMessages.getRaceXMLMessage().getSequenceNumber()) {
-                    lastSentRaceNumber = latestMessages.getRaceXMLMessage().getSequenceNumber();
-                    outgoingMessages.put(latestMessages.getRaceXMLMessage());
-                }
+    }
 
-                if (lastSentBoatNumber != latestMessages.getBoatXMLMessage().getSequenceNumber()) {
-                    lastSentBoatNumber = latestMessages.getBoatXMLMessage().getSequenceNumber();
-                    outgoingMessages.put(latestMessages.getBoatXMLMessage());
-                }
 
-                if (lastSentRegattaNumber != latestMessages.getRegattaXMLMessage().getSequenceNumber()) {
-                    lastSentRegattaNumber = latestMessages.getRegattaXMLMessage().getSequenceNumber();
-                    outgoingMessages.put(latestMessages.getRegattaXMLMessage());
-                }
+    /**
+     * Sends any XML messages which have changed, and the race snapshot, if they haven't already been sent.
+     * @param snapshot The snapshot to send.
+     * @throws InterruptedException Thrown if interrupted while putting a message in the queue.
+     */
+    private void sendLatestMessages(RaceSnapshot snapshot) throws InterruptedException {
 
+        lastSentVersion = snapshot.getVersion();
 
+        //Send XML messages if needed. They are encoded once, and shared by every client.
+        if (snapshot.getXMLVersion() != lastSentXMLVersion) {
+            lastSentXMLVersion = snapshot.getXMLVersion();
 
-                List<AC35Data> snapshot = latestMessages.getSnapshot();
-                for (AC35Data message : snapshot) {
-                    outgoingMessages.put(message);
-                }
+            XMLMessage raceXMLMessage = snapshot.getRaceXMLMessage();
+            if (lastSentRaceNumber != raceXMLMessage.getSequenceNumber()) {
+                lastSentRaceNumber = raceXMLMessage.getSequenceNumber();
+                outgoingMessages.put(snapshot.getEncodedXMLMessage(raceXMLMessage, compression));
+            }
 
-            } catch (InterruptedException e) {
-                Logger.getGlobal().log(Level.WARNING, "MockOutput.run() interrupted while putting message in queue.", e);
-                Thread.currentThread().interrupt();
-                return;
+            XMLMessage boatXMLMessage = snapshot.getBoatXMLMessage();
+            if (lastSentBoatNumber != boatXMLMessage.getSequenceNumber()) {
+                lastSentBoatNumber = boatXMLMessage.getSequenceNumber();
+                outgoingMessages.put(snapshot.getEncodedXMLMessage(boatXMLMessage, compression));
             }
 
+            XMLMessage regattaXMLMessage = snapshot.getRegattaXMLMessage();
+            if (lastSentRegattaNumber != regattaXMLMessage.getSequenceNumber()) {
+                lastSentRegattaNumber = regattaXMLMessage.getSequenceNumber();
+                outgoingMessages.put(snapshot.getEncodedXMLMessage(regattaXMLMessage, compression));
+            }
         }
 
+
+
+        FrameBatch snapshotFrames = snapshot.getSnapshotFrames();
+        FrameBatch compactSnapshotFrames = snapshot.getCompactSnapshotFrames();
+
+        if (boatLocationDeltas && compactSnapshotFrames != null) {
+            sendCompactSnapshot(snapshot, compactSnapshotFrames);
+
+        } else if (broadcast && snapshotFrames != null) {
+            if (snapshotFrames != lastSentSnapshotFrames) {
+                lastSentSnapshotFrames = snapshotFrames;
+                outgoingMessages.put(snapshotFrames);
+            }
+
+        } else if (snapshot.getSnapshot() != lastSentSnapshot) {
+            lastSentSnapshot = snapshot.getSnapshot();
+            for (AC35Data message : lastSentSnapshot) {
+                outgoingMessages.put(message);
+            }
+        }
     }
 
 
+    /**
+     * Sends the compact snapshot, if it is new. Mark positions are sent first if they have changed, and, the first time, the keyframe the snapshot's deltas refer to.
+     * @param snapshot The snapshot being sent.
+     * @param compactSnapshotFrames The encoded compact snapshot.
+     * @throws InterruptedException Thrown if interrupted while putting a message in the queue.
+     */
+    private void sendCompactSnapshot(RaceSnapshot snapshot, FrameBatch compactSnapshotFrames) throws InterruptedException {
+
+        FrameBatch markFrames = snapshot.getMarkFrames();
+        if (markFrames != null && markFrames != lastSentMarkFrames) {
+            lastSentMarkFrames = markFrames;
+            outgoingMessages.put(markFrames);
+        }
+
+        if (compactSnapshotFrames != lastSentSnapshotFrames) {
+
+            //A new client needs the latest keyframe before it can expand any deltas.
+            FrameBatch keyframeFrames = snapshot.getKeyframeFrames();
+            if (lastSentSnapshotFrames == null && keyframeFrames != null && !compactSnapshotFrames.isKeyframe()) {
+                outgoingMessages.put(keyframeFrames);
+            }
+
+            lastSentSnapshotFrames = compactSnapshotFrames;
+            outgoingMessages.put(compactSnapshotFrames);
+        }
+    }
+
 }
@@ -0,0 +1,250 @@
+package mock.app;
+
+
+import mock.model.NioClientConnection;
+import mock.model.RaceLogic;
+import mock.model.SourceIdAllocator;
+import mock.model.commandFactory.CompositeCommand;
+import network.Messages.LatestMessages;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A single thread which services many {@link NioClientConnection}s using one {@link Selector}.
+ * It reads and handles client messages as they arrive, and every server frame it queues and writes heartbeats, XML messages, and the race snapshot to each client.
+ */
+public class NioEventLoop implements Runnable {
+
+    /**
+     * How often, in milliseconds, clients are sent the latest race snapshot. This matches {@link MockOutput}.
+     */
+    private static final long framePeriod = 16;
+
+
+    /**
+     * Selector for all of this loop's client channels.
+     */
+    private final Selector selector;
+
+    /**
+     * Channels accepted by the {@link NioRaceServer}, waiting to be registered with {@link #selector} on this loop's thread.
+     */
+    private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The connections this loop is servicing. Only used on this loop's thread.
+     */
+    private final List<NioClientConnection> connections = new ArrayList<>();
+
+    /**
+     * Number of connections this loop is servicing.
+     */
+    private volatile int connectionCount = 0;
+
+
+    private final LatestMessages latestMessages;
+    private final CompositeCommand compositeCommand;
+    private final SourceIdAllocator sourceIdAllocator;
+    private final RaceLogic raceLogic;
+
+
+    /**
+     * Creates an event loop.
+     * @param latestMessages Latest race snapshot to send to clients.
+     * @param compositeCommand Collection of commands for race to execute.
+     * @param sourceIdAllocator Used to allocate source IDs for clients.
+     * @param raceLogic The race the clients are connected to.
+     * @throws IOException Thrown if a selector cannot be opened.
+     */
+    public NioEventLoop(LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) throws IOException {
+        this.selector = Selector.open();
+        this.latestMessages = latestMessages;
+        this.compositeCommand = compositeCommand;
+        this.sourceIdAllocator = sourceIdAllocator;
+        this.raceLogic = raceLogic;
+    }
+
+
+    /**
+     * Hands a newly accepted channel to this loop. May be called from any thread.
+     * @param channel The client's channel.
+     */
+    public void addChannel(SocketChannel channel) {
+        newChannels.add(channel);
+        selector.wakeup();
+    }
+
+
+    /**
+     * Returns the number of connections this loop is servicing.
+     * @return Number of connections.
+     */
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+
+    /**
+     * Stops the loop, and closes all of its connections. May be called from any thread.
+     */
+    public void stop() {
+        try {
+            selector.close();
+
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not close selector.", e);
+
+        }
+    }
+
+
+    @Override
+    public void run() {
+
+        long nextFrameTime = System.currentTimeMillis();
+
+        try {
+
+            while (!Thread.interrupted() && selector.isOpen()) {
+
+                long timeToWait = nextFrameTime - System.currentTimeMillis();
+                if (timeToWait > 0) {
+                    selector.select(timeToWait);
+                } else {
+                    selector.selectNow();
+                }
+
+                registerNewChannels();
+
+                handleSelectedKeys();
+
+                long currentTime = System.currentTimeMillis();
+                if (currentTime >= nextFrameTime) {
+                    nextFrameTime = currentTime + framePeriod;
+                    sendFrame(currentTime);
+                }
+            }
+
+        } catch (ClosedSelectorException e) {
+            //Stopped.
+
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.SEVERE, "NioEventLoop selector failed on thread: " + Thread.currentThread(), e);
+
+        }
+
+        for (NioClientConnection connection : connections) {
+            connection.close();
+        }
+        connections.clear();
+        connectionCount = 0;
+    }
+
+
+    /**
+     * Registers any newly accepted channels with the selector.
+     */
+    private void registerNewChannels() {
+
+        SocketChannel channel;
+        while ((channel = newChannels.poll()) != null) {
+
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+
+                NioClientConnection connection = new NioClientConnection(channel, key, latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+                key.attach(connection);
+                connections.add(connection);
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not register client channel: " + channel, e);
+
+            }
+        }
+
+        connectionCount = connections.size();
+    }
+
+
+    /**
+     * Reads from, and writes to, each channel the selector says is ready.
+     */
+    private void handleSelectedKeys() {
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+
+            NioClientConnection connection = (NioClientConnection) key.attachment();
+
+            try {
+                if (key.isReadable()) {
+                    connection.read();
+                    //Reply to the handshake straight away.
+                    connection.flush();
+                }
+
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.INFO, "Removing client connection: " + connection.getChannel(), e);
+                removeConnection(connection);
+
+            }
+        }
+    }
+
+
+    /**
+     * Queues each connection's heartbeat, XML messages, and snapshot, and writes them.
+     * @param currentTime The current time, in milliseconds.
+     */
+    private void sendFrame(long currentTime) {
+
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            NioClientConnection connection = connections.get(i);
+
+            try {
+                connection.tick(currentTime);
+                connection.flush();
+
+                if (connection.isFinished()) {
+                    removeConnection(connection);
+                }
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.INFO, "Removing client connection: " + connection.getChannel(), e);
+                removeConnection(connection);
+
+            }
+        }
+    }
+
+
+    /**
+     * Closes a connection, and stops servicing it.
+     * @param connection The connection to remove.
+     */
+    private void removeConnection(NioClientConnection connection) {
+        connection.close();
+        connections.remove(connection);
+        connectionCount = connections.size();
+    }
+}
@@ -0,0 +1,169 @@
+package mock.app;
+
+
+import mock.model.RaceLogic;
+import mock.model.SourceIdAllocator;
+import mock.model.commandFactory.CompositeCommand;
+import network.Messages.LatestMessages;
+import network.StreamRelated.SocketSettings;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Non-blocking alternative to {@link ConnectionAcceptor}. Instead of five threads per client, clients are spread over a small, fixed number of {@link NioEventLoop}s, so hundreds of spectators can watch a race.
+ * There is no limit on the number of clients.
+ * Enable it by setting the {@link #enabledProperty} system property to true.
+ */
+public class NioRaceServer implements RaceConnectionServer {
+
+    /**
+     * System property which, if set to "true", makes an {@link Event} use this instead of {@link ConnectionAcceptor}.
+     */
+    public static final String enabledProperty = "racevision.nioServer";
+
+    /**
+     * System property to set the number of event loops. Defaults to {@link #defaultEventLoopCount()}.
+     */
+    public static final String eventLoopsProperty = "racevision.nioServer.eventLoops";
+
+
+    /**
+     * Channel used to listen for clients on.
+     */
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * The event loops clients are handed to.
+     */
+    private NioEventLoop[] eventLoops;
+
+    /**
+     * The index of the event loop the next client will be given to.
+     */
+    private int nextEventLoop = 0;
+
+    /**
+     * The race the clients connect to. May be null, if there is no race to stop.
+     */
+    private RaceLogic raceLogic;
+
+
+    /**
+     * Creates a server on the usual port, with the default number of event loops, and starts the event loops.
+     * @param latestMessages Latest messages to be sent
+     * @param compositeCommand Collection of commands for race to execute.
+     * @param sourceIdAllocator Object used to allocate source IDs for clients.
+     * @param raceLogic The race the client will connect to.
+     * @throws IOException if a server socket cannot be instantiated.
+     */
+    public NioRaceServer(LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) throws IOException {
+        this(4942, Integer.getInteger(eventLoopsProperty, defaultEventLoopCount()), latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+    }
+
+
+    /**
+     * Creates a server, and starts its event loops.
+     * @param serverPort Port to expose server on. 0 picks any free port.
+     * @param eventLoopCount Number of event loops (threads) to spread clients over.
+     * @param latestMessages Latest messages to be sent
+     * @param compositeCommand Collection of commands for race to execute.
+     * @param sourceIdAllocator Object used to allocate source IDs for clients.
+     * @param raceLogic The race the client will connect to.
+     * @throws IOException if a server socket cannot be instantiated.
+     */
+    public NioRaceServer(int serverPort, int eventLoopCount, LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) throws IOException {
+
+        this.raceLogic = raceLogic;
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(serverPort));
+
+        this.eventLoops = new NioEventLoop[Math.max(1, eventLoopCount)];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new NioEventLoop(latestMessages, compositeCommand, sourceIdAllocator, raceLogic);
+            new Thread(eventLoops[i], "NioRaceServer()->NioEventLoop thread " + i).start();
+        }
+    }
+
+
+    /**
+     * The default number of event loops - half the available processors, between 1 and 4.
+     * @return Default number of event loops.
+     */
+    public static int defaultEventLoopCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+
+    @Override
+    public String getAddress() throws UnknownHostException {
+        return InetAddress.getLocalHost().getHostAddress();
+    }
+
+    @Override
+    public int getServerPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the total number of clients connected.
+     * @return Number of clients connected.
+     */
+    public int getConnectionCount() {
+        int count = 0;
+        for (NioEventLoop eventLoop : eventLoops) {
+            count += eventLoop.getConnectionCount();
+        }
+        return count;
+    }
+
+    @Override
+    public void closeConnection() throws IOException {
+        if (this.raceLogic != null) {
+            this.raceLogic.boolFalse();
+        }
+
+        for (NioEventLoop eventLoop : eventLoops) {
+            eventLoop.stop();
+        }
+
+        if (this.serverChannel.isOpen()) {
+            this.serverChannel.close();
+        }
+    }
+
+
+    /**
+     * Accepts clients, and hands them to the event loops in turn.
+     */
+    @Override
+    public void run() {
+
+        while (!Thread.currentThread().isInterrupted() && serverChannel.isOpen()) {
+
+            try {
+                SocketChannel channel = serverChannel.accept();
+                SocketSettings.apply(channel.socket());
+
+                Logger.getGlobal().log(Level.INFO, String.format("Client connected. client ip/port = %s. Local ip/port = %s.", channel.getRemoteAddress(), channel.getLocalAddress()));
+
+                eventLoops[nextEventLoop].addChannel(channel);
+                nextEventLoop = (nextEventLoop + 1) % eventLoops.length;
+
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    Logger.getGlobal().log(Level.WARNING, "Got an IOException while a client was attempting to connect.", e);
+                }
+
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package mock.app;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+
+
+/**
+ * Accepts client connections for a race, and sends them the race. Run it on its own thread.
+ * See {@link ConnectionAcceptor} (a few threads per client) and {@link NioRaceServer} (a small, fixed number of threads for all clients).
+ */
+public interface RaceConnectionServer extends Runnable {
+
+    /**
+     * Returns the address the server is listening on.
+     * @return The server's address.
+     * @throws UnknownHostException Thrown if the local host's address cannot be determined.
+     */
+    String getAddress() throws UnknownHostException;
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The server's port.
+     */
+    int getServerPort();
+
+    /**
+     * Stops the race, and closes the server.
+     * @throws IOException Thrown if the server socket cannot be closed.
+     */
+    void closeConnection() throws IOException;
+}
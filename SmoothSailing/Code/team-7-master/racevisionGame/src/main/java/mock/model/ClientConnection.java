@@ -10,14 +10,22 @@ import network.Messages.*;
 import network.Messages.Enums.JoinAcceptanceEnum;
 import network.Messages.Enums.MessageType;
 import network.Messages.Enums.RequestToJoinEnum;
+import network.StreamRelated.CoalescingMessageQueue;
+import network.StreamRelated.HeartBeatMonitor;
+import network.StreamRelated.JoinLatency;
 import network.StreamRelated.MessageDeserialiser;
 import network.StreamRelated.MessageSerialiser;
+import network.StreamRelated.SocketSettings;
+import shared.utils.TimingWheel;
+import shared.utils.WorkerThreads;
 import visualiser.gameController.ControllerServer;
 
 import java.io.IOException;
 import java.net.Socket;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,14 +40,20 @@ public class ClientConnection implements Runnable {
     private Socket socket;
 
     /**
-     * Periodically sends HeartBeat messages to client.
+     * Tracks the client's liveness, round trip time and jitter.
+     */
+    private HeartBeatMonitor heartBeatMonitor;
+
+    /**
+     * Periodically sends HeartBeat messages to client, on a shared {@link TimingWheel}.
      */
     private HeartBeatService heartBeatService;
 
+
     /**
-     * The thread the {@link HeartBeatService} runs on.
+     * Times the client's join, from its connection being accepted until it has been sent everything it needs to draw the race.
      */
-    private Thread heartBeatThread;
+    private JoinLatency joinLatency;
 
 
     /**
@@ -68,6 +82,11 @@ public class ClientConnection implements Runnable {
      */
     private MockOutput mockOutput;
 
+    /**
+     * Whether the client asked for {@link BoatLocationDelta}s, and is counted by {@link LatestMessages#addDeltaClient()} until it is terminated.
+     */
+    private final AtomicBoolean deltaClient = new AtomicBoolean(false);
+
     /**
      * The thread the {@link MockOutput} runs on.
      */
@@ -90,15 +109,25 @@ public class ClientConnection implements Runnable {
     private MessageSerialiser messageSerialiser;
 
     /**
-     * Stores messages to write to socket.
+     * The thread the {@link MessageSerialiser} runs on.
+     */
+    private Thread messageSerialiserThread;
+
+    /**
+     * Stores messages to write to socket. It is bounded, so a slow client gets the latest boat locations and race status instead of an ever growing backlog.
      */
-    private BlockingQueue<AC35Data> outputQueue;
+    private CoalescingMessageQueue outputQueue;
 
     /**
      * Used to read messages from socket.
      */
     private MessageDeserialiser messageDeserialiser;
 
+    /**
+     * The thread the {@link MessageDeserialiser} runs on.
+     */
+    private Thread messageDeserialiserThread;
+
     /**
      * Stores messages read from socket.
      */
@@ -126,29 +155,39 @@ public class ClientConnection implements Runnable {
      * @param latestMessages Latest race snapshot to send to client.
      * @param compositeCommand Collection of commands for race to execute.
      * @param raceLogic The race the client is connected to.
+     * @param timingWheel The wheel to schedule the client's heartbeats on.
+     * @param onDead Given this connection once, if the client stops answering heartbeats or can no longer be written to.
      * @throws IOException Thrown if there is a problem with the client socket.
      */
-    public ClientConnection(Socket socket, SourceIdAllocator sourceIdAllocator, LatestMessages latestMessages, CompositeCommand compositeCommand, RaceLogic raceLogic) throws IOException {
+    public ClientConnection(Socket socket, SourceIdAllocator sourceIdAllocator, LatestMessages latestMessages, CompositeCommand compositeCommand, RaceLogic raceLogic, TimingWheel timingWheel, Consumer<ClientConnection> onDead) throws IOException {
         this.socket = socket;
+        this.joinLatency = new JoinLatency("server " + socket.getRemoteSocketAddress(), JoinLatency.Step.JOIN_ACCEPTANCE);
         this.sourceIdAllocator = sourceIdAllocator;
         this.latestMessages = latestMessages;
         this.compositeCommand = compositeCommand;
         this.raceLogic = raceLogic;
 
-        this.outputQueue = new LinkedBlockingQueue<>();
+        SocketSettings.apply(socket);
+
+        this.outputQueue = new CoalescingMessageQueue();
         this.inputQueue = new LinkedBlockingQueue<>();
 
 
         this.messageSerialiser = new MessageSerialiser(socket.getOutputStream(), outputQueue);
         this.messageDeserialiser = new MessageDeserialiser(socket.getInputStream(), inputQueue);
 
-        new Thread(messageSerialiser, "ClientConnection()->MessageSerialiser thread " + messageSerialiser).start();
-        new Thread(messageDeserialiser, "ClientConnection()->MessageDeserialiser thread " + messageDeserialiser).start();
+        //Heartbeats are answered by the deserialiser, so they never reach the input queue.
+        this.heartBeatMonitor = new HeartBeatMonitor();
+        this.messageDeserialiser.setHeartBeatMonitor(heartBeatMonitor, outputQueue);
+
+        this.messageSerialiserThread = WorkerThreads.create(messageSerialiser, "ClientConnection()->MessageSerialiser thread " + messageSerialiser);
+        this.messageSerialiserThread.start();
+        this.messageDeserialiserThread = WorkerThreads.create(messageDeserialiser, "ClientConnection()->MessageDeserialiser thread " + messageDeserialiser);
+        this.messageDeserialiserThread.start();
 
 
-        this.heartBeatService = new HeartBeatService(outputQueue);
-        this.heartBeatThread = new Thread(heartBeatService, "ClientConnection()->HeartBeatService thread " + heartBeatService);
-        this.heartBeatThread.start();
+        this.heartBeatService = new HeartBeatService(heartBeatMonitor, outputQueue, timingWheel, messageSerialiser::isRunning, () -> onDead.accept(this));
+        this.heartBeatService.start();
 
     }
 
@@ -182,6 +221,7 @@ public class ClientConnection implements Runnable {
 
 
         RequestToJoin requestToJoin = waitForRequestToJoin();
+        joinLatency.mark(JoinLatency.Step.REQUEST_TO_JOIN);
 
         allocatedSourceID = 0;
 
@@ -191,7 +231,7 @@ public class ClientConnection implements Runnable {
             allocatedSourceID = sourceIdAllocator.allocateSourceID();
 
             this.controllerServer = new ControllerServer(compositeCommand, inputQueue, allocatedSourceID, raceLogic.getRace());
-            this.controllerServerThread = new Thread(controllerServer, "ClientConnection.run()->ControllerServer thread" + controllerServer);
+            this.controllerServerThread = WorkerThreads.create(controllerServer, "ClientConnection.run()->ControllerServer thread" + controllerServer);
             this.controllerServerThread.start();
 
         }
@@ -199,8 +239,21 @@ public class ClientConnection implements Runnable {
 
         sendJoinAcceptanceMessage(allocatedSourceID);
 
-        this.mockOutput = new MockOutput(latestMessages, outputQueue);
-        this.mockOutputThread = new Thread(mockOutput, "ClientConnection.run()->MockOutput thread" + mockOutput);
+        //The client is sent the XML messages and snapshot straight after the JoinAcceptance, so it can draw the race one round trip after asking to join.
+        //If the race has no XML messages yet, MockOutput sends them as soon as it does.
+        if (requestToJoin.isBoatLocationDeltas() && deltaClient.compareAndSet(false, true)) {
+            latestMessages.addDeltaClient();
+        }
+        this.mockOutput = new MockOutput(latestMessages, outputQueue, true, requestToJoin.isBoatLocationDeltas(), requestToJoin.isCompression());
+        try {
+            mockOutput.sendJoinMessages();
+            joinLatency.mark(JoinLatency.Step.JOIN_ACCEPTANCE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HandshakeException("Handshake failed. Thread: " + Thread.currentThread() + " interrupted while placing race messages on outgoing message queue.", e);
+        }
+
+        this.mockOutputThread = WorkerThreads.create(mockOutput, "ClientConnection.run()->MockOutput thread" + mockOutput);
         this.mockOutputThread.start();
 
 
@@ -264,21 +317,64 @@ public class ClientConnection implements Runnable {
 
     /**
      * Determines whether or not this connection is still alive.
-     * This is based off whether the {@link MessageSerialiser} is still alive.
+     * This is based off whether the {@link MessageSerialiser} is still alive, and whether the client is still answering heartbeats.
      * @return True if it is alive, false otherwise.
      */
     public boolean isAlive() {
-        return messageSerialiser.isRunning();
+        return messageSerialiser.isRunning() && heartBeatMonitor.isAlive(System.nanoTime());
     }
 
 
     /**
-     * Terminates this connection.
+     * Returns the monitor which tracks the client's liveness, round trip time and jitter.
+     * @return The heartbeat monitor.
+     */
+    public HeartBeatMonitor getHeartBeatMonitor() {
+        return heartBeatMonitor;
+    }
+
+
+    /**
+     * Returns the timings of the client's join.
+     * @return The join latency.
+     */
+    public JoinLatency getJoinLatency() {
+        return joinLatency;
+    }
+
+
+    /**
+     * Returns the number of messages waiting to be written to the client.
+     * @return Outgoing queue depth.
+     */
+    public int getOutputQueueDepth() {
+        return outputQueue.size();
+    }
+
+    /**
+     * Returns the number of outgoing messages dropped because a newer boat location, race status, or snapshot superseded them before the client could be sent them.
+     * @return Number of dropped messages.
+     */
+    public long getDroppedMessageCount() {
+        return outputQueue.getDroppedCount();
+    }
+
+
+    /**
+     * Terminates this connection. The socket is closed, so the client sees the disconnect, and the serialiser and deserialiser threads stop.
      */
     public void terminate() {
 
-        if (this.heartBeatThread != null) {
-            this.heartBeatThread.interrupt();
+        this.heartBeatService.stop();
+
+        this.messageSerialiserThread.interrupt();
+        this.messageDeserialiserThread.interrupt();
+
+        //Closing the socket also unblocks the deserialiser's read.
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not close the socket of client connection: " + this, e);
         }
 
         if (this.mockOutputThread != null) {
@@ -289,6 +385,10 @@ public class ClientConnection implements Runnable {
             this.controllerServerThread.interrupt();
         }
 
+        if (deltaClient.compareAndSet(true, false)) {
+            latestMessages.removeDeltaClient();
+        }
+
         if (allocatedSourceID != 0) {
             sourceIdAllocator.returnSourceID(allocatedSourceID);
         }
@@ -0,0 +1,327 @@
+package mock.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+
+/**
+ * Stores the per-frame state of every boat in a {@link MockRace} as a structure of arrays - one primitive array per field, indexed by the boat's position in the fleet.
+ * <br>
+ * The race's tick loop (see {@link MockRace#updatePosition(int, long, long)}) reads and writes these arrays directly, so moving thousands of boats allocates nothing.
+ * Each boat added to the fleet becomes a view of its slot: {@link MockBoat}'s accessors read and write the arrays, and only build GPSCoordinate and Bearing objects when networking, commands, or colliders ask for them.
+ * <br>
+ * Boats are kept in the order they were added, so the fleet's order matches {@link MockRace#getBoats()}.
+ * <br>
+ * The arrays aren't synchronized, and a position is two slots written one after the other, so another thread could see a new latitude with an old longitude.
+ * So, once a {@link #setTickThread(Thread) tick thread} is set, boats' positions may only be used on it - between frames, or by {@link RaceServer#parseSnapshot()} after a frame - or by {@link ParallelFleetUpdate}'s workers during its parallel phase, which the tick thread waits for.
+ * {@link MockBoat#getPosition()} and {@link MockBoat#setPosition(shared.model.GPSCoordinate)} throw an IllegalStateException on any other thread. Other threads should use the positions in the latest {@link network.Messages.RaceSnapshot}.
+ */
+public class FleetState {
+
+    /**
+     * Number of boats the arrays are sized for when the fleet is constructed.
+     */
+    private static final int InitialCapacity = 16;
+
+    /**
+     * Value of {@link #estimatedTimeAtNextMark} for boats that don't have an estimate.
+     */
+    static final long NoEstimate = Long.MIN_VALUE;
+
+
+    /**
+     * The number of boats in the fleet.
+     */
+    private int size;
+
+    /**
+     * The boats in the fleet, by index.
+     */
+    private MockBoat[] boats;
+
+    /**
+     * Latitude of each boat, in degrees.
+     */
+    double[] latitude;
+
+    /**
+     * Longitude of each boat, in degrees.
+     */
+    double[] longitude;
+
+    /**
+     * Bearing of each boat, in degrees, in the interval [0, 360).
+     */
+    double[] bearing;
+
+    /**
+     * Speed of each boat, in knots.
+     */
+    double[] speed;
+
+    /**
+     * Health of each boat, from 0 to 100.
+     */
+    double[] health;
+
+    /**
+     * Number of the leg each boat is on.
+     */
+    int[] leg;
+
+    /**
+     * Each boat's progress rounding its next mark. See {@link MockBoat#getRoundingStatus()}.
+     */
+    int[] roundingStatus;
+
+    /**
+     * Milliseconds since each boat changed its tack.
+     */
+    long[] timeSinceTackChange;
+
+    /**
+     * Time at which each boat should reach its next mark, in milliseconds since the unix epoch, or {@link #NoEstimate}.
+     */
+    long[] estimatedTimeAtNextMark;
+
+
+    /**
+     * The race's tick thread, the only thread (apart from {@link ParallelFleetUpdate}'s workers) allowed to use boats' positions. Null if any thread may.
+     */
+    private volatile Thread tickThread;
+
+    /**
+     * Whether a {@link ParallelFleetUpdate} is running its parallel phase, during which its workers may use boats' positions.
+     */
+    private volatile boolean parallelPhase;
+
+
+    /**
+     * Constructs an empty fleet.
+     */
+    public FleetState() {
+        boats = new MockBoat[InitialCapacity];
+        latitude = new double[InitialCapacity];
+        longitude = new double[InitialCapacity];
+        bearing = new double[InitialCapacity];
+        speed = new double[InitialCapacity];
+        health = new double[InitialCapacity];
+        leg = new int[InitialCapacity];
+        roundingStatus = new int[InitialCapacity];
+        timeSinceTackChange = new long[InitialCapacity];
+        estimatedTimeAtNextMark = new long[InitialCapacity];
+    }
+
+
+    /**
+     * Grows the arrays, if needed, so they can hold a given number of boats.
+     * @param capacity The number of boats.
+     */
+    private void ensureCapacity(int capacity) {
+
+        if (capacity <= boats.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, boats.length * 2);
+
+        boats = Arrays.copyOf(boats, newCapacity);
+        latitude = Arrays.copyOf(latitude, newCapacity);
+        longitude = Arrays.copyOf(longitude, newCapacity);
+        bearing = Arrays.copyOf(bearing, newCapacity);
+        speed = Arrays.copyOf(speed, newCapacity);
+        health = Arrays.copyOf(health, newCapacity);
+        leg = Arrays.copyOf(leg, newCapacity);
+        roundingStatus = Arrays.copyOf(roundingStatus, newCapacity);
+        timeSinceTackChange = Arrays.copyOf(timeSinceTackChange, newCapacity);
+        estimatedTimeAtNextMark = Arrays.copyOf(estimatedTimeAtNextMark, newCapacity);
+    }
+
+
+    /**
+     * Adds a boat to the end of the fleet. The boat's current state is copied into the fleet, and the boat becomes a view of it.
+     * @param boat The boat to add. Must not already be in a fleet.
+     */
+    public void add(MockBoat boat) {
+
+        if (boat.getFleet() != null) {
+            throw new IllegalArgumentException("Boat " + boat.getSourceID() + " is already in a fleet.");
+        }
+
+        ensureCapacity(size + 1);
+
+        int index = size;
+        boats[index] = boat;
+        copyFrom(boat, index);
+        size++;
+
+        boat.attach(this, index);
+    }
+
+    /**
+     * Removes a boat from the fleet. Its state is copied back into the boat, and the boats after it move down one index.
+     * @param boat The boat to remove.
+     * @return True if the boat was in the fleet.
+     */
+    public boolean remove(MockBoat boat) {
+
+        if (boat.getFleet() != this) {
+            return false;
+        }
+
+        int index = boat.getFleetIndex();
+        boat.detach();
+
+        int moved = size - index - 1;
+        System.arraycopy(boats, index + 1, boats, index, moved);
+        System.arraycopy(latitude, index + 1, latitude, index, moved);
+        System.arraycopy(longitude, index + 1, longitude, index, moved);
+        System.arraycopy(bearing, index + 1, bearing, index, moved);
+        System.arraycopy(speed, index + 1, speed, index, moved);
+        System.arraycopy(health, index + 1, health, index, moved);
+        System.arraycopy(leg, index + 1, leg, index, moved);
+        System.arraycopy(roundingStatus, index + 1, roundingStatus, index, moved);
+        System.arraycopy(timeSinceTackChange, index + 1, timeSinceTackChange, index, moved);
+        System.arraycopy(estimatedTimeAtNextMark, index + 1, estimatedTimeAtNextMark, index, moved);
+
+        size--;
+        boats[size] = null;
+
+        for (int i = index; i < size; i++) {
+            boats[i].attach(this, i);
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies a boat's state, read through its accessors, into a slot.
+     * @param boat The boat to copy.
+     * @param index The slot to copy it into.
+     */
+    private void copyFrom(MockBoat boat, int index) {
+        latitude[index] = boat.getPosition().getLatitude();
+        longitude[index] = boat.getPosition().getLongitude();
+        bearing[index] = boat.getBearing().degrees();
+        speed[index] = boat.getCurrentSpeed();
+        health[index] = boat.getHealth();
+        leg[index] = boat.getCurrentLeg() == null ? 0 : boat.getCurrentLeg().getLegNumber();
+        roundingStatus[index] = boat.getRoundingStatus();
+        timeSinceTackChange[index] = boat.getTimeSinceTackChange();
+        estimatedTimeAtNextMark[index] = boat.getEstimatedTimeAtNextMark() == null ? NoEstimate : boat.getEstimatedTimeAtNextMark().toInstant().toEpochMilli();
+    }
+
+
+    /**
+     * Sets the race's tick thread. From now on, boats' positions may only be used on it, or by {@link ParallelFleetUpdate}'s workers during its parallel phase.
+     * @param tickThread The tick thread, or null to allow any thread.
+     */
+    public void setTickThread(Thread tickThread) {
+        this.tickThread = tickThread;
+    }
+
+    /**
+     * Sets whether a {@link ParallelFleetUpdate} is running its parallel phase.
+     * @param parallelPhase True while its workers are running.
+     */
+    void setParallelPhase(boolean parallelPhase) {
+        this.parallelPhase = parallelPhase;
+    }
+
+    /**
+     * Checks that the current thread may use boats' positions. See {@link #setTickThread(Thread)}.
+     * @throws IllegalStateException Thrown if it may not.
+     */
+    void checkPositionAccess() {
+        Thread tickThread = this.tickThread;
+        Thread currentThread = Thread.currentThread();
+
+        if (tickThread == null || currentThread == tickThread || (parallelPhase && currentThread instanceof ForkJoinWorkerThread)) {
+            return;
+        }
+
+        throw new IllegalStateException("Boat positions may only be used on the race's tick thread, " + tickThread + ", not " + currentThread + ".");
+    }
+
+
+    /**
+     * Returns the number of boats in the fleet.
+     * @return The number of boats.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the boat at a given index.
+     * @param index The index of the boat.
+     * @return The boat.
+     */
+    public MockBoat getBoat(int index) {
+        return boats[index];
+    }
+
+    /**
+     * Returns a boat's latitude.
+     * @param index The index of the boat.
+     * @return The latitude, in degrees.
+     */
+    public double getLatitude(int index) {
+        return latitude[index];
+    }
+
+    /**
+     * Returns a boat's longitude.
+     * @param index The index of the boat.
+     * @return The longitude, in degrees.
+     */
+    public double getLongitude(int index) {
+        return longitude[index];
+    }
+
+    /**
+     * Returns a boat's bearing.
+     * @param index The index of the boat.
+     * @return The bearing, in degrees, in the interval [0, 360).
+     */
+    public double getBearing(int index) {
+        return bearing[index];
+    }
+
+    /**
+     * Returns a boat's speed.
+     * @param index The index of the boat.
+     * @return The speed, in knots.
+     */
+    public double getSpeed(int index) {
+        return speed[index];
+    }
+
+    /**
+     * Returns a boat's health.
+     * @param index The index of the boat.
+     * @return The health, from 0 to 100.
+     */
+    public double getHealth(int index) {
+        return health[index];
+    }
+
+    /**
+     * Returns the number of the leg a boat is on.
+     * @param index The index of the boat.
+     * @return The leg number.
+     */
+    public int getLeg(int index) {
+        return leg[index];
+    }
+
+    /**
+     * Returns a boat's progress rounding its next mark.
+     * @param index The index of the boat.
+     * @return The rounding status. See {@link MockBoat#getRoundingStatus()}.
+     */
+    public int getRoundingStatus(int index) {
+        return roundingStatus[index];
+    }
+
+}
@@ -2,110 +2,133 @@ package mock.model;
 
 import network.Messages.AC35Data;
 import network.Messages.HeartBeat;
-import shared.model.RunnableWithFramePeriod;
+import network.StreamRelated.HeartBeatMonitor;
+import shared.utils.TimingWheel;
 
 import java.util.concurrent.BlockingQueue;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 
 /**
- * This class is responsible for sending {@link HeartBeat} messages to queue.
+ * This class is responsible for sending {@link HeartBeat} messages to queue, and for noticing when the client has died.
+ * It doesn't have a thread of its own - it is scheduled on a {@link TimingWheel} shared by every client, and reschedules itself each time it runs, for when its {@link HeartBeatMonitor} next wants to send a heartbeat.
  */
-public class HeartBeatService implements RunnableWithFramePeriod {
+public class HeartBeatService implements Runnable {
 
     /**
-     * Timestamp of the last sent heartbeat message.
+     * Decides when to send heartbeats, and whether the client is still alive.
      */
-    private long lastHeartbeatTime;
+    private final HeartBeatMonitor heartBeatMonitor;
 
     /**
-     * Period for the heartbeat - that is, how often we send it. Milliseconds.
+     * The messages we're writing to the stream.
      */
-    private long heartbeatPeriod = 2500;
+    private final BlockingQueue<AC35Data> messagesToSend;
 
+    /**
+     * The wheel this is scheduled on.
+     */
+    private final TimingWheel timingWheel;
 
     /**
-     * The messages we're writing to the stream.
+     * Whether the connection can still be written to.
      */
-    private BlockingQueue<AC35Data> messagesToSend;
+    private final BooleanSupplier connectionOpen;
 
+    /**
+     * Run once, when the client dies.
+     */
+    private final Runnable onDead;
 
+    /**
+     * The next time this is scheduled to run.
+     */
+    private volatile TimingWheel.Timeout timeout;
 
     /**
-     * Sequence number for heartbeat messages.
+     * Set once this has been stopped.
      */
-    private int heartbeatSequenceNum = 1;
+    private volatile boolean stopped = false;
 
 
     /**
-     * Constructs a new HeartBeatService to send heartBeat messages to a given outputStream.
+     * Constructs a new HeartBeatService to send heartBeat messages to a given queue.
+     * @param heartBeatMonitor Decides when to send heartbeats, and whether the client is still alive.
      * @param messagesToSend The queue to send heartBeat messages to.
+     * @param timingWheel The wheel to schedule heartbeats on.
+     * @param connectionOpen Whether the connection can still be written to. The client is dead once it can't.
+     * @param onDead Run once, when the client dies.
      */
-    public HeartBeatService(BlockingQueue<AC35Data> messagesToSend) {
+    public HeartBeatService(HeartBeatMonitor heartBeatMonitor, BlockingQueue<AC35Data> messagesToSend, TimingWheel timingWheel, BooleanSupplier connectionOpen, Runnable onDead) {
+        this.heartBeatMonitor = heartBeatMonitor;
         this.messagesToSend = messagesToSend;
-        this.lastHeartbeatTime = System.currentTimeMillis();
+        this.timingWheel = timingWheel;
+        this.connectionOpen = connectionOpen;
+        this.onDead = onDead;
     }
 
 
-
-
     /**
-     * Increments the {@link #heartbeatSequenceNum} value, and returns it.
-     * @return Incremented heat beat number.
+     * Starts sending heartbeats. The first is sent one interval later.
      */
-    private int getNextHeartBeatNumber(){
-        this.heartbeatSequenceNum++;
-
-        return this.heartbeatSequenceNum;
+    public void start() {
+        schedule(System.nanoTime());
     }
 
-
-
     /**
-     * Generates the next heartbeat message and returns it. Increments the heartbeat sequence number.
-     * @return The next heartbeat message.
+     * Stops sending heartbeats.
      */
-    private HeartBeat createHeartbeatMessage() {
+    public void stop() {
+        stopped = true;
 
-        HeartBeat heartBeat = new HeartBeat(getNextHeartBeatNumber());
-
-        return heartBeat;
+        TimingWheel.Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
 
     /**
-     * Puts a HeartBeat message on the message queue.
-     * @throws InterruptedException Thrown if the thread is interrupted.
+     * Returns the monitor which decides when to send heartbeats.
+     * @return The heartbeat monitor.
      */
-    private void sendHeartBeat() throws Exception {
-
-        HeartBeat heartBeat = createHeartbeatMessage();
-
-        messagesToSend.put(heartBeat);
+    public HeartBeatMonitor getHeartBeatMonitor() {
+        return heartBeatMonitor;
     }
 
 
-
     @Override
     public void run() {
 
-        while (!Thread.interrupted()) {
-            long currentFrameTime = System.currentTimeMillis();
-            waitForFramePeriod(lastHeartbeatTime, currentFrameTime, heartbeatPeriod);
-
-            lastHeartbeatTime = currentFrameTime;
+        if (stopped) {
+            return;
+        }
 
-            try {
-                sendHeartBeat();
+        long now = System.nanoTime();
 
-            } catch (Exception e) {
-                Logger.getGlobal().log(Level.WARNING, "HeartBeatService: " + this + " sendHeartBeat() was interrupted on thread: " + Thread.currentThread(), e);
-                Thread.currentThread().interrupt();
-                return;
+        if (!connectionOpen.getAsBoolean() || !heartBeatMonitor.isAlive(now)) {
+            stopped = true;
+            onDead.run();
+            return;
+        }
 
-            }
+        HeartBeat heartBeat = heartBeatMonitor.poll(now);
+        if (heartBeat != null) {
+            //Never blocks the wheel. If the queue is full the client is far behind, and the missed echo counts against it.
+            messagesToSend.offer(heartBeat);
         }
 
+        schedule(now);
+    }
+
+
+    /**
+     * Schedules this to run when the monitor next wants to send a heartbeat.
+     * @param now The current time.
+     */
+    private void schedule(long now) {
+        long delay = TimeUnit.NANOSECONDS.toMillis(heartBeatMonitor.getNextPollTime() - now);
+        timeout = timingWheel.schedule(this, delay);
     }
 }
@@ -2,10 +2,18 @@ package mock.model;
 
 import shared.model.*;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
 
 /**
  * Represents a Boat on the mock side of a race.
  * This adds mock specific functionality to a boat.
+ * <br>
+ * Once a boat is added to a {@link FleetState}, its position, bearing, speed, health, leg number, rounding status, time since tack change, and estimated time at next mark live in the fleet's arrays, and this boat is a view of them.
+ * Its GPSCoordinate, Bearing, and estimated time are only rebuilt when they are read after the fleet has changed them. {@link #currentSpeedProperty()} isn't updated while the boat is in a fleet.
  */
 public class MockBoat extends Boat {
 
@@ -16,6 +24,16 @@ public class MockBoat extends Boat {
     */
     private Polars polars;
 
+    /**
+     * This stores the boat's polars, precomputed for the per-frame boat speed lookups.
+     */
+    private PolarTable polarTable;
+
+    /**
+     * This stores the VMG solver for the boat's polars, which is shared with every other boat using them.
+     */
+    private VMGSolver vmgSolver;
+
     /**
     * This stores the milliseconds since the boat has changed its tack, to allow for only updating the tack every X milliseconds.
     */
@@ -39,6 +57,41 @@ public class MockBoat extends Boat {
      */
     private boolean velocityDefault = true;
 
+    /**
+     * The fleet this boat is a view of, or null if its state is stored in its own fields.
+     */
+    private FleetState fleet;
+
+    /**
+     * This boat's index in {@link #fleet}.
+     */
+    private int fleetIndex = -1;
+
+    /**
+     * The last position built from, or given to, the fleet.
+     */
+    private GPSCoordinate positionView;
+
+    /**
+     * The last bearing built from, or given to, the fleet.
+     */
+    private Bearing bearingView;
+
+    /**
+     * The last estimated time at next mark built from, or given to, the fleet.
+     */
+    private ZonedDateTime estimatedTimeView;
+
+    /**
+     * {@link #estimatedTimeView}, in milliseconds since the unix epoch.
+     */
+    private long estimatedTimeViewMilli = FleetState.NoEstimate;
+
+    /**
+     * The time zone estimated times at next mark are given in.
+     */
+    private ZoneId estimatedTimeZone = ZoneOffset.UTC;
+
     /**
      * Constructs a boat object with a given sourceID, name, country/team abbreviation, and polars table.
      *
@@ -50,7 +103,7 @@ public class MockBoat extends Boat {
     public MockBoat(int sourceID, String name, String country, Polars polars) {
         super(sourceID, name, country);
 
-        this.polars = polars;
+        setPolars(polars);
     }
 
 
@@ -63,7 +116,211 @@ public class MockBoat extends Boat {
     public MockBoat(Boat boat, Polars polars) {
         super(boat.getSourceID(), boat.getName(), boat.getCountry());
 
-        this.polars = polars;
+        setPolars(polars);
+    }
+
+
+    /**
+     * Makes this boat a view of a slot in a fleet. Called by the fleet when the boat is added, or moves to a new index.
+     * @param fleet The fleet.
+     * @param fleetIndex The boat's index in the fleet.
+     */
+    void attach(FleetState fleet, int fleetIndex) {
+        this.fleet = fleet;
+        this.fleetIndex = fleetIndex;
+    }
+
+    /**
+     * Copies this boat's state out of its fleet, back into its own fields. Called by the fleet when the boat is removed.
+     */
+    void detach() {
+        GPSCoordinate position = getPosition();
+        Bearing bearing = getBearing();
+        double currentSpeed = getCurrentSpeed();
+        double health = getHealth();
+        int roundingStatus = getRoundingStatus();
+        long timeSinceTackChange = getTimeSinceTackChange();
+        ZonedDateTime estimatedTimeAtNextMark = getEstimatedTimeAtNextMark();
+
+        this.fleet = null;
+        this.fleetIndex = -1;
+
+        setPosition(position);
+        setBearing(bearing);
+        setCurrentSpeed(currentSpeed);
+        setHealth(health);
+        this.roundingStatus = roundingStatus;
+        setTimeSinceTackChange(timeSinceTackChange);
+        setEstimatedTimeAtNextMark(estimatedTimeAtNextMark);
+    }
+
+    /**
+     * Returns the fleet this boat is a view of.
+     * @return The fleet, or null if the boat isn't in one.
+     */
+    public FleetState getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Returns this boat's index in its fleet.
+     * @return The index, or -1 if the boat isn't in a fleet.
+     */
+    public int getFleetIndex() {
+        return fleetIndex;
+    }
+
+
+    /**
+     * Returns the boat's position. If the boat is in a fleet, this must be called on the race's tick thread - see {@link FleetState#setTickThread(Thread)}.
+     * @return The boat's position.
+     * @throws IllegalStateException Thrown if called on another thread while the boat is in a fleet.
+     */
+    @Override
+    public GPSCoordinate getPosition() {
+        if (fleet == null) {
+            return super.getPosition();
+        }
+
+        fleet.checkPositionAccess();
+
+        double latitude = fleet.latitude[fleetIndex];
+        double longitude = fleet.longitude[fleetIndex];
+
+        if (positionView == null || positionView.getLatitude() != latitude || positionView.getLongitude() != longitude) {
+            positionView = new GPSCoordinate(latitude, longitude);
+        }
+        return positionView;
+    }
+
+    /**
+     * Sets the boat's position. If the boat is in a fleet, this must be called on the race's tick thread - see {@link FleetState#setTickThread(Thread)}.
+     * @param position The boat's new position.
+     * @throws IllegalStateException Thrown if called on another thread while the boat is in a fleet.
+     */
+    @Override
+    public void setPosition(GPSCoordinate position) {
+        if (fleet == null) {
+            super.setPosition(position);
+            return;
+        }
+
+        fleet.checkPositionAccess();
+
+        fleet.latitude[fleetIndex] = position.getLatitude();
+        fleet.longitude[fleetIndex] = position.getLongitude();
+        positionView = position;
+    }
+
+    @Override
+    public Bearing getBearing() {
+        if (fleet == null) {
+            return super.getBearing();
+        }
+
+        double bearing = fleet.bearing[fleetIndex];
+
+        if (bearingView == null || bearingView.degrees() != bearing) {
+            bearingView = Bearing.fromDegrees(bearing);
+        }
+        return bearingView;
+    }
+
+    @Override
+    public void setBearing(Bearing bearing) {
+        if (fleet == null) {
+            super.setBearing(bearing);
+            return;
+        }
+
+        fleet.bearing[fleetIndex] = bearing.degrees();
+        bearingView = bearing;
+    }
+
+    @Override
+    public double getCurrentSpeed() {
+        if (fleet == null) {
+            return super.getCurrentSpeed();
+        }
+        return fleet.speed[fleetIndex];
+    }
+
+    @Override
+    public void setCurrentSpeed(double currentSpeed) {
+        if (fleet == null) {
+            super.setCurrentSpeed(currentSpeed);
+            return;
+        }
+        fleet.speed[fleetIndex] = currentSpeed;
+    }
+
+    @Override
+    public double getHealth() {
+        if (fleet == null) {
+            return super.getHealth();
+        }
+        return fleet.health[fleetIndex];
+    }
+
+    @Override
+    public void setHealth(double health) {
+        if (fleet == null) {
+            super.setHealth(health);
+            return;
+        }
+        fleet.health[fleetIndex] = health;
+    }
+
+    @Override
+    public void updateHealth(double delta) {
+        if (fleet == null) {
+            super.updateHealth(delta);
+            return;
+        }
+        fleet.health[fleetIndex] = Math.max(0, Math.min(100, fleet.health[fleetIndex] + delta));
+    }
+
+    @Override
+    public void setCurrentLeg(Leg currentLeg) {
+        super.setCurrentLeg(currentLeg);
+
+        if (fleet != null) {
+            fleet.leg[fleetIndex] = currentLeg.getLegNumber();
+        }
+    }
+
+    @Override
+    public ZonedDateTime getEstimatedTimeAtNextMark() {
+        if (fleet == null) {
+            return super.getEstimatedTimeAtNextMark();
+        }
+
+        long estimatedTime = fleet.estimatedTimeAtNextMark[fleetIndex];
+
+        if (estimatedTime == FleetState.NoEstimate) {
+            return null;
+        }
+        if (estimatedTimeView == null || estimatedTimeViewMilli != estimatedTime) {
+            estimatedTimeView = ZonedDateTime.ofInstant(Instant.ofEpochMilli(estimatedTime), estimatedTimeZone);
+            estimatedTimeViewMilli = estimatedTime;
+        }
+        return estimatedTimeView;
+    }
+
+    @Override
+    public void setEstimatedTimeAtNextMark(ZonedDateTime estimatedTimeAtNextMark) {
+        if (estimatedTimeAtNextMark != null) {
+            estimatedTimeZone = estimatedTimeAtNextMark.getZone();
+        }
+
+        if (fleet == null) {
+            super.setEstimatedTimeAtNextMark(estimatedTimeAtNextMark);
+            return;
+        }
+
+        fleet.estimatedTimeAtNextMark[fleetIndex] = estimatedTimeAtNextMark == null ? FleetState.NoEstimate : estimatedTimeAtNextMark.toInstant().toEpochMilli();
+        estimatedTimeView = estimatedTimeAtNextMark;
+        estimatedTimeViewMilli = fleet.estimatedTimeAtNextMark[fleetIndex];
     }
 
 
@@ -132,6 +389,28 @@ public class MockBoat extends Boat {
      */
     public void setPolars(Polars polars) {
         this.polars = polars;
+        this.polarTable = polars == null ? null : polars.getPolarTable();
+        this.vmgSolver = polars == null ? null : polars.getVMGSolver();
+    }
+
+    /**
+     * Returns the boat's polars, precomputed for fast lookup.
+     * @return The polar table for this boat.
+     */
+    public PolarTable getPolarTable() {
+        return polarTable;
+    }
+
+    /**
+     * Calculates the bearing, within the given bounds, with the best VMG towards the boat's next marker. Solutions are cached by the boat's {@link VMGSolver}.
+     * @param windDirection The current wind direction.
+     * @param windSpeed The current wind speed, in knots.
+     * @param bearingLowerBound The lowest bearing the boat may travel on.
+     * @param bearingUpperBound The highest bearing the boat may travel on.
+     * @return The boat's speed and bearing at the best VMG, or a VMG with 0 speed and 0 bearing if no bearing makes progress.
+     */
+    public VMG calculateOptimalVMG(Bearing windDirection, double windSpeed, Bearing bearingLowerBound, Bearing bearingUpperBound) {
+        return vmgSolver.calculateVMG(windDirection, windSpeed, calculateBearingToNextMarker(), bearingLowerBound, bearingUpperBound);
     }
 
 
@@ -140,6 +419,9 @@ public class MockBoat extends Boat {
      * @return Time since the boat changed its tack, in milliseconds.
      */
     public long getTimeSinceTackChange() {
+        if (fleet != null) {
+            return fleet.timeSinceTackChange[fleetIndex];
+        }
         return timeSinceTackChange;
     }
 
@@ -148,6 +430,10 @@ public class MockBoat extends Boat {
      * @param timeSinceTackChange Time since the boat changed its tack, in milliseconds.
      */
     public void setTimeSinceTackChange(long timeSinceTackChange) {
+        if (fleet != null) {
+            fleet.timeSinceTackChange[fleetIndex] = timeSinceTackChange;
+            return;
+        }
         this.timeSinceTackChange = timeSinceTackChange;
     }
 
@@ -155,11 +441,11 @@ public class MockBoat extends Boat {
     /**
      * Moves the boat meters forward in the direction that it is facing
      * @param meters The number of meters to move forward.
-     *
+     * @param courseProjection The race's projection (see {@link RaceState#getCourseProjection()}), or null to use GeoTools.
      */
-    public void moveForwards(double meters) {
+    public void moveForwards(double meters, CourseProjection courseProjection) {
         //Updates the current position of the boat.
-        GPSCoordinate newPosition = GPSCoordinate.calculateNewPosition(this.getPosition(), meters, Azimuth.fromBearing(this.getBearing()));
+        GPSCoordinate newPosition = GPSCoordinate.calculateNewPosition(this.getPosition(), meters, Azimuth.fromBearing(this.getBearing()), courseProjection);
         this.setPosition(newPosition);
 
     }
@@ -183,6 +469,16 @@ public class MockBoat extends Boat {
      * @return The distance travelled, in nautical miles, over the given timeslice.
      */
     public double calculateNauticalMilesTravelled(long timeSlice) {
+        return calculateNauticalMilesTravelled(this.getCurrentSpeed(), timeSlice);
+    }
+
+    /**
+     * Calculates the number of nautical miles a boat at a given speed will travel in a given time slice.
+     * @param speed The boat's speed, in knots.
+     * @param timeSlice The timeslice to use.
+     * @return The distance travelled, in nautical miles, over the given timeslice.
+     */
+    public static double calculateNauticalMilesTravelled(double speed, long timeSlice) {
 
         //The proportion of one hour the current timeslice is.
         //This will be a low fractional number, so we need to go from long -> double.
@@ -190,7 +486,7 @@ public class MockBoat extends Boat {
 
         //Calculates the distance travelled, in nautical miles, in the current timeslice.
         //distanceTravelledNM = speed (nm p hr) * time taken to update loop
-        double distanceTravelledNM = this.getCurrentSpeed() * hourProportion;
+        double distanceTravelledNM = speed * hourProportion;
 
         return distanceTravelledNM;
     }
@@ -219,18 +515,28 @@ public class MockBoat extends Boat {
      */
     public boolean isPortSide(Mark mark){
         Bearing towardsMark = GPSCoordinate.calculateBearing(this.getPosition(), mark.getPosition());
-        if (towardsMark.degrees() > 315 || towardsMark.degrees() <= 45){
+        return isPortSide(towardsMark.degrees(), this.getBearing().degrees());
+    }
+
+    /**
+     * Check if a mark is on the port side of a boat
+     * @param towardsMark bearing from the boat to the mark, in degrees
+     * @param boatBearing bearing of the boat, in degrees
+     * @return true if mark is on port side
+     */
+    public static boolean isPortSide(double towardsMark, double boatBearing){
+        if (towardsMark > 315 || towardsMark <= 45){
             //south quadrant
-            return this.getBearing().degrees() <= 180;
-        } else if(towardsMark.degrees() > 45 && towardsMark.degrees() <= 135){
+            return boatBearing <= 180;
+        } else if(towardsMark > 45 && towardsMark <= 135){
             //west quadrant
-            return (this.getBearing().degrees() <= 270 && this.getBearing().degrees() >= 90);
-        }else if(towardsMark.degrees() > 135 && towardsMark.degrees() <= 225){
+            return (boatBearing <= 270 && boatBearing >= 90);
+        }else if(towardsMark > 135 && towardsMark <= 225){
             //north quadrant
-            return this.getBearing().degrees() >= 180;
-        }else if(towardsMark.degrees() > 225 && towardsMark.degrees() <= 315){
+            return boatBearing >= 180;
+        }else if(towardsMark > 225 && towardsMark <= 315){
             //east quadrant
-            return (this.getBearing().degrees() <= 90 || this.getBearing().degrees() >= 270);
+            return (boatBearing <= 90 || boatBearing >= 270);
         }else{
             //should not reach here
             return false;
@@ -245,18 +551,28 @@ public class MockBoat extends Boat {
     public boolean isStarboardSide(Mark mark){
         //if this boat is lower than the mark check which way it is facing
         Bearing towardsMark = GPSCoordinate.calculateBearing(this.getPosition(), mark.getPosition());
-        if (towardsMark.degrees() > 315 || towardsMark.degrees() <= 45){
+        return isStarboardSide(towardsMark.degrees(), this.getBearing().degrees());
+    }
+
+    /**
+     * Check if a mark is on the starboard side of a boat
+     * @param towardsMark bearing from the boat to the mark, in degrees
+     * @param boatBearing bearing of the boat, in degrees
+     * @return true if mark is on starboard side
+     */
+    public static boolean isStarboardSide(double towardsMark, double boatBearing){
+        if (towardsMark > 315 || towardsMark <= 45){
             //south quadrant
-            return !(this.getBearing().degrees() <= 180);
-        } else if(towardsMark.degrees() > 45 && towardsMark.degrees() <= 135){
+            return !(boatBearing <= 180);
+        } else if(towardsMark > 45 && towardsMark <= 135){
             //west quadrant
-            return !(this.getBearing().degrees() <= 270 && this.getBearing().degrees() >= 90);
-        }else if(towardsMark.degrees() > 135 && towardsMark.degrees() <= 225){
+            return !(boatBearing <= 270 && boatBearing >= 90);
+        }else if(towardsMark > 135 && towardsMark <= 225){
             //north quadrant
-            return !(this.getBearing().degrees() >= 180);
-        }else if(towardsMark.degrees() > 225 && towardsMark.degrees() <= 315){
+            return !(boatBearing >= 180);
+        }else if(towardsMark > 225 && towardsMark <= 315){
             //east quadrant
-            return !(this.getBearing().degrees() <= 90 || this.getBearing().degrees() >= 270);
+            return !(boatBearing <= 90 || boatBearing >= 270);
         }else{
             //should not reach here
             return false;
@@ -285,14 +601,25 @@ public class MockBoat extends Boat {
     }
 
     public int getRoundingStatus() {
+        if (fleet != null) {
+            return fleet.roundingStatus[fleetIndex];
+        }
         return roundingStatus;
     }
 
     public void increaseRoundingStatus() {
+        if (fleet != null) {
+            fleet.roundingStatus[fleetIndex]++;
+            return;
+        }
         this.roundingStatus++;
     }
 
     public void resetRoundingStatus() {
+        if (fleet != null) {
+            fleet.roundingStatus[fleetIndex] = 0;
+            return;
+        }
         this.roundingStatus = 0;
     }
 
@@ -16,6 +16,7 @@ import shared.model.Bearing;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static java.lang.Math.cos;
 
@@ -32,6 +33,26 @@ public class MockRace extends RaceState {
      */
     private List<MockBoat> boats;
 
+    /**
+     * The per-frame state of the boats in the race, in the same order as {@link #boats}.
+     */
+    private FleetState fleet;
+
+    /**
+     * Source IDs of boats waiting to be removed. {@link #removeMockBoat(Integer)} is called from connection threads, so it queues boats here, and the race thread removes them between frames in {@link #removePendingBoats()}.
+     */
+    private final Queue<Integer> pendingRemovals = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The mark rounding checks of each leg, for boats in {@link #fleet}.
+     */
+    private RoundingGeometry roundingGeometry;
+
+    /**
+     * The race clock's current time, in milliseconds since the unix epoch, as of the last {@link #updateRaceTime(long)}.
+     */
+    private long raceTimeMilli;
+
     /**
      * A copy of the boundary list, except "shrunk" inwards by 50m.
      */
@@ -92,6 +113,12 @@ public class MockRace extends RaceState {
         this.scaleFactor = timeScale;
 
         this.boats = new ArrayList<>();
+        this.fleet = new FleetState();
+        this.roundingGeometry = new RoundingGeometry(this.getLegs(), this.getMarkRoundingSequence(), getCourseProjection());
+
+        if (this.getRaceClock().getCurrentTime() != null) {
+            this.raceTimeMilli = this.getRaceClock().getCurrentTimeMilli();
+        }
 
         this.shrinkBoundary = GPSCoordinate.getShrinkBoundary(this.getBoundary());
 
@@ -130,6 +157,7 @@ public class MockRace extends RaceState {
         getRaceDataSource().getParticipants().add(sourceID);
 
         this.boats.add(mockBoat);
+        this.fleet.add(mockBoat);
         this.activeObserverCommands.put(boat.getSourceID(), new ActiveObserverCommand());
         this.colliderRegistry.addCollider(mockBoat);
 
@@ -138,12 +166,32 @@ public class MockRace extends RaceState {
 
     /**
      * Removes a MockBoat from the race, by sourceID. Also removes it from the participant list.
+     * This may be called from any thread: the boat is only queued for removal, and is removed by the race thread at the start of its next frame. See {@link #removePendingBoats()}.
      * @param sourceID Source ID of boat to remove.
      */
     public void removeMockBoat(Integer sourceID) {
-        this.boats.removeIf(mockBoat -> mockBoat.getSourceID() == sourceID);
-        getRaceDataSource().getParticipants().remove(sourceID);
-        getRaceDataSource().incrementSequenceNumber();
+        pendingRemovals.add(sourceID);
+    }
+
+    /**
+     * Removes the boats queued by {@link #removeMockBoat(Integer)}. Must be called on the race thread, between frames, as the fleet can't change while boats are being updated.
+     */
+    public void removePendingBoats() {
+
+        Integer sourceID;
+        while ((sourceID = pendingRemovals.poll()) != null) {
+            int id = sourceID;
+
+            this.boats.removeIf(mockBoat -> {
+                if (mockBoat.getSourceID() == id) {
+                    fleet.remove(mockBoat);
+                    return true;
+                }
+                return false;
+            });
+            getRaceDataSource().getParticipants().remove(sourceID);
+            getRaceDataSource().incrementSequenceNumber();
+        }
     }
 
 
@@ -151,6 +199,14 @@ public class MockRace extends RaceState {
         return colliderRegistry;
     }
 
+    /**
+     * Returns the per-frame state of the boats in the race. Its boats are in the same order as {@link #getBoats()}.
+     * @return The fleet.
+     */
+    public FleetState getFleet() {
+        return fleet;
+    }
+
 
     /**
      * Updates the race time to a specified value, in milliseconds since the unix epoch.
@@ -158,6 +214,7 @@ public class MockRace extends RaceState {
      */
     public void updateRaceTime(long currentTime) {
         this.getRaceClock().setUTCTime(currentTime);
+        this.raceTimeMilli = this.getRaceClock().getCurrentTimeMilli();
     }
 
 
@@ -320,10 +377,10 @@ public class MockRace extends RaceState {
 
 
         //Calculates the azimuth between the two points.
-        Azimuth azimuth = GPSCoordinate.calculateAzimuth(mark1Position, mark2Position);
+        Azimuth azimuth = GPSCoordinate.calculateAzimuth(mark1Position, mark2Position, getCourseProjection());
 
         //Calculates the distance between the two points.
-        double distanceMeters = GPSCoordinate.calculateDistanceMeters(mark1Position, mark2Position);
+        double distanceMeters = GPSCoordinate.calculateDistanceMeters(mark1Position, mark2Position, getCourseProjection());
 
         //The number of boats in the race.
         int numberOfBoats = this.boats.size();
@@ -341,7 +398,7 @@ public class MockRace extends RaceState {
         //For each boat, displace position, and store it.
         for (int i = 0; i < numberOfBoats; i++) {
 
-            position = GPSCoordinate.calculateNewPosition(position, distanceBetweenBoatsMeters, azimuth);
+            position = GPSCoordinate.calculateNewPosition(position, distanceBetweenBoatsMeters, azimuth, getCourseProjection());
 
             positions.add(position);
 
@@ -397,52 +454,92 @@ public class MockRace extends RaceState {
     /**
      * Calculates the distance a boat has travelled and updates its current position according to this value.
      *
-     * @param boat The boat to be updated.
+     * @param boat The boat to be updated. Must be in this race's {@link #getFleet() fleet}.
      * @param updatePeriodMilliseconds The time, in milliseconds, since the last update.
      * @param totalElapsedMilliseconds The total number of milliseconds that have elapsed since the start of the race.
      */
     public void updatePosition(MockBoat boat, long updatePeriodMilliseconds, long totalElapsedMilliseconds) {
+        this.updatePosition(boat.getFleetIndex(), updatePeriodMilliseconds, totalElapsedMilliseconds);
+    }
+
+    /**
+     * Calculates the distance a boat in the fleet has travelled and updates its current position according to this value.
+     * This works on the fleet's arrays, and doesn't allocate unless a boat leaves the course projection, or rounds a mark.
+     *
+     * @param boat The index of the boat in the {@link #getFleet() fleet}.
+     * @param updatePeriodMilliseconds The time, in milliseconds, since the last update.
+     * @param totalElapsedMilliseconds The total number of milliseconds that have elapsed since the start of the race.
+     */
+    public void updatePosition(int boat, long updatePeriodMilliseconds, long totalElapsedMilliseconds) {
+
+        MockBoat mockBoat = fleet.getBoat(boat);
 
         //Checks if the current boat has finished the race or not.
-        boolean finish = this.isLastLeg(boat.getCurrentLeg());
+        boolean finish = this.isLastLeg(fleet.leg[boat]);
 
-        if (!finish && totalElapsedMilliseconds >= updatePeriodMilliseconds && !boat.isColliding()) {
-            if(boat.isVelocityDefault()) setBoatSpeed(boat);
+        if (!finish && totalElapsedMilliseconds >= updatePeriodMilliseconds && !mockBoat.isColliding()) {
+            if(mockBoat.isVelocityDefault()) setBoatSpeed(boat);
             //Calculates the distance travelled, in meters, in the current timeslice.
-            double distanceTravelledMeters = boat.calculateMetersTravelled(updatePeriodMilliseconds) * this.scaleFactor;
+            double distanceTravelledMeters = MockBoat.calculateNauticalMilesTravelled(fleet.speed[boat], updatePeriodMilliseconds) * Constants.NMToMetersConversion * this.scaleFactor;
 
             checkPosition(boat, totalElapsedMilliseconds);
             //Move the boat forwards that many meters, and advances its time counters by enough milliseconds.
-            boat.moveForwards(distanceTravelledMeters);
-            boat.setTimeSinceTackChange(boat.getTimeSinceTackChange() + updatePeriodMilliseconds);
+            GPSCoordinate.calculateNewPosition(fleet.latitude, fleet.longitude, boat, distanceTravelledMeters, Azimuth.toAzimuthInterval(fleet.bearing[boat]), getCourseProjection());
+            fleet.timeSinceTackChange[boat] += updatePeriodMilliseconds;
         }
 
         // Remove one unit of health for every frame spent outside boundary
-        if(!finish && !GPSCoordinate.isInsideBoundary(boat.getPosition(), getBoundary())) {
-            boat.updateHealth(-0.1);
+        if(!finish && !GPSCoordinate.isInsideBoundary(fleet.latitude[boat], fleet.longitude[boat], getBoundary())) {
+            mockBoat.updateHealth(-0.1);
         }
 
         this.updateEstimatedTime(boat);
 
     }
 
-    private void setBoatSpeed(MockBoat boat) {
-        VMG vmg = new VMG(NewPolars.calculateSpeed(
-                this.getWindDirection(),
+    /**
+     * Sets a boat's speed from its polars, the wind, and its health.
+     * @param boat The index of the boat in the fleet.
+     */
+    private void setBoatSpeed(int boat) {
+        double speed = fleet.getBoat(boat).getPolarTable().getBoatSpeed(
                 this.getWindSpeed(),
-                boat.getBearing()
-        ), boat.getBearing()) ;
-        if (vmg.getSpeed() > 0) {
-            boat.setCurrentSpeed(vmg.getSpeed() * Math.pow(boat.getHealth() / 100, 0.3));
+                PolarTable.trueWindAngle(this.getWindDirection().degrees(), fleet.bearing[boat]));
+
+        if (speed > 0) {
+            fleet.speed[boat] = speed * Math.pow(fleet.health[boat] / 100, 0.3);
         }
     }
 
+    /**
+     * Checks whether a leg number is that of the last leg.
+     * @param legNumber The leg number.
+     * @return True if it is the last leg.
+     */
+    private boolean isLastLeg(int legNumber) {
+        return legNumber == getLegs().get(getLegs().size() - 1).getLegNumber();
+    }
+
+    /**
+     * Calculates the bearing with the best VMG towards a boat's next marker, without taking it outside of the course.
+     * @param boat The boat to calculate the VMG for.
+     * @return The boat's speed and bearing at the best VMG, or a VMG with 0 speed and 0 bearing if no bearing makes progress.
+     * @see MockBoat#calculateOptimalVMG(Bearing, double, Bearing, Bearing)
+     */
+    public VMG calculateOptimalVMG(MockBoat boat) {
+
+        Bearing[] bounds = this.calculateBearingBounds(boat);
+
+        return boat.calculateOptimalVMG(this.getWindDirection(), this.getWindSpeed(), bounds[0], bounds[1]);
+    }
+
     /**
      * Calculates the upper and lower bounds that the boat may have in order to not go outside of the course.
+     * The bounds are whole degrees, so boats in the same part of the course share their {@link VMGSolver} solutions.
      * @param boat The boat to check.
      * @return An array of bearings. The first is the lower bound, the second is the upper bound.
      */
-    private Bearing[] calculateBearingBounds(MockBoat boat) {
+    public Bearing[] calculateBearingBounds(MockBoat boat) {
 
         Bearing[] bearings = new Bearing[2];
 
@@ -508,7 +605,7 @@ public class MockRace extends RaceState {
 
         //Tests to see if a point in front of the boat is out of bounds.
         double epsilonMeters = 50d;
-        GPSCoordinate testCoord = GPSCoordinate.calculateNewPosition(position, epsilonMeters, azimuth);
+        GPSCoordinate testCoord = GPSCoordinate.calculateNewPosition(position, epsilonMeters, azimuth, getCourseProjection());
 
         //If it isn't inside the boundary, calculate new bearing.
         if (GPSCoordinate.isInsideBoundary(testCoord, this.shrinkBoundary)) {
@@ -520,147 +617,99 @@ public class MockRace extends RaceState {
     }
 
     /**
-     * Checks to be run on boats rounding marks on the port side
-     * @param boat the boat that is rounding a mark
-     * @param roundingData The data for the current leg's rounding.
+     * Checks to be run on boats rounding marks. Boats round marks on the port side unless the leg's {@link RoundingGeometry#starboard} is set.
+     * @param boat the index of the boat that is rounding a mark
+     * @param leg the number of the boat's current leg
      */
-    private void boatRoundingCheckPort(MockBoat boat, MarkRoundingData roundingData) {
+    private void boatRoundingCheck(int boat, int leg) {
         //boats must pass all checks in order to round a mark
 
-        //boolean for if boat has to/needs to pass through a gate
-        boolean gateCheck = boat.getCurrentLeg().getEndCompoundMark().getMark2() == null || boat.isBetweenGate(boat.getCurrentLeg().getEndCompoundMark());
-
+        RoundingGeometry geometry = this.roundingGeometry;
+        double latitude = fleet.latitude[boat];
+        double longitude = fleet.longitude[boat];
+        double bearing = fleet.bearing[boat];
 
-
-        switch (boat.getRoundingStatus()) {
+        switch (fleet.roundingStatus[boat]) {
             case 0://hasn't started rounding
-                if (boat.isPortSide(roundingData.getMarkToRound()) &&
-                        GPSCoordinate.passesLine(
-                                roundingData.getMarkToRound().getPosition(),
-                                roundingData.getRoundCheck1(),
-                                boat.getPosition(),
-                                roundingData.getLegBearing()) &&
-                        gateCheck &&
-                        boat.isBetweenGate(
-                                roundingData.getMarkToRound(),
-                                Mark.tempMark(roundingData.getRoundCheck1()))   ) {
-                    boat.increaseRoundingStatus();
-                    if (boat.getCurrentLeg().getLegNumber() + 2 >= getLegs().size()){
+                //The line check is the cheapest, so it goes first.
+                if (geometry.passesLine(leg, false, latitude, longitude) &&
+                        isOnRoundingSide(boat, leg) &&
+                        //boat has to/needs to pass through a gate
+                        (!geometry.gate[leg] || RoundingGeometry.isBetweenGate(latitude, longitude, bearing,
+                                geometry.gateMark1Latitude[leg], geometry.gateMark1Longitude[leg],
+                                geometry.gateMark2Latitude[leg], geometry.gateMark2Longitude[leg], getCourseProjection())) &&
+                        RoundingGeometry.isBetweenGate(latitude, longitude, bearing,
+                                geometry.markLatitude[leg], geometry.markLongitude[leg],
+                                geometry.check1Latitude[leg], geometry.check1Longitude[leg], getCourseProjection())) {
+                    fleet.roundingStatus[boat]++;
+                    if (leg + 2 >= getLegs().size()){
                         //boat has finished race
-                        boat.increaseRoundingStatus();
+                        fleet.roundingStatus[boat]++;
                     }
                 }
                 break;
-            case 1://has been parallel to the mark;
-                if (boat.isPortSide(roundingData.getMarkToRound()) &&
-                        GPSCoordinate.passesLine(
-                                roundingData.getMarkToRound().getPosition(),
-                                roundingData.getRoundCheck2(),
-                                boat.getPosition(),
-                                Bearing.fromDegrees(
-                                        GPSCoordinate.calculateBearing(
-                                                roundingData.getMarkToRound().getPosition(),
-                                                roundingData.getRoundCheck2()).degrees() - 90)) &&//negative 90 from bearing because of port rounding
-                        boat.isBetweenGate(
-                                roundingData.getMarkToRound(),
-                                Mark.tempMark(roundingData.getRoundCheck2()))) {
-                    boat.increaseRoundingStatus();
+            case 1://has been parallel to the mark
+                if (geometry.passesLine(leg, true, latitude, longitude) &&
+                        isOnRoundingSide(boat, leg) &&
+                        RoundingGeometry.isBetweenGate(latitude, longitude, bearing,
+                                geometry.markLatitude[leg], geometry.markLongitude[leg],
+                                geometry.check2Latitude[leg], geometry.check2Longitude[leg], getCourseProjection())) {
+                    fleet.roundingStatus[boat]++;
                 }
                 break;
             case 2://has traveled 180 degrees around the mark
                 //Move boat on to next leg.
-                boat.resetRoundingStatus();
-                Leg nextLeg = this.getLegs().get(boat.getCurrentLeg().getLegNumber() + 1);
-                boat.setCurrentLeg(nextLeg);
+                fleet.roundingStatus[boat] = 0;
+                Leg nextLeg = this.getLegs().get(leg + 1);
+                fleet.getBoat(boat).setCurrentLeg(nextLeg);
                 break;
         }
     }
 
     /**
-     * Checks to be run on boats rounding marks on the starboard side
-     * @param boat the boat that is rounding a mark
-     * @param roundingData The data for the current leg's rounding.
+     * Checks whether the mark a boat is rounding is on the side it must be rounded on.
+     * @param boat the index of the boat
+     * @param leg the number of the boat's current leg
+     * @return true if the mark is on the rounding side
      */
-    private void boatRoundingCheckStarboard(MockBoat boat, MarkRoundingData roundingData){
-        //boats must pass all checks in order to round a mark
-
-        //boolean for if boat has to/needs to pass through a gate
-        boolean gateCheck = boat.getCurrentLeg().getEndCompoundMark().getMark2() == null || boat.isBetweenGate(boat.getCurrentLeg().getEndCompoundMark());
-
-
-        switch (boat.getRoundingStatus()) {
-            case 0://hasn't started rounding
-                if (boat.isStarboardSide(roundingData.getMarkToRound()) &&
-                        GPSCoordinate.passesLine(
-                                roundingData.getMarkToRound().getPosition(),
-                                roundingData.getRoundCheck1(),
-                                boat.getPosition(),
-                                roundingData.getLegBearing()) &&
-                        gateCheck &&
-                        boat.isBetweenGate(
-                                roundingData.getMarkToRound(),
-                                Mark.tempMark(roundingData.getRoundCheck1()))) {
-                    boat.increaseRoundingStatus();
-                    if (boat.getCurrentLeg().getLegNumber() + 2 >= getLegs().size()){
-                        //boat has finished race
-                        boat.increaseRoundingStatus();
-                    }
-                }
-                break;
-            case 1://has been parallel to the mark
-                if (boat.isStarboardSide(roundingData.getMarkToRound()) &&
-                        GPSCoordinate.passesLine(
-                                roundingData.getMarkToRound().getPosition(),
-                                roundingData.getRoundCheck2(),
-                                boat.getPosition(),
-                                Bearing.fromDegrees(
-                                        GPSCoordinate.calculateBearing(
-                                                roundingData.getMarkToRound().getPosition(),
-                                                roundingData.getRoundCheck2()  ).degrees() + 90)) && //positive 90 from bearing because of starboard rounding
-                        boat.isBetweenGate(
-                                roundingData.getMarkToRound(),
-                                Mark.tempMark(roundingData.getRoundCheck2()))   ) {
-                    boat.increaseRoundingStatus();
-                }
-                break;
-            case 2://has traveled 180 degrees around the mark
-                //Move boat on to next leg.
-                boat.resetRoundingStatus();
-                Leg nextLeg = this.getLegs().get(boat.getCurrentLeg().getLegNumber() + 1);
-                boat.setCurrentLeg(nextLeg);
-                break;
+    private boolean isOnRoundingSide(int boat, int leg) {
+        if (roundingGeometry.starboard[leg]) {
+            return RoundingGeometry.isStarboardSide(fleet.latitude[boat], fleet.longitude[boat], fleet.bearing[boat], roundingGeometry.markLatitude[leg], roundingGeometry.markLongitude[leg], getCourseProjection());
+        } else {
+            return RoundingGeometry.isPortSide(fleet.latitude[boat], fleet.longitude[boat], fleet.bearing[boat], roundingGeometry.markLatitude[leg], roundingGeometry.markLongitude[leg], getCourseProjection());
         }
     }
 
     /**
      * Checks if a boat has finished any legs, or has pulled out of race (DNF).
-     * @param boat The boat to check.
+     * @param boat The boat to check. Must be in this race's {@link #getFleet() fleet}.
      * @param timeElapsed The total time, in milliseconds, that has elapsed since the race started.
      */
     protected void checkPosition(MockBoat boat, long timeElapsed) {
+        this.checkPosition(boat.getFleetIndex(), timeElapsed);
+    }
 
-        switch (boat.getCurrentLeg().getEndCompoundMark().getRoundingType()) {
-            case SP://Not yet implemented so these gates will be rounded port side
-            case Port:
-                boatRoundingCheckPort(
-                        boat,
-                        getMarkRoundingSequence().getRoundingData(boat.getCurrentLeg())  );
-                break;
-            case PS://not yet implemented so these gates will be rounded starboard side
-            case Starboard:
-                boatRoundingCheckStarboard(
-                        boat,
-                        getMarkRoundingSequence().getRoundingData(boat.getCurrentLeg())  );
-                break;
+    /**
+     * Checks if a boat in the fleet has finished any legs, or has pulled out of race (DNF).
+     * @param boat The index of the boat in the fleet.
+     * @param timeElapsed The total time, in milliseconds, that has elapsed since the race started.
+     */
+    protected void checkPosition(int boat, long timeElapsed) {
+
+        int leg = fleet.leg[boat];
+
+        if (roundingGeometry.rounds[leg]) {
+            boatRoundingCheck(boat, leg);
         }
 
 
         //Check if the boat has finished or stopped racing.
-        if (this.isLastLeg(boat.getCurrentLeg())) {
+        if (this.isLastLeg(fleet.leg[boat])) {
             //Boat has finished.
-            boat.setTimeFinished(timeElapsed);
-            boat.setCurrentSpeed(0);
-            boat.setStatus(BoatStatusEnum.FINISHED);
+            MockBoat mockBoat = fleet.getBoat(boat);
+            mockBoat.setTimeFinished(timeElapsed);
+            fleet.speed[boat] = 0;
+            mockBoat.setStatus(BoatStatusEnum.FINISHED);
 
         }
 
@@ -731,20 +780,33 @@ public class MockRace extends RaceState {
 
     /**
      * Updates the boat's estimated time to next mark if positive
-     * @param boat to estimate time given its velocity
+     * @param boat index of the boat in the fleet, to estimate time given its velocity
      */
-    private void updateEstimatedTime(MockBoat boat) {
+    private void updateEstimatedTime(int boat) {
+
+        int leg = fleet.leg[boat];
+
+        //When boats finish, their "current leg" doesn't have an end marker.
+        double bearingToNextMarker = 0;
+        double distanceToNextMarker = 0;
+
+        if (roundingGeometry.hasEndMark[leg]) {
+            bearingToNextMarker = Bearing.toBearingInterval(GPSCoordinate.calculateAzimuthDegrees(
+                    fleet.latitude[boat], fleet.longitude[boat], roundingGeometry.endLatitude[leg], roundingGeometry.endLongitude[leg], getCourseProjection()));
+
+            distanceToNextMarker = GPSCoordinate.calculateDistanceMeters(
+                    fleet.latitude[boat], fleet.longitude[boat], roundingGeometry.endLatitude[leg], roundingGeometry.endLongitude[leg], getCourseProjection()) / Constants.NMToMetersConversion;
+        }
 
-        double velocityToMark = boat.getCurrentSpeed() * cos(boat.getBearing().radians() - boat.calculateBearingToNextMarker().radians()) / Constants.KnotsToMMPerSecond;
+        double velocityToMark = fleet.speed[boat] * cos(Math.toRadians(fleet.bearing[boat]) - Math.toRadians(bearingToNextMarker)) / Constants.KnotsToMMPerSecond;
 
         if (velocityToMark > 0) {
 
             //Calculate milliseconds until boat reaches mark.
-            long timeFromNow = (long) (1000 * boat.calculateDistanceToNextMarker() / velocityToMark);
+            long timeFromNow = (long) (1000 * distanceToNextMarker / velocityToMark);
 
             //Calculate time at which it will reach mark.
-            ZonedDateTime timeAtMark = this.getRaceClock().getCurrentTime().plus(timeFromNow, ChronoUnit.MILLIS);
-            boat.setEstimatedTimeAtNextMark(timeAtMark);
+            fleet.estimatedTimeAtNextMark[boat] = this.raceTimeMilli + timeFromNow;
         }
 
     }
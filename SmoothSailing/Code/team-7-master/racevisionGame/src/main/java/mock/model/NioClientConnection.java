@@ -0,0 +1,565 @@
+package mock.model;
+
+
+import mock.enums.ConnectionStateEnum;
+import mock.exceptions.CommandConstructionException;
+import mock.exceptions.SourceIDAllocationException;
+import mock.model.commandFactory.Command;
+import mock.model.commandFactory.CommandFactory;
+import mock.model.commandFactory.CompositeCommand;
+import network.BinaryMessageDecoder;
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.*;
+import network.Messages.Enums.JoinAcceptanceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RequestToJoinEnum;
+import network.StreamRelated.FrameReader;
+import network.StreamRelated.HeartBeatMonitor;
+import network.StreamRelated.JoinLatency;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A single client's connection to a {@link mock.app.NioRaceServer}.
+ * This does the work of {@link ClientConnection}'s MessageSerialiser, MessageDeserialiser, HeartBeatService, MockOutput, and ControllerServer threads, but without any threads of its own.
+ * It is only ever used by the event loop that owns its channel, so it is not thread safe.
+ */
+public class NioClientConnection {
+
+    /**
+     * The most bytes that may be waiting to be written to a client. A client which falls this far behind - which can only happen through messages that are never skipped, such as XML and collision snapshots - is disconnected, rather than using more and more memory.
+     */
+    public static final int maxOutgoingBytes = 4 * 1024 * 1024;
+
+    /**
+     * The client's channel.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The channel's registration with the event loop's selector.
+     */
+    private final SelectionKey key;
+
+    /**
+     * Splits the bytes read from the channel into frames.
+     */
+    private final FrameReader frameReader;
+
+    /**
+     * Encoded messages waiting to be written to the channel, in order.
+     */
+    private final ArrayDeque<ByteBuffer> outgoing = new ArrayDeque<>();
+
+    /**
+     * The number of bytes in {@link #outgoing} still to be written.
+     */
+    private long outgoingBytes = 0;
+
+    /**
+     * Set once {@link #outgoingBytes} has passed {@link #maxOutgoingBytes}. Nothing more is queued, and the connection is closed.
+     */
+    private boolean outgoingOverflowed = false;
+
+    /**
+     * The most recently queued snapshot. A new snapshot is only queued once this has been completely written, so a slow client skips snapshots instead of falling further behind.
+     */
+    private ByteBuffer pendingSnapshot;
+
+    /**
+     * Number of snapshots skipped because the previous one had not yet been written.
+     */
+    private long skippedSnapshotCount = 0;
+
+
+    /**
+     * Latest snapshot of the race, to send to client.
+     */
+    private final LatestMessages latestMessages;
+
+    /**
+     * Collection of commands from client for race to execute.
+     */
+    private final CompositeCommand compositeCommand;
+
+    /**
+     * Used to allocate source ID to client, if they request to participate.
+     */
+    private final SourceIdAllocator sourceIdAllocator;
+
+    /**
+     * The race the client is connected to.
+     */
+    private final RaceLogic raceLogic;
+
+
+    /**
+     * The state of the connection to the client.
+     */
+    private ConnectionStateEnum connectionState = ConnectionStateEnum.WAITING_FOR_HANDSHAKE;
+
+    /**
+     * The source ID that has been allocated to the client.
+     * 0 means not allocated.
+     */
+    private int allocatedSourceID = 0;
+
+    /**
+     * Set once the connection should be closed after its outgoing messages have been written.
+     */
+    private boolean closeWhenFlushed = false;
+
+
+    /**
+     * Ack numbers used in messages.
+     */
+    private int ackNumber = 1;
+
+    /**
+     * Decides when to send heartbeats, and tracks the client's liveness, round trip time and jitter.
+     */
+    private final HeartBeatMonitor heartBeatMonitor = new HeartBeatMonitor();
+
+    /**
+     * Times the client's join, from its connection being accepted until it has been sent everything it needs to draw the race.
+     */
+    private final JoinLatency joinLatency;
+
+    /**
+     * Version of the last {@link RaceSnapshot} queued in full, so that an unchanged snapshot is skipped without being looked at.
+     */
+    private long lastQueuedVersion = -1;
+
+    /**
+     * {@link RaceSnapshot#getXMLVersion()} of the last snapshot queued, so that XML messages are only checked when one has changed.
+     */
+    private long lastQueuedXMLVersion = -1;
+
+    //These sequence number track the last race/boat/regatta xml message we've sent.
+    private int lastSentRaceNumber = -1;
+
+    private int lastSentBoatNumber = -1;
+
+    private int lastSentRegattaNumber = -1;
+
+    /**
+     * The last encoded snapshot sent, so that the same one isn't sent twice.
+     */
+    private FrameBatch lastSentSnapshotFrames;
+
+    /**
+     * The last snapshot skipped, so that the same one isn't counted twice.
+     */
+    private FrameBatch lastSkippedSnapshotFrames;
+
+    /**
+     * Whether the client asked for {@link BoatLocationDelta}s, and so is sent the compact snapshot.
+     */
+    private boolean boatLocationDeltas = false;
+
+    /**
+     * Whether the client asked for compression, and so is sent XML messages deflated.
+     */
+    private boolean compression = false;
+
+    /**
+     * The last encoded mark positions sent, so that they are only sent again when they change.
+     */
+    private FrameBatch lastSentMarkFrames;
+
+
+    /**
+     * Creates a connection for a client's channel.
+     * @param channel The client's channel. It must be non-blocking.
+     * @param key The channel's registration with the event loop's selector.
+     * @param latestMessages Latest race snapshot to send to client.
+     * @param compositeCommand Collection of commands for race to execute.
+     * @param sourceIdAllocator Used to allocate a source ID for the client.
+     * @param raceLogic The race the client is connected to.
+     */
+    public NioClientConnection(SocketChannel channel, SelectionKey key, LatestMessages latestMessages, CompositeCommand compositeCommand, SourceIdAllocator sourceIdAllocator, RaceLogic raceLogic) {
+        this.channel = channel;
+        this.key = key;
+        this.joinLatency = new JoinLatency("server " + channel.socket().getRemoteSocketAddress(), JoinLatency.Step.JOIN_ACCEPTANCE);
+        this.frameReader = new FrameReader(channel);
+        this.latestMessages = latestMessages;
+        this.compositeCommand = compositeCommand;
+        this.sourceIdAllocator = sourceIdAllocator;
+        this.raceLogic = raceLogic;
+    }
+
+
+    /**
+     * Reads whatever is available from the channel, and handles each complete message.
+     * @throws IOException Thrown if the channel cannot be read, or has been closed by the client.
+     */
+    public void read() throws IOException {
+
+        ByteBuffer frame;
+        while ((frame = frameReader.nextFrame()) != null) {
+
+            try {
+                handleMessage(new BinaryMessageDecoder(frame).decode());
+
+            } catch (InvalidMessageException e) {
+                Logger.getGlobal().log(Level.WARNING, "Unable to decode message from client: " + channel, e);
+
+            }
+        }
+    }
+
+
+    /**
+     * Handles a message received from the client.
+     * @param message The message.
+     */
+    private void handleMessage(AC35Data message) {
+
+        if (message.getType() == MessageType.HEARTBEAT) {
+            HeartBeat echo = heartBeatMonitor.heartBeatReceived((HeartBeat) message, System.nanoTime());
+            if (echo != null) {
+                send(echo);
+            }
+            return;
+        }
+
+        heartBeatMonitor.messageReceived(System.nanoTime());
+
+        if (connectionState == ConnectionStateEnum.WAITING_FOR_HANDSHAKE && message.getType() == MessageType.REQUEST_TO_JOIN) {
+            handshake((RequestToJoin) message);
+
+        } else if (connectionState == ConnectionStateEnum.CONNECTED && message.getType() == MessageType.BOATACTION && allocatedSourceID != 0) {
+            handleBoatAction((BoatAction) message);
+
+        }
+    }
+
+
+    /**
+     * Completes the handshake with the client. Participants are allocated a source ID.
+     * @param requestToJoin The client's {@link RequestToJoin} message.
+     */
+    private void handshake(RequestToJoin requestToJoin) {
+
+        joinLatency.mark(JoinLatency.Step.REQUEST_TO_JOIN);
+
+        boatLocationDeltas = requestToJoin.isBoatLocationDeltas();
+        compression = requestToJoin.isCompression();
+
+        //If they want to participate, give them a source ID number.
+        if (requestToJoin.getRequestType() == RequestToJoinEnum.PARTICIPANT) {
+
+            try {
+                allocatedSourceID = sourceIdAllocator.allocateSourceID();
+
+            } catch (SourceIDAllocationException e) {
+                Logger.getGlobal().log(Level.WARNING, "Client handshake failed.", e);
+                send(new JoinAcceptance(JoinAcceptanceEnum.SERVER_FULL, 0));
+                connectionState = ConnectionStateEnum.DECLINED;
+                closeWhenFlushed = true;
+                return;
+            }
+        }
+
+        send(new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, allocatedSourceID));
+
+        if (boatLocationDeltas) {
+            latestMessages.addDeltaClient();
+        }
+
+        connectionState = ConnectionStateEnum.CONNECTED;
+
+        //The XML messages and snapshot are queued straight after the JoinAcceptance, and written with it, so the client can draw the race one round trip after asking to join.
+        queueLatestMessages();
+        joinLatency.mark(JoinLatency.Step.JOIN_ACCEPTANCE);
+    }
+
+
+    /**
+     * Turns a client's {@link BoatAction} into a command for the race to execute.
+     * @param boatAction The client's action.
+     */
+    private void handleBoatAction(BoatAction boatAction) {
+
+        boatAction.setSourceID(allocatedSourceID);
+
+        try {
+            Command command = CommandFactory.createCommand(raceLogic.getRace(), boatAction);
+            if (command != null) {
+                compositeCommand.addCommand(command);
+            }
+
+        } catch (CommandConstructionException e) {
+            Logger.getGlobal().log(Level.WARNING, "NioClientConnection could not create a Command for BoatAction: " + boatAction + ".", e);
+
+        }
+    }
+
+
+    /**
+     * Queues any messages that are due: heartbeats, changed XML messages, and the latest race snapshot.
+     * @param currentTime The current time, in milliseconds.
+     */
+    public void tick(long currentTime) {
+
+        HeartBeat heartBeat = heartBeatMonitor.poll(System.nanoTime());
+        if (heartBeat != null) {
+            send(heartBeat);
+        }
+
+        queueLatestMessages();
+    }
+
+
+    /**
+     * Queues any XML messages which have changed, and the latest race snapshot, if the client has joined and hasn't already been sent them.
+     */
+    private void queueLatestMessages() {
+
+        if (connectionState != ConnectionStateEnum.CONNECTED) {
+            return;
+        }
+
+        //Nothing has changed since the last snapshot was queued.
+        RaceSnapshot snapshot = latestMessages.getLatest();
+        if (snapshot.getVersion() == lastQueuedVersion || !snapshot.hasAllXMLMessages()) {
+            return;
+        }
+
+
+        //Send XML messages if needed. They are encoded once, and shared by every client.
+        if (snapshot.getXMLVersion() != lastQueuedXMLVersion) {
+            lastQueuedXMLVersion = snapshot.getXMLVersion();
+
+            XMLMessage raceXMLMessage = snapshot.getRaceXMLMessage();
+            if (lastSentRaceNumber != raceXMLMessage.getSequenceNumber()) {
+                lastSentRaceNumber = raceXMLMessage.getSequenceNumber();
+                send(snapshot.getEncodedXMLMessage(raceXMLMessage, compression));
+            }
+
+            XMLMessage boatXMLMessage = snapshot.getBoatXMLMessage();
+            if (lastSentBoatNumber != boatXMLMessage.getSequenceNumber()) {
+                lastSentBoatNumber = boatXMLMessage.getSequenceNumber();
+                send(snapshot.getEncodedXMLMessage(boatXMLMessage, compression));
+            }
+
+            XMLMessage regattaXMLMessage = snapshot.getRegattaXMLMessage();
+            if (lastSentRegattaNumber != regattaXMLMessage.getSequenceNumber()) {
+                lastSentRegattaNumber = regattaXMLMessage.getSequenceNumber();
+                send(snapshot.getEncodedXMLMessage(regattaXMLMessage, compression));
+            }
+        }
+
+
+        //The snapshot is encoded once by the race, and shared by every client.
+        FrameBatch snapshotFrames = snapshot.getSnapshotFrames();
+
+        if (boatLocationDeltas && snapshot.getCompactSnapshotFrames() != null) {
+            snapshotFrames = snapshot.getCompactSnapshotFrames();
+
+            //Marks are only sent when they move.
+            FrameBatch markFrames = snapshot.getMarkFrames();
+            if (markFrames != null && markFrames != lastSentMarkFrames) {
+                lastSentMarkFrames = markFrames;
+                queue(markFrames.getFrames());
+            }
+
+            //A new client needs the latest keyframe before it can expand any deltas.
+            FrameBatch keyframeFrames = snapshot.getKeyframeFrames();
+            if (lastSentSnapshotFrames == null && keyframeFrames != null && !snapshotFrames.isKeyframe()) {
+                queue(keyframeFrames.getFrames());
+            }
+        }
+
+        //A skipped snapshot is looked at again next tick, in case it is the last one.
+        lastQueuedVersion = snapshot.getVersion();
+
+        if (snapshotFrames != null && snapshotFrames != lastSentSnapshotFrames) {
+
+            //Keyframes, and snapshots holding collision events, can't be skipped.
+            if (pendingSnapshot == null || !pendingSnapshot.hasRemaining() || !snapshotFrames.isSupersedable()) {
+                lastSentSnapshotFrames = snapshotFrames;
+                pendingSnapshot = snapshotFrames.getFrames();
+                queue(pendingSnapshot);
+
+            } else {
+                lastQueuedVersion = -1;
+
+                if (snapshotFrames != lastSkippedSnapshotFrames) {
+                    lastSkippedSnapshotFrames = snapshotFrames;
+                    skippedSnapshotCount++;
+                }
+
+            }
+        }
+    }
+
+
+    /**
+     * Encodes a message for this client, and queues it to be written. A {@link FrameBatch} is already encoded, and is queued as-is.
+     * @param message The message to send.
+     */
+    private void send(AC35Data message) {
+
+        if (message instanceof FrameBatch) {
+            queue(((FrameBatch) message).getFrames());
+            return;
+        }
+
+        try {
+            ackNumber++;
+            queue(ByteBuffer.wrap(RaceVisionByteEncoder.encodeBinaryMessage(message, ackNumber)));
+
+        } catch (InvalidMessageException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not encode message: " + message, e);
+
+        }
+    }
+
+
+    /**
+     * Queues encoded messages to be written, unless the client is already too far behind.
+     * @param frames The encoded messages.
+     */
+    private void queue(ByteBuffer frames) {
+
+        if (outgoingOverflowed) {
+            return;
+        }
+
+        outgoing.add(frames);
+        outgoingBytes += frames.remaining();
+
+        if (outgoingBytes > maxOutgoingBytes) {
+            Logger.getGlobal().log(Level.WARNING, "Client " + channel + " has " + outgoingBytes + " bytes waiting to be written. Disconnecting it.");
+            outgoingOverflowed = true;
+        }
+    }
+
+
+    /**
+     * Writes as much of the queued messages as the channel will take. If it can't take all of them, the event loop is asked to call this again once the channel is writable.
+     * @throws IOException Thrown if the channel cannot be written to.
+     */
+    public void flush() throws IOException {
+
+        while (!outgoing.isEmpty()) {
+
+            ByteBuffer next = outgoing.peek();
+            outgoingBytes -= channel.write(next);
+
+            if (next.hasRemaining()) {
+                //Socket buffer is full.
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+
+            outgoing.poll();
+        }
+
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+
+    /**
+     * Returns the number of encoded messages (or snapshots) waiting to be written to the client.
+     * @return Outgoing queue depth.
+     */
+    public int getOutgoingQueueDepth() {
+        return outgoing.size();
+    }
+
+    /**
+     * Returns the number of bytes waiting to be written to the client.
+     * @return Outgoing bytes.
+     */
+    public long getOutgoingBytes() {
+        return outgoingBytes;
+    }
+
+    /**
+     * Returns the number of snapshots the client has skipped, because it was still being sent an older one.
+     * @return Number of skipped snapshots.
+     */
+    public long getSkippedSnapshotCount() {
+        return skippedSnapshotCount;
+    }
+
+
+    /**
+     * Determines whether the connection should now be closed - that is, the client was declined, and has been sent everything queued for it, has stopped answering heartbeats, or has more than {@link #maxOutgoingBytes} waiting to be written.
+     * @return True if the connection should be closed.
+     */
+    public boolean isFinished() {
+        return (closeWhenFlushed && outgoing.isEmpty()) || outgoingOverflowed || !heartBeatMonitor.isAlive(System.nanoTime());
+    }
+
+
+    /**
+     * Returns the monitor which tracks the client's liveness, round trip time and jitter.
+     * @return The heartbeat monitor.
+     */
+    public HeartBeatMonitor getHeartBeatMonitor() {
+        return heartBeatMonitor;
+    }
+
+    /**
+     * Returns the timings of the client's join.
+     * @return The join latency.
+     */
+    public JoinLatency getJoinLatency() {
+        return joinLatency;
+    }
+
+
+    /**
+     * Closes the channel, and returns the client's source ID, if it had one.
+     */
+    public void close() {
+
+        key.cancel();
+
+        try {
+            channel.close();
+
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not close client channel: " + channel, e);
+
+        }
+
+        if (allocatedSourceID != 0) {
+            sourceIdAllocator.returnSourceID(allocatedSourceID);
+            allocatedSourceID = 0;
+        }
+
+        if (boatLocationDeltas && connectionState == ConnectionStateEnum.CONNECTED) {
+            latestMessages.removeDeltaClient();
+            boatLocationDeltas = false;
+        }
+    }
+
+
+    /**
+     * Returns the state of the connection to the client.
+     * @return State of the connection.
+     */
+    public ConnectionStateEnum getConnectionState() {
+        return connectionState;
+    }
+
+    /**
+     * Returns the client's channel.
+     * @return The client's channel.
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+}
@@ -0,0 +1,540 @@
+package mock.model;
+
+import mock.model.collider.Collider;
+import network.Messages.Enums.BoatStatusEnum;
+import shared.model.CourseProjection;
+import shared.model.GPSCoordinate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Updates a {@link MockRace}'s boats for a frame across a {@link ForkJoinPool}, as {@link RaceLogic}'s parallel tick mode.
+ * <br>
+ * A frame has two phases:
+ * <ol>
+ *     <li>{@link #update(long, long)}: in parallel, chunks of the {@link FleetState} run each racing boat's kinematics, rounding checks, and boundary health update ({@link MockRace#updatePosition(int, long, long)}).
+ *     Once every boat has moved, each racing boat then finds the first collider, in {@link mock.model.collider.ColliderRegistry} order, it is within ray cast distance of. Boats are found through a hash grid of the fleet, rather than by checking every pair.</li>
+ *     <li>{@link #resolveCollisions(List)}: sequentially, in fleet order, each boat that found a collider ray casts against it, which resolves the collision and notifies observers exactly as {@link mock.model.collider.ColliderRegistry#rayCast(shared.model.Boat)} would.</li>
+ * </ol>
+ * The first phase only writes to each boat's own slot, and boats only read each other's positions once every boat has moved, so its results don't depend on how the fleet is chunked, or how many threads there are. The second phase emits collisions in a fixed order. So, frames are reproducible.
+ * <br>
+ * Unlike the sequential tick, which ray casts each boat as soon as it has moved, every boat has moved before any ray casts.
+ * The grid assumes the course doesn't cross the antimeridian.
+ */
+public class ParallelFleetUpdate {
+
+    /**
+     * System property which, if set to "true", makes {@link RaceLogic} update boats with a ParallelFleetUpdate.
+     */
+    public static final String enabledProperty = "racevision.parallelTick";
+
+    /**
+     * System property to set the number of threads boats are updated on. Defaults to the number of available processors.
+     */
+    public static final String threadsProperty = "racevision.parallelTick.threads";
+
+    /**
+     * The number of boats each task updates, unless constructed with another.
+     */
+    public static final int DefaultChunkSize = 256;
+
+    /**
+     * A conservative lower bound on the meters per degree of latitude, and on the meters per degree of longitude at the equator.
+     */
+    private static final double MinMetersPerDegree = 110000;
+
+
+    /**
+     * The race whose boats are updated.
+     */
+    private final MockRace race;
+
+    /**
+     * Pool the first phase runs on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The most boats a single task updates.
+     */
+    private final int chunkSize;
+
+
+    /**
+     * Snapshot of the race's colliders, in ray cast order, taken at the start of each frame.
+     */
+    private final List<Collider> colliders = new ArrayList<>();
+
+    /**
+     * Indices, in {@link #colliders}, of colliders which aren't boats in the fleet (e.g., marks).
+     */
+    private int[] otherColliders = new int[0];
+
+    /**
+     * The number of entries in {@link #otherColliders}.
+     */
+    private int otherColliderCount;
+
+    /**
+     * Index, in {@link #colliders}, of each boat in the fleet, or Integer.MAX_VALUE if the boat isn't a collider.
+     */
+    private int[] boatColliderIndex = new int[0];
+
+    /**
+     * Whether each boat in the fleet was racing at the start of the frame.
+     */
+    private boolean[] racing = new boolean[0];
+
+    /**
+     * Index, in {@link #colliders}, of the collider each boat found in the first phase, or -1.
+     */
+    private int[] collisionCandidates = new int[0];
+
+    /**
+     * The number of boats in the fleet when {@link #update(long, long)} last ran, so {@link #resolveCollisions(List)} only reads the candidates it found.
+     */
+    private int frameSize;
+
+    /**
+     * The grid cell of each boat.
+     */
+    private int[] cellRows = new int[0], cellColumns = new int[0];
+
+    /**
+     * Boats, grouped by the hash of their grid cell. The boats with hash h are cellBoats[bucketStart[h]] to cellBoats[bucketStart[h + 1] - 1], in fleet order.
+     */
+    private int[] bucketStart = new int[1], cellBoats = new int[0];
+
+    /**
+     * Fill position of each bucket while grouping boats.
+     */
+    private int[] bucketFill = new int[0];
+
+    /**
+     * {@link #bucketStart}'s length minus 2, a power of two minus one.
+     */
+    private int bucketMask;
+
+    /**
+     * Shift which leaves a bucket number in the high bits of a hash.
+     */
+    private int bucketShift = 64;
+
+    /**
+     * Size, in degrees, of a grid cell's latitude and longitude.
+     */
+    private double cellLatitude, cellLongitude;
+
+    /**
+     * The longest ray cast distance, in meters, of a boat in the fleet.
+     */
+    private double boatRayCastDistance;
+
+
+    /**
+     * Constructs an update with its own pool, with a given number of threads.
+     * @param race The race whose boats are updated.
+     * @param parallelism The number of threads.
+     */
+    public ParallelFleetUpdate(MockRace race, int parallelism) {
+        this(race, new ForkJoinPool(parallelism), DefaultChunkSize);
+    }
+
+    /**
+     * Constructs an update which runs on a given pool.
+     * @param race The race whose boats are updated.
+     * @param pool The pool to update boats on.
+     * @param chunkSize The most boats a single task updates.
+     */
+    public ParallelFleetUpdate(MockRace race, ForkJoinPool pool, int chunkSize) {
+        this.race = race;
+        this.pool = pool;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Constructs an update for a race if the {@link #enabledProperty} system property is set, with {@link #threadsProperty} threads.
+     * @param race The race whose boats are updated.
+     * @return The update, or null if boats should be updated sequentially.
+     */
+    public static ParallelFleetUpdate fromSystemProperties(MockRace race) {
+
+        if (!Boolean.getBoolean(enabledProperty)) {
+            return null;
+        }
+
+        int threads = Math.max(1, Integer.getInteger(threadsProperty, Runtime.getRuntime().availableProcessors()));
+        return new ParallelFleetUpdate(race, threads);
+    }
+
+
+    /**
+     * Returns the pool boats are updated on.
+     * @return The pool.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Shuts down the pool boats are updated on.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+
+    /**
+     * A task which runs {@link #compute(int, int)} over a range of the fleet, splitting it in half until it is no bigger than {@link #chunkSize}.
+     */
+    private abstract class ChunkTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        ChunkTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Creates a task for part of this task's range.
+         * @param from First boat of the range.
+         * @param to One past the last boat of the range.
+         * @return The task.
+         */
+        abstract ChunkTask split(int from, int to);
+
+        /**
+         * Processes a chunk of boats.
+         * @param from First boat of the chunk.
+         * @param to One past the last boat of the chunk.
+         */
+        abstract void compute(int from, int to);
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                compute(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(split(from, middle), split(middle, to));
+            }
+        }
+    }
+
+    /**
+     * Moves a range of boats.
+     */
+    private class MoveTask extends ChunkTask {
+
+        private final long updatePeriodMilliseconds;
+        private final long totalElapsedMilliseconds;
+
+        MoveTask(int from, int to, long updatePeriodMilliseconds, long totalElapsedMilliseconds) {
+            super(from, to);
+            this.updatePeriodMilliseconds = updatePeriodMilliseconds;
+            this.totalElapsedMilliseconds = totalElapsedMilliseconds;
+        }
+
+        @Override
+        ChunkTask split(int from, int to) {
+            return new MoveTask(from, to, updatePeriodMilliseconds, totalElapsedMilliseconds);
+        }
+
+        @Override
+        void compute(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (racing[i]) {
+                    race.updatePosition(i, updatePeriodMilliseconds, totalElapsedMilliseconds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the colliders a range of boats are within range of.
+     */
+    private class DetectTask extends ChunkTask {
+
+        DetectTask(int from, int to) {
+            super(from, to);
+        }
+
+        @Override
+        ChunkTask split(int from, int to) {
+            return new DetectTask(from, to);
+        }
+
+        @Override
+        void compute(int from, int to) {
+            for (int i = from; i < to; i++) {
+                collisionCandidates[i] = racing[i] ? findCollider(i) : -1;
+            }
+        }
+    }
+
+
+    /**
+     * Runs the first, parallel, phase of a frame: moves each racing boat, and finds the collider, if any, it is within range of.
+     * @param updatePeriodMilliseconds The time, in milliseconds, since the last update.
+     * @param totalElapsedMilliseconds The total number of milliseconds that have elapsed since the start of the race.
+     */
+    public void update(long updatePeriodMilliseconds, long totalElapsedMilliseconds) {
+
+        FleetState fleet = race.getFleet();
+        int size = fleet.size();
+
+        ensureCapacity(size);
+        frameSize = size;
+
+        for (int i = 0; i < size; i++) {
+            racing[i] = fleet.getBoat(i).getStatus() == BoatStatusEnum.RACING;
+        }
+
+        //The workers may use boats' positions until both tasks have finished.
+        fleet.setParallelPhase(true);
+        try {
+            pool.invoke(new MoveTask(0, size, updatePeriodMilliseconds, totalElapsedMilliseconds));
+
+            indexColliders(fleet);
+            buildGrid(fleet);
+
+            pool.invoke(new DetectTask(0, size));
+
+        } finally {
+            fleet.setParallelPhase(false);
+        }
+    }
+
+    /**
+     * Runs the second, sequential, phase of a frame: each boat which found a collider ray casts against it, in fleet order.
+     * The fleet must not change between {@link #update(long, long)} and this - see {@link MockRace#removePendingBoats()}.
+     * @param collisionBoats List to add the boats which collided to.
+     */
+    public void resolveCollisions(List<MockBoat> collisionBoats) {
+
+        FleetState fleet = race.getFleet();
+
+        for (int i = 0; i < frameSize; i++) {
+
+            int candidate = collisionCandidates[i];
+
+            if (candidate >= 0) {
+                MockBoat boat = fleet.getBoat(i);
+
+                if (rayCastFrom(candidate, boat)) {
+                    //Add boat to list
+                    collisionBoats.add(boat);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Ray casts a boat against the collider it found. If the collider has no position of its own (e.g., a nested registry), the boat couldn't check it in advance, so it ray casts against it, and the colliders after it, in order.
+     * @param candidate Index, in {@link #colliders}, of the collider the boat found.
+     * @param boat The boat.
+     * @return True if the boat collided.
+     */
+    private boolean rayCastFrom(int candidate, MockBoat boat) {
+
+        CourseProjection courseProjection = race.getCourseProjection();
+
+        if (colliders.get(candidate).getPosition() != null) {
+            return colliders.get(candidate).rayCast(boat, courseProjection);
+        }
+
+        for (int c = candidate; c < colliders.size(); c++) {
+            if (colliders.get(c).rayCast(boat, courseProjection)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grows the per-boat arrays, if needed, to hold a given number of boats.
+     * @param size The number of boats.
+     */
+    private void ensureCapacity(int size) {
+
+        if (racing.length >= size) {
+            return;
+        }
+
+        int capacity = Math.max(size, racing.length * 2);
+        racing = new boolean[capacity];
+        collisionCandidates = new int[capacity];
+        boatColliderIndex = new int[capacity];
+        cellRows = new int[capacity];
+        cellColumns = new int[capacity];
+        cellBoats = new int[capacity];
+
+        //At least twice as many buckets as boats, so most buckets hold one cell.
+        int buckets = Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) * 2;
+        bucketStart = new int[buckets + 1];
+        bucketFill = new int[buckets];
+        bucketMask = buckets - 1;
+        bucketShift = 64 - Integer.numberOfTrailingZeros(buckets);
+    }
+
+    /**
+     * Takes a snapshot of the race's colliders, and finds which of them are boats in the fleet.
+     * @param fleet The race's fleet.
+     */
+    private void indexColliders(FleetState fleet) {
+
+        colliders.clear();
+        colliders.addAll(race.getColliderRegistry().getColliders());
+
+        if (otherColliders.length < colliders.size()) {
+            otherColliders = new int[colliders.size()];
+        }
+        otherColliderCount = 0;
+
+        Arrays.fill(boatColliderIndex, 0, fleet.size(), Integer.MAX_VALUE);
+        boatRayCastDistance = 0;
+
+        for (int c = 0; c < colliders.size(); c++) {
+            Collider collider = colliders.get(c);
+
+            if (collider instanceof MockBoat && ((MockBoat) collider).getFleet() == fleet) {
+                int boat = ((MockBoat) collider).getFleetIndex();
+
+                if (boatColliderIndex[boat] == Integer.MAX_VALUE) {
+                    boatColliderIndex[boat] = c;
+                    boatRayCastDistance = Math.max(boatRayCastDistance, collider.getRayCastDistance());
+                }
+            } else {
+                otherColliders[otherColliderCount++] = c;
+            }
+        }
+    }
+
+    /**
+     * Groups the fleet's boats by grid cell. Cells are at least {@link #boatRayCastDistance} across, so boats within range of each other are in the same, or adjacent, cells.
+     * @param fleet The race's fleet.
+     */
+    private void buildGrid(FleetState fleet) {
+
+        int size = fleet.size();
+
+        //A degree of longitude is shortest at the latitude furthest from the equator.
+        double maxAbsoluteLatitude = 0;
+        for (int i = 0; i < size; i++) {
+            maxAbsoluteLatitude = Math.max(maxAbsoluteLatitude, Math.abs(fleet.latitude[i]));
+        }
+
+        double distance = Math.max(boatRayCastDistance, 1);
+        cellLatitude = distance / MinMetersPerDegree;
+        cellLongitude = distance / (MinMetersPerDegree * Math.max(1e-6, Math.cos(Math.toRadians(Math.min(90, maxAbsoluteLatitude)))));
+
+        Arrays.fill(bucketStart, 0);
+
+        for (int i = 0; i < size; i++) {
+            cellRows[i] = (int) Math.floor(fleet.latitude[i] / cellLatitude);
+            cellColumns[i] = (int) Math.floor(fleet.longitude[i] / cellLongitude);
+            bucketStart[bucketOf(cellRows[i], cellColumns[i]) + 1]++;
+        }
+
+        for (int h = 0; h <= bucketMask; h++) {
+            bucketStart[h + 1] += bucketStart[h];
+        }
+        System.arraycopy(bucketStart, 0, bucketFill, 0, bucketMask + 1);
+
+        //Boats are added in fleet order, so each bucket is in fleet order.
+        for (int i = 0; i < size; i++) {
+            cellBoats[bucketFill[bucketOf(cellRows[i], cellColumns[i])]++] = i;
+        }
+    }
+
+    /**
+     * Returns the bucket a grid cell hashes to.
+     * @param row The cell's row.
+     * @param column The cell's column.
+     * @return The bucket.
+     */
+    private int bucketOf(int row, int column) {
+        //The high bits of a multiplicative hash are the best mixed.
+        long hash = (row * 0x9E3779B97F4A7C15L + column) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash >>> bucketShift);
+    }
+
+    /**
+     * Checks whether a boat is within a collider's ray cast distance of a position. This is the same distance {@link Collider#rayCast(shared.model.Boat, double)} measures.
+     * @param boat The boat.
+     * @param latitude The collider's latitude.
+     * @param longitude The collider's longitude.
+     * @param distance The collider's ray cast distance.
+     * @return True if the boat is within range.
+     */
+    private boolean inRange(int boat, double latitude, double longitude, double distance) {
+        FleetState fleet = race.getFleet();
+
+        //A degree of latitude is never shorter than MinMetersPerDegree, so most colliders are ruled out without the full distance.
+        if (Math.abs(fleet.latitude[boat] - latitude) * MinMetersPerDegree > distance) {
+            return false;
+        }
+
+        return GPSCoordinate.calculateDistanceMeters(fleet.latitude[boat], fleet.longitude[boat], latitude, longitude, race.getCourseProjection()) <= distance;
+    }
+
+    /**
+     * Finds the first collider, in ray cast order, a boat is within range of. Nothing is modified, so boats can search concurrently.
+     * @param boat The boat.
+     * @return The collider's index in {@link #colliders}, or -1.
+     */
+    private int findCollider(int boat) {
+
+        FleetState fleet = race.getFleet();
+        int best = Integer.MAX_VALUE;
+
+        //Colliders which aren't boats are few, and don't move, so are all checked. Those without a position are checked when resolving.
+        for (int k = 0; k < otherColliderCount; k++) {
+            Collider collider = colliders.get(otherColliders[k]);
+            GPSCoordinate position = collider.getPosition();
+
+            if (collider == fleet.getBoat(boat)) {
+                continue;
+            }
+
+            if (position == null || inRange(boat, position.getLatitude(), position.getLongitude(), collider.getRayCastDistance())) {
+                best = otherColliders[k];
+                break;
+            }
+        }
+
+        //Boats are found in the cells around this boat.
+        int row = cellRows[boat];
+        int column = cellColumns[boat];
+
+        for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+            for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+
+                int bucket = bucketOf(row + rowOffset, column + columnOffset);
+
+                for (int k = bucketStart[bucket]; k < bucketStart[bucket + 1]; k++) {
+                    int other = cellBoats[k];
+
+                    if (other != boat
+                            && boatColliderIndex[other] < best
+                            && cellRows[other] == row + rowOffset
+                            && cellColumns[other] == column + columnOffset
+                            && inRange(boat, fleet.latitude[other], fleet.longitude[other], colliders.get(boatColliderIndex[other]).getRayCastDistance())) {
+                        best = boatColliderIndex[other];
+                    }
+                }
+            }
+        }
+
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+}
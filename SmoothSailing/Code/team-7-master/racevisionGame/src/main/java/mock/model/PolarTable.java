@@ -0,0 +1,298 @@
+package mock.model;
+
+import shared.model.Bearing;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable polar table for one class of boat, precomputed onto a dense grid of true wind speed and true wind angle so that looking up a boat speed is O(1).
+ * <br>
+ * The grid has a row every {@link #WindSpeedStep} knots, from 0 knots (where boats don't move) to the highest wind speed in the polar file, and a column every {@link #AngleStep} degrees, from 0 (head to wind) to 180 (dead downwind). Speeds between the estimates in the file are linearly interpolated when the table is built, and lookups between grid points are bilinearly interpolated.
+ * The best upwind and downwind VMG angles are also precomputed for every row.
+ * <br>
+ * The angle between the boat and the wind is (boat bearing - wind direction), so a boat heading along the wind direction is running downwind, and one heading opposite it is head to wind.
+ * Tables are made by {@link mock.dataInput.PolarParser#parsePolarTable(String)} or {@link Polars#getPolarTable()}. Each boat has its own, so boats of different classes can race together.
+ */
+public class PolarTable {
+
+    /**
+     * Knots between each row of the grid.
+     */
+    public static final double WindSpeedStep = 1;
+
+    /**
+     * Degrees between each column of the grid.
+     */
+    public static final double AngleStep = 1;
+
+    /**
+     * Number of columns in the grid: 0 to 180 degrees, inclusive.
+     */
+    private static final int AngleCount = (int) (180 / AngleStep) + 1;
+
+
+    /**
+     * Wind speed of the first row, in knots. Lower wind speeds use the first row.
+     */
+    private final double minWindSpeed;
+
+    /**
+     * Wind speed of the last row, in knots. Higher wind speeds use the last row.
+     */
+    private final double maxWindSpeed;
+
+    /**
+     * Number of rows in the grid.
+     */
+    private final int windSpeedCount;
+
+    /**
+     * Boat speed, in knots, at each grid point. The point for row r and column c is at index r * {@link #AngleCount} + c.
+     */
+    private final double[] boatSpeeds;
+
+    /**
+     * True wind angle, in degrees, with the best upwind VMG for each row.
+     */
+    private final double[] bestUpwindAngles;
+
+    /**
+     * True wind angle, in degrees, with the best downwind VMG for each row.
+     */
+    private final double[] bestDownwindAngles;
+
+
+    /**
+     * Builds a table from the estimates in a polar file.
+     * @param estimates Maps true wind speed (knots) to a map of true wind angle (degrees, 0 to 180) to boat speed (knots). Must have at least one estimate. It is copied, so may be modified afterwards.
+     * @throws IllegalArgumentException Thrown if there are no estimates.
+     */
+    public PolarTable(Map<Double, ? extends Map<Double, Double>> estimates) {
+
+        TreeMap<Double, TreeMap<Double, Double>> sorted = new TreeMap<>();
+        for (Map.Entry<Double, ? extends Map<Double, Double>> row : estimates.entrySet()) {
+            if (!row.getValue().isEmpty()) {
+                sorted.put(row.getKey(), new TreeMap<>(row.getValue()));
+            }
+        }
+
+        if (sorted.isEmpty()) {
+            throw new IllegalArgumentException("A polar table needs at least one estimate.");
+        }
+
+        //Boats don't move without wind, so speeds below the file's lowest wind speed are interpolated down to zero.
+        if (sorted.firstKey() > 0) {
+            TreeMap<Double, Double> calm = new TreeMap<>();
+            calm.put(0d, 0d);
+            sorted.put(0d, calm);
+        }
+
+        this.minWindSpeed = sorted.firstKey();
+        this.maxWindSpeed = sorted.lastKey();
+        this.windSpeedCount = (int) Math.ceil((maxWindSpeed - minWindSpeed) / WindSpeedStep) + 1;
+
+        this.boatSpeeds = new double[windSpeedCount * AngleCount];
+        this.bestUpwindAngles = new double[windSpeedCount];
+        this.bestDownwindAngles = new double[windSpeedCount];
+
+
+        //Interpolate each row of the file onto the grid's angles.
+        TreeMap<Double, double[]> fileRows = new TreeMap<>();
+        for (Map.Entry<Double, TreeMap<Double, Double>> row : sorted.entrySet()) {
+
+            double[] speeds = new double[AngleCount];
+            for (int column = 0; column < AngleCount; column++) {
+                speeds[column] = interpolate(row.getValue(), column * AngleStep);
+            }
+            fileRows.put(row.getKey(), speeds);
+        }
+
+
+        //Interpolate between the file's rows onto the grid's wind speeds.
+        for (int row = 0; row < windSpeedCount; row++) {
+
+            double windSpeed = Math.min(minWindSpeed + row * WindSpeedStep, maxWindSpeed);
+
+            Map.Entry<Double, double[]> lower = fileRows.floorEntry(windSpeed);
+            Map.Entry<Double, double[]> upper = fileRows.ceilingEntry(windSpeed);
+
+            double scalar = upper.getKey().equals(lower.getKey()) ? 0 : (windSpeed - lower.getKey()) / (upper.getKey() - lower.getKey());
+
+            for (int column = 0; column < AngleCount; column++) {
+                boatSpeeds[row * AngleCount + column] = lower.getValue()[column] + (upper.getValue()[column] - lower.getValue()[column]) * scalar;
+            }
+
+            bestUpwindAngles[row] = bestVMGAngle(row, true);
+            bestDownwindAngles[row] = bestVMGAngle(row, false);
+        }
+    }
+
+
+    /**
+     * Linearly interpolates a boat speed between the estimates either side of an angle. Angles outside the estimates use the nearest one.
+     * @param row Maps true wind angle to boat speed.
+     * @param angle The true wind angle, in degrees.
+     * @return The boat speed.
+     */
+    private static double interpolate(TreeMap<Double, Double> row, double angle) {
+
+        Map.Entry<Double, Double> lower = row.floorEntry(angle);
+        Map.Entry<Double, Double> upper = row.ceilingEntry(angle);
+
+        if (lower == null) {
+            return upper.getValue();
+        } else if (upper == null || upper.getKey().equals(lower.getKey())) {
+            return lower.getValue();
+        }
+
+        double scalar = (angle - lower.getKey()) / (upper.getKey() - lower.getKey());
+        return lower.getValue() + (upper.getValue() - lower.getValue()) * scalar;
+    }
+
+    /**
+     * Finds the column of a row with the best upwind or downwind VMG - the boat speed towards, or away from, the wind.
+     * @param row The row.
+     * @param upwind True for the best upwind angle (0 to 90 degrees), false for downwind (90 to 180 degrees).
+     * @return The true wind angle, in degrees.
+     */
+    private double bestVMGAngle(int row, boolean upwind) {
+
+        int halfway = AngleCount / 2;
+        int first = upwind ? 0 : halfway;
+        int last = upwind ? halfway : AngleCount - 1;
+
+        int bestColumn = first;
+        double bestVMG = -Double.MAX_VALUE;
+
+        for (int column = first; column <= last; column++) {
+            double vmg = boatSpeeds[row * AngleCount + column] * Math.cos(Math.toRadians(column * AngleStep));
+            if (!upwind) {
+                vmg = -vmg;
+            }
+
+            if (vmg > bestVMG) {
+                bestVMG = vmg;
+                bestColumn = column;
+            }
+        }
+
+        return bestColumn * AngleStep;
+    }
+
+
+    /**
+     * Converts the angle between a boat and the wind into a true wind angle.
+     * @param windDirection The wind direction.
+     * @param boatAngle The boat's bearing.
+     * @return The true wind angle, in degrees, from 0 (head to wind) to 180 (dead downwind).
+     */
+    private static double trueWindAngle(Bearing windDirection, Bearing boatAngle) {
+        return trueWindAngle(windDirection.degrees(), boatAngle.degrees());
+    }
+
+    /**
+     * Returns the true wind angle for a boat's bearing, given in degrees.
+     * @param windDirection The wind direction, in degrees. A boat heading along it is running downwind.
+     * @param boatAngle The boat's bearing, in degrees.
+     * @return The true wind angle, in degrees, from 0 (head to wind) to 180 (dead downwind).
+     */
+    public static double trueWindAngle(double windDirection, double boatAngle) {
+        return Math.abs(modulateAngle(boatAngle - windDirection) - 180);
+    }
+
+    /**
+     * Returns the position of a wind speed in the grid's rows, clamped to the table's wind speeds.
+     * @param trueWindSpeed The wind speed, in knots.
+     * @return The row, with the fraction of the way to the next row.
+     */
+    private double rowOf(double trueWindSpeed) {
+        double windSpeed = Math.max(minWindSpeed, Math.min(maxWindSpeed, trueWindSpeed));
+        return (windSpeed - minWindSpeed) / WindSpeedStep;
+    }
+
+
+    /**
+     * Returns the speed a boat sails at, for a given wind and bearing.
+     * @param trueWindSpeed The true wind speed, in knots. Speeds above the polar file's use its highest wind speed.
+     * @param trueWindAngle The true wind angle, in degrees, from 0 (head to wind) to 180 (dead downwind).
+     * @return The boat speed, in knots.
+     */
+    public double getBoatSpeed(double trueWindSpeed, double trueWindAngle) {
+
+        double rowPosition = rowOf(trueWindSpeed);
+        int row = Math.min((int) rowPosition, windSpeedCount - 1);
+        int nextRow = Math.min(row + 1, windSpeedCount - 1);
+        double rowScalar = rowPosition - row;
+
+        double columnPosition = Math.max(0, Math.min(180, trueWindAngle)) / AngleStep;
+        int column = Math.min((int) columnPosition, AngleCount - 1);
+        int nextColumn = Math.min(column + 1, AngleCount - 1);
+        double columnScalar = columnPosition - column;
+
+        double lower = lerp(boatSpeeds[row * AngleCount + column], boatSpeeds[row * AngleCount + nextColumn], columnScalar);
+        double upper = lerp(boatSpeeds[nextRow * AngleCount + column], boatSpeeds[nextRow * AngleCount + nextColumn], columnScalar);
+
+        return lerp(lower, upper, rowScalar);
+    }
+
+    /**
+     * Returns the speed a boat sails at, for a given wind and bearing.
+     * @param windDirection The wind direction.
+     * @param trueWindSpeed The true wind speed, in knots.
+     * @param boatAngle The boat's bearing.
+     * @return The boat speed, in knots.
+     */
+    public double getBoatSpeed(Bearing windDirection, double trueWindSpeed, Bearing boatAngle) {
+        return getBoatSpeed(trueWindSpeed, trueWindAngle(windDirection, boatAngle));
+    }
+
+
+    /**
+     * Returns the true wind angle with the best upwind VMG.
+     * @param trueWindSpeed The true wind speed, in knots.
+     * @return The true wind angle, in degrees.
+     */
+    public double getBestUpwindAngle(double trueWindSpeed) {
+        return interpolateRows(bestUpwindAngles, trueWindSpeed);
+    }
+
+    /**
+     * Returns the true wind angle with the best downwind VMG.
+     * @param trueWindSpeed The true wind speed, in knots.
+     * @return The true wind angle, in degrees.
+     */
+    public double getBestDownwindAngle(double trueWindSpeed) {
+        return interpolateRows(bestDownwindAngles, trueWindSpeed);
+    }
+
+    /**
+     * Linearly interpolates a per-row value for a wind speed.
+     * @param values One value for each row.
+     * @param trueWindSpeed The true wind speed, in knots.
+     * @return The interpolated value.
+     */
+    private double interpolateRows(double[] values, double trueWindSpeed) {
+
+        double rowPosition = rowOf(trueWindSpeed);
+        int row = Math.min((int) rowPosition, windSpeedCount - 1);
+        int nextRow = Math.min(row + 1, windSpeedCount - 1);
+
+        return lerp(values[row], values[nextRow], rowPosition - row);
+    }
+
+
+    /**
+     * gets the angle bound between 0 and 360 following modular arithmetic
+     * @param angle angle to modulate
+     * @return resultant angle after modulation.
+     */
+    public static double modulateAngle(double angle) {
+        return (angle % 360 + 360) % 360;
+    }
+
+    private static double lerp(double lower, double upper, double scalar) {
+        return lower + (upper - lower) * scalar;
+    }
+
+}
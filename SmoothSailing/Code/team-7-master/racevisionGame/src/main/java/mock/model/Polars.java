@@ -7,6 +7,7 @@ import java.util.*;
 
 /**
  * Encapsulates an entire polar table. Has a function to calculate VMG.
+ * The estimates are precomputed into a {@link PolarTable}, and VMGs are found, and cached, by a {@link VMGSolver}.
  */
 public class Polars {
 
@@ -15,12 +16,15 @@ public class Polars {
      */
     private Map<Pair<Double, Bearing>, Double> polarValues = new HashMap<>();
 
+    /**
+     * The estimates, precomputed for fast lookup. Built the first time it is needed, and again after any estimate is added.
+     */
+    private PolarTable polarTable;
 
     /**
-     * Stores a list of angles from the polar table - this is used during the calculateVMG function.
-     * Maps between windSpeed and a list of angles for that wind speed.
+     * Finds and caches VMGs using {@link #polarTable}. Replaced whenever the table is.
      */
-    private HashMap<Double, List<Bearing>> polarAngles = new HashMap<>();
+    private VMGSolver vmgSolver;
 
 
 
@@ -39,14 +43,12 @@ public class Polars {
      * @param relativeWindAngle The relative wind angle between the wind direction + 180 degrees and the boat's direction of the estimate.
      * @param boatSpeed The boat speed of the estimate.
      */
-    public void addEstimate(double trueWindSpeed, Bearing relativeWindAngle, double boatSpeed) {
+    public synchronized void addEstimate(double trueWindSpeed, Bearing relativeWindAngle, double boatSpeed) {
 
-        //We also add the same values with a complementary angle (e.g., angle = 50, complement = 360 - 50 = 310). This is because the data file contains angles [0, 180), but we need [0, 360).
+        this.polarTable = null;
+        this.vmgSolver = null;
 
-        //Create the array to store angles for this wind speed if it doesn't exist.
-        if (!this.polarAngles.containsKey(trueWindSpeed)) {
-            this.polarAngles.put(trueWindSpeed, new ArrayList<>());
-        }
+        //We also add the same values with a complementary angle (e.g., angle = 50, complement = 360 - 50 = 310). This is because the data file contains angles [0, 180), but we need [0, 360).
 
         //Add estimate to map.
         Pair<Double, Bearing> newKeyPositive = new Pair<>(trueWindSpeed, relativeWindAngle);
@@ -62,19 +64,46 @@ public class Polars {
             this.polarValues.put(newKeyNegative, boatSpeed);
         }
 
+    }
+
+    /**
+     * Returns these estimates as an immutable {@link PolarTable}, which looks up boat speeds without searching. It is only built once, and shared by every boat using these polars.
+     * @return The polar table.
+     */
+    public synchronized PolarTable getPolarTable() {
+
+        if (polarTable == null) {
 
-        //Add angle to angle list. Don't add if it already contains them.
-        if (!this.polarAngles.get(trueWindSpeed).contains(relativeWindAngle)) {
-            this.polarAngles.get(trueWindSpeed).add(relativeWindAngle);
-        }
+            //Only the angles in the file, [0, 180], are needed - the table mirrors them itself.
+            Map<Double, Map<Double, Double>> estimates = new HashMap<>();
+            for (Map.Entry<Pair<Double, Bearing>, Double> estimate : polarValues.entrySet()) {
+
+                double angle = estimate.getKey().getValue().degrees();
+                if (angle <= 180) {
+                    estimates.computeIfAbsent(estimate.getKey().getKey(), windSpeed -> new HashMap<>()).put(angle, estimate.getValue());
+                }
+            }
 
-        if (!this.polarAngles.get(trueWindSpeed).contains(negativeBearing)) {
-            this.polarAngles.get(trueWindSpeed).add(negativeBearing);
+            polarTable = new PolarTable(estimates);
         }
 
+        return polarTable;
+    }
+
+    /**
+     * Returns the VMG solver for these estimates. It is only built once, and shared by every boat using these polars, so they share its cache.
+     * @return The VMG solver.
+     */
+    public synchronized VMGSolver getVMGSolver() {
+
+        if (vmgSolver == null) {
+            vmgSolver = new VMGSolver(getPolarTable());
+        }
 
+        return vmgSolver;
     }
 
+
     /**
      * Calculates the VMG for a given wind angle, wind speed, and angle to destination. Will only return VMGs that have a true bearing (angle) within a given bound - this is to ensure that you can calculate VMGs without going out of bounds.
      * <br>
@@ -95,202 +124,7 @@ public class Polars {
      * @return The VMG.
      */
     public VMG calculateVMG(Bearing trueWindAngle, double trueWindSpeed, Bearing destinationAngle, Bearing bearingLowerBound, Bearing bearingUpperBound) {
-
-        //Sorts polar angles.
-        for (List<Bearing> angles : this.polarAngles.values()) {
-            angles.sort(null);
-        }
-
-
-        //If the user enters [0, 360] for their bounds, there won't be any accepted angles, as Bearing(360) turn into Bearing(0) (it has the interval [0, 360)).
-        //So if both bearing bounds are zero, we assume that the user wanted [0, 360) for the interval.
-        //So, we give them Bearing(359.99999) as the upper bound.
-        if ((bearingLowerBound.degrees() == 0d) && (bearingUpperBound.degrees() == 0d)) {
-            bearingUpperBound = Bearing.fromDegrees(359.99999d);
-        }
-
-
-
-
-        //If the lower bound is greater than the upper bound, we have a "flipped" interval. That is for, e.g., [70, 55] the lower bound is greater than the upper bound, and so it checks that (VMGAngle >= 70 OR VMGAngle =< 55), instead of (VMGAngle >= 70 AND VMGAngle =< 55).
-        boolean flippedInterval = Polars.isFlippedInterval(bearingLowerBound, bearingUpperBound);
-
-
-
-        //We need to find the upper and lower wind speeds from the Polars table, for a given current wind speed (e.g., current wind speed is 11kn, therefore lower = 8kn, upper = 12kn).
-        double polarWindSpeedLowerBound = 0d;
-        double polarWindSpeedUpperBound = 9999999d;//Start this off with a value larger than any in the Polars table so that it actually works.
-        //This indicates whether or not we've managed to find a wind speed larger than the current wind speed (the upper bound) in the Polars table (in cases where the current wind speed is larger than any in the file we will never find an upper bound).
-        boolean foundUpperBoundWindSpeed = false;
-        boolean foundLowerBoundWindSpeed = false;
-        for (Pair<Double, Bearing> key : this.polarValues.keySet()) {
-
-            //The key is Pair<windSpeed, windAngle>, so pair.key is windSpeed.
-            double currentPolarSpeed = key.getKey();
-
-            //Lower bound.
-            if ((currentPolarSpeed >= polarWindSpeedLowerBound) && (currentPolarSpeed <= trueWindSpeed)) {
-                polarWindSpeedLowerBound = currentPolarSpeed;
-                foundLowerBoundWindSpeed = true;
-            }
-
-            //Upper bound.
-            if ((currentPolarSpeed < polarWindSpeedUpperBound) && (currentPolarSpeed > trueWindSpeed)) {
-                polarWindSpeedUpperBound = currentPolarSpeed;
-                foundUpperBoundWindSpeed = true;
-            }
-
-        }
-
-
-
-        //Find the angle with the best VMG.
-        //We need to find the VMGs for both lower and upper bound wind speeds, and interpolate between them.
-        List<VMG> vmgs = new ArrayList<>();
-
-        //Put wind speed bounds we found above into a list.
-        List<Double> windSpeedBounds = new ArrayList<>(2);
-
-        if (foundLowerBoundWindSpeed) {
-            windSpeedBounds.add(polarWindSpeedLowerBound);
-        }
-        if (foundUpperBoundWindSpeed) {
-            windSpeedBounds.add(polarWindSpeedUpperBound);
-        }
-
-
-        //Calculate VMG for any wind speed bounds we found.
-        for (double polarWindSpeed : windSpeedBounds) {
-
-            //The list of polar angles for this wind speed.
-            List<Bearing> polarAngles = this.polarAngles.get(polarWindSpeed);
-
-
-            double bestVMGVelocity = 0;
-            double bestVMGSpeed = 0;
-            Bearing bestVMGAngle = Bearing.fromDegrees(0d);
-
-            //Calculate the VMG for all possible angles at this wind speed.
-            for (double angleDegree = 0; angleDegree < 360; angleDegree += 1) {
-                Bearing angle = Bearing.fromDegrees(angleDegree);
-
-                //This is the true bearing of the boat, if it went at the angle against the wind.
-                //For angle < 90 OR angle > 270, it means that the boat is going into the wind (tacking).
-                //For angle > 90 AND angle < 270, it means that the boat is actually going with the wind (gybing).
-                double trueBoatBearingDegrees = trueWindAngle.degrees() + angle.degrees() + 180d;
-                Bearing trueBoatBearing = Bearing.fromDegrees(trueBoatBearingDegrees);
-
-
-                //Check that the boat's bearing would actually be acceptable.
-                //We continue (skip to next iteration) if it is outside of the interval.
-                if (!Polars.isBearingInsideInterval(trueBoatBearing, bearingLowerBound, bearingUpperBound)) {
-                    continue;
-                }
-
-
-                //Basic linear interpolation. Find the nearest two angles from the table, and interpolate between them.
-
-                //Check which pair of adjacent angles the angle is between.
-                boolean foundAdjacentAngles = false;
-                Bearing lowerBound = Bearing.fromDegrees(0d);
-                Bearing upperBound = Bearing.fromDegrees(0d);
-                for (int i = 0; i < polarAngles.size() - 1; i++) {
-                    Bearing currentAngle = polarAngles.get(i);
-                    Bearing nextAngle = polarAngles.get(i + 1);
-                    //Check that angle is in interval [lower, upper).
-                    if ((angle.degrees() >= currentAngle.degrees()) && (angle.degrees() < nextAngle.degrees())) {
-                        foundAdjacentAngles = true;
-                        lowerBound = currentAngle;
-                        upperBound = nextAngle;
-                        break;
-                    }
-                }
-
-                if (!foundAdjacentAngles) {
-                    //If we never found the interval, then it must be the "last" interval, between the i'th and 0'th values - angles are periodic, so they wrap around.
-                    lowerBound = polarAngles.get(polarAngles.size() - 1);
-                    upperBound = polarAngles.get(0);
-                }
-
-
-                //Calculate how far between those points the angle is.
-
-
-                //This is how far between the lower and upper bounds the angle is, as a proportion (e.g., 0.5 = half-way, 0.9 = close to upper).
-                double interpolationScalar = calculatePeriodicLinearInterpolateScalar(lowerBound.degrees(), upperBound.degrees(), 360, angle.degrees());
-
-                //Get the estimated boat speeds for the lower and upper angles.
-                Pair<Double, Bearing> lowerKey = new Pair<>(polarWindSpeed, lowerBound);
-                Pair<Double, Bearing> upperKey = new Pair<>(polarWindSpeed, upperBound);
-                double lowerSpeed = this.polarValues.get(lowerKey);
-                double upperSpeed = this.polarValues.get(upperKey);
-
-                //Calculate the speed at the interpolated angle.
-                double interpolatedSpeed = calculateLinearInterpolation(lowerSpeed, upperSpeed, interpolationScalar);
-
-
-                //This is the delta angle between the boat's true bearing and the destination.
-                double angleBetweenDestAndTackDegrees = trueBoatBearing.degrees() - destinationAngle.degrees();
-                Bearing angleBetweenDestAndTack = Bearing.fromDegrees(angleBetweenDestAndTackDegrees);
-
-                //This is the estimated velocity towards the target (e.g., angling away from the target reduces velocity).
-                double interpolatedVelocity = Math.cos(angleBetweenDestAndTack.radians()) * interpolatedSpeed;
-
-
-                //Check that the velocity is better, if so, update our best VMG so far, for this wind speed.
-                if (interpolatedVelocity > bestVMGVelocity) {
-                    bestVMGVelocity = interpolatedVelocity;
-                    bestVMGSpeed = interpolatedSpeed;
-                    bestVMGAngle = trueBoatBearing;
-                }
-
-            }
-            //Angle iteration loop is finished.
-
-            //Create the VMG, and add to list.
-            VMG vmg = new VMG(bestVMGSpeed, bestVMGAngle);
-            vmgs.add(vmg);
-
-        }
-
-
-        //If we never found an upper bound for the wind speed, we will only have one VMG (for the lower bound), so we can't interpolate/extrapolate anything.
-        if (!foundUpperBoundWindSpeed) {
-            return vmgs.get(0);
-        } else {
-            //We may have more than one VMG. If we found an upper and lower bound we will have two, if we only found an upper bound (e.g., wind speed = 2kn, upper = 4kn, lower = n/a) we will only have one VMG, but must interpolate between that and a new VMG with 0kn speed.
-
-            //We do a simple linear interpolation.
-
-            VMG vmg1 = vmgs.get(0);
-            VMG vmg2;
-            if (vmgs.size() > 1) {
-                //If we have a second VMG use it.
-                vmg2 = vmgs.get(1);
-            } else {
-                //Otherwise create a VMG with zero speed, but the same angle. This is what our VMG would be with 0 knot wind speed (boats don't move at 0 knots).
-                //We also need to swap them around, as vmg1 needs to be the vmg for the lower bound wind speed, and vmg2 is the upper bound wind speed.
-                vmg2 = vmg1;
-                vmg1 = new VMG(0, vmg1.getBearing());
-            }
-
-
-            //Get the interpolation scalar for the current wind speed.
-            double interpolationScalar = calculateLinearInterpolateScalar(polarWindSpeedLowerBound, polarWindSpeedUpperBound, trueWindSpeed);
-
-            //We then calculate the interpolated VMG speed and angle using the interpolation scalar.
-            double interpolatedSpeed = calculateLinearInterpolation(vmg1.getSpeed(), vmg2.getSpeed(), interpolationScalar);
-            double interpolatedAngleDegrees = calculateLinearInterpolation(vmg1.getBearing().degrees(), vmg2.getBearing().degrees(), interpolationScalar);
-
-            Bearing interpolatedAngle = Bearing.fromDegrees(interpolatedAngleDegrees);
-
-
-            //Return the interpolated VMG.
-            return new VMG(interpolatedSpeed, interpolatedAngle);
-
-        }
-
-
+        return getVMGSolver().calculateVMG(trueWindAngle, trueWindSpeed, destinationAngle, bearingLowerBound, bearingUpperBound);
     }
 
 
@@ -1,6 +1,5 @@
 package mock.model;
 
-import javafx.animation.AnimationTimer;
 import mock.model.collider.Collision;
 import mock.model.commandFactory.CollisionCommand;
 import mock.model.commandFactory.Command;
@@ -31,6 +30,11 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
 
     private boolean loopBool = true;
 
+    /**
+     * Updates boats in parallel, if {@link ParallelFleetUpdate#enabledProperty} is set. Otherwise null, and boats are updated sequentially.
+     */
+    private ParallelFleetUpdate parallelUpdate;
+
     /**
      * Initialises race loop with state and server message queue
      * @param race state of race to modify
@@ -41,6 +45,7 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
         this.race = race;
         this.server = new RaceServer(race, messages);
         this.commands = compositeCommand;
+        this.parallelUpdate = ParallelFleetUpdate.fromSystemProperties(race);
 
         race.getColliderRegistry().addObserver(this);
     }
@@ -51,6 +56,9 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
     @Override
     public void run() {
 
+        //Boats' positions are only used on this thread from now on, so they are never read half written.
+        race.getFleet().setTickThread(Thread.currentThread());
+
         prestartCountdown();
 
         race.initialiseBoats();
@@ -58,6 +66,8 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
         countdown();
 
         raceLoop();
+
+        raceFinished();
     }
 
     public void boolFalse(){
@@ -78,6 +88,9 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
 
             long currentTime = System.currentTimeMillis();
 
+            //Remove boats whose clients have left, between frames.
+            race.removePendingBoats();
+
             //Update race time.
             race.updateRaceTime(currentTime);
 
@@ -109,6 +122,9 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
 
             long currentTime = System.currentTimeMillis();
 
+            //Remove boats whose clients have left, between frames.
+            race.removePendingBoats();
+
             //Update race time.
             race.updateRaceTime(currentTime);
 
@@ -151,6 +167,9 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
             //Get the current time.
             long currentTime = System.currentTimeMillis();
 
+            //Remove boats whose clients have left, between frames.
+            race.removePendingBoats();
+
             // Execute commands from clients.
             commands.execute();
 
@@ -167,26 +186,37 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
                 //Get the time period of this frame.
                 long framePeriod = currentTime - previousFrameTime;
 
-                //For each boat, we update its position, and generate a BoatLocationMessage.
-                for (MockBoat boat : race.getBoats()) {
+                long totalElapsedMilliseconds = race.getRaceClock().getDurationMilli();
+                FleetState fleet = race.getFleet();
+
+                if (parallelUpdate != null) {
+                    //Move every racing boat in parallel, then resolve collisions in fleet order.
+                    parallelUpdate.update(framePeriod, totalElapsedMilliseconds);
+                    parallelUpdate.resolveCollisions(collisionBoats);
 
-                    //If it is still racing, update its position.
-                    if (boat.getStatus() == BoatStatusEnum.RACING) {
-                        race.updatePosition(boat, framePeriod, race.getRaceClock().getDurationMilli());
+                } else {
+                    //For each boat, we update its position, and generate a BoatLocationMessage.
+                    for (int i = 0; i < fleet.size(); i++) {
+                        MockBoat boat = fleet.getBoat(i);
 
-                        if(race.getColliderRegistry().rayCast(boat)){
-                            //Add boat to list
-                            collisionBoats.add(boat);
+                        //If it is still racing, update its position.
+                        if (boat.getStatus() == BoatStatusEnum.RACING) {
+                            race.updatePosition(i, framePeriod, totalElapsedMilliseconds);
+
+                            if(race.getColliderRegistry().rayCast(boat, race.getCourseProjection())){
+                                //Add boat to list
+                                collisionBoats.add(boat);
+                            }
                         }
-                    }
 
 
+                    }
                 }
 
             } else {
-                //Otherwise, the race is over!
-                raceFinished.start();
+                //Otherwise, the race is over! Parse the finished race once here, so it is recorded before capture stops.
                 race.setRaceStatusEnum(RaceStatusEnum.FINISHED);
+                server.parseSnapshot();
             }
 
             if (race.getNumberOfActiveBoats() != 0) {
@@ -208,24 +238,35 @@ public class RaceLogic implements RunnableWithFramePeriod, Observer {
             waitForFramePeriod(previousFrameTime, currentTime, 16);
             previousFrameTime = currentTime;
         }
+
+        if (parallelUpdate != null) {
+            parallelUpdate.shutdown();
+        }
+
+        server.stopCapture();
     }
 
     /**
-     * Broadcast that the race has finished.
+     * Broadcast that the race has finished, for a few hundred frames. This runs on the race thread, like every other snapshot, as boats' positions may only be used on it.
      */
-    protected AnimationTimer raceFinished = new AnimationTimer(){
-        int iters = 0;
-        @Override
-        public void handle(long now) {
+    private void raceFinished() {
+
+        if (race.getRaceStatusEnum() != RaceStatusEnum.FINISHED) {
+            return;
+        }
+
+        long previousFrameTime = System.currentTimeMillis();
+
+        for (int i = 0; i <= 500 && loopBool; i++) {
+
+            long currentTime = System.currentTimeMillis();
 
             server.parseSnapshot();
 
-            if (iters > 500) {
-                stop();
-            }
-            iters++;
+            waitForFramePeriod(previousFrameTime, currentTime, 16);
+            previousFrameTime = currentTime;
         }
-    };
+    }
 
 
     /**
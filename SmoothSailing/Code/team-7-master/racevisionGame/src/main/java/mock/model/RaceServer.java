@@ -1,10 +1,14 @@
 package mock.model;
 
 import network.AckSequencer;
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RaceVisionByteEncoder;
 import network.Messages.*;
 import network.Messages.Enums.BoatLocationDeviceEnum;
 import network.Messages.Enums.YachtEventEnum;
 import network.Messages.Enums.XMLMessageType;
+import network.PacketDump.PacketLogWriter;
+import network.Utils.BoatLocationDeltaCompressor;
 import shared.model.Bearing;
 import shared.model.CompoundMark;
 import shared.model.Mark;
@@ -13,8 +17,11 @@ import shared.xml.boats.BoatDataSourceToXML;
 import shared.xml.regatta.RegattaDataSourceToXML;
 
 import javax.xml.bind.JAXBException;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +55,32 @@ public class RaceServer {
     private int regattaXMLSeqNumber = -1;
 
 
+    /**
+     * Ack numbers of the full snapshots, which every client without {@link BoatLocationDelta}s is sent.
+     */
+    private final AckSequencer snapshotAckSequencer = new AckSequencer();
+
+    /**
+     * Ack numbers of the compact snapshots and mark positions, which clients with {@link BoatLocationDelta}s are sent. Only used while there are any, so neither stream has gaps.
+     */
+    private final AckSequencer compactAckSequencer = new AckSequencer();
+
+    /**
+     * Compresses boat locations into keyframes and deltas, for clients which asked for them. Replaced while no client has, so the first compact snapshot after a pause is a keyframe.
+     */
+    private BoatLocationDeltaCompressor boatLocationDeltaCompressor = new BoatLocationDeltaCompressor();
+
+    /**
+     * The mark positions last encoded into {@link LatestMessages#getMarkFrames()}, so they are only re-encoded when a mark moves.
+     */
+    private List<BoatLocation> lastMarkLocations;
+
+    /**
+     * Records each snapshot and XML message, as a spectator would receive them. Null unless {@link PacketLogWriter#captureDirectoryProperty} is set, and once the race has ended - see {@link #stopCapture()}.
+     */
+    private volatile PacketLogWriter packetLog = PacketLogWriter.fromSystemProperty("server");
+
+
     public RaceServer(MockRace race, LatestMessages latestMessages) {
         this.race = race;
         this.latestMessages = latestMessages;
@@ -62,23 +95,47 @@ public class RaceServer {
         List<AC35Data> snapshotMessages = new ArrayList<>();
 
         //Parse the boat locations.
-        snapshotMessages.addAll(parseBoatLocations());
+        List<BoatLocation> boatLocations = parseBoatLocations();
+        snapshotMessages.addAll(boatLocations);
 
         //Parse the boat states
-        snapshotMessages.addAll(parseBoatStates());
+        List<BoatState> boatStates = parseBoatStates();
+        snapshotMessages.addAll(boatStates);
 
         //Parse the marks.
-        snapshotMessages.addAll(parseMarks());
+        List<BoatLocation> markLocations = parseMarks();
+        snapshotMessages.addAll(markLocations);
 
         //Parse the race status.
-        snapshotMessages.add(parseRaceStatus());
+        RaceStatus raceStatus = parseRaceStatus();
+        snapshotMessages.add(raceStatus);
 
         //Parse collisions
         if(collisionEvents.size()>0){
             snapshotMessages.addAll(collisionEvents);
         }
 
-        latestMessages.setSnapshot(snapshotMessages);
+        //Encode the snapshot once, to be shared by every client.
+        FrameBatch snapshotFrames = null;
+        try {
+            snapshotFrames = RaceVisionByteEncoder.encodeFrameBatch(snapshotMessages, snapshotAckSequencer.nextAckNum());
+            capture(snapshotFrames);
+
+        } catch (InvalidMessageException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not encode race snapshot. Clients will encode it themselves.", e);
+        }
+
+        //Encode the compact snapshot, if any client asked for boat location deltas.
+        UnaryOperator<RaceSnapshot> compactSnapshot;
+        if (latestMessages.hasDeltaClients()) {
+            compactSnapshot = parseCompactSnapshot(boatLocations, boatStates, markLocations, raceStatus);
+        } else {
+            compactSnapshot = pauseCompactSnapshot();
+        }
+
+        //Publish everything as one version, so that clients never send half of a frame.
+        FrameBatch encodedSnapshot = snapshotFrames;
+        latestMessages.publish(latest -> compactSnapshot.apply(latest.withSnapshot(snapshotMessages, encodedSnapshot)));
 
         updateXMLFiles();
 
@@ -88,6 +145,142 @@ public class RaceServer {
 
     }
 
+    /**
+     * Records some frames in the {@link #packetLog}, if there is one. Capture stops if it cannot be written to.
+     * @param frames The frames to record.
+     */
+    private void capture(FrameBatch frames) {
+        PacketLogWriter log = packetLog;
+        if (log != null) {
+            try {
+                log.writeAll(frames);
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not record frames to: " + log.getDirectory() + ". Capture stopped.", e);
+                stopCapture();
+            }
+        }
+    }
+
+    /**
+     * Records an XML message in the {@link #packetLog}, if there is one. It is framed with the message's own ack number, so recording it doesn't use up one of the snapshot stream's.
+     * @param message The message to record.
+     */
+    private void capture(XMLMessage message) {
+        if (packetLog != null) {
+            try {
+                capture(RaceVisionByteEncoder.encodeFrameBatch(Collections.singletonList(message), message.getAckNumber()));
+
+            } catch (InvalidMessageException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not encode message to record: " + message, e);
+            }
+        }
+    }
+
+    /**
+     * Stops recording, and closes the {@link #packetLog}, if there is one. Called when the race ends.
+     */
+    public void stopCapture() {
+        PacketLogWriter log = packetLog;
+        packetLog = null;
+
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    /**
+     * Encodes the race snapshot for clients which asked for {@link BoatLocationDelta}s.
+     * Boat locations become a single keyframe or delta, and marks are only re-encoded when one moves.
+     * @param boatLocations The location of each boat.
+     * @param boatStates The state of each boat.
+     * @param markLocations The location of each mark.
+     * @param raceStatus The race status.
+     * @return Places the encoded compact snapshot, and any new keyframe or mark positions, in a {@link RaceSnapshot}.
+     */
+    private UnaryOperator<RaceSnapshot> parseCompactSnapshot(List<BoatLocation> boatLocations, List<BoatState> boatStates, List<BoatLocation> markLocations, RaceStatus raceStatus) {
+
+        try {
+            FrameBatch markFrames = null;
+            if (lastMarkLocations == null || haveMarksMoved(markLocations)) {
+                lastMarkLocations = markLocations;
+                markFrames = RaceVisionByteEncoder.encodeFrameBatch(new ArrayList<>(markLocations), compactAckSequencer.nextAckNum(), false);
+            }
+
+            BoatLocationDelta boatLocationDelta = boatLocationDeltaCompressor.compress(boatLocations, race.getRaceClock().getCurrentTimeMilli());
+
+            List<AC35Data> compactMessages = new ArrayList<>(boatStates.size() + collisionEvents.size() + 2);
+            compactMessages.add(boatLocationDelta);
+            compactMessages.addAll(boatStates);
+            compactMessages.add(raceStatus);
+            compactMessages.addAll(collisionEvents);
+
+            int ackNumber = compactAckSequencer.nextAckNum();
+
+            //A keyframe must reach every client, so it can't be superseded. Nor can a snapshot holding collision events - see RaceVisionByteEncoder.encodeFrameBatch.
+            FrameBatch keyframeFrames = null;
+            if (boatLocationDelta.isKeyframe()) {
+                keyframeFrames = RaceVisionByteEncoder.encodeFrameBatch(Collections.singletonList(boatLocationDelta), ackNumber, false);
+            }
+
+            FrameBatch compactSnapshotFrames = RaceVisionByteEncoder.encodeFrameBatch(compactMessages, ackNumber, !boatLocationDelta.isKeyframe());
+
+            FrameBatch newMarkFrames = markFrames;
+            FrameBatch newKeyframeFrames = keyframeFrames;
+            return latest -> {
+                RaceSnapshot snapshot = latest.withCompactSnapshotFrames(compactSnapshotFrames);
+                if (newMarkFrames != null) {
+                    snapshot = snapshot.withMarkFrames(newMarkFrames);
+                }
+                if (newKeyframeFrames != null) {
+                    snapshot = snapshot.withKeyframeFrames(newKeyframeFrames);
+                }
+                return snapshot;
+            };
+
+        } catch (InvalidMessageException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not encode compact race snapshot. Clients will be sent the full snapshot.", e);
+            return latest -> latest.withCompactSnapshotFrames(null);
+        }
+    }
+
+    /**
+     * Stops building the compact snapshot while no client wants it. The compressor and marks are reset, so the next client to ask for deltas is sent a keyframe and the marks before any delta.
+     * @return Removes the compact snapshot, keyframe, and mark positions from a {@link RaceSnapshot}.
+     */
+    private UnaryOperator<RaceSnapshot> pauseCompactSnapshot() {
+
+        if (lastMarkLocations != null) {
+            boatLocationDeltaCompressor = new BoatLocationDeltaCompressor();
+            lastMarkLocations = null;
+        }
+
+        return latest -> latest.withCompactSnapshotFrames(null).withKeyframeFrames(null).withMarkFrames(null);
+    }
+
+    /**
+     * Determines whether any mark has moved since {@link #lastMarkLocations}.
+     * @param markLocations The location of each mark.
+     * @return True if a mark has moved, or the marks have changed.
+     */
+    private boolean haveMarksMoved(List<BoatLocation> markLocations) {
+
+        if (markLocations.size() != lastMarkLocations.size()) {
+            return true;
+        }
+
+        for (int i = 0; i < markLocations.size(); i++) {
+            BoatLocation mark = markLocations.get(i);
+            BoatLocation lastMark = lastMarkLocations.get(i);
+
+            if (mark.getSourceID() != lastMark.getSourceID() || mark.getLatitude() != lastMark.getLatitude() || mark.getLongitude() != lastMark.getLongitude()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     /**
      * Checks if the race/boat/regatta data sources have changed, and if they have, update their xml representations.
      */
@@ -108,6 +301,7 @@ public class RaceServer {
                 String raceXMLString = RaceDataSourceToXML.toString(race.getRaceDataSource());
                 XMLMessage message = createXMLMessage(raceXMLString, XMLMessageType.RACE);
                 latestMessages.setXMLMessage(message);
+                capture(message);
 
             } catch (JAXBException e) {
                 Logger.getGlobal().log(Level.WARNING, "Could not serialise: " + race.getRaceDataSource(), e);
@@ -127,6 +321,7 @@ public class RaceServer {
                 String boatXMLString = BoatDataSourceToXML.toString(race.getBoatDataSource());
                 XMLMessage message = createXMLMessage(boatXMLString, XMLMessageType.BOAT);
                 latestMessages.setXMLMessage(message);
+                capture(message);
 
             } catch (JAXBException e) {
                 Logger.getGlobal().log(Level.WARNING, "Could not serialise: " + race.getBoatDataSource(), e);
@@ -147,6 +342,7 @@ public class RaceServer {
                 String regattaXMLString = RegattaDataSourceToXML.toString(race.getRegattaDataSource());
                 XMLMessage message = createXMLMessage(regattaXMLString, XMLMessageType.REGATTA);
                 latestMessages.setXMLMessage(message);
+                capture(message);
 
             } catch (JAXBException e) {
                 Logger.getGlobal().log(Level.WARNING, "Could not serialise: " + race.getRegattaDataSource(), e);
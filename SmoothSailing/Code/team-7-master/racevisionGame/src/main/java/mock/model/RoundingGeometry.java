@@ -0,0 +1,241 @@
+package mock.model;
+
+import shared.model.*;
+
+import java.util.List;
+
+
+/**
+ * The mark rounding checks of each leg of a course, flattened into primitive arrays indexed by leg number, so {@link MockRace} can check a {@link FleetState} boat's rounding without allocating.
+ * <br>
+ * The checks are those of {@link MarkRoundingData}: the boat must have the mark to round on the correct side, pass the line from the mark to the first check point, and then the line from the mark to the second check point.
+ * The side of each line a boat must pass onto doesn't change during a race, so it is found once, here.
+ */
+public class RoundingGeometry {
+
+    /**
+     * Whether each leg ends at a mark that is rounded. The dummy finish leg doesn't.
+     */
+    final boolean[] rounds;
+
+    /**
+     * Whether each leg's end mark is rounded to starboard, rather than port.
+     */
+    final boolean[] starboard;
+
+    /**
+     * Whether each leg ends at a gate, which the boat must pass between.
+     */
+    final boolean[] gate;
+
+    /**
+     * Whether each leg has an end compound mark.
+     */
+    final boolean[] hasEndMark;
+
+    /**
+     * Average position of each leg's end compound mark.
+     */
+    final double[] endLatitude, endLongitude;
+
+    /**
+     * Positions of the two marks of each leg's end gate.
+     */
+    final double[] gateMark1Latitude, gateMark1Longitude, gateMark2Latitude, gateMark2Longitude;
+
+    /**
+     * Position of the mark to round at the end of each leg.
+     */
+    final double[] markLatitude, markLongitude;
+
+    /**
+     * Position of the first rounding check point of each leg.
+     */
+    final double[] check1Latitude, check1Longitude;
+
+    /**
+     * Position of the second rounding check point of each leg.
+     */
+    final double[] check2Latitude, check2Longitude;
+
+    /**
+     * {@link GPSCoordinate#lineCheck(double, double, double, double, double, double)} of a point known to be on the correct side of each leg's first, and second, rounding line.
+     */
+    final double[] check1Side, check2Side;
+
+
+    /**
+     * Flattens the rounding data of a course.
+     * @param legs The legs of the course. Each leg's number is its index.
+     * @param markRoundingSequence The rounding data for the legs.
+     * @param courseProjection The race's projection (see {@link shared.model.RaceState#getCourseProjection()}), or null to use GeoTools.
+     */
+    public RoundingGeometry(List<Leg> legs, MarkRoundingSequence markRoundingSequence, CourseProjection courseProjection) {
+
+        int legCount = legs.size();
+
+        rounds = new boolean[legCount];
+        starboard = new boolean[legCount];
+        gate = new boolean[legCount];
+        hasEndMark = new boolean[legCount];
+        endLatitude = new double[legCount];
+        endLongitude = new double[legCount];
+        gateMark1Latitude = new double[legCount];
+        gateMark1Longitude = new double[legCount];
+        gateMark2Latitude = new double[legCount];
+        gateMark2Longitude = new double[legCount];
+        markLatitude = new double[legCount];
+        markLongitude = new double[legCount];
+        check1Latitude = new double[legCount];
+        check1Longitude = new double[legCount];
+        check2Latitude = new double[legCount];
+        check2Longitude = new double[legCount];
+        check1Side = new double[legCount];
+        check2Side = new double[legCount];
+
+        for (int i = 0; i < legCount; i++) {
+
+            CompoundMark endMark = legs.get(i).getEndCompoundMark();
+
+            if (endMark == null) {
+                continue;
+            }
+
+            hasEndMark[i] = true;
+            endLatitude[i] = endMark.getAverageGPSCoordinate().getLatitude();
+            endLongitude[i] = endMark.getAverageGPSCoordinate().getLongitude();
+
+            if (endMark.getMark2() != null) {
+                gate[i] = true;
+                gateMark1Latitude[i] = endMark.getMark1Position().getLatitude();
+                gateMark1Longitude[i] = endMark.getMark1Position().getLongitude();
+                gateMark2Latitude[i] = endMark.getMark2Position().getLatitude();
+                gateMark2Longitude[i] = endMark.getMark2Position().getLongitude();
+            }
+
+            MarkRoundingData roundingData = markRoundingSequence == null ? null : markRoundingSequence.getRoundingData(legs.get(i));
+
+            if (roundingData == null) {
+                continue;
+            }
+
+            switch (endMark.getRoundingType()) {
+                case SP://Not yet implemented so these gates will be rounded port side
+                case Port:
+                    rounds[i] = true;
+                    starboard[i] = false;
+                    break;
+                case PS://not yet implemented so these gates will be rounded starboard side
+                case Starboard:
+                    rounds[i] = true;
+                    starboard[i] = true;
+                    break;
+            }
+
+            GPSCoordinate mark = roundingData.getMarkToRound().getPosition();
+            GPSCoordinate check1 = roundingData.getRoundCheck1();
+            GPSCoordinate check2 = roundingData.getRoundCheck2();
+
+            markLatitude[i] = mark.getLatitude();
+            markLongitude[i] = mark.getLongitude();
+            check1Latitude[i] = check1.getLatitude();
+            check1Longitude[i] = check1.getLongitude();
+            check2Latitude[i] = check2.getLatitude();
+            check2Longitude[i] = check2.getLongitude();
+
+            //Negative 90 from bearing for port rounding, positive for starboard.
+            Bearing check2Direction = Bearing.fromDegrees(GPSCoordinate.calculateBearing(mark, check2).degrees() + (starboard[i] ? 90 : -90));
+
+            check1Side[i] = sideOfLine(mark, check1, roundingData.getLegBearing(), courseProjection);
+            check2Side[i] = sideOfLine(mark, check2, check2Direction, courseProjection);
+        }
+    }
+
+
+    /**
+     * Finds which side of a line a point 250m from its first point, in a given direction, is on. See {@link GPSCoordinate#passesLine(GPSCoordinate, GPSCoordinate, GPSCoordinate, Bearing)}.
+     * @param linePointA First point of the line.
+     * @param linePointB Second point of the line.
+     * @param directionBearing Direction of the correct side of the line.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return Greater than 0 for one side, less than 0 for the other.
+     */
+    private static double sideOfLine(GPSCoordinate linePointA, GPSCoordinate linePointB, Bearing directionBearing, CourseProjection courseProjection) {
+        GPSCoordinate pointForComparison = GPSCoordinate.calculateNewPosition(linePointA, 250, Azimuth.fromDegrees(directionBearing.degrees()), courseProjection);
+
+        return GPSCoordinate.lineCheck(
+                linePointA.getLatitude(), linePointA.getLongitude(),
+                linePointB.getLatitude(), linePointB.getLongitude(),
+                pointForComparison.getLatitude(), pointForComparison.getLongitude());
+    }
+
+    /**
+     * Checks whether a point passes, or lands on, the line from a leg's mark to one of its check points. Equivalent to {@link GPSCoordinate#passesLine(GPSCoordinate, GPSCoordinate, GPSCoordinate, Bearing)}.
+     * @param leg The leg number.
+     * @param secondCheck True for the second check point's line, false for the first's.
+     * @param latitude The point's latitude.
+     * @param longitude The point's longitude.
+     * @return True if the point is on the correct side of the line.
+     */
+    boolean passesLine(int leg, boolean secondCheck, double latitude, double longitude) {
+
+        double checkLatitude = secondCheck ? check2Latitude[leg] : check1Latitude[leg];
+        double checkLongitude = secondCheck ? check2Longitude[leg] : check1Longitude[leg];
+        double side = secondCheck ? check2Side[leg] : check1Side[leg];
+
+        double d = GPSCoordinate.lineCheck(markLatitude[leg], markLongitude[leg], checkLatitude, checkLongitude, latitude, longitude);
+
+        return (d > 0 && side > 0) || (d < 0 && side < 0) || d == 0;
+    }
+
+    /**
+     * Checks whether a mark is on the port side of a boat. Equivalent to {@link MockBoat#isPortSide(Mark)}.
+     * @param latitude The boat's latitude.
+     * @param longitude The boat's longitude.
+     * @param boatBearing The boat's bearing, in degrees.
+     * @param markLatitude The mark's latitude.
+     * @param markLongitude The mark's longitude.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return True if the mark is on the port side.
+     */
+    static boolean isPortSide(double latitude, double longitude, double boatBearing, double markLatitude, double markLongitude, CourseProjection courseProjection) {
+        double towardsMark = Bearing.toBearingInterval(GPSCoordinate.calculateAzimuthDegrees(latitude, longitude, markLatitude, markLongitude, courseProjection));
+        return MockBoat.isPortSide(towardsMark, boatBearing);
+    }
+
+    /**
+     * Checks whether a mark is on the starboard side of a boat. Equivalent to {@link MockBoat#isStarboardSide(Mark)}.
+     * @param latitude The boat's latitude.
+     * @param longitude The boat's longitude.
+     * @param boatBearing The boat's bearing, in degrees.
+     * @param markLatitude The mark's latitude.
+     * @param markLongitude The mark's longitude.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return True if the mark is on the starboard side.
+     */
+    static boolean isStarboardSide(double latitude, double longitude, double boatBearing, double markLatitude, double markLongitude, CourseProjection courseProjection) {
+        double towardsMark = Bearing.toBearingInterval(GPSCoordinate.calculateAzimuthDegrees(latitude, longitude, markLatitude, markLongitude, courseProjection));
+        return MockBoat.isStarboardSide(towardsMark, boatBearing);
+    }
+
+    /**
+     * Checks whether a boat is between two marks. Equivalent to {@link MockBoat#isBetweenGate(Mark, Mark)}.
+     * @param latitude The boat's latitude.
+     * @param longitude The boat's longitude.
+     * @param boatBearing The boat's bearing, in degrees.
+     * @param mark1Latitude The first mark's latitude.
+     * @param mark1Longitude The first mark's longitude.
+     * @param mark2Latitude The second mark's latitude.
+     * @param mark2Longitude The second mark's longitude.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return True if the boat is between the marks.
+     */
+    static boolean isBetweenGate(double latitude, double longitude, double boatBearing, double mark1Latitude, double mark1Longitude, double mark2Latitude, double mark2Longitude, CourseProjection courseProjection) {
+        double towardsMark1 = Bearing.toBearingInterval(GPSCoordinate.calculateAzimuthDegrees(latitude, longitude, mark1Latitude, mark1Longitude, courseProjection));
+        double towardsMark2 = Bearing.toBearingInterval(GPSCoordinate.calculateAzimuthDegrees(latitude, longitude, mark2Latitude, mark2Longitude, courseProjection));
+
+        return (MockBoat.isPortSide(towardsMark1, boatBearing) && MockBoat.isStarboardSide(towardsMark2, boatBearing)) ||
+                (MockBoat.isStarboardSide(towardsMark1, boatBearing) && MockBoat.isPortSide(towardsMark2, boatBearing));
+    }
+
+}
@@ -69,7 +69,7 @@ public class SourceIdAllocator {
      * Returns a source ID to the source ID allocator, so that it can be reused.
      * @param sourceID Source ID to return.
      */
-    public void returnSourceID(Integer sourceID) {
+    public synchronized void returnSourceID(Integer sourceID) {
         mockRace.removeMockBoat(sourceID);
     }
 }
@@ -0,0 +1,262 @@
+package mock.model;
+
+import shared.model.Bearing;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the bearing with the best VMG (velocity made good) towards a destination, using a boat class's {@link PolarTable}.
+ * <br>
+ * Boats ask for the same VMG many times over - the wind, their destination, and the course boundaries barely change between frames - so solutions are memoised. The inputs are quantised to {@link #WindSpeedQuantum} knots and {@link #AngleQuantum} degrees, and any two requests which quantise to the same values share a solution.
+ * The cache is replaced with an empty one whenever the wind direction shifts by more than {@link #WindShiftTolerance} degrees from the direction its solutions were found for, and cleared if it grows past {@link #MaxEntries}.
+ * A solution is only ever put in the cache it was looked up in, so one found under the old wind by a thread racing a shift is discarded with the old cache.
+ * <br>
+ * Each {@link Polars} has one solver, shared by every boat, and every thread, using it.
+ */
+public class VMGSolver {
+
+    /**
+     * Knots between each quantised wind speed.
+     */
+    public static final double WindSpeedQuantum = 0.25;
+
+    /**
+     * Degrees between each quantised bearing, and between each bearing searched.
+     */
+    public static final double AngleQuantum = 1;
+
+    /**
+     * Degrees the wind direction may shift before every cached solution is discarded.
+     */
+    public static final double WindShiftTolerance = 2;
+
+    /**
+     * Most solutions cached at once. The cache is cleared, rather than evicting entries one at a time, when it is full.
+     */
+    public static final int MaxEntries = 1 << 14;
+
+    /**
+     * Number of quantised bearings in a circle.
+     */
+    private static final int AngleCount = (int) Math.round(360 / AngleQuantum);
+
+
+    /**
+     * The boat class's polars.
+     */
+    private final PolarTable polarTable;
+
+    /**
+     * The cached solutions for the current wind direction. Null until the first solution.
+     */
+    private volatile Cache cache;
+
+
+    /**
+     * Solutions found for one wind direction.
+     */
+    private static final class Cache {
+
+        /**
+         * The wind direction, in degrees, that the solutions were found for.
+         */
+        final double windDirection;
+
+        /**
+         * Solutions, keyed by {@link VMGSolver#key(double, double, double, double)}.
+         */
+        final ConcurrentHashMap<Long, VMG> solutions = new ConcurrentHashMap<>();
+
+        /**
+         * Creates an empty cache for a wind direction.
+         * @param windDirection The wind direction, in degrees.
+         */
+        Cache(double windDirection) {
+            this.windDirection = windDirection;
+        }
+
+        /**
+         * Determines whether the wind has shifted too far from the direction these solutions were found for.
+         * @param windDirection The current wind direction, in degrees.
+         * @return True if the solutions no longer apply.
+         */
+        boolean isStale(double windDirection) {
+            double shift = Math.abs(PolarTable.modulateAngle(windDirection - this.windDirection + 180) - 180);
+            return shift > WindShiftTolerance;
+        }
+    }
+
+
+    /**
+     * Constructs a solver for a boat class.
+     * @param polarTable The boat class's polars.
+     */
+    public VMGSolver(PolarTable polarTable) {
+        this.polarTable = polarTable;
+    }
+
+
+    /**
+     * Calculates the VMG for a given wind angle, wind speed, and angle to destination, with the same contract as {@link Polars#calculateVMG(Bearing, double, Bearing, Bearing, Bearing)}: only bearings within [bearingLowerBound, bearingUpperBound] are considered, a flipped interval such as [70, 55] wraps through 0, and [0, 0] means any bearing.
+     * @param trueWindAngle The current true wind angle.
+     * @param trueWindSpeed The current true wind speed. Knots.
+     * @param destinationAngle The angle between the boat and the destination point.
+     * @param bearingLowerBound The lowest bearing (angle) that the boat may travel on.
+     * @param bearingUpperBound The highest bearing (angle) that the boat may travel on.
+     * @return The VMG, or a VMG with 0 speed and 0 bearing if no bearing in the bounds makes progress towards the destination. It is shared, and immutable.
+     */
+    public VMG calculateVMG(Bearing trueWindAngle, double trueWindSpeed, Bearing destinationAngle, Bearing bearingLowerBound, Bearing bearingUpperBound) {
+
+        double windDirection = trueWindAngle.degrees();
+        double lower = bearingLowerBound.degrees();
+        double upper = bearingUpperBound.degrees();
+
+        //[0, 0] is taken to mean the whole circle, as Bearing(360) is Bearing(0).
+        if (lower == 0d && upper == 0d) {
+            upper = 359.99999d;
+        }
+
+        ConcurrentHashMap<Long, VMG> solutions = getCache(windDirection).solutions;
+
+        long key = key(trueWindSpeed, destinationAngle.degrees(), lower, upper);
+
+        VMG vmg = solutions.get(key);
+        if (vmg == null) {
+            vmg = solve(windDirection, trueWindSpeed, destinationAngle.degrees(), lower, upper);
+
+            if (solutions.size() >= MaxEntries) {
+                solutions.clear();
+            }
+            solutions.put(key, vmg);
+        }
+
+        return vmg;
+    }
+
+
+    /**
+     * Returns the cache for the current wind direction, replacing it with an empty one if the wind has shifted too far from the direction its solutions were found for.
+     * @param windDirection The current wind direction, in degrees.
+     * @return The cache.
+     */
+    private Cache getCache(double windDirection) {
+
+        Cache current = cache;
+        if (current != null && !current.isStale(windDirection)) {
+            return current;
+        }
+
+        synchronized (this) {
+            //Another thread may have replaced it already.
+            current = cache;
+            if (current == null || current.isStale(windDirection)) {
+                current = new Cache(windDirection);
+                cache = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Quantises a request, and packs it into a cache key.
+     * @param trueWindSpeed The wind speed, in knots.
+     * @param destination The bearing to the destination, in degrees.
+     * @param lower The lower bearing bound, in degrees.
+     * @param upper The upper bearing bound, in degrees.
+     * @return The key.
+     */
+    private static long key(double trueWindSpeed, double destination, double lower, double upper) {
+
+        long windSpeed = Math.min(0xFFFF, Math.max(0, Math.round(trueWindSpeed / WindSpeedQuantum)));
+
+        return windSpeed << 27 | quantise(destination) << 18 | quantise(lower) << 9 | quantise(upper);
+    }
+
+    /**
+     * Quantises a bearing.
+     * @param degrees The bearing, in degrees.
+     * @return The index of the nearest quantised bearing, in [0, {@link #AngleCount}).
+     */
+    private static long quantise(double degrees) {
+        return Math.round(PolarTable.modulateAngle(degrees) / AngleQuantum) % AngleCount;
+    }
+
+
+    /**
+     * Searches every bearing, {@link #AngleQuantum} degrees apart, for the best VMG.
+     * @param windDirection The wind direction, in degrees.
+     * @param trueWindSpeed The wind speed, in knots.
+     * @param destination The bearing to the destination, in degrees.
+     * @param lower The lower bearing bound, in degrees.
+     * @param upper The upper bearing bound, in degrees.
+     * @return The best VMG.
+     */
+    private VMG solve(double windDirection, double trueWindSpeed, double destination, double lower, double upper) {
+
+        //Below the polar file's lowest wind speed every boat speed scales down together, so the best bearing is the same as in a light wind. Searching in a light wind finds it even when there is none, and the boat won't move.
+        double searchWindSpeed = Math.max(trueWindSpeed, WindSpeedQuantum);
+
+        double bestVelocity = 0;
+        double bestAngle = 0;
+        double bestBearing = 0;
+
+        for (int i = 0; i < AngleCount; i++) {
+
+            //This is the true wind angle, 0 when head to wind, so the boat's bearing is on the opposite side of the wind direction.
+            double angle = i * AngleQuantum;
+            double boatBearing = PolarTable.modulateAngle(windDirection + angle + 180);
+
+            if (!isInsideInterval(boatBearing, lower, upper)) {
+                continue;
+            }
+
+            double trueWindAngle = angle <= 180 ? angle : 360 - angle;
+            double velocity = Math.cos(Math.toRadians(boatBearing - destination)) * polarTable.getBoatSpeed(searchWindSpeed, trueWindAngle);
+
+            if (velocity > bestVelocity) {
+                bestVelocity = velocity;
+                bestAngle = trueWindAngle;
+                bestBearing = boatBearing;
+            }
+        }
+
+        if (bestVelocity == 0) {
+            return new VMG(0, Bearing.fromDegrees(0));
+        }
+
+        return new VMG(polarTable.getBoatSpeed(trueWindSpeed, bestAngle), Bearing.fromDegrees(bestBearing));
+    }
+
+    /**
+     * Determines if a bearing is inside an interval, as {@link Polars#isBearingInsideInterval(Bearing, Bearing, Bearing)} does.
+     * @param bearing The bearing, in degrees.
+     * @param lower The lower bound, in degrees.
+     * @param upper The upper bound, in degrees.
+     * @return True if the bearing is inside the interval.
+     */
+    private static boolean isInsideInterval(double bearing, double lower, double upper) {
+        if (lower > upper) {
+            return bearing >= lower || bearing <= upper;
+        } else {
+            return bearing >= lower && bearing <= upper;
+        }
+    }
+
+
+    /**
+     * Returns the polars this solver uses.
+     * @return The polar table.
+     */
+    public PolarTable getPolarTable() {
+        return polarTable;
+    }
+
+    /**
+     * Returns the number of solutions cached.
+     * @return The number of cached solutions.
+     */
+    public int getCacheSize() {
+        Cache current = cache;
+        return (current == null) ? 0 : current.solutions.size();
+    }
+}
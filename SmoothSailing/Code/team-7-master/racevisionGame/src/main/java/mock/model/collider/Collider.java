@@ -2,6 +2,7 @@ package mock.model.collider;
 
 import shared.model.Bearing;
 import shared.model.Boat;
+import shared.model.CourseProjection;
 import shared.model.GPSCoordinate;
 import shared.model.Locatable;
 
@@ -18,9 +19,20 @@ public abstract class Collider extends Observable implements Locatable {
      * @return whether or not a collision has occurred
      */
     public boolean rayCast(Boat boat, double distance) {
-        double actualDistance = GPSCoordinate.calculateDistanceMeters(boat.getPosition(), this.getPosition());
+        return rayCast(boat, distance, null);
+    }
+
+    /**
+     * Indicates whether a ray cast from a boat to a target collider is within the specified length, measured with a race's projection.
+     * @param boat potentially colliding with target
+     * @param distance distance for valid collision
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return whether or not a collision has occurred
+     */
+    public boolean rayCast(Boat boat, double distance, CourseProjection courseProjection) {
+        double actualDistance = GPSCoordinate.calculateDistanceMeters(boat.getPosition(), this.getPosition(), courseProjection);
         // Compass direction of collider
-        Bearing absolute = Bearing.fromAzimuth(GPSCoordinate.calculateAzimuth(boat.getPosition(), this.getPosition()));
+        Bearing absolute = Bearing.fromAzimuth(GPSCoordinate.calculateAzimuth(boat.getPosition(), this.getPosition(), courseProjection));
         // Direction of collider from heading
         Bearing relative = Bearing.fromDegrees(absolute.degrees() - boat.getBearing().degrees());
 
@@ -40,6 +52,23 @@ public abstract class Collider extends Observable implements Locatable {
      */
     public abstract boolean rayCast(Boat boat);
 
+    /**
+     * Indicates whether a ray cast from a boat to a target collider triggers a collision, measured with a race's projection. Distance is set by the object.
+     * By default this ignores the projection, and is the same as {@link #rayCast(Boat)}.
+     * @param boat potentially colliding with target
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return whether or not a collision has occurred
+     */
+    public boolean rayCast(Boat boat, CourseProjection courseProjection) {
+        return rayCast(boat);
+    }
+
+    /**
+     * Returns the distance, in meters, a boat must be within for {@link #rayCast(Boat)} to collide with this collider.
+     * @return The ray cast distance.
+     */
+    public abstract double getRayCastDistance();
+
     /**
      * Handle a collision event
      * @param e details of collision
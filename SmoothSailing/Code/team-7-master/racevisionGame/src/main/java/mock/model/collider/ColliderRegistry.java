@@ -2,6 +2,7 @@ package mock.model.collider;
 
 import mock.model.MockBoat;
 import shared.model.Boat;
+import shared.model.CourseProjection;
 import shared.model.GPSCoordinate;
 
 import java.util.*;
@@ -39,6 +40,31 @@ public class ColliderRegistry extends Collider implements Observer {
         return false;
     }
 
+    @Override
+    public boolean rayCast(Boat boat, CourseProjection courseProjection) {
+        for(Collider collider: colliders) {
+            if(collider.rayCast(boat, courseProjection)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the registered colliders, in the order they are ray cast against.
+     * @return The colliders. The list can't be modified.
+     */
+    public List<Collider> getColliders() {
+        return Collections.unmodifiableList(colliders);
+    }
+
+    /**
+     * The registry has no extent of its own. See {@link #getColliders()} for the distances of its colliders.
+     * @return 0.
+     */
+    @Override
+    public double getRayCastDistance() {
+        return 0;
+    }
+
     @Override
     public void onCollisionEnter(Collision e) {}
 
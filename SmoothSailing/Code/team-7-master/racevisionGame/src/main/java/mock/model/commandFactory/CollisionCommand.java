@@ -35,9 +35,9 @@ public class CollisionCommand extends ObserverCommand {
 
     @Override
     public void update(Observable o, Object arg) {
-        if(GPSCoordinate.calculateDistanceMeters(boat.getPosition(), startingPosition) < distance) {
+        if(GPSCoordinate.calculateDistanceMeters(boat.getPosition(), startingPosition, race.getCourseProjection()) < distance) {
             boat.setVelocityDefault(false);
-            boat.setPosition(GPSCoordinate.calculateNewPosition(boat.getPosition(), 3, azimuth));
+            boat.setPosition(GPSCoordinate.calculateNewPosition(boat.getPosition(), 3, azimuth, race.getCourseProjection()));
         } else {
             race.deleteObserver(this);
             boat.setVelocityDefault(true);
@@ -2,7 +2,6 @@ package mock.model.commandFactory;
 
 import mock.model.MockBoat;
 import mock.model.MockRace;
-import mock.model.NewPolars;
 import mock.model.VMG;
 
 import java.util.Observable;
@@ -24,7 +23,7 @@ public class SailsCommand extends ObserverCommand {
 
         if(sailsOut) {
             // Accelerate to VMG speed
-            double polarSpeed = NewPolars.calculateSpeed(race.getWindDirection(), race.getWindSpeed(), boat.getBearing());
+            double polarSpeed = boat.getPolarTable().getBoatSpeed(race.getWindDirection(), race.getWindSpeed(), boat.getBearing());
             VMG vmg = new VMG(polarSpeed, boat.getBearing());
             goalVelocity = vmg.getSpeed();
         } else {
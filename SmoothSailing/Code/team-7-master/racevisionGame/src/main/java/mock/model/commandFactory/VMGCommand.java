@@ -2,7 +2,6 @@ package mock.model.commandFactory;
 
 import mock.model.MockBoat;
 import mock.model.MockRace;
-import mock.model.NewPolars;
 import mock.model.VMG;
 import shared.model.Bearing;
 
@@ -48,11 +47,18 @@ public class VMGCommand extends ObserverCommand {
         }
     }
 
+    /**
+     * Sets the goal angle to the bearing with the best VMG towards the boat's next mark, within the course. The boat keeps its bearing if it has tacked too recently, or if no bearing makes progress.
+     * @param boat The boat to steer.
+     */
     private void newOptimalVMG(MockBoat boat) {
         long tackPeriod = 1000;
+        goalAngle = boat.getBearing().degrees();
         if (boat.getTimeSinceTackChange() > tackPeriod) {
-            VMG newVMG = NewPolars.setBestVMG(race.getWindDirection(), race.getWindSpeed(), boat.getBearing());
-            goalAngle = newVMG.getBearing().degrees();
+            VMG newVMG = race.calculateOptimalVMG(boat);
+            if (newVMG.getSpeed() > 0) {
+                goalAngle = newVMG.getBearing().degrees();
+            }
         }
     }
 
@@ -1,6 +1,6 @@
 package mock.xml;
 
-import mock.model.NewPolars;
+import mock.model.PolarTable;
 import org.xml.sax.SAXException;
 import shared.dataInput.RaceXMLReader;
 import shared.enums.XMLFileType;
@@ -126,13 +126,14 @@ public class RaceXMLCreator {
     /**
      * Rotates the race in a specified direction.
      * @param s xml file name or contents.
+     * @param polarTable polars of the boats racing, used to estimate their speed.
      * @param windSpeed speed that the wind is at.
      * @param milliseconds time the race should take at fastest
      * @return the new xml file as a string
      * @throws XMLReaderException if the xml is not readable
      * @throws InvalidRaceDataException if the race is invalid
      */
-    public static String scaleRaceSize(String s, double windSpeed, double milliseconds) throws XMLReaderException, InvalidRaceDataException {
+    public static String scaleRaceSize(String s, PolarTable polarTable, double windSpeed, double milliseconds) throws XMLReaderException, InvalidRaceDataException {
 
         try {
 
@@ -141,7 +142,7 @@ public class RaceXMLCreator {
                     RaceXMLCreator.class.getClassLoader().getResource("mock/mockXML/schema/raceSchema.xsd"),
                     XMLRace.class);
 
-            scaleRace(race, windSpeed, milliseconds);
+            scaleRace(race, polarTable, windSpeed, milliseconds);
 
             return XMLUtilities.classToXML(race);
 
@@ -191,10 +192,11 @@ public class RaceXMLCreator {
     /**
      * Scales the race based on the windspeed the race is running at and the amount of time it should be completed in.
      * @param race Race to scale
+     * @param polarTable polars of the boats racing
      * @param windSpeed windspeed of the race, this is used with the polars
      * @param milliseconds milliseconds the race should take.
      */
-    private static void scaleRace(XMLRace race, double windSpeed, double milliseconds) {
+    private static void scaleRace(XMLRace race, PolarTable polarTable, double windSpeed, double milliseconds) {
         GPSCoordinate center = getCenter(race);
         //sort the compound marks
         Collections.sort(race.getCompoundMarkSequence().getCorner(), (c1, c2) -> {
@@ -209,8 +211,8 @@ public class RaceXMLCreator {
             return 0;
         });
         //get the fastest time it would take.
-        double bestUpWindSpeed = NewPolars.setBestVMG(Bearing.fromDegrees(0), windSpeed, Bearing.fromDegrees(45)).getSpeed();
-        double bestDownWindSpeed = NewPolars.setBestVMG(Bearing.fromDegrees(0), windSpeed, Bearing.fromDegrees(45)).getSpeed();
+        double bestUpWindSpeed = polarTable.getBoatSpeed(windSpeed, polarTable.getBestUpwindAngle(windSpeed));
+        double bestDownWindSpeed = polarTable.getBoatSpeed(windSpeed, polarTable.getBestDownwindAngle(windSpeed));
         double averageSpeed = (bestDownWindSpeed + bestUpWindSpeed) / 2;
         double raceApproximateTime = getRaceLength(race, averageSpeed);
         double scale = milliseconds / raceApproximateTime;
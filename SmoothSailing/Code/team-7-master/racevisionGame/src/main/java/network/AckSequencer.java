@@ -3,19 +3,32 @@ package network;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Common source of ack numbers for all messages
+ * Source of ack numbers. The static {@link #getNextAckNum()} is common to all messages, and a stream which needs its own unbroken sequence has its own instance.
  */
 public class AckSequencer {
+    /**
+     * Sequencer shared by every message which isn't part of a stream with its own.
+     */
+    private static final AckSequencer common = new AckSequencer();
+
     /**
      * Generator for ack numbers
      */
-    private static AtomicInteger ackNum = new AtomicInteger(0);
+    private final AtomicInteger ackNum = new AtomicInteger(0);
 
     /**
      * Retrieve next ack number
      * @return next ack number
      */
     public static int getNextAckNum() {
+        return common.nextAckNum();
+    }
+
+    /**
+     * Retrieve next ack number in this sequence
+     * @return next ack number
+     */
+    public int nextAckNum() {
         return ackNum.getAndIncrement();
     }
 }
@@ -8,47 +8,42 @@ import network.Messages.*;
 import network.Messages.Enums.MessageType;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.ByteOrder;
 import java.util.zip.CRC32;
 
-import static network.Utils.ByteConverter.bytesToInt;
-import static network.Utils.ByteConverter.bytesToLong;
-
 /**
  * This class can be used to decode/convert a byte array into a messageBody object, descended from AC35Data.
+ * The header is parsed in place, and the message body is handed to the {@link MessageDecoder} as a read-only view over the frame - the frame is never copied.
  */
 public class BinaryMessageDecoder {
 
     /**
      * Length of the header.
      */
-    private static final int headerLength = 15;
+    public static final int headerLength = 15;
     /**
      * Length of the CRC.
      */
-    private static final int CRCLength = 4;
+    public static final int CRCLength = 4;
 
     /**
      * The value the first sync byte should have.
      */
-    private static final byte syncByte1 = (byte) 0x47;
+    public static final byte syncByte1 = (byte) 0x47;
     /**
      * The value the second sync byte should have.
      */
-    private static final byte syncByte2 = (byte) 0x83;
+    public static final byte syncByte2 = (byte) 0x83;
 
     /**
-     * The full message.
-     */
-    private byte[] fullMessage;
-    /**
-     * The messageHeader.
+     * The full message. Little endian, with position 0 at the first sync byte.
      */
-    private byte[] messageHeader;
+    private ByteBuffer fullMessage;
+
     /**
-     * The messageBody.
+     * Read-only view of the messageBody.
      */
-    private byte[] messageBody;
+    private ByteBuffer messageBody;
 
     /**
      * The sync bytes from the header.
@@ -92,47 +87,77 @@ public class BinaryMessageDecoder {
      * @param fullMessage Entire encoded binary message.
      */
     public BinaryMessageDecoder(byte[] fullMessage) {
-        this.fullMessage = fullMessage;
+        this(ByteBuffer.wrap(fullMessage));
+    }
 
-        //Get the messageHeader.
-        this.messageHeader = Arrays.copyOfRange(this.fullMessage, 0, 15);
+    /**
+     * Ctor. Decodes the frame between the buffer's position and limit. The buffer's position is not modified, and its contents are not copied.
+     * @param fullMessage Entire encoded binary message.
+     */
+    public BinaryMessageDecoder(ByteBuffer fullMessage) {
+        this.fullMessage = fullMessage.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        int frameLength = this.fullMessage.limit();
+        if (frameLength < headerLength) {
+            //Not even a header. decode() will reject this.
+            this.messageBody = ByteBuffer.allocate(0).asReadOnlyBuffer();
+            this.messageBodyLength = -1;
+            return;
+        }
 
         //Get the sync bytes.
-        this.headerSync1 = this.messageHeader[0];
-        this.headerSync2 = this.messageHeader[1];
+        this.headerSync1 = this.fullMessage.get(0);
+        this.headerSync2 = this.fullMessage.get(1);
 
         //Get the message type.
-        this.headerMessageType = this.messageHeader[2];
+        this.headerMessageType = this.fullMessage.get(2);
 
         //Get the header timestamp.
-        this.headerTimeStamp = bytesToLong(Arrays.copyOfRange(this.messageHeader, 3, 9));
+        this.headerTimeStamp = getUnsigned48(this.fullMessage, 3);
 
         //Get the source ID for the message.
-        this.headerSourceID = bytesToInt(Arrays.copyOfRange(this.messageHeader, 9, 13));
+        this.headerSourceID = this.fullMessage.getInt(9);
 
         //Get the length of the message body.
-        this.messageBodyLength = bytesToInt(Arrays.copyOfRange(this.messageHeader, 13, 15));
+        this.messageBodyLength = this.fullMessage.getShort(13) & 0xFFFF;
 
 
-        //Get the messageBody.
-        this.messageBody = Arrays.copyOfRange(this.fullMessage, this.headerLength, this.headerLength + this.messageBodyLength);
+        //Get the messageBody. If the frame is truncated this will be shorter than messageBodyLength, which decode() rejects.
+        int bodyEnd = Math.min(headerLength + this.messageBodyLength, frameLength);
+        ByteBuffer body = this.fullMessage.duplicate();
+        body.position(headerLength);
+        body.limit(bodyEnd);
+        this.messageBody = body.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
 
         //Get the CRC value.
-        this.messageCRCValue = bytesToLong(Arrays.copyOfRange(this.fullMessage, this.fullMessage.length - CRCLength, this.fullMessage.length));
+        if (bodyEnd + CRCLength <= frameLength) {
+            this.messageCRCValue = this.fullMessage.getInt(bodyEnd) & 0xFFFFFFFFL;
+        }
 
-        //Combine the header and body into a single array.
-        ByteBuffer headerBodyByteBuffer = ByteBuffer.allocate(messageHeader.length + messageBody.length);
-        headerBodyByteBuffer.put(messageHeader);
-        headerBodyByteBuffer.put(messageBody);
+        //Calculate the CRC value from the header+body, straight from the frame.
+        ByteBuffer headerBody = this.fullMessage.duplicate();
+        headerBody.position(0);
+        headerBody.limit(bodyEnd);
 
-        //Calculate the CRC value from the header+body array.
         CRC32 crc = new CRC32();
-        crc.reset();
-        crc.update(headerBodyByteBuffer.array());
+        crc.update(headerBody);
         this.calculatedCRCValue = crc.getValue();
     }
 
 
+    /**
+     * Reads an unsigned 6 byte little endian integer from a given index.
+     * @param buffer Little endian buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    private static long getUnsigned48(ByteBuffer buffer, int index) {
+        long low = buffer.getInt(index) & 0xFFFFFFFFL;
+        long high = buffer.getShort(index + 4) & 0xFFFFL;
+        return low | (high << 32);
+    }
+
+
     /**
      * Decodes the byte array (binary message) this object was initialized with, and returns the corresponding message object.
      * @return Message object corresponding to the binary message.
@@ -141,9 +166,9 @@ public class BinaryMessageDecoder {
     public AC35Data decode() throws InvalidMessageException {
 
         //Run through the checks to ensure that the message is valid.
-        if (messageBody.length != messageBodyLength) {//keep like this - hba65
+        if (messageBody.remaining() != messageBodyLength) {//keep like this - hba65
             //Check the message body length.
-            throw new InvalidMessageException("MessageBody length in header does not equal the messageBody length. MessageBody length in header is: " + messageBodyLength + ", should be: " + messageBody.length);
+            throw new InvalidMessageException("MessageBody length in header does not equal the messageBody length. MessageBody length in header is: " + messageBodyLength + ", should be: " + messageBody.remaining());
 
         } else if (headerSync1 != syncByte1) {
             //Check the first sync byte.
@@ -153,6 +178,10 @@ public class BinaryMessageDecoder {
             //Check the second sync byte.
             throw new InvalidMessageException("Sync byte 2 is wrong. Sync byte is: " + headerSync2 + ", should be: " + syncByte2);
 
+        } else if (headerLength + messageBodyLength + CRCLength > fullMessage.limit()) {
+            //Check the CRC is actually present.
+            throw new InvalidMessageException("Message is truncated. Frame length is: " + fullMessage.limit() + ", should be: " + (headerLength + messageBodyLength + CRCLength));
+
         } else if (calculatedCRCValue != messageCRCValue) {
             //Check the CRC value.
             throw new InvalidMessageException("CRC value is wrong. The calculated value is: " + calculatedCRCValue + ", should be: " + messageCRCValue);
@@ -171,7 +200,7 @@ public class BinaryMessageDecoder {
 
         }
 
-        return decoder.decode(messageBody);
+        return decoder.decode(getMessageBodyBuffer());
 
     }
 
@@ -242,11 +271,21 @@ public class BinaryMessageDecoder {
 
 
     /**
-     * Returns the message body.
+     * Returns a copy of the message body.
+     * Prefer {@link #getMessageBodyBuffer()}, which doesn't copy.
      * @return The message body.
      */
     public byte[] getMessageBody() {
-        return messageBody;
+        byte[] body = new byte[messageBody.remaining()];
+        messageBody.duplicate().get(body);
+        return body;
     }
-}
 
+    /**
+     * Returns a read-only, little endian view of the message body. Each call returns an independent view, so the caller may move its position freely.
+     * @return The message body.
+     */
+    public ByteBuffer getMessageBodyBuffer() {
+        return messageBody.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -1,35 +1,44 @@
 package network;
 
 
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.MessageEncoder;
+import network.Messages.AC35Data;
 import network.Messages.Enums.MessageType;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.CRC32;
 
-import static network.Utils.ByteConverter.*;
+import static network.BinaryMessageDecoder.CRCLength;
+import static network.BinaryMessageDecoder.headerLength;
+import static network.Utils.ByteCodec.*;
 
 
 /**
  * This class can be used to encode/convert a byte array message body, plus header data into a byte array containing the entire message, ready to send.
+ * For the hot path, {@link #encodeFrame(AC35Data, MessageEncoder, long, int)} encodes a message straight into a reusable, per-thread direct buffer instead.
  */
 public class BinaryMessageEncoder {
 
-    ///Length of the header.
-    private static final int headerLength = 15;
-    ///Length of the CRC.
-    private static final int CRCLength = 4;//TODO these should probably be static defined somewhere else to be shared.
+    /**
+     * The largest body a frame can carry - the header stores the body length as an unsigned short.
+     */
+    public static final int maxBodyLength = 0xFFFF;
+
+    /**
+     * Initial capacity of each thread's frame buffer. This fits every message except large XML messages, which grow the buffer.
+     */
+    private static final int initialFrameCapacity = 2048;
+
+    /**
+     * Each thread's reusable frame buffer.
+     */
+    private static final ThreadLocal<FrameBuffer> frameBuffers = ThreadLocal.withInitial(FrameBuffer::new);
+
 
     ///The full message.
     private byte[] fullMessage;
-    ///The message header.
-    private byte[] messageHeader;
-    ///The message body.
-    private byte[] messageBody;
-
-    ///First sync byte value.
-    private byte headerSync1 = (byte)0x47;
-    ///Second sync byte value.
-    private byte headerSync2 = (byte)0x83;
 
     ///The message type to place in header.
     private byte headerMessageType;
@@ -58,40 +67,20 @@ public class BinaryMessageEncoder {
         this.headerSourceID = headerSourceID;
         this.bodyMessageLength = bodyMessageLength;
 
-        //Place the header parameters into a buffer.
-        ByteBuffer tempHeaderByteBuffer = ByteBuffer.allocate(this.headerLength);
-        tempHeaderByteBuffer.put(this.headerSync1);
-        tempHeaderByteBuffer.put(this.headerSync2);
-        tempHeaderByteBuffer.put(this.headerMessageType);
-        tempHeaderByteBuffer.put(longToBytes(this.headerTimeStamp, 6));
-        tempHeaderByteBuffer.put(intToBytes(this.headerSourceID));
-        tempHeaderByteBuffer.put(shortToBytes(this.bodyMessageLength));
+        //Header, body, and CRC all go straight into the one array.
+        int bodyEnd = headerLength + messageBody.length;
+        this.fullMessage = new byte[bodyEnd + CRCLength];
 
-        this.messageHeader = tempHeaderByteBuffer.array();
-
-        //Set the message body.
-        this.messageBody = messageBody;
-
-
-        //Place header and body into a buffer.
-        ByteBuffer tempHeaderBodyByteBuffer = ByteBuffer.allocate(this.messageHeader.length + this.bodyMessageLength);
-        tempHeaderBodyByteBuffer.put(this.messageHeader);
-        tempHeaderBodyByteBuffer.put(this.messageBody);
+        ByteBuffer frame = ByteBuffer.wrap(this.fullMessage);
+        writeHeader(frame, 0, this.headerMessageType, this.headerTimeStamp, this.headerSourceID, this.bodyMessageLength);
+        System.arraycopy(messageBody, 0, this.fullMessage, headerLength, messageBody.length);
 
         //Calculate the CRC from header + body.
         CRC32 crc = new CRC32();
-        crc.reset();
-        crc.update(tempHeaderBodyByteBuffer.array());
+        crc.update(this.fullMessage, 0, bodyEnd);
         this.calculatedCRCValue = crc.getValue();
 
-        //Place header, body, and CRC value in buffer.
-        ByteBuffer tempFullMessageByteBuffer = ByteBuffer.allocate(this.messageHeader.length + this.messageBody.length + this.CRCLength);
-        tempFullMessageByteBuffer.put(this.messageHeader);
-        tempFullMessageByteBuffer.put(this.messageBody);
-        tempFullMessageByteBuffer.put(intToBytes((int) this.calculatedCRCValue));
-
-        //Set the full message.
-        this.fullMessage = tempFullMessageByteBuffer.array();
+        putInt32(this.fullMessage, bodyEnd, (int) this.calculatedCRCValue);
     }
 
     /**
@@ -110,4 +99,158 @@ public class BinaryMessageEncoder {
     public byte[] getFullMessage() {
         return fullMessage;
     }
+
+
+    /**
+     * Encodes a message, plus header and CRC, into the calling thread's reusable direct buffer. The body is encoded in place, and then its length and the CRC are patched in.
+     * The returned buffer's position is at the first sync byte and its limit is at the end of the CRC, so it can be written to a channel without copying.
+     * It is only valid until the same thread encodes another frame - callers that need to keep it must copy it.
+     * @param message The message to encode.
+     * @param encoder The encoder for the message's type.
+     * @param headerTimeStamp Timestamp of the message.
+     * @param headerSourceID Source ID of the message.
+     * @return The encoded frame.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded, or is too large for a frame.
+     */
+    public static ByteBuffer encodeFrame(AC35Data message, MessageEncoder encoder, long headerTimeStamp, int headerSourceID) throws InvalidMessageException {
+
+        int bodyLength = getBodyLength(message, encoder);
+
+        FrameBuffer frameBuffer = frameBuffers.get();
+        ByteBuffer frame = frameBuffer.acquire(headerLength + bodyLength + CRCLength);
+
+        writeFrame(message, encoder, headerTimeStamp, headerSourceID, frame, frameBuffer.crc);
+
+        frame.flip();
+        return frame;
+    }
+
+
+    /**
+     * Encodes a message, plus header and CRC, into a given buffer, starting at its position. The position is advanced to the end of the frame.
+     * The buffer must have at least {@link #getFrameLength(AC35Data, MessageEncoder)} bytes remaining.
+     * @param message The message to encode.
+     * @param encoder The encoder for the message's type.
+     * @param headerTimeStamp Timestamp of the message.
+     * @param headerSourceID Source ID of the message.
+     * @param destination The buffer to write the frame to.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded, or is too large for a frame.
+     */
+    public static void encodeFrame(AC35Data message, MessageEncoder encoder, long headerTimeStamp, int headerSourceID, ByteBuffer destination) throws InvalidMessageException {
+
+        getBodyLength(message, encoder);
+
+        writeFrame(message, encoder, headerTimeStamp, headerSourceID, destination, frameBuffers.get().crc);
+    }
+
+
+    /**
+     * Returns the total length of a message's frame - header, body, and CRC.
+     * @param message The message.
+     * @param encoder The encoder for the message's type.
+     * @return The length of the frame.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded, or is too large for a frame.
+     */
+    public static int getFrameLength(AC35Data message, MessageEncoder encoder) throws InvalidMessageException {
+        return headerLength + getBodyLength(message, encoder) + CRCLength;
+    }
+
+
+    /**
+     * Returns the length of a message's body, checking that it fits in a frame.
+     * @param message The message.
+     * @param encoder The encoder for the message's type.
+     * @return The length of the body.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded, or is too large for a frame.
+     */
+    private static int getBodyLength(AC35Data message, MessageEncoder encoder) throws InvalidMessageException {
+
+        int bodyLength = encoder.getEncodedLength(message);
+        if (bodyLength > maxBodyLength) {
+            throw new InvalidMessageException("Message body is too long for a frame. Length is: " + bodyLength + ", maximum is: " + maxBodyLength);
+        }
+        return bodyLength;
+    }
+
+
+    /**
+     * Writes a frame at the buffer's position. The body is encoded in place, and then its length and the CRC are patched in. The position is left at the end of the frame.
+     * @param message The message to encode.
+     * @param encoder The encoder for the message's type.
+     * @param headerTimeStamp Timestamp of the message.
+     * @param headerSourceID Source ID of the message.
+     * @param frame The buffer to write to.
+     * @param crc The CRC to use. It is reset first.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded.
+     */
+    private static void writeFrame(AC35Data message, MessageEncoder encoder, long headerTimeStamp, int headerSourceID, ByteBuffer frame, CRC32 crc) throws InvalidMessageException {
+
+        int start = frame.position();
+
+        //Header, with the body length patched in once the body is written.
+        writeHeader(frame, start, message.getType().getValue(), headerTimeStamp, headerSourceID, 0);
+
+        frame.position(start + headerLength);
+        encoder.encode(message, frame);
+        int bodyEnd = frame.position();
+        putInt16(frame, start + 13, bodyEnd - start - headerLength);
+
+        //CRC over header + body, read straight from the buffer.
+        int limit = frame.limit();
+        frame.position(start);
+        frame.limit(bodyEnd);
+        crc.reset();
+        crc.update(frame);
+        frame.limit(limit);
+
+        putInt32(frame, bodyEnd, (int) crc.getValue());
+        frame.position(bodyEnd + CRCLength);
+    }
+
+
+    /**
+     * Writes a frame header to a buffer.
+     * @param frame The buffer to write to.
+     * @param start Index of the first byte of the header.
+     * @param messageType The message type.
+     * @param timeStamp Timestamp of the message.
+     * @param sourceID Source ID of the message.
+     * @param bodyLength The length of the message body.
+     */
+    private static void writeHeader(ByteBuffer frame, int start, byte messageType, long timeStamp, int sourceID, int bodyLength) {
+        putInt8(frame, start, BinaryMessageDecoder.syncByte1);
+        putInt8(frame, start + 1, BinaryMessageDecoder.syncByte2);
+        putInt8(frame, start + 2, messageType);
+        putInt48(frame, start + 3, timeStamp);
+        putInt32(frame, start + 9, sourceID);
+        putInt16(frame, start + 13, bodyLength);
+    }
+
+
+    /**
+     * A thread's reusable frame buffer, and the CRC used to checksum it.
+     */
+    private static final class FrameBuffer {
+
+        private ByteBuffer buffer = allocate(initialFrameCapacity);
+
+        private final CRC32 crc = new CRC32();
+
+        /**
+         * Returns the buffer, cleared, with at least the given capacity. The buffer is replaced with a larger one if needed.
+         * @param frameLength The length of the frame to be encoded.
+         * @return The buffer.
+         */
+        private ByteBuffer acquire(int frameLength) {
+            if (buffer.capacity() < frameLength) {
+                buffer = allocate(Math.max(frameLength, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            return buffer;
+        }
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
 }
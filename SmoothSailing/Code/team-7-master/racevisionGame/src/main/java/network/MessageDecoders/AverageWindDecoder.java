@@ -4,22 +4,17 @@ package network.MessageDecoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.AverageWind;
-import network.Utils.ByteConverter;
 
-import static network.Utils.AC35UnitConverter.*;
+import java.nio.ByteBuffer;
 
-import java.util.Arrays;
+import static network.Utils.AC35UnitConverter.*;
+import static network.Utils.ByteCodec.*;
 
 /**
  * Decodes {@link AverageWind} messages.
  */
 public class AverageWindDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -33,48 +28,27 @@ public class AverageWindDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte messageVersionNumber = encodedMessage[0];
-
-
-            byte[] byteTime = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = ByteConverter.bytesToLong(byteTime);
-
-            byte[] byteRawPeriod = Arrays.copyOfRange(encodedMessage, 7, 9);
-            int intRawPeriod = ByteConverter.bytesToInt(byteRawPeriod);
-            long rawPeriod = unpackAverageWindPeriod(intRawPeriod);
-
-            byte[] byteRawSpeed = Arrays.copyOfRange(encodedMessage, 9, 11);
-            int intRawSpeed = ByteConverter.bytesToInt(byteRawSpeed);
-            double rawSpeedKnots = unpackMMperSecToKnots(intRawSpeed);
+            int start = encodedMessage.position();
 
-            byte[] bytePeriod2 = Arrays.copyOfRange(encodedMessage, 11, 13);
-            int intPeriod2 = ByteConverter.bytesToInt(bytePeriod2);
-            long period2 = unpackAverageWindPeriod(intPeriod2);
+            byte messageVersionNumber = encodedMessage.get(start);
 
-            byte[] byteSpeed2 = Arrays.copyOfRange(encodedMessage, 13, 15);
-            int intSpeed2 = ByteConverter.bytesToInt(byteSpeed2);
-            double speed2Knots = unpackMMperSecToKnots(intSpeed2);
+            long time = getUInt48(encodedMessage, start + 1);
 
-            byte[] bytePeriod3 = Arrays.copyOfRange(encodedMessage, 15, 17);
-            int intPeriod3 = ByteConverter.bytesToInt(bytePeriod3);
-            long period3 = unpackAverageWindPeriod(intPeriod3);
+            long rawPeriod = unpackAverageWindPeriod(getUInt16(encodedMessage, start + 7));
+            double rawSpeedKnots = unpackMMperSecToKnots(getUInt16(encodedMessage, start + 9));
 
-            byte[] byteSpeed3 = Arrays.copyOfRange(encodedMessage, 17, 19);
-            int intSpeed3 = ByteConverter.bytesToInt(byteSpeed3);
-            double speed3Knots = unpackMMperSecToKnots(intSpeed3);
+            long period2 = unpackAverageWindPeriod(getUInt16(encodedMessage, start + 11));
+            double speed2Knots = unpackMMperSecToKnots(getUInt16(encodedMessage, start + 13));
 
-            byte[] bytePeriod4 = Arrays.copyOfRange(encodedMessage, 19, 21);
-            int intPeriod4 = ByteConverter.bytesToInt(bytePeriod4);
-            long period4 = unpackAverageWindPeriod(intPeriod4);
+            long period3 = unpackAverageWindPeriod(getUInt16(encodedMessage, start + 15));
+            double speed3Knots = unpackMMperSecToKnots(getUInt16(encodedMessage, start + 17));
 
-            byte[] byteSpeed4 = Arrays.copyOfRange(encodedMessage, 21, 23);
-            int intSpeed4 = ByteConverter.bytesToInt(byteSpeed4);
-            double speed4Knots = unpackMMperSecToKnots(intSpeed4);
+            long period4 = unpackAverageWindPeriod(getUInt16(encodedMessage, start + 19));
+            double speed4Knots = unpackMMperSecToKnots(getUInt16(encodedMessage, start + 21));
 
 
             message = new AverageWind(
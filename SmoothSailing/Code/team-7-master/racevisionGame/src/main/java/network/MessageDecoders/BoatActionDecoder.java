@@ -5,18 +5,13 @@ import network.Messages.AC35Data;
 import network.Messages.BoatAction;
 import network.Messages.Enums.BoatActionEnum;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 /**
  * Decodes {@link BoatAction} messages.
  */
 public class BoatActionDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -30,11 +25,10 @@ public class BoatActionDecoder implements MessageDecoder {
     }
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
-            BoatActionEnum boatActionEnum = BoatActionEnum.fromByte(encodedMessage[0]);
+            BoatActionEnum boatActionEnum = BoatActionEnum.fromByte(encodedMessage.get(encodedMessage.position()));
 
             message = new BoatAction(boatActionEnum);
 
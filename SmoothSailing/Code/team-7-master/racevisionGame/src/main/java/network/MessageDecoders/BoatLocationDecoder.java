@@ -8,10 +8,10 @@ import network.Messages.Enums.BoatLocationDeviceEnum;
 import shared.model.Azimuth;
 import shared.model.Bearing;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import static network.Utils.AC35UnitConverter.*;
-import static network.Utils.ByteConverter.*;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -19,11 +19,6 @@ import static network.Utils.ByteConverter.*;
  */
 public class BoatLocationDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -40,90 +35,56 @@ public class BoatLocationDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte[] messageVersionNumberBytes = Arrays.copyOfRange(encodedMessage, 0, 1);
-            byte messageVersionNumber = messageVersionNumberBytes[0];
+            int start = encodedMessage.position();
+
+            byte messageVersionNumber = encodedMessage.get(start);
 
-            byte[] timeBytes = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = bytesToLong(timeBytes);
+            long time = getUInt48(encodedMessage, start + 1);
 
-            byte[] sourceIDBytes = Arrays.copyOfRange(encodedMessage, 7, 11);
-            int sourceID = bytesToInt(sourceIDBytes);
+            int sourceID = getInt32(encodedMessage, start + 7);
 
-            byte[] seqNumBytes = Arrays.copyOfRange(encodedMessage, 11, 15);
-            int seqNum = bytesToInt(seqNumBytes);
+            int seqNum = getInt32(encodedMessage, start + 11);
 
-            byte[] deviceTypeBytes = Arrays.copyOfRange(encodedMessage, 15, 16);
-            BoatLocationDeviceEnum deviceType = BoatLocationDeviceEnum.fromByte(deviceTypeBytes[0]);
+            BoatLocationDeviceEnum deviceType = BoatLocationDeviceEnum.fromByte(encodedMessage.get(start + 15));
 
-            byte[] latitudeBytes = Arrays.copyOfRange(encodedMessage, 16, 20);
-            int numLatitude = bytesToInt(latitudeBytes);
-            double latitude = unpackGPS(numLatitude);
+            double latitude = getGPS(encodedMessage, start + 16);
 
-            byte[] longitudeBytes = Arrays.copyOfRange(encodedMessage, 20, 24);
-            int numLongitude = bytesToInt(longitudeBytes);
-            double longitude = unpackGPS(numLongitude);
+            double longitude = getGPS(encodedMessage, start + 20);
 
-            byte[] altitudeBytes = Arrays.copyOfRange(encodedMessage, 24, 28);
-            int numAltitude = bytesToInt(altitudeBytes);
+            int numAltitude = getInt32(encodedMessage, start + 24);
 
-            byte[] headingBytes = Arrays.copyOfRange(encodedMessage, 28, 30);
-            int numHeading = bytesToInt(headingBytes);
-            Bearing heading = Bearing.fromDegrees(unpackHeading(numHeading));
+            Bearing heading = Bearing.fromDegrees(getHeading(encodedMessage, start + 28));
 
-            byte[] pitchBytes = Arrays.copyOfRange(encodedMessage, 30, 32);
-            short numPitch = bytesToShort(pitchBytes);
+            short numPitch = getInt16(encodedMessage, start + 30);
 
-            byte[] rollBytes = Arrays.copyOfRange(encodedMessage, 32, 34);
-            short numRoll = bytesToShort(rollBytes);
+            short numRoll = getInt16(encodedMessage, start + 32);
 
-            byte[] boatSpeedBytes = Arrays.copyOfRange(encodedMessage, 34, 36);
-            int numBoatSpeed = bytesToInt(boatSpeedBytes);
-            double boatSpeedKnots = unpackMMperSecToKnots(numBoatSpeed);
+            double boatSpeedKnots = getSpeedKnots(encodedMessage, start + 34);
 
-            byte[] cogBytes = Arrays.copyOfRange(encodedMessage, 36, 38);
-            int numCog = bytesToInt(cogBytes);
-            Bearing cog = Bearing.fromDegrees(unpackHeading(numCog));
+            Bearing cog = Bearing.fromDegrees(getHeading(encodedMessage, start + 36));
 
-            byte[] sogBytes = Arrays.copyOfRange(encodedMessage, 38, 40);
-            int numSog = bytesToInt(sogBytes);
-            double sogKnots = unpackMMperSecToKnots(numSog);
+            double sogKnots = getSpeedKnots(encodedMessage, start + 38);
 
-            byte[] apparentWindSpeedBytes = Arrays.copyOfRange(encodedMessage, 40, 42);
-            int numApparentWindSpeed = bytesToInt(apparentWindSpeedBytes);
-            double apparentWindSpeedKnots = unpackMMperSecToKnots(numApparentWindSpeed);
+            double apparentWindSpeedKnots = getSpeedKnots(encodedMessage, start + 40);
 
-            byte[] apparentWindAngleBytes = Arrays.copyOfRange(encodedMessage, 42, 44);
-            short numApparentWindAngle = bytesToShort(apparentWindAngleBytes);
-            Azimuth apparentWindAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numApparentWindAngle));
+            Azimuth apparentWindAngle = Azimuth.fromDegrees(getTrueWindAngle(encodedMessage, start + 42));
 
-            byte[] trueWindSpeedBytes = Arrays.copyOfRange(encodedMessage, 44, 46);
-            int numTrueWindSpeed = bytesToInt(trueWindSpeedBytes);
-            double trueWindSpeedKnots = unpackMMperSecToKnots(numTrueWindSpeed);
+            double trueWindSpeedKnots = getSpeedKnots(encodedMessage, start + 44);
 
-            byte[] trueWindDirectionBytes = Arrays.copyOfRange(encodedMessage, 46, 48);
-            short numTrueWindDirection = bytesToShort(trueWindDirectionBytes);
-            Bearing trueWindDirection = Bearing.fromDegrees(unpackHeading(numTrueWindDirection));
+            //True wind direction and current set have always been read as signed values.
+            Bearing trueWindDirection = Bearing.fromDegrees(unpackHeading(getInt16(encodedMessage, start + 46)));
 
-            byte[] trueWindAngleBytes = Arrays.copyOfRange(encodedMessage, 48, 50);
-            short numTrueWindAngle = bytesToShort(trueWindAngleBytes);
-            Azimuth trueWindAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numTrueWindAngle));
+            Azimuth trueWindAngle = Azimuth.fromDegrees(getTrueWindAngle(encodedMessage, start + 48));
 
-            byte[] currentDriftBytes = Arrays.copyOfRange(encodedMessage, 50, 52);
-            int numCurrentDrift = bytesToInt(currentDriftBytes);
-            double currentDriftKnots = unpackMMperSecToKnots(numCurrentDrift);
+            double currentDriftKnots = getSpeedKnots(encodedMessage, start + 50);
 
-            byte[] currentSetBytes = Arrays.copyOfRange(encodedMessage, 52, 54);
-            int numCurrentSet = bytesToShort(currentSetBytes);
-            Bearing currentSet = Bearing.fromDegrees(unpackHeading(numCurrentSet));
+            Bearing currentSet = Bearing.fromDegrees(unpackHeading(getInt16(encodedMessage, start + 52)));
 
-            byte[] rudderAngleBytes = Arrays.copyOfRange(encodedMessage, 54, 56);
-            short numRudderAngle = bytesToShort(rudderAngleBytes);
-            Azimuth rudderAngle = Azimuth.fromDegrees(unpackTrueWindAngle(numRudderAngle));
+            Azimuth rudderAngle = Azimuth.fromDegrees(getTrueWindAngle(encodedMessage, start + 54));
 
 
             message = new BoatLocation(
@@ -0,0 +1,96 @@
+package network.MessageDecoders;
+
+
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.BoatLocationDeltaEncoder;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocationDelta;
+
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.*;
+
+
+/**
+ * Decodes {@link BoatLocationDelta} messages. See {@link BoatLocationDeltaEncoder} for the layout.
+ */
+public class BoatLocationDeltaDecoder implements MessageDecoder {
+
+    /**
+     * The decoded message.
+     */
+    private BoatLocationDelta message;
+
+
+    /**
+     * Constructs a decoder to decode a given message.
+     */
+    public BoatLocationDeltaDecoder() {
+    }
+
+
+    @Override
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
+
+        try {
+
+            int start = encodedMessage.position();
+
+            boolean keyframe = (getUInt8(encodedMessage, start + 1) & 1) != 0;
+            int keyframeNumber = getUInt16(encodedMessage, start + 2);
+            int quantisationShift = getUInt8(encodedMessage, start + 4);
+            long time = getUInt48(encodedMessage, start + 5);
+            int boatCount = getUInt16(encodedMessage, start + 11);
+
+            int boatLength = keyframe ? BoatLocationDeltaEncoder.KeyframeBoatLength : BoatLocationDeltaEncoder.DeltaBoatLength;
+            if (encodedMessage.remaining() < BoatLocationDeltaEncoder.HeaderLength + boatCount * boatLength) {
+                throw new InvalidMessageException("BoatLocationDelta is truncated. Boat count is: " + boatCount + ", but length is: " + encodedMessage.remaining());
+            }
+
+            int[] sourceIDs = new int[boatCount];
+            int[] latitudes = new int[boatCount];
+            int[] longitudes = new int[boatCount];
+            int[] headings = new int[boatCount];
+            int[] speeds = new int[boatCount];
+
+            int index = start + BoatLocationDeltaEncoder.HeaderLength;
+            for (int i = 0; i < boatCount; i++) {
+
+                sourceIDs[i] = getInt32(encodedMessage, index);
+
+                if (keyframe) {
+                    latitudes[i] = getInt32(encodedMessage, index + 4);
+                    longitudes[i] = getInt32(encodedMessage, index + 8);
+                } else {
+                    latitudes[i] = getInt16(encodedMessage, index + 4);
+                    longitudes[i] = getInt16(encodedMessage, index + 6);
+                }
+
+                headings[i] = getUInt16(encodedMessage, index + boatLength - 4);
+                speeds[i] = getUInt16(encodedMessage, index + boatLength - 2);
+
+                index += boatLength;
+            }
+
+            message = new BoatLocationDelta(keyframe, keyframeNumber, quantisationShift, time, sourceIDs, latitudes, longitudes, headings, speeds);
+
+            return message;
+
+        } catch (InvalidMessageException e) {
+            throw e;
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not decode BoatLocationDelta message.", e);
+        }
+    }
+
+
+    /**
+     * Returns the decoded message.
+     * @return The decoded message.
+     */
+    public BoatLocationDelta getMessage() {
+        return message;
+    }
+
+}
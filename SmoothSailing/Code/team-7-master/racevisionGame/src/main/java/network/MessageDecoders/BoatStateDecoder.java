@@ -4,9 +4,9 @@ import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.BoatState;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.bytesToInt;
+import static network.Utils.ByteCodec.getInt32;
 
 /**
  * Decoder for {@link BoatState} messages
@@ -18,18 +18,24 @@ public class BoatStateDecoder implements MessageDecoder {
     private BoatState message;
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        byte[] sourceID = Arrays.copyOfRange(encodedMessage, 0, 4);
-        byte boatHealth = encodedMessage[4];
-
-        // Unpack bytes into BoatState
-        this.message = new BoatState(
-                bytesToInt(sourceID),
-                boatHealth
-        );
-
-        // Return BoatState
-        return this.message;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
+        try {
+            int start = encodedMessage.position();
+            int sourceID = getInt32(encodedMessage, start);
+            byte boatHealth = encodedMessage.get(start + 4);
+
+            // Unpack bytes into BoatState
+            this.message = new BoatState(
+                    sourceID,
+                    boatHealth
+            );
+
+            // Return BoatState
+            return this.message;
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not decode BoatState message.", e);
+        }
     }
 
     public BoatState getMessage() {
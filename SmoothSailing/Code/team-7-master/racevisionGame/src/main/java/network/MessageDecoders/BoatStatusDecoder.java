@@ -5,11 +5,9 @@ import network.Exceptions.InvalidMessageException;
 import network.Messages.BoatStatus;
 import network.Messages.Enums.BoatStatusEnum;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.*;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -17,11 +15,6 @@ import static network.Utils.ByteConverter.*;
  */
 public class BoatStatusDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -43,41 +36,45 @@ public class BoatStatusDecoder {
      * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
      */
     public BoatStatus decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+        return decode(ByteBuffer.wrap(encodedMessage), 0);
+    }
+
+
+    /**
+     * Decodes a message stored in a buffer, starting at a given index. The buffer's position is not modified.
+     * @param encodedMessage The buffer containing the message to decode.
+     * @param index The index of the message's first byte.
+     * @return The decoded message.
+     * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
+     */
+    public BoatStatus decode(ByteBuffer encodedMessage, int index) throws InvalidMessageException {
 
         try {
 
-        byte[] sourceIDBytes = Arrays.copyOfRange(encodedMessage, 0, 4);
-        int sourceID = bytesToInt(sourceIDBytes);
+            int sourceID = getInt32(encodedMessage, index);
 
-        byte[] boatStatusBytes = Arrays.copyOfRange(encodedMessage, 4, 5);
-        BoatStatusEnum boatStatus = BoatStatusEnum.fromByte(boatStatusBytes[0]);
+            BoatStatusEnum boatStatus = BoatStatusEnum.fromByte(encodedMessage.get(index + 4));
 
-        byte[] legNumberBytes = Arrays.copyOfRange(encodedMessage, 5, 6);
-        byte legNumber = legNumberBytes[0];
+            byte legNumber = encodedMessage.get(index + 5);
 
-        byte[] numPenaltiesAwardedBytes = Arrays.copyOfRange(encodedMessage, 6, 7);
-        byte numPenaltiesAwarded = numPenaltiesAwardedBytes[0];
+            byte numPenaltiesAwarded = encodedMessage.get(index + 6);
 
-        byte[] numPenaltiesServedBytes = Arrays.copyOfRange(encodedMessage, 7, 8);
-        byte numPenaltiesServed = numPenaltiesServedBytes[0];
+            byte numPenaltiesServed = encodedMessage.get(index + 7);
 
-        byte[] estTimeAtNextMarkBytes = Arrays.copyOfRange(encodedMessage, 8, 14);
-        long estTimeAtNextMark = bytesToLong(estTimeAtNextMarkBytes);
+            long estTimeAtNextMark = getUInt48(encodedMessage, index + 8);
 
-        byte[] estTimeAtFinishBytes = Arrays.copyOfRange(encodedMessage, 14, 20);
-        long estTimeAtFinish = bytesToLong(estTimeAtFinishBytes);
+            long estTimeAtFinish = getUInt48(encodedMessage, index + 14);
 
-        message = new BoatStatus(
-                sourceID,
-                boatStatus,
-                legNumber,
-                numPenaltiesAwarded,
-                numPenaltiesServed,
-                estTimeAtNextMark,
-                estTimeAtFinish    );
+            message = new BoatStatus(
+                    sourceID,
+                    boatStatus,
+                    legNumber,
+                    numPenaltiesAwarded,
+                    numPenaltiesServed,
+                    estTimeAtNextMark,
+                    estTimeAtFinish    );
 
-        return message;
+            return message;
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not decode BoatStatus message.", e);
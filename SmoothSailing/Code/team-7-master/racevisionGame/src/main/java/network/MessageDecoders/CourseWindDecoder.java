@@ -5,10 +5,10 @@ import network.Exceptions.InvalidMessageException;
 import network.Messages.CourseWind;
 import shared.model.Bearing;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import static network.Utils.AC35UnitConverter.*;
-import static network.Utils.ByteConverter.*;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -16,11 +16,6 @@ import static network.Utils.ByteConverter.*;
  */
 public class CourseWindDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -42,46 +37,47 @@ public class CourseWindDecoder {
      * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
      */
     public CourseWind decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+        return decode(ByteBuffer.wrap(encodedMessage), 0);
+    }
+
+
+    /**
+     * Decodes a message stored in a buffer, starting at a given index. The buffer's position is not modified.
+     * @param encodedMessage The buffer containing the message to decode.
+     * @param index The index of the message's first byte.
+     * @return The decoded message.
+     * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
+     */
+    public CourseWind decode(ByteBuffer encodedMessage, int index) throws InvalidMessageException {
 
         try {
 
-            byte[] windId = Arrays.copyOfRange(encodedMessage, 0, 1);
+            byte windId = encodedMessage.get(index);
 
-            byte[] timeBytes = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = bytesToLong(timeBytes);
+            long time = getUInt48(encodedMessage, index + 1);
 
-            byte[] raceIDBytes = Arrays.copyOfRange(encodedMessage, 7, 11);
-            int raceIDInt = bytesToInt(raceIDBytes);
+            int raceIDInt = getInt32(encodedMessage, index + 7);
 
-            byte[] windDirectionBytes = Arrays.copyOfRange(encodedMessage, 11, 13);
-            int windDirectionInt = bytesToInt(windDirectionBytes);
-            Bearing windDirection = Bearing.fromDegrees(unpackHeading(windDirectionInt));
+            Bearing windDirection = Bearing.fromDegrees(unpackHeading(getUInt16(encodedMessage, index + 11)));
 
-            byte[] windSpeedBytes = Arrays.copyOfRange(encodedMessage, 13, 15);
-            int windSpeedInt = bytesToInt(windSpeedBytes);
-            double windSpeedKnots = unpackMMperSecToKnots(windSpeedInt);
+            double windSpeedKnots = unpackMMperSecToKnots(getUInt16(encodedMessage, index + 13));
 
-            byte[] bestUpwindAngleBytes = Arrays.copyOfRange(encodedMessage, 15, 17);
-            int bestUpwindAngleInt = bytesToInt(bestUpwindAngleBytes);
-            Bearing bestUpwindAngle = Bearing.fromDegrees(unpackHeading(bestUpwindAngleInt));
+            Bearing bestUpwindAngle = Bearing.fromDegrees(unpackHeading(getUInt16(encodedMessage, index + 15)));
 
-            byte[] bestDownwindAngleBytes = Arrays.copyOfRange(encodedMessage, 17, 19);
-            int bestDownwindAngleInt = bytesToInt(bestDownwindAngleBytes);
-            Bearing bestDownwindAngle = Bearing.fromDegrees(unpackHeading(bestDownwindAngleInt));
+            Bearing bestDownwindAngle = Bearing.fromDegrees(unpackHeading(getUInt16(encodedMessage, index + 17)));
 
-            byte[] flags = Arrays.copyOfRange(encodedMessage, 19, 20);
+            byte flags = encodedMessage.get(index + 19);
 
 
             message = new CourseWind(
-                    windId[0],
+                    windId,
                     time,
                     raceIDInt,
                     windDirection,
                     windSpeedKnots,
                     bestUpwindAngle,
                     bestDownwindAngle,
-                    flags[0]);
+                    flags);
 
             return message;
 
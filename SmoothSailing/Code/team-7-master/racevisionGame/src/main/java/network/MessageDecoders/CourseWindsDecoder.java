@@ -6,13 +6,10 @@ import network.Messages.AC35Data;
 import network.Messages.CourseWind;
 import network.Messages.CourseWinds;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import static network.Utils.ByteConverter.bytesToInt;
-import static network.Utils.ByteConverter.bytesToLong;
-
 
 /**
  * Decodes {@link CourseWinds} messages.
@@ -20,14 +17,14 @@ import static network.Utils.ByteConverter.bytesToLong;
 public class CourseWindsDecoder implements MessageDecoder {
 
     /**
-     * The encoded message.
+     * The decoded message.
      */
-    private byte[] encodedMessage;
+    private CourseWinds message;
 
     /**
-     * The decoded message.
+     * Used to decode each CourseWind.
      */
-    private CourseWinds message;
+    private final CourseWindDecoder courseWindDecoder = new CourseWindDecoder();
 
 
 
@@ -39,31 +36,27 @@ public class CourseWindsDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
+            int start = encodedMessage.position();
+
             //The header is three bytes.
-            byte messageVersionNumber = encodedMessage[0];
-            byte byteWindID = encodedMessage[1];
-            byte loopCount = encodedMessage[2];
+            byte messageVersionNumber = encodedMessage.get(start);
+            byte byteWindID = encodedMessage.get(start + 1);
+            byte loopCount = encodedMessage.get(start + 2);
 
 
             //A CourseWind object is 20 bytes.
             final int courseWindByteLength = 20;
 
-            List<CourseWind> loopMessages = new ArrayList();
-
-            //The header is 3 bytes, so we need the remaining bytes.
-            byte[] loopMessagesBytes = Arrays.copyOfRange(encodedMessage, 3, courseWindByteLength * loopCount + 3);
+            List<CourseWind> loopMessages = new ArrayList<>(Math.max(loopCount, 0));
 
+            //The header is 3 bytes, so the CourseWinds start after it.
             for (int messageLoopIndex = 0; messageLoopIndex < (loopCount * courseWindByteLength); messageLoopIndex += courseWindByteLength) {
 
-                byte[] messageBytes = Arrays.copyOfRange(loopMessagesBytes, messageLoopIndex, messageLoopIndex + courseWindByteLength);
-
-                CourseWindDecoder courseWindDecoder = new CourseWindDecoder();
-                CourseWind courseWind = courseWindDecoder.decode(messageBytes);
+                CourseWind courseWind = courseWindDecoder.decode(encodedMessage, start + 3 + messageLoopIndex);
 
                 loopMessages.add(courseWind);
             }
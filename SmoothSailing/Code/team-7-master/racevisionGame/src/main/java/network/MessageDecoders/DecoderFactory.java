@@ -61,6 +61,12 @@ public class DecoderFactory {
 
             case BOATSTATE: return new BoatStateDecoder();
 
+            case BOATLOCATION_DELTA: return new BoatLocationDeltaDecoder();
+
+            case HOST_GAME: return new HostGameMessageDecoder();
+
+            case HOSTED_GAMES_REQUEST: return new HostedGamesRequestDecoder();
+
             default: throw new InvalidMessageTypeException("Unrecognised message type: " + type);
         }
 
@@ -2,21 +2,17 @@ package network.MessageDecoders;
 
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
-import network.Messages.Enums.BoatActionEnum;
 import network.Messages.HeartBeat;
 
-import static network.Utils.ByteConverter.bytesToLong;
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.getUInt32;
 
 /**
  * Decodes {@link network.Messages.HeartBeat} messages.
  */
 public class HeartBeatDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -31,12 +27,11 @@ public class HeartBeatDecoder implements MessageDecoder {
     }
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            message = new HeartBeat(bytesToLong(encodedMessage));
+            message = new HeartBeat(getUInt32(encodedMessage, encodedMessage.position()));
 
             return message;
 
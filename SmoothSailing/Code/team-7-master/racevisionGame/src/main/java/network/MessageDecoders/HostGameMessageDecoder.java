@@ -2,23 +2,16 @@ package network.MessageDecoders;
 
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
-import network.Messages.CourseWinds;
 import network.Messages.Enums.RaceStatusEnum;
 import network.Messages.HostGame;
-import network.Messages.RaceStatus;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.bytesToInt;
-import static network.Utils.ByteConverter.bytesToLong;
+import static network.Utils.ByteCodec.getInt32;
+import static network.Utils.ByteCodec.getUInt8;
 
 public class HostGameMessageDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -31,22 +24,27 @@ public class HostGameMessageDecoder implements MessageDecoder {
     }
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
+        return decode(encodedMessage, encodedMessage.position());
+    }
+
+    /**
+     * Decodes a message stored in a buffer, starting at a given index. The buffer's position is not modified.
+     * @param encodedMessage The buffer containing the message to decode.
+     * @param index The index of the message's first byte.
+     * @return The decoded message.
+     * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
+     */
+    public HostGame decode(ByteBuffer encodedMessage, int index) throws InvalidMessageException {
 
         try{
-            byte ipPart1 = encodedMessage[0];
-            byte ipPart2 = encodedMessage[1];
-            byte ipPart3 = encodedMessage[2];
-            byte ipPart4 = encodedMessage[3];
-            String ipString = bytesToLong(ipPart1) + "." + bytesToLong(ipPart2) + "." + bytesToLong(ipPart3) + "." + bytesToLong(ipPart4);
-//            System.out.println(ipString);
-            int port = bytesToInt(Arrays.copyOfRange(encodedMessage, 4, 8));
-            byte map = encodedMessage[8];
-            byte speed = encodedMessage[9];
-            byte status = encodedMessage[10];
-            byte requiredNumPlayers = encodedMessage[11];
-            byte currentNumPlayers = encodedMessage[12];
+            String ipString = getUInt8(encodedMessage, index) + "." + getUInt8(encodedMessage, index + 1) + "." + getUInt8(encodedMessage, index + 2) + "." + getUInt8(encodedMessage, index + 3);
+            int port = getInt32(encodedMessage, index + 4);
+            byte map = encodedMessage.get(index + 8);
+            byte speed = encodedMessage.get(index + 9);
+            byte status = encodedMessage.get(index + 10);
+            byte requiredNumPlayers = encodedMessage.get(index + 11);
+            byte currentNumPlayers = encodedMessage.get(index + 12);
 
 
             message = new HostGame(ipString, port, map,
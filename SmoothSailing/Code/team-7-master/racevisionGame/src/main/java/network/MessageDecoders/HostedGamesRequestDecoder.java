@@ -1,31 +1,47 @@
 package network.MessageDecoders;
 
 import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.HostGameMessageEncoder;
+import network.MessageEncoders.HostedGamesRequestEncoder;
 import network.Messages.AC35Data;
 import network.Messages.HostGame;
 import network.Messages.HostGamesRequest;
+import network.Utils.DeflateCodec;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import static network.Utils.ByteConverter.bytesToInt;
+import static network.Utils.ByteCodec.getInt32;
 
 public class HostedGamesRequestDecoder  implements MessageDecoder{
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
         try{
-            int numberOfGames = bytesToInt(Arrays.copyOfRange(encodedMessage, 0, 4));
+            int start = encodedMessage.position();
+            int numberOfGames = getInt32(encodedMessage, start);
+            int byteIndex = start + HostedGamesRequestEncoder.HeaderLength;
+
+            //Compressed games are inflated first, and then decoded as usual.
+            boolean compressed = (numberOfGames & HostedGamesRequestEncoder.CompressedCountFlag) != 0;
+            ByteBuffer games = encodedMessage;
+            if (compressed) {
+                numberOfGames &= ~HostedGamesRequestEncoder.CompressedCountFlag;
+
+                ByteBuffer deflatedGames = encodedMessage.duplicate();
+                deflatedGames.position(byteIndex);
+                games = ByteBuffer.wrap(DeflateCodec.inflate(deflatedGames));
+                byteIndex = 0;
+            }
 
             HostGameMessageDecoder lineDecoder = new HostGameMessageDecoder();
             List<HostGame> knownGames = new ArrayList<>();
-            int byteIndex = 4;
             for (int i = 0; i < numberOfGames; i++){
-                knownGames.add((HostGame) lineDecoder.decode(Arrays.copyOfRange(encodedMessage, byteIndex, byteIndex+13)));
-                byteIndex += 13;
+                knownGames.add(lineDecoder.decode(games, byteIndex));
+                byteIndex += HostGameMessageEncoder.MessageLength;
             }
 
-            return new HostGamesRequest(knownGames);
+            return new HostGamesRequest(knownGames, compressed);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -5,20 +5,16 @@ import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.Enums.JoinAcceptanceEnum;
 import network.Messages.JoinAcceptance;
-import network.Utils.ByteConverter;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.getInt32;
 
 /**
  * Decoder for {@link JoinAcceptance} messages.
  */
 public class JoinAcceptanceDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -33,23 +29,17 @@ public class JoinAcceptanceDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            //SourceID is first four bytes.
-            byte[] sourceIdBytes = Arrays.copyOfRange(encodedMessage, 0, 4);
-
-            //Next byte is acceptance type.
-            byte[] acceptanceBytes = Arrays.copyOfRange(encodedMessage, 4, 5);
-
+            int start = encodedMessage.position();
 
-            //SourceID is an int.
-            int sourceID = ByteConverter.bytesToInt(sourceIdBytes);
+            //SourceID is first four bytes, and is an int.
+            int sourceID = getInt32(encodedMessage, start);
 
-            //Acceptance enum is a byte.
-            JoinAcceptanceEnum acceptanceType = JoinAcceptanceEnum.fromByte(acceptanceBytes[0]);
+            //Next byte is acceptance type, which is a byte.
+            JoinAcceptanceEnum acceptanceType = JoinAcceptanceEnum.fromByte(encodedMessage.get(start + 4));
 
 
             message = new JoinAcceptance(acceptanceType, sourceID);
@@ -7,20 +7,16 @@ import network.Messages.Enums.MarkRoundingBoatStatusEnum;
 import network.Messages.Enums.MarkRoundingSideEnum;
 import network.Messages.Enums.MarkRoundingTypeEnum;
 import network.Messages.MarkRounding;
-import network.Utils.ByteConverter;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.*;
 
 /**
  * Decoder for {@link MarkRounding} messages.
  */
 public class MarkRoundingDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -34,35 +30,32 @@ public class MarkRoundingDecoder implements MessageDecoder {
     }
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte messageVersionNumber = encodedMessage[0];
+            int start = encodedMessage.position();
+
+            byte messageVersionNumber = encodedMessage.get(start);
 
-            byte[] byteTime = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = ByteConverter.bytesToLong(byteTime);
+            long time = getUInt48(encodedMessage, start + 1);
 
-            byte[] byteAck = Arrays.copyOfRange(encodedMessage, 7, 9);
-            int ackNumber = ByteConverter.bytesToInt(byteAck);
+            int ackNumber = getUInt16(encodedMessage, start + 7);
 
-            byte[] byteRaceID = Arrays.copyOfRange(encodedMessage, 9, 13);
-            int raceID = ByteConverter.bytesToInt(byteRaceID);
+            int raceID = getInt32(encodedMessage, start + 9);
 
-            byte[] byteSourceID = Arrays.copyOfRange(encodedMessage, 13, 17);
-            int sourceID = ByteConverter.bytesToInt(byteSourceID);
+            int sourceID = getInt32(encodedMessage, start + 13);
 
-            byte byteBoatStatus = encodedMessage[17];
+            byte byteBoatStatus = encodedMessage.get(start + 17);
             MarkRoundingBoatStatusEnum boatStatus = MarkRoundingBoatStatusEnum.fromByte(byteBoatStatus);
 
-            byte byteRoundingSide = encodedMessage[18];
+            byte byteRoundingSide = encodedMessage.get(start + 18);
             MarkRoundingSideEnum roundingSide = MarkRoundingSideEnum.fromByte(byteRoundingSide);
 
-            byte byteMarkType = encodedMessage[19];
+            byte byteMarkType = encodedMessage.get(start + 19);
             MarkRoundingTypeEnum markType = MarkRoundingTypeEnum.fromByte(byteMarkType);
 
-            byte byteMarkID = encodedMessage[20];
+            byte byteMarkID = encodedMessage.get(start + 20);
 
 
             message = new MarkRounding(
@@ -4,19 +4,33 @@ package network.MessageDecoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 
+import java.nio.ByteBuffer;
+
 
 /**
  * This is the interface that all message decoders must implement.
- * It allows for {@link #decode(byte[])}ing messages.
+ * It allows for {@link #decode(ByteBuffer)}ing messages.
  */
 public interface MessageDecoder {
 
 
+    /**
+     * Decodes a given message, stored between the buffer's position and limit.
+     * The buffer is read in place - its contents are not copied, and its position is not modified. Values are always read little endian, whatever the buffer's byte order.
+     * @param encodedMessage The message to decode.
+     * @return The decoded message.
+     * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
+     */
+    AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException;
+
+
     /**
      * Decodes a given message.
      * @param encodedMessage The message to decode.
      * @return The decoded message.
      * @throws InvalidMessageException Thrown if the encoded message is invalid in some way, or cannot be decoded.
      */
-     AC35Data decode(byte[] encodedMessage) throws InvalidMessageException;
+    default AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
+        return decode(ByteBuffer.wrap(encodedMessage));
+    }
 }
@@ -6,9 +6,9 @@ import network.Messages.AC35Data;
 import network.Messages.Enums.RaceStartTypeEnum;
 import network.Messages.RaceStartStatus;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.*;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -16,11 +16,6 @@ import static network.Utils.ByteConverter.*;
  */
 public class RaceStartStatusDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -36,26 +31,23 @@ public class RaceStartStatusDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte messageVersion = encodedMessage[0];
+            int start = encodedMessage.position();
+
+            byte messageVersion = encodedMessage.get(start);
 
-            byte[] timestamp = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = bytesToLong(timestamp);
+            long time = getUInt48(encodedMessage, start + 1);
 
-            byte[] ackNumber = Arrays.copyOfRange(encodedMessage, 7, 9);
-            short ack = bytesToShort(ackNumber);
+            short ack = getInt16(encodedMessage, start + 7);
 
-            byte[] raceStartTime = Arrays.copyOfRange(encodedMessage, 9, 15);
-            long startTime = bytesToLong(raceStartTime);
+            long startTime = getUInt48(encodedMessage, start + 9);
 
-            byte[] raceIdentifier = Arrays.copyOfRange(encodedMessage, 15, 19);
-            int raceID = bytesToInt(raceIdentifier);
+            int raceID = getInt32(encodedMessage, start + 15);
 
-            byte notificationType = encodedMessage[19];
+            byte notificationType = encodedMessage.get(start + 19);
 
 
             message = new RaceStartStatus(
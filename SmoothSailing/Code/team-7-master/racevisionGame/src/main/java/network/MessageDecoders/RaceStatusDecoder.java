@@ -10,11 +10,11 @@ import network.Messages.RaceStatus;
 import network.Utils.AC35UnitConverter;
 import shared.model.Bearing;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import static network.Utils.ByteConverter.*;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -23,9 +23,9 @@ import static network.Utils.ByteConverter.*;
 public class RaceStatusDecoder implements MessageDecoder {
 
     /**
-     * The encoded message.
+     * Used to decode each BoatStatus.
      */
-    private byte[] encodedMessage;
+    private final BoatStatusDecoder boatStatusDecoder = new BoatStatusDecoder();
 
     /**
      * The decoded message.
@@ -42,56 +42,44 @@ public class RaceStatusDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte[] versionNumBytes = Arrays.copyOfRange(encodedMessage, 0, 1);
-            byte versionNum = versionNumBytes[0];
+            int start = encodedMessage.position();
 
-            byte[] timeBytes = Arrays.copyOfRange(encodedMessage, 1, 7);
-            long time = bytesToLong(timeBytes);
+            byte versionNum = encodedMessage.get(start);
 
-            byte[] raceIDBytes = Arrays.copyOfRange(encodedMessage, 7, 11);
-            int raceID = bytesToInt(raceIDBytes);
+            long time = getUInt48(encodedMessage, start + 1);
 
-            byte[] raceStatusBytes = Arrays.copyOfRange(encodedMessage, 11, 12);
-            RaceStatusEnum raceStatus = RaceStatusEnum.fromByte(raceStatusBytes[0]);
+            int raceID = getInt32(encodedMessage, start + 7);
 
-            byte[] expectedStartBytes = Arrays.copyOfRange(encodedMessage, 12, 18);
-            long expectedStart = bytesToLong(expectedStartBytes);
+            RaceStatusEnum raceStatus = RaceStatusEnum.fromByte(encodedMessage.get(start + 11));
 
-            byte[] windDirectionBytes = Arrays.copyOfRange(encodedMessage, 18, 20);
-            int windDirectionInt = bytesToInt(windDirectionBytes);
+            long expectedStart = getUInt48(encodedMessage, start + 12);
+
+            int windDirectionInt = getUInt16(encodedMessage, start + 18);
             Bearing windDirection = Bearing.fromDegrees(AC35UnitConverter.unpackHeading(windDirectionInt));
 
-            byte[] windSpeedBytes = Arrays.copyOfRange(encodedMessage, 20, 22);
-            int windSpeedInt = bytesToInt(windSpeedBytes);
+            int windSpeedInt = getUInt16(encodedMessage, start + 20);
             double windSpeedKnots = AC35UnitConverter.unpackMMperSecToKnots(windSpeedInt);
 
-            byte[] numberOfBoatsBytes = Arrays.copyOfRange(encodedMessage, 22, 23);
-            int numberOfBoats = bytesToInt(numberOfBoatsBytes);
+            int numberOfBoats = getUInt8(encodedMessage, start + 22);
 
-            byte[] raceTypeBytes = Arrays.copyOfRange(encodedMessage, 23, 24);
-            RaceTypeEnum raceType = RaceTypeEnum.fromByte(raceTypeBytes[0]);
+            RaceTypeEnum raceType = RaceTypeEnum.fromByte(encodedMessage.get(start + 23));
 
-            byte[] boatStatusesBytes = Arrays.copyOfRange(encodedMessage, 24, 25 + 20 * numberOfBoats);
-            List<BoatStatus> boatStatuses = new ArrayList<>();
+            List<BoatStatus> boatStatuses = new ArrayList<>(numberOfBoats);
 
 
-            //BoatStatus is 20 bytes.
+            //BoatStatus is 20 bytes, and they start after the 24 byte header.
             int boatStatusByteLength = 20;
+            int boatStatusesStart = start + 24;
 
 
             //Decode each BoatStatus.
             for (int boatLoopIndex = 0; boatLoopIndex < (numberOfBoats * boatStatusByteLength); boatLoopIndex += boatStatusByteLength) {
 
-                byte[] boatStatusBytes = Arrays.copyOfRange(boatStatusesBytes, boatLoopIndex, boatLoopIndex + boatStatusByteLength);
-
-                BoatStatusDecoder boatStatusDecoder = new BoatStatusDecoder();
-
-                boatStatuses.add(boatStatusDecoder.decode(boatStatusBytes));
+                boatStatuses.add(boatStatusDecoder.decode(encodedMessage, boatStatusesStart + boatLoopIndex));
             }
 
 
@@ -2,23 +2,20 @@ package network.MessageDecoders;
 
 
 import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RequestToJoinEncoder;
 import network.Messages.AC35Data;
 import network.Messages.Enums.RequestToJoinEnum;
 import network.Messages.RequestToJoin;
-import network.Utils.ByteConverter;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.getInt32;
 
 /**
  * Decoder for {@link network.Messages.RequestToJoin} messages.
  */
 public class RequestToJoinDecoder implements MessageDecoder{
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedRequest;
-
     /**
      * The decoded message.
      */
@@ -32,20 +29,24 @@ public class RequestToJoinDecoder implements MessageDecoder{
 
 
     @Override
-    public AC35Data decode(byte[] encodedRequest) throws InvalidMessageException {
-        this.encodedRequest = encodedRequest;
+    public AC35Data decode(ByteBuffer encodedRequest) throws InvalidMessageException {
 
         try {
 
-            //Request type is first four bytes.
-            byte[] requestTypeBytes = Arrays.copyOfRange(encodedRequest, 0, 4);
-
-            //Request type is an integral type.
-            int requestTypeInt = ByteConverter.bytesToInt(requestTypeBytes);
+            //Request type is first four bytes, and is an integral type.
+            int requestTypeInt = getInt32(encodedRequest, encodedRequest.position());
             RequestToJoinEnum requestType = RequestToJoinEnum.fromInt(requestTypeInt);
 
+            //Feature flags are optional, and only sent by newer clients.
+            int features = 0;
+            if (encodedRequest.remaining() >= RequestToJoinEncoder.MessageWithFeaturesLength) {
+                features = getInt32(encodedRequest, encodedRequest.position() + 4);
+            }
+            boolean boatLocationDeltas = (features & RequestToJoinEncoder.BoatLocationDeltasFeature) != 0;
+            boolean compression = (features & RequestToJoinEncoder.CompressionFeature) != 0;
+
 
-            message = new RequestToJoin(requestType);
+            message = new RequestToJoin(requestType, boatLocationDeltas, compression);
 
             return message;
 
@@ -1,14 +1,16 @@
 package network.MessageDecoders;
 
 import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.XMLMessageEncoder;
 import network.Messages.AC35Data;
 import network.Messages.Enums.XMLMessageType;
 import network.Messages.XMLMessage;
+import network.Utils.DeflateCodec;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
-import static network.Utils.ByteConverter.bytesToLong;
-import static network.Utils.ByteConverter.bytesToShort;
+import static network.Utils.ByteCodec.*;
 
 
 /**
@@ -16,11 +18,6 @@ import static network.Utils.ByteConverter.bytesToShort;
  */
 public class XMLMessageDecoder implements MessageDecoder {
 
-    /**
-     * The encoded message.
-     */
-    private byte[] encodedMessage;
-
     /**
      * The decoded message.
      */
@@ -36,27 +33,29 @@ public class XMLMessageDecoder implements MessageDecoder {
 
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        this.encodedMessage = encodedMessage;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
 
         try {
 
-            byte[] messageVersionNumberBytes = Arrays.copyOfRange(encodedMessage, 0, 1);
-            byte[] ackNumberBytes = Arrays.copyOfRange(encodedMessage, 1, 3);
-            byte[] timeStampBytes = Arrays.copyOfRange(encodedMessage, 3, 9);
-            byte[] xmlMsgSubTypeBytes = Arrays.copyOfRange(encodedMessage, 9, 10);
-            byte[] sequenceNumberBytes = Arrays.copyOfRange(encodedMessage, 10, 12);
-            byte[] xmlMsgLengthBytes = Arrays.copyOfRange(encodedMessage, 12, 14);
-            byte[] xmlMessagebytes = Arrays.copyOfRange(encodedMessage, 14, encodedMessage.length);
+            int start = encodedMessage.position();
+
+            byte messageVersionNumber = encodedMessage.get(start);
+            short ackNumber = getInt16(encodedMessage, start + 1);
+            long timeStamp = getUInt48(encodedMessage, start + 3);
+            XMLMessageType xmlMsgSubType = XMLMessageType.fromByte(encodedMessage.get(start + 9));
+            short sequenceNumber = getInt16(encodedMessage, start + 10);
+
+            //The xml text is everything after the 14 byte header. It is encoded by XMLMessageEncoder as UTF-8, and deflated if the client asked for compression.
+            ByteBuffer xmlMessageBytes = encodedMessage.duplicate();
+            xmlMessageBytes.position(start + XMLMessageEncoder.HeaderLength);
 
+            boolean compressed = (messageVersionNumber & XMLMessageEncoder.CompressedVersionFlag) != 0;
+            if (compressed) {
+                messageVersionNumber &= ~XMLMessageEncoder.CompressedVersionFlag;
+                xmlMessageBytes = ByteBuffer.wrap(DeflateCodec.inflate(xmlMessageBytes));
+            }
 
-            byte messageVersionNumber = messageVersionNumberBytes[0];
-            short ackNumber = bytesToShort(ackNumberBytes);
-            long timeStamp = bytesToLong(timeStampBytes);
-            XMLMessageType xmlMsgSubType = XMLMessageType.fromByte(xmlMsgSubTypeBytes[0]);
-            short sequenceNumber = bytesToShort(sequenceNumberBytes);
-            short xmlMsgLength = bytesToShort(xmlMsgLengthBytes);
-            String xmlMessage = new String(xmlMessagebytes);
+            String xmlMessage = StandardCharsets.UTF_8.decode(xmlMessageBytes).toString();
 
 
             message = new XMLMessage(
@@ -65,7 +64,8 @@ public class XMLMessageDecoder implements MessageDecoder {
                     timeStamp,
                     xmlMsgSubType,
                     sequenceNumber,
-                    xmlMessage);
+                    xmlMessage,
+                    compressed);
 
             return message;
 
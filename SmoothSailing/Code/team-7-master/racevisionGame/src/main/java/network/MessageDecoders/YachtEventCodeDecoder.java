@@ -5,11 +5,9 @@ import network.Messages.AC35Data;
 import network.Messages.Enums.YachtEventEnum;
 import network.Messages.YachtEvent;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.bytesToInt;
-import static network.Utils.ByteConverter.bytesToLong;
-import static network.Utils.ByteConverter.bytesToShort;
+import static network.Utils.ByteCodec.*;
 
 /**
  * Decodes {@link YachtEvent} messages.
@@ -18,27 +16,28 @@ public class YachtEventCodeDecoder implements MessageDecoder {
     private YachtEvent message;
 
     @Override
-    public AC35Data decode(byte[] encodedMessage) throws InvalidMessageException {
-        // Deserialise message
-        byte[] timestamp = Arrays.copyOfRange(encodedMessage, 1, 7);
-        byte[] ackNum = Arrays.copyOfRange(encodedMessage, 7, 9);
-        byte[] raceID = Arrays.copyOfRange(encodedMessage, 9, 13);
-        byte[] sourceID = Arrays.copyOfRange(encodedMessage, 13, 17);
-        byte[] incidentID = Arrays.copyOfRange(encodedMessage, 17, 21);
-        byte eventID = encodedMessage[21];
-
-        // Unpack bytes into YachtEvent
-        this.message = new YachtEvent(
-                bytesToLong(timestamp),
-                bytesToShort(ackNum),
-                bytesToInt(raceID),
-                bytesToInt(sourceID),
-                bytesToInt(incidentID),
-                YachtEventEnum.fromByte(eventID)
-        );
-
-        // Return YachtEvent
-        return message;
+    public AC35Data decode(ByteBuffer encodedMessage) throws InvalidMessageException {
+        try {
+            // Deserialise message
+            int start = encodedMessage.position();
+            byte eventID = encodedMessage.get(start + 21);
+
+            // Unpack bytes into YachtEvent
+            this.message = new YachtEvent(
+                    getUInt48(encodedMessage, start + 1),
+                    getInt16(encodedMessage, start + 7),
+                    getInt32(encodedMessage, start + 9),
+                    getInt32(encodedMessage, start + 13),
+                    getInt32(encodedMessage, start + 17),
+                    YachtEventEnum.fromByte(eventID)
+            );
+
+            // Return YachtEvent
+            return message;
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not decode YachtEvent message.", e);
+        }
     }
 
     public YachtEvent getMessage() {
@@ -8,14 +8,18 @@ import network.Messages.AverageWind;
 import java.nio.ByteBuffer;
 
 import static network.Utils.AC35UnitConverter.*;
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link AverageWind} message.
  */
 public class AverageWindEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded AverageWind message.
+     */
+    public static final int MessageLength = 23;
+
 
     /**
      * Constructor.
@@ -25,64 +29,37 @@ public class AverageWindEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
             //Downcast.
             AverageWind averageWind = (AverageWind) message;
 
+            int start = destination.position();
 
-            byte messageVersionNumber = averageWind.getMessageVersionNumber();
-
-            long time = averageWind.getTime();
-            byte[] byteTime = longToBytes(time, 6);
-
-            long rawPeriod = averageWind.getRawPeriod();
-            int rawPeriodInt = packAverageWindPeriod(rawPeriod);
-            byte[] byteRawPeriod = intToBytes(rawPeriodInt, 2);
-
-            double rawSampleSpeed = averageWind.getRawSpeedKnots();
-            int rawSampleSpeedInt = packKnotsToMMperSec(rawSampleSpeed);
-            byte[] byteRawSpeed = intToBytes(rawSampleSpeedInt, 2);
-
-            long period2 = averageWind.getSampleTwoPeriod();
-            int period2Int = packAverageWindPeriod(period2);
-            byte[] bytePeriod2 = intToBytes(period2Int, 2);
-
-            double speed2 = averageWind.getSampleTwoSpeedKnots();
-            int speed2Int = packKnotsToMMperSec(speed2);
-            byte[] byteSpeed2 = intToBytes(speed2Int, 2);
-
-            long period3 = averageWind.getSampleThreePeriod();
-            int period3Int = packAverageWindPeriod(period3);
-            byte[] bytePeriod3 = intToBytes(period3Int, 2);
+            putInt8(destination, start, averageWind.getMessageVersionNumber());
+            putInt48(destination, start + 1, averageWind.getTime());
 
-            double speed3 = averageWind.getSampleThreeSpeedKnots();
-            int speed3Int = packKnotsToMMperSec(speed3);
-            byte[] byteSpeed3 = intToBytes(speed3Int, 2);
+            putInt16(destination, start + 7, packAverageWindPeriod(averageWind.getRawPeriod()));
+            putInt16(destination, start + 9, packKnotsToMMperSec(averageWind.getRawSpeedKnots()));
 
-            long period4 = averageWind.getSampleFourPeriod();
-            int period4Int = packAverageWindPeriod(period4);
-            byte[] bytePeriod4 = intToBytes(period4Int, 2);
+            putInt16(destination, start + 11, packAverageWindPeriod(averageWind.getSampleTwoPeriod()));
+            putInt16(destination, start + 13, packKnotsToMMperSec(averageWind.getSampleTwoSpeedKnots()));
 
-            double speed4 = averageWind.getSampleFourSpeedKnots();
-            int speed4Int = packKnotsToMMperSec(speed4);
-            byte[] byteSpeed4 = intToBytes(speed4Int, 2);
+            putInt16(destination, start + 15, packAverageWindPeriod(averageWind.getSampleThreePeriod()));
+            putInt16(destination, start + 17, packKnotsToMMperSec(averageWind.getSampleThreeSpeedKnots()));
 
+            putInt16(destination, start + 19, packAverageWindPeriod(averageWind.getSampleFourPeriod()));
+            putInt16(destination, start + 21, packKnotsToMMperSec(averageWind.getSampleFourSpeedKnots()));
 
-            ByteBuffer result = ByteBuffer.allocate(23);
-            result.put(messageVersionNumber);
-            result.put(byteTime);
-            result.put(byteRawPeriod);
-            result.put(byteRawSpeed);
-            result.put(bytePeriod2);
-            result.put(byteSpeed2);
-            result.put(bytePeriod3);
-            result.put(byteSpeed3);
-            result.put(bytePeriod4);
-            result.put(byteSpeed4);
-            return result.array();
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode AverageWind message.", e);
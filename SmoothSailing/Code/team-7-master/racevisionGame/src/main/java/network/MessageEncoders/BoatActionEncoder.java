@@ -7,13 +7,18 @@ import network.Messages.BoatAction;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
+import static network.Utils.ByteCodec.putInt8;
 
 /**
  * This encoder can encode a {@link BoatAction} message.
  */
 public class BoatActionEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded BoatAction message.
+     */
+    public static final int MessageLength = 1;
+
 
     /**
      * Constructor.
@@ -23,7 +28,13 @@ public class BoatActionEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
@@ -31,13 +42,7 @@ public class BoatActionEncoder implements MessageEncoder {
             BoatAction boatAction = (BoatAction) message;
 
             //Message is 1 byte.
-            ByteBuffer boatActionMessage = ByteBuffer.allocate(1);
-
-            boatActionMessage.put(intToBytes(boatAction.getBoatAction().getValue(), 1));
-
-            byte[] result = boatActionMessage.array();
-
-            return result;
+            putInt8(destination, boatAction.getBoatAction().getValue());
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode BoatAction message.", e);
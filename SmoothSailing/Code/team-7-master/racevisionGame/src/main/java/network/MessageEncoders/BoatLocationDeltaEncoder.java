@@ -0,0 +1,86 @@
+package network.MessageEncoders;
+
+
+import network.Exceptions.InvalidMessageException;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocationDelta;
+
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.*;
+
+/**
+ * This encoder can encode a {@link BoatLocationDelta} message.
+ * <br>
+ * Layout: version (1 byte), flags (1 byte, bit 0 set for a keyframe), keyframe number (2 bytes), quantisation shift (1 byte), time (6 bytes), boat count (2 bytes).
+ * Then, for each boat: source ID (4 bytes), latitude and longitude (4 bytes each in a keyframe, 2 bytes each in a delta), heading (2 bytes), speed (2 bytes).
+ */
+public class BoatLocationDeltaEncoder implements MessageEncoder {
+
+    /**
+     * Length of the fixed part of an encoded message.
+     */
+    public static final int HeaderLength = 13;
+
+    /**
+     * Length of each boat in an encoded keyframe.
+     */
+    public static final int KeyframeBoatLength = 16;
+
+    /**
+     * Length of each boat in an encoded delta.
+     */
+    public static final int DeltaBoatLength = 12;
+
+
+    /**
+     * Constructor.
+     */
+    public BoatLocationDeltaEncoder() {
+    }
+
+
+    @Override
+    public int getEncodedLength(AC35Data message) {
+        BoatLocationDelta delta = (BoatLocationDelta) message;
+        return HeaderLength + delta.getBoatCount() * (delta.isKeyframe() ? KeyframeBoatLength : DeltaBoatLength);
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
+
+        try {
+
+            //Downcast.
+            BoatLocationDelta delta = (BoatLocationDelta) message;
+
+            putInt8(destination, BoatLocationDelta.currentMessageVersionNumber);
+            putInt8(destination, delta.isKeyframe() ? 1 : 0);
+            putInt16(destination, delta.getKeyframeNumber());
+            putInt8(destination, delta.getQuantisationShift());
+            putInt48(destination, delta.getTime());
+            putInt16(destination, delta.getBoatCount());
+
+            for (int i = 0; i < delta.getBoatCount(); i++) {
+
+                putInt32(destination, delta.getSourceID(i));
+
+                if (delta.isKeyframe()) {
+                    putInt32(destination, delta.getLatitude(i));
+                    putInt32(destination, delta.getLongitude(i));
+                } else {
+                    putInt16(destination, delta.getLatitude(i));
+                    putInt16(destination, delta.getLongitude(i));
+                }
+
+                putInt16(destination, delta.getHeading(i));
+                putInt16(destination, delta.getSpeed(i));
+            }
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode BoatLocationDelta message.", e);
+        }
+
+    }
+}
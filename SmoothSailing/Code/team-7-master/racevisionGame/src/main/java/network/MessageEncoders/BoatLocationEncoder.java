@@ -8,14 +8,18 @@ import network.Messages.BoatLocation;
 import java.nio.ByteBuffer;
 
 import static network.Utils.AC35UnitConverter.*;
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link BoatLocation} message.
  */
 public class BoatLocationEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded BoatLocation message.
+     */
+    public static final int MessageLength = 56;
+
 
     /**
      * Constructor.
@@ -25,63 +29,46 @@ public class BoatLocationEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
             //Downcast.
             BoatLocation boatLocation = (BoatLocation) message;
 
+            int start = destination.position();
 
             int messageVersionNumber = 0b1;
-            byte[] messageVersionBytes = intToBytes(messageVersionNumber, 1);
-            byte[] time = longToBytes(boatLocation.getTime(), 6);
-            byte[] sourceID = intToBytes(boatLocation.getSourceID(), 4);
-            byte[] seqNum = longToBytes(boatLocation.getSequenceNumber(), 4);
-            byte[] deviceType = intToBytes(boatLocation.getDeviceType().getValue(), 1);
-            byte[] latitude = intToBytes(packGPS(boatLocation.getLatitude()), 4);
-            byte[] longitude = intToBytes(packGPS(boatLocation.getLongitude()), 4);
-            byte[] altitude = intToBytes(boatLocation.getAltitude(), 4);
-            byte[] heading = intToBytes(packHeading(boatLocation.getHeading().degrees()), 2);
-            byte[] pitch = intToBytes(boatLocation.getPitch(), 2);
-            byte[] roll = intToBytes(boatLocation.getRoll(), 2);
-            byte[] boatSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getBoatSpeedKnots()), 2);
-            byte[] cog = intToBytes(packHeading(boatLocation.getBoatCOG().degrees()), 2);
-            byte[] sog = intToBytes(packKnotsToMMperSec(boatLocation.getBoatSOGKnots()), 2);
-            byte[] apparentWindSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getApparentWindSpeedKnots()), 2);
-            byte[] apparentWindAngle = intToBytes(packTrueWindAngle(boatLocation.getApparentWindAngle().degrees()), 2);
-            byte[] trueWindSpeed = intToBytes(packKnotsToMMperSec(boatLocation.getTrueWindSpeedKnots()), 2);
-            byte[] trueWindDirection = intToBytes(packHeading(boatLocation.getTrueWindDirection().degrees()), 2);
-            byte[] trueWindAngle = intToBytes(packTrueWindAngle(boatLocation.getTrueWindAngle().degrees()), 2);
-            byte[] currentDrift = intToBytes(packKnotsToMMperSec(boatLocation.getCurrentDriftKnots()), 2);
-            byte[] currentSet = intToBytes(packHeading(boatLocation.getCurrentSet().degrees()), 2);
-            byte[] rudderAngle = intToBytes(packTrueWindAngle(boatLocation.getRudderAngle().degrees()), 2);
-
-            ByteBuffer result = ByteBuffer.allocate(56);
-            result.put(messageVersionBytes);
-            result.put(time);
-            result.put(sourceID);
-            result.put(seqNum);
-            result.put(deviceType);
-            result.put(latitude);
-            result.put(longitude);
-            result.put(altitude);
-            result.put(heading);
-            result.put(pitch);
-            result.put(roll);
-            result.put(boatSpeed);
-            result.put(cog);
-            result.put(sog);
-            result.put(apparentWindSpeed);
-            result.put(apparentWindAngle);
-            result.put(trueWindSpeed);
-            result.put(trueWindDirection);
-            result.put(trueWindAngle);
-            result.put(currentDrift);
-            result.put(currentSet);
-            result.put(rudderAngle);
-
-            return result.array();
+            putInt8(destination, start, messageVersionNumber);
+            putInt48(destination, start + 1, boatLocation.getTime());
+            putInt32(destination, start + 7, boatLocation.getSourceID());
+            putInt32(destination, start + 11, (int) boatLocation.getSequenceNumber());
+            putInt8(destination, start + 15, boatLocation.getDeviceType().getValue());
+            putGPS(destination, start + 16, boatLocation.getLatitude());
+            putGPS(destination, start + 20, boatLocation.getLongitude());
+            putInt32(destination, start + 24, boatLocation.getAltitude());
+            putHeading(destination, start + 28, boatLocation.getHeading().degrees());
+            putInt16(destination, start + 30, boatLocation.getPitch());
+            putInt16(destination, start + 32, boatLocation.getRoll());
+            putSpeedKnots(destination, start + 34, boatLocation.getBoatSpeedKnots());
+            putHeading(destination, start + 36, boatLocation.getBoatCOG().degrees());
+            putSpeedKnots(destination, start + 38, boatLocation.getBoatSOGKnots());
+            putSpeedKnots(destination, start + 40, boatLocation.getApparentWindSpeedKnots());
+            putTrueWindAngle(destination, start + 42, boatLocation.getApparentWindAngle().degrees());
+            putSpeedKnots(destination, start + 44, boatLocation.getTrueWindSpeedKnots());
+            putHeading(destination, start + 46, boatLocation.getTrueWindDirection().degrees());
+            putTrueWindAngle(destination, start + 48, boatLocation.getTrueWindAngle().degrees());
+            putSpeedKnots(destination, start + 50, boatLocation.getCurrentDriftKnots());
+            putHeading(destination, start + 52, boatLocation.getCurrentSet().degrees());
+            putTrueWindAngle(destination, start + 54, boatLocation.getRudderAngle().degrees());
+
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode BoatLocation message.", e);
@@ -6,27 +6,36 @@ import network.Messages.BoatState;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
+import static network.Utils.ByteCodec.putInt32;
+import static network.Utils.ByteCodec.putInt8;
 
 /**
  * Encoder for {@link BoatState} message
  */
 public class BoatStateEncoder implements MessageEncoder {
+
+    /**
+     * Length of an encoded BoatState message.
+     */
+    public static final int MessageLength = 5;
+
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
-        // Downcast message
-        BoatState boatState = (BoatState)message;
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
 
-        //Serialise message
-        byte[] sourceID = intToBytes(boatState.getSourceID());
-        byte boatHealth = (byte)boatState.getBoatHealth();
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
+        try {
+            // Downcast message
+            BoatState boatState = (BoatState)message;
 
-        // Pack bytes into string
-        ByteBuffer boatStateMessage = ByteBuffer.allocate(5);
-        boatStateMessage.put(sourceID);
-        boatStateMessage.put(boatHealth);
+            // Serialise message
+            putInt32(destination, boatState.getSourceID());
+            putInt8(destination, boatState.getBoatHealth());
 
-        // Return byte string
-        return boatStateMessage.array();
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode BoatState message.", e);
+        }
     }
 }
@@ -6,14 +6,18 @@ import network.Messages.BoatStatus;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link BoatStatus} message.
  */
 public class BoatStatusEncoder {
 
+    /**
+     * Length of an encoded BoatStatus.
+     */
+    public static final int MessageLength = 20;
+
 
     /**
      * Constructor.
@@ -30,32 +34,34 @@ public class BoatStatusEncoder {
      */
     public byte[] encode(BoatStatus message) throws InvalidMessageException {
 
-        try {
+        byte[] encodedMessage = new byte[MessageLength];
+        encode(message, ByteBuffer.wrap(encodedMessage));
+        return encodedMessage;
 
+    }
 
-            //Downcast.
-            BoatStatus boatStatus = (BoatStatus) message;
 
-            //BoatStatus is 20 bytes.
-            ByteBuffer boatStatusBuffer = ByteBuffer.allocate(20);
+    /**
+     * Encodes a given BoatStatus message into a buffer, starting at the buffer's position. The position is advanced by {@link #MessageLength}.
+     * @param message The message to encode.
+     * @param destination The buffer to write to.
+     * @throws InvalidMessageException Thrown if the message is invalid in some way, or cannot be encoded.
+     */
+    public void encode(BoatStatus message, ByteBuffer destination) throws InvalidMessageException {
+
+        try {
 
-            byte[] sourceID = intToBytes(boatStatus.getSourceID());
-            byte[] boatStatusBytes = intToBytes(boatStatus.getBoatStatus().getValue(), 1);
-            byte[] legNum = intToBytes(boatStatus.getLegNumber(), 1);
-            byte[] numPenalties = intToBytes(boatStatus.getNumPenaltiesAwarded(), 1);
-            byte[] numPenaltiesServed = intToBytes(boatStatus.getNumPenaltiesServed(), 1);
-            byte[] estNextMarkTime = longToBytes(boatStatus.getEstTimeAtNextMark(), 6);
-            byte[] estFinishTime = longToBytes(boatStatus.getEstTimeAtFinish(), 6);
+            int start = destination.position();
 
-            boatStatusBuffer.put(sourceID);
-            boatStatusBuffer.put(boatStatusBytes);
-            boatStatusBuffer.put(legNum);
-            boatStatusBuffer.put(numPenalties);
-            boatStatusBuffer.put(numPenaltiesServed);
-            boatStatusBuffer.put(estNextMarkTime);
-            boatStatusBuffer.put(estFinishTime);
+            putInt32(destination, start, message.getSourceID());
+            putInt8(destination, start + 4, message.getBoatStatus().getValue());
+            putInt8(destination, start + 5, message.getLegNumber());
+            putInt8(destination, start + 6, message.getNumPenaltiesAwarded());
+            putInt8(destination, start + 7, message.getNumPenaltiesServed());
+            putInt48(destination, start + 8, message.getEstTimeAtNextMark());
+            putInt48(destination, start + 14, message.getEstTimeAtFinish());
 
-            return boatStatusBuffer.array();
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode BoatStatus message.", e);
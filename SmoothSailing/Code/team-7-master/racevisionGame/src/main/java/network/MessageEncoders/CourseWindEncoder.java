@@ -3,20 +3,22 @@ package network.MessageEncoders;
 
 import network.Exceptions.InvalidMessageException;
 import network.Messages.CourseWind;
-import shared.model.Bearing;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
 import static network.Utils.AC35UnitConverter.*;
-import static network.Utils.ByteConverter.*;
-import static network.Utils.ByteConverter.bytesToInt;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link CourseWind} message.
  */
 public class CourseWindEncoder {
 
+    /**
+     * Length of an encoded CourseWind.
+     */
+    public static final int MessageLength = 20;
+
 
     /**
      * Constructor.
@@ -33,45 +35,35 @@ public class CourseWindEncoder {
      */
     public byte[] encode(CourseWind message) throws InvalidMessageException {
 
-        try {
-
-            CourseWind courseWind = message;
-
-
-            //CourseWind is 20 bytes.
-            ByteBuffer courseWindBuffer = ByteBuffer.allocate(20);
-
-
-            byte[] windId = intToBytes(courseWind.getID(), 1);
+        byte[] encodedMessage = new byte[MessageLength];
+        encode(message, ByteBuffer.wrap(encodedMessage));
+        return encodedMessage;
 
-            byte[] timeBytes = longToBytes(courseWind.getTime(), 6);
-
-            byte[] raceIDBytes = intToBytes(courseWind.getRaceID(), 4);
-
-            int windDirectionInt = packHeading(courseWind.getWindDirection().degrees());
-            byte[] windDirectionBytes = intToBytes(windDirectionInt, 2);
+    }
 
-            int windSpeedInt = packKnotsToMMperSec(courseWind.getWindSpeedKnots());
-            byte[] windSpeedBytes = intToBytes(windSpeedInt, 2);
 
-            int bestUpwindAngleInt = packHeading(courseWind.getBestUpwindAngle().degrees());
-            byte[] bestUpwindAngleBytes = intToBytes(bestUpwindAngleInt, 2);
+    /**
+     * Encodes a given CourseWind message into a buffer, starting at the buffer's position. The position is advanced by {@link #MessageLength}.
+     * @param message The message to encode.
+     * @param destination The buffer to write to.
+     * @throws InvalidMessageException Thrown if the message is invalid in some way, or cannot be encoded.
+     */
+    public void encode(CourseWind message, ByteBuffer destination) throws InvalidMessageException {
 
-            int bestDownwindAngleInt = packHeading(courseWind.getBestDownwindAngle().degrees());
-            byte[] bestDownwindAngleBytes = intToBytes(bestDownwindAngleInt, 2);
+        try {
 
-            byte[] flags = intToBytes(courseWind.getFlags(), 1);
+            int start = destination.position();
 
-            courseWindBuffer.put(windId);
-            courseWindBuffer.put(timeBytes);
-            courseWindBuffer.put(raceIDBytes);
-            courseWindBuffer.put(windDirectionBytes);
-            courseWindBuffer.put(windSpeedBytes);
-            courseWindBuffer.put(bestUpwindAngleBytes);
-            courseWindBuffer.put(bestDownwindAngleBytes);
-            courseWindBuffer.put(flags);
+            putInt8(destination, start, message.getID());
+            putInt48(destination, start + 1, message.getTime());
+            putInt32(destination, start + 7, message.getRaceID());
+            putInt16(destination, start + 11, packHeading(message.getWindDirection().degrees()));
+            putInt16(destination, start + 13, packKnotsToMMperSec(message.getWindSpeedKnots()));
+            putInt16(destination, start + 15, packHeading(message.getBestUpwindAngle().degrees()));
+            putInt16(destination, start + 17, packHeading(message.getBestDownwindAngle().degrees()));
+            putInt8(destination, start + 19, message.getFlags());
 
-            return courseWindBuffer.array();
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode CourseWind message.", e);
@@ -3,19 +3,28 @@ package network.MessageEncoders;
 
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
-import network.Messages.BoatAction;
 import network.Messages.CourseWind;
 import network.Messages.CourseWinds;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
+import static network.Utils.ByteCodec.putInt8;
 
 /**
  * This encoder can encode a {@link CourseWinds} message.
  */
 public class CourseWindsEncoder implements MessageEncoder {
 
+    /**
+     * Length of the CourseWinds header, before the list of {@link CourseWind}s.
+     */
+    public static final int HeaderLength = 3;
+
+    /**
+     * Used to encode each CourseWind.
+     */
+    private final CourseWindEncoder courseWindEncoder = new CourseWindEncoder();
+
 
     /**
      * Constructor.
@@ -25,35 +34,32 @@ public class CourseWindsEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
-
+    public int getEncodedLength(AC35Data message) throws InvalidMessageException {
         try {
+            return HeaderLength + CourseWindEncoder.MessageLength * ((CourseWinds) message).getCourseWinds().size();
 
-            //Downcast.
-            CourseWinds courseWinds = (CourseWinds) message;
-
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode CourseWinds message.", e);
+        }
+    }
 
-            byte messageVersionNumber = CourseWinds.currentMessageVersionNumber;
 
-            byte byteWindID = courseWinds.getSelectedWindID();
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
-            byte[] loopcount = intToBytes(courseWinds.getCourseWinds().size(), 1);
+        try {
 
-            ByteBuffer result = ByteBuffer.allocate(3 + 20 * courseWinds.getCourseWinds().size());
+            //Downcast.
+            CourseWinds courseWinds = (CourseWinds) message;
 
-            result.put(messageVersionNumber);
-            result.put(byteWindID);
-            result.put(loopcount);
+            putInt8(destination, CourseWinds.currentMessageVersionNumber);
+            putInt8(destination, courseWinds.getSelectedWindID());
+            putInt8(destination, courseWinds.getCourseWinds().size());
 
             //Encode each CourseWind.
             for (CourseWind wind : courseWinds.getCourseWinds()) {
-
-                CourseWindEncoder courseWindEncoder = new CourseWindEncoder();
-                byte[] encodedCourseWind = courseWindEncoder.encode(wind);
-
-                result.put(encodedCourseWind);
+                courseWindEncoder.encode(wind, destination);
             }
-            return result.array();
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode CourseWinds message.", e);
@@ -61,6 +61,12 @@ public class EncoderFactory {
 
             case BOATSTATE: return new BoatStateEncoder();
 
+            case BOATLOCATION_DELTA: return new BoatLocationDeltaEncoder();
+
+            case HOST_GAME: return new HostGameMessageEncoder();
+
+            case HOSTED_GAMES_REQUEST: return new HostedGamesRequestEncoder();
+
             default: throw new InvalidMessageTypeException("Unrecognised message type: " + type);
         }
 
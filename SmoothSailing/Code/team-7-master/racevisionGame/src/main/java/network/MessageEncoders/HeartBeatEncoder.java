@@ -7,13 +7,18 @@ import network.Messages.HeartBeat;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.putInt32;
 
 /**
  * This encoder can encode a {@link HeartBeat} message.
  */
 public class HeartBeatEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded HeartBeat message.
+     */
+    public static final int MessageLength = 4;
+
 
     /**
      * Constructor.
@@ -23,7 +28,13 @@ public class HeartBeatEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
@@ -31,12 +42,7 @@ public class HeartBeatEncoder implements MessageEncoder {
             HeartBeat heartbeat = (HeartBeat) message;
 
             //Message is 4 bytes.
-            ByteBuffer heartBeat = ByteBuffer.allocate(4);
-            heartBeat.put(longToBytes(heartbeat.getSequenceNumber(), 4));
-
-            byte[] result = heartBeat.array();
-
-            return result;
+            putInt32(destination, (int) heartbeat.getSequenceNumber());
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode HeartBeat message.", e);
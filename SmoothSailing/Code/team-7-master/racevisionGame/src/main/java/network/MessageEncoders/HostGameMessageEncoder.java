@@ -6,11 +6,16 @@ import network.Messages.HostGame;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
-
+import static network.Utils.ByteCodec.putInt32;
+import static network.Utils.ByteCodec.putInt8;
 
 public class HostGameMessageEncoder implements MessageEncoder{
 
+    /**
+     * Length of an encoded HostGame message.
+     */
+    public static final int MessageLength = 13;
+
     /**
      * Constructor
      */
@@ -18,32 +23,35 @@ public class HostGameMessageEncoder implements MessageEncoder{
     }
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
         try{
             //Downcast
             HostGame hostGame = (HostGame) message;
 
-            ByteBuffer hostGameMessage = ByteBuffer.allocate(13);
+            int start = destination.position();
 
-            ByteBuffer ipBytes = ByteBuffer.allocate(4);
-            String ip = hostGame.getIp();
-            String[] ipValues = ip.split("\\.");
-            for(String value:ipValues){
-                ipBytes.put(intToBytes(Integer.parseInt(value), 1)[0]);
+            //Each part of the dotted quad ip is one byte. Missing parts are left as zero.
+            String[] ipValues = hostGame.getIp().split("\\.");
+            if (ipValues.length > 4) {
+                throw new IllegalArgumentException("Ip has too many parts: " + hostGame.getIp());
+            }
+            for (int i = 0; i < 4; i++) {
+                putInt8(destination, start + i, (i < ipValues.length) ? Integer.parseInt(ipValues[i]) : 0);
             }
-            byte raceStatus = hostGame.getStatus().getValue();
-
-            hostGameMessage.put(ipBytes.array());
-            hostGameMessage.put(intToBytes(hostGame.getPort()));
-            hostGameMessage.put(hostGame.getMap());
-            hostGameMessage.put(hostGame.getSpeed());
-            hostGameMessage.put(raceStatus);
-            hostGameMessage.put(hostGame.getRequiredNumPlayers());
-            hostGameMessage.put(hostGame.getCurrentNumPlayers());
 
+            putInt32(destination, start + 4, hostGame.getPort());
+            putInt8(destination, start + 8, hostGame.getMap());
+            putInt8(destination, start + 9, hostGame.getSpeed());
+            putInt8(destination, start + 10, hostGame.getStatus().getValue());
+            putInt8(destination, start + 11, hostGame.getRequiredNumPlayers());
+            putInt8(destination, start + 12, hostGame.getCurrentNumPlayers());
 
-//            System.out.println(hostGameMessage.array()[4]);
-            return hostGameMessage.array();
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode Host game message.", e);
@@ -4,40 +4,110 @@ import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.HostGame;
 import network.Messages.HostGamesRequest;
+import network.Utils.DeflateCodec;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
+import static network.Utils.ByteCodec.putInt32;
 
 public class HostedGamesRequestEncoder implements MessageEncoder{
 
+    /**
+     * Length of the HostGamesRequest header, before the list of {@link HostGame}s.
+     */
+    public static final int HeaderLength = 4;
+
+    /**
+     * Set in the header's game count if the games which follow are deflated. See {@link HostGamesRequest#isCompressed()}.
+     */
+    public static final int CompressedCountFlag = 0x80000000;
+
+    /**
+     * Most games the match browser sends in one datagram, so that it fits in an ethernet frame without being fragmented. Longer lists are split over several datagrams.
+     */
+    public static final int MaxGamesPerDatagram = 100;
+
+    /**
+     * Length of the longest HostGamesRequest the match browser sends in one datagram.
+     */
+    public static final int MaxDatagramLength = HeaderLength + HostGameMessageEncoder.MessageLength * MaxGamesPerDatagram;
+
+    /**
+     * Used to encode each HostGame.
+     */
+    private final HostGameMessageEncoder lineEncoder = new HostGameMessageEncoder();
+
     /**
      * Constructor
      */
     public HostedGamesRequestEncoder() {
     }
 
+    /**
+     * The last compressed request encoded, and its deflated games, so that they are only deflated once by {@link #getEncodedLength(AC35Data)} and {@link #encode(AC35Data, ByteBuffer)}.
+     */
+    private HostGamesRequest lastCompressedRequest;
+    private byte[] lastDeflatedGames;
+
+
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) throws InvalidMessageException {
+        try {
+            HostGamesRequest hostGamesRequest = (HostGamesRequest) message;
+
+            if (hostGamesRequest.isCompressed()) {
+                return HeaderLength + deflateGames(hostGamesRequest).length;
+            }
+
+            return HeaderLength + HostGameMessageEncoder.MessageLength * hostGamesRequest.getKnownGames().size();
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode Host game message.", e);
+        }
+    }
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
         try{
             //Downcast
             HostGamesRequest hostGamesRequest = (HostGamesRequest) message;
 
-            int numGames = hostGamesRequest.getKnownGames().size();
-
-            ByteBuffer hostedGamesRequestMessage = ByteBuffer.allocate(4+13*numGames);
+            if (hostGamesRequest.isCompressed()) {
+                putInt32(destination, hostGamesRequest.getKnownGames().size() | CompressedCountFlag);
+                destination.put(deflateGames(hostGamesRequest));
+                return;
+            }
 
-            hostedGamesRequestMessage.put(intToBytes(numGames));
+            putInt32(destination, hostGamesRequest.getKnownGames().size());
 
-            HostGameMessageEncoder lineEncoder = new HostGameMessageEncoder();
             for (HostGame line: hostGamesRequest.getKnownGames()) {
-                hostedGamesRequestMessage.put(lineEncoder.encode(line));
+                lineEncoder.encode(line, destination);
             }
 
-            return hostedGamesRequestMessage.array();
-
         }catch(Exception e){
             throw new InvalidMessageException("Could not encode Host game message.", e);
         }
     }
+
+    /**
+     * Encodes a request's games, one after another, and deflates them.
+     * @param hostGamesRequest The request.
+     * @return The deflated games.
+     * @throws InvalidMessageException Thrown if a game cannot be encoded.
+     */
+    private byte[] deflateGames(HostGamesRequest hostGamesRequest) throws InvalidMessageException {
+
+        if (hostGamesRequest != lastCompressedRequest) {
+
+            ByteBuffer games = ByteBuffer.allocate(HostGameMessageEncoder.MessageLength * hostGamesRequest.getKnownGames().size());
+            for (HostGame line: hostGamesRequest.getKnownGames()) {
+                lineEncoder.encode(line, games);
+            }
+
+            lastDeflatedGames = DeflateCodec.deflate(games.array());
+            lastCompressedRequest = hostGamesRequest;
+        }
+
+        return lastDeflatedGames;
+    }
 }
@@ -4,17 +4,22 @@ package network.MessageEncoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.JoinAcceptance;
-import network.Utils.ByteConverter;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
+import static network.Utils.ByteCodec.putInt32;
+import static network.Utils.ByteCodec.putInt8;
 
 /**
  * This encoder can encode a {@link JoinAcceptance} message.
  */
 public class JoinAcceptanceEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded JoinAcceptance message.
+     */
+    public static final int MessageLength = 5;
+
 
     /**
      * Constructor.
@@ -24,24 +29,23 @@ public class JoinAcceptanceEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
             //Downcast.
             JoinAcceptance joinAcceptance = (JoinAcceptance) message;
 
-            //Message is 5 bytes.
-            ByteBuffer joinAcceptanceBuffer = ByteBuffer.allocate(5);
-
             //Source ID is first four bytes.
-            joinAcceptanceBuffer.put(intToBytes(joinAcceptance.getSourceID(), 4));
+            putInt32(destination, joinAcceptance.getSourceID());
             //Acceptance type is next byte.
-            joinAcceptanceBuffer.put(intToBytes(joinAcceptance.getAcceptanceType().getValue(), 1));
-
-            byte[] result = joinAcceptanceBuffer.array();
-
-            return result;
+            putInt8(destination, joinAcceptance.getAcceptanceType().getValue());
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode JoinAcceptance message.", e);
@@ -7,14 +7,18 @@ import network.Messages.MarkRounding;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link MarkRounding} message.
  */
 public class MarkRoundingEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded MarkRounding message.
+     */
+    public static final int MessageLength = 21;
+
 
     /**
      * Constructor.
@@ -24,37 +28,32 @@ public class MarkRoundingEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
             //Downcast.
             MarkRounding markRounding = (MarkRounding) message;
 
-            byte messageVersionNumber = markRounding.getMessageVersionNumber();
-            byte[] byteTime = longToBytes(markRounding.getTime(), 6);
-            byte[] byteAck = intToBytes(markRounding.getAckNum(), 2);
-            byte[] byteRaceID = intToBytes(markRounding.getRaceID(), 4);
-            byte[] byteSourceID = intToBytes(markRounding.getSourceID(), 4);
-            byte[] byteBoatStatus = intToBytes(markRounding.getBoatStatus().getValue(), 1);
-            byte[] byteRoundingSide = intToBytes(markRounding.getRoundingSide().getValue(), 1);
-            byte[] byteMarkType = intToBytes(markRounding.getMarkType().getValue(), 1);
-            byte[] byteMarkID = intToBytes(markRounding.getMarkID(), 1);
-
-
-            ByteBuffer result = ByteBuffer.allocate(21);
-
-            result.put(messageVersionNumber);
-            result.put(byteTime);
-            result.put(byteAck);
-            result.put(byteRaceID);
-            result.put(byteSourceID);
-            result.put(byteBoatStatus);
-            result.put(byteRoundingSide);
-            result.put(byteMarkType);
-            result.put(byteMarkID);
-
-            return result.array();
+            int start = destination.position();
+
+            putInt8(destination, start, markRounding.getMessageVersionNumber());
+            putInt48(destination, start + 1, markRounding.getTime());
+            putInt16(destination, start + 7, markRounding.getAckNum());
+            putInt32(destination, start + 9, markRounding.getRaceID());
+            putInt32(destination, start + 13, markRounding.getSourceID());
+            putInt8(destination, start + 17, markRounding.getBoatStatus().getValue());
+            putInt8(destination, start + 18, markRounding.getRoundingSide().getValue());
+            putInt8(destination, start + 19, markRounding.getMarkType().getValue());
+            putInt8(destination, start + 20, markRounding.getMarkID());
+
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode MarkRounding message.", e);
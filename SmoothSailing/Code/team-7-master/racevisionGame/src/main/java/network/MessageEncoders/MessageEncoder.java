@@ -4,20 +4,45 @@ package network.MessageEncoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 
+import java.nio.ByteBuffer;
+
 
 /**
  * This is the interface that all message encoders must implement.
- * It allows for {@link #encode(AC35Data)}ing messages.
+ * It allows for {@link #encode(AC35Data)}ing messages, or {@link #encode(AC35Data, ByteBuffer)}ing them directly into an existing buffer.
  */
 public interface MessageEncoder {
 
 
+    /**
+     * Returns the number of bytes the given message occupies once encoded.
+     * @param message The message to encode.
+     * @return Encoded length of the message body, in bytes.
+     * @throws InvalidMessageException Thrown if the message is invalid in some way, or cannot be encoded.
+     */
+    int getEncodedLength(AC35Data message) throws InvalidMessageException;
+
+
+    /**
+     * Encodes a given message into a buffer, starting at the buffer's position. The position is advanced by {@link #getEncodedLength(AC35Data)}.
+     * Values are always written little endian, whatever the buffer's byte order.
+     * @param message The message to encode.
+     * @param destination The buffer to write the message to. Must have at least {@link #getEncodedLength(AC35Data)} bytes remaining.
+     * @throws InvalidMessageException Thrown if the message is invalid in some way, or cannot be encoded.
+     */
+    void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException;
+
+
     /**
      * Encodes a given message.
      * @param message The message to encode.
      * @return Message in byte encoded form.
      * @throws InvalidMessageException Thrown if the message is invalid in some way, or cannot be encoded.
      */
-    public byte[] encode(AC35Data message) throws InvalidMessageException;
+    default byte[] encode(AC35Data message) throws InvalidMessageException {
+        byte[] encodedMessage = new byte[getEncodedLength(message)];
+        encode(message, ByteBuffer.wrap(encodedMessage));
+        return encodedMessage;
+    }
 
 }
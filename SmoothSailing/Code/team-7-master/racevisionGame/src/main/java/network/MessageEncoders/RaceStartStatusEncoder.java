@@ -4,18 +4,21 @@ package network.MessageEncoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.RaceStartStatus;
-import network.Utils.ByteConverter;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link RaceStartStatus} message.
  */
 public class RaceStartStatusEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded RaceStartStatus message.
+     */
+    public static final int MessageLength = 20;
+
 
     /**
      * Constructor.
@@ -25,30 +28,29 @@ public class RaceStartStatusEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
             //Downcast.
             RaceStartStatus raceStartStatus = (RaceStartStatus) message;
 
+            int start = destination.position();
 
-            byte messageVersion = raceStartStatus.getMessageVersionNumber();
-            byte[] timestamp = longToBytes(raceStartStatus.getTimestamp(), 6);
-            byte[] ackNumber = intToBytes(raceStartStatus.getAckNum(), 2);
-            byte[] raceStartTime = longToBytes(raceStartStatus.getRaceStartTime(), 6);
-            byte[] raceIdentifier = intToBytes(raceStartStatus.getRaceID());
-            byte[] notificationType = intToBytes(raceStartStatus.getNotificationType().getValue(), 1);
-
-            ByteBuffer result = ByteBuffer.allocate(20);
-            result.put(messageVersion);
-            result.put(timestamp);
-            result.put(ackNumber);
-            result.put(raceStartTime);
-            result.put(raceIdentifier);
-            result.put(notificationType);
+            putInt8(destination, start, raceStartStatus.getMessageVersionNumber());
+            putInt48(destination, start + 1, raceStartStatus.getTimestamp());
+            putInt16(destination, start + 7, raceStartStatus.getAckNum());
+            putInt48(destination, start + 9, raceStartStatus.getRaceStartTime());
+            putInt32(destination, start + 15, raceStartStatus.getRaceID());
+            putInt8(destination, start + 19, raceStartStatus.getNotificationType().getValue());
 
-            return result.array();
+            destination.position(start + MessageLength);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode RaceStartStatus message.", e);
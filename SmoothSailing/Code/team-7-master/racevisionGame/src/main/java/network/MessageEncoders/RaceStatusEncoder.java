@@ -6,20 +6,27 @@ import network.Messages.AC35Data;
 import network.Messages.BoatStatus;
 import network.Messages.RaceStatus;
 import network.Utils.AC35UnitConverter;
-import shared.model.Bearing;
 
 import java.nio.ByteBuffer;
 import java.util.List;
 
-import static network.Utils.ByteConverter.bytesToInt;
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link RaceStatus} message.
  */
 public class RaceStatusEncoder implements MessageEncoder {
 
+    /**
+     * Length of the RaceStatus header, before the list of {@link BoatStatus}es.
+     */
+    public static final int HeaderLength = 24;
+
+    /**
+     * Used to encode each BoatStatus.
+     */
+    private final BoatStatusEncoder boatStatusEncoder = new BoatStatusEncoder();
+
 
     /**
      * Constructor.
@@ -29,7 +36,19 @@ public class RaceStatusEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) throws InvalidMessageException {
+        try {
+            //24 byte header, plus 20 bytes per boat status.
+            return HeaderLength + BoatStatusEncoder.MessageLength * ((RaceStatus) message).getBoatStatuses().size();
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode RaceStatus message.", e);
+        }
+    }
+
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
         try {
 
@@ -39,61 +58,42 @@ public class RaceStatusEncoder implements MessageEncoder {
 
             List<BoatStatus> boatStatuses = raceStatus.getBoatStatuses();
 
-            //24 byte header, plus 20 bytes per boat status.
-            ByteBuffer raceStatusMessage = ByteBuffer.allocate(24 + 20 * boatStatuses.size());
+            int start = destination.position();
 
             //Version Number 1 bytes. this changes with the pdf. (2)
-            byte versionNum = 0b10;
+            int versionNum = 0b10;
+            putInt8(destination, start, versionNum);
 
             //time (6 bytes)
-            byte[] timeBytes = longToBytes(raceStatus.getCurrentTime(), 6);
+            putInt48(destination, start + 1, raceStatus.getCurrentTime());
 
             //race identifier in case multiple races are going at once.
-            byte[] raceID = intToBytes(raceStatus.getRaceID());
+            putInt32(destination, start + 7, raceStatus.getRaceID());
 
             //race status 0 - 10
-            byte[] raceStatusByte = intToBytes(raceStatus.getRaceStatus().getValue(), 1);
+            putInt8(destination, start + 11, raceStatus.getRaceStatus().getValue());
 
             //number of milliseconds from Jan 1, 1970 for when the data is valid
-            byte[] expectedStart = longToBytes(raceStatus.getExpectedStartTime(), 6);
+            putInt48(destination, start + 12, raceStatus.getExpectedStartTime());
 
             //North = 0x0000 East = 0x4000 South = 0x8000.
-            int windDirectionInt = AC35UnitConverter.packHeading(raceStatus.getWindDirection().degrees());
-            byte[] raceWind = intToBytes(windDirectionInt, 2);
+            putInt16(destination, start + 18, AC35UnitConverter.packHeading(raceStatus.getWindDirection().degrees()));
 
             //mm/sec
-            int windSpeedInt = AC35UnitConverter.packKnotsToMMperSec(raceStatus.getWindSpeed());
-            byte[] windSpeed = intToBytes(windSpeedInt, 2);
-
+            putInt16(destination, start + 20, AC35UnitConverter.packKnotsToMMperSec(raceStatus.getWindSpeed()));
 
-            byte[] numBoats = intToBytes(boatStatuses.size(), 1);
+            putInt8(destination, start + 22, boatStatuses.size());
 
             //1 match race, 2 fleet race
-            byte[] bytesRaceType = intToBytes(raceStatus.getRaceType().getValue(), 1);
+            putInt8(destination, start + 23, raceStatus.getRaceType().getValue());
 
-
-            raceStatusMessage.put(versionNum);
-            raceStatusMessage.put(timeBytes);
-            raceStatusMessage.put(raceID);
-            raceStatusMessage.put(raceStatusByte);
-            raceStatusMessage.put(expectedStart);
-            raceStatusMessage.put(raceWind);
-            raceStatusMessage.put(windSpeed);
-            raceStatusMessage.put(numBoats);
-            raceStatusMessage.put(bytesRaceType);
+            destination.position(start + HeaderLength);
 
             //Encode each BoatStatus.
             for (BoatStatus boatStatus : boatStatuses) {
-
-                BoatStatusEncoder boatStatusEncoder = new BoatStatusEncoder();
-
-                byte[] boatStatusEncoded = boatStatusEncoder.encode(boatStatus);
-
-                raceStatusMessage.put(boatStatusEncoded);
+                boatStatusEncoder.encode(boatStatus, destination);
             }
 
-            return raceStatusMessage.array();
-
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode RaceStatus message.", e);
         }
@@ -113,14 +113,7 @@ public class RaceVisionByteEncoder {
      */
     public static byte[] encode(AC35Data message) throws InvalidMessageException {
 
-        MessageEncoder encoder = null;
-        try {
-            encoder = EncoderFactory.create(message.getType());
-
-        } catch (InvalidMessageTypeException e) {
-            throw new InvalidMessageException("Could not create encoder for MessageType: " + message.getType(), e);
-
-        }
+        MessageEncoder encoder = createEncoder(message);
 
         byte[] encodedMessage = encoder.encode(message);
 
@@ -137,19 +130,97 @@ public class RaceVisionByteEncoder {
      */
     public static byte[] encodeBinaryMessage(AC35Data message, int ackNumber) throws InvalidMessageException {
 
-        //Encodes the message.
-        byte[] encodedMessage = RaceVisionByteEncoder.encode(message);
+        ByteBuffer frame = encodeBinaryMessageFrame(message, ackNumber);
 
-        //Encodes the full message with header.
-        BinaryMessageEncoder binaryMessageEncoder = new BinaryMessageEncoder(
-                message.getType(),
-                System.currentTimeMillis(),
-                ackNumber,
-                (short) encodedMessage.length,
-                encodedMessage  );
+        byte[] fullMessage = new byte[frame.remaining()];
+        frame.get(fullMessage);
+
+        return fullMessage;
+    }
 
 
-        return binaryMessageEncoder.getFullMessage();
+    /**
+     * Encodes a given messages, using a given ackNumber, into the calling thread's reusable frame buffer. Nothing is copied, and nothing is allocated once the buffer is large enough.
+     * The returned frame is only valid until the calling thread encodes another message. See {@link BinaryMessageEncoder#encodeFrame(AC35Data, MessageEncoder, long, int)}.
+     * @param message The message to send.
+     * @param ackNumber The ackNumber of the message.
+     * @return A binary message ready to be transmitted, between the buffer's position and limit.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded.
+     */
+    public static ByteBuffer encodeBinaryMessageFrame(AC35Data message, int ackNumber) throws InvalidMessageException {
+
+        MessageEncoder encoder = createEncoder(message);
+
+        return BinaryMessageEncoder.encodeFrame(message, encoder, System.currentTimeMillis(), ackNumber);
+    }
+
+
+    /**
+     * Encodes a list of messages into a single, immutable batch of binary messages. This lets a race snapshot be encoded once and then sent to every client.
+     * Every message in the batch shares the same timestamp and ackNumber.
+     * The batch is {@link FrameBatch#isSupersedable() supersedable}, unless it holds a discrete event (see {@link #encodeFrameBatch(List, int, boolean)}).
+     * @param messages The messages to encode.
+     * @param ackNumber The ackNumber of the messages.
+     * @return The encoded batch.
+     * @throws InvalidMessageException Thrown if any of the messages cannot be encoded.
+     */
+    public static FrameBatch encodeFrameBatch(List<AC35Data> messages, int ackNumber) throws InvalidMessageException {
+        return encodeFrameBatch(messages, ackNumber, true);
+    }
+
+    /**
+     * Encodes a list of messages into a single, immutable batch of binary messages. See {@link #encodeFrameBatch(List, int)}.
+     * A batch holding a discrete event (a {@link network.Messages.YachtEvent}) must reach the client however far behind it is, so it is never supersedable. A batch holding a {@link BoatLocationDelta} keyframe is marked as {@link FrameBatch#isKeyframe() one}.
+     * @param messages The messages to encode.
+     * @param ackNumber The ackNumber of the messages.
+     * @param supersedable Whether a newer batch makes this one redundant. See {@link FrameBatch#isSupersedable()}.
+     * @return The encoded batch.
+     * @throws InvalidMessageException Thrown if any of the messages cannot be encoded.
+     */
+    public static FrameBatch encodeFrameBatch(List<AC35Data> messages, int ackNumber, boolean supersedable) throws InvalidMessageException {
+
+        MessageEncoder[] encoders = new MessageEncoder[messages.size()];
+        boolean keyframe = false;
+
+        int length = 0;
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = createEncoder(messages.get(i));
+            length += BinaryMessageEncoder.getFrameLength(messages.get(i), encoders[i]);
+
+            if (messages.get(i).getType() == MessageType.YACHTEVENTCODE) {
+                supersedable = false;
+
+            } else if (messages.get(i).getType() == MessageType.BOATLOCATION_DELTA && ((BoatLocationDelta) messages.get(i)).isKeyframe()) {
+                keyframe = true;
+            }
+        }
+
+        byte[] frames = new byte[length];
+        ByteBuffer destination = ByteBuffer.wrap(frames);
+
+        long time = System.currentTimeMillis();
+        for (int i = 0; i < encoders.length; i++) {
+            BinaryMessageEncoder.encodeFrame(messages.get(i), encoders[i], time, ackNumber, destination);
+        }
+
+        return new FrameBatch(frames, encoders.length, supersedable, keyframe);
+    }
+
+
+    /**
+     * Creates the encoder for a given message's type.
+     * @param message The message to encode.
+     * @return The encoder.
+     * @throws InvalidMessageException Thrown if there is no encoder for the message's type.
+     */
+    private static MessageEncoder createEncoder(AC35Data message) throws InvalidMessageException {
+        try {
+            return EncoderFactory.create(message.getType());
+
+        } catch (InvalidMessageTypeException e) {
+            throw new InvalidMessageException("Could not create encoder for MessageType: " + message.getType(), e);
+
+        }
     }
 
 
@@ -4,15 +4,36 @@ package network.MessageEncoders;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
 import network.Messages.RequestToJoin;
-import network.Utils.ByteConverter;
 
 import java.nio.ByteBuffer;
 
+import static network.Utils.ByteCodec.putInt32;
+
 /**
  * This encoder can encode a {@link network.Messages.RequestToJoin} message.
  */
 public class RequestToJoinEncoder implements MessageEncoder {
 
+    /**
+     * Length of an encoded RequestToJoin message.
+     */
+    public static final int MessageLength = 4;
+
+    /**
+     * Length of an encoded RequestToJoin message which includes the optional feature flags.
+     */
+    public static final int MessageWithFeaturesLength = 8;
+
+    /**
+     * Feature flag asking for {@link network.Messages.BoatLocationDelta}s.
+     */
+    public static final int BoatLocationDeltasFeature = 1;
+
+    /**
+     * Feature flag asking for XML messages to be deflated. See {@link network.Utils.DeflateCodec}.
+     */
+    public static final int CompressionFeature = 2;
+
 
     /**
      * Constructor.
@@ -22,21 +43,45 @@ public class RequestToJoinEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
+    public int getEncodedLength(AC35Data message) {
+        //Only add the feature flags if there are any, so that a plain request is unchanged.
+        return getFeatures((RequestToJoin) message) != 0 ? MessageWithFeaturesLength : MessageLength;
+    }
 
-        try {
+    /**
+     * Returns the feature flags a request asks for.
+     * @param requestToJoin The request.
+     * @return The feature flags.
+     */
+    private static int getFeatures(RequestToJoin requestToJoin) {
 
-            //Downcast.
-            RequestToJoin requestToJoin = (RequestToJoin) message;
+        int features = 0;
+
+        if (requestToJoin.isBoatLocationDeltas()) {
+            features |= BoatLocationDeltasFeature;
+        }
+        if (requestToJoin.isCompression()) {
+            features |= CompressionFeature;
+        }
+
+        return features;
+    }
 
 
-            ByteBuffer requestToJoinBuffer = ByteBuffer.allocate(4);
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
-            requestToJoinBuffer.put(ByteConverter.intToBytes(requestToJoin.getRequestType().getValue(), 4));
+        try {
+
+            //Downcast.
+            RequestToJoin requestToJoin = (RequestToJoin) message;
 
-            byte[] result = requestToJoinBuffer.array();
+            putInt32(destination, requestToJoin.getRequestType().getValue());
 
-            return result;
+            int features = getFeatures(requestToJoin);
+            if (features != 0) {
+                putInt32(destination, features);
+            }
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode RequestToJoin message.", e);
@@ -6,16 +6,24 @@ import network.Messages.AC35Data;
 import network.Messages.XMLMessage;
 
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * This encoder can encode a {@link XMLMessage} message.
  */
 public class XMLMessageEncoder implements MessageEncoder {
 
+    /**
+     * Length of the XMLMessage header, before the xml text.
+     */
+    public static final int HeaderLength = 14;
+
+    /**
+     * Set in the version number of a message whose xml is deflated. Only sent to clients which asked for compression - see {@link RequestToJoinEncoder#CompressionFeature}.
+     */
+    public static final byte CompressedVersionFlag = (byte) 0x80;
+
 
     /**
      * Constructor.
@@ -25,41 +33,43 @@ public class XMLMessageEncoder implements MessageEncoder {
 
 
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
-
+    public int getEncodedLength(AC35Data message) throws InvalidMessageException {
         try {
+            //Message is 14 + xmlMessage.length bytes, once compressed if it is.
+            return HeaderLength + ((XMLMessage) message).getEncodedXml().length;
 
-            //Downcast.
-            XMLMessage xmlMessage = (XMLMessage) message;
-
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode XMLMessage message.", e);
+        }
+    }
 
-            byte[] messageBytes = xmlMessage.getXmlMessage().getBytes(StandardCharsets.UTF_8);
 
-            //Message is 14 + xmlMessage.length bytes.
-            ByteBuffer tempOutputByteBuffer = ByteBuffer.allocate(14 + messageBytes.length);
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
 
-            //ackNumber converted to bytes
-            byte[] ackNumberBytes = intToBytes(xmlMessage.getAckNumber(), 2);
+        try {
 
-            //Timestamp converted to bytes.
-            byte[] timestampBytes = longToBytes(xmlMessage.getTimeStamp(), 6);
+            //Downcast.
+            XMLMessage xmlMessage = (XMLMessage) message;
 
-            //sequenceNumber converted to bytes
-            byte[] sequenceNumberBytes = intToBytes(xmlMessage.getSequenceNumber(), 2);
+            byte[] messageBytes = xmlMessage.getEncodedXml();
 
-            //xmlMsgLength converted to bytes
-            byte[] xmlMsgLengthBytes = intToBytes(xmlMessage.getXmlMsgLength(), 2);
+            int start = destination.position();
 
+            byte versionNumber = xmlMessage.getVersionNumber();
+            if (xmlMessage.isCompressed()) {
+                versionNumber |= CompressedVersionFlag;
+            }
 
-            tempOutputByteBuffer.put(xmlMessage.getVersionNumber());
-            tempOutputByteBuffer.put(ackNumberBytes);
-            tempOutputByteBuffer.put(timestampBytes);
-            tempOutputByteBuffer.put(xmlMessage.getXmlMsgSubType().getValue());
-            tempOutputByteBuffer.put(sequenceNumberBytes);
-            tempOutputByteBuffer.put(xmlMsgLengthBytes);
-            tempOutputByteBuffer.put(messageBytes);
+            putInt8(destination, start, versionNumber);
+            putInt16(destination, start + 1, xmlMessage.getAckNumber());
+            putInt48(destination, start + 3, xmlMessage.getTimeStamp());
+            putInt8(destination, start + 9, xmlMessage.getXmlMsgSubType().getValue());
+            putInt16(destination, start + 10, xmlMessage.getSequenceNumber());
+            putInt16(destination, start + 12, messageBytes.length);
 
-            return tempOutputByteBuffer.array();
+            destination.position(start + HeaderLength);
+            destination.put(messageBytes);
 
         } catch (Exception e) {
             throw new InvalidMessageException("Could not encode XMLMessage message.", e);
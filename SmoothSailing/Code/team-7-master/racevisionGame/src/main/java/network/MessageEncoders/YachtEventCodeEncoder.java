@@ -6,38 +6,41 @@ import network.Messages.YachtEvent;
 
 import java.nio.ByteBuffer;
 
-import static network.Utils.ByteConverter.intToBytes;
-import static network.Utils.ByteConverter.longToBytes;
+import static network.Utils.ByteCodec.*;
 
 /**
  * Encodes a {@link YachtEvent} message.
  */
 public class YachtEventCodeEncoder implements MessageEncoder {
+
+    /**
+     * Length of an encoded YachtEvent message.
+     */
+    public static final int MessageLength = 22;
+
     @Override
-    public byte[] encode(AC35Data message) throws InvalidMessageException {
-        // Downcast message
-        YachtEvent yachtEvent = (YachtEvent)message;
-
-        // Serialise message
-        byte messageVersion = 0b10;
-        byte[] timestamp = longToBytes(yachtEvent.getCurrentTime(), 6);
-        byte[] ackNum = intToBytes(yachtEvent.getAckNum(), 2);
-        byte[] raceID = intToBytes(yachtEvent.getRaceID());
-        byte[] sourceID = intToBytes(yachtEvent.getSourceID());
-        byte[] incidentID = intToBytes(yachtEvent.getIncidentID());
-        byte eventID = yachtEvent.getYachtEvent().getValue();
-
-        // Pack bytes into string
-        ByteBuffer yachtEventMessage = ByteBuffer.allocate(22);
-        yachtEventMessage.put(messageVersion);
-        yachtEventMessage.put(timestamp);
-        yachtEventMessage.put(ackNum);
-        yachtEventMessage.put(raceID);
-        yachtEventMessage.put(sourceID);
-        yachtEventMessage.put(incidentID);
-        yachtEventMessage.put(eventID);
-
-        // Return byte string
-        return yachtEventMessage.array();
+    public int getEncodedLength(AC35Data message) {
+        return MessageLength;
+    }
+
+    @Override
+    public void encode(AC35Data message, ByteBuffer destination) throws InvalidMessageException {
+        try {
+            // Downcast message
+            YachtEvent yachtEvent = (YachtEvent)message;
+
+            // Serialise message
+            int messageVersion = 0b10;
+            putInt8(destination, messageVersion);
+            putInt48(destination, yachtEvent.getCurrentTime());
+            putInt16(destination, yachtEvent.getAckNum());
+            putInt32(destination, yachtEvent.getRaceID());
+            putInt32(destination, yachtEvent.getSourceID());
+            putInt32(destination, yachtEvent.getIncidentID());
+            putInt8(destination, yachtEvent.getYachtEvent().getValue());
+
+        } catch (Exception e) {
+            throw new InvalidMessageException("Could not encode YachtEvent message.", e);
+        }
     }
 }
@@ -6,15 +6,28 @@ import network.Messages.Enums.MessageType;
 import org.jetbrains.annotations.NotNull;
 import shared.model.RunnableWithFramePeriod;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * This class routes {@link network.Messages.AC35Data} messages to an appropriate message controller.
+ * <br>
+ * A router created with {@link #MessageRouter()} routes inline: each message placed on its {@link #getIncomingMessageQueue() incoming queue} is routed immediately, on the thread which placed it (e.g., a {@link network.StreamRelated.MessageDeserialiser}'s), and {@link #run()} is not needed.
+ * A router created with {@link #MessageRouter(BlockingQueue)} reads from the given queue in {@link #run()}, on its own thread.
+ * <br>
+ * Routes are kept in an array indexed by {@link MessageType#ordinal()}, which is copied whenever a route changes, so routing a message takes no lock, and routes may be changed from any thread.
  */
 public class MessageRouter implements RunnableWithFramePeriod {
 
@@ -26,9 +39,10 @@ public class MessageRouter implements RunnableWithFramePeriod {
 
 
     /**
-     * The routing map, which maps from a {@link MessageType} to a message queue.
+     * The routing table. Index {@link MessageType#ordinal()} holds the queue for that type of message, or null if it has no route.
+     * Never modified once published - {@link #addRoutes(Set, BlockingQueue)} and {@link #removeRoute(MessageType)} replace it with a modified copy.
      */
-    private Map<MessageType, BlockingQueue<AC35Data>> routeMap = new HashMap<>();
+    private volatile BlockingQueue<AC35Data>[] routes = newRouteTable();
 
 
     /**
@@ -36,12 +50,31 @@ public class MessageRouter implements RunnableWithFramePeriod {
      * Messages without routes are sent here.
      * Nothing by default, which means unrouted messages are discarded
      */
-    private Optional<BlockingQueue<AC35Data>> defaultRoute = Optional.empty();
+    private volatile Optional<BlockingQueue<AC35Data>> defaultRoute = Optional.empty();
+
+
+    /**
+     * Unrouted messages held by {@link #holdUnroutedMessages()}, oldest first. Guarded by this.
+     */
+    private List<AC35Data> heldMessages;
+
+
+    /**
+     * Number of messages discarded because they had no route.
+     */
+    private final AtomicLong discardedCount = new AtomicLong();
 
 
 
     /**
-     * Constructs a {@link MessageRouter} with a given incoming message queue.
+     * Constructs a {@link MessageRouter} which routes inline, on the thread which places each message on its {@link #getIncomingMessageQueue() incoming queue}.
+     */
+    public MessageRouter() {
+        this.incomingMessages = new RoutingQueue();
+    }
+
+    /**
+     * Constructs a {@link MessageRouter} with a given incoming message queue, which it reads from in {@link #run()}.
      * @param incomingMessages Incoming message queue to read from.
      */
     public MessageRouter(BlockingQueue<AC35Data> incomingMessages) {
@@ -49,6 +82,16 @@ public class MessageRouter implements RunnableWithFramePeriod {
     }
 
 
+    /**
+     * Creates an empty routing table.
+     * @return Routing table with no routes.
+     */
+    @SuppressWarnings("unchecked")
+    private static BlockingQueue<AC35Data>[] newRouteTable() {
+        return (BlockingQueue<AC35Data>[]) new BlockingQueue[MessageType.values().length];
+    }
+
+
     /**
      * Returns the queue the message router reads from.
      * Place messages onto this queue to pass them to the router.
@@ -61,34 +104,163 @@ public class MessageRouter implements RunnableWithFramePeriod {
 
     /**
      * Adds a route, which routes a given type of message to a given queue.
+     * If unrouted messages are being {@link #holdUnroutedMessages() held}, any of this type are passed to the queue first, in the order they arrived.
      * @param messageType The message type to route.
      * @param queue The queue to route messages to.
      */
     public void addRoute(MessageType messageType, BlockingQueue<AC35Data> queue) {
-        routeMap.put(messageType, queue);
+        addRoutes(EnumSet.of(messageType), queue);
+    }
+
+    /**
+     * Adds routes for several types of message to a given queue, all published at once.
+     * If unrouted messages are being {@link #holdUnroutedMessages() held}, any of these types are passed to the queue first, in the order they arrived.
+     * Until this returns, only the calling thread places messages on the queue, so it may be a single-producer queue.
+     * @param messageTypes The message types to route.
+     * @param queue The queue to route messages to.
+     */
+    public synchronized void addRoutes(Set<MessageType> messageTypes, BlockingQueue<AC35Data> queue) {
+
+        //Held messages are passed on before the routes are published, so that newer messages cannot overtake them.
+        if (heldMessages != null) {
+            Iterator<AC35Data> iterator = heldMessages.iterator();
+            while (iterator.hasNext()) {
+                AC35Data message = iterator.next();
+                if (messageTypes.contains(message.getType())) {
+                    iterator.remove();
+                    putUninterruptibly(queue, message);
+                }
+            }
+        }
+
+        BlockingQueue<AC35Data>[] newRoutes = routes.clone();
+        for (MessageType messageType : messageTypes) {
+            newRoutes[messageType.ordinal()] = queue;
+        }
+        routes = newRoutes;
     }
 
     /**
      * Removes the route for a given {@link MessageType}.
      * @param messageType MessageType to remove route for.
      */
-    public void removeRoute(MessageType messageType) {
-        routeMap.remove(messageType);
+    public synchronized void removeRoute(MessageType messageType) {
+        BlockingQueue<AC35Data>[] newRoutes = routes.clone();
+        newRoutes[messageType.ordinal()] = null;
+        routes = newRoutes;
     }
 
     /**
      * Adds a given queue as the default route for any unrouted message types.
-     * @param queue Queue to use as default route.
+     * @param queue Queue to use as default route. For an inline router, this cannot be its own incoming queue - use {@link #holdUnroutedMessages()} instead.
      */
     public void addDefaultRoute(@NotNull BlockingQueue<AC35Data> queue) {
+        if (queue == incomingMessages && incomingMessages instanceof RoutingQueue) {
+            throw new IllegalArgumentException("An inline MessageRouter cannot route to its own incoming queue.");
+        }
         defaultRoute = Optional.of(queue);
     }
 
     /**
-     * Removes the current default route, if it exists.
+     * Removes the current default route, if it exists. Any {@link #holdUnroutedMessages() held} messages are discarded, and unrouted messages are no longer held.
      */
-    public void removeDefaultRoute() {
+    public synchronized void removeDefaultRoute() {
         defaultRoute = Optional.empty();
+
+        if (heldMessages != null) {
+            discardedCount.addAndGet(heldMessages.size());
+            heldMessages = null;
+        }
+    }
+
+    /**
+     * Holds any unrouted messages until a route is added for them, or {@link #removeDefaultRoute()} is called. This ensures that no messages are lost while setting up routes (e.g., an XML message being received before its route is added).
+     */
+    public synchronized void holdUnroutedMessages() {
+        if (heldMessages == null) {
+            heldMessages = new ArrayList<>();
+        }
+    }
+
+
+    /**
+     * Returns the number of messages discarded because they had no route.
+     * @return Number of discarded messages.
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+
+
+    /**
+     * Routes a message to the queue for its type, or the default route if it has none.
+     * @param message The message to route.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting for space on the queue.
+     */
+    public void route(AC35Data message) throws InterruptedException {
+
+        BlockingQueue<AC35Data> queue = routes[message.getType().ordinal()];
+
+        if (queue != null) {
+            queue.put(message);
+            return;
+        }
+
+        //No route. Use default.
+        BlockingQueue<AC35Data> defaultQueue = defaultRoute.orElse(null);
+
+        if (defaultQueue != null) {
+            defaultQueue.put(message);
+            return;
+        }
+
+        routeUnrouted(message);
+    }
+
+
+    /**
+     * Routes a message which had no route when {@link #route(AC35Data)} looked. The route may have been added since then.
+     * Otherwise, the message is held, or discarded.
+     * @param message The message to route.
+     */
+    private synchronized void routeUnrouted(AC35Data message) {
+
+        BlockingQueue<AC35Data> queue = routes[message.getType().ordinal()];
+
+        if (queue != null) {
+            putUninterruptibly(queue, message);
+
+        } else if (heldMessages != null) {
+            heldMessages.add(message);
+
+        } else {
+            discardedCount.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Places a message on a queue, waiting for space if needed. If the thread is interrupted while waiting, it keeps waiting, and is re-interrupted afterwards.
+     * @param queue The queue.
+     * @param message The message.
+     */
+    private static void putUninterruptibly(BlockingQueue<AC35Data> queue, AC35Data message) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                queue.put(message);
+                break;
+
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
 
 
@@ -102,30 +274,97 @@ public class MessageRouter implements RunnableWithFramePeriod {
 
                 AC35Data message = incomingMessages.take();
 
+                route(message);
 
-                BlockingQueue<AC35Data> queue = routeMap.get(message.getType());
 
-                if (queue != null) {
-                    queue.put(message);
+            } catch (InterruptedException e) {
+                Logger.getGlobal().log(Level.SEVERE, "MessageRouter: " + this + " was interrupted on thread: " + Thread.currentThread() + " while reading message.", e);
+                Thread.currentThread().interrupt();
 
-                } else {
-                    //No route. Use default.
-                    BlockingQueue<AC35Data> defaultQueue = defaultRoute.orElse(null);
+            }
 
-                    if (defaultQueue != null) {
-                        defaultQueue.put(message);
-                    }
+        }
 
-                }
+    }
 
 
+
+    /**
+     * The incoming queue of an inline router. Each message placed on it is {@link #route(AC35Data) routed} immediately - nothing is ever queued, so it is always empty.
+     */
+    private class RoutingQueue extends AbstractQueue<AC35Data> implements BlockingQueue<AC35Data> {
+
+        /**
+         * Routes a message. If the thread is interrupted while waiting for space on the route's queue, the message is discarded, and the thread is re-interrupted.
+         * @param message The message to route.
+         * @return True.
+         */
+        @Override
+        public boolean offer(AC35Data message) {
+            try {
+                route(message);
+
             } catch (InterruptedException e) {
-                Logger.getGlobal().log(Level.SEVERE, "MessageRouter: " + this + " was interrupted on thread: " + Thread.currentThread() + " while reading message.", e);
+                discardedCount.incrementAndGet();
                 Thread.currentThread().interrupt();
-
             }
+            return true;
+        }
+
+        @Override
+        public void put(AC35Data message) throws InterruptedException {
+            route(message);
+        }
+
+        @Override
+        public boolean offer(AC35Data message, long timeout, TimeUnit unit) throws InterruptedException {
+            route(message);
+            return true;
+        }
+
+        @Override
+        public AC35Data take() throws InterruptedException {
+            throw new UnsupportedOperationException("An inline MessageRouter's incoming queue cannot be read from.");
+        }
 
+        @Override
+        public AC35Data poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return null;
         }
 
+        @Override
+        public AC35Data poll() {
+            return null;
+        }
+
+        @Override
+        public AC35Data peek() {
+            return null;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int drainTo(Collection<? super AC35Data> collection) {
+            return 0;
+        }
+
+        @Override
+        public int drainTo(Collection<? super AC35Data> collection, int maxElements) {
+            return 0;
+        }
+
+        @Override
+        public Iterator<AC35Data> iterator() {
+            return Collections.emptyIterator();
+        }
     }
 }
@@ -0,0 +1,180 @@
+package network.Messages;
+
+
+import network.Messages.Enums.MessageType;
+
+
+/**
+ * A compact update of every boat's position, heading, and speed, sent instead of one {@link BoatLocation} per boat to clients which ask for it.
+ * <br>
+ * A keyframe holds each boat's absolute, packed latitude and longitude (see {@link network.Utils.AC35UnitConverter#packGPS(double)}).
+ * A delta holds each boat's quantised offset from its position in the keyframe with the same {@link #getKeyframeNumber() keyframe number}. Offsets are always from the keyframe, never from the previous delta, so quantisation error doesn't build up.
+ * Headings and speeds are always absolute.
+ * <br>
+ * See {@link network.Utils.BoatLocationDeltaCompressor} and {@link network.Utils.BoatLocationDeltaExpander}.
+ */
+public class BoatLocationDelta extends AC35Data {
+
+    /**
+     * The current version number of this message type.
+     */
+    public static final byte currentMessageVersionNumber = 1;
+
+
+    /**
+     * Whether this is a keyframe (absolute positions) or a delta (offsets from a keyframe).
+     */
+    private final boolean keyframe;
+
+    /**
+     * The keyframe this is, or is relative to. Wraps around after 65535.
+     */
+    private final int keyframeNumber;
+
+    /**
+     * Number of bits each delta offset is shifted right by. An offset of 1 is 2^shift packed GPS units.
+     */
+    private final int quantisationShift;
+
+    /**
+     * Time of the update, in milliseconds since the epoch.
+     */
+    private final long time;
+
+    /**
+     * Source ID of each boat.
+     */
+    private final int[] sourceIDs;
+
+    /**
+     * Packed latitude of each boat, or its quantised offset from the keyframe.
+     */
+    private final int[] latitudes;
+
+    /**
+     * Packed longitude of each boat, or its quantised offset from the keyframe.
+     */
+    private final int[] longitudes;
+
+    /**
+     * Packed heading of each boat. See {@link network.Utils.AC35UnitConverter#packHeading(double)}.
+     */
+    private final int[] headings;
+
+    /**
+     * Speed of each boat, in millimeters per second.
+     */
+    private final int[] speeds;
+
+
+    /**
+     * Constructs a BoatLocationDelta message. The arrays are not copied, and must all be the same length.
+     * @param keyframe Whether this is a keyframe.
+     * @param keyframeNumber The keyframe this is, or is relative to.
+     * @param quantisationShift Number of bits each delta offset is shifted right by.
+     * @param time Time of the update, in milliseconds since the epoch.
+     * @param sourceIDs Source ID of each boat.
+     * @param latitudes Packed latitude of each boat, or its quantised offset.
+     * @param longitudes Packed longitude of each boat, or its quantised offset.
+     * @param headings Packed heading of each boat.
+     * @param speeds Speed of each boat, in millimeters per second.
+     */
+    public BoatLocationDelta(boolean keyframe, int keyframeNumber, int quantisationShift, long time, int[] sourceIDs, int[] latitudes, int[] longitudes, int[] headings, int[] speeds) {
+        super(MessageType.BOATLOCATION_DELTA);
+        this.keyframe = keyframe;
+        this.keyframeNumber = keyframeNumber;
+        this.quantisationShift = quantisationShift;
+        this.time = time;
+        this.sourceIDs = sourceIDs;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.headings = headings;
+        this.speeds = speeds;
+    }
+
+
+    /**
+     * Returns whether this is a keyframe, holding absolute positions.
+     * @return True if this is a keyframe.
+     */
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /**
+     * Returns the number of the keyframe this is, or is relative to.
+     * @return The keyframe number.
+     */
+    public int getKeyframeNumber() {
+        return keyframeNumber;
+    }
+
+    /**
+     * Returns the number of bits each delta offset is shifted right by.
+     * @return The quantisation shift.
+     */
+    public int getQuantisationShift() {
+        return quantisationShift;
+    }
+
+    /**
+     * Returns the time of the update.
+     * @return Time, in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the number of boats in the update.
+     * @return Number of boats.
+     */
+    public int getBoatCount() {
+        return sourceIDs.length;
+    }
+
+    /**
+     * Returns the source ID of a boat.
+     * @param index Index of the boat in the update.
+     * @return The boat's source ID.
+     */
+    public int getSourceID(int index) {
+        return sourceIDs[index];
+    }
+
+    /**
+     * Returns the packed latitude of a boat, or its quantised offset from the keyframe.
+     * @param index Index of the boat in the update.
+     * @return Latitude or offset.
+     */
+    public int getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    /**
+     * Returns the packed longitude of a boat, or its quantised offset from the keyframe.
+     * @param index Index of the boat in the update.
+     * @return Longitude or offset.
+     */
+    public int getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Returns the packed heading of a boat.
+     * @param index Index of the boat in the update.
+     * @return Packed heading.
+     */
+    public int getHeading(int index) {
+        return headings[index];
+    }
+
+    /**
+     * Returns the speed of a boat.
+     * @param index Index of the boat in the update.
+     * @return Speed, in millimeters per second.
+     */
+    public int getSpeed(int index) {
+        return speeds[index];
+    }
+}
@@ -45,6 +45,11 @@ public enum MessageType {
 
     BOATSTATE(103),
 
+    /**
+     * This is used for {@link network.Messages.BoatLocationDelta} messages. Only sent to clients which ask for them in their {@link network.Messages.RequestToJoin}.
+     */
+    BOATLOCATION_DELTA(110),
+
     NOTAMESSAGE(0);
 
 
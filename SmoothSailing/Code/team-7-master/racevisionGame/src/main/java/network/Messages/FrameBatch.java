@@ -0,0 +1,111 @@
+package network.Messages;
+
+
+import network.Messages.Enums.MessageType;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * A batch of messages that have already been encoded into complete binary messages (header, body, and CRC), back to back.
+ * It is immutable, so a single batch can be shared by every client - see {@link network.MessageEncoders.RaceVisionByteEncoder#encodeFrameBatch(java.util.List, int)}.
+ * This is not a message itself, so its type is {@link MessageType#NOTAMESSAGE}. {@link network.StreamRelated.MessageSerialiser} writes its bytes as-is.
+ */
+public class FrameBatch extends AC35Data {
+
+    /**
+     * The encoded binary messages.
+     */
+    private final byte[] frames;
+
+    /**
+     * The number of binary messages in {@link #frames}.
+     */
+    private final int messageCount;
+
+    /**
+     * Whether a newer batch makes this one redundant, as with race snapshots. If false (e.g., mark positions, a keyframe, or a snapshot holding a collision event), the batch must always be sent.
+     */
+    private final boolean supersedable;
+
+    /**
+     * Whether the batch holds a {@link BoatLocationDelta} keyframe, which the deltas in later batches refer to.
+     */
+    private final boolean keyframe;
+
+
+    /**
+     * Constructs a supersedable batch from already encoded binary messages. The array is not copied, and must not be modified afterwards.
+     * @param frames The encoded binary messages, back to back.
+     * @param messageCount The number of binary messages.
+     */
+    public FrameBatch(byte[] frames, int messageCount) {
+        this(frames, messageCount, true);
+    }
+
+    /**
+     * Constructs a batch from already encoded binary messages. The array is not copied, and must not be modified afterwards.
+     * @param frames The encoded binary messages, back to back.
+     * @param messageCount The number of binary messages.
+     * @param supersedable Whether a newer batch makes this one redundant. See {@link #isSupersedable()}.
+     */
+    public FrameBatch(byte[] frames, int messageCount, boolean supersedable) {
+        this(frames, messageCount, supersedable, false);
+    }
+
+    /**
+     * Constructs a batch from already encoded binary messages. The array is not copied, and must not be modified afterwards.
+     * @param frames The encoded binary messages, back to back.
+     * @param messageCount The number of binary messages.
+     * @param supersedable Whether a newer batch makes this one redundant. See {@link #isSupersedable()}.
+     * @param keyframe Whether the batch holds a {@link BoatLocationDelta} keyframe. See {@link #isKeyframe()}.
+     */
+    public FrameBatch(byte[] frames, int messageCount, boolean supersedable, boolean keyframe) {
+        super(MessageType.NOTAMESSAGE);
+        this.frames = frames;
+        this.messageCount = messageCount;
+        this.supersedable = supersedable;
+        this.keyframe = keyframe;
+    }
+
+
+    /**
+     * Returns a read-only view of the encoded binary messages. Each call returns a new view, so each client can write from its own position.
+     * @return The encoded binary messages.
+     */
+    public ByteBuffer getFrames() {
+        return ByteBuffer.wrap(frames).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the total length, in bytes, of the encoded binary messages.
+     * @return Length of the batch.
+     */
+    public int getLength() {
+        return frames.length;
+    }
+
+    /**
+     * Returns the number of binary messages in the batch.
+     * @return Number of binary messages.
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Returns whether a newer batch makes this one redundant, so it may be dropped if the client falls behind.
+     * @return True if the batch may be dropped in favour of a newer one.
+     */
+    public boolean isSupersedable() {
+        return supersedable;
+    }
+
+    /**
+     * Returns whether the batch holds a {@link BoatLocationDelta} keyframe. Batches sent after it may hold deltas which refer to it, so they must not overtake it.
+     * @return True if the batch holds a keyframe.
+     */
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+}
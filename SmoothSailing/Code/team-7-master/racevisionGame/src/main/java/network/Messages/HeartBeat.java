@@ -5,9 +5,15 @@ import network.Messages.Enums.MessageType;
 
 /**
  * Represents a Heartbeat message.
+ * A heartbeat whose sequence number has {@link #echoFlag} set is an echo - a peer sending back a heartbeat it received, so the sender can measure the round trip time. Peers which don't know about echoes just see a heartbeat.
  */
 public class HeartBeat extends AC35Data {
 
+    /**
+     * Set in the sequence number of an echoed heartbeat. Heartbeats are numbered from 1, so an original heartbeat never has this bit set.
+     */
+    public static final long echoFlag = 0x80000000L;
+
     /**
      * Sequence number of the heartbeat.
      */
@@ -29,4 +35,20 @@ public class HeartBeat extends AC35Data {
     public long getSequenceNumber() {
         return sequenceNumber;
     }
+
+    /**
+     * Returns whether this heartbeat is an echo of one we sent.
+     * @return True if this is an echo.
+     */
+    public boolean isEcho() {
+        return (sequenceNumber & echoFlag) != 0;
+    }
+
+    /**
+     * Creates an echo of this heartbeat, to send back to its sender.
+     * @return The echo.
+     */
+    public HeartBeat createEcho() {
+        return new HeartBeat(sequenceNumber | echoFlag);
+    }
 }
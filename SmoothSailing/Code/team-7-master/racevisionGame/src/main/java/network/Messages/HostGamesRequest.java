@@ -8,16 +8,39 @@ public class HostGamesRequest extends AC35Data{
 
     private List<HostGame> knownGames;
 
+    /**
+     * Whether the games are sent deflated. A browser subscribes with a compressed request to ask to be sent compressed lists.
+     */
+    private boolean compressed;
+
     /**
      * Constructor
      * @param knownGames games known by sender
      */
     public HostGamesRequest(List knownGames) {
+        this(knownGames, false);
+    }
+
+    /**
+     * Constructor
+     * @param knownGames games known by sender
+     * @param compressed whether the games are sent deflated
+     */
+    public HostGamesRequest(List knownGames, boolean compressed) {
         super(MessageType.HOSTED_GAMES_REQUEST);
         this.knownGames = knownGames;
+        this.compressed = compressed;
     }
 
     public List<HostGame> getKnownGames() {
         return knownGames;
     }
+
+    /**
+     * Returns whether the games are sent deflated.
+     * @return True if the request is compressed.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
 }
@@ -1,37 +1,42 @@
 package network.Messages;
 
-import mock.model.RaceServer;
-import network.Messages.Enums.XMLMessageType;
+import network.AckSequencer;
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RaceVisionByteEncoder;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This class contains a set of the latest messages received (e.g., the latest RaceStatus, the latest BoatLocation for each boat, etc...).
- * Currently, LatestMessage only notifies observers of change when a new XMLMessage is received.
+ * They are held in an immutable, versioned {@link RaceSnapshot}. The race thread publishes a new one each time anything changes, and every client reads the latest without locking or copying, and only sends it if its version is newer than the last one it sent.
  */
-public class LatestMessages extends Observable {
+public class LatestMessages {
 
 
     /**
-     * A list of messages containing a snapshot of the race.
+     * The latest snapshot. Replaced, never modified.
      */
-    private List<AC35Data> snapshot = new ArrayList<>();
-
+    private final AtomicReference<RaceSnapshot> latest = new AtomicReference<>(new RaceSnapshot(new ArrayList<>()));
 
     /**
-     * The latest race data XML message.
+     * Number of threads waiting in {@link #awaitNewerThan(long, long)}. Publishing only takes {@link #publishLock}, to wake them, if there are any.
      */
-    private XMLMessage raceXMLMessage;
+    private final AtomicInteger waiting = new AtomicInteger();
 
     /**
-     * The latest boat data XML message.
+     * Notified when a snapshot is published, if anyone is {@link #waiting}.
      */
-    private XMLMessage boatXMLMessage;
+    private final Object publishLock = new Object();
 
     /**
-     * The latest regatta data XML message.
+     * Number of connected clients which asked for {@link BoatLocationDelta}s. The compact snapshot is only built while there are any.
      */
-    private XMLMessage regattaXMLMessage;
+    private final AtomicInteger deltaClients = new AtomicInteger();
 
 
     /**
@@ -42,22 +47,196 @@ public class LatestMessages extends Observable {
 
 
     /**
-     * Returns a copy of the race snapshot.
+     * Returns the latest snapshot.
      *
-     * @return Copy of the race snapshot.
+     * @return The latest snapshot.
+     */
+    public RaceSnapshot getLatest() {
+        return latest.get();
+    }
+
+
+    /**
+     * Records that a client which asked for {@link BoatLocationDelta}s has connected. Must be matched by one {@link #removeDeltaClient()} when it disconnects.
+     */
+    public void addDeltaClient() {
+        deltaClients.incrementAndGet();
+    }
+
+    /**
+     * Records that a client which asked for {@link BoatLocationDelta}s has disconnected.
+     */
+    public void removeDeltaClient() {
+        deltaClients.decrementAndGet();
+    }
+
+    /**
+     * Determines whether any connected client asked for {@link BoatLocationDelta}s, and so needs the compact snapshot.
+     * @return True if there are any.
+     */
+    public boolean hasDeltaClients() {
+        return deltaClients.get() > 0;
+    }
+
+
+    /**
+     * Publishes a new snapshot, made from the latest one. Everything changed by one update is published as one version, so readers never see half of it.
+     *
+     * @param update Makes the new snapshot from the latest one, using its with... methods. It may be called more than once, so must have no side effects.
+     * @return The snapshot published.
+     */
+    public RaceSnapshot publish(UnaryOperator<RaceSnapshot> update) {
+
+        RaceSnapshot previous;
+        RaceSnapshot next;
+        do {
+            previous = latest.get();
+            next = update.apply(previous).withVersionAfter(previous);
+
+        } while (!latest.compareAndSet(previous, next));
+
+
+        if (waiting.get() > 0) {
+            synchronized (publishLock) {
+                publishLock.notifyAll();
+            }
+        }
+
+        return next;
+    }
+
+
+    /**
+     * Waits until a snapshot newer than a given version is published, or a timeout elapses. Returns straight away if there already is one.
+     *
+     * @param version The version to wait for a newer snapshot than.
+     * @param timeoutMillis The longest time to wait, in milliseconds.
+     * @return The latest snapshot, which is only as new as version if the timeout elapsed.
+     * @throws InterruptedException Thrown if interrupted while waiting.
+     */
+    public RaceSnapshot awaitNewerThan(long version, long timeoutMillis) throws InterruptedException {
+
+        RaceSnapshot snapshot = latest.get();
+        if (snapshot.getVersion() > version) {
+            return snapshot;
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        waiting.incrementAndGet();
+        try {
+            synchronized (publishLock) {
+
+                snapshot = latest.get();
+                long remaining = timeoutMillis;
+
+                while (snapshot.getVersion() <= version && remaining > 0) {
+                    publishLock.wait(remaining);
+                    snapshot = latest.get();
+                    remaining = deadline - System.currentTimeMillis();
+                }
+
+                return snapshot;
+            }
+
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+
+    /**
+     * Returns the race snapshot. This is not a copy, and cannot be modified.
+     *
+     * @return The race snapshot.
      */
     public List<AC35Data> getSnapshot() {
-        return new ArrayList<>(snapshot);
+        return latest.get().getSnapshot();
     }
 
 
     /**
      * Sets the snapshot of the race.
      *
-     * @param snapshot New snapshot of race.
+     * @param snapshot New snapshot of race. The list must not be modified afterwards.
      */
     public void setSnapshot(List<AC35Data> snapshot) {
-        this.snapshot = snapshot;
+        publish(latest -> latest.withSnapshot(snapshot, latest.getSnapshotFrames()));
+    }
+
+
+    /**
+     * Returns the encoded race snapshot, which can be sent to every client as-is.
+     *
+     * @return The encoded race snapshot, or null if there isn't one.
+     */
+    public FrameBatch getSnapshotFrames() {
+        return latest.get().getSnapshotFrames();
+    }
+
+
+    /**
+     * Sets the encoded race snapshot. This should be the encoding of the latest {@link #setSnapshot(List)}.
+     *
+     * @param snapshotFrames The encoded race snapshot.
+     */
+    public void setSnapshotFrames(FrameBatch snapshotFrames) {
+        publish(latest -> latest.withSnapshotFrames(snapshotFrames));
+    }
+
+
+    /**
+     * Returns the encoded race snapshot for clients which asked for {@link BoatLocationDelta}s.
+     *
+     * @return The encoded compact race snapshot, or null if there isn't one.
+     */
+    public FrameBatch getCompactSnapshotFrames() {
+        return latest.get().getCompactSnapshotFrames();
+    }
+
+    /**
+     * Sets the encoded race snapshot for clients which asked for {@link BoatLocationDelta}s. Set the keyframe it refers to first.
+     *
+     * @param compactSnapshotFrames The encoded compact race snapshot.
+     */
+    public void setCompactSnapshotFrames(FrameBatch compactSnapshotFrames) {
+        publish(latest -> latest.withCompactSnapshotFrames(compactSnapshotFrames));
+    }
+
+    /**
+     * Returns the latest encoded {@link BoatLocationDelta} keyframe.
+     *
+     * @return The encoded keyframe, or null if there isn't one.
+     */
+    public FrameBatch getKeyframeFrames() {
+        return latest.get().getKeyframeFrames();
+    }
+
+    /**
+     * Sets the latest encoded {@link BoatLocationDelta} keyframe.
+     *
+     * @param keyframeFrames The encoded keyframe.
+     */
+    public void setKeyframeFrames(FrameBatch keyframeFrames) {
+        publish(latest -> latest.withKeyframeFrames(keyframeFrames));
+    }
+
+    /**
+     * Returns the encoded position of every mark.
+     *
+     * @return The encoded mark positions, or null if there aren't any.
+     */
+    public FrameBatch getMarkFrames() {
+        return latest.get().getMarkFrames();
+    }
+
+    /**
+     * Sets the encoded position of every mark. This should only be replaced when a mark moves.
+     *
+     * @param markFrames The encoded mark positions.
+     */
+    public void setMarkFrames(FrameBatch markFrames) {
+        publish(latest -> latest.withMarkFrames(markFrames));
     }
 
 
@@ -67,7 +246,7 @@ public class LatestMessages extends Observable {
      * @return The latest race xml message.
      */
     public XMLMessage getRaceXMLMessage() {
-        return raceXMLMessage;
+        return latest.get().getRaceXMLMessage();
     }
 
     /**
@@ -76,10 +255,7 @@ public class LatestMessages extends Observable {
      * @param raceXMLMessage The new race XML message to use.
      */
     public void setRaceXMLMessage(XMLMessage raceXMLMessage) {
-        this.raceXMLMessage = raceXMLMessage;
-
-        this.setChanged();
-        this.notifyObservers();
+        setXMLMessage(raceXMLMessage);
     }
 
 
@@ -89,7 +265,7 @@ public class LatestMessages extends Observable {
      * @return The latest boat xml message.
      */
     public XMLMessage getBoatXMLMessage() {
-        return boatXMLMessage;
+        return latest.get().getBoatXMLMessage();
     }
 
     /**
@@ -98,10 +274,7 @@ public class LatestMessages extends Observable {
      * @param boatXMLMessage The new boat XML message to use.
      */
     public void setBoatXMLMessage(XMLMessage boatXMLMessage) {
-        this.boatXMLMessage = boatXMLMessage;
-
-        this.setChanged();
-        this.notifyObservers();
+        setXMLMessage(boatXMLMessage);
     }
 
 
@@ -111,7 +284,7 @@ public class LatestMessages extends Observable {
      * @return The latest regatta xml message.
      */
     public XMLMessage getRegattaXMLMessage() {
-        return regattaXMLMessage;
+        return latest.get().getRegattaXMLMessage();
     }
 
     /**
@@ -120,30 +293,60 @@ public class LatestMessages extends Observable {
      * @param regattaXMLMessage The new regatta XML message to use.
      */
     public void setRegattaXMLMessage(XMLMessage regattaXMLMessage) {
-        this.regattaXMLMessage = regattaXMLMessage;
+        setXMLMessage(regattaXMLMessage);
+    }
 
-        this.setChanged();
-        this.notifyObservers();
+
+    /**
+     * Returns an XML message ready to send: the shared, already encoded {@link FrameBatch} if it is one of the latest XML messages, otherwise the message itself.
+     *
+     * @param xmlMessage An XML message, usually from {@link #getRaceXMLMessage()}, {@link #getBoatXMLMessage()}, or {@link #getRegattaXMLMessage()}.
+     * @return The encoded message, or the message itself if it hasn't been encoded.
+     */
+    public AC35Data getEncodedXMLMessage(XMLMessage xmlMessage) {
+        return latest.get().getEncodedXMLMessage(xmlMessage);
+    }
+
+    /**
+     * Returns an XML message ready to send, deflated if the client asked for compression. See {@link #getEncodedXMLMessage(XMLMessage)}.
+     *
+     * @param xmlMessage An XML message.
+     * @param compressed Whether the client asked for compression.
+     * @return The encoded message, or the message itself if it hasn't been encoded.
+     */
+    public AC35Data getEncodedXMLMessage(XMLMessage xmlMessage, boolean compressed) {
+        return latest.get().getEncodedXMLMessage(xmlMessage, compressed);
     }
 
+
     /**
-     * Checks the type of xml message, and places it in this LatestMessages object.
+     * Checks the type of xml message, and places it in this LatestMessages object. It is encoded once, here, both plain and deflated, to be shared by every client.
      *
      * @param xmlMessage The new xml message to use.
      */
     public void setXMLMessage(XMLMessage xmlMessage) {
 
-        if (xmlMessage.getXmlMsgSubType() == XMLMessageType.RACE) {
-            this.setRaceXMLMessage(xmlMessage);
-
-        } else if (xmlMessage.getXmlMsgSubType() == XMLMessageType.REGATTA) {
-            this.setRegattaXMLMessage(xmlMessage);
+        FrameBatch frames = encodeXMLMessage(xmlMessage);
+        FrameBatch compressedFrames = encodeXMLMessage(xmlMessage.compressed());
 
-        } else if (xmlMessage.getXmlMsgSubType() == XMLMessageType.BOAT) {
-            this.setBoatXMLMessage(xmlMessage);
+        publish(latest -> latest.withXMLMessage(xmlMessage, frames, compressedFrames));
+    }
 
+    /**
+     * Encodes an XML message, to be shared by every client.
+     *
+     * @param xmlMessage The message.
+     * @return The encoded message, or null if it could not be encoded, in which case each client encodes it.
+     */
+    private static FrameBatch encodeXMLMessage(XMLMessage xmlMessage) {
+        try {
+            //XML messages must always be sent, so they can't be superseded.
+            return RaceVisionByteEncoder.encodeFrameBatch(Collections.<AC35Data>singletonList(xmlMessage), AckSequencer.getNextAckNum(), false);
+
+        } catch (InvalidMessageException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not encode XML message. Clients will encode it themselves.", e);
+            return null;
         }
-
     }
 
     /**
@@ -152,15 +355,24 @@ public class LatestMessages extends Observable {
      * @return True if race, boat, and regatta have an xml message, false otherwise.
      */
     public boolean hasAllXMLMessages() {
-        if (this.regattaXMLMessage == null || this.boatXMLMessage == null ||
-                this.raceXMLMessage == null) {
-            return false;
+        return latest.get().hasAllXMLMessages();
+    }
+
+    /**
+     * Waits until there is an xml message for each message type. Returns straight away if there already is.
+     *
+     * @return The first snapshot found with every xml message.
+     * @throws InterruptedException Thrown if interrupted while waiting.
+     */
+    public RaceSnapshot awaitAllXMLMessages() throws InterruptedException {
 
-        } else {
-            return true;
+        RaceSnapshot snapshot = latest.get();
 
+        while (!snapshot.hasAllXMLMessages()) {
+            snapshot = awaitNewerThan(snapshot.getVersion(), 1000);
         }
 
+        return snapshot;
     }
 
 }
@@ -1,41 +1,305 @@
 package network.Messages;
 
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 
 /**
- * Represents a snapshot of the race's state.
- * Contains a list of {@link AC35Data} messages.
- * Send a copy of each message to a connected client.
+ * Represents a snapshot of the race's state: the latest race snapshot messages, their shared encodings, and the race/boat/regatta XML messages.
+ * It is immutable, so one snapshot can be read by every client's thread at once without copying. {@link LatestMessages} publishes a new one, with a higher {@link #getVersion()}, each time anything in it changes.
  */
 public class RaceSnapshot {
 
     /**
-     * The contents of the snapshot.
+     * An XML message, and the same message already encoded as a complete binary message. XML messages are large, and every client is sent them, so each is only encoded once.
      */
-    private List<AC35Data> snapshot;
+    static class EncodedXMLMessage {
+
+        private final XMLMessage message;
+
+        /**
+         * The encoded message. Null if it could not be encoded, in which case each client encodes it.
+         */
+        private final FrameBatch frames;
+
+        /**
+         * The encoded message, with its xml deflated, for clients which asked for compression. Null if it could not be encoded.
+         */
+        private final FrameBatch compressedFrames;
+
+        EncodedXMLMessage(XMLMessage message, FrameBatch frames, FrameBatch compressedFrames) {
+            this.message = message;
+            this.frames = frames;
+            this.compressedFrames = compressedFrames;
+        }
+    }
+
+
+    /**
+     * Version of this snapshot. Each snapshot {@link LatestMessages} publishes has a higher version than the one before it.
+     */
+    private final long version;
+
+    /**
+     * Version of the snapshot in which an XML message last changed.
+     */
+    private final long xmlVersion;
+
+    /**
+     * The contents of the snapshot. Unmodifiable.
+     */
+    private final List<AC35Data> snapshot;
+
+    /**
+     * The race snapshot, already encoded. May be null.
+     */
+    private final FrameBatch snapshotFrames;
+
+    /**
+     * The race snapshot for clients which asked for {@link BoatLocationDelta}s, already encoded. May be null.
+     */
+    private final FrameBatch compactSnapshotFrames;
+
+    /**
+     * The latest {@link BoatLocationDelta} keyframe, already encoded. May be null.
+     */
+    private final FrameBatch keyframeFrames;
+
+    /**
+     * The position of every mark, already encoded. May be null.
+     */
+    private final FrameBatch markFrames;
+
+    /**
+     * The latest race, boat, and regatta XML messages. Each may be null.
+     */
+    private final EncodedXMLMessage raceXMLMessage;
+    private final EncodedXMLMessage boatXMLMessage;
+    private final EncodedXMLMessage regattaXMLMessage;
 
 
     /**
-     * Constructs a snapshot using a given list of messages.
-     * @param snapshot Messages to use as snapshot.
+     * Constructs a snapshot using a given list of messages, with nothing else in it.
+     * @param snapshot Messages to use as snapshot. The list must not be modified afterwards.
      */
     public RaceSnapshot(List<AC35Data> snapshot) {
+        this(0, 0, Collections.unmodifiableList(snapshot), null, null, null, null, null, null, null);
+    }
+
+    private RaceSnapshot(long version, long xmlVersion, List<AC35Data> snapshot, FrameBatch snapshotFrames, FrameBatch compactSnapshotFrames, FrameBatch keyframeFrames, FrameBatch markFrames, EncodedXMLMessage raceXMLMessage, EncodedXMLMessage boatXMLMessage, EncodedXMLMessage regattaXMLMessage) {
+        this.version = version;
+        this.xmlVersion = xmlVersion;
         this.snapshot = snapshot;
+        this.snapshotFrames = snapshotFrames;
+        this.compactSnapshotFrames = compactSnapshotFrames;
+        this.keyframeFrames = keyframeFrames;
+        this.markFrames = markFrames;
+        this.raceXMLMessage = raceXMLMessage;
+        this.boatXMLMessage = boatXMLMessage;
+        this.regattaXMLMessage = regattaXMLMessage;
+    }
+
+
+    /**
+     * Returns a copy of this snapshot, with new snapshot messages and their encoding.
+     * @param snapshot The messages. The list must not be modified afterwards.
+     * @param snapshotFrames The encoded messages. May be null.
+     * @return The new snapshot.
+     */
+    public RaceSnapshot withSnapshot(List<AC35Data> snapshot, FrameBatch snapshotFrames) {
+        return new RaceSnapshot(version, xmlVersion, Collections.unmodifiableList(snapshot), snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
     }
 
+    /**
+     * Returns a copy of this snapshot, with a new encoded snapshot for every client.
+     * @param snapshotFrames The encoded snapshot. May be null.
+     * @return The new snapshot.
+     */
+    public RaceSnapshot withSnapshotFrames(FrameBatch snapshotFrames) {
+        return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
+    }
+
+    /**
+     * Returns a copy of this snapshot, with a new encoded snapshot for clients which asked for {@link BoatLocationDelta}s.
+     * @param compactSnapshotFrames The encoded compact snapshot. May be null.
+     * @return The new snapshot.
+     */
+    public RaceSnapshot withCompactSnapshotFrames(FrameBatch compactSnapshotFrames) {
+        return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
+    }
+
+    /**
+     * Returns a copy of this snapshot, with a new encoded {@link BoatLocationDelta} keyframe.
+     * @param keyframeFrames The encoded keyframe. May be null.
+     * @return The new snapshot.
+     */
+    public RaceSnapshot withKeyframeFrames(FrameBatch keyframeFrames) {
+        return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
+    }
+
+    /**
+     * Returns a copy of this snapshot, with new encoded mark positions.
+     * @param markFrames The encoded mark positions. May be null.
+     * @return The new snapshot.
+     */
+    public RaceSnapshot withMarkFrames(FrameBatch markFrames) {
+        return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
+    }
+
+    /**
+     * Returns a copy of this snapshot, with a new XML message of the same type as the one given. Other types of XML message are ignored.
+     * @param xmlMessage The XML message.
+     * @param frames The encoded XML message. May be null.
+     * @param compressedFrames The encoded XML message, deflated. May be null.
+     * @return The new snapshot.
+     */
+    RaceSnapshot withXMLMessage(XMLMessage xmlMessage, FrameBatch frames, FrameBatch compressedFrames) {
+
+        EncodedXMLMessage encoded = new EncodedXMLMessage(xmlMessage, frames, compressedFrames);
+
+        switch (xmlMessage.getXmlMsgSubType()) {
+            case RACE:
+                return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, encoded, boatXMLMessage, regattaXMLMessage);
+            case BOAT:
+                return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, encoded, regattaXMLMessage);
+            case REGATTA:
+                return new RaceSnapshot(version, xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, encoded);
+            default:
+                return this;
+        }
+    }
 
     /**
-     * Gets the contents of the snapshot.
-     * This is a shallow copy.
+     * Returns a copy of this snapshot, as the version after a previous snapshot. Only {@link LatestMessages} publishes snapshots, so only it numbers them.
+     * @param previous The snapshot this replaces.
+     * @return The new snapshot.
+     */
+    RaceSnapshot withVersionAfter(RaceSnapshot previous) {
+
+        long nextVersion = previous.version + 1;
+
+        boolean xmlChanged = raceXMLMessage != previous.raceXMLMessage || boatXMLMessage != previous.boatXMLMessage || regattaXMLMessage != previous.regattaXMLMessage;
+
+        return new RaceSnapshot(nextVersion, xmlChanged ? nextVersion : previous.xmlVersion, snapshot, snapshotFrames, compactSnapshotFrames, keyframeFrames, markFrames, raceXMLMessage, boatXMLMessage, regattaXMLMessage);
+    }
+
+
+    /**
+     * Returns the version of this snapshot. Each snapshot published has a higher version than the one before it, so a client only needs to send a snapshot if its version is higher than the last one it sent.
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the version of the snapshot in which a race, boat, or regatta XML message last changed.
+     * @return The version.
+     */
+    public long getXMLVersion() {
+        return xmlVersion;
+    }
+
+    /**
+     * Gets the contents of the snapshot. This is not a copy, and cannot be modified.
      * @return Contents of the snapshot.
      */
     public List<AC35Data> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the encoded race snapshot, which can be sent to every client as-is.
+     * @return The encoded race snapshot, or null if there isn't one.
+     */
+    public FrameBatch getSnapshotFrames() {
+        return snapshotFrames;
+    }
+
+    /**
+     * Returns the encoded race snapshot for clients which asked for {@link BoatLocationDelta}s.
+     * @return The encoded compact race snapshot, or null if there isn't one.
+     */
+    public FrameBatch getCompactSnapshotFrames() {
+        return compactSnapshotFrames;
+    }
+
+    /**
+     * Returns the latest encoded {@link BoatLocationDelta} keyframe.
+     * @return The encoded keyframe, or null if there isn't one.
+     */
+    public FrameBatch getKeyframeFrames() {
+        return keyframeFrames;
+    }
+
+    /**
+     * Returns the encoded position of every mark.
+     * @return The encoded mark positions, or null if there aren't any.
+     */
+    public FrameBatch getMarkFrames() {
+        return markFrames;
+    }
+
+    /**
+     * Returns the latest race xml message.
+     * @return The latest race xml message, or null if there isn't one.
+     */
+    public XMLMessage getRaceXMLMessage() {
+        return raceXMLMessage == null ? null : raceXMLMessage.message;
+    }
+
+    /**
+     * Returns the latest boat xml message.
+     * @return The latest boat xml message, or null if there isn't one.
+     */
+    public XMLMessage getBoatXMLMessage() {
+        return boatXMLMessage == null ? null : boatXMLMessage.message;
+    }
+
+    /**
+     * Returns the latest regatta xml message.
+     * @return The latest regatta xml message, or null if there isn't one.
+     */
+    public XMLMessage getRegattaXMLMessage() {
+        return regattaXMLMessage == null ? null : regattaXMLMessage.message;
+    }
+
+    /**
+     * Returns whether or not there is an xml message for each message type.
+     * @return True if race, boat, and regatta have an xml message, false otherwise.
+     */
+    public boolean hasAllXMLMessages() {
+        return raceXMLMessage != null && boatXMLMessage != null && regattaXMLMessage != null;
+    }
+
+    /**
+     * Returns an XML message ready to send: the shared, already encoded {@link FrameBatch} if it is one of this snapshot's XML messages, otherwise the message itself.
+     * @param xmlMessage An XML message, usually from {@link #getRaceXMLMessage()}, {@link #getBoatXMLMessage()}, or {@link #getRegattaXMLMessage()}.
+     * @return The encoded message, or the message itself if it hasn't been encoded.
+     */
+    public AC35Data getEncodedXMLMessage(XMLMessage xmlMessage) {
+        return getEncodedXMLMessage(xmlMessage, false);
+    }
+
+    /**
+     * Returns an XML message ready to send, deflated if the client asked for compression. See {@link #getEncodedXMLMessage(XMLMessage)}.
+     * @param xmlMessage An XML message, usually from {@link #getRaceXMLMessage()}, {@link #getBoatXMLMessage()}, or {@link #getRegattaXMLMessage()}.
+     * @param compressed Whether the client asked for compression.
+     * @return The encoded message, or the message itself if it hasn't been encoded.
+     */
+    public AC35Data getEncodedXMLMessage(XMLMessage xmlMessage, boolean compressed) {
+
+        for (EncodedXMLMessage encoded : new EncodedXMLMessage[] {raceXMLMessage, boatXMLMessage, regattaXMLMessage}) {
+            if (encoded != null && encoded.message == xmlMessage) {
 
-        List<AC35Data> copy = new ArrayList<>(snapshot);
+                FrameBatch frames = compressed ? encoded.compressedFrames : encoded.frames;
+                if (frames != null) {
+                    return frames;
+                }
+            }
+        }
 
-        return copy;
+        return compressed ? xmlMessage.compressed() : xmlMessage;
     }
 }
@@ -15,14 +15,46 @@ public class RequestToJoin extends AC35Data {
      */
     private RequestToJoinEnum requestType;
 
+    /**
+     * Whether the client would like boat positions as {@link BoatLocationDelta}s instead of {@link BoatLocation}s.
+     * Servers which don't understand this ignore it, so clients must handle both.
+     */
+    private boolean boatLocationDeltas;
+
+    /**
+     * Whether the client would like XML messages, and other large messages, deflated. Servers which don't understand this ignore it, so clients must handle both.
+     */
+    private boolean compression;
+
 
     /**
      * Constructs a RequestToJoin message of a given request type.
      * @param requestType The type of join request this is.
      */
     public RequestToJoin(RequestToJoinEnum requestType){
+        this(requestType, false);
+    }
+
+    /**
+     * Constructs a RequestToJoin message of a given request type.
+     * @param requestType The type of join request this is.
+     * @param boatLocationDeltas Whether the client would like {@link BoatLocationDelta}s.
+     */
+    public RequestToJoin(RequestToJoinEnum requestType, boolean boatLocationDeltas){
+        this(requestType, boatLocationDeltas, false);
+    }
+
+    /**
+     * Constructs a RequestToJoin message of a given request type.
+     * @param requestType The type of join request this is.
+     * @param boatLocationDeltas Whether the client would like {@link BoatLocationDelta}s.
+     * @param compression Whether the client would like large messages deflated.
+     */
+    public RequestToJoin(RequestToJoinEnum requestType, boolean boatLocationDeltas, boolean compression){
         super(MessageType.REQUEST_TO_JOIN);
         this.requestType = requestType;
+        this.boatLocationDeltas = boatLocationDeltas;
+        this.compression = compression;
     }
 
 
@@ -33,4 +65,20 @@ public class RequestToJoin extends AC35Data {
     public RequestToJoinEnum getRequestType() {
         return requestType;
     }
+
+    /**
+     * Whether the client would like boat positions as {@link BoatLocationDelta}s.
+     * @return True if the client would like deltas.
+     */
+    public boolean isBoatLocationDeltas() {
+        return boatLocationDeltas;
+    }
+
+    /**
+     * Whether the client would like XML messages, and other large messages, deflated.
+     * @return True if the client would like compression.
+     */
+    public boolean isCompression() {
+        return compression;
+    }
 }
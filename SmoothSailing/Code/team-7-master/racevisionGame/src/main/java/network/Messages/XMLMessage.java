@@ -3,6 +3,7 @@ package network.Messages;
 
 import network.Messages.Enums.MessageType;
 import network.Messages.Enums.XMLMessageType;
+import network.Utils.DeflateCodec;
 
 import java.nio.charset.StandardCharsets;
 
@@ -55,6 +56,21 @@ public class XMLMessage extends AC35Data {
      */
     private String xmlMessage;
 
+    /**
+     * The contents of the xml message, as UTF-8.
+     */
+    private final byte[] xmlBytes;
+
+    /**
+     * Whether the xml is sent deflated. Only clients which asked for compression are sent compressed messages.
+     */
+    private final boolean compressed;
+
+    /**
+     * The xml as it is sent: {@link #xmlBytes}, or those deflated if {@link #compressed}. Deflated the first time it is needed.
+     */
+    private volatile byte[] encodedXml;
+
 
     /**
      * Constructor for an XML Message
@@ -66,14 +82,39 @@ public class XMLMessage extends AC35Data {
      * @param xmlMessage XML message
      */
     public XMLMessage(byte versionNumber, int ackNumber, long timeStamp, XMLMessageType xmlMsgSubType, int sequenceNumber, String xmlMessage) {
+        this(versionNumber, ackNumber, timeStamp, xmlMsgSubType, sequenceNumber, xmlMessage, false);
+    }
+
+    /**
+     * Constructor for an XML Message
+     * @param versionNumber The version number of the xml message.
+     * @param ackNumber Number for acknowledgement inherited for the AC35Data Packet
+     * @param timeStamp Time received
+     * @param xmlMsgSubType Type of XML message
+     * @param sequenceNumber Order that it has arrived in
+     * @param xmlMessage XML message
+     * @param compressed Whether the xml is sent deflated.
+     */
+    public XMLMessage(byte versionNumber, int ackNumber, long timeStamp, XMLMessageType xmlMsgSubType, int sequenceNumber, String xmlMessage, boolean compressed) {
         super(MessageType.XMLMESSAGE);
         this.versionNumber = versionNumber;
         this.ackNumber = ackNumber;
         this.timeStamp = timeStamp;
         this.xmlMsgSubType = xmlMsgSubType;
         this.sequenceNumber = sequenceNumber;
-        this.xmlMsgLength = xmlMessage.getBytes(StandardCharsets.UTF_8).length;
+        this.xmlBytes = xmlMessage.getBytes(StandardCharsets.UTF_8);
+        this.xmlMsgLength = xmlBytes.length;
         this.xmlMessage = xmlMessage;
+        this.compressed = compressed;
+    }
+
+
+    /**
+     * Returns a copy of this message which is sent with its xml deflated.
+     * @return The compressed message.
+     */
+    public XMLMessage compressed() {
+        return new XMLMessage(versionNumber, ackNumber, timeStamp, xmlMsgSubType, sequenceNumber, xmlMessage, true);
     }
 
     /**
@@ -132,4 +173,28 @@ public class XMLMessage extends AC35Data {
     public int getXmlMsgLength() {
         return xmlMsgLength;
     }
+
+    /**
+     * Returns whether the xml is sent deflated.
+     * @return True if the message is compressed.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Returns the xml as it is sent: UTF-8, and deflated if {@link #isCompressed()}. The array is shared, and must not be modified.
+     * @return The encoded xml.
+     */
+    public byte[] getEncodedXml() {
+
+        byte[] encoded = encodedXml;
+
+        if (encoded == null) {
+            encoded = compressed ? DeflateCodec.deflate(xmlBytes) : xmlBytes;
+            encodedXml = encoded;
+        }
+
+        return encoded;
+    }
 }
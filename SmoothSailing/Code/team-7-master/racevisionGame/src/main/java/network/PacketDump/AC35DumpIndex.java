@@ -0,0 +1,494 @@
+package network.PacketDump;
+
+
+import network.Messages.Enums.MessageType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A sidecar index over an {@link AC35DumpReader dump}, which finds frames by header timestamp and source ID without reading everything before them.
+ * The index is built with two sequential passes over the dump the first time it is opened, and saved next to it (with {@link #indexSuffix} appended). Afterwards, it is memory-mapped, so it opens instantly and uses no heap, whatever the size of the dump.
+ * <br>
+ * Queries such as {@link #getFrames(int, MessageType, long, long)} find frames lazily, as they are iterated over.
+ * Timestamps are assumed to be mostly in order, as they come from a single clock. Each entry holds the latest timestamp seen up to its frame, so a query never starts after a frame in its range.
+ * A query stops at the first frame later than its end time, though, so a frame which is recorded after that, out of order, is not returned even if its timestamp is in range.
+ * <br>
+ * Layout, little endian: a {@link #headerLength} byte header: magic number (4 bytes), version (2 bytes), header length (2 bytes), dump size (8 bytes), dump modified time (8 bytes), frame count (8 bytes), time entry count (8 bytes), source count (4 bytes), time entry interval (4 bytes), reserved (16 bytes).
+ * Then the time entries: the latest timestamp and offset of every {@link #timeEntryInterval}th frame (16 bytes each).
+ * Then the source directory, sorted by source ID: source ID (4 bytes), reserved (4 bytes), index of its first source entry (8 bytes), and its number of frames (8 bytes).
+ * Then the source entries: for each source, the latest timestamp and offset of each of its frames, in order (16 bytes each).
+ */
+public class AC35DumpIndex {
+
+    /**
+     * Appended to the dump's file name to name its index.
+     */
+    public static final String indexSuffix = ".idx";
+
+    /**
+     * Magic number at the start of an index - "AC3I" in ASCII.
+     */
+    public static final int magicNumber = 0x49334341;
+
+    /**
+     * Version of the index layout.
+     */
+    public static final int versionNumber = 1;
+
+    /**
+     * Length of the index header.
+     */
+    public static final int headerLength = 64;
+
+    /**
+     * Number of frames between time entries.
+     */
+    public static final int timeEntryInterval = 64;
+
+    /**
+     * Length of a time or source entry.
+     */
+    private static final int entryLength = 16;
+
+    /**
+     * Length of a source directory entry.
+     */
+    private static final int sourceLength = 24;
+
+
+    /**
+     * The indexed dump.
+     */
+    private final AC35DumpReader dump;
+
+    /**
+     * The mapped index.
+     */
+    private final MappedFile index;
+
+    /**
+     * Number of frames in the dump.
+     */
+    private final long frameCount;
+
+    /**
+     * Number of time entries.
+     */
+    private final long timeEntryCount;
+
+    /**
+     * Number of source IDs.
+     */
+    private final int sourceCount;
+
+    /**
+     * Position of the source directory in the index.
+     */
+    private final long sourceDirectoryPosition;
+
+    /**
+     * Position of the source entries in the index.
+     */
+    private final long sourceEntriesPosition;
+
+
+    /**
+     * Opens an index which has already been checked against its dump.
+     * @param dump The indexed dump.
+     * @param index The mapped index.
+     */
+    private AC35DumpIndex(AC35DumpReader dump, MappedFile index) {
+        this.dump = dump;
+        this.index = index;
+        this.frameCount = index.getInt64(24);
+        this.timeEntryCount = index.getInt64(32);
+        this.sourceCount = index.getInt32(40);
+        this.sourceDirectoryPosition = headerLength + timeEntryCount * entryLength;
+        this.sourceEntriesPosition = sourceDirectoryPosition + (long) sourceCount * sourceLength;
+    }
+
+
+    /**
+     * Returns the path of a dump's index.
+     * @param dump The dump.
+     * @return Path of its index.
+     */
+    public static Path getIndexPath(AC35DumpReader dump) {
+        return dump.getPath().resolveSibling(dump.getPath().getFileName() + indexSuffix);
+    }
+
+
+    /**
+     * Opens a dump's index, or builds it if it doesn't exist or is out of date.
+     * @param dump The dump.
+     * @return The index.
+     * @throws IOException Thrown if the index cannot be read or built.
+     */
+    public static AC35DumpIndex open(AC35DumpReader dump) throws IOException {
+
+        Path indexPath = getIndexPath(dump);
+
+        if (Files.exists(indexPath)) {
+
+            //The header is read without mapping the index, so that an out of date index can be replaced (a mapped file cannot be deleted on some platforms).
+            ByteBuffer header = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                while (header.hasRemaining() && channel.read(header) >= 0) {
+                }
+            }
+
+            if (!header.hasRemaining() && isValid(header, dump)) {
+                return new AC35DumpIndex(dump, new MappedFile(indexPath, FileChannel.MapMode.READ_ONLY, -1));
+            }
+            Logger.getGlobal().log(Level.INFO, "Rebuilding out of date dump index: " + indexPath);
+        }
+
+        return build(dump, indexPath);
+    }
+
+    /**
+     * Determines whether an index matches its dump.
+     * @param header The index's header.
+     * @param dump The dump.
+     * @return True if the index is for this version of the dump.
+     * @throws IOException Thrown if the dump's modified time cannot be read.
+     */
+    private static boolean isValid(ByteBuffer header, AC35DumpReader dump) throws IOException {
+        return header.getInt(0) == magicNumber
+                && (header.getShort(4) & 0xFFFF) == versionNumber
+                && header.getLong(8) == dump.getSize()
+                && header.getLong(16) == Files.getLastModifiedTime(dump.getPath()).toMillis()
+                && header.getInt(44) == timeEntryInterval;
+    }
+
+
+    /**
+     * Builds an index of a dump, and saves it.
+     * The first pass counts each source's frames. The second records the time entries, and each source's entries at the position set aside for it. Only one counter per source is kept on the heap.
+     * @param dump The dump.
+     * @param indexPath Where to save the index.
+     * @return The index.
+     * @throws IOException Thrown if the index cannot be written.
+     */
+    public static AC35DumpIndex build(AC35DumpReader dump, Path indexPath) throws IOException {
+
+        //First pass: count frames per source.
+        Map<Integer, long[]> sourceFrameCounts = new HashMap<>();
+        long frameCount = 0;
+
+        for (AC35Packet packet : dump) {
+            sourceFrameCounts.computeIfAbsent(packet.getSourceID(), id -> new long[1])[0]++;
+            frameCount++;
+        }
+
+        long timeEntryCount = (frameCount + timeEntryInterval - 1) / timeEntryInterval;
+        int sourceCount = sourceFrameCounts.size();
+
+        long sourceDirectoryPosition = headerLength + timeEntryCount * entryLength;
+        long sourceEntriesPosition = sourceDirectoryPosition + (long) sourceCount * sourceLength;
+        long indexSize = sourceEntriesPosition + frameCount * entryLength;
+
+        Files.deleteIfExists(indexPath);
+        MappedFile index = new MappedFile(indexPath, FileChannel.MapMode.READ_WRITE, indexSize);
+
+
+        //Source directory, sorted by source ID. Each source's count becomes the index of its next entry.
+        int[] sourceIDs = sourceFrameCounts.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        long nextEntry = 0;
+
+        for (int i = 0; i < sourceIDs.length; i++) {
+            long[] count = sourceFrameCounts.get(sourceIDs[i]);
+            long position = sourceDirectoryPosition + (long) i * sourceLength;
+
+            index.putInt32(position, sourceIDs[i]);
+            index.putInt64(position + 8, nextEntry);
+            index.putInt64(position + 16, count[0]);
+
+            long first = nextEntry;
+            nextEntry += count[0];
+            count[0] = first;
+        }
+
+
+        //Second pass: time entries and source entries.
+        long latestTime = Long.MIN_VALUE;
+        long frameNumber = 0;
+        long offset = 0;
+
+        for (AC35Packet packet : dump) {
+            latestTime = Math.max(latestTime, packet.getHeaderTime());
+
+            if (frameNumber % timeEntryInterval == 0) {
+                long position = headerLength + (frameNumber / timeEntryInterval) * entryLength;
+                index.putInt64(position, latestTime);
+                index.putInt64(position + 8, offset);
+            }
+
+            long[] next = sourceFrameCounts.get(packet.getSourceID());
+            long position = sourceEntriesPosition + next[0]++ * entryLength;
+            index.putInt64(position, latestTime);
+            index.putInt64(position + 8, offset);
+
+            offset = dump.getNextOffset(offset);
+            frameNumber++;
+        }
+
+
+        //Header last, so that an interrupted build is never valid.
+        index.putInt16(4, versionNumber);
+        index.putInt16(6, headerLength);
+        index.putInt64(8, dump.getSize());
+        index.putInt64(16, Files.getLastModifiedTime(dump.getPath()).toMillis());
+        index.putInt64(24, frameCount);
+        index.putInt64(32, timeEntryCount);
+        index.putInt32(40, sourceCount);
+        index.putInt32(44, timeEntryInterval);
+        index.putInt32(0, magicNumber);
+        index.force();
+
+        return new AC35DumpIndex(dump, index);
+    }
+
+
+    /**
+     * Returns the indexed dump.
+     * @return The dump.
+     */
+    public AC35DumpReader getDump() {
+        return dump;
+    }
+
+    /**
+     * Returns the number of frames in the dump.
+     * @return Number of frames.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns every source ID in the dump, in ascending order.
+     * @return The source IDs.
+     */
+    public int[] getSourceIDs() {
+        int[] sourceIDs = new int[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            sourceIDs[i] = index.getInt32(sourceDirectoryPosition + (long) i * sourceLength);
+        }
+        return sourceIDs;
+    }
+
+    /**
+     * Returns the number of frames from a source.
+     * @param sourceID The source ID.
+     * @return Number of frames.
+     */
+    public long getFrameCount(int sourceID) {
+        long position = findSource(sourceID);
+        return position < 0 ? 0 : index.getInt64(position + 16);
+    }
+
+
+    /**
+     * Finds a source in the source directory.
+     * @param sourceID The source ID.
+     * @return Position of its directory entry, or -1 if there are no frames from it.
+     */
+    private long findSource(int sourceID) {
+        int low = 0;
+        int high = sourceCount - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long position = sourceDirectoryPosition + (long) middle * sourceLength;
+            int middleID = index.getInt32(position);
+
+            if (middleID < sourceID) {
+                low = middle + 1;
+            } else if (middleID > sourceID) {
+                high = middle - 1;
+            } else {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last entry, in a run of entries, whose latest timestamp is before a given time. Every frame before it is before the time too.
+     * @param firstPosition Position of the first entry.
+     * @param count Number of entries.
+     * @param time The time.
+     * @return Index of the entry, or 0 if there isn't one.
+     */
+    private long findEntryBefore(long firstPosition, long count, long time) {
+        long low = 0;
+        long high = count - 1;
+        long found = 0;
+
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+
+            if (index.getInt64(firstPosition + middle * entryLength) < time) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+
+    /**
+     * Returns the offset of a frame at or before the first frame with a given timestamp or later. Reading from here finds every frame from that time on.
+     * @param time The time, in milliseconds since the epoch.
+     * @return Offset in the dump.
+     */
+    public long seek(long time) {
+        if (timeEntryCount == 0) {
+            return 0;
+        }
+        long entry = findEntryBefore(headerLength, timeEntryCount, time);
+        return index.getInt64(headerLength + entry * entryLength + 8);
+    }
+
+
+    /**
+     * Returns every frame whose header timestamp is between two times.
+     * @param startTime The earliest time, in milliseconds since the epoch, inclusive.
+     * @param endTime The latest time, in milliseconds since the epoch, inclusive.
+     * @return The frames, found lazily, in order.
+     */
+    public Iterable<AC35Packet> getFrames(long startTime, long endTime) {
+        return () -> new TimeRangeIterator(dump.iterator(seek(startTime)), startTime, endTime, null);
+    }
+
+    /**
+     * Returns every frame from a given source, of a given type, whose header timestamp is between two times - e.g., all BoatLocation frames for boat 101 in the last leg.
+     * Only that source's frames are read.
+     * @param sourceID The source ID.
+     * @param type The message type, or null for any type.
+     * @param startTime The earliest time, in milliseconds since the epoch, inclusive.
+     * @param endTime The latest time, in milliseconds since the epoch, inclusive.
+     * @return The frames, found lazily, in order.
+     */
+    public Iterable<AC35Packet> getFrames(int sourceID, MessageType type, long startTime, long endTime) {
+
+        long sourcePosition = findSource(sourceID);
+        if (sourcePosition < 0) {
+            return Collections::emptyIterator;
+        }
+
+        long firstPosition = sourceEntriesPosition + index.getInt64(sourcePosition + 8) * entryLength;
+        long count = index.getInt64(sourcePosition + 16);
+
+        return () -> {
+            long first = findEntryBefore(firstPosition, count, startTime);
+
+            Iterator<AC35Packet> sourceFrames = new Iterator<AC35Packet>() {
+
+                private long next = first;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public AC35Packet next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return dump.readPacket(index.getInt64(firstPosition + next++ * entryLength + 8));
+                }
+            };
+
+            return new TimeRangeIterator(sourceFrames, startTime, endTime, type);
+        };
+    }
+
+
+    /**
+     * Filters frames to those between two times, of a given type, and stops at the first frame later than the end time. Frames recorded after that one are not returned, even if they are out of order and in range.
+     */
+    private static class TimeRangeIterator implements Iterator<AC35Packet> {
+
+        private final Iterator<AC35Packet> frames;
+        private final long startTime;
+        private final long endTime;
+        private final MessageType type;
+
+        /**
+         * The latest header timestamp seen.
+         */
+        private long latestTime = Long.MIN_VALUE;
+
+        /**
+         * The next matching frame, or null if it hasn't been found yet.
+         */
+        private AC35Packet next;
+
+        /**
+         * Whether there are no more matching frames.
+         */
+        private boolean finished = false;
+
+
+        TimeRangeIterator(Iterator<AC35Packet> frames, long startTime, long endTime, MessageType type) {
+            this.frames = frames;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.type = type;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null && !finished) {
+
+                if (!frames.hasNext()) {
+                    finished = true;
+                    break;
+                }
+
+                AC35Packet frame = frames.next();
+                long time = frame.getHeaderTime();
+                latestTime = Math.max(latestTime, time);
+
+                if (latestTime > endTime) {
+                    finished = true;
+
+                } else if (time >= startTime && (type == null || frame.getType() == type)) {
+                    next = frame;
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public AC35Packet next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AC35Packet frame = next;
+            next = null;
+            return frame;
+        }
+    }
+}
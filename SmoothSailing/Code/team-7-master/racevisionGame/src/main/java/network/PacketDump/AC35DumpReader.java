@@ -7,47 +7,125 @@ import network.Messages.AC35Data;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
-import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Created by fwy13 on 25/04/17.
+ * Reads the frames in a raw dump of an AC35 stream. The dump is memory-mapped rather than read onto the heap, and frames are found as they are iterated over, so a dump of any size opens instantly.
+ * Use an {@link AC35DumpIndex} to find frames by time or source ID without reading everything before them.
  */
-public class AC35DumpReader {
+public class AC35DumpReader implements Iterable<AC35Packet> {
 
-    private byte[] dump;
-    private ArrayList<AC35Packet> packets;
+    /**
+     * Length of a frame's header and CRC.
+     */
+    private static final int overhead = BinaryMessageDecoder.headerLength + BinaryMessageDecoder.CRCLength;
+
+    private Path path;
+    private MappedFile dump;
 
     public AC35DumpReader(String url) throws IOException, URISyntaxException {
+        this(Paths.get(AC35DumpReader.class.getClassLoader().getResource(url).toURI()));
+    }
 
-        URL uri = getClass().getClassLoader().getResource(url);
-        Path path = Paths.get(uri.toURI());
-        dump = Files.readAllBytes(path);
+    /**
+     * Opens a dump file.
+     * @param path The dump file.
+     * @throws IOException Thrown if the file cannot be mapped.
+     */
+    public AC35DumpReader(Path path) throws IOException {
+        this.path = path;
+        this.dump = new MappedFile(path, FileChannel.MapMode.READ_ONLY, -1);
+    }
 
-        packets = new ArrayList<>();
 
-        readAllPackets();
+    /**
+     * Returns the dump file.
+     * @return The dump file.
+     */
+    public Path getPath() {
+        return path;
     }
 
-    private void readAllPackets(){
-        int pointer = 0;
-        while(pointer < dump.length){
-            byte[] messLen = new byte[2];
-            messLen[1] = dump[pointer + 13];
-            messLen[0] = dump[pointer + 14];
-            int messageLength = ByteBuffer.wrap(messLen).getShort();
+    /**
+     * Returns the size of the dump.
+     * @return Size, in bytes.
+     */
+    public long getSize() {
+        return dump.getSize();
+    }
 
-            packets.add(new AC35Packet(Arrays.copyOfRange(dump, pointer, pointer + messageLength + 19)));
 
-            pointer += 19 + messageLength;
+    /**
+     * Returns the frame at a given offset in the dump. A frame cut short by the end of the dump is returned as it is.
+     * @param offset Offset of the start of the frame.
+     * @return The frame, or null if there isn't a whole header at the offset.
+     */
+    public AC35Packet readPacket(long offset) {
+        if (offset < 0 || offset + BinaryMessageDecoder.headerLength > dump.getSize()) {
+            return null;
         }
-        for (AC35Packet pack: packets){
-            BinaryMessageDecoder decoder = new BinaryMessageDecoder(pack.getData());
+        long frameEnd = Math.min(getNextOffset(offset), dump.getSize());
+        return new AC35Packet(dump.slice(offset, (int) (frameEnd - offset)));
+    }
+
+    /**
+     * Returns the offset of the frame after the one at a given offset.
+     * @param offset Offset of the start of a frame.
+     * @return Offset of the next frame. It may be past the end of the dump.
+     */
+    public long getNextOffset(long offset) {
+        return offset + overhead + dump.getUInt16(offset + 13);
+    }
+
+
+    /**
+     * Returns an iterator over every frame in the dump, in order.
+     * @return Iterator over the frames.
+     */
+    @Override
+    public Iterator<AC35Packet> iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * Returns an iterator over the frames in the dump, in order, starting from a given offset.
+     * @param offset Offset of the start of the first frame.
+     * @return Iterator over the frames.
+     */
+    public Iterator<AC35Packet> iterator(long offset) {
+        return new Iterator<AC35Packet>() {
+
+            private long nextOffset = offset;
+
+            @Override
+            public boolean hasNext() {
+                return nextOffset + BinaryMessageDecoder.headerLength <= dump.getSize();
+            }
+
+            @Override
+            public AC35Packet next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                AC35Packet packet = readPacket(nextOffset);
+                nextOffset = getNextOffset(nextOffset);
+                return packet;
+            }
+        };
+    }
+
+
+    /**
+     * Decodes every frame in the dump, and prints any which are invalid.
+     */
+    private void decodeAllPackets(){
+        for (AC35Packet pack: this){
+            BinaryMessageDecoder decoder = new BinaryMessageDecoder(pack.getBuffer());
 
             try {
                 AC35Data data = decoder.decode();
@@ -62,6 +140,7 @@ public class AC35DumpReader {
     public static void main(String[] args){
         try {
             AC35DumpReader ac35DumpReader = new AC35DumpReader("dataDumps/ac35.bin");
+            ac35DumpReader.decodeAllPackets();
         } catch (IOException e) {
             e.printStackTrace();
         } catch (URISyntaxException e) {
@@ -1,17 +1,112 @@
 package network.PacketDump;
 
+import network.BinaryMessageDecoder;
+import network.Messages.Enums.MessageType;
+
+import java.nio.ByteBuffer;
+
+import static network.Utils.ByteCodec.getInt32;
+import static network.Utils.ByteCodec.getUInt48;
+
 /**
  * Created by fwy13 on 25/04/17.
+ * A single frame from a packet dump. Holds a read-only view over the dump, rather than a copy of it.
  */
 public class AC35Packet {
 
-    byte[] data;
+    ByteBuffer data;
+
+    /**
+     * When the frame was captured, in nanoseconds since the capture started, or -1 if unknown (e.g., a raw dump).
+     */
+    private long receiveTime;
 
     public AC35Packet(byte[] data){
-        this.data = data;
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Creates a packet from a view of a frame.
+     * @param data The frame, between the buffer's position and limit.
+     */
+    public AC35Packet(ByteBuffer data){
+        this(data, -1);
+    }
+
+    /**
+     * Creates a packet from a view of a captured frame.
+     * @param data The frame, between the buffer's position and limit.
+     * @param receiveTime When the frame was captured, in nanoseconds since the capture started, or -1 if unknown.
+     */
+    public AC35Packet(ByteBuffer data, long receiveTime){
+        this.data = data.slice().asReadOnlyBuffer();
+        this.receiveTime = receiveTime;
     }
 
+    /**
+     * Returns a copy of the frame.
+     * @return Copy of the frame.
+     */
     public byte[] getData() {
-        return data;
+        byte[] copy = new byte[data.remaining()];
+        data.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * Returns a read-only view of the frame.
+     * @return View of the frame.
+     */
+    public ByteBuffer getBuffer() {
+        return data.duplicate();
+    }
+
+    /**
+     * Returns the length of the frame, in bytes.
+     * @return Length of the frame.
+     */
+    public int getLength() {
+        return data.remaining();
+    }
+
+    /**
+     * Returns when the frame was captured, in nanoseconds since the capture started.
+     * @return Receive time, or -1 if unknown.
+     */
+    public long getReceiveTime() {
+        return receiveTime;
+    }
+
+    /**
+     * Returns the message type in the frame's header.
+     * @return The message type. {@link MessageType#NOTAMESSAGE} if the frame is too short to have a header.
+     */
+    public MessageType getType() {
+        if (data.remaining() < BinaryMessageDecoder.headerLength) {
+            return MessageType.NOTAMESSAGE;
+        }
+        return MessageType.fromByte(data.get(2));
+    }
+
+    /**
+     * Returns the timestamp in the frame's header, in milliseconds since the epoch.
+     * @return The header timestamp, or 0 if the frame is too short to have a header.
+     */
+    public long getHeaderTime() {
+        if (data.remaining() < BinaryMessageDecoder.headerLength) {
+            return 0;
+        }
+        return getUInt48(data, 3);
+    }
+
+    /**
+     * Returns the source ID in the frame's header.
+     * @return The source ID, or 0 if the frame is too short to have a header.
+     */
+    public int getSourceID() {
+        if (data.remaining() < BinaryMessageDecoder.headerLength) {
+            return 0;
+        }
+        return getInt32(data, 9);
     }
 }
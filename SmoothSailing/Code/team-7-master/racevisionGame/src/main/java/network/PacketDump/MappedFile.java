@@ -0,0 +1,152 @@
+package network.PacketDump;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A file of any size, memory-mapped in windows of {@link #windowSize} bytes (a single mapping cannot exceed 2GB).
+ * Consecutive windows overlap by {@link #overlap} bytes, so any value or frame up to that long can be read from a single window.
+ * Values are little endian. Opening a file only reserves address space - pages are read in by the operating system when they are touched, so it is instant, and uses no heap, whatever the file's size.
+ */
+class MappedFile {
+
+    /**
+     * Size of each window, in bytes.
+     */
+    static final long windowSize = 1L << 30;
+
+    /**
+     * Number of bytes each window overlaps the next by. This is the longest value which can be read at once - more than the longest AC35 frame.
+     */
+    static final int overlap = 1 << 17;
+
+
+    /**
+     * The windows. Window i maps the file from {@code i * windowSize}.
+     */
+    private final MappedByteBuffer[] windows;
+
+    /**
+     * Size of the file, in bytes.
+     */
+    private final long size;
+
+
+    /**
+     * Maps a file.
+     * @param path The file.
+     * @param mode {@link FileChannel.MapMode#READ_ONLY}, or {@link FileChannel.MapMode#READ_WRITE} to create (or resize) the file.
+     * @param size Size of the file to map, or -1 to map the whole of an existing file.
+     * @throws IOException Thrown if the file cannot be mapped.
+     */
+    MappedFile(Path path, FileChannel.MapMode mode, long size) throws IOException {
+
+        boolean readOnly = mode == FileChannel.MapMode.READ_ONLY;
+
+        try (FileChannel channel = readOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            this.size = size < 0 ? channel.size() : size;
+
+            int windowCount = (int) Math.max(1, (this.size + windowSize - 1) / windowSize);
+            this.windows = new MappedByteBuffer[windowCount];
+
+            //The mappings stay valid after the channel is closed.
+            for (int i = 0; i < windowCount; i++) {
+                long start = i * windowSize;
+                long length = Math.min(this.size - start, windowSize + overlap);
+                windows[i] = channel.map(mode, start, length);
+                windows[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the size of the file.
+     * @return Size, in bytes.
+     */
+    long getSize() {
+        return size;
+    }
+
+
+    /**
+     * Returns the window holding a position.
+     * @param position Position in the file.
+     * @return The window.
+     */
+    private MappedByteBuffer window(long position) {
+        return windows[(int) (position / windowSize)];
+    }
+
+    /**
+     * Returns a position's index within its window.
+     * @param position Position in the file.
+     * @return Index in the window.
+     */
+    private static int index(long position) {
+        return (int) (position % windowSize);
+    }
+
+
+    int getUInt8(long position) {
+        return window(position).get(index(position)) & 0xFF;
+    }
+
+    int getUInt16(long position) {
+        return window(position).getShort(index(position)) & 0xFFFF;
+    }
+
+    int getInt32(long position) {
+        return window(position).getInt(index(position));
+    }
+
+    long getInt64(long position) {
+        return window(position).getLong(index(position));
+    }
+
+    void putInt16(long position, int value) {
+        window(position).putShort(index(position), (short) value);
+    }
+
+    void putInt32(long position, int value) {
+        window(position).putInt(index(position), value);
+    }
+
+    void putInt64(long position, long value) {
+        window(position).putLong(index(position), value);
+    }
+
+
+    /**
+     * Returns a view of part of the file, without copying it.
+     * @param position Position of the part.
+     * @param length Length of the part. At most {@link #overlap}.
+     * @return Little endian view of the part.
+     */
+    ByteBuffer slice(long position, int length) {
+        ByteBuffer view = window(position).duplicate();
+        int index = index(position);
+        view.limit(index + length).position(index);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+
+    /**
+     * Flushes any changes to disk.
+     */
+    void force() {
+        for (MappedByteBuffer window : windows) {
+            window.force();
+        }
+    }
+}
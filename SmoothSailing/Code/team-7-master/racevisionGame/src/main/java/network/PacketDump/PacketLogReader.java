@@ -0,0 +1,216 @@
+package network.PacketDump;
+
+
+import network.BinaryMessageDecoder;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Reads a packet log recorded by a {@link PacketLogWriter}. See it for the layout.
+ * Each iterator maps one segment at a time, and returns its frames as {@link AC35Packet}s which view the mapping - nothing is copied onto the heap, so logs of any size can be read.
+ */
+public class PacketLogReader implements Iterable<AC35Packet> {
+
+    /**
+     * The segment files, in order.
+     */
+    private final List<Path> segments;
+
+    /**
+     * Wall clock time, in milliseconds since the epoch, when the capture started.
+     */
+    private final long captureStartMillis;
+
+
+    /**
+     * Opens a packet log.
+     * @param directory The packet log's directory.
+     * @throws IOException Thrown if the directory cannot be read, or isn't a packet log.
+     */
+    public PacketLogReader(Path directory) throws IOException {
+
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.ac35log")) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments);
+
+        if (segments.isEmpty()) {
+            throw new IOException("Not a packet log - it has no segments: " + directory);
+        }
+        this.segments = segments;
+
+        this.captureStartMillis = map(segments.get(0)).getLong(16);
+    }
+
+
+    /**
+     * Maps a segment, and checks its header.
+     * @param path The segment file.
+     * @return The mapped segment, positioned at its first frame.
+     * @throws IOException Thrown if the segment cannot be mapped, or isn't a packet log segment.
+     */
+    private static MappedByteBuffer map(Path path) throws IOException {
+
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (segment.limit() < PacketLogWriter.segmentHeaderLength || segment.getInt(0) != PacketLogWriter.magicNumber) {
+            throw new IOException("Not a packet log segment: " + path);
+        }
+        if ((segment.getShort(4) & 0xFFFF) != PacketLogWriter.versionNumber) {
+            throw new IOException("Unsupported packet log version: " + (segment.getShort(4) & 0xFFFF) + " in: " + path);
+        }
+
+        segment.position(segment.getShort(6) & 0xFFFF);
+        return segment;
+    }
+
+
+    /**
+     * Returns the segment files, in order.
+     * @return The segment files.
+     */
+    public List<Path> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Returns the wall clock time when the capture started.
+     * @return Capture start time, in milliseconds since the epoch.
+     */
+    public long getCaptureStartMillis() {
+        return captureStartMillis;
+    }
+
+
+    /**
+     * Returns an iterator over every recorded frame, in the order they were recorded.
+     * A segment which cannot be read, or a damaged record, ends the iteration, and is logged.
+     * @return Iterator over the recorded frames.
+     */
+    @Override
+    public Iterator<AC35Packet> iterator() {
+        return new PacketIterator();
+    }
+
+
+    /**
+     * Iterates over the frames of each segment in turn.
+     */
+    private class PacketIterator implements Iterator<AC35Packet> {
+
+        /**
+         * Index of the next segment to map.
+         */
+        private int nextSegment = 0;
+
+        /**
+         * The segment being read.
+         */
+        private MappedByteBuffer segment;
+
+        /**
+         * The next frame, or null if it hasn't been found yet.
+         */
+        private AC35Packet next;
+
+        /**
+         * Whether there are no more frames.
+         */
+        private boolean finished = false;
+
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null && !finished) {
+
+                if (segment == null) {
+                    if (nextSegment >= segments.size()) {
+                        finished = true;
+                        break;
+                    }
+
+                    Path path = segments.get(nextSegment++);
+                    try {
+                        segment = map(path);
+                    } catch (IOException e) {
+                        Logger.getGlobal().log(Level.WARNING, "Could not read packet log segment: " + path, e);
+                        finished = true;
+                        break;
+                    }
+                }
+
+                next = readRecord();
+            }
+
+            return next != null;
+        }
+
+        /**
+         * Reads the next record in the segment. Moves on to the next segment at its end.
+         * @return The frame, or null if the segment has ended.
+         */
+        private AC35Packet readRecord() {
+
+            if (segment.remaining() < PacketLogWriter.recordHeaderLength) {
+                segment = null;
+                return null;
+            }
+
+            int start = segment.position();
+            int length = segment.getInt(start);
+
+            if (length == 0) {
+                segment = null;
+                return null;
+            }
+
+            int frameStart = start + PacketLogWriter.recordHeaderLength;
+            if (length < BinaryMessageDecoder.headerLength + BinaryMessageDecoder.CRCLength || length > segment.limit() - frameStart) {
+                Logger.getGlobal().log(Level.WARNING, "Damaged packet log record at offset: " + start + " of segment: " + segments.get(nextSegment - 1) + ". Skipping the rest of the segment.");
+                segment = null;
+                return null;
+            }
+
+            long receiveTime = segment.getLong(start + 4);
+
+            segment.position(frameStart).limit(frameStart + length);
+            AC35Packet packet = new AC35Packet(segment, receiveTime);
+
+            segment.limit(segment.capacity()).position(frameStart + length);
+            return packet;
+        }
+
+        @Override
+        public AC35Packet next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AC35Packet packet = next;
+            next = null;
+            return packet;
+        }
+    }
+}
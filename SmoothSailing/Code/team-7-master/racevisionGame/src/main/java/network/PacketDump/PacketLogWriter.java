@@ -0,0 +1,307 @@
+package network.PacketDump;
+
+
+import network.BinaryMessageDecoder;
+import network.Messages.FrameBatch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static network.Utils.ByteCodec.getUInt16;
+
+
+/**
+ * Records AC35 frames into a packet log, which a {@link PacketLogReader} can read back, and a {@link ReplayServer} can replay.
+ * <br>
+ * A packet log is a directory of fixed size segment files, each of which is memory-mapped while it is written, so recording a frame is a copy into memory, with no system call. The operating system writes the pages out, so a capture survives the process exiting without {@link #close()}.
+ * <br>
+ * Layout, little endian. Each segment starts with a {@link #segmentHeaderLength} byte header: magic number (4 bytes), version (2 bytes), header length (2 bytes), segment number (4 bytes), reserved (4 bytes), capture start time in milliseconds since the epoch (8 bytes), reserved (8 bytes).
+ * Then, for each frame: frame length (4 bytes), receive time in nanoseconds since the capture started (8 bytes), and the frame itself. A frame length of 0 ends the segment - unused space in a segment is zero-filled, and sparse on most file systems.
+ */
+public class PacketLogWriter implements Closeable {
+
+    /**
+     * System property which names a directory to record packet logs in. If it isn't set, nothing is recorded.
+     */
+    public static final String captureDirectoryProperty = "racevision.captureDirectory";
+
+    /**
+     * Magic number at the start of each segment - "AC35" in ASCII.
+     */
+    public static final int magicNumber = 0x35334341;
+
+    /**
+     * Version of the packet log layout.
+     */
+    public static final int versionNumber = 1;
+
+    /**
+     * Length of the header at the start of each segment.
+     */
+    public static final int segmentHeaderLength = 32;
+
+    /**
+     * Length of the header before each recorded frame.
+     */
+    public static final int recordHeaderLength = 12;
+
+    /**
+     * Default size of each segment, in bytes.
+     */
+    public static final int defaultSegmentSize = 64 << 20;
+
+
+    /**
+     * Directory segments are written to.
+     */
+    private final Path directory;
+
+    /**
+     * Size of each segment, in bytes.
+     */
+    private final int segmentSize;
+
+    /**
+     * {@link System#nanoTime()} when the capture started.
+     */
+    private final long captureStartNanos = System.nanoTime();
+
+    /**
+     * Wall clock time, in milliseconds since the epoch, when the capture started.
+     */
+    private final long captureStartMillis = System.currentTimeMillis();
+
+
+    /**
+     * The segment being written. Null before the first frame, and after {@link #close()}.
+     */
+    private MappedByteBuffer segment;
+
+    /**
+     * Number of segments created.
+     */
+    private int segmentCount = 0;
+
+    /**
+     * Number of frames recorded.
+     */
+    private long frameCount = 0;
+
+    /**
+     * Whether {@link #close()} has been called.
+     */
+    private boolean closed = false;
+
+
+    /**
+     * Creates a writer which records into a given directory, with the {@link #defaultSegmentSize}.
+     * @param directory The directory. It is created if needed, and must not already contain a packet log.
+     * @throws IOException Thrown if the directory cannot be created.
+     */
+    public PacketLogWriter(Path directory) throws IOException {
+        this(directory, defaultSegmentSize);
+    }
+
+    /**
+     * Creates a writer which records into a given directory.
+     * @param directory The directory. It is created if needed, and must not already contain a packet log.
+     * @param segmentSize Size of each segment, in bytes. It must hold at least one maximum length frame.
+     * @throws IOException Thrown if the directory cannot be created.
+     */
+    public PacketLogWriter(Path directory, int segmentSize) throws IOException {
+        int minimumSize = segmentHeaderLength + recordHeaderLength + BinaryMessageDecoder.headerLength + 0xFFFF + BinaryMessageDecoder.CRCLength + 4;
+        if (segmentSize < minimumSize) {
+            throw new IllegalArgumentException("Segment size must be at least " + minimumSize + " bytes: " + segmentSize);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+    }
+
+
+    /**
+     * Creates a writer for a new capture in the directory named by {@link #captureDirectoryProperty}, if it is set.
+     * @param name Name of what is being captured (e.g., "server"). The capture's directory is this name followed by the date and time.
+     * @return The writer, or null if the property isn't set, or the capture cannot be created.
+     */
+    public static PacketLogWriter fromSystemProperty(String name) {
+
+        String captureDirectory = System.getProperty(captureDirectoryProperty);
+        if (captureDirectory == null || captureDirectory.isEmpty()) {
+            return null;
+        }
+
+        Path directory = Paths.get(captureDirectory, name + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()));
+
+        try {
+            PacketLogWriter writer = new PacketLogWriter(directory);
+            Logger.getGlobal().log(Level.INFO, "Capturing packets to: " + directory);
+            return writer;
+
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not create packet capture: " + directory, e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Returns the name of a segment file.
+     * @param segmentNumber The segment's number.
+     * @return The file name.
+     */
+    public static String getSegmentFileName(int segmentNumber) {
+        return String.format("segment-%06d.ac35log", segmentNumber);
+    }
+
+
+    /**
+     * Records a frame, with the current time.
+     * @param frame The frame, between the buffer's position and limit. The buffer is not modified.
+     * @throws IOException Thrown if a new segment cannot be created.
+     */
+    public synchronized void write(ByteBuffer frame) throws IOException {
+
+        if (closed) {
+            throw new IOException("Packet log is closed: " + directory);
+        }
+
+        long receiveTime = System.nanoTime() - captureStartNanos;
+        int length = frame.remaining();
+
+        //Leave room for the end of segment marker.
+        if (segment == null || segment.remaining() < recordHeaderLength + length + 4) {
+            nextSegment();
+        }
+
+        segment.putInt(length);
+        segment.putLong(receiveTime);
+        segment.put(frame.duplicate());
+
+        frameCount++;
+    }
+
+    /**
+     * Records each frame in some back to back frames - e.g., a {@link FrameBatch}.
+     * @param frames The frames, between the buffer's position and limit. The buffer is not modified.
+     * @throws IOException Thrown if a new segment cannot be created.
+     */
+    public synchronized void writeAll(ByteBuffer frames) throws IOException {
+
+        ByteBuffer frame = frames.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int end = frame.limit();
+        int overhead = BinaryMessageDecoder.headerLength + BinaryMessageDecoder.CRCLength;
+
+        while (end - frame.position() >= overhead) {
+            int frameEnd = frame.position() + overhead + getUInt16(frame, frame.position() + 13);
+            if (frameEnd > end) {
+                break;
+            }
+
+            frame.limit(frameEnd);
+            write(frame);
+
+            frame.position(frameEnd);
+            frame.limit(end);
+        }
+    }
+
+    /**
+     * Records each frame in a {@link FrameBatch}.
+     * @param frameBatch The batch.
+     * @throws IOException Thrown if a new segment cannot be created.
+     */
+    public void writeAll(FrameBatch frameBatch) throws IOException {
+        writeAll(frameBatch.getFrames());
+    }
+
+
+    /**
+     * Finishes the current segment, if any, and maps the next one.
+     * @throws IOException Thrown if the segment file cannot be created.
+     */
+    private void nextSegment() throws IOException {
+
+        finishSegment();
+
+        Path path = directory.resolve(getSegmentFileName(segmentCount));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            //The mapping stays valid after the channel is closed.
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+
+        segment.putInt(magicNumber);
+        segment.putShort((short) versionNumber);
+        segment.putShort((short) segmentHeaderLength);
+        segment.putInt(segmentCount);
+        segment.putInt(0);
+        segment.putLong(captureStartMillis);
+        segment.putLong(0);
+
+        segmentCount++;
+    }
+
+    /**
+     * Marks the end of the current segment, if any, and flushes it to disk.
+     */
+    private void finishSegment() {
+        if (segment != null) {
+            if (segment.remaining() >= 4) {
+                segment.putInt(segment.position(), 0);
+            }
+            segment.force();
+            segment = null;
+        }
+    }
+
+
+    /**
+     * Returns the directory segments are written to.
+     * @return The packet log's directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of frames recorded.
+     * @return Number of frames.
+     */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the number of segments created.
+     * @return Number of segments.
+     */
+    public synchronized int getSegmentCount() {
+        return segmentCount;
+    }
+
+
+    /**
+     * Flushes the current segment to disk. Later calls to {@link #write(ByteBuffer)} fail.
+     */
+    @Override
+    public synchronized void close() {
+        finishSegment();
+        closed = true;
+    }
+}
@@ -0,0 +1,71 @@
+package network.PacketDump;
+
+
+/**
+ * Works out when each frame of a recording should be replayed, from the timestamps in the frames' headers.
+ * Replay time never goes backwards: a frame whose header timestamp is earlier than the previous frame's, or missing, is sent straight after it. Gaps longer than {@link #maxGapMillis} (e.g., the server was paused) are shortened to it.
+ */
+public class ReplayClock {
+
+    /**
+     * The longest gap between two frames which is replayed as-is, in milliseconds.
+     */
+    public static final long maxGapMillis = 5000;
+
+
+    /**
+     * Replay speed, as a multiple of real time. 0 or less replays as fast as possible.
+     */
+    private final double speed;
+
+    /**
+     * The latest header timestamp seen, or -1 before the first frame.
+     */
+    private long latestHeaderTime = -1;
+
+    /**
+     * Time of the latest frame, in milliseconds since the first frame, at real time.
+     */
+    private long recordingTime = 0;
+
+
+    /**
+     * Creates a clock.
+     * @param speed Replay speed, as a multiple of real time (e.g., 1 for real time, 4 for four times as fast). 0 or less replays as fast as possible.
+     */
+    public ReplayClock(double speed) {
+        this.speed = speed;
+    }
+
+
+    /**
+     * Returns when a frame should be sent. Frames must be passed in the order they are replayed.
+     * @param packet The frame.
+     * @return When to send it, in nanoseconds since the replay started.
+     */
+    public long getSendTime(AC35Packet packet) {
+
+        long headerTime = packet.getHeaderTime();
+
+        if (headerTime > 0) {
+            if (latestHeaderTime >= 0 && headerTime > latestHeaderTime) {
+                recordingTime += Math.min(headerTime - latestHeaderTime, maxGapMillis);
+            }
+            latestHeaderTime = Math.max(latestHeaderTime, headerTime);
+        }
+
+        if (speed <= 0) {
+            return 0;
+        }
+        return (long) (recordingTime * 1000000 / speed);
+    }
+
+
+    /**
+     * Returns the replay speed.
+     * @return Replay speed, as a multiple of real time. 0 or less means as fast as possible.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+}
@@ -0,0 +1,128 @@
+package network.PacketDump;
+
+
+import shared.utils.WorkerThreads;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A race server which replays a recording - a packet log from a {@link PacketLogWriter}, or a raw dump read by {@link AC35DumpReader} - instead of running a race.
+ * Each client that connects gets its own {@link ReplaySession}, from the start of the recording, so visualisers can be tested against real races without running a MockRace.
+ * <br>
+ * Run with: java -cp racevisionGame.jar network.PacketDump.ReplayServer [packet log directory or dump file] [port] [speed, or "max"]
+ */
+public class ReplayServer implements Runnable {
+
+    /**
+     * Default port, the same as the race server's.
+     */
+    public static final int defaultPort = 4942;
+
+
+    /**
+     * Socket clients connect to.
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * The recorded frames.
+     */
+    private final Iterable<AC35Packet> packets;
+
+    /**
+     * Replay speed, as a multiple of real time. 0 or less replays as fast as possible.
+     */
+    private final double speed;
+
+
+    /**
+     * Creates a replay server.
+     * @param packets The recorded frames. They are iterated over once per client.
+     * @param port Port to listen on. 0 picks any free port.
+     * @param speed Replay speed, as a multiple of real time. 0 or less replays as fast as possible.
+     * @throws IOException Thrown if the server socket cannot be created.
+     */
+    public ReplayServer(Iterable<AC35Packet> packets, int port, double speed) throws IOException {
+        this.packets = packets;
+        this.speed = speed;
+        this.serverSocket = new ServerSocket(port);
+    }
+
+
+    /**
+     * Opens a recording: a packet log if the path is a directory, or a raw dump otherwise.
+     * @param path The packet log directory, or dump file.
+     * @return The recorded frames.
+     * @throws IOException Thrown if the recording cannot be read.
+     */
+    public static Iterable<AC35Packet> openRecording(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            return new PacketLogReader(path);
+        } else {
+            return new AC35DumpReader(path);
+        }
+    }
+
+
+    /**
+     * Returns the port the server is listening on.
+     * @return The server's port.
+     */
+    public int getServerPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops accepting clients. Sessions already running carry on.
+     * @throws IOException Thrown if the socket cannot be closed.
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+
+    @Override
+    public void run() {
+
+        while (!serverSocket.isClosed() && !Thread.currentThread().isInterrupted()) {
+
+            try {
+                Socket socket = serverSocket.accept();
+
+                ReplaySession session = new ReplaySession(socket, packets, speed);
+                WorkerThreads.create(session, "ReplayServer()->ReplaySession thread " + socket).start();
+
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    Logger.getGlobal().log(Level.WARNING, "ReplayServer could not accept a client.", e);
+                }
+            }
+        }
+    }
+
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayServer <packet log directory or dump file> [port] [speed, or \"max\"]");
+            return;
+        }
+
+        Path path = Paths.get(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : defaultPort;
+        double speed = args.length > 2 ? (args[2].equalsIgnoreCase("max") ? 0 : Double.parseDouble(args[2])) : 1;
+
+        ReplayServer server = new ReplayServer(openRecording(path), port, speed);
+        System.out.println("Replaying " + path + " on port " + server.getServerPort() + " at " + (speed > 0 ? speed + "x" : "max speed") + ".");
+
+        server.run();
+    }
+}
@@ -0,0 +1,174 @@
+package network.PacketDump;
+
+
+import network.AckSequencer;
+import network.BinaryMessageDecoder;
+import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.Enums.JoinAcceptanceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.JoinAcceptance;
+import network.StreamRelated.FrameReader;
+import network.StreamRelated.SocketSettings;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Replays a recording to a single client, over the normal AC35 socket protocol.
+ * The client is accepted as a spectator when it sends its RequestToJoin, and is then sent each recorded frame, paced by a {@link ReplayClock}.
+ * Recorded JoinAcceptance, AssignPlayerBoat, and RequestToJoin frames belong to the original connection, so they are not replayed.
+ */
+public class ReplaySession implements Runnable {
+
+    /**
+     * How long to wait for the client's RequestToJoin, in milliseconds.
+     */
+    private static final int handshakeTimeout = 10000;
+
+
+    /**
+     * The socket to the client.
+     */
+    private final Socket socket;
+
+    /**
+     * The recorded frames.
+     */
+    private final Iterable<AC35Packet> packets;
+
+    /**
+     * Paces the replay.
+     */
+    private final ReplayClock clock;
+
+    /**
+     * Number of frames sent.
+     */
+    private volatile long sentCount = 0;
+
+
+    /**
+     * Creates a session which replays a recording to a client.
+     * @param socket The socket to the client.
+     * @param packets The recorded frames. Each session iterates over them separately.
+     * @param speed Replay speed, as a multiple of real time. 0 or less replays as fast as possible.
+     */
+    public ReplaySession(Socket socket, Iterable<AC35Packet> packets, double speed) {
+        this.socket = socket;
+        this.packets = packets;
+        this.clock = new ReplayClock(speed);
+    }
+
+
+    /**
+     * Returns the number of frames sent to the client.
+     * @return Number of frames sent.
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+
+
+    @Override
+    public void run() {
+
+        try {
+            SocketSettings.apply(socket);
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream(), SocketSettings.getWriteBufferSize());
+
+            acceptClient(output);
+            replay(output);
+
+            Logger.getGlobal().log(Level.INFO, "Replay finished. Sent " + sentCount + " frames to: " + socket);
+
+        } catch (IOException | InvalidMessageException e) {
+            Logger.getGlobal().log(Level.INFO, "Replay to: " + socket + " ended after " + sentCount + " frames.", e);
+
+        } catch (InterruptedException e) {
+            Logger.getGlobal().log(Level.INFO, "Replay to: " + socket + " was interrupted after " + sentCount + " frames.");
+            Thread.currentThread().interrupt();
+
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not close socket: " + socket, e);
+            }
+        }
+    }
+
+
+    /**
+     * Waits for the client's RequestToJoin, and accepts it as a spectator.
+     * @param output Stream to the client.
+     * @throws IOException Thrown if the client disconnects, or doesn't send a RequestToJoin in time.
+     * @throws InvalidMessageException Thrown if the JoinAcceptance cannot be encoded.
+     */
+    private void acceptClient(OutputStream output) throws IOException, InvalidMessageException {
+
+        socket.setSoTimeout(handshakeTimeout);
+        FrameReader frameReader = new FrameReader(Channels.newChannel(socket.getInputStream()));
+
+        while (true) {
+            ByteBuffer frame = frameReader.nextFrame();
+
+            try {
+                AC35Data message = new BinaryMessageDecoder(frame).decode();
+                if (message.getType() == MessageType.REQUEST_TO_JOIN) {
+                    break;
+                }
+
+            } catch (InvalidMessageException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not decode message from: " + socket, e);
+            }
+        }
+        socket.setSoTimeout(0);
+
+        output.write(RaceVisionByteEncoder.encodeBinaryMessage(new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_SPECTATOR, 0), AckSequencer.getNextAckNum()));
+        output.flush();
+    }
+
+
+    /**
+     * Sends each recorded frame when it is due. Output is flushed before waiting for the next frame, so frames which are due together are written together.
+     * @param output Stream to the client.
+     * @throws IOException Thrown if the client disconnects.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    private void replay(OutputStream output) throws IOException, InterruptedException {
+
+        byte[] frame = new byte[BinaryMessageDecoder.headerLength + 0xFFFF + BinaryMessageDecoder.CRCLength];
+        long startTime = System.nanoTime();
+
+        for (AC35Packet packet : packets) {
+
+            MessageType type = packet.getType();
+            if (type == MessageType.JOIN_ACCEPTANCE || type == MessageType.ASSIGN_PLAYER_BOAT || type == MessageType.REQUEST_TO_JOIN) {
+                continue;
+            }
+
+            long wait = startTime + clock.getSendTime(packet) - System.nanoTime();
+            if (wait > 0) {
+                output.flush();
+                Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+            }
+
+            int length = Math.min(packet.getLength(), frame.length);
+            packet.getBuffer().get(frame, 0, length);
+            output.write(frame, 0, length);
+
+            sentCount++;
+        }
+
+        output.flush();
+    }
+}
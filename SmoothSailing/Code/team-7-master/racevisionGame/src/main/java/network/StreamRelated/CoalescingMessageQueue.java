@@ -0,0 +1,411 @@
+package network.StreamRelated;
+
+
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.FrameBatch;
+import network.Messages.Enums.MessageType;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A bounded queue of outgoing messages, for a {@link MessageSerialiser}.
+ * When the queue is full, a new message which supersedes one already queued - a {@link BoatLocation} for the same boat, a {@link network.Messages.RaceStatus}, or a snapshot {@link FrameBatch} which is {@link FrameBatch#isSupersedable() supersedable} - replaces it in place (latest value wins), and the old one is counted as dropped.
+ * Any other message (e.g., XML, JoinAcceptance, YachtEvent, or a batch holding one) is never dropped: {@link #put(AC35Data)} waits for space, and {@link #offer(AC35Data)} fails.
+ * A message queued before the newest {@link FrameBatch#isKeyframe() keyframe} batch is never replaced either, so a newer delta can't overtake the keyframe it refers to.
+ * So a slow client gets fresh positions instead of a growing backlog of stale ones, and its queue never grows past its capacity.
+ */
+public class CoalescingMessageQueue extends AbstractQueue<AC35Data> implements BlockingQueue<AC35Data> {
+
+    /**
+     * Default capacity, in messages. This is several frames' worth of snapshot messages.
+     */
+    public static final int defaultCapacity = 256;
+
+
+    /**
+     * Circular buffer of queued messages.
+     */
+    private final AC35Data[] messages;
+
+    /**
+     * Index of the oldest message in {@link #messages}.
+     */
+    private int head = 0;
+
+    /**
+     * Number of queued messages.
+     */
+    private int count = 0;
+
+    /**
+     * Maps the coalescing key of each queued message that can be superseded to its index in {@link #messages}.
+     */
+    private final Map<Long, Integer> supersedable = new HashMap<>();
+
+    /**
+     * Index, in {@link #messages}, of the newest queued keyframe batch, or -1 if there isn't one. Only messages after it can be replaced.
+     */
+    private int keyframeIndex = -1;
+
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+
+    /**
+     * Number of messages dropped because a newer one superseded them.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * The largest number of messages that have been queued at once.
+     */
+    private volatile int peakSize = 0;
+
+
+    /**
+     * Creates a queue with the {@link #defaultCapacity}.
+     */
+    public CoalescingMessageQueue() {
+        this(defaultCapacity);
+    }
+
+    /**
+     * Creates a queue with a given capacity.
+     * @param capacity The maximum number of messages that can be queued.
+     */
+    public CoalescingMessageQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.messages = new AC35Data[capacity];
+    }
+
+
+    /**
+     * Returns the key identifying which messages a given message supersedes, or null if it never supersedes anything (and so must never be dropped).
+     * @param message The message.
+     * @return The message's coalescing key, or null.
+     */
+    static Long getCoalescingKey(AC35Data message) {
+
+        if (message.getType() == MessageType.BOATLOCATION) {
+            return ((long) MessageType.BOATLOCATION.ordinal() << 32) | (((BoatLocation) message).getSourceID() & 0xFFFFFFFFL);
+
+        } else if (message.getType() == MessageType.RACESTATUS) {
+            return (long) MessageType.RACESTATUS.ordinal() << 32;
+
+        } else if (message instanceof FrameBatch && ((FrameBatch) message).isSupersedable()) {
+            return (long) MessageType.NOTAMESSAGE.ordinal() << 32;
+
+        } else {
+            return null;
+
+        }
+    }
+
+
+    /**
+     * Adds a message if there is space, or if it supersedes a queued message. Must hold {@link #lock}.
+     * @param message The message to add.
+     * @return True if it was added.
+     */
+    private boolean tryAdd(AC35Data message) {
+
+        Long key = getCoalescingKey(message);
+
+        if (count == messages.length) {
+            //Full. Only replace a message this one supersedes.
+            Integer index = (key == null) ? null : supersedable.get(key);
+            if (index == null || !isAfterKeyframe(index)) {
+                return false;
+            }
+
+            messages[index] = message;
+            droppedCount.incrementAndGet();
+            return true;
+        }
+
+        int index = (head + count) % messages.length;
+        messages[index] = message;
+        count++;
+
+        if (key != null) {
+            supersedable.put(key, index);
+        }
+
+        if (message instanceof FrameBatch && ((FrameBatch) message).isKeyframe()) {
+            keyframeIndex = index;
+        }
+
+        if (count > peakSize) {
+            peakSize = count;
+        }
+
+        notEmpty.signal();
+        return true;
+    }
+
+
+    /**
+     * Checks whether a queued message is after the newest queued keyframe batch, so replacing it can't move anything ahead of the keyframe. Must hold {@link #lock}.
+     * @param index The message's index in {@link #messages}.
+     * @return True if there is no queued keyframe, or the message is after it.
+     */
+    private boolean isAfterKeyframe(int index) {
+        if (keyframeIndex < 0) {
+            return true;
+        }
+
+        int position = (index - head + messages.length) % messages.length;
+        int keyframePosition = (keyframeIndex - head + messages.length) % messages.length;
+        return position > keyframePosition;
+    }
+
+
+    /**
+     * Removes and returns the oldest message. Must hold {@link #lock}, and the queue must not be empty.
+     * @return The oldest message.
+     */
+    private AC35Data removeHead() {
+
+        AC35Data message = messages[head];
+        messages[head] = null;
+
+        Long key = getCoalescingKey(message);
+        if (key != null && Integer.valueOf(head).equals(supersedable.get(key))) {
+            supersedable.remove(key);
+        }
+
+        if (head == keyframeIndex) {
+            keyframeIndex = -1;
+        }
+
+        head = (head + 1) % messages.length;
+        count--;
+
+        notFull.signal();
+        return message;
+    }
+
+
+    @Override
+    public boolean offer(AC35Data message) {
+        if (message == null) {
+            throw new NullPointerException();
+        }
+
+        lock.lock();
+        try {
+            return tryAdd(message);
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(AC35Data message) throws InterruptedException {
+        if (message == null) {
+            throw new NullPointerException();
+        }
+
+        lock.lockInterruptibly();
+        try {
+            while (!tryAdd(message)) {
+                notFull.await();
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(AC35Data message, long timeout, TimeUnit unit) throws InterruptedException {
+        if (message == null) {
+            throw new NullPointerException();
+        }
+
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (!tryAdd(message)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            return true;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    @Override
+    public AC35Data poll() {
+        lock.lock();
+        try {
+            return (count == 0) ? null : removeHead();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AC35Data take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return removeHead();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AC35Data poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return removeHead();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AC35Data peek() {
+        lock.lock();
+        try {
+            return (count == 0) ? null : messages[head];
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return messages.length - count;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    @Override
+    public int drainTo(Collection<? super AC35Data> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super AC35Data> collection, int maxElements) {
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+
+        lock.lock();
+        try {
+            int drained = 0;
+            while (count > 0 && drained < maxElements) {
+                collection.add(removeHead());
+                drained++;
+            }
+            return drained;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns an iterator over a copy of the queued messages, oldest first. It does not support removal.
+     * @return Iterator over the queued messages.
+     */
+    @Override
+    public Iterator<AC35Data> iterator() {
+        lock.lock();
+        try {
+            List<AC35Data> copy = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                copy.add(messages[(head + i) % messages.length]);
+            }
+            return Collections.unmodifiableList(copy).iterator();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns the maximum number of messages that can be queued.
+     * @return The queue's capacity.
+     */
+    public int getCapacity() {
+        return messages.length;
+    }
+
+    /**
+     * Returns the number of messages dropped because a newer message superseded them while the queue was full.
+     * @return Number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the largest number of messages that have been queued at once.
+     * @return Peak queue depth.
+     */
+    public int getPeakSize() {
+        return peakSize;
+    }
+}
@@ -0,0 +1,262 @@
+package network.StreamRelated;
+
+
+import network.BinaryMessageDecoder;
+import network.BinaryMessageEncoder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+
+
+/**
+ * Splits the bytes read from a channel into binary message frames, and recovers from corrupt data.
+ * <br>
+ * Bytes are read into one reusable buffer, and each frame is returned as a view of it, so nothing is copied or allocated per message.
+ * A frame is only returned once its sync bytes, body length, and CRC have been checked. If any of them are wrong, the reader skips a byte and scans forward for the next sync bytes, so one corrupt byte costs at most a few messages instead of the rest of the stream.
+ * <br>
+ * Works with both blocking and non-blocking channels.
+ */
+public class FrameReader {
+
+    /**
+     * Initial size of the read buffer. It grows to fit larger frames.
+     */
+    private static final int initialBufferSize = 4096;
+
+
+    /**
+     * The channel frames are read from.
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * The longest message body accepted. A frame claiming a longer body is treated as corrupt.
+     */
+    private final int maxBodyLength;
+
+    /**
+     * Bytes read from the channel, which haven't yet been returned as frames. Between calls, this is in read mode.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(initialBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Used to check each frame's CRC.
+     */
+    private final CRC32 crc = new CRC32();
+
+
+    /**
+     * Whether we are currently scanning for sync bytes, after finding something which wasn't a valid frame.
+     */
+    private boolean resyncing = false;
+
+    /**
+     * Number of times the reader lost sync with the stream.
+     */
+    private long resyncCount = 0;
+
+    /**
+     * Number of bytes skipped while resynchronising.
+     */
+    private long discardedByteCount = 0;
+
+    /**
+     * Number of frames rejected because of a CRC mismatch.
+     */
+    private long crcFailureCount = 0;
+
+
+    /**
+     * Creates a reader which accepts any body length a frame can hold.
+     * @param channel The channel to read from.
+     */
+    public FrameReader(ReadableByteChannel channel) {
+        this(channel, BinaryMessageEncoder.maxBodyLength);
+    }
+
+    /**
+     * Creates a reader.
+     * @param channel The channel to read from.
+     * @param maxBodyLength The longest message body to accept.
+     */
+    public FrameReader(ReadableByteChannel channel, int maxBodyLength) {
+        this.channel = channel;
+        this.maxBodyLength = Math.min(maxBodyLength, BinaryMessageEncoder.maxBodyLength);
+        this.buffer.flip();
+    }
+
+
+    /**
+     * Returns the next valid frame - header, body, and CRC - read from the channel, blocking if the channel blocks.
+     * The frame is a view of the reader's buffer, and is only valid until the next call.
+     * @return The next frame, or null if the channel is non-blocking and a whole frame isn't available yet.
+     * @throws EOFException Thrown if the channel reaches the end of the stream.
+     * @throws IOException Thrown if the channel cannot be read from.
+     */
+    public ByteBuffer nextFrame() throws IOException {
+
+        final int headerLength = BinaryMessageDecoder.headerLength;
+        final int CRCLength = BinaryMessageDecoder.CRCLength;
+
+        while (true) {
+
+            //Skip anything that isn't the start of a frame.
+            while (buffer.remaining() >= 2 && !isSyncAt(buffer.position())) {
+                discard();
+            }
+            if (buffer.remaining() == 1 && buffer.get(buffer.position()) != BinaryMessageDecoder.syncByte1) {
+                discard();
+            }
+
+            if (buffer.remaining() < headerLength) {
+                if (!fill(headerLength)) {
+                    return null;
+                }
+                continue;
+            }
+
+            int start = buffer.position();
+            int bodyLength = buffer.getShort(start + headerLength - 2) & 0xFFFF;
+
+            if (bodyLength > maxBodyLength) {
+                discard();
+                continue;
+            }
+
+            int frameLength = headerLength + bodyLength + CRCLength;
+            if (buffer.remaining() < frameLength) {
+                if (!fill(frameLength)) {
+                    return null;
+                }
+                continue;
+            }
+
+            if (!isCRCValid(start, headerLength + bodyLength)) {
+                crcFailureCount++;
+                discard();
+                continue;
+            }
+
+            resyncing = false;
+
+            int limit = buffer.limit();
+            buffer.limit(start + frameLength);
+            ByteBuffer frame = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(limit);
+            buffer.position(start + frameLength);
+
+            return frame;
+        }
+    }
+
+
+    /**
+     * Determines whether the sync bytes start at a given index.
+     * @param index Index in the buffer.
+     * @return True if the sync bytes are there.
+     */
+    private boolean isSyncAt(int index) {
+        return buffer.get(index) == BinaryMessageDecoder.syncByte1 && buffer.get(index + 1) == BinaryMessageDecoder.syncByte2;
+    }
+
+
+    /**
+     * Skips the byte at the buffer's position, because it isn't the start of a valid frame.
+     */
+    private void discard() {
+        if (!resyncing) {
+            resyncing = true;
+            resyncCount++;
+        }
+        discardedByteCount++;
+        buffer.position(buffer.position() + 1);
+    }
+
+
+    /**
+     * Checks the CRC of the frame at a given index.
+     * @param start Index of the frame.
+     * @param length Length of the header and body.
+     * @return True if the CRC matches.
+     */
+    private boolean isCRCValid(int start, int length) {
+
+        long expectedCRC = buffer.getInt(start + length) & 0xFFFFFFFFL;
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+
+        buffer.limit(start + length);
+        crc.reset();
+        crc.update(buffer);
+
+        buffer.limit(limit);
+        buffer.position(position);
+
+        return crc.getValue() == expectedCRC;
+    }
+
+
+    /**
+     * Reads more bytes from the channel, until there are at least a given number in the buffer.
+     * @param required The number of bytes needed.
+     * @return True if there are now enough, false if the channel is non-blocking and has no more bytes yet.
+     * @throws EOFException Thrown if the channel reaches the end of the stream.
+     * @throws IOException Thrown if the channel cannot be read from.
+     */
+    private boolean fill(int required) throws IOException {
+
+        if (buffer.capacity() < required) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+
+        try {
+            while (buffer.position() < required) {
+                int read = channel.read(buffer);
+
+                if (read < 0) {
+                    throw new EOFException("End of stream reached: " + channel);
+                } else if (read == 0) {
+                    return false;
+                }
+            }
+            return true;
+
+        } finally {
+            buffer.flip();
+        }
+    }
+
+
+    /**
+     * Returns the number of times the reader lost sync with the stream, and had to scan for the next frame.
+     * @return Number of resyncs.
+     */
+    public long getResyncCount() {
+        return resyncCount;
+    }
+
+    /**
+     * Returns the number of bytes skipped while resynchronising.
+     * @return Number of discarded bytes.
+     */
+    public long getDiscardedByteCount() {
+        return discardedByteCount;
+    }
+
+    /**
+     * Returns the number of frames rejected because their CRC was wrong.
+     * @return Number of CRC failures.
+     */
+    public long getCRCFailureCount() {
+        return crcFailureCount;
+    }
+}
@@ -0,0 +1,363 @@
+package network.StreamRelated;
+
+
+import network.Messages.HeartBeat;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Tracks the liveness of one connection's peer using {@link HeartBeat}s, and measures the round trip time and jitter to it.
+ * <br>
+ * We send a heartbeat every {@link #getInterval() interval}, and the peer echoes it back (see {@link HeartBeat#isEcho()}). Each echo gives a round trip time sample, which is smoothed as in RFC 6298.
+ * If an echo doesn't arrive within the {@link #getTimeout() timeout} (the smoothed round trip time plus four times the jitter), heartbeats are sent every timeout instead, as probes.
+ * After {@link #maxMissedProbes} probes in a row go unanswered, with nothing else heard from the peer, it is dead. A peer which has gone silent is therefore detected within {@link #getInterval() interval} + ({@link #maxMissedProbes} + 1) * {@link #maximumTimeoutMillis}.
+ * <br>
+ * Peers that have never echoed a heartbeat (older versions) are sent heartbeats every interval, and are only judged by the silent timeout, if there is one.
+ * <br>
+ * This doesn't send or receive anything itself - {@link #poll(long)} returns heartbeats to send, and {@link #heartBeatReceived(HeartBeat, long)} returns echoes to send. Times are {@link System#nanoTime()}s.
+ * It is thread safe, so one thread can read from the connection while another sends heartbeats.
+ */
+public class HeartBeatMonitor {
+
+    /**
+     * Default time between heartbeats, in milliseconds.
+     */
+    public static final long defaultIntervalMillis = 2500;
+
+    /**
+     * The shortest the echo timeout can be, in milliseconds. This stops a fast connection's timeout being so short that a garbage collection pause looks like a dead peer.
+     */
+    public static final long minimumTimeoutMillis = 500;
+
+    /**
+     * The longest the echo timeout can be, in milliseconds. It is also the timeout before the first round trip time is measured.
+     */
+    public static final long maximumTimeoutMillis = 2000;
+
+    /**
+     * Number of unanswered probes in a row after which the peer is dead.
+     */
+    public static final int maxMissedProbes = 3;
+
+    /**
+     * Number of recent heartbeats whose send times are remembered, to match echoes against. Must be a power of two.
+     */
+    private static final int sentHistory = 8;
+
+
+    /**
+     * Time between heartbeats while echoes arrive on time, in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * How long the peer can go without sending anything before it is dead, in nanoseconds, if it has never echoed a heartbeat. 0 means forever.
+     */
+    private final long silentTimeout;
+
+
+    /**
+     * Sequence number of the last heartbeat sent.
+     */
+    private long sequenceNumber = 0;
+
+    /**
+     * Sequence numbers of recently sent heartbeats. Index is sequence number modulo {@link #sentHistory}.
+     */
+    private final long[] sentSequenceNumbers = new long[sentHistory];
+
+    /**
+     * Times recently sent heartbeats were sent. Index is sequence number modulo {@link #sentHistory}.
+     */
+    private final long[] sentTimes = new long[sentHistory];
+
+    /**
+     * Time the last heartbeat was sent.
+     */
+    private long lastSentTime;
+
+    /**
+     * Whether the last heartbeat sent is still waiting to be echoed.
+     */
+    private boolean awaitingEcho = false;
+
+    /**
+     * Number of probes in a row which have gone unanswered.
+     */
+    private int missedProbes = 0;
+
+    /**
+     * Whether the peer has ever echoed a heartbeat.
+     */
+    private volatile boolean echoCapable = false;
+
+    /**
+     * Time anything was last received from the peer.
+     */
+    private volatile long lastSeenTime;
+
+
+    /**
+     * Smoothed round trip time, in nanoseconds. 0 until the first echo.
+     */
+    private volatile long roundTripTime = 0;
+
+    /**
+     * Mean deviation of the round trip time (RFC 6298's RTTVAR), in nanoseconds.
+     */
+    private volatile long jitter = 0;
+
+    /**
+     * The most recent round trip time sample, in nanoseconds.
+     */
+    private volatile long lastRoundTripTime = 0;
+
+
+    /**
+     * Creates a monitor which sends heartbeats every {@link #defaultIntervalMillis}, and never judges a peer by its silence alone.
+     */
+    public HeartBeatMonitor() {
+        this(defaultIntervalMillis, 0);
+    }
+
+    /**
+     * Creates a monitor.
+     * @param intervalMillis Time between heartbeats while echoes arrive on time, in milliseconds.
+     * @param silentTimeoutMillis How long a peer which has never echoed a heartbeat can go without sending anything before it is dead, in milliseconds. 0 means forever - use this if the peer may have nothing to send.
+     */
+    public HeartBeatMonitor(long intervalMillis, long silentTimeoutMillis) {
+        this.interval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.silentTimeout = TimeUnit.MILLISECONDS.toNanos(silentTimeoutMillis);
+
+        long now = System.nanoTime();
+        this.lastSeenTime = now;
+        //The first heartbeat is due one interval after the connection opens.
+        this.lastSentTime = now;
+    }
+
+
+    /**
+     * Returns a heartbeat to send, if one is due. Call this at (or after) {@link #getNextPollTime()}.
+     * @param now The current time.
+     * @return The heartbeat to send, or null if none is due.
+     */
+    public synchronized HeartBeat poll(long now) {
+
+        if (awaitingEcho && echoCapable) {
+
+            if (now - lastSentTime < getTimeoutNanos()) {
+                return null;
+            }
+
+            //The echo is overdue. Anything else heard since it was sent still shows the peer is alive.
+            if (lastSeenTime - lastSentTime > 0) {
+                missedProbes = 0;
+            } else {
+                missedProbes++;
+            }
+
+            return send(now);
+        }
+
+        if (now - lastSentTime < interval) {
+            return null;
+        }
+
+        return send(now);
+    }
+
+
+    /**
+     * Records a heartbeat as sent, and returns it.
+     * @param now The current time.
+     * @return The heartbeat.
+     */
+    private HeartBeat send(long now) {
+
+        sequenceNumber = (sequenceNumber % (HeartBeat.echoFlag - 1)) + 1;
+
+        int index = (int) (sequenceNumber & (sentHistory - 1));
+        sentSequenceNumbers[index] = sequenceNumber;
+        sentTimes[index] = now;
+
+        lastSentTime = now;
+        awaitingEcho = true;
+
+        return new HeartBeat(sequenceNumber);
+    }
+
+
+    /**
+     * Returns the time {@link #poll(long)} should next be called.
+     * @return The time the next heartbeat is due.
+     */
+    public synchronized long getNextPollTime() {
+        if (awaitingEcho && echoCapable) {
+            return lastSentTime + getTimeoutNanos();
+        } else {
+            return lastSentTime + interval;
+        }
+    }
+
+
+    /**
+     * Records that a message (of any type) was received from the peer.
+     * @param now The time it was received.
+     */
+    public void messageReceived(long now) {
+        lastSeenTime = now;
+    }
+
+
+    /**
+     * Handles a heartbeat received from the peer. An echo of one of ours is used to measure the round trip time, and any other heartbeat should be echoed back.
+     * @param heartBeat The heartbeat.
+     * @param now The time it was received.
+     * @return The echo to send back, or null if the heartbeat was itself an echo.
+     */
+    public synchronized HeartBeat heartBeatReceived(HeartBeat heartBeat, long now) {
+
+        lastSeenTime = now;
+
+        if (!heartBeat.isEcho()) {
+            return heartBeat.createEcho();
+        }
+
+        long echoedSequenceNumber = heartBeat.getSequenceNumber() & ~HeartBeat.echoFlag;
+
+        int index = (int) (echoedSequenceNumber & (sentHistory - 1));
+        if (sentSequenceNumbers[index] == echoedSequenceNumber) {
+            addRoundTripTime(now - sentTimes[index]);
+            //Only match each heartbeat once.
+            sentSequenceNumbers[index] = 0;
+        }
+
+        echoCapable = true;
+        missedProbes = 0;
+        if (echoedSequenceNumber == sequenceNumber) {
+            awaitingEcho = false;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Adds a round trip time sample, updating the smoothed round trip time and jitter as in RFC 6298.
+     * @param sample The round trip time, in nanoseconds.
+     */
+    private void addRoundTripTime(long sample) {
+
+        lastRoundTripTime = sample;
+
+        if (roundTripTime == 0) {
+            roundTripTime = Math.max(sample, 1);
+            jitter = sample / 2;
+
+        } else {
+            jitter = (3 * jitter + Math.abs(roundTripTime - sample)) / 4;
+            roundTripTime = Math.max((7 * roundTripTime + sample) / 8, 1);
+        }
+    }
+
+
+    /**
+     * Determines whether the peer is still alive.
+     * @param now The current time.
+     * @return True if it is alive, false if it is dead.
+     */
+    public synchronized boolean isAlive(long now) {
+        if (echoCapable) {
+            return missedProbes < maxMissedProbes;
+        } else {
+            return silentTimeout <= 0 || now - lastSeenTime < silentTimeout;
+        }
+    }
+
+
+    /**
+     * Returns how long to wait for an echo, in nanoseconds.
+     * @return The timeout.
+     */
+    private long getTimeoutNanos() {
+        long timeout = roundTripTime == 0 ? TimeUnit.MILLISECONDS.toNanos(maximumTimeoutMillis) : roundTripTime + 4 * jitter;
+
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(minimumTimeoutMillis), Math.min(TimeUnit.MILLISECONDS.toNanos(maximumTimeoutMillis), timeout));
+    }
+
+
+    /**
+     * Returns the time between heartbeats while echoes arrive on time.
+     * @return The interval, in milliseconds.
+     */
+    public long getInterval() {
+        return TimeUnit.NANOSECONDS.toMillis(interval);
+    }
+
+    /**
+     * Returns how long to wait for an echo before probing the peer.
+     * @return The timeout, in milliseconds.
+     */
+    public synchronized double getTimeout() {
+        return getTimeoutNanos() / 1e6;
+    }
+
+    /**
+     * Returns whether the peer has ever echoed a heartbeat. If not, there is no round trip time.
+     * @return True if the peer echoes heartbeats.
+     */
+    public boolean isEchoCapable() {
+        return echoCapable;
+    }
+
+    /**
+     * Returns the smoothed round trip time to the peer. This includes the time messages wait to be written at either end, so it is the latency the game sees.
+     * @return Round trip time, in milliseconds. 0 if it hasn't been measured.
+     */
+    public double getRoundTripTime() {
+        return roundTripTime / 1e6;
+    }
+
+    /**
+     * Returns the most recently measured round trip time to the peer.
+     * @return Round trip time, in milliseconds. 0 if it hasn't been measured.
+     */
+    public double getLastRoundTripTime() {
+        return lastRoundTripTime / 1e6;
+    }
+
+    /**
+     * Returns the jitter - the mean deviation of the round trip time.
+     * @return Jitter, in milliseconds.
+     */
+    public double getJitter() {
+        return jitter / 1e6;
+    }
+
+    /**
+     * Returns how long ago anything was last received from the peer.
+     * @param now The current time.
+     * @return Time since the peer was last seen, in milliseconds.
+     */
+    public long getTimeSinceLastSeen(long now) {
+        return TimeUnit.NANOSECONDS.toMillis(now - lastSeenTime);
+    }
+
+    /**
+     * Returns the number of probes in a row which have gone unanswered.
+     * @return Number of missed probes.
+     */
+    public synchronized int getMissedProbes() {
+        return missedProbes;
+    }
+
+
+    @Override
+    public String toString() {
+        if (!echoCapable) {
+            return String.format("last seen %d ms ago", getTimeSinceLastSeen(System.nanoTime()));
+        }
+        return String.format("rtt %.1f ms, jitter %.1f ms, last seen %d ms ago", getRoundTripTime(), getJitter(), getTimeSinceLastSeen(System.nanoTime()));
+    }
+}
@@ -0,0 +1,151 @@
+package network.StreamRelated;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Times the steps of a client joining a race, from the connection being made until the client draws its first frame of the race.
+ * The server and the visualiser each keep one per connection, so join latency can be measured end to end, from either side. Once the last step a side sees is reached, every step's time is logged.
+ * <br>
+ * Each step's time is recorded the first time it is reached, and can be recorded from any thread.
+ */
+public class JoinLatency {
+
+    /**
+     * The steps of joining a race, in the order they happen.
+     */
+    public enum Step {
+
+        /**
+         * The connection was made. The time of every other step is relative to this.
+         */
+        CONNECTED,
+
+        /**
+         * The client's {@link network.Messages.RequestToJoin} was sent, or received.
+         */
+        REQUEST_TO_JOIN,
+
+        /**
+         * The server's {@link network.Messages.JoinAcceptance} was sent, with everything needed to draw the race straight after it, or was received.
+         */
+        JOIN_ACCEPTANCE,
+
+        /**
+         * The client has received the race, boat, and regatta XML messages.
+         */
+        XML,
+
+        /**
+         * The client has received the boats' positions.
+         */
+        SNAPSHOT,
+
+        /**
+         * The client has drawn the race.
+         */
+        FIRST_FRAME
+    }
+
+
+    /**
+     * Identifies this connection in the log.
+     */
+    private final String name;
+
+    /**
+     * The step after which the join is complete, and logged.
+     */
+    private final Step lastStep;
+
+    /**
+     * Time the connection was made, in nanoseconds ({@link System#nanoTime()}).
+     */
+    private final long start;
+
+    /**
+     * Time each step was reached, in nanoseconds after {@link #start}. -1 until it is reached.
+     */
+    private final AtomicLongArray times = new AtomicLongArray(Step.values().length);
+
+
+    /**
+     * Starts timing a join. The connection is taken to have been made now.
+     * @param name Identifies this connection in the log.
+     * @param lastStep The step after which the join is complete, and logged.
+     */
+    public JoinLatency(String name, Step lastStep) {
+        this.name = name;
+        this.lastStep = lastStep;
+        this.start = System.nanoTime();
+
+        for (int i = 0; i < times.length(); i++) {
+            times.set(i, -1);
+        }
+        times.set(Step.CONNECTED.ordinal(), 0);
+    }
+
+
+    /**
+     * Records that a step has been reached now, unless it has already been reached. If it is the last step, the join is logged.
+     * @param step The step.
+     * @return True if this is the first time the step has been reached.
+     */
+    public boolean mark(Step step) {
+
+        if (!times.compareAndSet(step.ordinal(), -1, System.nanoTime() - start)) {
+            return false;
+        }
+
+        if (step == lastStep) {
+            Logger.getGlobal().log(Level.INFO, toString());
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a step has been reached.
+     * @param step The step.
+     * @return True if the step has been reached.
+     */
+    public boolean hasReached(Step step) {
+        return times.get(step.ordinal()) >= 0;
+    }
+
+    /**
+     * Returns how long after the connection was made a step was reached.
+     * @param step The step.
+     * @return Time, in milliseconds, or -1 if it hasn't been reached.
+     */
+    public double getMillis(Step step) {
+        long time = times.get(step.ordinal());
+        return time < 0 ? -1 : time / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Determines whether the join is complete.
+     * @return True if the last step has been reached.
+     */
+    public boolean isComplete() {
+        return hasReached(lastStep);
+    }
+
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder("JoinLatency ").append(name).append(':');
+
+        for (Step step : Step.values()) {
+            if (step != Step.CONNECTED && hasReached(step)) {
+                builder.append(String.format(" %s=%.1fms", step, getMillis(step)));
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -4,33 +4,57 @@ package network.StreamRelated;
 import network.BinaryMessageDecoder;
 import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
+import network.Messages.Enums.MessageType;
+import network.Messages.HeartBeat;
+import network.PacketDump.PacketLogWriter;
 import shared.model.RunnableWithFramePeriod;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static network.Utils.ByteConverter.bytesToShort;
-
 /**
  * This class is responsible for converting data from an input stream into a queue of {@link AC35Data} messages.
+ * Frames are split out of the stream by a {@link FrameReader}, which recovers if the stream is corrupted.
  */
 public class MessageDeserialiser implements RunnableWithFramePeriod {
 
 
     /**
-     * The stream we're reading from.
+     * The channel we're reading from.
      */
-    private DataInputStream inputStream;
+    private ReadableByteChannel inputChannel;
+
+    /**
+     * Splits the stream into frames.
+     */
+    private FrameReader frameReader;
 
     /**
      * The messages we've read.
      */
     private BlockingQueue<AC35Data> messagesRead;
 
+    /**
+     * Records every frame read, if not null.
+     */
+    private volatile PacketLogWriter packetLog;
+
+    /**
+     * Tracks the peer's liveness, if not null. Heartbeats are given to it instead of being placed on {@link #messagesRead}.
+     */
+    private volatile HeartBeatMonitor heartBeatMonitor;
+
+    /**
+     * The queue echoes of the peer's heartbeats are placed on, to be sent back.
+     */
+    private volatile BlockingQueue<AC35Data> heartBeatReplies;
+
 
     /**
      * Determines whether or not this runnable is currently running.
@@ -41,12 +65,22 @@ public class MessageDeserialiser implements RunnableWithFramePeriod {
 
 
     /**
-     * Constructs a new MessageSerialiser to write a queue of messages to a given stream.
-     * @param inputStream The stream to write to.
-     * @param messagesRead The messages to send.
+     * Constructs a new MessageDeserialiser to read a queue of messages from a given stream.
+     * @param inputStream The stream to read from.
+     * @param messagesRead The queue to place read messages on.
      */
     public MessageDeserialiser(InputStream inputStream, BlockingQueue<AC35Data> messagesRead) {
-        this.inputStream = new DataInputStream(inputStream);
+        this(Channels.newChannel(inputStream), messagesRead);
+    }
+
+    /**
+     * Constructs a new MessageDeserialiser to read a queue of messages from a given channel.
+     * @param inputChannel The channel to read from.
+     * @param messagesRead The queue to place read messages on.
+     */
+    public MessageDeserialiser(ReadableByteChannel inputChannel, BlockingQueue<AC35Data> messagesRead) {
+        this.inputChannel = inputChannel;
+        this.frameReader = new FrameReader(inputChannel);
         this.messagesRead = messagesRead;
     }
 
@@ -58,40 +92,30 @@ public class MessageDeserialiser implements RunnableWithFramePeriod {
         return messagesRead;
     }
 
+    /**
+     * Records every frame read from now on into a packet log, with the time it was read. Capture stops if the log cannot be written to.
+     * @param packetLog The packet log, or null to stop recording.
+     */
+    public void setPacketLog(PacketLogWriter packetLog) {
+        this.packetLog = packetLog;
+    }
 
     /**
-     * Reads and returns the next message as an array of bytes from the input stream. Use getNextMessage() to get the actual message object instead.
-     * @return Encoded binary message bytes.
-     * @throws IOException Thrown when an error occurs while reading from the input stream.
+     * Gives every heartbeat read from now on to a {@link HeartBeatMonitor} instead of placing it on the read queue, and tells it when any other message arrives. Echoes of the peer's heartbeats are placed on a queue to be sent back.
+     * @param heartBeatMonitor The monitor.
+     * @param heartBeatReplies The queue to place echoes on - usually the connection's outgoing queue.
      */
-    private byte[] getNextMessageBytes() throws IOException {
-        inputStream.mark(0);
-        short CRCLength = 4;
-        short headerLength = 15;
-
-        //Read the header of the next message.
-        byte[] headerBytes = new byte[headerLength];
-        inputStream.readFully(headerBytes);
-
-        //Read the message body length.
-        byte[] messageBodyLengthBytes = Arrays.copyOfRange(headerBytes, headerLength - 2, headerLength);
-        short messageBodyLength = bytesToShort(messageBodyLengthBytes);
-
-        //Read the message body.
-        byte[] messageBodyBytes = new byte[messageBodyLength];
-        inputStream.readFully(messageBodyBytes);
-
-        //Read the message CRC.
-        byte[] messageCRCBytes = new byte[CRCLength];
-        inputStream.readFully(messageCRCBytes);
-
-        //Put the head + body + crc into one large array.
-        ByteBuffer messageBytes = ByteBuffer.allocate(headerBytes.length + messageBodyBytes.length + messageCRCBytes.length);
-        messageBytes.put(headerBytes);
-        messageBytes.put(messageBodyBytes);
-        messageBytes.put(messageCRCBytes);
-
-        return messageBytes.array();
+    public void setHeartBeatMonitor(HeartBeatMonitor heartBeatMonitor, BlockingQueue<AC35Data> heartBeatReplies) {
+        this.heartBeatReplies = heartBeatReplies;
+        this.heartBeatMonitor = heartBeatMonitor;
+    }
+
+    /**
+     * Returns the reader which splits the stream into frames. Its counters show how often the stream was corrupted.
+     * @return The frame reader.
+     */
+    public FrameReader getFrameReader() {
+        return frameReader;
     }
 
 
@@ -103,11 +127,22 @@ public class MessageDeserialiser implements RunnableWithFramePeriod {
      */
     private AC35Data getNextMessage() throws IOException, InvalidMessageException
     {
-        //Get the next message from the socket as a block of bytes.
-        byte[] messageBytes = this.getNextMessageBytes();
+        //Get the next frame from the socket. It is only valid until the next one is read.
+        ByteBuffer frame = frameReader.nextFrame();
+
+        PacketLogWriter packetLog = this.packetLog;
+        if (packetLog != null) {
+            try {
+                packetLog.write(frame);
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not record frame to: " + packetLog.getDirectory() + ". Capture stopped.", e);
+                this.packetLog = null;
+            }
+        }
 
         //Decode the binary message into an appropriate message object.
-        BinaryMessageDecoder decoder = new BinaryMessageDecoder(messageBytes);
+        BinaryMessageDecoder decoder = new BinaryMessageDecoder(frame);
 
         return decoder.decode();
 
@@ -134,13 +169,27 @@ public class MessageDeserialiser implements RunnableWithFramePeriod {
             //Reads the next message.
             try {
                 AC35Data message = this.getNextMessage();
-                messagesRead.add(message);
+
+                HeartBeatMonitor heartBeatMonitor = this.heartBeatMonitor;
+                if (heartBeatMonitor == null) {
+                    messagesRead.add(message);
+
+                } else if (message.getType() == MessageType.HEARTBEAT) {
+                    HeartBeat echo = heartBeatMonitor.heartBeatReceived((HeartBeat) message, System.nanoTime());
+                    if (echo != null) {
+                        heartBeatReplies.offer(echo);
+                    }
+
+                } else {
+                    heartBeatMonitor.messageReceived(System.nanoTime());
+                    messagesRead.add(message);
+                }
             }
             catch (InvalidMessageException e) {
                 Logger.getGlobal().log(Level.WARNING, "Unable to read message on thread: " + Thread.currentThread() + ".", e);
 
             } catch (IOException e) {
-                Logger.getGlobal().log(Level.SEVERE, "Unable to read inputStream: " + inputStream + " on thread: " + Thread.currentThread() + ".", e);
+                Logger.getGlobal().log(Level.SEVERE, "Unable to read inputChannel: " + inputChannel + " on thread: " + Thread.currentThread() + ".", e);
                 isRunning = false;
                 return;
 
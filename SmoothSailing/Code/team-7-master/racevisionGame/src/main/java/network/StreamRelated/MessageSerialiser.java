@@ -4,11 +4,15 @@ package network.StreamRelated;
 import network.Exceptions.InvalidMessageException;
 import network.MessageEncoders.RaceVisionByteEncoder;
 import network.Messages.AC35Data;
+import network.Messages.FrameBatch;
 import shared.model.RunnableWithFramePeriod;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -17,15 +21,36 @@ import java.util.logging.Logger;
 
 /**
  * This class is responsible for writing a queue of {@link network.Messages.AC35Data} messages to an output stream.
+ * Every frame period, all of the queued messages are encoded into one buffer and written with a single call, instead of one write (and potentially one TCP segment) per message.
  */
 public class MessageSerialiser implements RunnableWithFramePeriod {
 
+    /**
+     * System property which, if set to "false", makes serialisers write each message separately, as they used to. Defaults to true.
+     */
+    public static final String batchWritesProperty = "racevision.batchWrites";
+
 
     /**
      * The stream we're writing to.
      */
     private DataOutputStream outputStream;
 
+    /**
+     * Channel view of {@link #outputStream}. If writes aren't batched, each frame is encoded into a reusable buffer and written through this.
+     */
+    private WritableByteChannel outputChannel;
+
+    /**
+     * Whether each frame period's messages are gathered into {@link #writeBuffer} and written at once.
+     */
+    private final boolean batchWrites;
+
+    /**
+     * The messages drained in a frame period are encoded into this, in write mode, then written with one call. Grows if needed.
+     */
+    private ByteBuffer writeBuffer;
+
     /**
      * The messages we're writing to the stream.
      */
@@ -51,7 +76,10 @@ public class MessageSerialiser implements RunnableWithFramePeriod {
      */
     public MessageSerialiser(OutputStream outputStream, BlockingQueue<AC35Data> messagesToSend) {
         this.outputStream = new DataOutputStream(outputStream);
+        this.outputChannel = Channels.newChannel(this.outputStream);
         this.messagesToSend = messagesToSend;
+        this.batchWrites = Boolean.parseBoolean(System.getProperty(batchWritesProperty, "true"));
+        this.writeBuffer = ByteBuffer.allocate(SocketSettings.getWriteBufferSize());
     }
 
     /**
@@ -89,6 +117,8 @@ public class MessageSerialiser implements RunnableWithFramePeriod {
 
         isRunning = true;
 
+        List<AC35Data> messages = new ArrayList<>();
+
         while (!Thread.interrupted()) {
 
 
@@ -98,28 +128,100 @@ public class MessageSerialiser implements RunnableWithFramePeriod {
 
 
             //Send the messages.
-            List<AC35Data> messages = new ArrayList<>();
+            messages.clear();
             messagesToSend.drainTo(messages);
 
-            for (AC35Data message : messages) {
-                try {
-                    byte[] messageBytes = RaceVisionByteEncoder.encodeBinaryMessage(message, getNextAckNumber());
+            if (messages.isEmpty()) {
+                continue;
+            }
+
+            try {
+                if (batchWrites) {
+                    writeBatch(messages);
+                } else {
+                    writeEach(messages);
+                }
+
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.SEVERE, "Could not write message to outputStream: " + outputStream + " on thread: " + Thread.currentThread(), e);
+                isRunning = false;
+                return;
 
-                    outputStream.write(messageBytes);
+            }
 
+        }
 
-                } catch (InvalidMessageException e) {
-                    Logger.getGlobal().log(Level.WARNING, "Could not encode message: " + message, e);
+    }
 
-                } catch (IOException e) {
-                    Logger.getGlobal().log(Level.SEVERE, "Could not write message to outputStream: " + outputStream + " on thread: " + Thread.currentThread(), e);
-                    isRunning = false;
-                    return;
 
+    /**
+     * Encodes a message, or returns the already encoded frames of a {@link FrameBatch}.
+     * @param message The message to encode.
+     * @return The encoded frame(s), between the buffer's position and limit. Only valid until this thread encodes another message.
+     * @throws InvalidMessageException Thrown if the message cannot be encoded.
+     */
+    private ByteBuffer encode(AC35Data message) throws InvalidMessageException {
+        if (message instanceof FrameBatch) {
+            //Already encoded, and shared with other clients.
+            return ((FrameBatch) message).getFrames();
+        } else {
+            return RaceVisionByteEncoder.encodeBinaryMessageFrame(message, getNextAckNumber());
+        }
+    }
+
+
+    /**
+     * Encodes a list of messages into {@link #writeBuffer}, and writes them to the stream with a single call.
+     * @param messages The messages to write.
+     * @throws IOException Thrown if the stream cannot be written to.
+     */
+    private void writeBatch(List<AC35Data> messages) throws IOException {
+
+        writeBuffer.clear();
+
+        for (AC35Data message : messages) {
+            try {
+                ByteBuffer frame = encode(message);
+
+                if (frame.remaining() > writeBuffer.remaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + frame.remaining()));
+                    writeBuffer.flip();
+                    larger.put(writeBuffer);
+                    writeBuffer = larger;
                 }
-            }
 
+                writeBuffer.put(frame);
+
+            } catch (InvalidMessageException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not encode message: " + message, e);
+
+            }
         }
 
+        outputStream.write(writeBuffer.array(), 0, writeBuffer.position());
+        outputStream.flush();
+    }
+
+
+    /**
+     * Writes a list of messages to the stream, one call per message.
+     * @param messages The messages to write.
+     * @throws IOException Thrown if the stream cannot be written to.
+     */
+    private void writeEach(List<AC35Data> messages) throws IOException {
+
+        for (AC35Data message : messages) {
+            try {
+                ByteBuffer frame = encode(message);
+
+                while (frame.hasRemaining()) {
+                    outputChannel.write(frame);
+                }
+
+            } catch (InvalidMessageException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not encode message: " + message, e);
+
+            }
+        }
     }
 }
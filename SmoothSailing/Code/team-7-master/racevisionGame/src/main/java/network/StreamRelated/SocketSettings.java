@@ -0,0 +1,91 @@
+package network.StreamRelated;
+
+
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Socket options for race connections, configured by system properties. They are applied to both ends of a connection - the server's {@link mock.model.ClientConnection}s and the visualiser's {@link visualiser.network.ServerConnection}.
+ * <br>
+ * {@link MessageSerialiser} writes a whole frame period's messages at once, so Nagle's algorithm has nothing left to coalesce and would only delay them. TCP_NODELAY is therefore on by default.
+ */
+public final class SocketSettings {
+
+    /**
+     * System property to enable or disable TCP_NODELAY. Defaults to true.
+     */
+    public static final String tcpNoDelayProperty = "racevision.tcpNoDelay";
+
+    /**
+     * System property to set the socket send buffer size, in bytes. Defaults to the operating system's size.
+     */
+    public static final String sendBufferSizeProperty = "racevision.sendBufferSize";
+
+    /**
+     * System property to set the socket receive buffer size, in bytes. Defaults to the operating system's size.
+     */
+    public static final String receiveBufferSizeProperty = "racevision.receiveBufferSize";
+
+    /**
+     * System property to set the initial size, in bytes, of the buffer a {@link MessageSerialiser} gathers each frame period's messages into. It grows if needed.
+     */
+    public static final String writeBufferSizeProperty = "racevision.writeBufferSize";
+
+    /**
+     * Default for {@link #writeBufferSizeProperty}. Enough for a snapshot of a dozen or so boats.
+     */
+    public static final int defaultWriteBufferSize = 8192;
+
+
+    /**
+     * Private constructor. Only contains static methods.
+     */
+    private SocketSettings() {
+    }
+
+
+    /**
+     * Returns whether TCP_NODELAY should be set.
+     * @return True if TCP_NODELAY should be set.
+     */
+    public static boolean isTcpNoDelay() {
+        return Boolean.parseBoolean(System.getProperty(tcpNoDelayProperty, "true"));
+    }
+
+    /**
+     * Returns the initial size of a {@link MessageSerialiser}'s write buffer.
+     * @return Write buffer size, in bytes.
+     */
+    public static int getWriteBufferSize() {
+        return Math.max(256, Integer.getInteger(writeBufferSizeProperty, defaultWriteBufferSize));
+    }
+
+
+    /**
+     * Applies the configured options to a socket. Failures are logged, and otherwise ignored, as the socket still works without them.
+     * @param socket The socket to configure.
+     */
+    public static void apply(Socket socket) {
+
+        try {
+            socket.setTcpNoDelay(isTcpNoDelay());
+
+            Integer sendBufferSize = Integer.getInteger(sendBufferSizeProperty);
+            if (sendBufferSize != null) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+
+            Integer receiveBufferSize = Integer.getInteger(receiveBufferSizeProperty);
+            if (receiveBufferSize != null) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+
+        } catch (SocketException | IllegalArgumentException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not set socket options on: " + socket, e);
+
+        }
+    }
+}
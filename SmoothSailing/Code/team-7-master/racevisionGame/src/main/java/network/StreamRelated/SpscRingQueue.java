@@ -0,0 +1,291 @@
+package network.StreamRelated;
+
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A bounded, lock-free queue for exactly one producer thread and one consumer thread - e.g., a {@link network.MessageRouters.MessageRouter} route fed by a {@link MessageDeserialiser}, and read by a controller.
+ * Elements are kept in a power of two sized ring. The producer only writes {@link #tail}, and the consumer only writes {@link #head}, so neither side takes a lock, and a waiting side is only woken (unparked) when it is actually parked.
+ * <br>
+ * More than one thread may produce (or consume) if they never do so at the same time, and each hands over to the next through a lock or other happens-before edge.
+ */
+public class SpscRingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    /**
+     * Default capacity, in elements.
+     */
+    public static final int defaultCapacity = 4096;
+
+
+    /**
+     * The ring of elements. Slot {@code i & mask} holds element number i.
+     */
+    private final Object[] ring;
+
+    /**
+     * {@code ring.length - 1}.
+     */
+    private final int mask;
+
+    /**
+     * Number of the next element to be taken. Only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Number of the next element to be added. Only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The consumer, while it is parked waiting for an element.
+     */
+    private volatile Thread waitingConsumer;
+
+    /**
+     * The producer, while it is parked waiting for space.
+     */
+    private volatile Thread waitingProducer;
+
+
+    /**
+     * Creates a queue with the {@link #defaultCapacity}.
+     */
+    public SpscRingQueue() {
+        this(defaultCapacity);
+    }
+
+    /**
+     * Creates a queue.
+     * @param capacity The minimum number of elements the queue can hold. It is rounded up to a power of two.
+     */
+    public SpscRingQueue(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new Object[size];
+        this.mask = size - 1;
+    }
+
+
+    /**
+     * Returns the maximum number of elements that can be queued.
+     * @return The queue's capacity.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+
+
+    @Override
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+
+        long currentTail = tail.get();
+        if (currentTail - head.get() >= ring.length) {
+            return false;
+        }
+
+        ring[(int) currentTail & mask] = element;
+        tail.set(currentTail + 1);
+
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+        while (!offer(element)) {
+            waitingProducer = Thread.currentThread();
+            if (isFull()) {
+                LockSupport.park(this);
+            }
+            waitingProducer = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (!offer(element)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+
+            waitingProducer = Thread.currentThread();
+            if (isFull()) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waitingProducer = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+
+        int index = (int) currentHead & mask;
+        E element = (E) ring[index];
+        ring[index] = null;
+        head.set(currentHead + 1);
+
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+        return element;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E element;
+        while ((element = poll()) == null) {
+            waitingConsumer = Thread.currentThread();
+            if (isEmpty()) {
+                LockSupport.park(this);
+            }
+            waitingConsumer = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return element;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        E element;
+        while ((element = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+
+            waitingConsumer = Thread.currentThread();
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waitingConsumer = null;
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+        return (E) ring[(int) currentHead & mask];
+    }
+
+
+    @Override
+    public int size() {
+        //Read head first, so that the size is never negative.
+        long currentHead = head.get();
+        long size = tail.get() - currentHead;
+        return (int) Math.min(size, ring.length);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * Determines whether the queue is full.
+     * @return True if it is full.
+     */
+    private boolean isFull() {
+        return tail.get() - head.get() >= ring.length;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return ring.length - size();
+    }
+
+
+    @Override
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == this) {
+            throw new IllegalArgumentException();
+        }
+
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+
+    /**
+     * Returns an iterator over a copy of the queued elements, oldest first. It does not support removal.
+     * Only the consumer thread should call this.
+     * @return Iterator over the queued elements.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        long currentHead = head.get();
+        long currentTail = tail.get();
+
+        List<E> copy = new ArrayList<>((int) (currentTail - currentHead));
+        for (long i = currentHead; i < currentTail; i++) {
+            copy.add((E) ring[(int) i & mask]);
+        }
+        return Collections.unmodifiableList(copy).iterator();
+    }
+}
@@ -2,9 +2,12 @@ package network.Utils;
 
 import shared.model.Constants;
 
+import java.nio.ByteBuffer;
+
 /**
  * Contains various unit conversion for encoding/decoding messages.
  * Our program uses the "unpacked" units, and the over-the-wire format uses "packed" units (e.g., degrees stored as ints).
+ * The get/put functions pack and unpack directly to/from a buffer, using {@link ByteCodec}, without allocating.
  */
 public class AC35UnitConverter {
 
@@ -104,4 +107,89 @@ public class AC35UnitConverter {
     }
 
 
+
+    /**
+     * Packs a latitude or longitude angle into 4 bytes of a buffer.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value The lat/long angle, in degrees.
+     */
+    public static void putGPS(ByteBuffer buffer, int index, double value) {
+        ByteCodec.putInt32(buffer, index, packGPS(value));
+    }
+
+    /**
+     * Unpacks a latitude or longitude angle from 4 bytes of a buffer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The lat/long angle, in degrees.
+     */
+    public static double getGPS(ByteBuffer buffer, int index) {
+        return unpackGPS(ByteCodec.getInt32(buffer, index));
+    }
+
+
+    /**
+     * Packs a heading (this is a bearing) into 2 bytes of a buffer.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value The heading, in degrees.
+     */
+    public static void putHeading(ByteBuffer buffer, int index, double value) {
+        ByteCodec.putInt16(buffer, index, packHeading(value));
+    }
+
+    /**
+     * Unpacks a heading (this is a bearing) from 2 unsigned bytes of a buffer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The heading, in degrees.
+     */
+    public static double getHeading(ByteBuffer buffer, int index) {
+        return unpackHeading(ByteCodec.getUInt16(buffer, index));
+    }
+
+
+    /**
+     * Packs a true wind angle (this is an azimuth) into 2 bytes of a buffer.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value The angle, in degrees.
+     */
+    public static void putTrueWindAngle(ByteBuffer buffer, int index, double value) {
+        ByteCodec.putInt16(buffer, index, packTrueWindAngle(value));
+    }
+
+    /**
+     * Unpacks a true wind angle (this is an azimuth) from 2 signed bytes of a buffer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The angle, in degrees.
+     */
+    public static double getTrueWindAngle(ByteBuffer buffer, int index) {
+        return unpackTrueWindAngle(ByteCodec.getInt16(buffer, index));
+    }
+
+
+    /**
+     * Packs a speed, in knots, into 2 bytes (millimeters per second) of a buffer.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param speedKnots Speed in knots.
+     */
+    public static void putSpeedKnots(ByteBuffer buffer, int index, double speedKnots) {
+        ByteCodec.putInt16(buffer, index, packKnotsToMMperSec(speedKnots));
+    }
+
+    /**
+     * Unpacks a speed, in knots, from 2 unsigned bytes (millimeters per second) of a buffer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return Speed in knots.
+     */
+    public static double getSpeedKnots(ByteBuffer buffer, int index) {
+        return unpackMMperSecToKnots(ByteCodec.getUInt16(buffer, index));
+    }
+
+
 }
@@ -0,0 +1,188 @@
+package network.Utils;
+
+
+import network.Messages.BoatLocation;
+import network.Messages.BoatLocationDelta;
+
+import java.util.List;
+
+import static network.Utils.AC35UnitConverter.packGPS;
+import static network.Utils.AC35UnitConverter.packHeading;
+import static network.Utils.AC35UnitConverter.packKnotsToMMperSec;
+
+
+/**
+ * Turns each frame's {@link BoatLocation}s into a single {@link BoatLocationDelta}, for clients which asked for them.
+ * A keyframe is sent every {@link #getKeyframeInterval()} frames, and whenever the boats change or one moves too far from the keyframe for its offset to fit. Every other frame is a delta from the latest keyframe.
+ * <br>
+ * Each boat costs 12 bytes in a delta, instead of a 75 byte {@link BoatLocation} frame.
+ * The stream is sent over TCP, so every keyframe sent is received in order, and deltas can refer to the latest keyframe sent without the client acknowledging it.
+ */
+public class BoatLocationDeltaCompressor {
+
+    /**
+     * Default number of frames between keyframes. About one second at 60 frames per second.
+     */
+    public static final int defaultKeyframeInterval = 60;
+
+    /**
+     * Default number of bits delta offsets are shifted right by. A packed GPS unit is about 9mm, so offsets are rounded to about 3.7cm, and can reach about 1.2km from the keyframe.
+     */
+    public static final int defaultQuantisationShift = 2;
+
+
+    /**
+     * Number of frames between keyframes.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * Number of bits delta offsets are shifted right by.
+     */
+    private final int quantisationShift;
+
+
+    /**
+     * Number of the latest keyframe. -1 before the first one.
+     */
+    private int keyframeNumber = -1;
+
+    /**
+     * Number of deltas sent since the latest keyframe.
+     */
+    private int framesSinceKeyframe = 0;
+
+    /**
+     * Source ID of each boat in the latest keyframe.
+     */
+    private int[] keyframeSourceIDs;
+
+    /**
+     * Packed latitude of each boat in the latest keyframe.
+     */
+    private int[] keyframeLatitudes;
+
+    /**
+     * Packed longitude of each boat in the latest keyframe.
+     */
+    private int[] keyframeLongitudes;
+
+
+    /**
+     * Creates a compressor with the default keyframe interval and quantisation.
+     */
+    public BoatLocationDeltaCompressor() {
+        this(defaultKeyframeInterval, defaultQuantisationShift);
+    }
+
+    /**
+     * Creates a compressor.
+     * @param keyframeInterval Number of frames between keyframes.
+     * @param quantisationShift Number of bits delta offsets are shifted right by, between 0 and 16.
+     */
+    public BoatLocationDeltaCompressor(int keyframeInterval, int quantisationShift) {
+        if (quantisationShift < 0 || quantisationShift > 16) {
+            throw new IllegalArgumentException("Quantisation shift must be between 0 and 16: " + quantisationShift);
+        }
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+        this.quantisationShift = quantisationShift;
+    }
+
+
+    /**
+     * Returns the number of frames between keyframes.
+     * @return Keyframe interval.
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+
+    /**
+     * Compresses a frame's boat locations into a keyframe or delta.
+     * @param boatLocations The location of each boat. Marks should not be included - they are sent as {@link BoatLocation}s, and only when they move.
+     * @param time Time of the frame, in milliseconds since the epoch.
+     * @return The keyframe or delta.
+     */
+    public BoatLocationDelta compress(List<BoatLocation> boatLocations, long time) {
+
+        int boatCount = boatLocations.size();
+
+        int[] sourceIDs = new int[boatCount];
+        int[] latitudes = new int[boatCount];
+        int[] longitudes = new int[boatCount];
+        int[] headings = new int[boatCount];
+        int[] speeds = new int[boatCount];
+
+        for (int i = 0; i < boatCount; i++) {
+            BoatLocation boatLocation = boatLocations.get(i);
+            sourceIDs[i] = boatLocation.getSourceID();
+            latitudes[i] = packGPS(boatLocation.getLatitude());
+            longitudes[i] = packGPS(boatLocation.getLongitude());
+            headings[i] = packHeading(boatLocation.getHeading().degrees()) & 0xFFFF;
+            speeds[i] = Math.max(0, Math.min(0xFFFF, packKnotsToMMperSec(boatLocation.getBoatSpeedKnots())));
+        }
+
+
+        if (framesSinceKeyframe < keyframeInterval && isSameBoats(sourceIDs)) {
+
+            int[] latitudeOffsets = new int[boatCount];
+            int[] longitudeOffsets = new int[boatCount];
+
+            if (quantise(latitudes, keyframeLatitudes, latitudeOffsets) && quantise(longitudes, keyframeLongitudes, longitudeOffsets)) {
+                framesSinceKeyframe++;
+                return new BoatLocationDelta(false, keyframeNumber, quantisationShift, time, sourceIDs, latitudeOffsets, longitudeOffsets, headings, speeds);
+            }
+        }
+
+
+        keyframeNumber = (keyframeNumber + 1) & 0xFFFF;
+        framesSinceKeyframe = 0;
+        keyframeSourceIDs = sourceIDs;
+        keyframeLatitudes = latitudes;
+        keyframeLongitudes = longitudes;
+
+        return new BoatLocationDelta(true, keyframeNumber, quantisationShift, time, sourceIDs, latitudes, longitudes, headings, speeds);
+    }
+
+
+    /**
+     * Determines whether the latest keyframe has the same boats, in the same order.
+     * @param sourceIDs Source ID of each boat.
+     * @return True if they are the same.
+     */
+    private boolean isSameBoats(int[] sourceIDs) {
+        if (keyframeSourceIDs == null || keyframeSourceIDs.length != sourceIDs.length) {
+            return false;
+        }
+        for (int i = 0; i < sourceIDs.length; i++) {
+            if (keyframeSourceIDs[i] != sourceIDs[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Calculates the rounded, quantised offset of each value from its keyframe value.
+     * @param values The packed values.
+     * @param keyframeValues The packed keyframe values.
+     * @param offsets Array to place the offsets in.
+     * @return False if any offset doesn't fit in 2 bytes.
+     */
+    private boolean quantise(int[] values, int[] keyframeValues, int[] offsets) {
+
+        long half = (1L << quantisationShift) >> 1;
+
+        for (int i = 0; i < values.length; i++) {
+            long offset = ((long) values[i] - keyframeValues[i] + half) >> quantisationShift;
+
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                return false;
+            }
+            offsets[i] = (int) offset;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package network.Utils;
+
+
+import network.Messages.BoatLocation;
+import network.Messages.BoatLocationDelta;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import shared.model.Bearing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static network.Utils.AC35UnitConverter.unpackGPS;
+import static network.Utils.AC35UnitConverter.unpackHeading;
+import static network.Utils.AC35UnitConverter.unpackMMperSecToKnots;
+
+
+/**
+ * Turns the {@link BoatLocationDelta}s made by a {@link BoatLocationDeltaCompressor} back into absolute {@link BoatLocation}s.
+ * It remembers the latest keyframe, and adds each delta's offsets to it.
+ */
+public class BoatLocationDeltaExpander {
+
+    /**
+     * Number of the latest keyframe. -1 before the first one.
+     */
+    private int keyframeNumber = -1;
+
+    /**
+     * Source ID of each boat in the latest keyframe.
+     */
+    private int[] keyframeSourceIDs;
+
+    /**
+     * Packed latitude of each boat in the latest keyframe.
+     */
+    private int[] keyframeLatitudes;
+
+    /**
+     * Packed longitude of each boat in the latest keyframe.
+     */
+    private int[] keyframeLongitudes;
+
+
+    /**
+     * Sequence number given to the next expanded {@link BoatLocation}.
+     */
+    private long sequenceNumber = 1;
+
+    /**
+     * Number of deltas ignored because their keyframe hadn't been received.
+     */
+    private long ignoredDeltaCount = 0;
+
+
+    /**
+     * Creates an expander, which has not yet received a keyframe.
+     */
+    public BoatLocationDeltaExpander() {
+    }
+
+
+    /**
+     * Expands a keyframe or delta into a {@link BoatLocation} for each boat.
+     * A delta is ignored, and an empty list returned, if its keyframe hasn't been received. This can only happen just after joining, and the next keyframe fixes it.
+     * @param delta The keyframe or delta.
+     * @return The location of each boat.
+     */
+    public synchronized List<BoatLocation> expand(BoatLocationDelta delta) {
+
+        int boatCount = delta.getBoatCount();
+
+        if (delta.isKeyframe()) {
+            keyframeNumber = delta.getKeyframeNumber();
+            keyframeSourceIDs = new int[boatCount];
+            keyframeLatitudes = new int[boatCount];
+            keyframeLongitudes = new int[boatCount];
+
+            for (int i = 0; i < boatCount; i++) {
+                keyframeSourceIDs[i] = delta.getSourceID(i);
+                keyframeLatitudes[i] = delta.getLatitude(i);
+                keyframeLongitudes[i] = delta.getLongitude(i);
+            }
+
+        } else if (delta.getKeyframeNumber() != keyframeNumber || boatCount != keyframeSourceIDs.length) {
+            ignoredDeltaCount++;
+            return Collections.emptyList();
+
+        }
+
+
+        List<BoatLocation> boatLocations = new ArrayList<>(boatCount);
+
+        for (int i = 0; i < boatCount; i++) {
+
+            int sourceID = delta.getSourceID(i);
+            if (sourceID != keyframeSourceIDs[i]) {
+                continue;
+            }
+
+            int latitude = keyframeLatitudes[i];
+            int longitude = keyframeLongitudes[i];
+
+            if (!delta.isKeyframe()) {
+                latitude += delta.getLatitude(i) << delta.getQuantisationShift();
+                longitude += delta.getLongitude(i) << delta.getQuantisationShift();
+            }
+
+            boatLocations.add(new BoatLocation(
+                    sourceID,
+                    unpackGPS(latitude),
+                    unpackGPS(longitude),
+                    sequenceNumber++,
+                    BoatLocationDeviceEnum.RacingYacht,
+                    Bearing.fromDegrees(unpackHeading(delta.getHeading(i))),
+                    unpackMMperSecToKnots(delta.getSpeed(i)),
+                    delta.getTime()));
+        }
+
+        return boatLocations;
+    }
+
+
+    /**
+     * Returns the number of deltas ignored because their keyframe hadn't been received.
+     * @return Number of ignored deltas.
+     */
+    public synchronized long getIgnoredDeltaCount() {
+        return ignoredDeltaCount;
+    }
+}
@@ -0,0 +1,394 @@
+package network.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes little endian (the AC35 byte order) integers of 1, 2, 4, 6, or 8 bytes, directly into a caller supplied array or {@link ByteBuffer}.
+ * Unlike {@link ByteConverter}, nothing here allocates - values are read from, and written to, a given offset.
+ * Buffer methods work regardless of the buffer's {@link ByteOrder}, and never change it.
+ */
+public final class ByteCodec {
+
+    /**
+     * Size, in bytes, of an AC35 timestamp.
+     */
+    public static final int TimeSize = 6;
+
+
+    /**
+     * Private constructor. Only contains static methods.
+     */
+    private ByteCodec() {
+    }
+
+
+    //////////////////////////////////////////////////
+    //byte[], absolute.
+    //////////////////////////////////////////////////
+
+    /**
+     * Reads an unsigned 1 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the byte.
+     * @return The value.
+     */
+    public static int getUInt8(byte[] bytes, int offset) {
+        return bytes[offset] & 0xFF;
+    }
+
+    /**
+     * Reads a signed 2 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static short getInt16(byte[] bytes, int offset) {
+        return (short) ((bytes[offset] & 0xFF) | (bytes[offset + 1] << 8));
+    }
+
+    /**
+     * Reads an unsigned 2 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static int getUInt16(byte[] bytes, int offset) {
+        return getInt16(bytes, offset) & 0xFFFF;
+    }
+
+    /**
+     * Reads a signed 4 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static int getInt32(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF)
+                | ((bytes[offset + 1] & 0xFF) << 8)
+                | ((bytes[offset + 2] & 0xFF) << 16)
+                | (bytes[offset + 3] << 24);
+    }
+
+    /**
+     * Reads an unsigned 4 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static long getUInt32(byte[] bytes, int offset) {
+        return getInt32(bytes, offset) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads an unsigned 6 byte integer (e.g., a timestamp).
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static long getUInt48(byte[] bytes, int offset) {
+        return getUInt32(bytes, offset) | ((long) getUInt16(bytes, offset + 4) << 32);
+    }
+
+    /**
+     * Reads a signed 8 byte integer.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @return The value.
+     */
+    public static long getInt64(byte[] bytes, int offset) {
+        return getUInt32(bytes, offset) | ((long) getInt32(bytes, offset + 4) << 32);
+    }
+
+
+    /**
+     * Writes the low byte of a value.
+     * @param bytes Array to write to.
+     * @param offset Index of the byte.
+     * @param value Value to write.
+     */
+    public static void putInt8(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+    }
+
+    /**
+     * Writes the low 2 bytes of a value.
+     * @param bytes Array to write to.
+     * @param offset Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt16(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    /**
+     * Writes a 4 byte value.
+     * @param bytes Array to write to.
+     * @param offset Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt32(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * Writes the low 6 bytes of a value (e.g., a timestamp).
+     * @param bytes Array to write to.
+     * @param offset Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt48(byte[] bytes, int offset, long value) {
+        putInt32(bytes, offset, (int) value);
+        putInt16(bytes, offset + 4, (int) (value >>> 32));
+    }
+
+    /**
+     * Writes an 8 byte value.
+     * @param bytes Array to write to.
+     * @param offset Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt64(byte[] bytes, int offset, long value) {
+        putInt32(bytes, offset, (int) value);
+        putInt32(bytes, offset + 4, (int) (value >>> 32));
+    }
+
+
+    //////////////////////////////////////////////////
+    //ByteBuffer, absolute. Position is not changed.
+    //////////////////////////////////////////////////
+
+    /**
+     * Reads an unsigned 1 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the byte.
+     * @return The value.
+     */
+    public static int getUInt8(ByteBuffer buffer, int index) {
+        return buffer.get(index) & 0xFF;
+    }
+
+    /**
+     * Reads a signed 2 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static short getInt16(ByteBuffer buffer, int index) {
+        short value = buffer.getShort(index);
+        return isLittleEndian(buffer) ? value : Short.reverseBytes(value);
+    }
+
+    /**
+     * Reads an unsigned 2 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static int getUInt16(ByteBuffer buffer, int index) {
+        return getInt16(buffer, index) & 0xFFFF;
+    }
+
+    /**
+     * Reads a signed 4 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static int getInt32(ByteBuffer buffer, int index) {
+        int value = buffer.getInt(index);
+        return isLittleEndian(buffer) ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * Reads an unsigned 4 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static long getUInt32(ByteBuffer buffer, int index) {
+        return getInt32(buffer, index) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads an unsigned 6 byte integer (e.g., a timestamp).
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static long getUInt48(ByteBuffer buffer, int index) {
+        return getUInt32(buffer, index) | ((long) getUInt16(buffer, index + 4) << 32);
+    }
+
+    /**
+     * Reads a signed 8 byte integer.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @return The value.
+     */
+    public static long getInt64(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return isLittleEndian(buffer) ? value : Long.reverseBytes(value);
+    }
+
+
+    /**
+     * Writes the low byte of a value.
+     * @param buffer Buffer to write to.
+     * @param index Index of the byte.
+     * @param value Value to write.
+     */
+    public static void putInt8(ByteBuffer buffer, int index, int value) {
+        buffer.put(index, (byte) value);
+    }
+
+    /**
+     * Writes the low 2 bytes of a value.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt16(ByteBuffer buffer, int index, int value) {
+        short shortValue = (short) value;
+        buffer.putShort(index, isLittleEndian(buffer) ? shortValue : Short.reverseBytes(shortValue));
+    }
+
+    /**
+     * Writes a 4 byte value.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt32(ByteBuffer buffer, int index, int value) {
+        buffer.putInt(index, isLittleEndian(buffer) ? value : Integer.reverseBytes(value));
+    }
+
+    /**
+     * Writes the low 6 bytes of a value (e.g., a timestamp).
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt48(ByteBuffer buffer, int index, long value) {
+        putInt32(buffer, index, (int) value);
+        putInt16(buffer, index + 4, (int) (value >>> 32));
+    }
+
+    /**
+     * Writes an 8 byte value.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value Value to write.
+     */
+    public static void putInt64(ByteBuffer buffer, int index, long value) {
+        buffer.putLong(index, isLittleEndian(buffer) ? value : Long.reverseBytes(value));
+    }
+
+
+    //////////////////////////////////////////////////
+    //ByteBuffer, relative. Position is advanced.
+    //////////////////////////////////////////////////
+
+    /**
+     * Writes the low byte of a value at the buffer's position.
+     * @param buffer Buffer to write to.
+     * @param value Value to write.
+     */
+    public static void putInt8(ByteBuffer buffer, int value) {
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes the low 2 bytes of a value at the buffer's position.
+     * @param buffer Buffer to write to.
+     * @param value Value to write.
+     */
+    public static void putInt16(ByteBuffer buffer, int value) {
+        short shortValue = (short) value;
+        buffer.putShort(isLittleEndian(buffer) ? shortValue : Short.reverseBytes(shortValue));
+    }
+
+    /**
+     * Writes a 4 byte value at the buffer's position.
+     * @param buffer Buffer to write to.
+     * @param value Value to write.
+     */
+    public static void putInt32(ByteBuffer buffer, int value) {
+        buffer.putInt(isLittleEndian(buffer) ? value : Integer.reverseBytes(value));
+    }
+
+    /**
+     * Writes the low 6 bytes of a value (e.g., a timestamp) at the buffer's position.
+     * @param buffer Buffer to write to.
+     * @param value Value to write.
+     */
+    public static void putInt48(ByteBuffer buffer, long value) {
+        putInt32(buffer, (int) value);
+        putInt16(buffer, (int) (value >>> 32));
+    }
+
+    /**
+     * Writes an 8 byte value at the buffer's position.
+     * @param buffer Buffer to write to.
+     * @param value Value to write.
+     */
+    public static void putInt64(ByteBuffer buffer, long value) {
+        buffer.putLong(isLittleEndian(buffer) ? value : Long.reverseBytes(value));
+    }
+
+
+    //////////////////////////////////////////////////
+    //Variable size.
+    //////////////////////////////////////////////////
+
+    /**
+     * Reads an unsigned integer of 1, 2, 4, 6, or 8 bytes.
+     * @param buffer Buffer to read from.
+     * @param index Index of the first byte.
+     * @param size Size of the integer, in bytes.
+     * @return The value. 8 byte values are returned as-is (i.e., may be negative).
+     */
+    public static long getUnsigned(ByteBuffer buffer, int index, int size) {
+        switch (size) {
+            case 1: return getUInt8(buffer, index);
+            case 2: return getUInt16(buffer, index);
+            case 4: return getUInt32(buffer, index);
+            case 6: return getUInt48(buffer, index);
+            case 8: return getInt64(buffer, index);
+            default: throw new IllegalArgumentException("Unsupported integer size: " + size);
+        }
+    }
+
+    /**
+     * Writes the low bytes of a value, as a 1, 2, 4, 6, or 8 byte integer.
+     * @param buffer Buffer to write to.
+     * @param index Index of the first byte.
+     * @param value Value to write.
+     * @param size Size of the integer, in bytes.
+     */
+    public static void putUnsigned(ByteBuffer buffer, int index, long value, int size) {
+        switch (size) {
+            case 1: putInt8(buffer, index, (int) value); break;
+            case 2: putInt16(buffer, index, (int) value); break;
+            case 4: putInt32(buffer, index, (int) value); break;
+            case 6: putInt48(buffer, index, value); break;
+            case 8: putInt64(buffer, index, value); break;
+            default: throw new IllegalArgumentException("Unsupported integer size: " + size);
+        }
+    }
+
+
+    /**
+     * Determines whether a buffer is little endian.
+     * @param buffer The buffer.
+     * @return True if it is little endian.
+     */
+    private static boolean isLittleEndian(ByteBuffer buffer) {
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN;
+    }
+
+}
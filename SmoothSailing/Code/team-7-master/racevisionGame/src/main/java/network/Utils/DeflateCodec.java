@@ -0,0 +1,108 @@
+package network.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses message bodies with the JDK's Deflate (zlib format), for peers which negotiated compression - see {@link network.MessageEncoders.RequestToJoinEncoder#CompressionFeature}.
+ * Each thread reuses its own {@link Deflater} and {@link Inflater}, so their native memory isn't allocated per message.
+ */
+public final class DeflateCodec {
+
+    /**
+     * Longest body, in bytes, that will be inflated. Anything longer is rejected, so a small malicious message can't exhaust memory.
+     */
+    public static final int MaxInflatedLength = 16 * 1024 * 1024;
+
+    /**
+     * Each thread's deflater.
+     */
+    private static final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION));
+
+    /**
+     * Each thread's inflater.
+     */
+    private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+
+
+    /**
+     * Private constructor. Only contains static methods.
+     */
+    private DeflateCodec() {
+    }
+
+
+    /**
+     * Compresses some bytes.
+     * @param bytes Array to read from.
+     * @param offset Index of the first byte.
+     * @param length Number of bytes.
+     * @return The compressed bytes.
+     */
+    public static byte[] deflate(byte[] bytes, int offset, int length) {
+
+        Deflater deflater = DeflateCodec.deflater.get();
+        deflater.reset();
+        deflater.setInput(bytes, offset, length);
+        deflater.finish();
+
+        //Text usually shrinks a lot, so start small. Incompressible input grows by a few bytes.
+        ByteArrayOutputStream output = new ByteArrayOutputStream(length / 4 + 64);
+        byte[] chunk = new byte[4096];
+
+        while (!deflater.finished()) {
+            int count = deflater.deflate(chunk);
+            output.write(chunk, 0, count);
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Compresses some bytes.
+     * @param bytes The bytes.
+     * @return The compressed bytes.
+     */
+    public static byte[] deflate(byte[] bytes) {
+        return deflate(bytes, 0, bytes.length);
+    }
+
+
+    /**
+     * Decompresses the bytes between a buffer's position and limit. The buffer's position is not changed.
+     * @param source The compressed bytes.
+     * @return The decompressed bytes.
+     * @throws DataFormatException Thrown if the bytes are not valid Deflate data, are truncated, or decompress to more than {@link #MaxInflatedLength} bytes.
+     */
+    public static byte[] inflate(ByteBuffer source) throws DataFormatException {
+
+        byte[] compressed = new byte[source.remaining()];
+        source.duplicate().get(compressed);
+
+        Inflater inflater = DeflateCodec.inflater.get();
+        inflater.reset();
+        inflater.setInput(compressed);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4 + 64);
+        byte[] chunk = new byte[4096];
+
+        while (!inflater.finished()) {
+            int count = inflater.inflate(chunk);
+
+            if (count == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Deflate data is truncated.");
+            }
+
+            output.write(chunk, 0, count);
+
+            if (output.size() > MaxInflatedLength) {
+                throw new DataFormatException("Deflate data is longer than " + MaxInflatedLength + " bytes.");
+            }
+        }
+
+        return output.toByteArray();
+    }
+}
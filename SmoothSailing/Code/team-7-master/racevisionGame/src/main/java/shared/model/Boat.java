@@ -418,10 +418,22 @@ public class Boat extends Collider {
     @Override
     public boolean rayCast(Boat boat) {
         if(boat != this) {
-            return rayCast(boat, 15);
+            return rayCast(boat, getRayCastDistance());
         } else return false;
     }
 
+    @Override
+    public boolean rayCast(Boat boat, CourseProjection courseProjection) {
+        if(boat != this) {
+            return rayCast(boat, getRayCastDistance(), courseProjection);
+        } else return false;
+    }
+
+    @Override
+    public double getRayCastDistance() {
+        return 15;
+    }
+
     @Override
     public void onCollisionEnter(Collision e) {
         if(e.getBearing().degrees() > 270 || e.getBearing().degrees() < 90) {
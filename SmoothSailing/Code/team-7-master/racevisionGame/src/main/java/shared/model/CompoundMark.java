@@ -143,11 +143,12 @@ public class CompoundMark extends XMLCompoundMark{
     /**
      * Used to find how far apart the marks that make up this gate are
      * If this compound mark is only one point return base length of 400m
+     * @param courseProjection The race's projection (see {@link RaceState#getCourseProjection()}), or null to use GeoTools.
      * @return the acceptable distance to round a mark
      */
-    public double getRoundingDistance(){
+    public double getRoundingDistance(CourseProjection courseProjection){
         if (mark2 != null){
-            return GPSCoordinate.calculateDistanceMeters(mark1.getPosition(), mark2.getPosition());
+            return GPSCoordinate.calculateDistanceMeters(mark1.getPosition(), mark2.getPosition(), courseProjection);
         }else{
             return 400;
         }
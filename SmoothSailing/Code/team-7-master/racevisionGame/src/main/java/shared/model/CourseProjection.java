@@ -0,0 +1,285 @@
+package shared.model;
+
+import java.util.List;
+
+
+/**
+ * A course-local equirectangular projection, anchored at the centre of a course, which lets {@link GPSCoordinate} calculate distances, azimuths, and new positions with a few multiplications instead of a GeoTools GeodeticCalculator.
+ * <br>
+ * Each calculation projects onto a plane using the WGS84 meridian and parallel scales at the mean latitude of the points involved, and corrects the azimuth for the convergence of meridians. The scales are expanded as quadratics in latitude about the anchor when the projection is made, so no trigonometry is needed for distances.
+ * Within {@link #ValidRadiusMeters} of the anchor, over distances of a few km, this agrees with GeoTools to within millimetres, and thousandths of a degree - see GPSCoordinateTest.
+ * Points further from the anchor aren't {@link #covers(double, double) covered}, and GPSCoordinate uses GeoTools for them instead.
+ * <br>
+ * Projections are immutable.
+ */
+public final class CourseProjection {
+
+    /**
+     * System property which, when true, makes {@link GPSCoordinate} always use GeoTools' precise geodetic calculations instead of a course projection.
+     */
+    public static final String preciseGeodesyProperty = "racevision.preciseGeodesy";
+
+    /**
+     * Distance, in meters, from the anchor that the projection is used within.
+     */
+    public static final double ValidRadiusMeters = 50000;
+
+    /**
+     * WGS84 semi-major axis, in meters.
+     */
+    private static final double SemiMajorAxis = 6378137d;
+
+    /**
+     * WGS84 first eccentricity squared.
+     */
+    private static final double EccentricitySquared = 6.69437999014e-3;
+
+    /**
+     * Degrees either side of the anchor used to fit the scale quadratics.
+     */
+    private static final double FitStepDegrees = 0.25;
+
+
+    /**
+     * The anchor of the projection.
+     */
+    private final GPSCoordinate anchor;
+
+    /**
+     * Meters per degree of latitude is latitudeScale0 + latitudeScale1 * t + latitudeScale2 * t^2, where t is the degrees of latitude from the anchor.
+     */
+    private final double latitudeScale0, latitudeScale1, latitudeScale2;
+
+    /**
+     * Meters per degree of longitude is longitudeScale0 + longitudeScale1 * t + longitudeScale2 * t^2, where t is the degrees of latitude from the anchor.
+     */
+    private final double longitudeScale0, longitudeScale1, longitudeScale2;
+
+    /**
+     * Sine and cosine of the anchor's latitude, used to approximate the sine of nearby latitudes.
+     */
+    private final double sinAnchorLatitude, cosAnchorLatitude;
+
+    /**
+     * Degrees of latitude, and of longitude, either side of the anchor that are covered.
+     */
+    private final double maxLatitudeOffset, maxLongitudeOffset;
+
+
+    /**
+     * Constructs a projection anchored at a given point.
+     * @param anchor The anchor, normally the centre of the course.
+     */
+    public CourseProjection(GPSCoordinate anchor) {
+        this.anchor = anchor;
+
+        double latitude = anchor.getLatitude();
+
+        double latitudeBelow = metersPerDegreeLatitude(latitude - FitStepDegrees);
+        double latitudeAt = metersPerDegreeLatitude(latitude);
+        double latitudeAbove = metersPerDegreeLatitude(latitude + FitStepDegrees);
+        this.latitudeScale0 = latitudeAt;
+        this.latitudeScale1 = (latitudeAbove - latitudeBelow) / (2 * FitStepDegrees);
+        this.latitudeScale2 = (latitudeAbove - 2 * latitudeAt + latitudeBelow) / (2 * FitStepDegrees * FitStepDegrees);
+
+        double longitudeBelow = metersPerDegreeLongitude(latitude - FitStepDegrees);
+        double longitudeAt = metersPerDegreeLongitude(latitude);
+        double longitudeAbove = metersPerDegreeLongitude(latitude + FitStepDegrees);
+        this.longitudeScale0 = longitudeAt;
+        this.longitudeScale1 = (longitudeAbove - longitudeBelow) / (2 * FitStepDegrees);
+        this.longitudeScale2 = (longitudeAbove - 2 * longitudeAt + longitudeBelow) / (2 * FitStepDegrees * FitStepDegrees);
+
+        this.sinAnchorLatitude = Math.sin(Math.toRadians(latitude));
+        this.cosAnchorLatitude = Math.cos(Math.toRadians(latitude));
+
+        this.maxLatitudeOffset = ValidRadiusMeters / latitudeAt;
+        //Near the poles a degree of longitude is tiny, so nothing is covered.
+        this.maxLongitudeOffset = longitudeAt > 1 ? ValidRadiusMeters / longitudeAt : 0;
+    }
+
+    /**
+     * Constructs a projection anchored at the centre of a course's boundary.
+     * @param boundary The course boundary. Must not be empty.
+     * @return The projection.
+     */
+    public static CourseProjection forBoundary(List<GPSCoordinate> boundary) {
+
+        double minLatitude = Double.MAX_VALUE;
+        double maxLatitude = -Double.MAX_VALUE;
+        double minLongitude = Double.MAX_VALUE;
+        double maxLongitude = -Double.MAX_VALUE;
+
+        for (GPSCoordinate coordinate : boundary) {
+            minLatitude = Math.min(minLatitude, coordinate.getLatitude());
+            maxLatitude = Math.max(maxLatitude, coordinate.getLatitude());
+            minLongitude = Math.min(minLongitude, coordinate.getLongitude());
+            maxLongitude = Math.max(maxLongitude, coordinate.getLongitude());
+        }
+
+        return new CourseProjection(new GPSCoordinate((minLatitude + maxLatitude) / 2, (minLongitude + maxLongitude) / 2));
+    }
+
+
+    /**
+     * Calculates the length of a degree of latitude on the WGS84 ellipsoid.
+     * @param latitude The latitude, in degrees.
+     * @return Meters per degree of latitude.
+     */
+    private static double metersPerDegreeLatitude(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        double w = 1 - EccentricitySquared * sin * sin;
+        return Math.toRadians(SemiMajorAxis * (1 - EccentricitySquared) / (w * Math.sqrt(w)));
+    }
+
+    /**
+     * Calculates the length of a degree of longitude on the WGS84 ellipsoid.
+     * @param latitude The latitude, in degrees.
+     * @return Meters per degree of longitude.
+     */
+    private static double metersPerDegreeLongitude(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        double w = 1 - EccentricitySquared * sin * sin;
+        return Math.toRadians(SemiMajorAxis * Math.cos(Math.toRadians(latitude)) / Math.sqrt(w));
+    }
+
+
+    /**
+     * Returns the anchor of the projection.
+     * @return The anchor.
+     */
+    public GPSCoordinate getAnchor() {
+        return anchor;
+    }
+
+    /**
+     * Determines whether a point is close enough to the anchor to use the projection.
+     * @param latitude The point's latitude, in degrees.
+     * @param longitude The point's longitude, in degrees.
+     * @return True if the point is covered.
+     */
+    public boolean covers(double latitude, double longitude) {
+        return Math.abs(latitude - anchor.getLatitude()) <= maxLatitudeOffset
+                && Math.abs(longitude - anchor.getLongitude()) <= maxLongitudeOffset;
+    }
+
+
+    /**
+     * Meters per degree of latitude at a given latitude.
+     * @param latitude The latitude, in degrees.
+     * @return Meters per degree.
+     */
+    private double latitudeScale(double latitude) {
+        double t = latitude - anchor.getLatitude();
+        return latitudeScale0 + (latitudeScale1 + latitudeScale2 * t) * t;
+    }
+
+    /**
+     * Meters per degree of longitude at a given latitude.
+     * @param latitude The latitude, in degrees.
+     * @return Meters per degree.
+     */
+    private double longitudeScale(double latitude) {
+        double t = latitude - anchor.getLatitude();
+        return longitudeScale0 + (longitudeScale1 + longitudeScale2 * t) * t;
+    }
+
+    /**
+     * Half the convergence of meridians between two longitudes - the difference between the azimuth of a straight line on the projection and the azimuth of the geodesic at its start.
+     * @param meanLatitude The mean latitude of the line, in degrees.
+     * @param longitudeDelta The change in longitude along the line, in degrees.
+     * @return The half convergence, in radians.
+     */
+    private double halfConvergence(double meanLatitude, double longitudeDelta) {
+        double sinMeanLatitude = sinAnchorLatitude + cosAnchorLatitude * Math.toRadians(meanLatitude - anchor.getLatitude());
+        return Math.toRadians(longitudeDelta) * sinMeanLatitude / 2;
+    }
+
+
+    /**
+     * Calculates the distance between two points.
+     * @param startLatitude The start point's latitude, in degrees.
+     * @param startLongitude The start point's longitude, in degrees.
+     * @param endLatitude The end point's latitude, in degrees.
+     * @param endLongitude The end point's longitude, in degrees.
+     * @return The distance, in meters.
+     */
+    public double distanceMeters(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        double meanLatitude = (startLatitude + endLatitude) / 2;
+
+        double north = (endLatitude - startLatitude) * latitudeScale(meanLatitude);
+        double east = (endLongitude - startLongitude) * longitudeScale(meanLatitude);
+
+        return Math.sqrt(north * north + east * east);
+    }
+
+    /**
+     * Calculates the azimuth, at the start point, from one point to another.
+     * @param startLatitude The start point's latitude, in degrees.
+     * @param startLongitude The start point's longitude, in degrees.
+     * @param endLatitude The end point's latitude, in degrees.
+     * @param endLongitude The end point's longitude, in degrees.
+     * @return The azimuth, in degrees, in the interval [-180, 180).
+     */
+    public double azimuthDegrees(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+        double meanLatitude = (startLatitude + endLatitude) / 2;
+        double longitudeDelta = endLongitude - startLongitude;
+
+        double north = (endLatitude - startLatitude) * latitudeScale(meanLatitude);
+        double east = longitudeDelta * longitudeScale(meanLatitude);
+
+        double azimuth = Math.atan2(east, north) - halfConvergence(meanLatitude, longitudeDelta);
+
+        return Azimuth.toAzimuthInterval(Math.toDegrees(azimuth));
+    }
+
+    /**
+     * Calculates the position reached by travelling a distance from a point, starting on a given azimuth.
+     * @param latitude The start point's latitude, in degrees.
+     * @param longitude The start point's longitude, in degrees.
+     * @param distanceMeters The distance to travel, in meters.
+     * @param azimuthDegrees The azimuth at the start point, in degrees.
+     * @return The new position.
+     */
+    public GPSCoordinate newPosition(double latitude, double longitude, double distanceMeters, double azimuthDegrees) {
+        double[] latitudes = {latitude};
+        double[] longitudes = {longitude};
+
+        move(latitudes, longitudes, 0, distanceMeters, azimuthDegrees);
+
+        return new GPSCoordinate(latitudes[0], longitudes[0]);
+    }
+
+    /**
+     * Moves a point, stored in a pair of arrays, a distance along a given azimuth. This is {@link #newPosition(double, double, double, double)} without allocating a GPSCoordinate, for positions held in arrays (see mock.model.FleetState).
+     * @param latitudes Latitudes, in degrees. The point's latitude is replaced with the new latitude.
+     * @param longitudes Longitudes, in degrees. The point's longitude is replaced with the new longitude.
+     * @param index Index of the point in the arrays.
+     * @param distanceMeters The distance to travel, in meters.
+     * @param azimuthDegrees The azimuth at the start point, in degrees.
+     */
+    public void move(double[] latitudes, double[] longitudes, int index, double distanceMeters, double azimuthDegrees) {
+        double latitude = latitudes[index];
+
+        double azimuth = Math.toRadians(azimuthDegrees);
+        double north = distanceMeters * Math.cos(azimuth);
+        double east = distanceMeters * Math.sin(azimuth);
+
+        //The scales depend on the mean latitude, which depends on where we end up, so estimate it first.
+        double meanLatitude = latitude + north / latitudeScale(latitude) / 2;
+        double longitudeDelta = east / longitudeScale(meanLatitude);
+
+        //A straight line on the projection heads slightly further from north than the geodesic starts, so rotate by the convergence.
+        double convergence = halfConvergence(meanLatitude, longitudeDelta);
+        double rotatedNorth = north - convergence * east;
+        double rotatedEast = east + convergence * north;
+
+        meanLatitude = latitude + rotatedNorth / latitudeScale(meanLatitude) / 2;
+        double latitudeDelta = rotatedNorth / latitudeScale(meanLatitude);
+        meanLatitude = latitude + latitudeDelta / 2;
+        longitudeDelta = rotatedEast / longitudeScale(meanLatitude);
+
+        latitudes[index] = latitude + latitudeDelta;
+        longitudes[index] += longitudeDelta;
+    }
+
+}
@@ -9,6 +9,8 @@ import java.util.List;
 
 /**
  * GPS Coordinate for the world map, containing a longitude and latitude.
+ * <br>
+ * Azimuths, distances, and new positions can be calculated with a race's {@link CourseProjection} (see {@link RaceState#getCourseProjection()}) when the points are near its course, and are calculated with GeoTools otherwise.
  * Created by esa46 on 15/03/17.
  */
 public class GPSCoordinate {
@@ -95,13 +97,27 @@ public class GPSCoordinate {
      * @return true if coordinate is in the boundary
      */
     public static boolean isInsideBoundary(GPSCoordinate coordinate, List<GPSCoordinate> boundary) {
+        return isInsideBoundary(coordinate.getLatitude(), coordinate.getLongitude(), boundary);
+    }
+
+    /**
+     * Calculates if a point, given as a latitude and longitude, is in the boundary.
+     * @param latitude latitude of the point of interest
+     * @param longitude longitude of the point of interest
+     * @param boundary List of points which make a boundary
+     * @return true if the point is in the boundary
+     */
+    public static boolean isInsideBoundary(double latitude, double longitude, List<GPSCoordinate> boundary) {
         int length = boundary.size();
 
         boolean inside = false;
 
         // Check if inside using ray casting algorithm
         for (int i = 0, j = length - 1; i < length; j = i++) {
-            if (intersects(boundary.get(i), boundary.get(j), coordinate)) {
+            GPSCoordinate boundaryA = boundary.get(i);
+            GPSCoordinate boundaryB = boundary.get(j);
+
+            if (intersects(boundaryA.getLatitude(), boundaryA.getLongitude(), boundaryB.getLatitude(), boundaryB.getLongitude(), latitude, longitude)) {
                 inside = !inside;
             }
 
@@ -143,15 +159,23 @@ public class GPSCoordinate {
      * @return true if a line from the point intersects the two boundary points
      */
     public static boolean intersects(GPSCoordinate boundaryA, GPSCoordinate boundaryB, GPSCoordinate coordinate) {
-        double boundaryALat = boundaryA.getLatitude();
-        double boundaryALon = boundaryA.getLongitude();
-        double boundaryBLat = boundaryB.getLatitude();
-        double boundaryBLon = boundaryB.getLongitude();
-        double coordinateLat = coordinate.getLatitude();
-        double coordinateLon = coordinate.getLongitude();
+        return intersects(boundaryA.getLatitude(), boundaryA.getLongitude(), boundaryB.getLatitude(), boundaryB.getLongitude(), coordinate.getLatitude(), coordinate.getLongitude());
+    }
+
+    /**
+     * Helper function to find if a point, given as latitudes and longitudes, is in a boundary
+     * @param boundaryALat The latitude of the first coordinate of the boundary.
+     * @param boundaryALon The longitude of the first coordinate of the boundary.
+     * @param boundaryBLat The latitude of the second coordinate of the boundary.
+     * @param boundaryBLon The longitude of the second coordinate of the boundary.
+     * @param coordinateLat The latitude of the coordinate to test.
+     * @param coordinateLon The longitude of the coordinate to test.
+     * @return true if a line from the point intersects the two boundary points
+     */
+    public static boolean intersects(double boundaryALat, double boundaryALon, double boundaryBLat, double boundaryBLon, double coordinateLat, double coordinateLon) {
 
         if (boundaryALat > boundaryBLat) {
-            return intersects(boundaryB, boundaryA, coordinate);
+            return intersects(boundaryBLat, boundaryBLon, boundaryALat, boundaryALon, coordinateLat, coordinateLon);
         }
         if (coordinateLat == boundaryALat || coordinateLat == boundaryBLat) {
             // Move coordinate off intersection line
@@ -199,19 +223,46 @@ public class GPSCoordinate {
      * @return greater than 0 for one side, less than 0 for another
      */
     private static double lineCheck(GPSCoordinate linePointA, GPSCoordinate linePointB, GPSCoordinate point) {
-        double linePointALat = linePointA.getLatitude();
-        double linePointALon = linePointA.getLongitude();
-        double linePointBLat = linePointB.getLatitude();
-        double linePointBLon = linePointB.getLongitude();
-        double pointLat = point.getLatitude();
-        double pointLon = point.getLongitude();
+        return lineCheck(linePointA.getLatitude(), linePointA.getLongitude(), linePointB.getLatitude(), linePointB.getLongitude(), point.getLatitude(), point.getLongitude());
+    }
 
+    /**
+     * returns a double that is positive or negative based on which
+     * side of the line a point, given as a latitude and longitude, is on. returns 0 if it is on the line
+     * @param linePointALat latitude of the first point to make up the line
+     * @param linePointALon longitude of the first point to make up the line
+     * @param linePointBLat latitude of the second point to make up the line
+     * @param linePointBLon longitude of the second point to make up the line
+     * @param pointLat latitude of the point to check
+     * @param pointLon longitude of the point to check
+     * @return greater than 0 for one side, less than 0 for another
+     */
+    public static double lineCheck(double linePointALat, double linePointALon, double linePointBLat, double linePointBLon, double pointLat, double pointLon) {
         double d1 = (pointLat - linePointALat) * (linePointBLon - linePointALon);
         double d2 = (pointLon - linePointALon) * (linePointBLat - linePointALat);
         return d1 - d2; //this gives a number < 0 for one side and > 0 for an other
     }
 
 
+    /**
+     * Returns the projection to use for a calculation, if it covers both points.
+     * @param projection The projection the calculation was given, or null.
+     * @param start The first point.
+     * @param end The second point.
+     * @return The projection, or null if GeoTools should be used.
+     */
+    private static CourseProjection projectionFor(CourseProjection projection, GPSCoordinate start, GPSCoordinate end) {
+
+        if (projection != null
+                && projection.covers(start.getLatitude(), start.getLongitude())
+                && projection.covers(end.getLatitude(), end.getLongitude())) {
+            return projection;
+        }
+
+        return null;
+    }
+
+
     /**
      * Calculates the azimuth between two points.
      * @param start The starting point.
@@ -219,6 +270,51 @@ public class GPSCoordinate {
      * @return The azimuth from the start point to the end point.
      */
     public static Azimuth calculateAzimuth(GPSCoordinate start, GPSCoordinate end) {
+        return calculateAzimuth(start, end, null);
+    }
+
+    /**
+     * Calculates the azimuth between two points, with a race's projection if it covers them.
+     * @param start The starting point.
+     * @param end The ending point.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return The azimuth from the start point to the end point.
+     */
+    public static Azimuth calculateAzimuth(GPSCoordinate start, GPSCoordinate end, CourseProjection courseProjection) {
+
+        CourseProjection projection = projectionFor(courseProjection, start, end);
+        if (projection != null) {
+            return Azimuth.fromDegrees(projection.azimuthDegrees(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude()));
+        }
+
+        return calculateGeodeticAzimuth(start, end);
+    }
+
+    /**
+     * Calculates the azimuth between two points, given as latitudes and longitudes, without allocating when the race's projection covers them.
+     * @param startLatitude The starting point's latitude.
+     * @param startLongitude The starting point's longitude.
+     * @param endLatitude The ending point's latitude.
+     * @param endLongitude The ending point's longitude.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return The azimuth, in degrees, from the start point to the end point.
+     */
+    public static double calculateAzimuthDegrees(double startLatitude, double startLongitude, double endLatitude, double endLongitude, CourseProjection courseProjection) {
+
+        if (courseProjection != null && courseProjection.covers(startLatitude, startLongitude) && courseProjection.covers(endLatitude, endLongitude)) {
+            return courseProjection.azimuthDegrees(startLatitude, startLongitude, endLatitude, endLongitude);
+        }
+
+        return calculateGeodeticAzimuth(new GPSCoordinate(startLatitude, startLongitude), new GPSCoordinate(endLatitude, endLongitude)).degrees();
+    }
+
+    /**
+     * Calculates the azimuth between two points, precisely, with GeoTools.
+     * @param start The starting point.
+     * @param end The ending point.
+     * @return The azimuth from the start point to the end point.
+     */
+    public static Azimuth calculateGeodeticAzimuth(GPSCoordinate start, GPSCoordinate end) {
 
         GeodeticCalculator calc = new GeodeticCalculator();
 
@@ -253,6 +349,51 @@ public class GPSCoordinate {
      * @return The distance, in meters, between the two given points.
      */
     public static double calculateDistanceMeters(GPSCoordinate start, GPSCoordinate end) {
+        return calculateDistanceMeters(start, end, null);
+    }
+
+    /**
+     * Calculates the distance, in meters, between two points, with a race's projection if it covers them.
+     * @param start The starting point.
+     * @param end The ending point.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return The distance, in meters, between the two given points.
+     */
+    public static double calculateDistanceMeters(GPSCoordinate start, GPSCoordinate end, CourseProjection courseProjection) {
+
+        CourseProjection projection = projectionFor(courseProjection, start, end);
+        if (projection != null) {
+            return projection.distanceMeters(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+        }
+
+        return calculateGeodeticDistanceMeters(start, end);
+    }
+
+    /**
+     * Calculates the distance, in meters, between two points, given as latitudes and longitudes, without allocating when the race's projection covers them.
+     * @param startLatitude The starting point's latitude.
+     * @param startLongitude The starting point's longitude.
+     * @param endLatitude The ending point's latitude.
+     * @param endLongitude The ending point's longitude.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return The distance, in meters, between the two given points.
+     */
+    public static double calculateDistanceMeters(double startLatitude, double startLongitude, double endLatitude, double endLongitude, CourseProjection courseProjection) {
+
+        if (courseProjection != null && courseProjection.covers(startLatitude, startLongitude) && courseProjection.covers(endLatitude, endLongitude)) {
+            return courseProjection.distanceMeters(startLatitude, startLongitude, endLatitude, endLongitude);
+        }
+
+        return calculateGeodeticDistanceMeters(new GPSCoordinate(startLatitude, startLongitude), new GPSCoordinate(endLatitude, endLongitude));
+    }
+
+    /**
+     * Calculates the distance, in meters, between two points, precisely, with GeoTools.
+     * @param start The starting point.
+     * @param end The ending point.
+     * @return The distance, in meters, between the two given points.
+     */
+    public static double calculateGeodeticDistanceMeters(GPSCoordinate start, GPSCoordinate end) {
 
         GeodeticCalculator calc = new GeodeticCalculator();
 
@@ -291,6 +432,69 @@ public class GPSCoordinate {
      * @return The entity's new coordinate.
      */
     public static GPSCoordinate calculateNewPosition(GPSCoordinate oldCoordinates, double distanceMeters, Azimuth azimuth) {
+        return calculateNewPosition(oldCoordinates, distanceMeters, azimuth, null);
+    }
+
+    /**
+     * Calculates the GPS position an entity will be at, given a starting position, distance (in meters), and an azimuth, with a race's projection if it covers both positions.
+     *
+     * @param oldCoordinates GPS coordinates of the entity's starting position.
+     * @param distanceMeters The distance in meters.
+     * @param azimuth The entity's current azimuth.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     * @return The entity's new coordinate.
+     */
+    public static GPSCoordinate calculateNewPosition(GPSCoordinate oldCoordinates, double distanceMeters, Azimuth azimuth, CourseProjection courseProjection) {
+
+        CourseProjection projection = projectionFor(courseProjection, oldCoordinates, oldCoordinates);
+        if (projection != null) {
+            GPSCoordinate newPosition = projection.newPosition(oldCoordinates.getLatitude(), oldCoordinates.getLongitude(), distanceMeters, azimuth.degrees());
+
+            if (projection.covers(newPosition.getLatitude(), newPosition.getLongitude())) {
+                return newPosition;
+            }
+        }
+
+        return calculateGeodeticNewPosition(oldCoordinates, distanceMeters, azimuth);
+    }
+
+    /**
+     * Moves an entity whose position is stored in a pair of arrays a distance (in meters) along an azimuth, without allocating when the race's projection covers it.
+     *
+     * @param latitudes Latitudes of the entities. The entity's latitude is replaced with its new latitude.
+     * @param longitudes Longitudes of the entities. The entity's longitude is replaced with its new longitude.
+     * @param index Index of the entity in the arrays.
+     * @param distanceMeters The distance in meters.
+     * @param azimuthDegrees The entity's current azimuth, in degrees.
+     * @param courseProjection The race's projection, or null to use GeoTools.
+     */
+    public static void calculateNewPosition(double[] latitudes, double[] longitudes, int index, double distanceMeters, double azimuthDegrees, CourseProjection courseProjection) {
+
+        double latitude = latitudes[index];
+        double longitude = longitudes[index];
+
+        if (courseProjection != null && courseProjection.covers(latitude, longitude)) {
+            courseProjection.move(latitudes, longitudes, index, distanceMeters, azimuthDegrees);
+
+            if (courseProjection.covers(latitudes[index], longitudes[index])) {
+                return;
+            }
+        }
+
+        GPSCoordinate newPosition = calculateGeodeticNewPosition(new GPSCoordinate(latitude, longitude), distanceMeters, Azimuth.fromDegrees(azimuthDegrees));
+        latitudes[index] = newPosition.getLatitude();
+        longitudes[index] = newPosition.getLongitude();
+    }
+
+    /**
+     * Calculates the GPS position an entity will be at, given a starting position, distance (in meters), and an azimuth, precisely, with GeoTools.
+     *
+     * @param oldCoordinates GPS coordinates of the entity's starting position.
+     * @param distanceMeters The distance in meters.
+     * @param azimuth The entity's current azimuth.
+     * @return The entity's new coordinate.
+     */
+    public static GPSCoordinate calculateGeodeticNewPosition(GPSCoordinate oldCoordinates, double distanceMeters, Azimuth azimuth) {
 
 
         GeodeticCalculator calc = new GeodeticCalculator();
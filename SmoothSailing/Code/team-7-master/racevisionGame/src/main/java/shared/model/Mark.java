@@ -92,7 +92,17 @@ public class Mark extends Collider{
 
     @Override
     public boolean rayCast(Boat boat) {
-        return rayCast(boat, 15);
+        return rayCast(boat, getRayCastDistance());
+    }
+
+    @Override
+    public boolean rayCast(Boat boat, CourseProjection courseProjection) {
+        return rayCast(boat, getRayCastDistance(), courseProjection);
+    }
+
+    @Override
+    public double getRayCastDistance() {
+        return 15;
     }
 
     @Override
@@ -21,10 +21,21 @@ public class MarkRoundingSequence {
      */
     private Map<Integer, MarkRoundingData> roundingPoints;
 
+    /**
+     * The race's projection, used to place the rounding points, or null to use GeoTools.
+     */
+    private CourseProjection courseProjection;
+
 
 
-    public MarkRoundingSequence(List<Leg> legs) {
+    /**
+     * Generates the rounding points for a course.
+     * @param legs Legs in the race.
+     * @param courseProjection The race's projection (see {@link RaceState#getCourseProjection()}), or null to use GeoTools.
+     */
+    public MarkRoundingSequence(List<Leg> legs, CourseProjection courseProjection) {
         this.legs = legs;
+        this.courseProjection = courseProjection;
         generateRoundingPoints();
     }
 
@@ -171,7 +182,7 @@ public class MarkRoundingSequence {
     private GPSCoordinate calculateRoundingCheckPoint(Leg leg, Mark markToRound, Bearing legBearing, Bearing bearingToAdd) {
 
 
-        double roundingDistanceMeters = leg.getEndCompoundMark().getRoundingDistance();
+        double roundingDistanceMeters = leg.getEndCompoundMark().getRoundingDistance(courseProjection);
 
 
         //We project from rounding mark to get the second point which forms the line the boat must cross.
@@ -185,7 +196,8 @@ public class MarkRoundingSequence {
         GPSCoordinate roundCheck = GPSCoordinate.calculateNewPosition(
                 markToRound.getPosition(),
                 roundingDistanceMeters,
-                Azimuth.fromDegrees(legBearing.degrees() + bearingToAdd.degrees())    );
+                Azimuth.fromDegrees(legBearing.degrees() + bearingToAdd.degrees()),
+                courseProjection);
 
         return roundCheck;
     }
@@ -40,6 +40,11 @@ public abstract class RaceState extends Observable{
      */
     private RegattaDataSource regattaDataSource;
 
+    /**
+     * Projection for geodesy near this race's course, or null to use GeoTools. See {@link #getCourseProjection()}.
+     */
+    private CourseProjection courseProjection;
+
     /**
      * Legs in the race.
      * We have this in a separate list so that it can be observed.
@@ -111,7 +116,7 @@ public abstract class RaceState extends Observable{
         this.legs.setAll(legs);
 
         //We create this before adding the extra finish leg, as it doesn't contain compound marks.
-        this.markRoundingSequence = new MarkRoundingSequence(getLegs());
+        this.markRoundingSequence = new MarkRoundingSequence(getLegs(), getCourseProjection());
 
         //We add a "dummy" leg at the end of the race.
         if (getLegs().size() > 0) {
@@ -144,13 +149,19 @@ public abstract class RaceState extends Observable{
 
 
     /**
-     * Sets the race data source for the race.
+     * Sets the race data source for the race. If it has a boundary, the race's {@link #getCourseProjection() projection} is centred on its course from now on.
      * @param raceDataSource New race data source.
      */
     public void setRaceDataSource(RaceDataSource raceDataSource) {
         if ((this.raceDataSource == null) || (raceDataSource.getSequenceNumber() > this.raceDataSource.getSequenceNumber())) {
             this.raceDataSource = raceDataSource;
             this.getRaceClock().setStartingTime(raceDataSource.getStartDateTime());
+
+            //The projection is made first, as the legs' rounding points are placed with it.
+            if (!raceDataSource.getBoundary().isEmpty() && !Boolean.getBoolean(CourseProjection.preciseGeodesyProperty)) {
+                this.courseProjection = CourseProjection.forBoundary(raceDataSource.getBoundary());
+            }
+
             useLegsList(raceDataSource.getLegs());
         }
     }
@@ -184,6 +195,14 @@ public abstract class RaceState extends Observable{
         return raceDataSource;
     }
 
+    /**
+     * Returns the projection for geodesy near this race's course, to pass to {@link GPSCoordinate}'s calculations.
+     * @return The projection, or null if the course has no boundary, or the {@link CourseProjection#preciseGeodesyProperty} system property is true.
+     */
+    public CourseProjection getCourseProjection() {
+        return courseProjection;
+    }
+
     /**
      * Returns the race data source for the race.
      * @return Race data source.
@@ -0,0 +1,285 @@
+package shared.utils;
+
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * A hashed timing wheel, which runs many timeouts on one thread. Each connection's heartbeat is scheduled on one, instead of every connection having a thread that sleeps, or one thread polling every connection.
+ * <br>
+ * Time is split into ticks, and the wheel has a ring of buckets, one per tick. A timeout goes in the bucket for the tick it expires in, with the number of times the wheel must go round first. Each tick, only that tick's bucket is looked at, so scheduling, cancelling and expiring are all O(1) however many timeouts there are.
+ * Timeouts run up to one tick late, never early.
+ * <br>
+ * {@link #schedule(Runnable, long)} and {@link Timeout#cancel()} can be called from any thread. Tasks run on the thread calling {@link #advance(long)} - usually {@link #run()} - so they must be quick, and may schedule more tasks.
+ */
+public class TimingWheel implements Runnable {
+
+    /**
+     * A scheduled task.
+     */
+    public static class Timeout {
+
+        /**
+         * The task to run.
+         */
+        private final Runnable task;
+
+        /**
+         * The time it should run, in nanoseconds ({@link System#nanoTime()}).
+         */
+        private final long deadline;
+
+        /**
+         * Number of times the wheel must go round before it runs.
+         */
+        private long remainingRounds;
+
+        /**
+         * Index of the bucket it is in.
+         */
+        private int bucket;
+
+        /**
+         * Whether it has been cancelled.
+         */
+        private volatile boolean cancelled = false;
+
+        /**
+         * Next timeout in the same bucket.
+         */
+        private Timeout next;
+
+        /**
+         * Previous timeout in the same bucket.
+         */
+        private Timeout previous;
+
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stops the task being run, if it hasn't run already. The timeout is removed from its bucket when the wheel next reaches it.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Returns whether the timeout has been cancelled.
+         * @return True if it has been cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+
+    /**
+     * Length of a tick, in nanoseconds.
+     */
+    private final long tickDuration;
+
+    /**
+     * Ring of buckets. Each is a doubly linked list of timeouts, headed by the array entry. Only touched by the thread advancing the wheel.
+     */
+    private final Timeout[] buckets;
+
+    /**
+     * Number of buckets - 1. The number of buckets is a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Timeouts scheduled since the wheel last advanced, waiting to be put in buckets.
+     */
+    private final ConcurrentLinkedQueue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The time the wheel was created, which tick 0 starts at.
+     */
+    private final long startTime;
+
+    /**
+     * Number of ticks the wheel has processed.
+     */
+    private long tick = 0;
+
+    /**
+     * Number of timeouts scheduled and not yet run or removed.
+     */
+    private volatile int size = 0;
+
+
+    /**
+     * Creates a timing wheel.
+     * @param tickMillis Length of a tick, in milliseconds. This is how late a timeout can run.
+     * @param bucketCount Number of buckets. Rounded up to a power of two. Timeouts further away than this many ticks go round the wheel more than once.
+     */
+    public TimingWheel(long tickMillis, int bucketCount) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, got: " + tickMillis);
+        }
+
+        this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+
+        int buckets = 1;
+        while (buckets < bucketCount) {
+            buckets <<= 1;
+        }
+        this.buckets = new Timeout[buckets];
+        this.mask = buckets - 1;
+
+        this.startTime = System.nanoTime();
+    }
+
+
+    /**
+     * Schedules a task to run after a delay.
+     * @param task The task.
+     * @param delayMillis The delay, in milliseconds.
+     * @return The timeout, which can be cancelled.
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0)));
+        pending.add(timeout);
+        return timeout;
+    }
+
+
+    /**
+     * Processes every tick up to a given time, running the timeouts which have expired.
+     * @param now The current time, in nanoseconds ({@link System#nanoTime()}).
+     */
+    public void advance(long now) {
+
+        long currentTick = (now - startTime) / tickDuration;
+
+        while (tick <= currentTick) {
+            //Timeouts scheduled by tasks are added before the next tick is processed.
+            addPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+
+    /**
+     * Moves pending timeouts into their buckets.
+     */
+    private void addPending() {
+
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            //Never put a timeout in a tick which has already been processed.
+            long expiryTick = Math.max((timeout.deadline - startTime + tickDuration - 1) / tickDuration, tick);
+
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+
+            int index = (int) (expiryTick & mask);
+            timeout.bucket = index;
+            timeout.next = buckets[index];
+            if (timeout.next != null) {
+                timeout.next.previous = timeout;
+            }
+            buckets[index] = timeout;
+            size++;
+        }
+    }
+
+
+    /**
+     * Runs the expired timeouts in a bucket, and removes them and any cancelled timeouts.
+     * @param head The first timeout in the bucket.
+     */
+    private void expire(Timeout head) {
+
+        Timeout timeout = head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+
+            if (timeout.cancelled) {
+                remove(timeout);
+
+            } else if (timeout.remainingRounds <= 0) {
+                remove(timeout);
+
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    Logger.getGlobal().log(Level.WARNING, "TimingWheel: " + this + " task threw an exception.", e);
+                }
+
+            } else {
+                timeout.remainingRounds--;
+            }
+
+            timeout = next;
+        }
+    }
+
+
+    /**
+     * Removes a timeout from its bucket.
+     * @param timeout The timeout.
+     */
+    private void remove(Timeout timeout) {
+
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            //It's the head of its bucket.
+            buckets[timeout.bucket] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        timeout.next = null;
+        timeout.previous = null;
+        size--;
+    }
+
+
+    /**
+     * Returns the number of timeouts in the wheel's buckets. Timeouts scheduled since the wheel last advanced aren't counted.
+     * @return Number of timeouts.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Advances the wheel once a tick until the thread is interrupted.
+     */
+    @Override
+    public void run() {
+
+        long tickMillis = TimeUnit.NANOSECONDS.toMillis(tickDuration);
+
+        while (!Thread.interrupted()) {
+
+            advance(System.nanoTime());
+
+            try {
+                Thread.sleep(tickMillis);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package shared.utils;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Creates the threads that the server and visualiser's networking workers (e.g., {@link shared.model.RunnableWithFramePeriod}s) run on.
+ * On a JDK with virtual threads (21+), workers run on virtual threads, which makes a blocked worker cost a few KB of heap instead of a whole platform thread and its stack. Otherwise they run on ordinary platform threads, as before.
+ * <br>
+ * Set the {@link #modeProperty} system property to "platform", "virtual", or "auto" (the default) to choose.
+ * Virtual threads are created reflectively, so this still compiles and runs on Java 8.
+ */
+public final class WorkerThreads {
+
+    /**
+     * System property which selects the kind of thread workers run on.
+     */
+    public static final String modeProperty = "racevision.threads";
+
+
+    /**
+     * The kinds of thread workers can run on.
+     */
+    public enum Mode {
+        /**
+         * Ordinary platform threads.
+         */
+        PLATFORM,
+
+        /**
+         * Virtual threads. Falls back to platform threads, with a warning, if they aren't available.
+         */
+        VIRTUAL,
+
+        /**
+         * Virtual threads if they are available, otherwise platform threads.
+         */
+        AUTO
+    }
+
+
+    /**
+     * Thread.ofVirtual(), or null if virtual threads are not available or not enabled.
+     */
+    private static final Method ofVirtual;
+
+    /**
+     * Thread.Builder.name(String).
+     */
+    private static Method builderName;
+
+    /**
+     * Thread.Builder.unstarted(Runnable).
+     */
+    private static Method builderUnstarted;
+
+    /**
+     * Whether workers currently get virtual threads.
+     */
+    private static volatile boolean virtual;
+
+
+    static {
+        Method method = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class);
+            builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+            method = Thread.class.getMethod("ofVirtual");
+
+            //On JDK 19 and 20 this throws unless preview features are enabled.
+            method.invoke(null);
+
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            method = null;
+
+        }
+        ofVirtual = method;
+
+        setMode(parseMode(System.getProperty(modeProperty)));
+    }
+
+
+    /**
+     * Private constructor. Only contains static methods.
+     */
+    private WorkerThreads() {
+    }
+
+
+    /**
+     * Parses a {@link Mode} name, ignoring case. Unknown or missing names give {@link Mode#AUTO}.
+     * @param name The name of the mode.
+     * @return The mode.
+     */
+    static Mode parseMode(String name) {
+        if (name == null) {
+            return Mode.AUTO;
+        }
+
+        try {
+            return Mode.valueOf(name.trim().toUpperCase());
+
+        } catch (IllegalArgumentException e) {
+            Logger.getGlobal().log(Level.WARNING, "Unknown " + modeProperty + " value: " + name + ". Using " + Mode.AUTO + ".");
+            return Mode.AUTO;
+
+        }
+    }
+
+
+    /**
+     * Sets the kind of thread that workers created from now on will run on.
+     * @param mode The kind of thread.
+     */
+    public static void setMode(Mode mode) {
+
+        if (mode == Mode.VIRTUAL && ofVirtual == null) {
+            Logger.getGlobal().log(Level.WARNING, "Virtual threads are not available on Java " + System.getProperty("java.version") + ". Using platform threads.");
+        }
+
+        virtual = mode != Mode.PLATFORM && ofVirtual != null;
+    }
+
+
+    /**
+     * Returns whether virtual threads are available on this JDK.
+     * @return True if virtual threads are available.
+     */
+    public static boolean isVirtualAvailable() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Returns whether workers are currently created on virtual threads.
+     * @return True if workers get virtual threads.
+     */
+    public static boolean isVirtual() {
+        return virtual;
+    }
+
+
+    /**
+     * Creates, but does not start, a thread to run a worker on. Use it exactly like {@link Thread#Thread(Runnable, String)} - it can be started, interrupted, and joined as usual.
+     * @param worker The worker to run.
+     * @param name The name of the thread.
+     * @return The unstarted thread.
+     */
+    public static Thread create(Runnable worker, String name) {
+
+        if (virtual) {
+            try {
+                Object builder = builderName.invoke(ofVirtual.invoke(null), name);
+                return (Thread) builderUnstarted.invoke(builder, worker);
+
+            } catch (ReflectiveOperationException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not create virtual thread. Using platform threads.", e);
+                virtual = false;
+
+            }
+        }
+
+        return new Thread(worker, name);
+    }
+
+
+    /**
+     * Creates and starts a thread to run a worker on. See {@link #create(Runnable, String)}.
+     * @param worker The worker to run.
+     * @param name The name of the thread.
+     * @return The started thread.
+     */
+    public static Thread start(Runnable worker, String name) {
+        Thread thread = create(worker, name);
+        thread.start();
+        return thread;
+    }
+}
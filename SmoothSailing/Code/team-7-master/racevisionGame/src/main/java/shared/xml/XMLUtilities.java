@@ -24,17 +24,34 @@ import java.net.URL;
  */
 public class XMLUtilities {
 
+    /**
+     * System property which, if set to "true", makes {@link #classToXML(Object)} write compact XML, without indentation or line breaks. Defaults to false.
+     * Races send their XML to every client, so compact XML is smaller to send, and to compress.
+     */
+    public static final String compactXMLProperty = "racevision.compactXML";
+
 
     /**
-     * Converts an XML class object to an XML string.
+     * Converts an XML class object to an XML string. It is formatted, unless {@link #compactXMLProperty} is set.
      * @param o The XML class object to convert.
      * @return String containing the serialised XML data.
      * @throws JAXBException Thrown if the object is cannot be serialised to XML.
      */
     public static String classToXML(Object o) throws JAXBException {
+        return classToXML(o, !Boolean.getBoolean(compactXMLProperty));
+    }
+
+    /**
+     * Converts an XML class object to an XML string.
+     * @param o The XML class object to convert.
+     * @param formatted Whether to indent the XML, and break it into lines.
+     * @return String containing the serialised XML data.
+     * @throws JAXBException Thrown if the object is cannot be serialised to XML.
+     */
+    public static String classToXML(Object o, boolean formatted) throws JAXBException {
         JAXBContext context = JAXBContext.newInstance(o.getClass());
         Marshaller jaxbMarshaller = context.createMarshaller();
-        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formatted);
 
         StringWriter sw = new StringWriter();
 
@@ -0,0 +1,47 @@
+package visualiser.Commands.VisualiserRaceCommands;
+
+import mock.model.commandFactory.Command;
+import network.Messages.BoatLocation;
+import network.Messages.BoatLocationDelta;
+import visualiser.model.VisualiserRaceState;
+
+
+/**
+ * Command created when a {@link BoatLocationDelta} message is received.
+ * It expands the message back into absolute {@link BoatLocation}s, and applies each of them with a {@link BoatLocationCommand}.
+ */
+public class BoatLocationDeltaCommand implements Command {
+
+    /**
+     * The message to operate on.
+     */
+    private BoatLocationDelta boatLocationDelta;
+
+    /**
+     * The context to operate on.
+     */
+    private VisualiserRaceState visualiserRace;
+
+
+    /**
+     * Creates a new {@link BoatLocationDeltaCommand}, which operates on a given {@link VisualiserRaceState}.
+     * @param boatLocationDelta The message to operate on.
+     * @param visualiserRace The context to operate on.
+     */
+    public BoatLocationDeltaCommand(BoatLocationDelta boatLocationDelta, VisualiserRaceState visualiserRace) {
+        this.boatLocationDelta = boatLocationDelta;
+        this.visualiserRace = visualiserRace;
+    }
+
+
+
+    @Override
+    public void execute() {
+
+        for (BoatLocation boatLocation : visualiserRace.getBoatLocationDeltaExpander().expand(boatLocationDelta)) {
+            new BoatLocationCommand(boatLocation, visualiserRace).execute();
+        }
+
+    }
+
+}
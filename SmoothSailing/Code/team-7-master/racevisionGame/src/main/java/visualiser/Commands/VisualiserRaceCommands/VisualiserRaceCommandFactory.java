@@ -26,6 +26,9 @@ public class VisualiserRaceCommandFactory {
             case BOATLOCATION:
                 return new BoatLocationCommand((BoatLocation) message, visualiserRace);
 
+            case BOATLOCATION_DELTA:
+                return new BoatLocationDeltaCommand((BoatLocationDelta) message, visualiserRace);
+
             case RACESTATUS: return new RaceStatusCommand((RaceStatus) message, visualiserRace);
 
             case XMLMESSAGE: return XMLMessageCommandFactory.create((XMLMessage) message, visualiserRace);
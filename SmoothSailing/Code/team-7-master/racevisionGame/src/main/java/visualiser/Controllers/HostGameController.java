@@ -17,8 +17,8 @@ import visualiser.network.HttpMatchBrowserHost;
 import visualiser.network.MatchBrowserInterface;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
 import java.net.Socket;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Optional;
@@ -36,12 +36,12 @@ public class HostGameController extends Controller {
     private int currentMapIndex = 0;
     private int selectedRaceLength; // in minutes
     private final int MAX_RACE_LENGTH = 30; // in minutes
-    private DatagramSocket udpSocket;
+    private DatagramChannel udpChannel;
     private MatchBrowserInterface matchBrowserInterface;
 
     public void initialize() {
         loadMaps();
-        this.udpSocket = MatchBrowserSingleton.getInstance().getUdpSocket();
+        this.udpChannel = MatchBrowserSingleton.getInstance().getUdpChannel();
         this.matchBrowserInterface = MatchBrowserSingleton.getInstance().getMatchBrowserInterface();
         setRaceLengthSlider();
     }
@@ -118,7 +118,7 @@ public class HostGameController extends Controller {
             if (matchBrowserInterface == null){
                 return;//private game
             }
-            matchBrowserInterface.startSendingHostData(App.game.getHostedGameData(), udpSocket);
+            matchBrowserInterface.startSendingHostData(App.game.getHostedGameData(), udpChannel);
         }catch (IOException e){
             System.err.println("failed to send out hosted game info");
         }
@@ -35,6 +35,7 @@ public class LobbyController extends Controller {
     private @FXML TableColumn<RaceConnection, String> gameNameColumn;
     private @FXML TableColumn<RaceConnection, String> hostNameColumn;
     private @FXML TableColumn<RaceConnection, String> statusColumn;
+    private @FXML TableColumn<RaceConnection, String> latencyColumn;
     private @FXML Button joinGameBtn;
     private @FXML Button spectateButton;
     private @FXML TextField addressFld;
@@ -68,6 +69,7 @@ public class LobbyController extends Controller {
         gameNameColumn.setCellValueFactory(cellData -> cellData.getValue().gamenameProperty());
         hostNameColumn.setCellValueFactory(cellData -> cellData.getValue().hostnameProperty());
         statusColumn.setCellValueFactory(cellData -> cellData.getValue().statusProperty());
+        latencyColumn.setCellValueFactory(cellData -> cellData.getValue().latencyProperty());
 
         lobbyTable.getSelectionModel().selectedItemProperty().addListener((obs, prev, curr) -> {
             if (curr != null && curr.statusProperty().getValue().equals("Ready")) {
@@ -111,6 +111,7 @@ public class RaceViewController extends Controller {
     private @FXML Pane nextMarkPane;
     private @FXML Label timer;
     private @FXML Label FPS;
+    private @FXML Label latency;
     private @FXML Label timeZone;
     private @FXML CheckBox showFPS;
     private @FXML TableView<VisualiserBoat> boatInfoTable;
@@ -882,15 +883,19 @@ public class RaceViewController extends Controller {
 
     /**
      * Initialises the frame rate functionality. This allows for toggling the
-     * frame rate, and connect the fps label to the race's fps property.
+     * frame rate, and connect the fps label to the race's fps property. The
+     * latency label, showing the connection's round trip time, jitter and
+     * time since the server was last seen, is toggled with it.
      */
     private void initialiseFps() {
         // fps toggle listener
         showFPS.selectedProperty().addListener((ov, old_val, new_val) -> {
             if (showFPS.isSelected()) {
                 FPS.setVisible(true);
+                latency.setVisible(true);
             } else {
                 FPS.setVisible(false);
+                latency.setVisible(false);
             }
         });
 
@@ -900,6 +905,13 @@ public class RaceViewController extends Controller {
             Platform.runLater(() ->
                     this.FPS.setText("FPS: " + newValue.toString()));
         });
+
+        // latency label display
+        this.visualiserRace.getLatencyProperty().addListener((observable,
+                oldValue, newValue) -> {
+            Platform.runLater(() ->
+                    this.latency.setText(newValue));
+        });
     }
 
     /**
@@ -3,10 +3,10 @@ package visualiser.app;
 import visualiser.network.MatchBrowserInterface;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
+import java.nio.channels.DatagramChannel;
 
 public class MatchBrowserSingleton {
-    private DatagramSocket udpSocket;
+    private DatagramChannel udpChannel;
     private MatchBrowserInterface matchBrowserInterface;
 
     private static MatchBrowserSingleton instance = null;
@@ -14,7 +14,7 @@ public class MatchBrowserSingleton {
     public MatchBrowserSingleton() {
         this.matchBrowserInterface = new MatchBrowserInterface();
         try{
-            this.udpSocket = matchBrowserInterface.setupMatchBrowserConnection();
+            this.udpChannel = matchBrowserInterface.setupMatchBrowserConnection();
         }catch (IOException e){
             System.err.println("Error in setting up connection with match browser");
         }
@@ -27,8 +27,8 @@ public class MatchBrowserSingleton {
         return instance;
     }
 
-    public DatagramSocket getUdpSocket() {
-        return udpSocket;
+    public DatagramChannel getUdpChannel() {
+        return udpChannel;
     }
 
     public MatchBrowserInterface getMatchBrowserInterface() {
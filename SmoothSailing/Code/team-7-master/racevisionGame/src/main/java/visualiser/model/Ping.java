@@ -1,11 +1,15 @@
 package visualiser.model;
 
+import network.StreamRelated.HeartBeatMonitor;
+
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by David on 26/07/2017.
+ * Checks whether a lobby's server is up, and shows how long it took to connect. Once connected, {@link #describe(HeartBeatMonitor, long)} formats the connection's heartbeat metrics for display.
  */
 public class Ping implements Runnable {
 
@@ -22,18 +26,38 @@ public class Ping implements Runnable {
     public boolean pingPort() {
         InetSocketAddress i = new InetSocketAddress(hostname, port);
         try (Socket s = new Socket()){
+            long start = System.nanoTime();
             s.connect(i, 1500);
+            long connectTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
             s.shutdownInput();
             s.shutdownOutput();
             s.close();
+            rc.latencyProperty().set(connectTime + " ms");
             rc.statusProperty().set("Ready");
             return true;
         } catch (IOException e) {
+            rc.latencyProperty().set("");
             rc.statusProperty().set("Offline");
         }
         return false;
     }
 
+    /**
+     * Describes a connection's round trip time, jitter, and when the peer was last heard from, for display.
+     * @param heartBeatMonitor The connection's heartbeat monitor.
+     * @param now The current {@link System#nanoTime()}.
+     * @return The description, e.g., "RTT 34 ms \u00b1 5 ms, seen 0.4 s ago". The round trip time is left out if the peer doesn't echo heartbeats.
+     */
+    public static String describe(HeartBeatMonitor heartBeatMonitor, long now) {
+        double lastSeen = heartBeatMonitor.getTimeSinceLastSeen(now) / 1000.0;
+
+        if (!heartBeatMonitor.isEchoCapable()) {
+            return String.format("seen %.1f s ago", lastSeen);
+        }
+
+        return String.format("RTT %.0f ms \u00b1 %.0f ms, seen %.1f s ago", heartBeatMonitor.getRoundTripTime(), heartBeatMonitor.getJitter(), lastSeen);
+    }
+
     @Override
     public void run() {
         pingPort();
@@ -10,6 +10,7 @@ public class RaceConnection {
     private final StringProperty hostname;
     private final int port;
     private final StringProperty status;
+    private final StringProperty latency;
     private final StringProperty gamename;
 
 
@@ -23,6 +24,7 @@ public class RaceConnection {
         this.hostname = new SimpleStringProperty(hostname);
         this.port = port;
         this.status = new SimpleStringProperty("");
+        this.latency = new SimpleStringProperty("");
         check();
         this.gamename = new SimpleStringProperty(gamename);
     }
@@ -53,5 +55,13 @@ public class RaceConnection {
         return status;
     }
 
+    /**
+     * How long the last {@link #check()} took to connect, e.g., "34 ms", or empty if it couldn't connect.
+     * @return The connect time property.
+     */
+    public StringProperty latencyProperty() {
+        return latency;
+    }
+
     public StringProperty gamenameProperty() { return gamename;}
 }
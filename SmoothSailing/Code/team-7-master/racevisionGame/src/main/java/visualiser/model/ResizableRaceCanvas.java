@@ -6,6 +6,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.text.Font;
 import javafx.scene.transform.Rotate;
+import network.StreamRelated.JoinLatency;
 import shared.dataInput.RaceDataSource;
 import shared.enums.RoundingType;
 import shared.model.*;
@@ -477,7 +478,7 @@ public class ResizableRaceCanvas extends ResizableCanvas {
 
         //Calculate either end of wake line.
         GraphCoordinate wakeFrom = this.map.convertGPS(boat.getPosition());
-        GraphCoordinate wakeTo = this.map.convertGPS(boat.getWake());
+        GraphCoordinate wakeTo = this.map.convertGPS(boat.getWake(raceState.getCourseProjection()));
 
         double lineWidth = 4;
         double endPointDiameter = 12;
@@ -663,6 +664,12 @@ public class ResizableRaceCanvas extends ResizableCanvas {
         drawMarks();
 
 
+        //The first frame drawn after the boats' positions arrive completes the join.
+        JoinLatency joinLatency = raceState.getJoinLatency();
+        if (joinLatency != null && joinLatency.hasReached(JoinLatency.Step.SNAPSHOT)) {
+            joinLatency.mark(JoinLatency.Step.FIRST_FRAME);
+        }
+
     }
 
     /**
@@ -687,6 +694,7 @@ public class ResizableRaceCanvas extends ResizableCanvas {
      * @return the end point of the current leg that has been drawn
      */
     private GPSCoordinate drawLineRounding(List<Leg> legs, int index, GPSCoordinate legStartPoint){
+        CourseProjection courseProjection = raceState.getCourseProjection();
         GPSCoordinate startDirectionLinePoint;
         GPSCoordinate endDirectionLinePoint;
         Bearing bearingOfDirectionLine;
@@ -722,11 +730,11 @@ public class ResizableRaceCanvas extends ResizableCanvas {
 
             //use the direction line to find a point parallel to it by the mark
             GPSCoordinate pointToStartCurve = GPSCoordinate.calculateNewPosition(endDirectionLinePoint,
-                    100, Azimuth.fromDegrees(bearingOfDirectionLine.degrees()+degreesToAdd));
+                    100, Azimuth.fromDegrees(bearingOfDirectionLine.degrees()+degreesToAdd), courseProjection);
 
             //use the direction line to find a point to curve too
             GPSCoordinate pointToEndCurve = GPSCoordinate.calculateNewPosition(endDirectionLinePoint,
-                    100, Azimuth.fromDegrees(bearingOfNextDirectionLine.degrees()+degreesToAdd));
+                    100, Azimuth.fromDegrees(bearingOfNextDirectionLine.degrees()+degreesToAdd), courseProjection);
 
             //use the curve points to find the two control points for the bezier curve
             GPSCoordinate controlPoint;
@@ -735,14 +743,14 @@ public class ResizableRaceCanvas extends ResizableCanvas {
             if ((bearingOfDirectionLine.degrees() - bearingOfNextDirectionLine.degrees() +360)%360< 145){
                 //small turn
                 controlPoint = GPSCoordinate.calculateNewPosition(pointToStartCurve,
-                        50, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+(degreesToAdd/2)));
+                        50, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+(degreesToAdd/2)), courseProjection);
                 controlPoint2 = controlPoint;
             }else{
                 //large turn
                 controlPoint = GPSCoordinate.calculateNewPosition(pointToStartCurve,
-                        150, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+degreesToAdd));
+                        150, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+degreesToAdd), courseProjection);
                 controlPoint2 = GPSCoordinate.calculateNewPosition(pointToEndCurve,
-                        150, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+degreesToAdd));
+                        150, Azimuth.fromDegrees(bearingOfCurveLine.degrees()+degreesToAdd), courseProjection);
             }
 
 
@@ -85,9 +85,10 @@ public class VisualiserBoat extends Boat {
      * from the boat's heading, and whose length is proportional to the boat's
      * speed.
      *
+     * @param courseProjection The race's projection (see {@link RaceState#getCourseProjection()}), or null to use GeoTools.
      * @return GPSCoordinate of wake endpoint.
      */
-    public GPSCoordinate getWake() {
+    public GPSCoordinate getWake(CourseProjection courseProjection) {
 
 
         //Calculate the reverse bearing of the boat, and convert it to an azimuth.
@@ -103,7 +104,7 @@ public class VisualiserBoat extends Boat {
 
 
         //Calculate the new coordinate.
-        GPSCoordinate wakeCoordinate = GPSCoordinate.calculateNewPosition(getPosition(), wakeDistanceMeters, reverseAzimuth);
+        GPSCoordinate wakeCoordinate = GPSCoordinate.calculateNewPosition(getPosition(), wakeDistanceMeters, reverseAzimuth, courseProjection);
 
         return wakeCoordinate;
     }
@@ -4,9 +4,12 @@ import mock.exceptions.CommandConstructionException;
 import mock.model.commandFactory.Command;
 import mock.model.commandFactory.CompositeCommand;
 import network.Messages.*;
+import network.Messages.Enums.XMLMessageType;
+import network.StreamRelated.JoinLatency;
 import shared.model.RunnableWithFramePeriod;
 import visualiser.Commands.VisualiserRaceCommands.VisualiserRaceCommandFactory;
 
+import java.util.EnumSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -36,6 +39,12 @@ public class VisualiserRaceController implements RunnableWithFramePeriod {
     private VisualiserRaceState visualiserRace;
 
 
+    /**
+     * The types of XML message received so far. Used to time the join, which has its XML once all three have been received.
+     */
+    private EnumSet<XMLMessageType> receivedXMLTypes = EnumSet.noneOf(XMLMessageType.class);
+
+
 
 
     /**
@@ -61,6 +70,8 @@ public class VisualiserRaceController implements RunnableWithFramePeriod {
             try {
                 AC35Data message = incomingMessages.take();
 
+                timeJoin(message);
+
                 Command command = VisualiserRaceCommandFactory.create(message, visualiserRace);
                 compositeRaceCommand.addCommand(command);
 
@@ -76,4 +87,38 @@ public class VisualiserRaceController implements RunnableWithFramePeriod {
         }
 
     }
+
+
+    /**
+     * Records the join's {@link JoinLatency.Step#XML} and {@link JoinLatency.Step#SNAPSHOT} steps, if the race's join is being timed.
+     * @param message A message received from the server.
+     */
+    private void timeJoin(AC35Data message) {
+
+        JoinLatency joinLatency = visualiserRace.getJoinLatency();
+        if (joinLatency == null || joinLatency.hasReached(JoinLatency.Step.SNAPSHOT)) {
+            return;
+        }
+
+        switch (message.getType()) {
+
+            case XMLMESSAGE:
+                receivedXMLTypes.add(((XMLMessage) message).getXmlMsgSubType());
+                if (receivedXMLTypes.containsAll(EnumSet.of(XMLMessageType.RACE, XMLMessageType.BOAT, XMLMessageType.REGATTA))) {
+                    joinLatency.mark(JoinLatency.Step.XML);
+                }
+                break;
+
+            case BOATLOCATION:
+            case BOATLOCATION_DELTA:
+            case RACESTATUS:
+                if (joinLatency.hasReached(JoinLatency.Step.XML)) {
+                    joinLatency.mark(JoinLatency.Step.SNAPSHOT);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
 }
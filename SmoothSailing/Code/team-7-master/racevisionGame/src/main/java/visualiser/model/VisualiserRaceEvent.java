@@ -2,11 +2,13 @@ package visualiser.model;
 
 
 import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.StringProperty;
 import mock.model.commandFactory.CompositeCommand;
 import network.Messages.Enums.RequestToJoinEnum;
 import shared.dataInput.EmptyBoatDataSource;
 import shared.dataInput.EmptyRaceDataSource;
 import shared.dataInput.EmptyRegattaDataSource;
+import shared.utils.WorkerThreads;
 import visualiser.gameController.ControllerClient;
 import visualiser.network.HttpMatchBrowserHost;
 import visualiser.network.ServerConnection;
@@ -62,12 +64,12 @@ public class VisualiserRaceEvent {
         CompositeCommand raceCommands = new CompositeCommand();
         this.visualiserRaceService = new VisualiserRaceService(raceCommands, visualiserRaceState);
 
-        this.visualiserRaceServiceThread = new Thread(visualiserRaceService, "VisualiserRaceEvent()->VisualiserRaceService thread " + visualiserRaceService);
+        this.visualiserRaceServiceThread = WorkerThreads.create(visualiserRaceService, "VisualiserRaceEvent()->VisualiserRaceService thread " + visualiserRaceService);
         this.visualiserRaceServiceThread.start();
 
 
         this.serverConnection = new ServerConnection(socket, visualiserRaceState, raceCommands, requestType);
-        this.serverConnectionThread = new Thread(serverConnection, "RaceStartController.enterLobby()->serverConnection thread " + serverConnection);
+        this.serverConnectionThread = WorkerThreads.create(serverConnection, "RaceStartController.enterLobby()->serverConnection thread " + serverConnection);
         this.serverConnectionThread.start();
 
 
@@ -107,6 +109,14 @@ public class VisualiserRaceEvent {
         return visualiserRaceService.getFrameRateProperty();
     }
 
+    /**
+     * Returns the connection's latency property: the server's round trip time, jitter, and time since it was last seen.
+     * @return Latency property of the connection.
+     */
+    public StringProperty getLatencyProperty() {
+        return serverConnection.latencyProperty();
+    }
+
 
 
     /**
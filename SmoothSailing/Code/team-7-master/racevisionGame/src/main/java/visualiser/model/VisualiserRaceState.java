@@ -5,6 +5,8 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.paint.Color;
 import network.Messages.Enums.BoatStatusEnum;
+import network.StreamRelated.JoinLatency;
+import network.Utils.BoatLocationDeltaExpander;
 import shared.dataInput.BoatDataSource;
 import shared.dataInput.RaceDataSource;
 import shared.dataInput.RegattaDataSource;
@@ -41,6 +43,16 @@ public class VisualiserRaceState extends RaceState {
      */
     private Map<Leg, List<VisualiserBoat>> legCompletionOrder;
 
+    /**
+     * Turns {@link network.Messages.BoatLocationDelta}s from the server back into boat locations.
+     */
+    private BoatLocationDeltaExpander boatLocationDeltaExpander = new BoatLocationDeltaExpander();
+
+    /**
+     * Times the join to the server this race is received from. Null if there isn't one.
+     */
+    private volatile JoinLatency joinLatency;
+
 
 
 
@@ -400,4 +412,30 @@ public class VisualiserRaceState extends RaceState {
     }
 
 
+    /**
+     * Returns the expander which turns {@link network.Messages.BoatLocationDelta}s from the server back into boat locations.
+     * @return The boat location delta expander.
+     */
+    public BoatLocationDeltaExpander getBoatLocationDeltaExpander() {
+        return boatLocationDeltaExpander;
+    }
+
+
+    /**
+     * Returns the {@link JoinLatency} which times the join to the server this race is received from.
+     * @return The join latency. Null if there isn't one.
+     */
+    public JoinLatency getJoinLatency() {
+        return joinLatency;
+    }
+
+    /**
+     * Sets the {@link JoinLatency} which times the join to the server this race is received from.
+     * @param joinLatency The join latency. May be null.
+     */
+    public void setJoinLatency(JoinLatency joinLatency) {
+        this.joinLatency = joinLatency;
+    }
+
+
 }
@@ -6,6 +6,7 @@ import network.Messages.AC35Data;
 import network.Messages.Enums.RequestToJoinEnum;
 import network.Messages.JoinAcceptance;
 import network.Messages.RequestToJoin;
+import network.StreamRelated.JoinLatency;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import shared.model.RunnableWithFramePeriod;
@@ -20,11 +21,26 @@ import java.util.logging.Logger;
  */
 public class ConnectionToServer implements RunnableWithFramePeriod {
 
+    /**
+     * System property which, if set to "false", stops the visualiser asking servers for {@link network.Messages.BoatLocationDelta}s. Defaults to true.
+     */
+    public static final String boatLocationDeltasProperty = "racevision.boatLocationDeltas";
+
+    /**
+     * System property which, if set to "false", stops the visualiser asking servers to deflate XML messages. Defaults to true.
+     */
+    public static final String compressionProperty = "racevision.compression";
+
 
     /**
      * The state of the connection to the client.
      */
-    private ConnectionToServerState connectionState = ConnectionToServerState.UNKNOWN;
+    private volatile ConnectionToServerState connectionState = ConnectionToServerState.UNKNOWN;
+
+    /**
+     * Notified whenever {@link #connectionState} changes.
+     */
+    private final Object connectionStateLock = new Object();
 
 
     /**
@@ -53,6 +69,13 @@ public class ConnectionToServer implements RunnableWithFramePeriod {
     private BlockingQueue<Command> incomingCommands;
 
 
+    /**
+     * Times the join, if anything is timing it. May be null.
+     */
+    @Nullable
+    private JoinLatency joinLatency;
+
+
 
     /**
      * Constructs a ConnectionToServer with a given state.
@@ -82,7 +105,30 @@ public class ConnectionToServer implements RunnableWithFramePeriod {
      * @param connectionState The new state of this connection.
      */
     public void setConnectionState(ConnectionToServerState connectionState) {
-        this.connectionState = connectionState;
+        synchronized (connectionStateLock) {
+            this.connectionState = connectionState;
+            connectionStateLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the state of this connection is no longer a given state, or a timeout elapses.
+     * @param previousState The state to wait for a change from.
+     * @param timeoutMillis The longest time to wait, in milliseconds.
+     * @return The state of this connection, which may still be previousState if the timeout elapsed.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public ConnectionToServerState awaitConnectionStateChange(ConnectionToServerState previousState, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        synchronized (connectionStateLock) {
+            long remaining = timeoutMillis;
+            while (connectionState == previousState && remaining > 0) {
+                connectionStateLock.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return connectionState;
+        }
     }
 
 
@@ -101,6 +147,19 @@ public class ConnectionToServer implements RunnableWithFramePeriod {
      */
     public void setJoinAcceptance(@NotNull JoinAcceptance joinAcceptance) {
         this.joinAcceptance = joinAcceptance;
+
+        if (joinLatency != null) {
+            joinLatency.mark(JoinLatency.Step.JOIN_ACCEPTANCE);
+        }
+    }
+
+
+    /**
+     * Sets the {@link JoinLatency} which times this connection's join.
+     * @param joinLatency Times the join. May be null.
+     */
+    public void setJoinLatency(@Nullable JoinLatency joinLatency) {
+        this.joinLatency = joinLatency;
     }
 
 
@@ -131,7 +190,7 @@ public class ConnectionToServer implements RunnableWithFramePeriod {
         }
 
         //If we get interrupted, we consider the connection to have timed-out.
-        connectionState = ConnectionToServerState.TIMED_OUT;
+        setConnectionState(ConnectionToServerState.TIMED_OUT);
 
     }
 
@@ -144,12 +203,18 @@ public class ConnectionToServer implements RunnableWithFramePeriod {
      */
     private void sendRequestToJoinMessage(RequestToJoinEnum requestType) throws InterruptedException {
 
-        //Send them the source ID.
-        RequestToJoin requestToJoin = new RequestToJoin(requestType);
+        //Ask for compact boat locations, and compressed XML, unless disabled.
+        boolean boatLocationDeltas = Boolean.parseBoolean(System.getProperty(boatLocationDeltasProperty, "true"));
+        boolean compression = Boolean.parseBoolean(System.getProperty(compressionProperty, "true"));
+        RequestToJoin requestToJoin = new RequestToJoin(requestType, boatLocationDeltas, compression);
 
         send(requestToJoin);
 
-        connectionState = ConnectionToServerState.REQUEST_SENT;
+        if (joinLatency != null) {
+            joinLatency.mark(JoinLatency.Step.REQUEST_TO_JOIN);
+        }
+
+        setConnectionState(ConnectionToServerState.REQUEST_SENT);
     }
 
 
@@ -1,88 +1,145 @@
 package visualiser.network;
 
-import mock.model.commandFactory.Command;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import network.Messages.AC35Data;
+import network.Messages.HeartBeat;
+import network.StreamRelated.HeartBeatMonitor;
 import shared.model.RunnableWithFramePeriod;
+import visualiser.model.Ping;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 /**
  * Tracks the heart beat status of a connection.
+ * The server's heartbeats are handled by a {@link HeartBeatMonitor}, which the connection's {@link network.StreamRelated.MessageDeserialiser} gives them to, and which echoes them back.
+ * This sends our own heartbeats, which an up to date server echoes back, so the monitor can measure the round trip time and jitter to the server.
+ * The measurements are published, at least every {@link #publishPeriod}, to properties the UI can observe. They are set on this service's thread, so listeners must use {@link javafx.application.Platform#runLater(Runnable)}.
  */
 public class IncomingHeartBeatService implements RunnableWithFramePeriod {
 
+    /**
+     * Going this long, in milliseconds, without hearing from a server which doesn't echo heartbeats means that the connection is "dead".
+     */
+    private static final long silentTimeout = 10000;
 
     /**
-     * Timestamp of the last sent heartbeat message.
+     * The longest time, in milliseconds, between publishing the monitor's measurements.
      */
-    private long lastHeartbeatTime;
+    private static final long publishPeriod = 1000;
 
 
     /**
-     * Sequence number for heartbeat messages.
+     * Tracks the server's liveness, round trip time and jitter.
+     */
+    private HeartBeatMonitor heartBeatMonitor;
+
+    /**
+     * The queue our heartbeats are sent on.
      */
-    private long lastHeartBeatSeqNum;
+    private BlockingQueue<AC35Data> outgoingMessages;
 
 
     /**
-     * The incoming commands to execute.
+     * The smoothed round trip time to the server, in milliseconds. 0 until it is measured.
      */
-    private BlockingQueue<Command> incomingCommands;
+    private final DoubleProperty roundTripTime = new SimpleDoubleProperty(0);
 
+    /**
+     * The jitter of the round trip time to the server, in milliseconds.
+     */
+    private final DoubleProperty jitter = new SimpleDoubleProperty(0);
 
+    /**
+     * How long ago anything was last received from the server, in milliseconds.
+     */
+    private final LongProperty timeSinceLastSeen = new SimpleLongProperty(0);
 
     /**
-     * Creates an {@link IncomingHeartBeatService} which executes commands from a given queue.
-     * @param incomingCommands Queue to read and execute commands from.
+     * The above, described by {@link Ping#describe(HeartBeatMonitor, long)}.
      */
-    public IncomingHeartBeatService(BlockingQueue<Command> incomingCommands) {
-        this.incomingCommands = incomingCommands;
+    private final StringProperty latency = new SimpleStringProperty("");
+
 
-        this.lastHeartbeatTime = System.currentTimeMillis();
-        this.lastHeartBeatSeqNum = -1;
+
+    /**
+     * Creates an {@link IncomingHeartBeatService} which sends heartbeats on a given queue.
+     * @param outgoingMessages Queue to send heartbeats on.
+     */
+    public IncomingHeartBeatService(BlockingQueue<AC35Data> outgoingMessages) {
+        this.outgoingMessages = outgoingMessages;
+        this.heartBeatMonitor = new HeartBeatMonitor(HeartBeatMonitor.defaultIntervalMillis, silentTimeout);
     }
 
 
     /**
-     * Sets the last heart beat time to a given value.
-     * @param lastHeartbeatTime Timestamp of heartbeat.
+     * Returns the monitor which tracks the server's liveness, round trip time and jitter.
+     * @return The heartbeat monitor.
      */
-    public void setLastHeartbeatTime(long lastHeartbeatTime) {
-        this.lastHeartbeatTime = lastHeartbeatTime;
+    public HeartBeatMonitor getHeartBeatMonitor() {
+        return heartBeatMonitor;
     }
 
+
     /**
-     * Sets the last heart beat sequence number to a given value.
-     * @param lastHeartBeatSeqNum Sequence number of heartbeat.
+     * Publishes the monitor's round trip time, jitter, and time since the server was last seen to this service's properties.
+     * @param now The current {@link System#nanoTime()}.
      */
-    public void setLastHeartBeatSeqNum(long lastHeartBeatSeqNum) {
-        this.lastHeartBeatSeqNum = lastHeartBeatSeqNum;
+    public void publishLatency(long now) {
+        roundTripTime.set(heartBeatMonitor.getRoundTripTime());
+        jitter.set(heartBeatMonitor.getJitter());
+        timeSinceLastSeen.set(heartBeatMonitor.getTimeSinceLastSeen(now));
+        latency.set(Ping.describe(heartBeatMonitor, now));
     }
 
+    /**
+     * Returns the smoothed round trip time to the server.
+     * @return Round trip time property, in milliseconds.
+     */
+    public DoubleProperty roundTripTimeProperty() {
+        return roundTripTime;
+    }
+
+    /**
+     * Returns the jitter of the round trip time to the server.
+     * @return Jitter property, in milliseconds.
+     */
+    public DoubleProperty jitterProperty() {
+        return jitter;
+    }
 
+    /**
+     * Returns how long ago anything was last received from the server.
+     * @return Time since last seen property, in milliseconds.
+     */
+    public LongProperty timeSinceLastSeenProperty() {
+        return timeSinceLastSeen;
+    }
 
     /**
-     * Calculates the time since last heartbeat, in milliseconds.
-     *
-     * @return Time since last heartbeat, in milliseconds..
+     * Returns the round trip time, jitter, and time since last seen, described for display, e.g., "RTT 34 ms \u00b1 5 ms, seen 0.4 s ago".
+     * @return The latency property.
      */
-    private long timeSinceHeartbeat() {
-        long now = System.currentTimeMillis();
-        return (now - lastHeartbeatTime);
+    public StringProperty latencyProperty() {
+        return latency;
     }
 
 
     /**
      * Returns whether or not the heartBeat service considers the connection "alive".
-     * Going 10,000ms without receiving a heartBeat means that the connection is "dead".
+     * A server which echoes heartbeats is dead once it misses {@link HeartBeatMonitor#maxMissedProbes} in a row. Otherwise, going {@link #silentTimeout} without receiving anything means that the connection is "dead".
      * @return True if alive, false if dead.
      */
     public boolean isAlive() {
-        long heartBeatPeriod = 10000;
-
-        return (timeSinceHeartbeat() < heartBeatPeriod);
+        return heartBeatMonitor.isAlive(System.nanoTime());
     }
 
 
@@ -90,15 +147,25 @@ public class IncomingHeartBeatService implements RunnableWithFramePeriod {
     @Override
     public void run() {
 
-
         while (!Thread.interrupted()) {
 
+            long now = System.nanoTime();
+
+            HeartBeat heartBeat = heartBeatMonitor.poll(now);
+            if (heartBeat != null) {
+                outgoingMessages.offer(heartBeat);
+            }
+
+            publishLatency(now);
+
+            //Wake at least every publishPeriod, so the time since last seen keeps counting up, and new echoes are shown promptly.
+            long delay = Math.min(TimeUnit.NANOSECONDS.toMillis(heartBeatMonitor.getNextPollTime() - now), publishPeriod);
+
             try {
-                Command command = incomingCommands.take();
-                command.execute();
+                Thread.sleep(Math.max(delay, 1));
 
             } catch (InterruptedException e) {
-                Logger.getGlobal().log(Level.SEVERE, "IncomingHeartBeatService: " + this + " was interrupted on thread: " + Thread.currentThread() + " while reading command.", e);
+                Logger.getGlobal().log(Level.INFO, "IncomingHeartBeatService: " + this + " was interrupted on thread: " + Thread.currentThread() + " while waiting.", e);
                 Thread.currentThread().interrupt();
 
             }
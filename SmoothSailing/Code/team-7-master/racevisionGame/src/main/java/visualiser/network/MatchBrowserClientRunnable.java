@@ -1,34 +1,91 @@
 package visualiser.network;
 
-import network.Messages.AC35Data;
-import shared.model.RunnableWithFramePeriod;
+import shared.utils.TimingWheel;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Receives game lists and changes from the match browser server, and renews the subscription that makes it send them.
+ * Runs on a {@link MatchBrowserEventLoop}: received datagrams are handed to {@link #datagramReceived(ByteBuffer)}, and {@link #run()} is a periodic task.
+ */
+public class MatchBrowserClientRunnable implements Runnable {
+
+    /**
+     * Period, in milliseconds, at which the subscription to the server is renewed. The server expires subscriptions after 30 seconds.
+     */
+    public static final long resubscribePeriod = 10000;
 
-public class MatchBrowserClientRunnable implements RunnableWithFramePeriod {
     private MatchBrowserLobbyInterface matchBrowserLobbyInterface;
-    private DatagramSocket socket;
+    private DatagramChannel channel;
+    private MatchBrowserEventLoop eventLoop;
+
+    /**
+     * Used to renew the subscription. May be null.
+     */
+    private MatchBrowserInterface matchBrowserInterface;
+
+    /**
+     * The next renewal.
+     */
+    private volatile TimingWheel.Timeout nextRun;
+
+    private volatile boolean stopped = false;
+
+    public MatchBrowserClientRunnable(MatchBrowserLobbyInterface matchBrowserLobbyInterface, DatagramChannel channel, MatchBrowserInterface matchBrowserInterface, MatchBrowserEventLoop eventLoop) {
+        this.matchBrowserLobbyInterface = matchBrowserLobbyInterface;
+        this.channel = channel;
+        this.matchBrowserInterface = matchBrowserInterface;
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * Starts receiving games, and renewing the subscription every {@link #resubscribePeriod}.
+     */
+    public void start() {
+        eventLoop.register(channel, this::datagramReceived);
+        nextRun = eventLoop.schedule(this, resubscribePeriod);
+    }
+
+    /**
+     * Stops renewing the subscription. The channel must be closed to stop receiving.
+     */
+    public void stop() {
+        stopped = true;
+        TimingWheel.Timeout timeout = nextRun;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
 
-    public MatchBrowserClientRunnable(MatchBrowserLobbyInterface matchBrowserInterface, DatagramSocket socket) {
-        this.matchBrowserLobbyInterface = matchBrowserInterface;
-        this.socket = socket;
+    /**
+     * Called with each datagram the server sends.
+     * @param datagram the datagram, between its position and limit
+     */
+    private void datagramReceived(ByteBuffer datagram) {
+        matchBrowserLobbyInterface.receiveGameInfo(datagram);
     }
 
+    /**
+     * Renews the subscription, and drops games the server seems to have forgotten.
+     */
     @Override
     public void run(){
-        long previousFrameTime = System.currentTimeMillis();
+        if (stopped || !channel.isOpen()) {
+            return;
+        }
 
-        while (!Thread.interrupted()) {
-            try{
-                matchBrowserLobbyInterface.receiveGameInfo(socket);
-            }catch (IOException e){
-                System.err.println("HostGameMessage could not be received");
+        if (matchBrowserInterface != null) {
+            try {
+                matchBrowserInterface.sendSubscription(channel);
+            } catch (IOException e) {
+                System.err.println("Could not renew match browser subscription");
             }
-
-            long currentFrameTime = System.currentTimeMillis();
-            waitForFramePeriod(previousFrameTime, currentFrameTime, 10000);
-            previousFrameTime = currentFrameTime;
         }
+
+        matchBrowserLobbyInterface.expireGames(System.nanoTime());
+
+        nextRun = eventLoop.schedule(this, resubscribePeriod);
     }
 }
@@ -0,0 +1,207 @@
+package visualiser.network;
+
+import network.BinaryMessageDecoder;
+import network.MessageEncoders.HostedGamesRequestEncoder;
+import shared.utils.TimingWheel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs all of the visualiser's match browser traffic on one thread: the host's announcements and the lobby's subscription share a selector, and their periodic tasks share a {@link TimingWheel}.
+ * Channels must be non-blocking. Datagrams are received in batches into one buffer, and each is handed to its channel's handler as a view of the bytes actually received - handlers must not keep it.
+ */
+public class MatchBrowserEventLoop implements Runnable {
+
+    /**
+     * Length, in milliseconds, of a tick of the timing wheel. This is how late a periodic task can run.
+     */
+    public static final long tickMillis = 100;
+
+    /**
+     * Most datagrams received from one channel per select.
+     */
+    public static final int receiveBatchSize = 64;
+
+
+    /**
+     * A channel waiting to be registered with the selector.
+     */
+    private static class Registration {
+
+        private final DatagramChannel channel;
+        private final Consumer<ByteBuffer> handler;
+
+        private Registration(DatagramChannel channel, Consumer<ByteBuffer> handler) {
+            this.channel = channel;
+            this.handler = handler;
+        }
+    }
+
+
+    private final Selector selector;
+
+    private final TimingWheel timingWheel = new TimingWheel(tickMillis, 128);
+
+    /**
+     * Channels registered since the selector last woke up. Channels can only be registered while the selector isn't selecting, so other threads queue them here.
+     */
+    private final ConcurrentLinkedQueue<Registration> registrations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Reused for every datagram received.
+     */
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(BinaryMessageDecoder.headerLength + HostedGamesRequestEncoder.MaxDatagramLength + BinaryMessageDecoder.CRCLength);
+
+    private Thread thread;
+
+    private volatile boolean running = true;
+
+
+    /**
+     * Creates the event loop. Call {@link #start()} to start its thread.
+     * @throws IOException Thrown if a selector cannot be opened.
+     */
+    public MatchBrowserEventLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+
+    /**
+     * Starts the event loop's thread, if it hasn't already been started.
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this, "MatchBrowserEventLoop");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+
+    /**
+     * Registers a channel, so that each datagram it receives is handed to a handler, on the event loop's thread. It may be called from any thread.
+     * @param channel The channel. Must be non-blocking.
+     * @param handler Called with each datagram received, between its position and limit.
+     */
+    public void register(DatagramChannel channel, Consumer<ByteBuffer> handler) {
+        registrations.add(new Registration(channel, handler));
+        selector.wakeup();
+    }
+
+    /**
+     * Schedules a task to run on the event loop's thread, after a delay. It may be called from any thread. Periodic tasks reschedule themselves.
+     * @param task The task. It must not block.
+     * @param delayMillis The delay, in milliseconds.
+     * @return The timeout, which can be cancelled.
+     */
+    public TimingWheel.Timeout schedule(Runnable task, long delayMillis) {
+        return timingWheel.schedule(task, delayMillis);
+    }
+
+
+    @Override
+    public void run() {
+
+        try {
+            while (running) {
+
+                selector.select(tickMillis);
+
+                registerPending();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (key.isValid() && key.isReadable()) {
+                        receive(key);
+                    }
+                }
+
+                timingWheel.advance(System.nanoTime());
+            }
+
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.SEVERE, "MatchBrowserEventLoop selector failed.", e);
+
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not close MatchBrowserEventLoop selector.", e);
+            }
+        }
+    }
+
+
+    /**
+     * Registers the channels queued by {@link #register(DatagramChannel, Consumer)}.
+     */
+    private void registerPending() {
+
+        Registration registration;
+        while ((registration = registrations.poll()) != null) {
+            try {
+                registration.channel.register(selector, SelectionKey.OP_READ, registration.handler);
+
+            } catch (ClosedChannelException e) {
+                //Closed before it got registered. Nothing to receive.
+            }
+        }
+    }
+
+    /**
+     * Receives the datagrams waiting on a channel, up to {@link #receiveBatchSize}, and hands each to the channel's handler.
+     * @param key The channel's key.
+     */
+    @SuppressWarnings("unchecked")
+    private void receive(SelectionKey key) {
+
+        DatagramChannel channel = (DatagramChannel) key.channel();
+        Consumer<ByteBuffer> handler = (Consumer<ByteBuffer>) key.attachment();
+
+        for (int i = 0; i < receiveBatchSize; i++) {
+            receiveBuffer.clear();
+
+            try {
+                if (channel.receive(receiveBuffer) == null) {
+                    return;
+                }
+            } catch (IOException e) {
+                //E.g., the server isn't listening, or the channel was closed. Either way, stop listening to it until it is registered again.
+                if (channel.isOpen()) {
+                    Logger.getGlobal().log(Level.WARNING, "Could not receive from match browser channel: " + channel, e);
+                }
+                return;
+            }
+
+            receiveBuffer.flip();
+
+            try {
+                handler.accept(receiveBuffer);
+            } catch (RuntimeException e) {
+                Logger.getGlobal().log(Level.WARNING, "MatchBrowserEventLoop handler threw an exception.", e);
+            }
+        }
+    }
+
+
+    /**
+     * Stops the event loop. Registered channels are not closed.
+     */
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -1,40 +1,70 @@
 package visualiser.network;
 
-import network.Exceptions.InvalidMessageException;
 import network.Messages.AC35Data;
-import network.Messages.HostGame;
-import shared.model.RunnableWithFramePeriod;
+import shared.utils.TimingWheel;
 
 import java.io.IOException;
-import java.net.DatagramSocket;
+import java.nio.channels.DatagramChannel;
 
+/**
+ * Announces a hosted game to the match browser server every {@link #announcePeriod}. Runs as a periodic task on a {@link MatchBrowserEventLoop}, rather than on a thread of its own.
+ */
+public class MatchBrowserHostRunnable implements Runnable {
 
-public class MatchBrowserHostRunnable implements RunnableWithFramePeriod {
+    /**
+     * Period, in milliseconds, at which the game is announced. The server expires games after 30 seconds.
+     */
+    public static final long announcePeriod = 10000;
 
     private MatchBrowserInterface matchBrowserInterface;
-    private DatagramSocket socket;
+    private DatagramChannel channel;
     private AC35Data gameInfo;
+    private MatchBrowserEventLoop eventLoop;
 
-    public MatchBrowserHostRunnable(MatchBrowserInterface matchBrowserInterface, DatagramSocket socket, AC35Data gameInfo) {
+    /**
+     * The next announcement.
+     */
+    private volatile TimingWheel.Timeout nextAnnouncement;
+
+    private volatile boolean stopped = false;
+
+    public MatchBrowserHostRunnable(MatchBrowserInterface matchBrowserInterface, DatagramChannel channel, AC35Data gameInfo, MatchBrowserEventLoop eventLoop) {
         this.matchBrowserInterface = matchBrowserInterface;
-        this.socket = socket;
+        this.channel = channel;
         this.gameInfo = gameInfo;
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * Announces the game straight away, and then every {@link #announcePeriod}.
+     */
+    public void start() {
+        nextAnnouncement = eventLoop.schedule(this, 0);
+    }
+
+    /**
+     * Stops announcing the game.
+     */
+    public void stop() {
+        stopped = true;
+        TimingWheel.Timeout timeout = nextAnnouncement;
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
     @Override
     public void run(){
-        long previousFrameTime = System.currentTimeMillis();
-
-        while (!Thread.interrupted()) {
-            try{
-                matchBrowserInterface.sendOutGameInfo(gameInfo, socket);
-            }catch (IOException e){
-                System.err.println("HostGameMessage could not be sent");
-            }
-
-            long currentFrameTime = System.currentTimeMillis();
-            waitForFramePeriod(previousFrameTime, currentFrameTime, 10000);
-            previousFrameTime = currentFrameTime;
+        if (stopped || !channel.isOpen()) {
+            return;
         }
+
+        try{
+            matchBrowserInterface.sendOutGameInfo(gameInfo, channel);
+        }catch (IOException e){
+            System.err.println("HostGameMessage could not be sent");
+        }
+
+        nextAnnouncement = eventLoop.schedule(this, announcePeriod);
     }
 }
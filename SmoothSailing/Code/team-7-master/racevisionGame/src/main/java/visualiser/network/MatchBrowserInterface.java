@@ -9,10 +9,11 @@ import network.Messages.Enums.MessageType;
 import network.Messages.HostGamesRequest;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
 
 /**
@@ -23,6 +24,8 @@ public class MatchBrowserInterface {
     private InetAddress IPAddress;
     //port server is hosted on
     private int port;
+    //runs the match browser traffic, created on first use
+    private MatchBrowserEventLoop eventLoop;
 
     public MatchBrowserInterface() {
         try {//132.181.16.13 is the ip of the CI as of 13/9/17
@@ -35,23 +38,41 @@ public class MatchBrowserInterface {
         this.port = 3779;
     }
 
+    /**
+     * Returns the event loop that sends and receives all of this interface's match browser traffic, starting it if needed.
+     * @return the event loop
+     * @throws IOException if the event loop's selector cannot be opened
+     */
+    public synchronized MatchBrowserEventLoop getEventLoop() throws IOException {
+        if (eventLoop == null) {
+            eventLoop = new MatchBrowserEventLoop();
+            eventLoop.start();
+        }
+        return eventLoop;
+    }
+
+    /**
+     * Opens a non-blocking channel to the server
+     * @return the channel
+     * @throws IOException socket error
+     */
+    public DatagramChannel openChannel() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        //connected, so that only the server's datagrams are received
+        channel.connect(new InetSocketAddress(IPAddress, port));
+        return channel;
+    }
+
     /**
      * Used by host to send out race information to the server
      * @param gameInfo the hostGame info for message
-     * @param socket the udp socket assigned on startup
+     * @param channel the udp channel assigned on startup
      * @throws IOException socket error
      */
-    protected void sendOutGameInfo(AC35Data gameInfo, DatagramSocket socket) throws IOException{
-        byte[] fullMessageToSend;
+    protected void sendOutGameInfo(AC35Data gameInfo, DatagramChannel channel) throws IOException{
         try{
-            HostGameMessageEncoder encoder = new HostGameMessageEncoder();
-            byte[] message = encoder.encode(gameInfo);
-            BinaryMessageEncoder messageEncoder = new BinaryMessageEncoder(MessageType.HOST_GAME
-                    ,System.currentTimeMillis(), 1,(short) 13 ,message);
-            fullMessageToSend = messageEncoder.getFullMessage();
-
-            DatagramPacket sendPacket = new DatagramPacket(fullMessageToSend, fullMessageToSend.length, IPAddress, port);
-            socket.send(sendPacket);
+            send(MessageType.HOST_GAME, new HostGameMessageEncoder().encode(gameInfo), channel);
         }catch (InvalidMessageException e){
             System.err.println("HostGameMessage could not be encoded");
         }
@@ -60,36 +81,56 @@ public class MatchBrowserInterface {
     /**
      *  start to send these messages on repeat until game stopped
      * @param gameInfo hostgame data
-     * @param socket socket to send to
+     * @param channel channel to send from
+     * @return the runnable sending the messages, which can be stopped
+     * @throws IOException if the event loop cannot be started
      */
-    public void startSendingHostData(AC35Data gameInfo, DatagramSocket socket){
-        MatchBrowserHostRunnable hostRunnable = new MatchBrowserHostRunnable(this, socket, gameInfo);
-        Thread hostRunnableThread = new Thread(hostRunnable, "Socket: " + socket.toString());
-        hostRunnableThread.start();
+    public MatchBrowserHostRunnable startSendingHostData(AC35Data gameInfo, DatagramChannel channel) throws IOException {
+        MatchBrowserHostRunnable hostRunnable = new MatchBrowserHostRunnable(this, channel, gameInfo, getEventLoop());
+        hostRunnable.start();
+        return hostRunnable;
     }
 
     /**
      * Used by a client to setup a connection with the match browser server
-     * @return the socket created for this connection
+     * @return the channel created for this connection
      * @throws IOException socket error
      */
-    public DatagramSocket setupMatchBrowserConnection() throws IOException{
-        DatagramSocket clientSocket = new DatagramSocket();
+    public DatagramChannel setupMatchBrowserConnection() throws IOException{
+        DatagramChannel clientChannel = openChannel();
+
+        sendSubscription(clientChannel);
+
+        return clientChannel;
+    }
+
+    /**
+     * Subscribes a channel to the server's game list, or renews its subscription. Subscriptions expire, so this must be sent every {@link MatchBrowserClientRunnable#resubscribePeriod}.
+     * @param channel the channel to receive games on
+     * @throws IOException socket error
+     */
+    public void sendSubscription(DatagramChannel channel) throws IOException {
 
         //creates and empty hostedGamesRequest packet that can be sent to the server
         //this lets the server check the udp fields for ip and port to know that this client exists
+        //a compressed subscription asks the server to send compressed game lists
+        boolean compression = Boolean.parseBoolean(System.getProperty(ConnectionToServer.compressionProperty, "true"));
         try{
-            HostedGamesRequestEncoder encoder = new HostedGamesRequestEncoder();
-            byte[] message = encoder.encode(new HostGamesRequest(new ArrayList()));
-            BinaryMessageEncoder messageEncoder = new BinaryMessageEncoder(MessageType.HOSTED_GAMES_REQUEST
-                    ,System.currentTimeMillis(), 1,(short) 13 ,message);
-
-            DatagramPacket sendPacket = new DatagramPacket(messageEncoder.getFullMessage(), messageEncoder.getFullMessage().length, IPAddress, port);
-            clientSocket.send(sendPacket);
+            send(MessageType.HOSTED_GAMES_REQUEST, new HostedGamesRequestEncoder().encode(new HostGamesRequest(new ArrayList<>(), compression)), channel);
         }catch (InvalidMessageException e){
             System.err.println("HostedGamesRequestMessage could not be encoded");
         }
+    }
 
-        return clientSocket;
+    /**
+     * Frames a message and sends it to the server. The channel is non-blocking, so if its send buffer is full the message is dropped - every message is sent again periodically.
+     * @param type type of the message
+     * @param message the encoded message body
+     * @param channel channel connected to the server
+     * @throws IOException socket error
+     */
+    private void send(MessageType type, byte[] message, DatagramChannel channel) throws IOException {
+        BinaryMessageEncoder messageEncoder = new BinaryMessageEncoder(type, System.currentTimeMillis(), 1, (short) message.length, message);
+        channel.write(ByteBuffer.wrap(messageEncoder.getFullMessage()));
     }
 }
@@ -2,55 +2,78 @@ package visualiser.network;
 
 import network.Exceptions.InvalidMessageException;
 import network.MessageDecoders.HostedGamesRequestDecoder;
+import network.Messages.Enums.RaceStatusEnum;
 import network.Messages.HostGame;
 import network.Messages.HostGamesRequest;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Used to receive lobby information from server
+ * Used to receive lobby information from server.
+ * The server sends every game when we subscribe, and after that only the games which have changed - games it has removed have the status {@link RaceStatusEnum#TERMINATED}.
+ * It sends every game again once a minute, so a game we haven't heard about for {@link #gameTimeToLive} has been missed being removed, and is dropped.
  */
 public class MatchBrowserLobbyInterface extends Observable {
-    private DatagramSocket socket;
+
+    /**
+     * Time, in milliseconds, a game is kept without the server mentioning it.
+     */
+    public static final long gameTimeToLive = 150000;
+
+    private DatagramChannel channel;
     private MatchBrowserClientRunnable clientRunnable;
-    private List<HostGame> games = new ArrayList<>();
-    private Thread clientRunnableThread;
+
+    /**
+     * The known games, keyed by host ip and port, and the time, in nanoseconds, each was last mentioned by the server.
+     */
+    private final Map<String, HostGame> games = new LinkedHashMap<>();
+    private final Map<String, Long> lastMentioned = new LinkedHashMap<>();
+
+    private final HostedGamesRequestDecoder hostedGamesRequestDecoder = new HostedGamesRequestDecoder();
 
     public MatchBrowserLobbyInterface() {
 
     }
 
     /**
-     * start receiving game info
-     * @param socket to receive from
+     * start receiving game info on an event loop, and keep the channel subscribed to the server
+     * @param channel to receive from. Must be non-blocking
+     * @param matchBrowserInterface used to renew the subscription, or null if something else renews it
+     * @param eventLoop to receive on
      */
-    public void startReceivingHostData(DatagramSocket socket) {
-        this.socket = socket;
-        clientRunnable = new MatchBrowserClientRunnable(this, socket);
-        clientRunnableThread = new Thread(clientRunnable, "Socket: " + socket.toString());
-        clientRunnableThread.start();
+    public void startReceivingHostData(DatagramChannel channel, MatchBrowserInterface matchBrowserInterface, MatchBrowserEventLoop eventLoop) {
+        this.channel = channel;
+        clientRunnable = new MatchBrowserClientRunnable(this, channel, matchBrowserInterface, eventLoop);
+        clientRunnable.start();
     }
 
     /**
-     * Used by client to received race information from the server
-     * @param socket socket to read from
-     * @throws IOException socket error
+     * start receiving game info, and keep the channel subscribed to the server
+     * @param channel to receive from. Must be non-blocking
+     * @param matchBrowserInterface used to renew the subscription, and whose event loop receives
+     * @throws IOException if the event loop cannot be started
      */
-    protected void receiveGameInfo(DatagramSocket socket) throws IOException {
-        byte[] data = new byte[64];
-        DatagramPacket receivedPacket = new DatagramPacket(data, 64);
-        socket.receive(receivedPacket);
+    public void startReceivingHostData(DatagramChannel channel, MatchBrowserInterface matchBrowserInterface) throws IOException {
+        startReceivingHostData(channel, matchBrowserInterface, matchBrowserInterface.getEventLoop());
+    }
 
-        HostedGamesRequestDecoder hostedGamesRequestDecoder = new HostedGamesRequestDecoder();
+    /**
+     * Used by client to received race information from the server
+     * @param datagram the datagram received, between its position and limit
+     */
+    protected void receiveGameInfo(ByteBuffer datagram) {
         try {
-            HostGamesRequest message = (HostGamesRequest) hostedGamesRequestDecoder.decode(data);
-            games = message.getKnownGames();
-//            System.out.println(games.get(0).getIp());
+            HostGamesRequest message = (HostGamesRequest) hostedGamesRequestDecoder.decode(datagram);
+            applyChanges(message.getKnownGames(), System.nanoTime());
             setChanged();
             notifyObservers();
         } catch (InvalidMessageException e) {
@@ -58,19 +81,59 @@ public class MatchBrowserLobbyInterface extends Observable {
         }
     }
 
+    /**
+     * Adds, updates, or removes games the server has sent us.
+     * @param changedGames the games
+     * @param now the current time, in nanoseconds
+     */
+    synchronized void applyChanges(List<HostGame> changedGames, long now) {
+        for (HostGame game : changedGames) {
+            String key = game.getIp() + ":" + game.getPort();
+
+            if (game.getStatus() == RaceStatusEnum.TERMINATED) {
+                games.remove(key);
+                lastMentioned.remove(key);
+            } else {
+                games.put(key, game);
+                lastMentioned.put(key, now);
+            }
+        }
+
+        expireGames(now);
+    }
+
+    /**
+     * Drops games the server hasn't mentioned for {@link #gameTimeToLive}.
+     * @param now the current time, in nanoseconds
+     */
+    synchronized void expireGames(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = lastMentioned.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (now - entry.getValue() >= TimeUnit.MILLISECONDS.toNanos(gameTimeToLive)) {
+                games.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
     /**
      * Gets the host games
      * @return games to be returned in list
      */
-    public List<HostGame> getGames() {
-        return games;
+    public synchronized List<HostGame> getGames() {
+        return new ArrayList<>(games.values());
     }
 
     /**
      * Used to close the socket and runnable once out of the lobby
      */
     public void closeSocket() {
-        clientRunnableThread.interrupt();
-        this.socket.close();
+        clientRunnable.stop();
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close match browser channel");
+        }
     }
 }
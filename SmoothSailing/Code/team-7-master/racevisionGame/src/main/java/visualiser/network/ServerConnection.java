@@ -1,15 +1,22 @@
 package visualiser.network;
 
 
+import javafx.beans.property.StringProperty;
 import mock.model.commandFactory.Command;
 import mock.model.commandFactory.CompositeCommand;
 import network.MessageRouters.MessageRouter;
 import network.Messages.AC35Data;
 import network.Messages.Enums.MessageType;
 import network.Messages.Enums.RequestToJoinEnum;
+import network.PacketDump.PacketLogWriter;
+import network.StreamRelated.HeartBeatMonitor;
+import network.StreamRelated.JoinLatency;
 import network.StreamRelated.MessageDeserialiser;
 import network.StreamRelated.MessageSerialiser;
+import network.StreamRelated.SocketSettings;
+import network.StreamRelated.SpscRingQueue;
 import shared.model.RunnableWithFramePeriod;
+import shared.utils.WorkerThreads;
 import visualiser.enums.ConnectionToServerState;
 import visualiser.gameController.ControllerClient;
 import visualiser.model.VisualiserRaceController;
@@ -17,6 +24,7 @@ import visualiser.model.VisualiserRaceState;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.EnumSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Level;
@@ -27,6 +35,11 @@ import java.util.logging.Logger;
  */
 public class ServerConnection implements RunnableWithFramePeriod {
 
+    /**
+     * System property which chooses the queue race messages are routed to: a lock-free {@link SpscRingQueue} if true (default), or a {@link LinkedBlockingQueue} if false.
+     */
+    public static final String spscRoutesProperty = "racevision.spscRoutes";
+
     /**
      * The socket for the connection to server.
      */
@@ -61,17 +74,18 @@ public class ServerConnection implements RunnableWithFramePeriod {
      */
     private Thread messageDeserialiserThread;
 
+    /**
+     * Records the frames {@link #messageDeserialiser} reads. Null unless {@link PacketLogWriter#captureDirectoryProperty} is set.
+     */
+    private PacketLogWriter packetLog;
+
 
 
 
     /**
-     * Router to route messages to correct queue.
+     * Router to route messages to correct queue. It routes inline, on the thread of whoever sends it a message - mostly {@link #messageDeserialiser}'s.
      */
     private MessageRouter messageRouter;
-    /**
-     * The thread {@link #messageRouter} runs on.
-     */
-    private Thread messageRouterThread;
 
 
 
@@ -104,21 +118,17 @@ public class ServerConnection implements RunnableWithFramePeriod {
      */
     private Thread heartBeatServiceThread;
 
-    /**
-     * Tracks the heartBeat status of the connection.
-     */
-    private IncomingHeartBeatController heartBeatController;
-    /**
-     * The thread {@link #heartBeatController} runs on.
-     */
-    private Thread heartBeatControllerThread;
-
 
     /**
      * This is the race we are modelling.
      */
     private VisualiserRaceState visualiserRaceState;
 
+    /**
+     * Times this connection's join, from the socket being connected to the race first being drawn.
+     */
+    private JoinLatency joinLatency;
+
     /**
      * The CompositeCommand to place race commands in.
      */
@@ -150,15 +160,18 @@ public class ServerConnection implements RunnableWithFramePeriod {
         this.visualiserRaceState = visualiserRaceState;
         this.raceCommands = raceCommands;
 
+        this.joinLatency = new JoinLatency("client " + socket.getRemoteSocketAddress(), JoinLatency.Step.FIRST_FRAME);
+        visualiserRaceState.setJoinLatency(joinLatency);
+
+        SocketSettings.apply(socket);
+
         createMessageSerialiser(socket);
-        createMessageDeserialiser(socket);
 
-        createRouter(messageDeserialiser.getMessagesRead());
+        createRouter();
 
         createConnectionToServer(requestType);
 
-
-        messageRouterThread.start();
+        createMessageDeserialiser(socket);
 
 
         this.controllerClient = new ControllerClient(messageRouter.getIncomingMessageQueue());
@@ -168,17 +181,14 @@ public class ServerConnection implements RunnableWithFramePeriod {
 
 
     /**
-     * Creates this connection's {@link MessageRouter}, and gives it a queue to read from.
-     * Does not start {@link #messageRouterThread}. Start it after setting up any initial routes.
-     * @param inputQueue Queue for the MessageRouter to read from.
+     * Creates this connection's {@link MessageRouter}.
+     * Create it before {@link #messageDeserialiser}, which routes each message it reads through it.
      */
-    private void createRouter(BlockingQueue<AC35Data> inputQueue) {
-        this.messageRouter = new MessageRouter(inputQueue);
+    private void createRouter() {
+        this.messageRouter = new MessageRouter();
 
-        this.messageRouterThread = new Thread(messageRouter, "ServerConnection()->MessageRouter thread " + messageRouter);
-
-        //Unrouted messages get sent back to the router. Kind of ugly, but we do this to ensure that no messages are lost while initializing (e.g., XML message being received before setting up the route for it).
-        messageRouter.addDefaultRoute(messageRouter.getIncomingMessageQueue());
+        //Unrouted messages are held until their route is added, to ensure that no messages are lost while initializing (e.g., XML message being received before setting up the route for it).
+        messageRouter.holdUnroutedMessages();
     }
 
 
@@ -191,6 +201,7 @@ public class ServerConnection implements RunnableWithFramePeriod {
         //ConnectionToServer executes these commands.
         BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
         this.connectionToServer = new ConnectionToServer(ConnectionToServerState.UNKNOWN, requestType, commands, messageRouter.getIncomingMessageQueue());
+        this.connectionToServer.setJoinLatency(joinLatency);
 
         //ConnectionToServerController receives messages, and places commands on the above command queue.
         BlockingQueue<AC35Data> incomingJoinMessages = new LinkedBlockingQueue<>();
@@ -202,10 +213,10 @@ public class ServerConnection implements RunnableWithFramePeriod {
 
 
         //Start the above on new threads.
-        this.connectionToServerThread = new Thread(connectionToServer, "ServerConnection()->ConnectionToServer thread " + connectionToServer);
+        this.connectionToServerThread = WorkerThreads.create(connectionToServer, "ServerConnection()->ConnectionToServer thread " + connectionToServer);
         this.connectionToServerThread.start();
 
-        this.connectionToServerControllerThread = new Thread(connectionToServerController,"ServerConnection()->ConnectionToServerController thread " + connectionToServerController);
+        this.connectionToServerControllerThread = WorkerThreads.create(connectionToServerController,"ServerConnection()->ConnectionToServerController thread " + connectionToServerController);
         this.connectionToServerControllerThread.start();
     }
 
@@ -228,48 +239,39 @@ public class ServerConnection implements RunnableWithFramePeriod {
         BlockingQueue<AC35Data> outputQueue = new LinkedBlockingQueue<>();
         this.messageSerialiser = new MessageSerialiser(socket.getOutputStream(), outputQueue);
 
-        this.messageSerialiserThread = new Thread(messageSerialiser, "ServerConnection()->MessageSerialiser thread " + messageSerialiser);
+        this.messageSerialiserThread = WorkerThreads.create(messageSerialiser, "ServerConnection()->MessageSerialiser thread " + messageSerialiser);
         this.messageSerialiserThread.start();
     }
 
     /**
-     * Creates the {@link #messageDeserialiser} and starts its thread.
+     * Creates the {@link #messageDeserialiser} and starts its thread. It passes each message it reads straight to the {@link #messageRouter}.
      * @param socket The socket to read from.
      * @throws IOException Thrown if we cannot get an inputStream from the socket
      */
     private void createMessageDeserialiser(Socket socket) throws IOException {
-        BlockingQueue<AC35Data> inputQueue = new LinkedBlockingQueue<>();
-        this.messageDeserialiser = new MessageDeserialiser(socket.getInputStream(), inputQueue);
+        this.messageDeserialiser = new MessageDeserialiser(socket.getInputStream(), messageRouter.getIncomingMessageQueue());
+
+        //The server's heartbeats are answered as they are read, so they never reach the router.
+        this.heartBeatService = new IncomingHeartBeatService(messageSerialiser.getMessagesToSend());
+        this.messageDeserialiser.setHeartBeatMonitor(heartBeatService.getHeartBeatMonitor(), messageSerialiser.getMessagesToSend());
 
-        this.messageDeserialiserThread = new Thread(messageDeserialiser, "ServerConnection()->MessageDeserialiser thread " + messageDeserialiser);
+        //Record everything the server sends, if asked to.
+        this.packetLog = PacketLogWriter.fromSystemProperty("client");
+        this.messageDeserialiser.setPacketLog(packetLog);
+
+        this.messageDeserialiserThread = WorkerThreads.create(messageDeserialiser, "ServerConnection()->MessageDeserialiser thread " + messageDeserialiser);
         this.messageDeserialiserThread.start();
     }
 
 
     /**
-     * Creates the {@link #heartBeatService} and {@link #heartBeatController} and starts their threads.
+     * Starts the {@link #heartBeatService}'s thread, which sends our heartbeats to the server.
      */
     private void createHeartBeatService() {
 
-        //IncomingHeartBeatService executes these commands.
-        BlockingQueue<Command> commands = new LinkedBlockingQueue<>();
-        this.heartBeatService = new IncomingHeartBeatService(commands);
-
-        //IncomingHeartBeatController receives messages, and places commands on the above command queue.
-        BlockingQueue<AC35Data> incomingHeartBeatMessages = new LinkedBlockingQueue<>();
-        this.heartBeatController = new IncomingHeartBeatController(incomingHeartBeatMessages, heartBeatService, commands);
-
-        //Route HeartBeat messages to the controller.
-        this.messageRouter.addRoute(MessageType.HEARTBEAT, incomingHeartBeatMessages);
-
-
-        //Start the above on new threads.
-        this.heartBeatServiceThread = new Thread(heartBeatService, "ServerConnection()->IncomingHeartBeatService thread " + connectionToServer);
+        this.heartBeatServiceThread = WorkerThreads.create(heartBeatService, "ServerConnection()->IncomingHeartBeatService thread " + connectionToServer);
         this.heartBeatServiceThread.start();
 
-        this.heartBeatControllerThread = new Thread(heartBeatController,"ServerConnection()->IncomingHeartBeatController thread " + connectionToServerController);
-        this.heartBeatControllerThread.start();
-
     }
 
 
@@ -280,32 +282,47 @@ public class ServerConnection implements RunnableWithFramePeriod {
 
 
         //VisualiserRaceController receives messages, and places commands on the race's command queue.
-        BlockingQueue<AC35Data> incomingMessages = new LinkedBlockingQueue<>();
+        BlockingQueue<AC35Data> incomingMessages = createRaceMessageQueue();
         this.visualiserRaceController = new VisualiserRaceController(incomingMessages, visualiserRaceState, raceCommands);
 
 
-        //Routes.
-        this.messageRouter.addRoute(MessageType.BOATLOCATION, incomingMessages);
-        this.messageRouter.addRoute(MessageType.RACESTATUS, incomingMessages);
-        this.messageRouter.addRoute(MessageType.RACESTARTSTATUS, incomingMessages);
-        this.messageRouter.addRoute(MessageType.AVGWIND, incomingMessages);
-        this.messageRouter.addRoute(MessageType.COURSEWIND, incomingMessages);
-        this.messageRouter.addRoute(MessageType.CHATTERTEXT, incomingMessages);
-        this.messageRouter.addRoute(MessageType.DISPLAYTEXTMESSAGE, incomingMessages);
-        this.messageRouter.addRoute(MessageType.YACHTACTIONCODE, incomingMessages);
-        this.messageRouter.addRoute(MessageType.YACHTEVENTCODE, incomingMessages);
-        this.messageRouter.addRoute(MessageType.MARKROUNDING, incomingMessages);
-        this.messageRouter.addRoute(MessageType.XMLMESSAGE, incomingMessages);
-        this.messageRouter.addRoute(MessageType.ASSIGN_PLAYER_BOAT, incomingMessages);
-        this.messageRouter.addRoute(MessageType.BOATSTATE, incomingMessages);
-        this.messageRouter.removeDefaultRoute(); //We no longer want to keep un-routed messages.
+        //Start the above on a new thread. It is started before its routes are added, so that it is already draining its queue when held messages are passed to it.
+        this.visualiserRaceControllerThread = WorkerThreads.create(visualiserRaceController, "ServerConnection()->VisualiserRaceController thread " + visualiserRaceController);
+        this.visualiserRaceControllerThread.start();
+
 
+        //Routes. These are added all at once, so held messages reach the controller in the order they arrived, and before any newer message from the deserialiser's thread.
+        this.messageRouter.addRoutes(EnumSet.of(
+                MessageType.BOATLOCATION,
+                MessageType.BOATLOCATION_DELTA,
+                MessageType.RACESTATUS,
+                MessageType.RACESTARTSTATUS,
+                MessageType.AVGWIND,
+                MessageType.COURSEWIND,
+                MessageType.CHATTERTEXT,
+                MessageType.DISPLAYTEXTMESSAGE,
+                MessageType.YACHTACTIONCODE,
+                MessageType.YACHTEVENTCODE,
+                MessageType.MARKROUNDING,
+                MessageType.XMLMESSAGE,
+                MessageType.ASSIGN_PLAYER_BOAT,
+                MessageType.BOATSTATE),
+                incomingMessages);
+        this.messageRouter.removeDefaultRoute(); //We no longer want to keep un-routed messages.
 
-        //Start the above on a new thread.
+    }
 
-        this.visualiserRaceControllerThread = new Thread(visualiserRaceController, "ServerConnection()->VisualiserRaceController thread " + visualiserRaceController);
-        this.visualiserRaceControllerThread.start();
 
+    /**
+     * Creates the queue race messages are routed to. This is a lock-free {@link SpscRingQueue} unless {@link #spscRoutesProperty} is false: its only producer is the {@link #messageDeserialiser}'s thread (held messages are passed on before its routes are published - see {@link MessageRouter#addRoutes(java.util.Set, BlockingQueue)}), and its only consumer is the {@link #visualiserRaceController}.
+     * @return The queue.
+     */
+    private static BlockingQueue<AC35Data> createRaceMessageQueue() {
+        if (Boolean.parseBoolean(System.getProperty(spscRoutesProperty, "true"))) {
+            return new SpscRingQueue<>();
+        } else {
+            return new LinkedBlockingQueue<>();
+        }
     }
 
 
@@ -322,19 +339,19 @@ public class ServerConnection implements RunnableWithFramePeriod {
     @Override
     public void run() {
 
-        //Monitor the connection state.
+        //Monitor the connection state. We wake as soon as it changes, so the race controller is ready before the race XML and snapshot which follow the JoinAcceptance arrive.
 
-        long previousFrameTime = System.currentTimeMillis();
+        ConnectionToServerState state = ConnectionToServerState.UNKNOWN;
 
         while (!Thread.interrupted()) {
 
-            long currentFrameTime = System.currentTimeMillis();
-            waitForFramePeriod(previousFrameTime, currentFrameTime, 100);
-
-            previousFrameTime = currentFrameTime;
-
+            try {
+                state = connectionToServer.awaitConnectionStateChange(state, 100);
 
-            ConnectionToServerState state = connectionToServer.getConnectionState();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
 
             switch (state) {
 
@@ -417,6 +434,25 @@ public class ServerConnection implements RunnableWithFramePeriod {
     }
 
 
+    /**
+     * Returns the monitor which tracks the server's liveness, round trip time and jitter.
+     * @return The heartbeat monitor.
+     */
+    public HeartBeatMonitor getHeartBeatMonitor() {
+        return heartBeatService.getHeartBeatMonitor();
+    }
+
+
+    /**
+     * Returns the server's round trip time, jitter, and time since it was last seen, described for display. It is updated on the heartbeat thread.
+     * @return The latency property.
+     * @see IncomingHeartBeatService#latencyProperty()
+     */
+    public StringProperty latencyProperty() {
+        return heartBeatService.latencyProperty();
+    }
+
+
     /**
      * Returns the controller client, which writes BoatAction messages to the outgoing queue.
      * @return The ControllerClient.
@@ -433,11 +469,6 @@ public class ServerConnection implements RunnableWithFramePeriod {
      */
     public void terminate() {
 
-        if (this.messageRouterThread != null) {
-            this.messageRouterThread.interrupt();
-        }
-
-
         if (this.messageSerialiserThread != null) {
             this.messageSerialiserThread.interrupt();
         }
@@ -458,9 +489,6 @@ public class ServerConnection implements RunnableWithFramePeriod {
         if (this.heartBeatServiceThread != null) {
             this.heartBeatServiceThread.interrupt();
         }
-        if (this.heartBeatControllerThread != null) {
-            this.heartBeatControllerThread.interrupt();
-        }
 
 
         if (this.visualiserRaceControllerThread != null) {
@@ -477,6 +505,10 @@ public class ServerConnection implements RunnableWithFramePeriod {
             }
         }
 
+        if (this.packetLog != null) {
+            this.packetLog.close();
+        }
+
         //TODO input controller?
 
     }
@@ -0,0 +1,134 @@
+package mock.app;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.*;
+import network.Messages.Enums.XMLMessageType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that {@link MockOutput} sends a client that has just joined the race's XML and latest snapshot straight away.
+ */
+public class MockOutputTest {
+
+    private LatestMessages latestMessages;
+    private BlockingQueue<AC35Data> outgoingMessages;
+    private Thread thread;
+
+
+    @Before
+    public void setUp() throws Exception {
+
+        latestMessages = new LatestMessages();
+
+        List<AC35Data> snapshot = new ArrayList<>();
+        snapshot.add(new HeartBeat(1234));
+        latestMessages.setSnapshot(snapshot);
+        latestMessages.setSnapshotFrames(RaceVisionByteEncoder.encodeFrameBatch(snapshot, 1));
+
+        outgoingMessages = new LinkedBlockingQueue<>();
+    }
+
+
+    @After
+    public void tearDown() throws Exception {
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(5000);
+        }
+    }
+
+
+    private void setXMLMessages() {
+        latestMessages.setRaceXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 1, 1, XMLMessageType.RACE, 1, "<Race/>"));
+        latestMessages.setBoatXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 2, 1, XMLMessageType.BOAT, 1, "<BoatConfig/>"));
+        latestMessages.setRegattaXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 3, 1, XMLMessageType.REGATTA, 1, "<RegattaConfig/>"));
+    }
+
+
+    /**
+     * The XML messages and snapshot are queued by the time sendJoinMessages() returns, with the XML already encoded, and shared between clients.
+     */
+    @Test
+    public void sendJoinMessagesTest() throws Exception {
+
+        setXMLMessages();
+
+        MockOutput mockOutput = new MockOutput(latestMessages, outgoingMessages, true);
+        assertTrue(mockOutput.sendJoinMessages());
+
+        List<AC35Data> sent = new ArrayList<>(outgoingMessages);
+        assertEquals(4, sent.size());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sent.get(i) instanceof FrameBatch);
+        }
+        assertSame(latestMessages.getSnapshotFrames(), sent.get(3));
+
+        //Another client is sent the same encoded XML.
+        BlockingQueue<AC35Data> otherMessages = new LinkedBlockingQueue<>();
+        new MockOutput(latestMessages, otherMessages, true).sendJoinMessages();
+        assertSame(sent.get(0), otherMessages.peek());
+    }
+
+
+    /**
+     * Nothing is sent before the race has its XML.
+     */
+    @Test
+    public void sendJoinMessagesWithoutXMLTest() throws Exception {
+
+        MockOutput mockOutput = new MockOutput(latestMessages, outgoingMessages, true);
+        assertFalse(mockOutput.sendJoinMessages());
+        assertTrue(outgoingMessages.isEmpty());
+    }
+
+
+    /**
+     * Messages sent on joining aren't sent again by run().
+     */
+    @Test
+    public void runAfterJoinTest() throws Exception {
+
+        setXMLMessages();
+
+        MockOutput mockOutput = new MockOutput(latestMessages, outgoingMessages, true);
+        mockOutput.sendJoinMessages();
+        outgoingMessages.clear();
+
+        thread = new Thread(mockOutput);
+        thread.start();
+
+        assertNull(outgoingMessages.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+
+    /**
+     * A client which joined before the race had its XML is sent it as soon as it is set, rather than on the next poll.
+     */
+    @Test
+    public void runWaitsForXMLTest() throws Exception {
+
+        thread = new Thread(new MockOutput(latestMessages, outgoingMessages, true));
+        thread.start();
+
+        assertNull(outgoingMessages.poll(100, TimeUnit.MILLISECONDS));
+
+        long start = System.currentTimeMillis();
+        setXMLMessages();
+
+        AC35Data first = outgoingMessages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertTrue(System.currentTimeMillis() - start < 250);
+    }
+}
@@ -0,0 +1,191 @@
+package mock.app;
+
+import mock.model.commandFactory.CompositeCommand;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.*;
+import network.Messages.Enums.JoinAcceptanceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RequestToJoinEnum;
+import network.Messages.Enums.XMLMessageType;
+import network.StreamRelated.MessageDeserialiser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that spectators can join a {@link NioRaceServer}, and are sent the XML messages and race snapshot.
+ */
+public class NioRaceServerTest {
+
+    private LatestMessages latestMessages;
+    private NioRaceServer server;
+    private List<Socket> sockets = new ArrayList<>();
+
+
+    @Before
+    public void setUp() throws Exception {
+
+        latestMessages = new LatestMessages();
+        latestMessages.setRaceXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 1, 1, XMLMessageType.RACE, 1, "<Race/>"));
+        latestMessages.setBoatXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 2, 1, XMLMessageType.BOAT, 1, "<BoatConfig/>"));
+        latestMessages.setRegattaXMLMessage(new XMLMessage(XMLMessage.currentVersionNumber, 3, 1, XMLMessageType.REGATTA, 1, "<RegattaConfig/>"));
+
+        List<AC35Data> snapshot = new ArrayList<>();
+        snapshot.add(new HeartBeat(1234));
+        latestMessages.setSnapshot(snapshot);
+        latestMessages.setSnapshotFrames(RaceVisionByteEncoder.encodeFrameBatch(snapshot, 1));
+
+        server = new NioRaceServer(0, 2, latestMessages, new CompositeCommand(), null, null);
+        new Thread(server, "NioRaceServerTest server").start();
+    }
+
+
+    @After
+    public void tearDown() throws Exception {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.closeConnection();
+    }
+
+
+    /**
+     * Connects a spectator to the server, and returns the queue its messages are read into.
+     * @return Queue of messages received from the server.
+     * @throws Exception Thrown if the client cannot connect.
+     */
+    private BlockingQueue<AC35Data> connectSpectator() throws Exception {
+
+        Socket socket = new Socket("localhost", server.getServerPort());
+        sockets.add(socket);
+
+        BlockingQueue<AC35Data> received = new LinkedBlockingQueue<>();
+        new Thread(new MessageDeserialiser(socket.getInputStream(), received), "NioRaceServerTest client").start();
+
+        socket.getOutputStream().write(RaceVisionByteEncoder.encodeBinaryMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR), 1));
+
+        return received;
+    }
+
+
+    /**
+     * Takes the next message, failing if none arrives in time.
+     * @param received Queue of messages received from the server.
+     * @return The message.
+     * @throws InterruptedException Thrown if interrupted.
+     */
+    private static AC35Data next(BlockingQueue<AC35Data> received) throws InterruptedException {
+        AC35Data message = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull("Timed out waiting for message.", message);
+        return message;
+    }
+
+
+    /**
+     * Waits for the snapshot (a single {@link HeartBeat}) with a given sequence number, skipping any other messages, such as the server's own heartbeats.
+     * @param received Queue of messages received from the server.
+     * @param sequenceNumber The snapshot's sequence number.
+     * @throws InterruptedException Thrown if interrupted.
+     */
+    private static void waitForSnapshot(BlockingQueue<AC35Data> received, long sequenceNumber) throws InterruptedException {
+        AC35Data message;
+        do {
+            message = next(received);
+        } while (!(message instanceof HeartBeat) || ((HeartBeat) message).getSequenceNumber() != sequenceNumber);
+    }
+
+
+    /**
+     * Tests that a spectator completes the handshake, and is then sent the XML messages and the shared snapshot.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void spectatorReceivesRaceTest() throws Exception {
+
+        BlockingQueue<AC35Data> received = connectSpectator();
+
+        JoinAcceptance joinAcceptance = (JoinAcceptance) next(received);
+        assertEquals(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, joinAcceptance.getAcceptanceType());
+        assertEquals(0, joinAcceptance.getSourceID());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(MessageType.XMLMESSAGE, next(received).getType());
+        }
+
+        assertEquals(1234, ((HeartBeat) next(received)).getSequenceNumber());
+    }
+
+
+    /**
+     * Tests that many spectators spread over the event loops all receive each new snapshot.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void manySpectatorsTest() throws Exception {
+
+        List<BlockingQueue<AC35Data>> clients = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            clients.add(connectSpectator());
+        }
+
+        for (BlockingQueue<AC35Data> received : clients) {
+            waitForSnapshot(received, 1234);
+        }
+        assertEquals(20, server.getConnectionCount());
+
+
+        List<AC35Data> snapshot = new ArrayList<>();
+        snapshot.add(new HeartBeat(5678));
+        latestMessages.setSnapshotFrames(RaceVisionByteEncoder.encodeFrameBatch(snapshot, 2));
+
+        for (BlockingQueue<AC35Data> received : clients) {
+            waitForSnapshot(received, 5678);
+        }
+    }
+
+
+
+    /**
+     * Tests that a client which stops reading is disconnected once more than {@link mock.model.NioClientConnection#maxOutgoingBytes} are waiting for it, rather than the server buffering without limit.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void stalledClientDisconnectedTest() throws Exception {
+
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new java.net.InetSocketAddress("localhost", server.getServerPort()));
+        sockets.add(socket);
+
+        socket.getOutputStream().write(RaceVisionByteEncoder.encodeBinaryMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR), 1));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.getConnectionCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, server.getConnectionCount());
+
+        //Snapshots which can't be skipped, as if each held a collision, which the client never reads.
+        for (int i = 0; i < 64 && server.getConnectionCount() != 0; i++) {
+            latestMessages.setSnapshotFrames(new FrameBatch(new byte[256 * 1024], 1, false));
+            Thread.sleep(20);
+        }
+
+        deadline = System.currentTimeMillis() + 5000;
+        while (server.getConnectionCount() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getConnectionCount());
+    }
+
+}
@@ -0,0 +1,53 @@
+package mock.model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import shared.utils.TimingWheel;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that terminating a {@link ClientConnection} disconnects the client.
+ */
+public class ClientConnectionTest {
+
+    private ServerSocket serverSocket;
+    private TimingWheel timingWheel;
+
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0);
+        timingWheel = new TimingWheel(50, 128);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        serverSocket.close();
+    }
+
+
+    /**
+     * Once terminated, the client's end of the socket reaches end of stream.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void terminateClosesSocketTest() throws Exception {
+
+        try (Socket client = new Socket("localhost", serverSocket.getLocalPort())) {
+
+            ClientConnection connection = new ClientConnection(serverSocket.accept(), null, null, null, null, timingWheel, dead -> { });
+            connection.terminate();
+
+            client.setSoTimeout(5000);
+            assertEquals(-1, client.getInputStream().read());
+        }
+    }
+
+}
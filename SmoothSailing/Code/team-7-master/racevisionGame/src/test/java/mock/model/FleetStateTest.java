@@ -0,0 +1,158 @@
+package mock.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+import shared.model.GPSCoordinate;
+import shared.model.Leg;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.*;
+
+public class FleetStateTest {
+    private FleetState fleet;
+    private MockBoat boat;
+
+
+    /**
+     * Creates a boat that isn't in a fleet, with its state set.
+     * @param sourceID The boat's source ID.
+     * @param latitude The boat's latitude.
+     * @return The boat.
+     */
+    private static MockBoat createBoat(int sourceID, double latitude) {
+        MockBoat boat = new MockBoat(sourceID, "Boat " + sourceID, "NZ", null);
+        boat.setPosition(new GPSCoordinate(latitude, -64.85));
+        boat.setBearing(Bearing.fromDegrees(135));
+        boat.setCurrentSpeed(12.5);
+        boat.setHealth(80);
+        boat.setCurrentLeg(new Leg("Leg", 2));
+        boat.increaseRoundingStatus();
+        boat.setTimeSinceTackChange(1500);
+        boat.setEstimatedTimeAtNextMark(ZonedDateTime.of(2017, 7, 1, 12, 0, 0, 0, ZoneId.of("Atlantic/Bermuda")));
+        return boat;
+    }
+
+    @Before
+    public void setUp() {
+        fleet = new FleetState();
+        boat = createBoat(121, 32.29);
+    }
+
+    /**
+     * A boat's state is copied into the fleet when it is added.
+     */
+    @Test
+    public void addTest() {
+        fleet.add(boat);
+
+        assertEquals(1, fleet.size());
+        assertSame(boat, fleet.getBoat(0));
+        assertEquals(0, boat.getFleetIndex());
+
+        assertEquals(32.29, fleet.getLatitude(0), 1e-9);
+        assertEquals(-64.85, fleet.getLongitude(0), 1e-9);
+        assertEquals(135, fleet.getBearing(0), 1e-9);
+        assertEquals(12.5, fleet.getSpeed(0), 1e-9);
+        assertEquals(80, fleet.getHealth(0), 1e-9);
+        assertEquals(2, fleet.getLeg(0));
+        assertEquals(1, fleet.getRoundingStatus(0));
+        assertEquals(1500, boat.getTimeSinceTackChange());
+        assertEquals(ZonedDateTime.of(2017, 7, 1, 12, 0, 0, 0, ZoneId.of("Atlantic/Bermuda")), boat.getEstimatedTimeAtNextMark());
+    }
+
+    /**
+     * The boat's accessors read and write the fleet's arrays, and only build new objects when the fleet has changed.
+     */
+    @Test
+    public void viewTest() {
+        fleet.add(boat);
+
+        boat.setPosition(new GPSCoordinate(32.3, -64.84));
+        boat.updateHealth(-90);
+        boat.increaseRoundingStatus();
+        assertEquals(32.3, fleet.getLatitude(0), 1e-9);
+        assertEquals(0, fleet.getHealth(0), 1e-9);
+        assertEquals(2, fleet.getRoundingStatus(0));
+
+        GPSCoordinate position = boat.getPosition();
+        Bearing bearing = boat.getBearing();
+        assertSame(position, boat.getPosition());
+        assertSame(bearing, boat.getBearing());
+
+        fleet.latitude[0] = 32.31;
+        fleet.bearing[0] = 270;
+        fleet.speed[0] = 3;
+        assertEquals(new GPSCoordinate(32.31, -64.84), boat.getPosition());
+        assertEquals(270, boat.getBearing().degrees(), 1e-9);
+        assertEquals(3, boat.getCurrentSpeed(), 1e-9);
+    }
+
+    /**
+     * Removing a boat copies its state back into it, and moves the boats after it down, keeping their order.
+     */
+    @Test
+    public void removeTest() {
+        MockBoat second = createBoat(122, 32.30);
+        MockBoat third = createBoat(123, 32.31);
+        fleet.add(boat);
+        fleet.add(second);
+        fleet.add(third);
+
+        second.setPosition(new GPSCoordinate(32.305, -64.845));
+
+        assertTrue(fleet.remove(second));
+        assertFalse(fleet.remove(second));
+
+        assertEquals(2, fleet.size());
+        assertSame(third, fleet.getBoat(1));
+        assertEquals(1, third.getFleetIndex());
+        assertEquals(32.31, fleet.getLatitude(1), 1e-9);
+
+        assertNull(second.getFleet());
+        assertEquals(new GPSCoordinate(32.305, -64.845), second.getPosition());
+        assertEquals(80, second.getHealth(), 1e-9);
+        assertEquals(1, second.getRoundingStatus());
+    }
+
+    /**
+     * The fleet grows past its initial capacity.
+     */
+    @Test
+    public void growTest() {
+        for (int i = 0; i < 100; i++) {
+            fleet.add(createBoat(i, 32 + i * 0.001));
+        }
+
+        assertEquals(100, fleet.size());
+        assertEquals(32.099, fleet.getLatitude(99), 1e-9);
+        assertEquals(99, fleet.getBoat(99).getFleetIndex());
+    }
+
+    /**
+     * Once the fleet has a tick thread, boats' positions can only be used on it.
+     */
+    @Test
+    public void tickThreadTest() throws Exception {
+        fleet.add(boat);
+        fleet.setTickThread(Thread.currentThread());
+
+        boat.setPosition(new GPSCoordinate(32.3, -64.84));
+        assertEquals(new GPSCoordinate(32.3, -64.84), boat.getPosition());
+
+        Exception[] thrown = new Exception[1];
+        Thread reader = new Thread(() -> {
+            try {
+                boat.getPosition();
+            } catch (IllegalStateException e) {
+                thrown[0] = e;
+            }
+        });
+        reader.start();
+        reader.join();
+
+        assertNotNull(thrown[0]);
+    }
+}
@@ -40,4 +40,23 @@ public class MockBoatTest {
     public void farMarkBeyond100m() {
         assertFalse(far.rayCast(boat, 100));
     }
+
+    /**
+     * The primitive side checks used by the fleet agree with the boat's.
+     */
+    @Test
+    public void sideOfBoatTest() {
+        for (double bearing = 0; bearing < 360; bearing += 15) {
+            boat.setBearing(Bearing.fromDegrees(bearing));
+
+            for (Mark mark : new Mark[] {near, far, new Mark(0, "East", new GPSCoordinate(0, .001)), new Mark(0, "West", new GPSCoordinate(0.0002, -.001))}) {
+                double latitude = mark.getPosition().getLatitude();
+                double longitude = mark.getPosition().getLongitude();
+
+                assertEquals(boat.isPortSide(mark), RoundingGeometry.isPortSide(0, 0, bearing, latitude, longitude, null));
+                assertEquals(boat.isStarboardSide(mark), RoundingGeometry.isStarboardSide(0, 0, bearing, latitude, longitude, null));
+                assertEquals(boat.isBetweenGate(mark, near), RoundingGeometry.isBetweenGate(0, 0, bearing, latitude, longitude, -.0001, 0, null));
+            }
+        }
+    }
 }
@@ -0,0 +1,306 @@
+package mock.model;
+
+import mock.app.Event;
+import mock.dataInput.PolarParser;
+import mock.model.wind.ConstantWindGenerator;
+import network.Messages.Enums.BoatStatusEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import shared.dataInput.*;
+import shared.enums.XMLFileType;
+import shared.model.Bearing;
+import shared.model.Constants;
+import shared.model.GPSCoordinate;
+import shared.model.Mark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that the parallel tick gives the same, reproducible, results however the fleet is split across threads.
+ */
+public class ParallelFleetUpdateTest {
+
+    /**
+     * Number of boats in each race. Enough that they collide often when crowded near the start line.
+     */
+    private static final int Yachts = 300;
+
+    /**
+     * Milliseconds in a 60 Hz frame.
+     */
+    private static final long FramePeriod = 16;
+
+    private ForkJoinPool pool;
+
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+
+    /**
+     * Creates a race with a given number of boats racing, scattered in a 400m square by the start line.
+     * @param yachts The number of boats.
+     * @param seed Seed for the boats' positions and bearings.
+     * @return The race.
+     * @throws Exception Thrown if the race's files can't be read.
+     */
+    private static MockRace createRace(int yachts, long seed) throws Exception {
+        String boatXML = XMLReader.readXMLFileToString("mock/mockXML/boatTest.xml", StandardCharsets.UTF_8);
+
+        //Replace the test file's yachts with our own.
+        StringBuilder builder = new StringBuilder(boatXML.substring(0, boatXML.indexOf("<!--Participants-->")));
+        for (int i = 0; i < yachts; i++) {
+            int sourceID = 1000 + i;
+            builder.append("<Boat BoatName=\"Boat ").append(sourceID).append("\" HullNum=\"RG01\" ShapeID=\"0\" ShortName=\"B").append(sourceID)
+                    .append("\" SourceID=\"").append(sourceID).append("\" StoweName=\"B").append(sourceID).append("\" Type=\"Yacht\">\n")
+                    .append("<GPSposition X=\"-64.854304\" Y=\"32.296577\" Z=\"0\"/>\n</Boat>\n");
+        }
+        builder.append("</Boats>\n</BoatConfig>\n");
+
+        String raceXML = Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString("mock/mockXML/ac35MapLayout.xml", StandardCharsets.UTF_8));
+
+        BoatDataSource boatDataSource = new BoatXMLReader(builder.toString(), XMLFileType.Contents);
+        RaceDataSource raceDataSource = new RaceXMLReader(raceXML, XMLFileType.Contents);
+        RegattaDataSource regattaDataSource = new RegattaXMLReader(XMLReader.readXMLFileToString("mock/mockXML/regattaTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+
+        MockRace race = new MockRace(
+                boatDataSource,
+                raceDataSource,
+                regattaDataSource,
+                PolarParser.parse("mock/polars/acc_polars.csv"),
+                Constants.RaceTimeScale,
+                new ConstantWindGenerator(Bearing.fromDegrees(230), 10));
+
+        race.updateRaceTime(race.getRaceClock().getStartingTimeMilli());
+
+        for (Integer sourceID : boatDataSource.getBoats().keySet()) {
+            race.generateMockBoat(sourceID);
+        }
+        race.initialiseBoats();
+        race.setBoatsStatusToRacing();
+
+        Random random = new Random(seed);
+        for (MockBoat boat : race.getBoats()) {
+            boat.setPosition(new GPSCoordinate(32.2948 + random.nextDouble() * 0.0036, -64.8564 + random.nextDouble() * 0.0042));
+            boat.setBearing(Bearing.fromDegrees(random.nextDouble() * 360));
+        }
+
+        return race;
+    }
+
+    /**
+     * Advances a race's clock by one frame.
+     * @param race The race.
+     * @param frame The number of the frame.
+     * @return The milliseconds elapsed since the race started.
+     */
+    private static long nextFrame(MockRace race, int frame) {
+        race.updateRaceTime(race.getRaceClock().getStartingTimeMilli() + frame * FramePeriod);
+        return race.getRaceClock().getDurationMilli();
+    }
+
+    /**
+     * Lets the boats which collided sail on in the next frame, as their {@link mock.model.commandFactory.CollisionCommand} eventually would.
+     * @param collisionBoats The boats which collided.
+     */
+    private static void clearCollisions(List<MockBoat> collisionBoats) {
+        for (MockBoat boat : collisionBoats) {
+            boat.setColliding(false);
+        }
+    }
+
+    /**
+     * Checks that two races' boats are in exactly the same state.
+     * @param expected The first race.
+     * @param actual The second race.
+     */
+    private static void assertSameFleet(MockRace expected, MockRace actual) {
+        FleetState expectedFleet = expected.getFleet();
+        FleetState actualFleet = actual.getFleet();
+
+        assertEquals(expectedFleet.size(), actualFleet.size());
+
+        for (int i = 0; i < expectedFleet.size(); i++) {
+            assertEquals(expectedFleet.getLatitude(i), actualFleet.getLatitude(i), 0);
+            assertEquals(expectedFleet.getLongitude(i), actualFleet.getLongitude(i), 0);
+            assertEquals(expectedFleet.getBearing(i), actualFleet.getBearing(i), 0);
+            assertEquals(expectedFleet.getSpeed(i), actualFleet.getSpeed(i), 0);
+            assertEquals(expectedFleet.getHealth(i), actualFleet.getHealth(i), 0);
+            assertEquals(expectedFleet.getLeg(i), actualFleet.getLeg(i));
+            assertEquals(expectedFleet.getRoundingStatus(i), actualFleet.getRoundingStatus(i));
+            assertEquals(expectedFleet.getBoat(i).getStatus(), actualFleet.getBoat(i).getStatus());
+        }
+    }
+
+    /**
+     * Returns the source IDs of a list of boats.
+     * @param boats The boats.
+     * @return Their source IDs, in order.
+     */
+    private static List<Integer> sourceIDs(List<MockBoat> boats) {
+        List<Integer> sourceIDs = new ArrayList<>();
+        for (MockBoat boat : boats) {
+            sourceIDs.add(boat.getSourceID());
+        }
+        return sourceIDs;
+    }
+
+
+    /**
+     * A single thread updating the whole fleet in one chunk gives exactly the same boats, and collisions in the same order, as four threads updating it in small chunks.
+     */
+    @Test
+    public void deterministicTest() throws Exception {
+        MockRace sequentialRace = createRace(Yachts, 7);
+        MockRace parallelRace = createRace(Yachts, 7);
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        ParallelFleetUpdate sequentialUpdate = new ParallelFleetUpdate(sequentialRace, singleThread, Integer.MAX_VALUE);
+        ParallelFleetUpdate parallelUpdate = new ParallelFleetUpdate(parallelRace, pool, 5);
+
+        int collisions = 0;
+
+        try {
+            for (int frame = 1; frame <= 200; frame++) {
+                List<MockBoat> sequentialCollisions = new ArrayList<>();
+                sequentialUpdate.update(FramePeriod, nextFrame(sequentialRace, frame));
+                sequentialUpdate.resolveCollisions(sequentialCollisions);
+
+                List<MockBoat> parallelCollisions = new ArrayList<>();
+                parallelUpdate.update(FramePeriod, nextFrame(parallelRace, frame));
+                parallelUpdate.resolveCollisions(parallelCollisions);
+
+                assertSameFleet(sequentialRace, parallelRace);
+                assertEquals(sourceIDs(sequentialCollisions), sourceIDs(parallelCollisions));
+
+                collisions += parallelCollisions.size();
+                clearCollisions(sequentialCollisions);
+                clearCollisions(parallelCollisions);
+            }
+        } finally {
+            singleThread.shutdown();
+        }
+
+        assertTrue(collisions > 0);
+    }
+
+    /**
+     * The grid finds the same collisions as ray casting each boat against the whole {@link mock.model.collider.ColliderRegistry}, once every boat has moved.
+     */
+    @Test
+    public void registryEquivalenceTest() throws Exception {
+        MockRace referenceRace = createRace(Yachts, 11);
+        MockRace parallelRace = createRace(Yachts, 11);
+
+        ParallelFleetUpdate parallelUpdate = new ParallelFleetUpdate(parallelRace, pool, 16);
+        FleetState referenceFleet = referenceRace.getFleet();
+
+        for (int frame = 1; frame <= 200; frame++) {
+            long totalElapsedMilliseconds = nextFrame(referenceRace, frame);
+
+            boolean[] racing = new boolean[referenceFleet.size()];
+            for (int i = 0; i < referenceFleet.size(); i++) {
+                racing[i] = referenceFleet.getBoat(i).getStatus() == BoatStatusEnum.RACING;
+                if (racing[i]) {
+                    referenceRace.updatePosition(i, FramePeriod, totalElapsedMilliseconds);
+                }
+            }
+
+            List<MockBoat> referenceCollisions = new ArrayList<>();
+            for (int i = 0; i < referenceFleet.size(); i++) {
+                if (racing[i] && referenceRace.getColliderRegistry().rayCast(referenceFleet.getBoat(i), referenceRace.getCourseProjection())) {
+                    referenceCollisions.add(referenceFleet.getBoat(i));
+                }
+            }
+
+            List<MockBoat> parallelCollisions = new ArrayList<>();
+            parallelUpdate.update(FramePeriod, nextFrame(parallelRace, frame));
+            parallelUpdate.resolveCollisions(parallelCollisions);
+
+            assertSameFleet(referenceRace, parallelRace);
+            assertEquals(sourceIDs(referenceCollisions), sourceIDs(parallelCollisions));
+
+            clearCollisions(referenceCollisions);
+            clearCollisions(parallelCollisions);
+        }
+    }
+
+    /**
+     * Marks are ray cast before boats, so a boat on top of both a mark and another boat collides with the mark.
+     */
+    @Test
+    public void markCollisionTest() throws Exception {
+        MockRace race = createRace(2, 3);
+        ParallelFleetUpdate update = new ParallelFleetUpdate(race, pool, ParallelFleetUpdate.DefaultChunkSize);
+
+        Mark mark = race.getCompoundMarks().get(1).getMark1();
+        for (MockBoat boat : race.getBoats()) {
+            boat.setPosition(mark.getPosition());
+            boat.setCurrentSpeed(0);
+            boat.setVelocityDefault(false);
+        }
+
+        List<MockBoat> collisionBoats = new ArrayList<>();
+        update.update(FramePeriod, nextFrame(race, 1));
+        update.resolveCollisions(collisionBoats);
+
+        assertEquals(race.getBoats(), collisionBoats);
+        for (MockBoat boat : race.getBoats()) {
+            assertTrue(boat.isColliding());
+            //Marks do 10 damage, boats 5.
+            assertEquals(90, boat.getHealth(), 1e-9);
+        }
+    }
+
+
+    /**
+     * A boat removed from another thread stays in the fleet until the race thread removes pending boats between frames, and the next frame only sees the smaller fleet.
+     */
+    @Test
+    public void removalBetweenFramesTest() throws Exception {
+        MockRace race = createRace(Yachts, 5);
+        ParallelFleetUpdate update = new ParallelFleetUpdate(race, pool, 16);
+
+        //The workers may use positions while the test's thread ticks the race.
+        race.getFleet().setTickThread(Thread.currentThread());
+
+        update.update(FramePeriod, nextFrame(race, 1));
+
+        int removedSourceID = race.getFleet().getBoat(0).getSourceID();
+        Thread remover = new Thread(() -> race.removeMockBoat(removedSourceID));
+        remover.start();
+        remover.join();
+
+        assertEquals(Yachts, race.getFleet().size());
+        update.resolveCollisions(new ArrayList<>());
+
+        race.removePendingBoats();
+        assertEquals(Yachts - 1, race.getFleet().size());
+        assertFalse(sourceIDs(race.getBoats()).contains(removedSourceID));
+        assertFalse(race.getRaceDataSource().getParticipants().contains(removedSourceID));
+
+        List<MockBoat> collisionBoats = new ArrayList<>();
+        update.update(FramePeriod, nextFrame(race, 2));
+        update.resolveCollisions(collisionBoats);
+
+        for (MockBoat boat : collisionBoats) {
+            assertNotEquals(removedSourceID, boat.getSourceID());
+        }
+    }
+
+}
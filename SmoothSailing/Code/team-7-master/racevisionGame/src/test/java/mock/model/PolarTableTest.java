@@ -0,0 +1,108 @@
+package mock.model;
+
+import mock.dataInput.PolarParser;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the dense polar table, against the estimates in the polar file.
+ */
+public class PolarTableTest {
+
+    /**
+     * The polar table used in each test.
+     */
+    private PolarTable polarTable;
+
+    /**
+     * The epsilon, in knots, for computed speeds.
+     */
+    private double speedEpsilon = 1e-9;
+
+
+    /**
+     * Creates the PolarTable for the tests.
+     * @throws Exception if the polar file cannot be parsed.
+     */
+    @Before
+    public void setUp() throws Exception {
+        polarTable = PolarParser.parsePolarTable("mock/polars/acc_polars.csv");
+    }
+
+
+    /**
+     * The estimates in the file are returned exactly, on both sides of the wind.
+     */
+    @Test
+    public void estimatesTest() {
+        assertEquals(23, polarTable.getBoatSpeed(12, 90), speedEpsilon);
+        assertEquals(14.4, polarTable.getBoatSpeed(12, 43), speedEpsilon);
+        assertEquals(0, polarTable.getBoatSpeed(30, 0), speedEpsilon);
+
+        //A wind direction of 0 means a boat heading 0 is running downwind, and one heading 180 is head to wind.
+        Bearing wind = Bearing.fromDegrees(0);
+        assertEquals(23, polarTable.getBoatSpeed(wind, 12, Bearing.fromDegrees(90)), speedEpsilon);
+        assertEquals(23, polarTable.getBoatSpeed(wind, 12, Bearing.fromDegrees(270)), speedEpsilon);
+        assertEquals(0, polarTable.getBoatSpeed(wind, 12, Bearing.fromDegrees(180)), speedEpsilon);
+    }
+
+    /**
+     * Speeds between estimates are interpolated by angle, by wind speed, and by both.
+     */
+    @Test
+    public void interpolationTest() {
+        assertEquals(21.5, polarTable.getBoatSpeed(12, 82.5), speedEpsilon);
+        assertEquals(17, polarTable.getBoatSpeed(10, 90), speedEpsilon);
+        assertEquals((21.5 + (11 + 11) / 2) / 2, polarTable.getBoatSpeed(10, 82.5), speedEpsilon);
+    }
+
+    /**
+     * Wind speeds above the file use its highest wind speed, and those below it slow down to zero.
+     */
+    @Test
+    public void clampTest() {
+        assertEquals(polarTable.getBoatSpeed(4, 90) / 4, polarTable.getBoatSpeed(1, 90), speedEpsilon);
+        assertEquals(0, polarTable.getBoatSpeed(0, 90), speedEpsilon);
+        assertEquals(polarTable.getBoatSpeed(30, 90), polarTable.getBoatSpeed(45, 90), speedEpsilon);
+    }
+
+    /**
+     * The best VMG angles maximise the speed towards, or away from, the wind.
+     */
+    @Test
+    public void bestAnglesTest() {
+        assertEquals(43, polarTable.getBestUpwindAngle(12), 1e-9);
+        assertEquals(153, polarTable.getBestDownwindAngle(12), 1e-9);
+
+        for (double windSpeed = 4; windSpeed <= 30; windSpeed++) {
+            double upwind = polarTable.getBestUpwindAngle(windSpeed);
+            double downwind = polarTable.getBestDownwindAngle(windSpeed);
+            double bestUpwindVMG = polarTable.getBoatSpeed(windSpeed, upwind) * Math.cos(Math.toRadians(upwind));
+            double bestDownwindVMG = -polarTable.getBoatSpeed(windSpeed, downwind) * Math.cos(Math.toRadians(downwind));
+
+            for (double angle = 0; angle <= 180; angle++) {
+                double vmg = polarTable.getBoatSpeed(windSpeed, angle) * Math.cos(Math.toRadians(angle));
+                assertTrue(vmg <= bestUpwindVMG + speedEpsilon);
+                assertTrue(-vmg <= bestDownwindVMG + speedEpsilon);
+            }
+        }
+    }
+
+    /**
+     * Boats never sail backwards, at any wind speed or bearing.
+     */
+    @Test
+    public void nonNegativeTest() {
+        Bearing wind = Bearing.fromDegrees(0);
+
+        for (double windSpeed = 0; windSpeed <= 40; windSpeed += 0.5) {
+            for (double boatAngle = 0; boatAngle < 360; boatAngle += 0.5) {
+                assertTrue(polarTable.getBoatSpeed(wind, windSpeed, Bearing.fromDegrees(boatAngle)) >= 0);
+            }
+        }
+    }
+}
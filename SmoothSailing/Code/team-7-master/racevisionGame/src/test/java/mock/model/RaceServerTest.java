@@ -0,0 +1,140 @@
+package mock.model;
+
+import mock.app.Event;
+import mock.dataInput.PolarParser;
+import mock.model.wind.ConstantWindGenerator;
+import network.BinaryMessageDecoder;
+import network.Messages.FrameBatch;
+import network.Messages.LatestMessages;
+import network.Messages.RaceSnapshot;
+import org.junit.Before;
+import org.junit.Test;
+import shared.dataInput.*;
+import shared.enums.XMLFileType;
+import shared.model.Bearing;
+import shared.model.Constants;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that {@link RaceServer} only builds the compact snapshot while a client wants it, and that each stream has its own unbroken ack sequence.
+ */
+public class RaceServerTest {
+
+    private LatestMessages latestMessages;
+    private RaceServer raceServer;
+
+
+    @Before
+    public void setUp() throws Exception {
+
+        String raceXML = Event.setRaceXMLAtCurrentTimeToNow(XMLReader.readXMLFileToString("mock/mockXML/ac35MapLayout.xml", StandardCharsets.UTF_8));
+
+        BoatDataSource boatDataSource = new BoatXMLReader(XMLReader.readXMLFileToString("mock/mockXML/boatTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+        RaceDataSource raceDataSource = new RaceXMLReader(raceXML, XMLFileType.Contents);
+        RegattaDataSource regattaDataSource = new RegattaXMLReader(XMLReader.readXMLFileToString("mock/mockXML/regattaTest.xml", StandardCharsets.UTF_8), XMLFileType.Contents);
+
+        MockRace race = new MockRace(
+                boatDataSource,
+                raceDataSource,
+                regattaDataSource,
+                PolarParser.parse("mock/polars/acc_polars.csv"),
+                Constants.RaceTimeScale,
+                new ConstantWindGenerator(Bearing.fromDegrees(230), 10));
+
+        race.updateRaceTime(System.currentTimeMillis());
+
+        for (Integer sourceID : boatDataSource.getBoats().keySet()) {
+            race.generateMockBoat(sourceID);
+        }
+        race.initialiseBoats();
+
+        latestMessages = new LatestMessages();
+        raceServer = new RaceServer(race, latestMessages);
+    }
+
+
+    /**
+     * Returns the ack number of a batch of frames. Every frame in a batch has the same one.
+     * @param frames The frames.
+     * @return The ack number.
+     */
+    private static int ackNumber(FrameBatch frames) {
+        return new BinaryMessageDecoder(frames.getFrames()).getHeaderSourceID();
+    }
+
+
+    /**
+     * With no client wanting deltas, no compact snapshot is built, and the full snapshots' ack numbers follow on from each other.
+     */
+    @Test
+    public void noDeltaClientsTest() {
+
+        raceServer.parseSnapshot();
+        RaceSnapshot first = latestMessages.getLatest();
+
+        raceServer.parseSnapshot();
+        RaceSnapshot second = latestMessages.getLatest();
+
+        assertNull(second.getCompactSnapshotFrames());
+        assertNull(second.getKeyframeFrames());
+        assertNull(second.getMarkFrames());
+        assertEquals(ackNumber(first.getSnapshotFrames()) + 1, ackNumber(second.getSnapshotFrames()));
+    }
+
+
+    /**
+     * Once a client wants deltas, the compact stream starts with the marks and a keyframe, and neither stream's ack numbers skip any.
+     */
+    @Test
+    public void deltaClientTest() {
+
+        raceServer.parseSnapshot();
+        RaceSnapshot before = latestMessages.getLatest();
+
+        latestMessages.addDeltaClient();
+
+        raceServer.parseSnapshot();
+        RaceSnapshot first = latestMessages.getLatest();
+
+        assertNotNull(first.getMarkFrames());
+        assertTrue(first.getCompactSnapshotFrames().isKeyframe());
+        assertEquals(ackNumber(first.getMarkFrames()) + 1, ackNumber(first.getCompactSnapshotFrames()));
+        assertEquals(ackNumber(before.getSnapshotFrames()) + 1, ackNumber(first.getSnapshotFrames()));
+
+        raceServer.parseSnapshot();
+        RaceSnapshot second = latestMessages.getLatest();
+
+        assertFalse(second.getCompactSnapshotFrames().isKeyframe());
+        assertEquals(ackNumber(first.getCompactSnapshotFrames()) + 1, ackNumber(second.getCompactSnapshotFrames()));
+        assertEquals(ackNumber(first.getSnapshotFrames()) + 1, ackNumber(second.getSnapshotFrames()));
+    }
+
+
+    /**
+     * After the last client wanting deltas leaves, the compact snapshot stops, and the next client is sent a new keyframe rather than a delta from the old one.
+     */
+    @Test
+    public void deltaClientLeavesTest() {
+
+        latestMessages.addDeltaClient();
+        raceServer.parseSnapshot();
+        raceServer.parseSnapshot();
+        assertFalse(latestMessages.getLatest().getCompactSnapshotFrames().isKeyframe());
+
+        latestMessages.removeDeltaClient();
+        raceServer.parseSnapshot();
+        assertNull(latestMessages.getLatest().getCompactSnapshotFrames());
+
+        latestMessages.addDeltaClient();
+        raceServer.parseSnapshot();
+        RaceSnapshot resumed = latestMessages.getLatest();
+
+        assertNotNull(resumed.getMarkFrames());
+        assertTrue(resumed.getCompactSnapshotFrames().isKeyframe());
+    }
+
+}
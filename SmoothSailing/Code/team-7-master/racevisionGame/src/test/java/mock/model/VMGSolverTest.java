@@ -0,0 +1,134 @@
+package mock.model;
+
+import mock.dataInput.PolarParser;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the VMG solver's solutions, and its cache.
+ */
+public class VMGSolverTest {
+
+    /**
+     * The solver used in each test.
+     */
+    private VMGSolver solver;
+
+    /**
+     * The epsilon, in knots, for computed velocities.
+     */
+    private double speedEpsilon = 1e-9;
+
+
+    /**
+     * Creates the VMGSolver for the tests.
+     * @throws Exception if the polar file cannot be parsed.
+     */
+    @Before
+    public void setUp() throws Exception {
+        solver = new VMGSolver(PolarParser.parsePolarTable("mock/polars/acc_polars.csv"));
+    }
+
+
+    /**
+     * Calculates the velocity towards a destination of a VMG.
+     * @param vmg The VMG.
+     * @param destination The bearing to the destination.
+     * @return The velocity towards the destination, in knots.
+     */
+    private static double velocity(VMG vmg, Bearing destination) {
+        return Math.cos(Math.toRadians(vmg.getBearing().degrees() - destination.degrees())) * vmg.getSpeed();
+    }
+
+
+    /**
+     * No whole degree bearing inside the bounds makes more progress towards the destination than the solution, and the solution is inside the bounds.
+     */
+    @Test
+    public void optimalTest() {
+        Bearing wind = Bearing.fromDegrees(37);
+        double windSpeed = 12;
+        PolarTable polarTable = solver.getPolarTable();
+
+        double[][] bounds = {{0, 0}, {10, 120}, {300, 45}, {200, 210}};
+
+        for (double[] bound : bounds) {
+            Bearing lower = Bearing.fromDegrees(bound[0]);
+            Bearing upper = Bearing.fromDegrees(bound[1]);
+
+            for (double destinationAngle = 0; destinationAngle < 360; destinationAngle += 15) {
+                Bearing destination = Bearing.fromDegrees(destinationAngle);
+                VMG vmg = solver.calculateVMG(wind, windSpeed, destination, lower, upper);
+
+                if (vmg.getSpeed() > 0 && !(bound[0] == 0 && bound[1] == 0)) {
+                    assertTrue(Polars.isBearingInsideInterval(vmg.getBearing(), lower, upper));
+                }
+
+                for (double angle = 0; angle < 360; angle++) {
+                    Bearing bearing = Bearing.fromDegrees(angle);
+                    if ((bound[0] == 0 && bound[1] == 0) || Polars.isBearingInsideInterval(bearing, lower, upper)) {
+                        VMG other = new VMG(polarTable.getBoatSpeed(wind, windSpeed, bearing), bearing);
+                        assertTrue(velocity(other, destination) <= Math.max(0, velocity(vmg, destination)) + speedEpsilon);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests which quantise to the same values share a solution.
+     */
+    @Test
+    public void cacheTest() {
+        Bearing wind = Bearing.fromDegrees(90);
+        Bearing lower = Bearing.fromDegrees(0);
+        Bearing upper = Bearing.fromDegrees(0);
+
+        VMG first = solver.calculateVMG(wind, 12, Bearing.fromDegrees(100), lower, upper);
+        VMG second = solver.calculateVMG(wind, 12.05, Bearing.fromDegrees(100.3), lower, upper);
+        VMG third = solver.calculateVMG(wind, 12, Bearing.fromDegrees(140), lower, upper);
+
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertEquals(2, solver.getCacheSize());
+    }
+
+    /**
+     * Small wind shifts keep the cache, and larger ones clear it.
+     */
+    @Test
+    public void windShiftTest() {
+        Bearing destination = Bearing.fromDegrees(100);
+        Bearing lower = Bearing.fromDegrees(0);
+        Bearing upper = Bearing.fromDegrees(0);
+
+        VMG first = solver.calculateVMG(Bearing.fromDegrees(359), 12, destination, lower, upper);
+        VMG smallShift = solver.calculateVMG(Bearing.fromDegrees(0.5), 12, destination, lower, upper);
+        assertSame(first, smallShift);
+
+        VMG largeShift = solver.calculateVMG(Bearing.fromDegrees(359 + VMGSolver.WindShiftTolerance + 2), 12, destination, lower, upper);
+        assertNotSame(first, largeShift);
+        assertEquals(1, solver.getCacheSize());
+    }
+
+    /**
+     * The cache never grows past its limit.
+     */
+    @Test
+    public void cacheLimitTest() {
+        Bearing wind = Bearing.fromDegrees(0);
+
+        for (int destination = 0; destination < 360; destination++) {
+            for (int lower = 0; lower < 360; lower += 6) {
+                solver.calculateVMG(wind, 12, Bearing.fromDegrees(destination), Bearing.fromDegrees(lower), Bearing.fromDegrees(lower + 90));
+            }
+        }
+
+        assertTrue(solver.getCacheSize() <= VMGSolver.MaxEntries);
+        assertTrue(solver.getCacheSize() > 0);
+    }
+}
@@ -3,18 +3,26 @@ package network;
 import network.Exceptions.InvalidMessageException;
 import network.MessageDecoders.XMLMessageDecoder;
 import network.MessageDecoders.XMLMessageDecoderTest;
+import network.MessageEncoders.EncoderFactory;
 import network.MessageEncoders.RaceVisionByteEncoder;
 import network.Messages.AC35Data;
 import network.Messages.Enums.MessageType;
 import network.Messages.Enums.XMLMessageType;
+import network.Messages.FrameBatch;
+import network.Messages.HeartBeat;
 import network.Messages.XMLMessage;
+import network.Utils.ByteCodec;
 import org.junit.Assert;
 import org.junit.Test;
 import shared.dataInput.XMLReader;
 import shared.exceptions.XMLReaderException;
 
 import javax.xml.transform.TransformerException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.fail;
 
@@ -93,6 +101,161 @@ public class BinaryMessageDecoderTest {
         }
     }
 
+    /**
+     * Tests if a message can be decoded from a view into a larger buffer, without being copied out first.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void bufferViewTest() throws Exception {
+
+        HeartBeat heartBeat = new HeartBeat(42);
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(heartBeat, 7);
+
+        //Place the frame in the middle of some junk.
+        byte[] backing = new byte[frame.length + 20];
+        Arrays.fill(backing, (byte) 0x55);
+        System.arraycopy(frame, 0, backing, 10, frame.length);
+
+        ByteBuffer view = ByteBuffer.wrap(backing, 10, frame.length);
+        BinaryMessageDecoder decoder = new BinaryMessageDecoder(view);
+
+        HeartBeat decoded = (HeartBeat) decoder.decode();
+
+        Assert.assertEquals(heartBeat.getSequenceNumber(), decoded.getSequenceNumber());
+        Assert.assertEquals(7, decoder.getHeaderSourceID());
+        Assert.assertEquals(decoder.getMessageCRCValue(), decoder.getCalculatedCRCValue());
+        //The caller's buffer must not be moved.
+        Assert.assertEquals(10, view.position());
+        Assert.assertTrue(decoder.getMessageBodyBuffer().isReadOnly());
+    }
+
+
+    /**
+     * Tests that a corrupted message body fails the CRC check.
+     * @throws Exception if test fails.
+     */
+    @Test(expected = InvalidMessageException.class)
+    public void corruptBodyTest() throws Exception {
+
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(42), 7);
+        frame[BinaryMessageDecoder.headerLength] ^= 0x01;
+
+        new BinaryMessageDecoder(frame).decode();
+    }
+
+
+    /**
+     * Tests that a truncated message is rejected.
+     * @throws Exception if test fails.
+     */
+    @Test(expected = InvalidMessageException.class)
+    public void truncatedMessageTest() throws Exception {
+
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(42), 7);
+
+        new BinaryMessageDecoder(Arrays.copyOf(frame, frame.length - 2)).decode();
+    }
+
+    /**
+     * Tests that a frame encoded into the pooled buffer matches one built by the {@link BinaryMessageEncoder} constructor, and decodes correctly.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void encodeFrameMatchesConstructorTest() throws Exception {
+
+        HeartBeat heartBeat = new HeartBeat(42);
+        long time = 1494570214123L;
+
+        byte[] body = RaceVisionByteEncoder.encode(heartBeat);
+        byte[] expected = new BinaryMessageEncoder(heartBeat.getType(), time, 7, (short) body.length, body).getFullMessage();
+
+        ByteBuffer frame = BinaryMessageEncoder.encodeFrame(heartBeat, EncoderFactory.create(heartBeat.getType()), time, 7);
+
+        Assert.assertTrue(frame.isDirect());
+        Assert.assertEquals(0, frame.position());
+        Assert.assertEquals(expected.length, frame.remaining());
+
+        byte[] actual = new byte[frame.remaining()];
+        frame.duplicate().get(actual);
+        Assert.assertArrayEquals(expected, actual);
+
+        BinaryMessageDecoder decoder = new BinaryMessageDecoder(frame);
+        Assert.assertEquals(heartBeat.getSequenceNumber(), ((HeartBeat) decoder.decode()).getSequenceNumber());
+        Assert.assertEquals(body.length, decoder.getMessageBodyLength());
+        Assert.assertEquals(decoder.getMessageCRCValue(), decoder.getCalculatedCRCValue());
+    }
+
+
+    /**
+     * Tests that the pooled buffer is reused between frames, and grows to fit a message larger than it.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void encodeFrameReuseTest() throws Exception {
+
+        ByteBuffer first = RaceVisionByteEncoder.encodeBinaryMessageFrame(new HeartBeat(1), 1);
+        ByteBuffer second = RaceVisionByteEncoder.encodeBinaryMessageFrame(new HeartBeat(2), 2);
+        Assert.assertSame(first, second);
+
+        //A message bigger than the initial buffer.
+        char[] text = new char[10000];
+        Arrays.fill(text, 'x');
+        XMLMessage xmlMessage = new XMLMessage(
+                XMLMessage.currentVersionNumber,
+                1,
+                System.currentTimeMillis(),
+                XMLMessageType.RACE,
+                (short) 1,
+                new String(text) );
+
+        ByteBuffer large = RaceVisionByteEncoder.encodeBinaryMessageFrame(xmlMessage, 3);
+        Assert.assertEquals(RaceVisionByteEncoder.encode(xmlMessage).length + BinaryMessageDecoder.headerLength + BinaryMessageDecoder.CRCLength, large.remaining());
+
+        BinaryMessageDecoder decoder = new BinaryMessageDecoder(large);
+        XMLMessageDecoderTest.compareXMLMessages(xmlMessage, (XMLMessage) decoder.decode());
+        Assert.assertEquals(3, decoder.getHeaderSourceID());
+
+        //The grown buffer is then reused for small messages.
+        Assert.assertSame(large, RaceVisionByteEncoder.encodeBinaryMessageFrame(new HeartBeat(4), 4));
+    }
+
+    /**
+     * Tests that a batch of messages is encoded into consecutive binary messages, and that each view of the batch is independent.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void frameBatchTest() throws Exception {
+
+        List<AC35Data> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            messages.add(new HeartBeat(i));
+        }
+
+        FrameBatch batch = RaceVisionByteEncoder.encodeFrameBatch(messages, 11);
+        Assert.assertEquals(3, batch.getMessageCount());
+
+        ByteBuffer frames = batch.getFrames();
+        Assert.assertEquals(batch.getLength(), frames.remaining());
+
+        for (int i = 0; i < 3; i++) {
+            int frameLength = BinaryMessageDecoder.headerLength + ByteCodec.getUInt16(frames, frames.position() + 13) + BinaryMessageDecoder.CRCLength;
+
+            ByteBuffer frame = frames.duplicate();
+            frame.limit(frame.position() + frameLength);
+
+            BinaryMessageDecoder decoder = new BinaryMessageDecoder(frame);
+            Assert.assertEquals(i, ((HeartBeat) decoder.decode()).getSequenceNumber());
+            Assert.assertEquals(11, decoder.getHeaderSourceID());
+
+            frames.position(frames.position() + frameLength);
+        }
+        Assert.assertFalse(frames.hasRemaining());
+
+        //Another client's view starts from the beginning.
+        Assert.assertEquals(0, batch.getFrames().position());
+        Assert.assertTrue(batch.getFrames().isReadOnly());
+    }
+
     //TODO add some tests for more messages types.
 
 }
@@ -0,0 +1,101 @@
+package network.MessageDecoders;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.BoatLocationDelta;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Test for the BoatLocationDelta encoder and decoder
+ */
+public class BoatLocationDeltaDecoderTest {
+
+
+    /**
+     * Encodes and decodes a given message.
+     * @param message Message to encode/decode.
+     * @return The decoded message.
+     * @throws Exception If the message cannot be encoded or decoded.
+     */
+    private BoatLocationDelta encodeDecodeMessage(BoatLocationDelta message) throws Exception {
+
+        //Encode.
+        byte [] testEncodedMessage = RaceVisionByteEncoder.encode(message);
+
+        //Decode.
+        BoatLocationDeltaDecoder testDecoder = new BoatLocationDeltaDecoder();
+        testDecoder.decode(testEncodedMessage);
+
+        return testDecoder.getMessage();
+    }
+
+
+    /**
+     * Checks that two messages contain the same values.
+     * @param expected The expected message.
+     * @param actual The actual message.
+     */
+    private void assertSameMessage(BoatLocationDelta expected, BoatLocationDelta actual) {
+
+        assertEquals(expected.isKeyframe(), actual.isKeyframe());
+        assertEquals(expected.getKeyframeNumber(), actual.getKeyframeNumber());
+        assertEquals(expected.getQuantisationShift(), actual.getQuantisationShift());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getBoatCount(), actual.getBoatCount());
+
+        for (int i = 0; i < expected.getBoatCount(); i++) {
+            assertEquals(expected.getSourceID(i), actual.getSourceID(i));
+            assertEquals(expected.getLatitude(i), actual.getLatitude(i));
+            assertEquals(expected.getLongitude(i), actual.getLongitude(i));
+            assertEquals(expected.getHeading(i), actual.getHeading(i));
+            assertEquals(expected.getSpeed(i), actual.getSpeed(i));
+        }
+    }
+
+
+    /**
+     * Tests if a keyframe can be encoded and decoded correctly.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void keyframeTest() throws Exception {
+
+        BoatLocationDelta keyframe = new BoatLocationDelta(
+                true,
+                65535,
+                2,
+                System.currentTimeMillis(),
+                new int[] {101, 102},
+                new int[] {Integer.MIN_VALUE, -439812345},
+                new int[] {Integer.MAX_VALUE, 2096543210},
+                new int[] {0, 65535},
+                new int[] {1234, 0});
+
+        assertSameMessage(keyframe, encodeDecodeMessage(keyframe));
+    }
+
+
+    /**
+     * Tests if a delta, with negative offsets, can be encoded and decoded correctly.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void deltaTest() throws Exception {
+
+        BoatLocationDelta delta = new BoatLocationDelta(
+                false,
+                7,
+                3,
+                System.currentTimeMillis(),
+                new int[] {101, 102, 103},
+                new int[] {Short.MIN_VALUE, 0, Short.MAX_VALUE},
+                new int[] {-1, 1, -200},
+                new int[] {16384, 32768, 49152},
+                new int[] {0, 1, 65535});
+
+        assertSameMessage(delta, encodeDecodeMessage(delta));
+    }
+
+}
@@ -1,14 +1,17 @@
 package network.MessageDecoders;
 
 
+import network.BinaryMessageDecoder;
 import network.MessageEncoders.HostGameMessageEncoder;
 import network.MessageEncoders.HostedGamesRequestEncoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
 import network.Messages.Enums.RaceStatusEnum;
 import network.Messages.HostGame;
 import network.Messages.HostGamesRequest;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,6 +34,64 @@ public class HostedGamesRequestDecoderTest {
         compareHostGamesRequestMessage(knownGames, decodedTest.getKnownGames());
     }
 
+    /**
+     * The factories know about HostGamesRequests, so they can be sent as whole frames.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void hostGamesRequestFrameTest() throws Exception {
+        HostGame testHostGame1 = new HostGame("127.0.0.1", 3779, (byte) 1, (byte) 2, RaceStatusEnum.PRESTART, (byte) 6, (byte) 2);
+        HostGame testHostGame2 = new HostGame("127.0.0.1", 3780, (byte) 1, (byte) 2, RaceStatusEnum.PRESTART, (byte) 6, (byte) 2);
+
+        List knownGames = Arrays.asList(testHostGame1, testHostGame2);
+
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(new HostGamesRequest(knownGames), 1);
+
+        HostGamesRequest decodedTest = (HostGamesRequest) new BinaryMessageDecoder(frame).decode();
+
+        compareHostGamesRequestMessage(knownGames, decodedTest.getKnownGames());
+    }
+
+    /**
+     * A compressed list of games decodes to the same games, and is smaller than the plain list.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void compressedHostGamesRequestTest() throws Exception {
+        List<HostGame> knownGames = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            knownGames.add(new HostGame("127.0.0.1", 3779 + i, (byte) 1, (byte) 2, RaceStatusEnum.PRESTART, (byte) 6, (byte) 2));
+        }
+
+        HostedGamesRequestEncoder encoder = new HostedGamesRequestEncoder();
+
+        byte[] plain = encoder.encode(new HostGamesRequest(knownGames));
+        byte[] compressed = encoder.encode(new HostGamesRequest(knownGames, true));
+
+        Assert.assertTrue(compressed.length < plain.length);
+
+        HostGamesRequest decodedTest = (HostGamesRequest) new HostedGamesRequestDecoder().decode(compressed);
+
+        Assert.assertTrue(decodedTest.isCompressed());
+        Assert.assertEquals(knownGames.size(), decodedTest.getKnownGames().size());
+        Assert.assertEquals(3779 + 49, decodedTest.getKnownGames().get(49).getPort());
+        compareHostGamesRequestMessage(knownGames, decodedTest.getKnownGames());
+    }
+
+    /**
+     * An empty compressed request is a subscription to compressed lists.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void compressedSubscriptionTest() throws Exception {
+        byte[] encoded = new HostedGamesRequestEncoder().encode(new HostGamesRequest(new ArrayList<>(), true));
+
+        HostGamesRequest decodedTest = (HostGamesRequest) new HostedGamesRequestDecoder().decode(encoded);
+
+        Assert.assertTrue(decodedTest.isCompressed());
+        Assert.assertTrue(decodedTest.getKnownGames().isEmpty());
+    }
+
     public static void compareHostGamesRequestMessage(List<HostGame> original, List<HostGame> decoded) {
         Assert.assertEquals(original.get(0).getIp(), decoded.get(0).getIp());
         Assert.assertEquals(original.get(1).getPort(), decoded.get(1).getPort());
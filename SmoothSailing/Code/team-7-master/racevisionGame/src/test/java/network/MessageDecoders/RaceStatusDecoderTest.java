@@ -1,6 +1,7 @@
 package network.MessageDecoders;
 
 import network.Exceptions.InvalidMessageException;
+import network.MessageEncoders.RaceStatusEncoder;
 import network.MessageEncoders.RaceVisionByteEncoder;
 import network.Messages.BoatStatus;
 import network.Messages.Enums.BoatStatusEnum;
@@ -11,6 +12,8 @@ import org.junit.Assert;
 import org.junit.Test;
 import shared.model.Bearing;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -22,11 +25,10 @@ public class RaceStatusDecoderTest {
 
 
     /**
-     * Creates a RaceStatus message, encodes it, decodes it, and checks that the result matches the starting message.
-     * @throws Exception if test fails.
+     * Creates a RaceStatus message with two boats.
+     * @return The RaceStatus message.
      */
-    @Test
-    public void raceStatusEncodeDecodeTest() throws Exception {
+    private static RaceStatus createRaceStatus() {
 
         long time = System.currentTimeMillis();
 
@@ -86,6 +88,18 @@ public class RaceStatusDecoderTest {
                 raceType,
                 boatStatuses    );
 
+        return raceStatusOriginal;
+    }
+
+
+    /**
+     * Creates a RaceStatus message, encodes it, decodes it, and checks that the result matches the starting message.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void raceStatusEncodeDecodeTest() throws Exception {
+
+        RaceStatus raceStatusOriginal = createRaceStatus();
 
         byte[] encodedRaceStatus = RaceVisionByteEncoder.encode(raceStatusOriginal);
 
@@ -99,6 +113,54 @@ public class RaceStatusDecoderTest {
     }
 
 
+    /**
+     * Encodes a RaceStatus message into the middle of a big endian direct buffer, decodes it in place, and checks that the result matches the starting message.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void raceStatusEncodeDecodeInPlaceTest() throws Exception {
+
+        RaceStatus raceStatusOriginal = createRaceStatus();
+
+        RaceStatusEncoder encoder = new RaceStatusEncoder();
+        int length = encoder.getEncodedLength(raceStatusOriginal);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length + 20).order(ByteOrder.BIG_ENDIAN);
+        buffer.position(7);
+        encoder.encode(raceStatusOriginal, buffer);
+
+        Assert.assertEquals(7 + length, buffer.position());
+        Assert.assertArrayEquals(RaceVisionByteEncoder.encode(raceStatusOriginal), copyOfRange(buffer, 7, 7 + length));
+
+
+        buffer.position(7);
+        buffer.limit(7 + length);
+
+        RaceStatusDecoder decoderTest = new RaceStatusDecoder();
+        RaceStatus decodedMessage = (RaceStatus) decoderTest.decode(buffer);
+
+        Assert.assertEquals(7, buffer.position());
+        compareRaceStatusMessages(raceStatusOriginal, decodedMessage);
+
+    }
+
+
+    /**
+     * Copies part of a buffer into an array.
+     * @param buffer Buffer to copy from.
+     * @param from Index of the first byte.
+     * @param to Index after the last byte.
+     * @return The bytes.
+     */
+    private static byte[] copyOfRange(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.get(bytes);
+        return bytes;
+    }
+
+
     /**
      * Compares two RaceStatus messages to check that they are equal.
      * @param original The original RaceStatus message.
@@ -85,5 +85,39 @@ public class RequestToJoinDecoderTest {
     }
 
 
+    /**
+     * Tests that the boat location delta feature flag survives encoding and decoding.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void boatLocationDeltasTest() throws Exception {
+
+        RequestToJoin withDeltas = encodeDecodeMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR, true));
+        RequestToJoin withoutDeltas = encodeDecodeMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR, false));
+
+        assertTrue(withDeltas.isBoatLocationDeltas());
+        assertEquals(RequestToJoinEnum.SPECTATOR, withDeltas.getRequestType());
+        assertFalse(withoutDeltas.isBoatLocationDeltas());
+    }
+
+
+    /**
+     * Tests that the compression feature flag survives encoding and decoding, alongside the boat location delta flag.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void compressionTest() throws Exception {
+
+        RequestToJoin both = encodeDecodeMessage(new RequestToJoin(RequestToJoinEnum.PARTICIPANT, true, true));
+        RequestToJoin compressionOnly = encodeDecodeMessage(new RequestToJoin(RequestToJoinEnum.PARTICIPANT, false, true));
+        RequestToJoin neither = encodeDecodeMessage(new RequestToJoin(RequestToJoinEnum.PARTICIPANT));
+
+        assertTrue(both.isCompression());
+        assertTrue(both.isBoatLocationDeltas());
+        assertTrue(compressionOnly.isCompression());
+        assertFalse(compressionOnly.isBoatLocationDeltas());
+        assertFalse(neither.isCompression());
+    }
+
 
 }
@@ -11,6 +11,7 @@ import shared.exceptions.XMLReaderException;
 
 import javax.xml.transform.TransformerException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.junit.Assert.fail;
 
@@ -104,4 +105,48 @@ public class XMLMessageDecoderTest {
     public void boatXMLMessageTest() throws Exception {
         xmlMessageTest("network/raceXML/Boats.xml", XMLMessageType.BOAT);
     }
+
+
+    /**
+     * Tests that a compressed xml message is smaller than the plain one, and decodes to the same xml.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void compressedXMLMessageTest() throws Exception {
+
+        String xmlString = XMLReader.readXMLFileToString("network/raceXML/Race.xml", StandardCharsets.UTF_8);
+
+        XMLMessage message = new XMLMessage((byte)1, 1, System.currentTimeMillis(), XMLMessageType.RACE, (short)1, xmlString);
+        XMLMessage compressed = message.compressed();
+
+        byte[] encodedXML = RaceVisionByteEncoder.encode(message);
+        byte[] encodedCompressedXML = RaceVisionByteEncoder.encode(compressed);
+
+        Assert.assertTrue(encodedCompressedXML.length < encodedXML.length);
+
+
+        XMLMessageDecoder decoderXML = new XMLMessageDecoder();
+        decoderXML.decode(encodedCompressedXML);
+        XMLMessage decodedMessage = decoderXML.getMessage();
+
+        compareXMLMessages(message, decodedMessage);
+        Assert.assertTrue(decodedMessage.isCompressed());
+    }
+
+
+    /**
+     * Tests that a compressed xml message whose body has been cut short is rejected.
+     * @throws Exception if test fails.
+     */
+    @Test(expected = InvalidMessageException.class)
+    public void truncatedCompressedXMLMessageTest() throws Exception {
+
+        String xmlString = XMLReader.readXMLFileToString("network/raceXML/Race.xml", StandardCharsets.UTF_8);
+
+        XMLMessage message = new XMLMessage((byte)1, 1, System.currentTimeMillis(), XMLMessageType.RACE, (short)1, xmlString, true);
+
+        byte[] encodedXML = RaceVisionByteEncoder.encode(message);
+
+        new XMLMessageDecoder().decode(Arrays.copyOf(encodedXML, encodedXML.length - 16));
+    }
 }
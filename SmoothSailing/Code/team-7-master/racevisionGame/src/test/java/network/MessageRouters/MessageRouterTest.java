@@ -0,0 +1,149 @@
+package network.MessageRouters;
+
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.HeartBeat;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import java.util.EnumSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that an inline {@link MessageRouter} routes messages to the right queues, in order.
+ */
+public class MessageRouterTest {
+
+    private MessageRouter router;
+
+    private BlockingQueue<AC35Data> heartBeats;
+    private BlockingQueue<AC35Data> boatLocations;
+
+
+    @Before
+    public void setUp() {
+        router = new MessageRouter();
+        heartBeats = new LinkedBlockingQueue<>();
+        boatLocations = new LinkedBlockingQueue<>();
+    }
+
+
+    private static BoatLocation createBoatLocation(long sequenceNumber) {
+        return new BoatLocation(101, 32.29, -64.85, sequenceNumber, BoatLocationDeviceEnum.RacingYacht, Bearing.fromDegrees(45), 12.5, 1000);
+    }
+
+
+    /**
+     * Messages placed on the incoming queue are routed immediately, by type.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void routesByTypeTest() throws Exception {
+
+        router.addRoute(MessageType.HEARTBEAT, heartBeats);
+        router.addRoute(MessageType.BOATLOCATION, boatLocations);
+
+        router.getIncomingMessageQueue().put(new HeartBeat(1));
+        router.getIncomingMessageQueue().add(createBoatLocation(2));
+
+        assertEquals(1, heartBeats.size());
+        assertEquals(1, boatLocations.size());
+        assertEquals(MessageType.BOATLOCATION, boatLocations.take().getType());
+        assertTrue(router.getIncomingMessageQueue().isEmpty());
+    }
+
+
+    /**
+     * Messages without a route are discarded, unless there is a default route.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void unroutedTest() throws Exception {
+
+        router.route(new HeartBeat(1));
+        assertEquals(1, router.getDiscardedCount());
+
+        router.addDefaultRoute(heartBeats);
+        router.route(new HeartBeat(2));
+        assertEquals(1, heartBeats.size());
+
+        router.removeDefaultRoute();
+        router.addRoute(MessageType.BOATLOCATION, boatLocations);
+        router.removeRoute(MessageType.BOATLOCATION);
+        router.route(createBoatLocation(3));
+
+        assertTrue(boatLocations.isEmpty());
+        assertEquals(2, router.getDiscardedCount());
+    }
+
+
+    /**
+     * Held messages are passed on, in order, when their route is added, and before any newer message.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void heldMessagesTest() throws Exception {
+
+        router.holdUnroutedMessages();
+
+        router.route(createBoatLocation(1));
+        router.route(new HeartBeat(2));
+        router.route(createBoatLocation(3));
+
+        router.addRoute(MessageType.BOATLOCATION, boatLocations);
+        router.route(createBoatLocation(4));
+
+        assertEquals(3, boatLocations.size());
+        assertEquals(1, ((BoatLocation) boatLocations.take()).getSequenceNumber());
+        assertEquals(3, ((BoatLocation) boatLocations.take()).getSequenceNumber());
+        assertEquals(4, ((BoatLocation) boatLocations.take()).getSequenceNumber());
+
+        //The heartbeat is discarded when holding stops.
+        router.removeDefaultRoute();
+        router.addRoute(MessageType.HEARTBEAT, heartBeats);
+
+        assertTrue(heartBeats.isEmpty());
+        assertEquals(1, router.getDiscardedCount());
+    }
+
+
+    /**
+     * Routes added together receive all their held messages in the order they arrived, whatever their types.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void addRoutesHeldOrderTest() throws Exception {
+
+        router.holdUnroutedMessages();
+
+        router.route(new HeartBeat(1));
+        router.route(createBoatLocation(2));
+        router.route(new HeartBeat(3));
+
+        router.addRoutes(EnumSet.of(MessageType.BOATLOCATION, MessageType.HEARTBEAT), boatLocations);
+        router.route(createBoatLocation(4));
+
+        assertEquals(4, boatLocations.size());
+        assertEquals(1, ((HeartBeat) boatLocations.take()).getSequenceNumber());
+        assertEquals(2, ((BoatLocation) boatLocations.take()).getSequenceNumber());
+        assertEquals(3, ((HeartBeat) boatLocations.take()).getSequenceNumber());
+        assertEquals(4, ((BoatLocation) boatLocations.take()).getSequenceNumber());
+    }
+
+
+    /**
+     * An inline router cannot use its own incoming queue as its default route, as that would recurse forever.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void defaultRouteToSelfTest() {
+        router.addDefaultRoute(router.getIncomingMessageQueue());
+    }
+
+}
@@ -0,0 +1,133 @@
+package network.Messages;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.Enums.XMLMessageType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that {@link LatestMessages} publishes immutable, versioned {@link RaceSnapshot}s.
+ */
+public class LatestMessagesTest {
+
+    private LatestMessages latestMessages;
+
+
+    @Before
+    public void setUp() {
+        latestMessages = new LatestMessages();
+    }
+
+
+    private static XMLMessage xmlMessage(XMLMessageType type, int sequenceNumber) {
+        return new XMLMessage(XMLMessage.currentVersionNumber, 1, 1, type, sequenceNumber, "<" + type + "/>");
+    }
+
+
+    /**
+     * Each publish has a higher version, and earlier snapshots are unchanged.
+     */
+    @Test
+    public void versionTest() throws Exception {
+
+        RaceSnapshot first = latestMessages.getLatest();
+
+        List<AC35Data> messages = Collections.<AC35Data>singletonList(new HeartBeat(1));
+        latestMessages.setSnapshot(messages);
+
+        RaceSnapshot second = latestMessages.getLatest();
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(messages, second.getSnapshot());
+        assertTrue(first.getSnapshot().isEmpty());
+    }
+
+
+    /**
+     * Everything changed by one publish is seen together, as one version.
+     */
+    @Test
+    public void publishTest() throws Exception {
+
+        List<AC35Data> messages = Collections.<AC35Data>singletonList(new HeartBeat(1));
+        FrameBatch frames = RaceVisionByteEncoder.encodeFrameBatch(messages, 1);
+
+        long version = latestMessages.getLatest().getVersion();
+        RaceSnapshot published = latestMessages.publish(latest -> latest.withSnapshot(messages, frames).withMarkFrames(frames));
+
+        assertEquals(version + 1, published.getVersion());
+        assertSame(published, latestMessages.getLatest());
+        assertSame(frames, published.getSnapshotFrames());
+        assertSame(frames, published.getMarkFrames());
+    }
+
+
+    /**
+     * The snapshot can't be modified by readers.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableTest() {
+        latestMessages.setSnapshot(new ArrayList<>());
+        latestMessages.getSnapshot().add(new HeartBeat(1));
+    }
+
+
+    /**
+     * The XML version only changes when an XML message does, and XML messages are encoded once.
+     */
+    @Test
+    public void xmlVersionTest() {
+
+        latestMessages.setXMLMessage(xmlMessage(XMLMessageType.RACE, 1));
+        RaceSnapshot first = latestMessages.getLatest();
+        assertEquals(first.getVersion(), first.getXMLVersion());
+        assertFalse(first.hasAllXMLMessages());
+
+        latestMessages.setSnapshot(new ArrayList<>());
+        RaceSnapshot second = latestMessages.getLatest();
+        assertEquals(first.getXMLVersion(), second.getXMLVersion());
+
+        latestMessages.setXMLMessage(xmlMessage(XMLMessageType.BOAT, 1));
+        latestMessages.setXMLMessage(xmlMessage(XMLMessageType.REGATTA, 1));
+        RaceSnapshot third = latestMessages.getLatest();
+        assertEquals(third.getVersion(), third.getXMLVersion());
+        assertTrue(third.hasAllXMLMessages());
+
+        XMLMessage raceXMLMessage = third.getRaceXMLMessage();
+        assertTrue(third.getEncodedXMLMessage(raceXMLMessage) instanceof FrameBatch);
+        assertSame(third.getEncodedXMLMessage(raceXMLMessage), latestMessages.getEncodedXMLMessage(raceXMLMessage));
+    }
+
+
+    /**
+     * A waiting reader wakes when a newer snapshot is published, and an up to date reader times out.
+     */
+    @Test
+    public void awaitNewerThanTest() throws Exception {
+
+        long version = latestMessages.getLatest().getVersion();
+
+        assertEquals(version, latestMessages.awaitNewerThan(version, 20).getVersion());
+
+        Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            latestMessages.setSnapshot(new ArrayList<>());
+        });
+        publisher.start();
+
+        RaceSnapshot newer = latestMessages.awaitNewerThan(version, 5000);
+        assertTrue(newer.getVersion() > version);
+
+        publisher.join();
+    }
+}
@@ -0,0 +1,191 @@
+package network.PacketDump;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.BoatLocation;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.HeartBeat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that an {@link AC35DumpIndex} finds frames by time and source ID.
+ */
+public class AC35DumpIndexTest {
+
+    /**
+     * Header timestamp of the first frame in the dump.
+     */
+    private static final long startTime = 1500000000000L;
+
+    /**
+     * Number of frames for each boat. Each frame period, there is a BoatLocation for each boat and a HeartBeat.
+     */
+    private static final int frames = 500;
+
+    private Path folder;
+    private Path dumpPath;
+
+
+    @Before
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("AC35DumpIndexTest");
+        dumpPath = folder.resolve("race.bin");
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+
+        for (int i = 0; i < frames; i++) {
+            long time = startTime + i * 100;
+            dump.write(encode(createBoatLocation(101, i), time));
+            dump.write(encode(createBoatLocation(102, i), time));
+            dump.write(encode(new HeartBeat(i), time));
+        }
+
+        Files.write(dumpPath, dump.toByteArray());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+
+    private static BoatLocation createBoatLocation(int sourceID, long sequenceNumber) {
+        return new BoatLocation(sourceID, 32.29, -64.85, sequenceNumber, BoatLocationDeviceEnum.RacingYacht, Bearing.fromDegrees(45), 12.5, 0);
+    }
+
+    /**
+     * Encodes a message, with a given header timestamp and source ID.
+     * @param message The message.
+     * @param time The header timestamp.
+     * @return The frame.
+     * @throws Exception Thrown if the message cannot be encoded.
+     */
+    private static byte[] encode(AC35Data message, long time) throws Exception {
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(message, 0);
+        int sourceID = message instanceof BoatLocation ? ((BoatLocation) message).getSourceID() : 1;
+
+        for (int i = 0; i < 6; i++) {
+            frame[3 + i] = (byte) (time >> (8 * i));
+        }
+        for (int i = 0; i < 4; i++) {
+            frame[9 + i] = (byte) (sourceID >> (8 * i));
+        }
+        return frame;
+    }
+
+
+    /**
+     * The dump is read lazily, frame by frame.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void readerTest() throws Exception {
+
+        int count = 0;
+        for (AC35Packet packet : new AC35DumpReader(dumpPath)) {
+            assertEquals(startTime + (count / 3) * 100, packet.getHeaderTime());
+            count++;
+        }
+        assertEquals(frames * 3, count);
+    }
+
+
+    /**
+     * The index counts each source's frames, and is saved and reused.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void openTest() throws Exception {
+
+        AC35DumpReader dump = new AC35DumpReader(dumpPath);
+        AC35DumpIndex index = AC35DumpIndex.open(dump);
+
+        assertTrue(Files.exists(AC35DumpIndex.getIndexPath(dump)));
+        assertEquals(frames * 3, index.getFrameCount());
+        assertArrayEquals(new int[] {1, 101, 102}, index.getSourceIDs());
+        assertEquals(frames, index.getFrameCount(101));
+        assertEquals(0, index.getFrameCount(999));
+
+        AC35DumpIndex reopened = AC35DumpIndex.open(dump);
+        assertEquals(frames * 3, reopened.getFrameCount());
+        assertEquals(frames, reopened.getFrameCount(102));
+    }
+
+
+    /**
+     * A query returns exactly the matching frames, in order.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void sourceQueryTest() throws Exception {
+
+        AC35DumpIndex index = AC35DumpIndex.open(new AC35DumpReader(dumpPath));
+
+        long from = startTime + 12345;
+        long to = startTime + 23456;
+
+        List<AC35Packet> result = new ArrayList<>();
+        for (AC35Packet packet : index.getFrames(101, MessageType.BOATLOCATION, from, to)) {
+            result.add(packet);
+        }
+
+        //Frames 124 to 234 inclusive.
+        assertEquals(111, result.size());
+        long previousTime = 0;
+        for (AC35Packet packet : result) {
+            assertEquals(101, packet.getSourceID());
+            assertEquals(MessageType.BOATLOCATION, packet.getType());
+            assertTrue(packet.getHeaderTime() >= from && packet.getHeaderTime() <= to);
+            assertTrue(packet.getHeaderTime() > previousTime);
+            previousTime = packet.getHeaderTime();
+        }
+
+        assertFalse(index.getFrames(101, MessageType.HEARTBEAT, from, to).iterator().hasNext());
+        assertFalse(index.getFrames(999, null, from, to).iterator().hasNext());
+    }
+
+
+    /**
+     * A time query returns every source's frames in the range, starting near the seek position.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void timeQueryTest() throws Exception {
+
+        AC35DumpReader dump = new AC35DumpReader(dumpPath);
+        AC35DumpIndex index = AC35DumpIndex.open(dump);
+
+        long from = startTime + 30000;
+        long to = startTime + 30000;
+
+        int count = 0;
+        for (AC35Packet packet : index.getFrames(from, to)) {
+            assertEquals(from, packet.getHeaderTime());
+            count++;
+        }
+        assertEquals(3, count);
+
+        //Seeking skips most of the dump, but never past a matching frame.
+        long offset = index.seek(from);
+        assertTrue(offset > 0);
+        assertTrue(dump.readPacket(offset).getHeaderTime() <= from);
+    }
+
+}
@@ -0,0 +1,151 @@
+package network.PacketDump;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.Enums.MessageType;
+import network.Messages.HeartBeat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that frames recorded by a {@link PacketLogWriter} are read back by a {@link PacketLogReader}.
+ */
+public class PacketLogTest {
+
+    private Path folder;
+
+
+    @Before
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("PacketLogTest");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+
+    /**
+     * Frames are read back in order, byte for byte, with increasing receive times, across several segments.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void roundTripTest() throws Exception {
+
+        Path directory = folder.resolve("capture");
+        int segmentSize = 100000;
+        int frameCount = 20000;
+
+        List<byte[]> frames = new ArrayList<>();
+
+        try (PacketLogWriter writer = new PacketLogWriter(directory, segmentSize)) {
+            for (int i = 0; i < frameCount; i++) {
+                byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(i), i);
+                frames.add(frame);
+                writer.write(ByteBuffer.wrap(frame));
+            }
+
+            assertEquals(frameCount, writer.getFrameCount());
+            assertTrue(writer.getSegmentCount() > 1);
+        }
+
+        PacketLogReader reader = new PacketLogReader(directory);
+
+        int i = 0;
+        long previousReceiveTime = -1;
+        for (AC35Packet packet : reader) {
+            assertArrayEquals(frames.get(i), packet.getData());
+            assertEquals(MessageType.HEARTBEAT, packet.getType());
+            assertTrue(packet.getReceiveTime() >= previousReceiveTime);
+            previousReceiveTime = packet.getReceiveTime();
+            i++;
+        }
+        assertEquals(frameCount, i);
+
+        //A second pass reads the same frames.
+        int secondPass = 0;
+        for (AC35Packet ignored : reader) {
+            secondPass++;
+        }
+        assertEquals(frameCount, secondPass);
+    }
+
+
+    /**
+     * Back to back frames, as in a FrameBatch, are recorded as separate frames.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void writeAllTest() throws Exception {
+
+        Path directory = folder.resolve("batch");
+
+        ByteBuffer frames = ByteBuffer.allocate(200);
+        frames.put(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(1), 1));
+        frames.put(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(2), 2));
+        frames.flip();
+
+        try (PacketLogWriter writer = new PacketLogWriter(directory)) {
+            writer.writeAll(frames);
+            assertEquals(2, writer.getFrameCount());
+        }
+
+        int count = 0;
+        for (AC35Packet packet : new PacketLogReader(directory)) {
+            assertEquals(MessageType.HEARTBEAT, packet.getType());
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+
+    /**
+     * Replay time follows the header timestamps, scaled by the speed, and never goes backwards.
+     */
+    @Test
+    public void replayClockTest() {
+
+        ReplayClock clock = new ReplayClock(2);
+
+        assertEquals(0, clock.getSendTime(createPacket(1000000)));
+        assertEquals(50000000, clock.getSendTime(createPacket(1000100)));
+        assertEquals(50000000, clock.getSendTime(createPacket(1000050)));
+        assertEquals(100000000, clock.getSendTime(createPacket(1000200)));
+
+        //Long gaps are shortened.
+        assertEquals(100000000 + ReplayClock.maxGapMillis * 1000000 / 2, clock.getSendTime(createPacket(9000000)));
+
+        ReplayClock maxSpeed = new ReplayClock(0);
+        maxSpeed.getSendTime(createPacket(1000000));
+        assertEquals(0, maxSpeed.getSendTime(createPacket(2000000)));
+    }
+
+
+    /**
+     * Creates a packet with a given header timestamp.
+     * @param headerTime The header timestamp, in milliseconds.
+     * @return The packet.
+     */
+    private static AC35Packet createPacket(long headerTime) {
+        byte[] frame = new byte[19];
+        for (int i = 0; i < 6; i++) {
+            frame[3 + i] = (byte) (headerTime >> (8 * i));
+        }
+        return new AC35Packet(frame);
+    }
+
+}
@@ -0,0 +1,75 @@
+package network.PacketDump;
+
+import network.AckSequencer;
+import network.BinaryMessageDecoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.AC35Data;
+import network.Messages.Enums.JoinAcceptanceEnum;
+import network.Messages.Enums.MessageType;
+import network.Messages.Enums.RequestToJoinEnum;
+import network.Messages.HeartBeat;
+import network.Messages.JoinAcceptance;
+import network.Messages.RequestToJoin;
+import network.StreamRelated.FrameReader;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link ReplayServer} accepts a client, and replays a recording to it.
+ */
+public class ReplayServerTest {
+
+
+    @Test(timeout = 10000)
+    public void replayTest() throws Exception {
+
+        //A recording of some heartbeats, and a JoinAcceptance from the original connection.
+        List<AC35Packet> recording = new ArrayList<>();
+        recording.add(new AC35Packet(RaceVisionByteEncoder.encodeBinaryMessage(new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, 101), 0)));
+        for (int i = 0; i < 10; i++) {
+            recording.add(new AC35Packet(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(i), i)));
+        }
+
+        ReplayServer server = new ReplayServer(recording, 0, 0);
+        Thread serverThread = new Thread(server);
+        serverThread.start();
+
+        try (Socket socket = new Socket("localhost", server.getServerPort())) {
+
+            socket.getOutputStream().write(RaceVisionByteEncoder.encodeBinaryMessage(new RequestToJoin(RequestToJoinEnum.SPECTATOR), AckSequencer.getNextAckNum()));
+
+            FrameReader frameReader = new FrameReader(Channels.newChannel(socket.getInputStream()));
+            List<AC35Data> messages = new ArrayList<>();
+            try {
+                while (true) {
+                    ByteBuffer frame = frameReader.nextFrame();
+                    messages.add(new BinaryMessageDecoder(frame).decode());
+                }
+            } catch (EOFException e) {
+                //Replay finished.
+            }
+
+            assertEquals(11, messages.size());
+            assertEquals(JoinAcceptanceEnum.JOIN_SUCCESSFUL_SPECTATOR, ((JoinAcceptance) messages.get(0)).getAcceptanceType());
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(MessageType.HEARTBEAT, messages.get(i + 1).getType());
+                assertEquals(i, ((HeartBeat) messages.get(i + 1)).getSequenceNumber());
+            }
+
+        } finally {
+            server.close();
+            serverThread.join();
+        }
+    }
+
+}
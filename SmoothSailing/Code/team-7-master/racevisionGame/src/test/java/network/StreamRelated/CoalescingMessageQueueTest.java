@@ -0,0 +1,209 @@
+package network.StreamRelated;
+
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.*;
+import network.Messages.Enums.*;
+import network.Utils.BoatLocationDeltaCompressor;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link CoalescingMessageQueue} stays bounded by replacing superseded messages, and never drops anything else.
+ */
+public class CoalescingMessageQueueTest {
+
+    private CoalescingMessageQueue queue;
+
+
+    @Before
+    public void setUp() {
+        queue = new CoalescingMessageQueue(4);
+    }
+
+
+    private static BoatLocation boatLocation(int sourceID, long sequenceNumber) {
+        return new BoatLocation(sourceID, 0, 0, sequenceNumber, BoatLocationDeviceEnum.RacingYacht, Bearing.fromDegrees(0), 0, 0);
+    }
+
+    private static RaceStatus raceStatus(long currentTime) {
+        return new RaceStatus(RaceStatus.currentMessageVersionNumber, currentTime, 1, RaceStatusEnum.STARTED, 0, Bearing.fromDegrees(0), 0, RaceTypeEnum.FLEET_RACE, new ArrayList<>());
+    }
+
+    private static FrameBatch snapshot(long currentTime, AC35Data... messages) throws Exception {
+        List<AC35Data> snapshot = new ArrayList<>(Arrays.asList(messages));
+        snapshot.add(raceStatus(currentTime));
+        return RaceVisionByteEncoder.encodeFrameBatch(snapshot, 1);
+    }
+
+
+    /**
+     * Tests that messages come out in the order they went in, while there is space.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void fifoTest() throws Exception {
+
+        queue.put(new HeartBeat(1));
+        queue.put(boatLocation(1, 1));
+        queue.put(boatLocation(1, 2));
+
+        assertEquals(3, queue.size());
+        assertEquals(1, ((HeartBeat) queue.take()).getSequenceNumber());
+        assertEquals(1, ((BoatLocation) queue.take()).getSequenceNumber());
+        assertEquals(2, ((BoatLocation) queue.take()).getSequenceNumber());
+        assertNull(queue.poll());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+
+    /**
+     * Tests that once full, a boat location or race status replaces the queued one for the same boat, in place.
+     */
+    @Test
+    public void latestValueWinsTest() {
+
+        assertTrue(queue.offer(boatLocation(1, 1)));
+        assertTrue(queue.offer(boatLocation(2, 1)));
+        assertTrue(queue.offer(raceStatus(1)));
+        assertTrue(queue.offer(new HeartBeat(1)));
+
+        assertTrue(queue.offer(boatLocation(2, 2)));
+        assertTrue(queue.offer(raceStatus(2)));
+        assertFalse(queue.offer(boatLocation(3, 1)));
+
+        assertEquals(4, queue.size());
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(4, queue.getPeakSize());
+
+        List<AC35Data> drained = new ArrayList<>();
+        assertEquals(4, queue.drainTo(drained));
+
+        assertEquals(1, ((BoatLocation) drained.get(0)).getSequenceNumber());
+        assertEquals(2, ((BoatLocation) drained.get(1)).getSequenceNumber());
+        assertEquals(2, ((RaceStatus) drained.get(2)).getCurrentTime());
+        assertEquals(MessageType.HEARTBEAT, drained.get(3).getType());
+    }
+
+
+    /**
+     * Tests that XML, JoinAcceptance, and YachtEvent messages are never dropped or replaced - they wait for space instead.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void neverDropTest() throws Exception {
+
+        for (int i = 0; i < 4; i++) {
+            queue.put(new YachtEvent(i, i, 1, 1, i, YachtEventEnum.COLLISION));
+        }
+
+        assertFalse(queue.offer(new YachtEvent(4, 4, 1, 1, 4, YachtEventEnum.COLLISION)));
+        assertFalse(queue.offer(new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, 1)));
+        assertFalse(queue.offer(new XMLMessage(XMLMessage.currentVersionNumber, 1, 1, XMLMessageType.RACE, 1, "<Race/>"), 10, TimeUnit.MILLISECONDS));
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        queue.put(new JoinAcceptance(JoinAcceptanceEnum.JOIN_SUCCESSFUL_PARTICIPANT, 1));
+        consumer.join();
+
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+
+    /**
+     * Tests that a boat location is not replaced once it has left the queue.
+     */
+    @Test
+    public void noStaleReplacementTest() {
+
+        assertTrue(queue.offer(boatLocation(1, 1)));
+        assertTrue(queue.offer(new HeartBeat(1)));
+        assertTrue(queue.offer(new HeartBeat(2)));
+        assertTrue(queue.offer(new HeartBeat(3)));
+
+        queue.poll();
+        assertTrue(queue.offer(new HeartBeat(4)));
+
+        assertFalse(queue.offer(boatLocation(1, 2)));
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+
+
+    /**
+     * Tests that a snapshot batch holding a collision event is never replaced by a newer snapshot, however full the queue is.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void collisionSnapshotNeverDroppedTest() throws Exception {
+
+        FrameBatch collisionSnapshot = snapshot(1, new YachtEvent(1, 1, 1, 121, 1, YachtEventEnum.COLLISION));
+        assertFalse(collisionSnapshot.isSupersedable());
+
+        assertTrue(queue.offer(collisionSnapshot));
+        assertTrue(queue.offer(new HeartBeat(1)));
+        assertTrue(queue.offer(new HeartBeat(2)));
+        assertTrue(queue.offer(new HeartBeat(3)));
+
+        FrameBatch newerSnapshot = snapshot(2);
+        assertTrue(newerSnapshot.isSupersedable());
+        assertFalse(queue.offer(newerSnapshot));
+
+        assertSame(collisionSnapshot, queue.poll());
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    /**
+     * Tests that a snapshot batch queued before a keyframe isn't replaced, so a newer delta can't overtake the keyframe. One queued after it is.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void keyframeOrderTest() throws Exception {
+
+        BoatLocationDeltaCompressor compressor = new BoatLocationDeltaCompressor();
+        BoatLocationDelta keyframe = compressor.compress(Collections.singletonList(boatLocation(121, 1)), 0);
+        FrameBatch keyframeFrames = RaceVisionByteEncoder.encodeFrameBatch(Collections.singletonList(keyframe), 1, false);
+        assertTrue(keyframeFrames.isKeyframe());
+
+        FrameBatch beforeKeyframe = snapshot(1);
+        assertTrue(queue.offer(beforeKeyframe));
+        assertTrue(queue.offer(keyframeFrames));
+        assertTrue(queue.offer(new HeartBeat(1)));
+        assertTrue(queue.offer(new HeartBeat(2)));
+
+        assertFalse(queue.offer(snapshot(2)));
+        assertEquals(0, queue.getDroppedCount());
+
+        //Once the older snapshot has gone, the next one is queued after the keyframe, and can be replaced.
+        assertSame(beforeKeyframe, queue.poll());
+        assertTrue(queue.offer(snapshot(3)));
+
+        FrameBatch newest = snapshot(4);
+        assertTrue(queue.offer(newest));
+        assertEquals(1, queue.getDroppedCount());
+
+        assertSame(keyframeFrames, queue.poll());
+        queue.poll();
+        queue.poll();
+        assertSame(newest, queue.poll());
+    }
+
+}
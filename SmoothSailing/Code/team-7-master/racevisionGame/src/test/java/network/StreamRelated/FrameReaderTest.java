@@ -0,0 +1,170 @@
+package network.StreamRelated;
+
+import network.BinaryMessageDecoder;
+import network.MessageEncoders.RaceVisionByteEncoder;
+import network.Messages.HeartBeat;
+import network.Messages.XMLMessage;
+import network.Messages.Enums.XMLMessageType;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link FrameReader} splits a stream into frames, and recovers from corrupt data.
+ */
+public class FrameReaderTest {
+
+    /**
+     * Creates a reader over some bytes.
+     * @param bytes The bytes to read.
+     * @return The reader.
+     */
+    private static FrameReader reader(byte[] bytes) {
+        return new FrameReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Reads the next frame, and decodes it as a heartbeat.
+     * @param reader The reader.
+     * @return The heartbeat's sequence number.
+     * @throws Exception Thrown in case of error.
+     */
+    private static long nextHeartBeat(FrameReader reader) throws Exception {
+        return ((HeartBeat) new BinaryMessageDecoder(reader.nextFrame()).decode()).getSequenceNumber();
+    }
+
+
+    /**
+     * Tests that back-to-back frames, including one larger than the initial buffer, are read intact.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void readFramesTest() throws Exception {
+
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            xml.append("<Boat/>");
+        }
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(1), 1));
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new XMLMessage(XMLMessage.currentVersionNumber, 1, 1, XMLMessageType.BOAT, 1, xml.toString()), 2));
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(2), 3));
+
+        FrameReader reader = reader(stream.toByteArray());
+
+        assertEquals(1, nextHeartBeat(reader));
+        assertEquals(xml.toString(), ((XMLMessage) new BinaryMessageDecoder(reader.nextFrame()).decode()).getXmlMessage());
+        assertEquals(2, nextHeartBeat(reader));
+
+        assertEquals(0, reader.getResyncCount());
+        assertEquals(0, reader.getDiscardedByteCount());
+
+        try {
+            reader.nextFrame();
+            fail("Expected end of stream.");
+        } catch (EOFException e) {
+            //Expected.
+        }
+    }
+
+
+    /**
+     * Tests that garbage between frames, and a frame with a corrupt byte, are skipped, and the following frames are still read.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void resyncTest() throws Exception {
+
+        byte[] corrupt = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(2), 2);
+        corrupt[BinaryMessageDecoder.headerLength] ^= 0x5A;
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(new byte[] {1, 2, BinaryMessageDecoder.syncByte1, 3});
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(1), 1));
+        stream.write(corrupt);
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(3), 3));
+
+        FrameReader reader = reader(stream.toByteArray());
+
+        assertEquals(1, nextHeartBeat(reader));
+        assertEquals(1, reader.getResyncCount());
+        assertEquals(4, reader.getDiscardedByteCount());
+
+        assertEquals(3, nextHeartBeat(reader));
+        assertEquals(2, reader.getResyncCount());
+        assertEquals(1, reader.getCRCFailureCount());
+        assertEquals(4 + corrupt.length, reader.getDiscardedByteCount());
+    }
+
+
+    /**
+     * Tests that a frame claiming a body longer than the maximum is skipped, without waiting for that many bytes.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void maxBodyLengthTest() throws Exception {
+
+        byte[] bogus = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(1), 1);
+        bogus[BinaryMessageDecoder.headerLength - 2] = (byte) 0xFF;
+        bogus[BinaryMessageDecoder.headerLength - 1] = (byte) 0xFF;
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(bogus);
+        stream.write(RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(2), 2));
+
+        FrameReader reader = new FrameReader(Channels.newChannel(new ByteArrayInputStream(stream.toByteArray())), 1024);
+
+        assertEquals(2, nextHeartBeat(reader));
+        assertEquals(bogus.length, reader.getDiscardedByteCount());
+    }
+
+
+    /**
+     * Tests that a non-blocking channel which has only part of a frame available gives null, and the frame once the rest arrives.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void partialFrameTest() throws Exception {
+
+        byte[] frame = RaceVisionByteEncoder.encodeBinaryMessage(new HeartBeat(7), 1);
+        ByteBuffer available = ByteBuffer.wrap(frame);
+        available.limit(10);
+
+        ReadableByteChannel channel = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer destination) {
+                int count = Math.min(available.remaining(), destination.remaining());
+                for (int i = 0; i < count; i++) {
+                    destination.put(available.get());
+                }
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        FrameReader reader = new FrameReader(channel);
+        assertNull(reader.nextFrame());
+
+        available.limit(frame.length);
+        assertEquals(7, nextHeartBeat(reader));
+        assertNull(reader.nextFrame());
+    }
+
+}
@@ -0,0 +1,202 @@
+package network.StreamRelated;
+
+import network.Messages.HeartBeat;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link HeartBeatMonitor} measures round trip time and jitter from echoes, and detects dead peers in bounded time.
+ */
+public class HeartBeatMonitorTest {
+
+    private static final long interval = 2500;
+
+    private HeartBeatMonitor monitor;
+
+    /**
+     * Time the monitor was created. Every time in these tests is relative to this.
+     */
+    private long start;
+
+
+    @Before
+    public void setUp() {
+        monitor = new HeartBeatMonitor(interval, 10000);
+        start = System.nanoTime();
+    }
+
+
+    /**
+     * Returns the time some milliseconds after the monitor was created.
+     * @param millis Milliseconds after creation.
+     * @return The time, in nanoseconds.
+     */
+    private long at(long millis) {
+        return start + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+
+    /**
+     * Heartbeats are sent once per interval.
+     */
+    @Test
+    public void sendsEveryIntervalTest() {
+
+        assertNull(monitor.poll(at(interval / 2)));
+
+        HeartBeat first = monitor.poll(at(interval));
+        assertNotNull(first);
+        assertFalse(first.isEcho());
+
+        assertNull(monitor.poll(at(interval + 10)));
+
+        HeartBeat second = monitor.poll(at(2 * interval));
+        assertNotNull(second);
+        assertNotEquals(first.getSequenceNumber(), second.getSequenceNumber());
+    }
+
+
+    /**
+     * The peer's heartbeats are echoed back, and echoes are not echoed again.
+     */
+    @Test
+    public void echoTest() {
+
+        HeartBeat echo = monitor.heartBeatReceived(new HeartBeat(42), at(0));
+
+        assertNotNull(echo);
+        assertTrue(echo.isEcho());
+        assertEquals(42, echo.getSequenceNumber() & ~HeartBeat.echoFlag);
+
+        assertNull(monitor.heartBeatReceived(echo, at(0)));
+    }
+
+
+    /**
+     * Echoes give round trip time samples, which are smoothed as in RFC 6298.
+     */
+    @Test
+    public void roundTripTimeTest() {
+
+        assertFalse(monitor.isEchoCapable());
+        assertEquals(0, monitor.getRoundTripTime(), 0);
+
+        HeartBeat first = monitor.poll(at(interval));
+        monitor.heartBeatReceived(first.createEcho(), at(interval + 40));
+
+        assertTrue(monitor.isEchoCapable());
+        assertEquals(40, monitor.getRoundTripTime(), 0.01);
+        assertEquals(20, monitor.getJitter(), 0.01);
+
+        HeartBeat second = monitor.poll(at(2 * interval + 40));
+        monitor.heartBeatReceived(second.createEcho(), at(2 * interval + 100));
+
+        assertEquals(60, monitor.getLastRoundTripTime(), 0.01);
+        assertEquals((7 * 40 + 60) / 8.0, monitor.getRoundTripTime(), 0.01);
+        assertEquals((3 * 20 + 20) / 4.0, monitor.getJitter(), 0.01);
+
+        //Timeout is srtt + 4 * rttvar, but never shorter than the minimum.
+        assertEquals(HeartBeatMonitor.minimumTimeoutMillis, monitor.getTimeout(), 0.01);
+    }
+
+
+    /**
+     * An echo of an old heartbeat still gives a sample, but the same echo isn't counted twice.
+     */
+    @Test
+    public void duplicateEchoTest() {
+
+        HeartBeat first = monitor.poll(at(interval));
+        monitor.heartBeatReceived(first.createEcho(), at(interval + 40));
+        monitor.heartBeatReceived(first.createEcho(), at(interval + 400));
+
+        assertEquals(40, monitor.getLastRoundTripTime(), 0.01);
+        assertEquals(40, monitor.getRoundTripTime(), 0.01);
+    }
+
+
+    /**
+     * A peer that stops echoing is probed every timeout, and is dead within interval + (maxMissedProbes + 1) * maximumTimeout of its last echo.
+     */
+    @Test
+    public void deadPeerTest() {
+
+        HeartBeat first = monitor.poll(at(interval));
+        monitor.heartBeatReceived(first.createEcho(), at(interval + 30));
+
+        long lastHeard = at(interval + 30);
+        long bound = interval + (HeartBeatMonitor.maxMissedProbes + 1) * HeartBeatMonitor.maximumTimeoutMillis;
+
+        //The peer goes silent. Poll exactly when asked to.
+        long now = lastHeard;
+        int probes = 0;
+        while (monitor.isAlive(now)) {
+            now = monitor.getNextPollTime();
+            if (monitor.poll(now) != null) {
+                probes++;
+            }
+
+            assertTrue("Peer not detected as dead in time.", now - lastHeard <= TimeUnit.MILLISECONDS.toNanos(bound));
+        }
+
+        assertEquals(HeartBeatMonitor.maxMissedProbes + 1, probes);
+        assertEquals(HeartBeatMonitor.maxMissedProbes, monitor.getMissedProbes());
+    }
+
+
+    /**
+     * A peer that is slow to echo, but is still sending other messages, isn't dead.
+     */
+    @Test
+    public void otherTrafficKeepsAliveTest() {
+
+        HeartBeat first = monitor.poll(at(interval));
+        monitor.heartBeatReceived(first.createEcho(), at(interval + 30));
+
+        for (int i = 0; i < 10; i++) {
+            long now = monitor.getNextPollTime();
+            monitor.messageReceived(now - 1);
+            monitor.poll(now);
+            assertTrue(monitor.isAlive(now));
+        }
+
+        assertEquals(0, monitor.getMissedProbes());
+    }
+
+
+    /**
+     * A peer which never echoes is judged by how long it has been silent.
+     */
+    @Test
+    public void legacyPeerTest() {
+
+        monitor.poll(at(interval));
+        monitor.heartBeatReceived(new HeartBeat(7), at(interval + 100));
+
+        assertFalse(monitor.isEchoCapable());
+        assertTrue(monitor.isAlive(at(interval + 9000)));
+        assertFalse(monitor.isAlive(at(interval + 10200)));
+
+        //Legacy peers still get a heartbeat every interval.
+        assertNotNull(monitor.poll(at(2 * interval)));
+        assertNull(monitor.poll(at(2 * interval + HeartBeatMonitor.maximumTimeoutMillis)));
+    }
+
+
+    /**
+     * Without a silent timeout, a peer which never echoes is never dead.
+     */
+    @Test
+    public void noSilentTimeoutTest() {
+
+        HeartBeatMonitor monitor = new HeartBeatMonitor();
+
+        assertTrue(monitor.isAlive(at(TimeUnit.HOURS.toMillis(1))));
+    }
+
+}
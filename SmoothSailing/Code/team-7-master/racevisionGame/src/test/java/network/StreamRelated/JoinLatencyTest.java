@@ -0,0 +1,75 @@
+package network.StreamRelated;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link JoinLatency} records each step of a join once, in order.
+ */
+public class JoinLatencyTest {
+
+    private JoinLatency joinLatency;
+
+
+    @Before
+    public void setUp() {
+        joinLatency = new JoinLatency("test", JoinLatency.Step.FIRST_FRAME);
+    }
+
+
+    /**
+     * Only the connection has been made to begin with.
+     */
+    @Test
+    public void initialTest() {
+
+        assertTrue(joinLatency.hasReached(JoinLatency.Step.CONNECTED));
+        assertEquals(0, joinLatency.getMillis(JoinLatency.Step.CONNECTED), 0);
+
+        assertFalse(joinLatency.hasReached(JoinLatency.Step.JOIN_ACCEPTANCE));
+        assertEquals(-1, joinLatency.getMillis(JoinLatency.Step.JOIN_ACCEPTANCE), 0);
+
+        assertFalse(joinLatency.isComplete());
+    }
+
+
+    /**
+     * A step's time is only recorded the first time it is reached.
+     */
+    @Test
+    public void markOnceTest() throws InterruptedException {
+
+        assertTrue(joinLatency.mark(JoinLatency.Step.XML));
+        double first = joinLatency.getMillis(JoinLatency.Step.XML);
+
+        Thread.sleep(5);
+
+        assertFalse(joinLatency.mark(JoinLatency.Step.XML));
+        assertEquals(first, joinLatency.getMillis(JoinLatency.Step.XML), 0);
+    }
+
+
+    /**
+     * The join is complete once its last step is reached, and each step's time is after the previous one's.
+     */
+    @Test
+    public void completeTest() {
+
+        for (JoinLatency.Step step : JoinLatency.Step.values()) {
+            joinLatency.mark(step);
+        }
+
+        assertTrue(joinLatency.isComplete());
+
+        double previous = 0;
+        for (JoinLatency.Step step : JoinLatency.Step.values()) {
+            assertTrue(joinLatency.getMillis(step) >= previous);
+            previous = joinLatency.getMillis(step);
+        }
+
+        assertTrue(joinLatency.toString().contains("FIRST_FRAME="));
+    }
+}
@@ -0,0 +1,79 @@
+package network.StreamRelated;
+
+import network.BinaryMessageDecoder;
+import network.Messages.AC35Data;
+import network.Messages.HeartBeat;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link MessageSerialiser} writes each frame period's messages with a single write.
+ */
+public class MessageSerialiserTest {
+
+    /**
+     * Records the number of write calls made.
+     */
+    private static class CountingOutputStream extends ByteArrayOutputStream {
+
+        private volatile int writes = 0;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes++;
+            super.write(b, off, len);
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            writes++;
+            super.write(b);
+        }
+    }
+
+
+    /**
+     * Queues several messages at once, and checks they are written in one call, in order, and can be decoded.
+     * @throws Exception Thrown in case of error.
+     */
+    @Test
+    public void batchedWriteTest() throws Exception {
+
+        CountingOutputStream output = new CountingOutputStream();
+        BlockingQueue<AC35Data> queue = new LinkedBlockingQueue<>();
+
+        for (int i = 0; i < 5; i++) {
+            queue.add(new HeartBeat(i));
+        }
+
+        MessageSerialiser serialiser = new MessageSerialiser(output, queue);
+        Thread thread = new Thread(serialiser, "MessageSerialiserTest serialiser");
+        thread.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (output.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        thread.interrupt();
+        thread.join();
+
+        assertEquals(1, output.writes);
+
+        ByteBuffer frames = ByteBuffer.wrap(output.toByteArray());
+        int frameLength = frames.remaining() / 5;
+
+        for (int i = 0; i < 5; i++) {
+            frames.limit((i + 1) * frameLength).position(i * frameLength);
+            HeartBeat heartBeat = (HeartBeat) new BinaryMessageDecoder(frames.slice()).decode();
+            assertEquals(i, heartBeat.getSequenceNumber());
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package network.StreamRelated;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests for {@link SpscRingQueue}.
+ */
+public class SpscRingQueueTest {
+
+
+    /**
+     * The capacity is rounded up to a power of two, and elements are returned oldest first.
+     */
+    @Test
+    public void fifoTest() {
+
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(3);
+        assertEquals(4, queue.getCapacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+
+        assertEquals(Integer.valueOf(0), queue.peek());
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+
+    /**
+     * Timed operations give up when nothing changes.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void timeoutTest() throws Exception {
+
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(1);
+
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        assertTrue(queue.offer(1, 10, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(2, 10, TimeUnit.MILLISECONDS));
+    }
+
+
+    /**
+     * A producer and consumer on different threads pass every element, in order, through a small ring, so that both sides have to wait.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void producerConsumerTest() throws Exception {
+
+        int count = 200000;
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>(8);
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    queue.put(i);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) queue.take());
+        }
+
+        producer.join();
+        assertTrue(queue.isEmpty());
+    }
+
+
+    /**
+     * A consumer waiting on an empty queue can be interrupted.
+     * @throws Exception if test fails.
+     */
+    @Test(timeout = 5000)
+    public void interruptTest() throws Exception {
+
+        SpscRingQueue<Integer> queue = new SpscRingQueue<>();
+        Thread.currentThread().interrupt();
+
+        try {
+            queue.take();
+            fail("take() should have been interrupted.");
+        } catch (InterruptedException e) {
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+
+}
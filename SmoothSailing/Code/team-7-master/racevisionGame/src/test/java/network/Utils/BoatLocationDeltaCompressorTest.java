@@ -0,0 +1,145 @@
+package network.Utils;
+
+import network.Messages.BoatLocation;
+import network.Messages.BoatLocationDelta;
+import network.Messages.Enums.BoatLocationDeviceEnum;
+import org.junit.Before;
+import org.junit.Test;
+import shared.model.Bearing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that {@link BoatLocationDeltaCompressor} and {@link BoatLocationDeltaExpander} reproduce boat locations, to within the quantisation error.
+ */
+public class BoatLocationDeltaCompressorTest {
+
+    private BoatLocationDeltaCompressor compressor;
+
+    private BoatLocationDeltaExpander expander;
+
+
+    @Before
+    public void setUp() {
+        compressor = new BoatLocationDeltaCompressor(10, 2);
+        expander = new BoatLocationDeltaExpander();
+    }
+
+
+    /**
+     * Creates the locations of three boats, a given distance from a starting point.
+     * @param offsetDegrees How far the boats have moved, in degrees.
+     * @return The boat locations.
+     */
+    private List<BoatLocation> createBoatLocations(double offsetDegrees) {
+
+        List<BoatLocation> boatLocations = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            boatLocations.add(new BoatLocation(
+                    101 + i,
+                    32.296577 + offsetDegrees * (i + 1),
+                    -64.854304 - offsetDegrees * i,
+                    1,
+                    BoatLocationDeviceEnum.RacingYacht,
+                    Bearing.fromDegrees(45 + i),
+                    12.5 + i,
+                    1000));
+        }
+
+        return boatLocations;
+    }
+
+
+    /**
+     * Checks that expanded locations are within the quantisation error of the originals.
+     * @param expected The original locations.
+     * @param actual The expanded locations.
+     */
+    private void assertWithinQuantisationError(List<BoatLocation> expected, List<BoatLocation> actual) {
+
+        //Rounding to a multiple of 2^shift packed units is off by at most 2^(shift-1) units, plus one unit of packing error.
+        double maxError = AC35UnitConverter.unpackGPS(2 + 1);
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getSourceID(), actual.get(i).getSourceID());
+            assertEquals(expected.get(i).getLatitude(), actual.get(i).getLatitude(), maxError);
+            assertEquals(expected.get(i).getLongitude(), actual.get(i).getLongitude(), maxError);
+            assertEquals(expected.get(i).getHeading().degrees(), actual.get(i).getHeading().degrees(), 0.01);
+            assertEquals(expected.get(i).getBoatSpeedKnots(), actual.get(i).getBoatSpeedKnots(), 0.01);
+        }
+    }
+
+
+    /**
+     * Compresses, then expands, a sequence of moving boats, and checks every frame is reproduced.
+     */
+    @Test
+    public void roundTripTest() {
+
+        for (int frame = 0; frame < 25; frame++) {
+
+            List<BoatLocation> boatLocations = createBoatLocations(frame * 0.0000137);
+            BoatLocationDelta delta = compressor.compress(boatLocations, 1000 + frame);
+
+            assertEquals(frame % 11 == 0, delta.isKeyframe());
+            assertWithinQuantisationError(boatLocations, expander.expand(delta));
+        }
+
+        assertEquals(0, expander.getIgnoredDeltaCount());
+    }
+
+
+    /**
+     * Checks that a boat moving too far for its offset to fit causes a keyframe.
+     */
+    @Test
+    public void overflowTest() {
+
+        assertTrue(compressor.compress(createBoatLocations(0), 1000).isKeyframe());
+        assertFalse(compressor.compress(createBoatLocations(0.0001), 1001).isKeyframe());
+
+        //About 2.2km - more than 32767 * 4 packed units.
+        List<BoatLocation> farAway = createBoatLocations(0.02);
+        BoatLocationDelta delta = compressor.compress(farAway, 1002);
+
+        assertTrue(delta.isKeyframe());
+    }
+
+
+    /**
+     * Checks that a change in boats causes a keyframe.
+     */
+    @Test
+    public void boatsChangedTest() {
+
+        List<BoatLocation> boatLocations = createBoatLocations(0);
+
+        assertTrue(compressor.compress(boatLocations, 1000).isKeyframe());
+        assertFalse(compressor.compress(boatLocations, 1001).isKeyframe());
+
+        boatLocations.remove(0);
+        assertTrue(compressor.compress(boatLocations, 1002).isKeyframe());
+    }
+
+
+    /**
+     * Checks that deltas received before their keyframe are ignored.
+     */
+    @Test
+    public void missingKeyframeTest() {
+
+        compressor.compress(createBoatLocations(0), 1000);
+        BoatLocationDelta delta = compressor.compress(createBoatLocations(0.00001), 1001);
+
+        assertTrue(expander.expand(delta).isEmpty());
+        assertEquals(1, expander.getIgnoredDeltaCount());
+    }
+
+}
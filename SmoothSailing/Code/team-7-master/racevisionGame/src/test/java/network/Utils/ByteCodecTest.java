@@ -0,0 +1,149 @@
+package network.Utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static network.Utils.ByteCodec.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the reading and writing functions in {@link ByteCodec}, by comparing them against {@link ByteConverter}.
+ */
+public class ByteCodecTest {
+
+
+    /**
+     * Tests that values written to an array match {@link ByteConverter}'s output.
+     */
+    @Test
+    public void testArrayPutMatchesByteConverter() {
+        byte[] bytes = new byte[8];
+
+        putInt8(bytes, 0, 0xAB);
+        assertArrayEquals(ByteConverter.intToBytes(0xAB, 1), copy(bytes, 1));
+
+        putInt16(bytes, 0, -12345);
+        assertArrayEquals(ByteConverter.intToBytes(-12345, 2), copy(bytes, 2));
+
+        putInt32(bytes, 0, 0x12345678);
+        assertArrayEquals(ByteConverter.intToBytes(0x12345678, 4), copy(bytes, 4));
+
+        putInt48(bytes, 0, 1494570214123L);
+        assertArrayEquals(ByteConverter.longToBytes(1494570214123L, 6), copy(bytes, 6));
+
+        putInt64(bytes, 0, -98765432123456789L);
+        assertArrayEquals(ByteConverter.longToBytes(-98765432123456789L, 8), copy(bytes, 8));
+    }
+
+
+    /**
+     * Tests that values read from an array match {@link ByteConverter}'s output.
+     */
+    @Test
+    public void testArrayGetMatchesByteConverter() {
+        byte[] bytes = {(byte) 0xF1, (byte) 0x82, 0x13, (byte) 0xA4, 0x55, (byte) 0xC6, 0x07, (byte) 0x98};
+
+        assertEquals(ByteConverter.bytesToInt(copy(bytes, 1)), getUInt8(bytes, 0));
+        assertEquals(ByteConverter.bytesToShort(copy(bytes, 2)), getInt16(bytes, 0));
+        assertEquals(ByteConverter.bytesToInt(copy(bytes, 2)), getUInt16(bytes, 0));
+        assertEquals(ByteConverter.bytesToInt(copy(bytes, 4)), getInt32(bytes, 0));
+        assertEquals(ByteConverter.bytesToLong(copy(bytes, 4)), getUInt32(bytes, 0));
+        assertEquals(ByteConverter.bytesToLong(copy(bytes, 6)), getUInt48(bytes, 0));
+        assertEquals(ByteConverter.bytesToLong(bytes), getInt64(bytes, 0));
+    }
+
+
+    /**
+     * Tests that buffers are always written and read as little endian, at the given index, whatever their byte order.
+     */
+    @Test
+    public void testBufferIsOrderIndependent() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            ByteBuffer buffer = ByteBuffer.allocate(32).order(order);
+
+            putInt16(buffer, 1, 0xBEEF);
+            putInt32(buffer, 3, 0xCAFEBABE);
+            putInt48(buffer, 7, 0x0000123456789ABCL);
+            putInt64(buffer, 13, 0x0102030405060708L);
+
+            assertEquals(0, buffer.position());
+            assertEquals(order, buffer.order());
+
+            assertEquals((byte) 0xEF, buffer.get(1));
+            assertEquals((byte) 0xBE, buffer.get(2));
+            assertEquals((byte) 0xBE, buffer.get(3));
+            assertEquals((byte) 0xCA, buffer.get(6));
+            assertEquals((byte) 0x08, buffer.get(13));
+
+            assertEquals(0xBEEF, getUInt16(buffer, 1));
+            assertEquals((short) 0xBEEF, getInt16(buffer, 1));
+            assertEquals(0xCAFEBABE, getInt32(buffer, 3));
+            assertEquals(0xCAFEBABEL, getUInt32(buffer, 3));
+            assertEquals(0x0000123456789ABCL, getUInt48(buffer, 7));
+            assertEquals(0x0102030405060708L, getInt64(buffer, 13));
+        }
+    }
+
+
+    /**
+     * Tests that relative writes advance the buffer's position, and match absolute writes.
+     */
+    @Test
+    public void testRelativePut() {
+        ByteBuffer buffer = ByteBuffer.allocate(21).order(ByteOrder.BIG_ENDIAN);
+
+        putInt8(buffer, 7);
+        putInt16(buffer, 300);
+        putInt32(buffer, -5);
+        putInt48(buffer, 1494570214123L);
+        putInt64(buffer, Long.MIN_VALUE);
+
+        assertEquals(21, buffer.position());
+        assertEquals(7, getUInt8(buffer, 0));
+        assertEquals(300, getUInt16(buffer, 1));
+        assertEquals(-5, getInt32(buffer, 3));
+        assertEquals(1494570214123L, getUInt48(buffer, 7));
+        assertEquals(Long.MIN_VALUE, getInt64(buffer, 13));
+    }
+
+
+    /**
+     * Tests the variable size read/write functions.
+     */
+    @Test
+    public void testVariableSize() {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+
+        for (int size : new int[]{1, 2, 4, 6}) {
+            long max = (1L << (size * 8)) - 1;
+            putUnsigned(buffer, 0, max, size);
+            assertEquals(max, getUnsigned(buffer, 0, size));
+        }
+    }
+
+
+    /**
+     * Tests that an unsupported size is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedSize() {
+        getUnsigned(ByteBuffer.allocate(8), 0, 3);
+    }
+
+
+    /**
+     * Copies the first few bytes of an array.
+     * @param bytes The array.
+     * @param length Number of bytes to copy.
+     * @return The copy.
+     */
+    private static byte[] copy(byte[] bytes, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, 0, result, 0, length);
+        return result;
+    }
+
+}
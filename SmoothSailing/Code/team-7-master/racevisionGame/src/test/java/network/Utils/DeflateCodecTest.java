@@ -0,0 +1,70 @@
+package network.Utils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link DeflateCodec}.
+ */
+public class DeflateCodecTest {
+
+
+    /**
+     * Repetitive text shrinks, and inflates back to the original without moving the buffer's position.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void roundTripTest() throws Exception {
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("<Yacht SourceID=\"").append(i).append("\" Type=\"Yacht\"/>\n");
+        }
+        byte[] original = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] deflated = DeflateCodec.deflate(original);
+        assertTrue(deflated.length < original.length / 4);
+
+        ByteBuffer buffer = ByteBuffer.wrap(deflated);
+        assertArrayEquals(original, DeflateCodec.inflate(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    /**
+     * Empty input survives the round trip.
+     * @throws Exception if test fails.
+     */
+    @Test
+    public void emptyTest() throws Exception {
+        assertEquals(0, DeflateCodec.inflate(ByteBuffer.wrap(DeflateCodec.deflate(new byte[0]))).length);
+    }
+
+    /**
+     * Cut short data is rejected, rather than decoded as a shorter message.
+     * @throws Exception if test fails.
+     */
+    @Test(expected = DataFormatException.class)
+    public void truncatedTest() throws Exception {
+
+        byte[] deflated = DeflateCodec.deflate(new byte[10000]);
+
+        DeflateCodec.inflate(ByteBuffer.wrap(Arrays.copyOf(deflated, deflated.length - 4)));
+    }
+
+    /**
+     * Bytes that aren't Deflate data are rejected.
+     * @throws Exception if test fails.
+     */
+    @Test(expected = DataFormatException.class)
+    public void garbageTest() throws Exception {
+        DeflateCodec.inflate(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+}
@@ -0,0 +1,107 @@
+package shared.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that the course projection agrees with GeoTools' geodetic calculations across a course, at several latitudes.
+ */
+public class CourseProjectionTest {
+
+    /**
+     * Largest error, in meters, allowed in a distance or new position.
+     */
+    private double meterEpsilon = 0.01;
+
+    /**
+     * Largest error, in degrees, allowed in an azimuth.
+     */
+    private double degreeEpsilon = 1e-4;
+
+    /**
+     * Latitudes of the anchors tested: Bermuda (the AC35 course), the equator, southern hemisphere, and high latitude.
+     */
+    private double[] anchorLatitudes = {32.29, 0, -43.5, 60};
+
+
+    /**
+     * Checks pairs of points, up to 5km apart, scattered up to a given distance from the anchor.
+     * @param radiusMeters Furthest distance from the anchor to test.
+     */
+    private void checkErrorBounds(double radiusMeters) {
+
+        for (double anchorLatitude : anchorLatitudes) {
+            CourseProjection projection = new CourseProjection(new GPSCoordinate(anchorLatitude, -64.85));
+            Random random = new Random(anchorLatitude > 0 ? 1 : 2);
+
+            for (int i = 0; i < 2000; i++) {
+                GPSCoordinate start = GPSCoordinate.calculateGeodeticNewPosition(projection.getAnchor(), random.nextDouble() * radiusMeters, Azimuth.fromDegrees(random.nextDouble() * 360));
+                double distance = 1 + random.nextDouble() * 5000;
+                Azimuth azimuth = Azimuth.fromDegrees(random.nextDouble() * 360);
+                GPSCoordinate end = GPSCoordinate.calculateGeodeticNewPosition(start, distance, azimuth);
+
+                assertTrue(projection.covers(start.getLatitude(), start.getLongitude()));
+
+                assertEquals(GPSCoordinate.calculateGeodeticDistanceMeters(start, end),
+                        projection.distanceMeters(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude()),
+                        meterEpsilon);
+
+                double azimuthError = projection.azimuthDegrees(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude()) - GPSCoordinate.calculateGeodeticAzimuth(start, end).degrees();
+                assertEquals(0, Azimuth.toAzimuthInterval(azimuthError), degreeEpsilon);
+
+                GPSCoordinate projectedEnd = projection.newPosition(start.getLatitude(), start.getLongitude(), distance, azimuth.degrees());
+                assertEquals(0, GPSCoordinate.calculateGeodeticDistanceMeters(end, projectedEnd), meterEpsilon);
+            }
+        }
+    }
+
+    /**
+     * Within a typical course, a few km across, the projection is within a centimetre and a ten thousandth of a degree of GeoTools.
+     */
+    @Test
+    public void courseErrorTest() {
+        checkErrorBounds(5000);
+    }
+
+    /**
+     * The same bounds hold out to the edge of the projection's valid radius.
+     */
+    @Test
+    public void validRadiusErrorTest() {
+        checkErrorBounds(CourseProjection.ValidRadiusMeters * 0.99);
+    }
+
+    /**
+     * Points beyond the valid radius aren't covered.
+     */
+    @Test
+    public void coversTest() {
+        CourseProjection projection = new CourseProjection(new GPSCoordinate(32.29, -64.85));
+
+        for (double azimuth = -180; azimuth < 180; azimuth += 45) {
+            GPSCoordinate near = GPSCoordinate.calculateGeodeticNewPosition(projection.getAnchor(), CourseProjection.ValidRadiusMeters * 0.9, Azimuth.fromDegrees(azimuth));
+            GPSCoordinate far = GPSCoordinate.calculateGeodeticNewPosition(projection.getAnchor(), CourseProjection.ValidRadiusMeters * 1.5, Azimuth.fromDegrees(azimuth));
+
+            assertTrue(projection.covers(near.getLatitude(), near.getLongitude()));
+            assertFalse(projection.covers(far.getLatitude(), far.getLongitude()));
+        }
+    }
+
+    /**
+     * A boundary's projection is anchored at its centre.
+     */
+    @Test
+    public void forBoundaryTest() {
+        CourseProjection projection = CourseProjection.forBoundary(Arrays.asList(
+                new GPSCoordinate(32.28, -64.86),
+                new GPSCoordinate(32.30, -64.86),
+                new GPSCoordinate(32.30, -64.82)));
+
+        assertEquals(new GPSCoordinate(32.29, -64.84), projection.getAnchor());
+    }
+}
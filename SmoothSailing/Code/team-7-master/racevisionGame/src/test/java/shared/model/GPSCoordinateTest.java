@@ -6,6 +6,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -104,4 +105,40 @@ public class GPSCoordinateTest {
         boolean inside = GPSCoordinate.isInsideBoundary(coordinate, boundary, new GPSCoordinate(0, 0), new GPSCoordinate(10, 10));
         assertFalse(inside);
     }
+
+    /**
+     * Points near the course use the projection, and points away from it, or any points without a projection, use GeoTools.
+     */
+    @Test
+    public void projectionFallbackTest() {
+        GPSCoordinate centre = new GPSCoordinate(32.29, -64.85);
+        GPSCoordinate near = new GPSCoordinate(32.30, -64.84);
+        GPSCoordinate far = new GPSCoordinate(33.5, -64.84);
+        CourseProjection projection = new CourseProjection(centre);
+
+        assertEquals(projection.distanceMeters(32.29, -64.85, 32.30, -64.84), GPSCoordinate.calculateDistanceMeters(centre, near, projection), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticDistanceMeters(centre, far), GPSCoordinate.calculateDistanceMeters(centre, far, projection), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticAzimuth(centre, far).degrees(), GPSCoordinate.calculateAzimuth(centre, far, projection).degrees(), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticNewPosition(centre, 200000, Azimuth.fromDegrees(0)), GPSCoordinate.calculateNewPosition(centre, 200000, Azimuth.fromDegrees(0), projection));
+
+        assertEquals(GPSCoordinate.calculateGeodeticDistanceMeters(centre, near), GPSCoordinate.calculateDistanceMeters(centre, near), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticAzimuth(centre, near).degrees(), GPSCoordinate.calculateAzimuth(centre, near).degrees(), 0);
+    }
+
+    /**
+     * Each race's projection is used by the calculations it is passed to, and only those.
+     */
+    @Test
+    public void raceProjectionTest() {
+        GPSCoordinate centre = new GPSCoordinate(32.29, -64.85);
+        GPSCoordinate near = new GPSCoordinate(32.30, -64.84);
+        CourseProjection raceProjection = new CourseProjection(centre);
+        CourseProjection otherRaceProjection = new CourseProjection(near);
+
+        assertEquals(raceProjection.distanceMeters(32.29, -64.85, 32.30, -64.84), GPSCoordinate.calculateDistanceMeters(centre, near, raceProjection), 0);
+        assertEquals(raceProjection.azimuthDegrees(32.29, -64.85, 32.30, -64.84), GPSCoordinate.calculateAzimuthDegrees(32.29, -64.85, 32.30, -64.84, raceProjection), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticDistanceMeters(centre, near), GPSCoordinate.calculateDistanceMeters(centre, near), 0);
+        assertEquals(GPSCoordinate.calculateGeodeticDistanceMeters(centre, near), GPSCoordinate.calculateDistanceMeters(32.29, -64.85, 32.30, -64.84, null), 0);
+        assertEquals(otherRaceProjection.distanceMeters(32.29, -64.85, 32.30, -64.84), GPSCoordinate.calculateDistanceMeters(centre, near, otherRaceProjection), 0);
+    }
 }
@@ -0,0 +1,141 @@
+package shared.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that a {@link TimingWheel} runs timeouts when they expire, and not before.
+ */
+public class TimingWheelTest {
+
+    /**
+     * A small wheel - 10ms ticks, 8 buckets - so long delays go round more than once.
+     */
+    private TimingWheel wheel;
+
+    /**
+     * Time just after the wheel was created.
+     */
+    private long start;
+
+
+    @Before
+    public void setUp() {
+        wheel = new TimingWheel(10, 8);
+        start = System.nanoTime();
+    }
+
+
+    /**
+     * Returns the time some milliseconds after the wheel was created.
+     * @param millis Milliseconds after creation.
+     * @return The time, in nanoseconds.
+     */
+    private long at(long millis) {
+        return start + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+
+    @Test
+    public void expiresAfterDelayTest() {
+
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(runs::incrementAndGet, 50);
+
+        wheel.advance(at(30));
+        assertEquals(0, runs.get());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(at(70));
+        assertEquals(1, runs.get());
+        assertEquals(0, wheel.size());
+
+        wheel.advance(at(500));
+        assertEquals(1, runs.get());
+    }
+
+
+    /**
+     * A delay longer than the wheel goes round several times before it runs.
+     */
+    @Test
+    public void multipleRoundsTest() {
+
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(runs::incrementAndGet, 250);
+
+        wheel.advance(at(200));
+        assertEquals(0, runs.get());
+
+        wheel.advance(at(270));
+        assertEquals(1, runs.get());
+    }
+
+
+    @Test
+    public void cancelTest() {
+
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 50);
+        wheel.advance(at(20));
+
+        timeout.cancel();
+        wheel.advance(at(100));
+
+        assertTrue(timeout.isCancelled());
+        assertEquals(0, runs.get());
+        assertEquals(0, wheel.size());
+    }
+
+
+    /**
+     * Timeouts run in deadline order, and a task can reschedule itself.
+     */
+    @Test
+    public void orderAndRescheduleTest() {
+
+        List<String> runs = new ArrayList<>();
+
+        wheel.schedule(() -> runs.add("c"), 120);
+        wheel.schedule(() -> runs.add("a"), 20);
+        wheel.schedule(() -> {
+            runs.add("b");
+            wheel.schedule(() -> runs.add("d"), 0);
+        }, 60);
+
+        wheel.advance(at(200));
+
+        assertEquals(4, runs.size());
+        assertEquals("a", runs.get(0));
+        assertEquals("b", runs.get(1));
+        assertTrue(runs.indexOf("d") > runs.indexOf("b"));
+        assertTrue(runs.contains("c"));
+    }
+
+
+    /**
+     * A task which throws doesn't stop others running.
+     */
+    @Test
+    public void failingTaskTest() {
+
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(() -> {
+            throw new IllegalStateException("test");
+        }, 10);
+        wheel.schedule(runs::incrementAndGet, 10);
+
+        wheel.advance(at(50));
+
+        assertEquals(1, runs.get());
+    }
+
+}
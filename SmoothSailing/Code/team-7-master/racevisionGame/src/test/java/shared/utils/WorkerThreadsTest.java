@@ -0,0 +1,82 @@
+package shared.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that {@link WorkerThreads} creates usable threads in each mode.
+ */
+public class WorkerThreadsTest {
+
+
+    @After
+    public void tearDown() {
+        WorkerThreads.setMode(WorkerThreads.parseMode(System.getProperty(WorkerThreads.modeProperty)));
+    }
+
+
+    /**
+     * Tests that mode names are parsed, and unknown names fall back to auto.
+     */
+    @Test
+    public void parseModeTest() {
+        assertEquals(WorkerThreads.Mode.VIRTUAL, WorkerThreads.parseMode(" Virtual "));
+        assertEquals(WorkerThreads.Mode.PLATFORM, WorkerThreads.parseMode("platform"));
+        assertEquals(WorkerThreads.Mode.AUTO, WorkerThreads.parseMode(null));
+        assertEquals(WorkerThreads.Mode.AUTO, WorkerThreads.parseMode("fibers"));
+    }
+
+
+    /**
+     * Tests that platform mode never uses virtual threads, and virtual mode only does if they are available.
+     */
+    @Test
+    public void modeTest() {
+        WorkerThreads.setMode(WorkerThreads.Mode.PLATFORM);
+        assertFalse(WorkerThreads.isVirtual());
+
+        WorkerThreads.setMode(WorkerThreads.Mode.VIRTUAL);
+        assertEquals(WorkerThreads.isVirtualAvailable(), WorkerThreads.isVirtual());
+    }
+
+
+    /**
+     * Tests that created threads are named, unstarted, run their worker, and can be interrupted, in every mode.
+     * @throws Exception Thrown if interrupted.
+     */
+    @Test
+    public void createTest() throws Exception {
+
+        for (WorkerThreads.Mode mode : WorkerThreads.Mode.values()) {
+            WorkerThreads.setMode(mode);
+
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch interrupted = new CountDownLatch(1);
+
+            Thread thread = WorkerThreads.create(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }, "WorkerThreadsTest " + mode);
+
+            assertEquals("WorkerThreadsTest " + mode, thread.getName());
+            assertEquals(Thread.State.NEW, thread.getState());
+
+            thread.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            thread.interrupt();
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            thread.join();
+        }
+    }
+}
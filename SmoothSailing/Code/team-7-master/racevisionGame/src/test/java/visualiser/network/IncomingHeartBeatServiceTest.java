@@ -0,0 +1,72 @@
+package visualiser.network;
+
+import network.Messages.AC35Data;
+import network.Messages.HeartBeat;
+import network.StreamRelated.HeartBeatMonitor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests that an {@link IncomingHeartBeatService} publishes its monitor's round trip time, jitter, and time since last seen.
+ */
+public class IncomingHeartBeatServiceTest {
+
+    private IncomingHeartBeatService heartBeatService;
+
+    /**
+     * Time the service was created. Every time in these tests is relative to this.
+     */
+    private long start;
+
+
+    @Before
+    public void setUp() {
+        BlockingQueue<AC35Data> outgoingMessages = new LinkedBlockingQueue<>();
+        heartBeatService = new IncomingHeartBeatService(outgoingMessages);
+        start = System.nanoTime();
+    }
+
+
+    /**
+     * Returns the time some milliseconds after the service was created.
+     * @param millis Milliseconds after creation.
+     * @return The time, in nanoseconds.
+     */
+    private long at(long millis) {
+        return start + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+
+    /**
+     * Once the server echoes one of our heartbeats, the round trip time, jitter, and time since last seen are published.
+     */
+    @Test
+    public void echoUpdatesLatencyTest() {
+
+        heartBeatService.publishLatency(at(0));
+        assertEquals(0, heartBeatService.roundTripTimeProperty().get(), 0);
+        assertFalse(heartBeatService.latencyProperty().get().startsWith("RTT"));
+
+        HeartBeatMonitor monitor = heartBeatService.getHeartBeatMonitor();
+        long sent = HeartBeatMonitor.defaultIntervalMillis;
+        HeartBeat heartBeat = monitor.poll(at(sent));
+        assertNotNull(heartBeat);
+
+        //The echo arrives 40 ms later.
+        monitor.heartBeatReceived(heartBeat.createEcho(), at(sent + 40));
+        heartBeatService.publishLatency(at(sent + 140));
+
+        assertEquals(40, heartBeatService.roundTripTimeProperty().get(), 0.001);
+        assertEquals(20, heartBeatService.jitterProperty().get(), 0.001);
+        assertEquals(100, heartBeatService.timeSinceLastSeenProperty().get());
+        assertEquals("RTT 40 ms ± 20 ms, seen 0.1 s ago", heartBeatService.latencyProperty().get());
+    }
+
+}